@@ -22,6 +22,7 @@ import com.google.common.collect.ImmutableSet;
 import io.airlift.log.Logger;
 import io.airlift.units.Duration;
 import io.prestosql.spi.PrestoException;
+import io.prestosql.spi.connector.AggregateFunction;
 import io.prestosql.spi.connector.ColumnHandle;
 import io.prestosql.spi.connector.ColumnMetadata;
 import io.prestosql.spi.connector.ConnectorSession;
@@ -30,10 +31,13 @@ import io.prestosql.spi.connector.ConnectorTableMetadata;
 import io.prestosql.spi.connector.FixedSplitSource;
 import io.prestosql.spi.connector.SchemaTableName;
 import io.prestosql.spi.connector.TableNotFoundException;
+import io.prestosql.spi.expression.ConnectorExpression;
+import io.prestosql.spi.expression.Variable;
 import io.prestosql.spi.predicate.TupleDomain;
 import io.prestosql.spi.statistics.TableStatistics;
 import io.prestosql.spi.type.CharType;
 import io.prestosql.spi.type.DecimalType;
+import io.prestosql.spi.type.Decimals;
 import io.prestosql.spi.type.Type;
 import io.prestosql.spi.type.VarcharType;
 
@@ -43,6 +47,7 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.sql.Types;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
@@ -101,6 +106,8 @@ public class BaseJdbcClient
 {
     private static final Logger log = Logger.get(BaseJdbcClient.class);
 
+    private static final JdbcTypeHandle BIGINT_TYPE_HANDLE = new JdbcTypeHandle(Types.BIGINT, Optional.of("bigint"), 0, 0, Optional.empty());
+
     private static final Map<Type, WriteMapping> WRITE_MAPPINGS = ImmutableMap.<Type, WriteMapping>builder()
             .put(BOOLEAN, WriteMapping.booleanMapping("boolean", booleanWriteFunction()))
             .put(BIGINT, WriteMapping.longMapping("bigint", bigintWriteFunction()))
@@ -293,13 +300,96 @@ public class BaseJdbcClient
                 this,
                 session,
                 connection,
-                table.getCatalogName(),
-                table.getSchemaName(),
-                table.getTableName(),
+                table,
                 columns,
-                table.getConstraint(),
                 split.getAdditionalPredicate(),
-                tryApplyLimit(table.getLimit()));
+                table.getSortOrder()
+                        .map(sortOrder -> tryApplyTopN(sortOrder, table.getLimit().getAsLong()))
+                        .orElseGet(() -> tryApplyLimit(table.getLimit())));
+    }
+
+    @Override
+    public Optional<JdbcExpression> implementAggregation(ConnectorSession session, AggregateFunction aggregate, Map<String, ColumnHandle> assignments)
+    {
+        if (aggregate.isDistinct()) {
+            return Optional.empty();
+        }
+
+        List<JdbcColumnHandle> inputs = new ArrayList<>();
+        for (ConnectorExpression input : aggregate.getInputs()) {
+            if (!(input instanceof Variable)) {
+                return Optional.empty();
+            }
+            inputs.add((JdbcColumnHandle) assignments.get(((Variable) input).getName()));
+        }
+
+        switch (aggregate.getFunctionName()) {
+            case "count":
+                if (inputs.isEmpty()) {
+                    return Optional.of(new JdbcExpression("count(*)", BIGINT_TYPE_HANDLE));
+                }
+                if (inputs.size() == 1) {
+                    return Optional.of(new JdbcExpression(format("count(%s)", quoted(inputs.get(0).getColumnName())), BIGINT_TYPE_HANDLE));
+                }
+                return Optional.empty();
+            case "min":
+            case "max":
+                if (inputs.size() != 1 || !isMinMaxComparable(inputs.get(0).getColumnType())) {
+                    return Optional.empty();
+                }
+                return Optional.of(new JdbcExpression(
+                        format("%s(%s)", aggregate.getFunctionName(), quoted(inputs.get(0).getColumnName())),
+                        inputs.get(0).getJdbcTypeHandle()));
+            case "sum":
+                if (inputs.size() != 1) {
+                    return Optional.empty();
+                }
+                return getSumTypeHandle(inputs.get(0))
+                        .map(typeHandle -> new JdbcExpression(format("sum(%s)", quoted(inputs.get(0).getColumnName())), typeHandle));
+            default:
+                return Optional.empty();
+        }
+    }
+
+    private static Optional<JdbcTypeHandle> getSumTypeHandle(JdbcColumnHandle column)
+    {
+        Type type = column.getColumnType();
+        if (type.equals(TINYINT) || type.equals(SMALLINT) || type.equals(INTEGER) || type.equals(BIGINT)) {
+            return Optional.of(BIGINT_TYPE_HANDLE);
+        }
+        if (type.equals(REAL) || type.equals(DOUBLE)) {
+            return Optional.of(column.getJdbcTypeHandle());
+        }
+        if (type instanceof DecimalType) {
+            // the sum of decimal(p, s) is decimal(38, s)
+            int scale = ((DecimalType) type).getScale();
+            return Optional.of(new JdbcTypeHandle(Types.DECIMAL, Optional.of("decimal"), Decimals.MAX_PRECISION, scale, Optional.empty()));
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Returns whether values of the given type compare equal in the remote database exactly when they do in Presto,
+     * i.e. it is safe to group by a column of this type, or to compute its minimum and maximum, in the remote database.
+     */
+    protected static boolean isExactlyComparable(Type type)
+    {
+        return type.equals(BOOLEAN) ||
+                type.equals(TINYINT) ||
+                type.equals(SMALLINT) ||
+                type.equals(INTEGER) ||
+                type.equals(BIGINT) ||
+                type.equals(DATE) ||
+                type instanceof DecimalType;
+    }
+
+    /**
+     * Returns whether the minimum and maximum of the given type can be computed in the remote database.
+     * Booleans are excluded, as not every database orders them, e.g. PostgreSQL has no {@code min(boolean)}.
+     */
+    private static boolean isMinMaxComparable(Type type)
+    {
+        return !type.equals(BOOLEAN) && isExactlyComparable(type);
     }
 
     @Override
@@ -752,6 +842,27 @@ public class BaseJdbcClient
         throw new PrestoException(JDBC_ERROR, "limitFunction() is implemented without isLimitGuaranteed()");
     }
 
+    private Function<String, String> tryApplyTopN(List<JdbcSortItem> sortOrder, long limit)
+    {
+        TopNFunction topNFunction = topNFunction()
+                .orElseThrow(() -> new PrestoException(JDBC_ERROR, "TopN is pushed down without topNFunction()"));
+        return sql -> topNFunction.apply(sql, sortOrder, limit);
+    }
+
+    @Override
+    public boolean supportsTopN(ConnectorSession session, List<JdbcSortItem> sortOrder)
+    {
+        // the remote database must order the rows the same way as Presto does
+        return topNFunction().isPresent() && sortOrder.stream()
+                .map(sortItem -> sortItem.getColumn().getColumnType())
+                .allMatch(BaseJdbcClient::isExactlyComparable);
+    }
+
+    protected Optional<TopNFunction> topNFunction()
+    {
+        return Optional.empty();
+    }
+
     protected String quoted(String name)
     {
         name = name.replace(identifierQuote, identifierQuote + identifierQuote);
@@ -13,11 +13,13 @@
  */
 package io.prestosql.plugin.jdbc;
 
+import io.prestosql.spi.connector.AggregateFunction;
 import io.prestosql.spi.connector.ColumnHandle;
 import io.prestosql.spi.connector.ColumnMetadata;
 import io.prestosql.spi.connector.ConnectorSession;
 import io.prestosql.spi.connector.ConnectorSplitSource;
 import io.prestosql.spi.connector.ConnectorTableMetadata;
+import io.prestosql.spi.connector.JoinType;
 import io.prestosql.spi.connector.SchemaTableName;
 import io.prestosql.spi.predicate.TupleDomain;
 import io.prestosql.spi.statistics.TableStatistics;
@@ -27,6 +29,7 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 
@@ -178,6 +181,30 @@ public abstract class ForwardingJdbcClient
         return getDelegate().isLimitGuaranteed();
     }
 
+    @Override
+    public boolean supportsTopN(ConnectorSession session, List<JdbcSortItem> sortOrder)
+    {
+        return getDelegate().supportsTopN(session, sortOrder);
+    }
+
+    @Override
+    public boolean supportsAggregationPushdown(ConnectorSession session, List<JdbcColumnHandle> groupingColumns)
+    {
+        return getDelegate().supportsAggregationPushdown(session, groupingColumns);
+    }
+
+    @Override
+    public Optional<JdbcExpression> implementAggregation(ConnectorSession session, AggregateFunction aggregate, Map<String, ColumnHandle> assignments)
+    {
+        return getDelegate().implementAggregation(session, aggregate, assignments);
+    }
+
+    @Override
+    public boolean supportsJoinPushdown(ConnectorSession session, JoinType joinType, List<JdbcJoinCondition> conditions)
+    {
+        return getDelegate().supportsJoinPushdown(session, joinType, conditions);
+    }
+
     @Override
     public void addColumn(ConnectorSession session, JdbcTableHandle handle, ColumnMetadata column)
     {
@@ -0,0 +1,157 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.plugin.jdbc;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.collect.ImmutableList;
+import io.prestosql.spi.connector.JoinType;
+
+import java.util.List;
+import java.util.Objects;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Join of two tables of the same remote database. The columns of both tables are exposed
+ * under new names, unique across the join, so that the joined table can be queried like any other.
+ */
+public final class JdbcJoin
+{
+    private final JoinType joinType;
+    private final JdbcTableHandle left;
+    private final JdbcTableHandle right;
+    // conditions on the output columns
+    private final List<JdbcJoinCondition> conditions;
+    private final List<JdbcColumnHandle> leftColumns;
+    private final List<JdbcColumnHandle> leftOutputColumns;
+    private final List<JdbcColumnHandle> rightColumns;
+    private final List<JdbcColumnHandle> rightOutputColumns;
+
+    @JsonCreator
+    public JdbcJoin(
+            @JsonProperty("joinType") JoinType joinType,
+            @JsonProperty("left") JdbcTableHandle left,
+            @JsonProperty("right") JdbcTableHandle right,
+            @JsonProperty("conditions") List<JdbcJoinCondition> conditions,
+            @JsonProperty("leftColumns") List<JdbcColumnHandle> leftColumns,
+            @JsonProperty("leftOutputColumns") List<JdbcColumnHandle> leftOutputColumns,
+            @JsonProperty("rightColumns") List<JdbcColumnHandle> rightColumns,
+            @JsonProperty("rightOutputColumns") List<JdbcColumnHandle> rightOutputColumns)
+    {
+        this.joinType = requireNonNull(joinType, "joinType is null");
+        this.left = requireNonNull(left, "left is null");
+        this.right = requireNonNull(right, "right is null");
+        this.conditions = ImmutableList.copyOf(requireNonNull(conditions, "conditions is null"));
+        this.leftColumns = ImmutableList.copyOf(requireNonNull(leftColumns, "leftColumns is null"));
+        this.leftOutputColumns = ImmutableList.copyOf(requireNonNull(leftOutputColumns, "leftOutputColumns is null"));
+        this.rightColumns = ImmutableList.copyOf(requireNonNull(rightColumns, "rightColumns is null"));
+        this.rightOutputColumns = ImmutableList.copyOf(requireNonNull(rightOutputColumns, "rightOutputColumns is null"));
+        checkArgument(leftColumns.size() == leftOutputColumns.size(), "leftColumns and leftOutputColumns must have the same size");
+        checkArgument(rightColumns.size() == rightOutputColumns.size(), "rightColumns and rightOutputColumns must have the same size");
+    }
+
+    @JsonProperty
+    public JoinType getJoinType()
+    {
+        return joinType;
+    }
+
+    @JsonProperty
+    public JdbcTableHandle getLeft()
+    {
+        return left;
+    }
+
+    @JsonProperty
+    public JdbcTableHandle getRight()
+    {
+        return right;
+    }
+
+    @JsonProperty
+    public List<JdbcJoinCondition> getConditions()
+    {
+        return conditions;
+    }
+
+    @JsonProperty
+    public List<JdbcColumnHandle> getLeftColumns()
+    {
+        return leftColumns;
+    }
+
+    @JsonProperty
+    public List<JdbcColumnHandle> getLeftOutputColumns()
+    {
+        return leftOutputColumns;
+    }
+
+    @JsonProperty
+    public List<JdbcColumnHandle> getRightColumns()
+    {
+        return rightColumns;
+    }
+
+    @JsonProperty
+    public List<JdbcColumnHandle> getRightOutputColumns()
+    {
+        return rightOutputColumns;
+    }
+
+    public List<JdbcColumnHandle> getOutputColumns()
+    {
+        return ImmutableList.<JdbcColumnHandle>builder()
+                .addAll(leftOutputColumns)
+                .addAll(rightOutputColumns)
+                .build();
+    }
+
+    @Override
+    public boolean equals(Object obj)
+    {
+        if (this == obj) {
+            return true;
+        }
+        if ((obj == null) || (getClass() != obj.getClass())) {
+            return false;
+        }
+        JdbcJoin o = (JdbcJoin) obj;
+        return Objects.equals(this.joinType, o.joinType) &&
+                Objects.equals(this.left, o.left) &&
+                Objects.equals(this.right, o.right) &&
+                Objects.equals(this.conditions, o.conditions) &&
+                Objects.equals(this.leftOutputColumns, o.leftOutputColumns) &&
+                Objects.equals(this.rightOutputColumns, o.rightOutputColumns);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return Objects.hash(joinType, left, right, conditions, leftOutputColumns, rightOutputColumns);
+    }
+
+    @Override
+    public String toString()
+    {
+        return toStringHelper(this)
+                .add("joinType", joinType)
+                .add("left", left)
+                .add("right", right)
+                .add("conditions", conditions)
+                .toString();
+    }
+}
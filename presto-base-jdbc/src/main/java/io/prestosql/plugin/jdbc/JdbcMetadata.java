@@ -17,6 +17,8 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import io.airlift.slice.Slice;
 import io.prestosql.spi.PrestoException;
+import io.prestosql.spi.connector.AggregateFunction;
+import io.prestosql.spi.connector.AggregationApplicationResult;
 import io.prestosql.spi.connector.ColumnHandle;
 import io.prestosql.spi.connector.ColumnMetadata;
 import io.prestosql.spi.connector.ConnectorInsertTableHandle;
@@ -30,15 +32,24 @@ import io.prestosql.spi.connector.ConnectorTableMetadata;
 import io.prestosql.spi.connector.ConnectorTableProperties;
 import io.prestosql.spi.connector.Constraint;
 import io.prestosql.spi.connector.ConstraintApplicationResult;
+import io.prestosql.spi.connector.JoinApplicationResult;
+import io.prestosql.spi.connector.JoinCondition;
+import io.prestosql.spi.connector.JoinType;
 import io.prestosql.spi.connector.LimitApplicationResult;
+import io.prestosql.spi.connector.ProjectionApplicationResult.Assignment;
 import io.prestosql.spi.connector.SchemaTableName;
 import io.prestosql.spi.connector.SchemaTablePrefix;
+import io.prestosql.spi.connector.SortItem;
 import io.prestosql.spi.connector.TableNotFoundException;
+import io.prestosql.spi.connector.TopNApplicationResult;
+import io.prestosql.spi.expression.ConnectorExpression;
+import io.prestosql.spi.expression.Variable;
 import io.prestosql.spi.predicate.TupleDomain;
 import io.prestosql.spi.statistics.ComputedStatistics;
 import io.prestosql.spi.statistics.TableStatistics;
 
 import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -46,6 +57,7 @@ import java.util.OptionalLong;
 import java.util.concurrent.atomic.AtomicReference;
 
 import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.collect.ImmutableList.toImmutableList;
 import static io.prestosql.spi.StandardErrorCode.PERMISSION_DENIED;
 import static java.util.Objects.requireNonNull;
 
@@ -87,6 +99,11 @@ public class JdbcMetadata
     {
         JdbcTableHandle handle = (JdbcTableHandle) table;
 
+        if (handle.isAggregated()) {
+            // the constraint may refer to the aggregate columns, which cannot be filtered on before the grouping
+            return Optional.empty();
+        }
+
         TupleDomain<ColumnHandle> oldDomain = handle.getConstraint();
         TupleDomain<ColumnHandle> newDomain = oldDomain.intersect(constraint.getSummary());
         if (oldDomain.equals(newDomain)) {
@@ -99,7 +116,10 @@ public class JdbcMetadata
                 handle.getSchemaName(),
                 handle.getTableName(),
                 newDomain,
-                handle.getLimit());
+                handle.getSortOrder(),
+                handle.getLimit(),
+                handle.getGroupingColumns(),
+                handle.getJoin());
 
         return Optional.of(new ConstraintApplicationResult<>(handle, constraint.getSummary()));
     }
@@ -123,11 +143,190 @@ public class JdbcMetadata
                 handle.getSchemaName(),
                 handle.getTableName(),
                 handle.getConstraint(),
-                OptionalLong.of(limit));
+                handle.getSortOrder(),
+                OptionalLong.of(limit),
+                handle.getGroupingColumns(),
+                handle.getJoin());
 
         return Optional.of(new LimitApplicationResult<>(handle, jdbcClient.isLimitGuaranteed()));
     }
 
+    @Override
+    public Optional<TopNApplicationResult<ConnectorTableHandle>> applyTopN(
+            ConnectorSession session,
+            ConnectorTableHandle table,
+            long topNCount,
+            List<SortItem> sortItems,
+            Map<String, ColumnHandle> assignments)
+    {
+        JdbcTableHandle handle = (JdbcTableHandle) table;
+
+        // the TopN would have to be applied after the limit, or it is applied already
+        if (handle.getLimit().isPresent()) {
+            return Optional.empty();
+        }
+
+        List<JdbcSortItem> sortOrder = sortItems.stream()
+                .map(sortItem -> new JdbcSortItem((JdbcColumnHandle) assignments.get(sortItem.getName()), sortItem.getSortOrder()))
+                .collect(toImmutableList());
+        if (!jdbcClient.supportsTopN(session, sortOrder)) {
+            return Optional.empty();
+        }
+
+        handle = new JdbcTableHandle(
+                handle.getSchemaTableName(),
+                handle.getCatalogName(),
+                handle.getSchemaName(),
+                handle.getTableName(),
+                handle.getConstraint(),
+                Optional.of(sortOrder),
+                OptionalLong.of(topNCount),
+                handle.getGroupingColumns(),
+                handle.getJoin());
+
+        return Optional.of(new TopNApplicationResult<>(handle, jdbcClient.isLimitGuaranteed()));
+    }
+
+    @Override
+    public Optional<AggregationApplicationResult<ConnectorTableHandle>> applyAggregation(
+            ConnectorSession session,
+            ConnectorTableHandle table,
+            List<AggregateFunction> aggregates,
+            Map<String, ColumnHandle> assignments,
+            List<ColumnHandle> groupingColumns)
+    {
+        JdbcTableHandle handle = (JdbcTableHandle) table;
+
+        // the limit is applied after the grouping in the generated query
+        if (handle.isAggregated() || handle.getLimit().isPresent()) {
+            return Optional.empty();
+        }
+
+        List<JdbcColumnHandle> jdbcGroupingColumns = groupingColumns.stream()
+                .map(JdbcColumnHandle.class::cast)
+                .collect(toImmutableList());
+        if (!jdbcClient.supportsAggregationPushdown(session, jdbcGroupingColumns)) {
+            return Optional.empty();
+        }
+
+        ImmutableList.Builder<ConnectorExpression> projections = ImmutableList.builder();
+        ImmutableList.Builder<Assignment> resultAssignments = ImmutableList.builder();
+        for (int i = 0; i < aggregates.size(); i++) {
+            AggregateFunction aggregate = aggregates.get(i);
+            Optional<JdbcExpression> expression = jdbcClient.implementAggregation(session, aggregate, assignments);
+            if (!expression.isPresent()) {
+                return Optional.empty();
+            }
+            String columnName = "_presto_aggregate_" + i;
+            JdbcColumnHandle column = new JdbcColumnHandle(
+                    columnName,
+                    expression.get().getJdbcTypeHandle(),
+                    aggregate.getOutputType(),
+                    true,
+                    Optional.of(expression.get().getExpression()));
+            projections.add(new Variable(columnName, aggregate.getOutputType()));
+            resultAssignments.add(new Assignment(columnName, column, aggregate.getOutputType()));
+        }
+
+        handle = new JdbcTableHandle(
+                handle.getSchemaTableName(),
+                handle.getCatalogName(),
+                handle.getSchemaName(),
+                handle.getTableName(),
+                handle.getConstraint(),
+                handle.getSortOrder(),
+                handle.getLimit(),
+                Optional.of(jdbcGroupingColumns),
+                handle.getJoin());
+
+        return Optional.of(new AggregationApplicationResult<>(handle, projections.build(), resultAssignments.build()));
+    }
+
+    @Override
+    public Optional<JoinApplicationResult<ConnectorTableHandle>> applyJoin(
+            ConnectorSession session,
+            JoinType joinType,
+            ConnectorTableHandle left,
+            ConnectorTableHandle right,
+            List<JoinCondition> joinConditions,
+            Map<String, ColumnHandle> leftAssignments,
+            Map<String, ColumnHandle> rightAssignments)
+    {
+        JdbcTableHandle leftHandle = (JdbcTableHandle) left;
+        JdbcTableHandle rightHandle = (JdbcTableHandle) right;
+
+        // the limit of a side would have to be applied within the join
+        if (leftHandle.getLimit().isPresent() || rightHandle.getLimit().isPresent()) {
+            return Optional.empty();
+        }
+
+        int nextColumnId = 0;
+        Map<JdbcColumnHandle, JdbcColumnHandle> leftColumns = new LinkedHashMap<>();
+        for (ColumnHandle column : leftAssignments.values()) {
+            JdbcColumnHandle jdbcColumn = (JdbcColumnHandle) column;
+            if (!leftColumns.containsKey(jdbcColumn)) {
+                leftColumns.put(jdbcColumn, toJoinOutputColumn(jdbcColumn, nextColumnId++, joinType == JoinType.RIGHT_OUTER || joinType == JoinType.FULL_OUTER));
+            }
+        }
+        Map<JdbcColumnHandle, JdbcColumnHandle> rightColumns = new LinkedHashMap<>();
+        for (ColumnHandle column : rightAssignments.values()) {
+            JdbcColumnHandle jdbcColumn = (JdbcColumnHandle) column;
+            if (!rightColumns.containsKey(jdbcColumn)) {
+                rightColumns.put(jdbcColumn, toJoinOutputColumn(jdbcColumn, nextColumnId++, joinType == JoinType.LEFT_OUTER || joinType == JoinType.FULL_OUTER));
+            }
+        }
+
+        ImmutableList.Builder<JdbcJoinCondition> conditions = ImmutableList.builder();
+        for (JoinCondition condition : joinConditions) {
+            if (!(condition.getLeftExpression() instanceof Variable) || !(condition.getRightExpression() instanceof Variable)) {
+                return Optional.empty();
+            }
+            JdbcColumnHandle leftColumn = (JdbcColumnHandle) leftAssignments.get(((Variable) condition.getLeftExpression()).getName());
+            JdbcColumnHandle rightColumn = (JdbcColumnHandle) rightAssignments.get(((Variable) condition.getRightExpression()).getName());
+            if (leftColumn == null || rightColumn == null) {
+                return Optional.empty();
+            }
+            conditions.add(new JdbcJoinCondition(leftColumns.get(leftColumn), condition.getOperator(), rightColumns.get(rightColumn)));
+        }
+        List<JdbcJoinCondition> jdbcConditions = conditions.build();
+        if (jdbcConditions.isEmpty() || !jdbcClient.supportsJoinPushdown(session, joinType, jdbcConditions)) {
+            return Optional.empty();
+        }
+
+        JdbcJoin join = new JdbcJoin(
+                joinType,
+                leftHandle,
+                rightHandle,
+                jdbcConditions,
+                ImmutableList.copyOf(leftColumns.keySet()),
+                ImmutableList.copyOf(leftColumns.values()),
+                ImmutableList.copyOf(rightColumns.keySet()),
+                ImmutableList.copyOf(rightColumns.values()));
+
+        // the joined table is named after its left side, which identifies the remote database it is queried from
+        JdbcTableHandle handle = new JdbcTableHandle(
+                leftHandle.getSchemaTableName(),
+                leftHandle.getCatalogName(),
+                leftHandle.getSchemaName(),
+                leftHandle.getTableName(),
+                TupleDomain.all(),
+                Optional.empty(),
+                OptionalLong.empty(),
+                Optional.empty(),
+                Optional.of(join));
+
+        return Optional.of(new JoinApplicationResult<>(handle, ImmutableMap.copyOf(leftColumns), ImmutableMap.copyOf(rightColumns)));
+    }
+
+    private static JdbcColumnHandle toJoinOutputColumn(JdbcColumnHandle column, int id, boolean nullable)
+    {
+        return new JdbcColumnHandle(
+                "_presto_join_" + id,
+                column.getJdbcTypeHandle(),
+                column.getColumnType(),
+                column.isNullable() || nullable);
+    }
+
     @Override
     public boolean usesLegacyTableLayouts()
     {
@@ -146,7 +345,7 @@ public class JdbcMetadata
         JdbcTableHandle handle = (JdbcTableHandle) table;
 
         ImmutableList.Builder<ColumnMetadata> columnMetadata = ImmutableList.builder();
-        for (JdbcColumnHandle column : jdbcClient.getColumns(session, handle)) {
+        for (JdbcColumnHandle column : getColumns(session, handle)) {
             columnMetadata.add(column.getColumnMetadata());
         }
         return new ConnectorTableMetadata(handle.getSchemaTableName(), columnMetadata.build());
@@ -164,12 +363,20 @@ public class JdbcMetadata
         JdbcTableHandle jdbcTableHandle = (JdbcTableHandle) tableHandle;
 
         ImmutableMap.Builder<String, ColumnHandle> columnHandles = ImmutableMap.builder();
-        for (JdbcColumnHandle column : jdbcClient.getColumns(session, jdbcTableHandle)) {
+        for (JdbcColumnHandle column : getColumns(session, jdbcTableHandle)) {
             columnHandles.put(column.getColumnMetadata().getName(), column);
         }
         return columnHandles.build();
     }
 
+    private List<JdbcColumnHandle> getColumns(ConnectorSession session, JdbcTableHandle handle)
+    {
+        if (handle.getJoin().isPresent()) {
+            return handle.getJoin().get().getOutputColumns();
+        }
+        return jdbcClient.getColumns(session, handle);
+    }
+
     @Override
     public Map<SchemaTableName, List<ColumnMetadata>> listTableColumns(ConnectorSession session, SchemaTablePrefix prefix)
     {
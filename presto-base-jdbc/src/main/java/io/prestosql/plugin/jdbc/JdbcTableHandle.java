@@ -16,6 +16,7 @@ package io.prestosql.plugin.jdbc;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.google.common.base.Joiner;
+import com.google.common.collect.ImmutableList;
 import io.prestosql.spi.connector.ColumnHandle;
 import io.prestosql.spi.connector.ConnectorTableHandle;
 import io.prestosql.spi.connector.SchemaTableName;
@@ -23,9 +24,12 @@ import io.prestosql.spi.predicate.TupleDomain;
 
 import javax.annotation.Nullable;
 
+import java.util.List;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.OptionalLong;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static java.util.Objects.requireNonNull;
 
 public final class JdbcTableHandle
@@ -38,11 +42,28 @@ public final class JdbcTableHandle
     private final String schemaName;
     private final String tableName;
     private final TupleDomain<ColumnHandle> constraint;
+    // present when a TopN is pushed down, together with the limit
+    private final Optional<List<JdbcSortItem>> sortOrder;
     private final OptionalLong limit;
+    // present when an aggregation is pushed down, the table then has one row per group
+    private final Optional<List<JdbcColumnHandle>> groupingColumns;
+    // present when a join is pushed down, the table then is the join rather than the named table
+    private final Optional<JdbcJoin> join;
 
     public JdbcTableHandle(SchemaTableName schemaTableName, @Nullable String catalogName, @Nullable String schemaName, String tableName)
     {
-        this(schemaTableName, catalogName, schemaName, tableName, TupleDomain.all(), OptionalLong.empty());
+        this(schemaTableName, catalogName, schemaName, tableName, TupleDomain.all(), Optional.empty(), OptionalLong.empty(), Optional.empty(), Optional.empty());
+    }
+
+    public JdbcTableHandle(
+            SchemaTableName schemaTableName,
+            @Nullable String catalogName,
+            @Nullable String schemaName,
+            String tableName,
+            TupleDomain<ColumnHandle> constraint,
+            OptionalLong limit)
+    {
+        this(schemaTableName, catalogName, schemaName, tableName, constraint, Optional.empty(), limit, Optional.empty(), Optional.empty());
     }
 
     @JsonCreator
@@ -52,14 +73,21 @@ public final class JdbcTableHandle
             @JsonProperty("schemaName") @Nullable String schemaName,
             @JsonProperty("tableName") String tableName,
             @JsonProperty("constraint") TupleDomain<ColumnHandle> constraint,
-            @JsonProperty("limit") OptionalLong limit)
+            @JsonProperty("sortOrder") Optional<List<JdbcSortItem>> sortOrder,
+            @JsonProperty("limit") OptionalLong limit,
+            @JsonProperty("groupingColumns") Optional<List<JdbcColumnHandle>> groupingColumns,
+            @JsonProperty("join") Optional<JdbcJoin> join)
     {
         this.schemaTableName = requireNonNull(schemaTableName, "schemaTableName is null");
         this.catalogName = catalogName;
         this.schemaName = schemaName;
         this.tableName = requireNonNull(tableName, "tableName is null");
         this.constraint = requireNonNull(constraint, "constraint is null");
+        this.sortOrder = requireNonNull(sortOrder, "sortOrder is null").map(ImmutableList::copyOf);
         this.limit = requireNonNull(limit, "limit is null");
+        checkArgument(!sortOrder.isPresent() || limit.isPresent(), "sortOrder requires a limit");
+        this.groupingColumns = requireNonNull(groupingColumns, "groupingColumns is null").map(ImmutableList::copyOf);
+        this.join = requireNonNull(join, "join is null");
     }
 
     @JsonProperty
@@ -94,12 +122,35 @@ public final class JdbcTableHandle
         return constraint;
     }
 
+    @JsonProperty
+    public Optional<List<JdbcSortItem>> getSortOrder()
+    {
+        return sortOrder;
+    }
+
     @JsonProperty
     public OptionalLong getLimit()
     {
         return limit;
     }
 
+    @JsonProperty
+    public Optional<List<JdbcColumnHandle>> getGroupingColumns()
+    {
+        return groupingColumns;
+    }
+
+    public boolean isAggregated()
+    {
+        return groupingColumns.isPresent();
+    }
+
+    @JsonProperty
+    public Optional<JdbcJoin> getJoin()
+    {
+        return join;
+    }
+
     @Override
     public boolean equals(Object obj)
     {
@@ -110,21 +161,29 @@ public final class JdbcTableHandle
             return false;
         }
         JdbcTableHandle o = (JdbcTableHandle) obj;
-        return Objects.equals(this.schemaTableName, o.schemaTableName);
+        return Objects.equals(this.schemaTableName, o.schemaTableName) &&
+                Objects.equals(this.join, o.join);
     }
 
     @Override
     public int hashCode()
     {
-        return Objects.hash(schemaTableName);
+        return Objects.hash(schemaTableName, join);
     }
 
     @Override
     public String toString()
     {
         StringBuilder builder = new StringBuilder();
-        builder.append(schemaTableName).append(" ");
-        Joiner.on(".").skipNulls().appendTo(builder, catalogName, schemaName, tableName);
+        if (join.isPresent()) {
+            builder.append(join.get());
+        }
+        else {
+            builder.append(schemaTableName).append(" ");
+            Joiner.on(".").skipNulls().appendTo(builder, catalogName, schemaName, tableName);
+        }
+        groupingColumns.ifPresent(columns -> builder.append(" groupingColumns=").append(columns));
+        sortOrder.ifPresent(items -> builder.append(" sortOrder=").append(items));
         limit.ifPresent(value -> builder.append(" limit=").append(value));
         return builder.toString();
     }
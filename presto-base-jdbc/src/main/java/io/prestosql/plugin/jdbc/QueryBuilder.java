@@ -20,16 +20,20 @@ import io.airlift.slice.Slice;
 import io.prestosql.spi.block.Block;
 import io.prestosql.spi.connector.ColumnHandle;
 import io.prestosql.spi.connector.ConnectorSession;
+import io.prestosql.spi.connector.JoinType;
 import io.prestosql.spi.predicate.Domain;
 import io.prestosql.spi.predicate.Range;
 import io.prestosql.spi.predicate.TupleDomain;
 import io.prestosql.spi.type.Type;
 
+import javax.annotation.Nullable;
+
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.function.Function;
 
@@ -96,31 +100,68 @@ public class QueryBuilder
             Function<String, String> sqlFunction)
             throws SQLException
     {
-        StringBuilder sql = new StringBuilder();
+        List<TypeAndValue> accumulator = new ArrayList<>();
+        String sql = buildSelect(client, session, connection, getTableName(catalog, schema, table), columns, tupleDomain, additionalPredicate, Optional.empty(), accumulator);
+        return prepareStatement(client, session, connection, sqlFunction.apply(sql), accumulator);
+    }
 
+    public PreparedStatement buildSql(
+            JdbcClient client,
+            ConnectorSession session,
+            Connection connection,
+            JdbcTableHandle table,
+            List<JdbcColumnHandle> columns,
+            Optional<String> additionalPredicate,
+            Function<String, String> sqlFunction)
+            throws SQLException
+    {
+        List<TypeAndValue> accumulator = new ArrayList<>();
+        // the parameters of a joined table precede the parameters of the query over it
+        String relation = getRelation(client, session, connection, table, accumulator);
+        String sql = buildSelect(client, session, connection, relation, columns, table.getConstraint(), additionalPredicate, table.getGroupingColumns(), accumulator);
+        return prepareStatement(client, session, connection, sqlFunction.apply(sql), accumulator);
+    }
+
+    private String buildSelect(
+            JdbcClient client,
+            ConnectorSession session,
+            Connection connection,
+            String relation,
+            List<JdbcColumnHandle> columns,
+            TupleDomain<ColumnHandle> tupleDomain,
+            Optional<String> additionalPredicate,
+            Optional<List<JdbcColumnHandle>> groupingColumns,
+            List<TypeAndValue> accumulator)
+    {
         String columnNames = columns.stream()
-                .map(JdbcColumnHandle::getColumnName)
-                .map(this::quote)
+                .map(this::toSelectItem)
                 .collect(joining(", "));
+        return buildSelect(client, session, connection, relation, columnNames, tupleDomain, additionalPredicate, groupingColumns, accumulator);
+    }
+
+    private String buildSelect(
+            JdbcClient client,
+            ConnectorSession session,
+            Connection connection,
+            String relation,
+            String columnNames,
+            TupleDomain<ColumnHandle> tupleDomain,
+            Optional<String> additionalPredicate,
+            Optional<List<JdbcColumnHandle>> groupingColumns,
+            List<TypeAndValue> accumulator)
+    {
+        StringBuilder sql = new StringBuilder();
 
         sql.append("SELECT ");
         sql.append(columnNames);
-        if (columns.isEmpty()) {
+        if (columnNames.isEmpty()) {
             sql.append("null");
         }
 
         sql.append(" FROM ");
-        if (!isNullOrEmpty(catalog)) {
-            sql.append(quote(catalog)).append('.');
-        }
-        if (!isNullOrEmpty(schema)) {
-            sql.append(quote(schema)).append('.');
-        }
-        sql.append(quote(table));
-
-        List<TypeAndValue> accumulator = new ArrayList<>();
+        sql.append(relation);
 
-        List<String> clauses = toConjuncts(client, session, connection, columns, tupleDomain, accumulator);
+        List<String> clauses = toConjuncts(client, session, connection, tupleDomain, accumulator);
         if (additionalPredicate.isPresent()) {
             clauses = ImmutableList.<String>builder()
                     .addAll(clauses)
@@ -131,8 +172,79 @@ public class QueryBuilder
             sql.append(" WHERE ")
                     .append(Joiner.on(" AND ").join(clauses));
         }
+        groupingColumns.filter(grouping -> !grouping.isEmpty()).ifPresent(grouping -> sql.append(" GROUP BY ")
+                .append(grouping.stream()
+                        .map(JdbcColumnHandle::getColumnName)
+                        .map(this::quote)
+                        .collect(joining(", "))));
+        return sql.toString();
+    }
 
-        String query = sqlFunction.apply(sql.toString());
+    private String getRelation(JdbcClient client, ConnectorSession session, Connection connection, JdbcTableHandle table, List<TypeAndValue> accumulator)
+    {
+        if (!table.getJoin().isPresent()) {
+            return getTableName(table.getCatalogName(), table.getSchemaName(), table.getTableName());
+        }
+        JdbcJoin join = table.getJoin().get();
+
+        // the output columns have unique names, so they need not be qualified
+        String left = buildSelect(
+                client,
+                session,
+                connection,
+                getRelation(client, session, connection, join.getLeft(), accumulator),
+                toSelectItems(join.getLeftColumns(), join.getLeftOutputColumns()),
+                join.getLeft().getConstraint(),
+                Optional.empty(),
+                join.getLeft().getGroupingColumns(),
+                accumulator);
+        String right = buildSelect(
+                client,
+                session,
+                connection,
+                getRelation(client, session, connection, join.getRight(), accumulator),
+                toSelectItems(join.getRightColumns(), join.getRightOutputColumns()),
+                join.getRight().getConstraint(),
+                Optional.empty(),
+                join.getRight().getGroupingColumns(),
+                accumulator);
+        String conditions = join.getConditions().stream()
+                .map(condition -> format("%s %s %s", quote(condition.getLeftColumn().getColumnName()), condition.getOperator().getValue(), quote(condition.getRightColumn().getColumnName())))
+                .collect(joining(" AND "));
+        return format("(%s) %s %s (%s) %s ON %s", left, quote("l"), toJoinClause(join.getJoinType()), right, quote("r"), conditions);
+    }
+
+    private static String toJoinClause(JoinType joinType)
+    {
+        switch (joinType) {
+            case INNER:
+                return "INNER JOIN";
+            case LEFT_OUTER:
+                return "LEFT JOIN";
+            case RIGHT_OUTER:
+                return "RIGHT JOIN";
+            case FULL_OUTER:
+                return "FULL JOIN";
+        }
+        throw new IllegalArgumentException("Unsupported join type: " + joinType);
+    }
+
+    private String getTableName(@Nullable String catalog, @Nullable String schema, String table)
+    {
+        StringBuilder sql = new StringBuilder();
+        if (!isNullOrEmpty(catalog)) {
+            sql.append(quote(catalog)).append('.');
+        }
+        if (!isNullOrEmpty(schema)) {
+            sql.append(quote(schema)).append('.');
+        }
+        sql.append(quote(table));
+        return sql.toString();
+    }
+
+    private PreparedStatement prepareStatement(JdbcClient client, ConnectorSession session, Connection connection, String query, List<TypeAndValue> accumulator)
+            throws SQLException
+    {
         PreparedStatement statement = client.getPreparedStatement(connection, query);
 
         for (int i = 0; i < accumulator.size(); i++) {
@@ -178,24 +290,40 @@ public class QueryBuilder
             JdbcClient client,
             ConnectorSession session,
             Connection connection,
-            List<JdbcColumnHandle> columns,
             TupleDomain<ColumnHandle> tupleDomain,
             List<TypeAndValue> accumulator)
     {
         if (tupleDomain.isNone()) {
             return ImmutableList.of(ALWAYS_FALSE);
         }
+        // the constrained columns are not necessarily projected, e.g. when an aggregation is pushed down
         ImmutableList.Builder<String> builder = ImmutableList.builder();
-        for (JdbcColumnHandle column : columns) {
-            Domain domain = tupleDomain.getDomains().get().get(column);
-            if (domain != null) {
-                domain = pushDownDomain(client, session, connection, column, domain);
-                builder.add(toPredicate(column.getColumnName(), domain, column, accumulator));
-            }
+        for (Map.Entry<ColumnHandle, Domain> entry : tupleDomain.getDomains().get().entrySet()) {
+            JdbcColumnHandle column = (JdbcColumnHandle) entry.getKey();
+            Domain domain = pushDownDomain(client, session, connection, column, entry.getValue());
+            builder.add(toPredicate(column.getColumnName(), domain, column, accumulator));
         }
         return builder.build();
     }
 
+    private String toSelectItem(JdbcColumnHandle column)
+    {
+        return column.getExpression()
+                .map(expression -> expression + " AS " + quote(column.getColumnName()))
+                .orElseGet(() -> quote(column.getColumnName()));
+    }
+
+    private String toSelectItems(List<JdbcColumnHandle> columns, List<JdbcColumnHandle> outputColumns)
+    {
+        List<String> selectItems = new ArrayList<>();
+        for (int i = 0; i < columns.size(); i++) {
+            JdbcColumnHandle column = columns.get(i);
+            String value = column.getExpression().orElseGet(() -> quote(column.getColumnName()));
+            selectItems.add(value + " AS " + quote(outputColumns.get(i).getColumnName()));
+        }
+        return Joiner.on(", ").join(selectItems);
+    }
+
     private String toPredicate(String columnName, Domain domain, JdbcColumnHandle column, List<TypeAndValue> accumulator)
     {
         if (domain.getValues().isNone()) {
@@ -0,0 +1,26 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.plugin.jdbc;
+
+import java.util.List;
+
+@FunctionalInterface
+public interface TopNFunction
+{
+    /**
+     * Returns the query, which selects at most {@code limit} rows of the given query, sorted by the given items.
+     * The sort items refer to the columns of the given query by name.
+     */
+    String apply(String query, List<JdbcSortItem> sortItems, long limit);
+}
@@ -17,26 +17,44 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import io.prestosql.spi.PrestoException;
+import io.prestosql.spi.connector.AggregateFunction;
+import io.prestosql.spi.connector.AggregationApplicationResult;
+import io.prestosql.spi.connector.ColumnHandle;
 import io.prestosql.spi.connector.ColumnMetadata;
+import io.prestosql.spi.connector.ConnectorSession;
+import io.prestosql.spi.connector.ConnectorTableHandle;
 import io.prestosql.spi.connector.ConnectorTableMetadata;
+import io.prestosql.spi.connector.JoinApplicationResult;
+import io.prestosql.spi.connector.JoinCondition;
+import io.prestosql.spi.connector.JoinType;
+import io.prestosql.spi.connector.RecordCursor;
 import io.prestosql.spi.connector.SchemaTableName;
+import io.prestosql.spi.connector.SortItem;
 import io.prestosql.spi.connector.TableNotFoundException;
+import io.prestosql.spi.connector.TopNApplicationResult;
+import io.prestosql.spi.expression.Variable;
 import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.OptionalLong;
 
+import static com.google.common.collect.ImmutableList.toImmutableList;
 import static io.prestosql.plugin.jdbc.TestingJdbcTypeHandle.JDBC_BIGINT;
 import static io.prestosql.plugin.jdbc.TestingJdbcTypeHandle.JDBC_VARCHAR;
 import static io.prestosql.spi.StandardErrorCode.NOT_FOUND;
 import static io.prestosql.spi.StandardErrorCode.PERMISSION_DENIED;
+import static io.prestosql.spi.block.SortOrder.DESC_NULLS_LAST;
 import static io.prestosql.spi.type.BigintType.BIGINT;
 import static io.prestosql.spi.type.VarcharType.VARCHAR;
 import static io.prestosql.spi.type.VarcharType.createVarcharType;
 import static io.prestosql.testing.TestingConnectorSession.SESSION;
 import static java.util.Collections.emptyMap;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertNull;
 import static org.testng.Assert.assertTrue;
 import static org.testng.Assert.fail;
@@ -210,6 +228,164 @@ public class TestJdbcMetadata
         assertEquals(layout.getColumns().get(0), new ColumnMetadata("text", VARCHAR));
     }
 
+    @Test
+    public void testApplyTopN()
+    {
+        JdbcColumnHandle value = new JdbcColumnHandle("VALUE", JDBC_BIGINT, BIGINT, true);
+        Map<String, ColumnHandle> assignments = ImmutableMap.of("value", value);
+        List<SortItem> sortItems = ImmutableList.of(new SortItem("value", DESC_NULLS_LAST));
+
+        // TopN pushdown is not enabled for the testing database
+        assertFalse(metadata.applyTopN(SESSION, tableHandle, 3, sortItems, assignments).isPresent());
+
+        metadata = new JdbcMetadata(new ForwardingJdbcClient()
+        {
+            @Override
+            protected JdbcClient getDelegate()
+            {
+                return database.getJdbcClient();
+            }
+
+            @Override
+            public boolean supportsTopN(ConnectorSession session, List<JdbcSortItem> sortOrder)
+            {
+                return true;
+            }
+
+            @Override
+            public boolean isLimitGuaranteed()
+            {
+                return true;
+            }
+        }, false);
+
+        TopNApplicationResult<ConnectorTableHandle> result = metadata.applyTopN(SESSION, tableHandle, 3, sortItems, assignments).get();
+        assertTrue(result.isTopNGuaranteed());
+        JdbcTableHandle topNTable = (JdbcTableHandle) result.getHandle();
+        assertEquals(topNTable.getSortOrder(), Optional.of(ImmutableList.of(new JdbcSortItem(value, DESC_NULLS_LAST))));
+        assertEquals(topNTable.getLimit(), OptionalLong.of(3));
+
+        // the TopN is applied only once
+        assertFalse(metadata.applyTopN(SESSION, topNTable, 3, sortItems, assignments).isPresent());
+    }
+
+    @Test
+    public void testApplyAggregation()
+    {
+        Map<String, ColumnHandle> assignments = ImmutableMap.of("value", new JdbcColumnHandle("VALUE", JDBC_BIGINT, BIGINT, true));
+        List<AggregateFunction> aggregates = ImmutableList.of(
+                new AggregateFunction("count", BIGINT, ImmutableList.of(), false),
+                new AggregateFunction("sum", BIGINT, ImmutableList.of(new Variable("value", BIGINT)), false));
+
+        // aggregation pushdown is not enabled for the testing database
+        assertFalse(metadata.applyAggregation(SESSION, tableHandle, aggregates, assignments, ImmutableList.of()).isPresent());
+
+        JdbcClient jdbcClient = new ForwardingJdbcClient()
+        {
+            @Override
+            protected JdbcClient getDelegate()
+            {
+                return database.getJdbcClient();
+            }
+
+            @Override
+            public boolean supportsAggregationPushdown(ConnectorSession session, List<JdbcColumnHandle> groupingColumns)
+            {
+                return true;
+            }
+        };
+        metadata = new JdbcMetadata(jdbcClient, false);
+
+        AggregationApplicationResult<ConnectorTableHandle> result = metadata.applyAggregation(SESSION, tableHandle, aggregates, assignments, ImmutableList.of()).get();
+        JdbcTableHandle aggregatedTable = (JdbcTableHandle) result.getHandle();
+        assertEquals(aggregatedTable.getGroupingColumns(), Optional.of(ImmutableList.of()));
+        assertEquals(result.getProjections().size(), 2);
+        assertEquals(result.getAssignments().size(), 2);
+
+        List<JdbcColumnHandle> columns = result.getAssignments().stream()
+                .map(assignment -> (JdbcColumnHandle) assignment.getColumn())
+                .collect(toImmutableList());
+        try (RecordCursor cursor = new JdbcRecordSet(jdbcClient, SESSION, database.getSplit(SESSION, aggregatedTable), aggregatedTable, columns).cursor()) {
+            assertTrue(cursor.advanceNextPosition());
+            assertEquals(cursor.getLong(0), 6L);
+            assertEquals(cursor.getLong(1), 39L);
+            assertFalse(cursor.advanceNextPosition());
+        }
+
+        // neither an aggregated nor a limited table is aggregated again
+        assertFalse(metadata.applyAggregation(SESSION, aggregatedTable, aggregates, assignments, ImmutableList.of()).isPresent());
+        JdbcTableHandle limitedTable = new JdbcTableHandle(
+                tableHandle.getSchemaTableName(),
+                tableHandle.getCatalogName(),
+                tableHandle.getSchemaName(),
+                tableHandle.getTableName(),
+                tableHandle.getConstraint(),
+                OptionalLong.of(10));
+        assertFalse(metadata.applyAggregation(SESSION, limitedTable, aggregates, assignments, ImmutableList.of()).isPresent());
+    }
+
+    @Test
+    public void testApplyJoin()
+    {
+        JdbcColumnHandle value = new JdbcColumnHandle("VALUE", JDBC_BIGINT, BIGINT, true);
+        JdbcColumnHandle text = new JdbcColumnHandle("TEXT", JDBC_VARCHAR, VARCHAR, false);
+        Map<String, ColumnHandle> leftAssignments = ImmutableMap.of("left_value", value);
+        Map<String, ColumnHandle> rightAssignments = ImmutableMap.of("right_value", value, "right_text", text);
+        List<JoinCondition> conditions = ImmutableList.of(new JoinCondition(
+                JoinCondition.Operator.EQUAL,
+                new Variable("left_value", BIGINT),
+                new Variable("right_value", BIGINT)));
+
+        // join pushdown is not enabled for the testing database
+        assertFalse(metadata.applyJoin(SESSION, JoinType.INNER, tableHandle, tableHandle, conditions, leftAssignments, rightAssignments).isPresent());
+
+        JdbcClient jdbcClient = new ForwardingJdbcClient()
+        {
+            @Override
+            protected JdbcClient getDelegate()
+            {
+                return database.getJdbcClient();
+            }
+
+            @Override
+            public boolean supportsJoinPushdown(ConnectorSession session, JoinType joinType, List<JdbcJoinCondition> conditions)
+            {
+                return true;
+            }
+        };
+        metadata = new JdbcMetadata(jdbcClient, false);
+
+        JoinApplicationResult<ConnectorTableHandle> result = metadata.applyJoin(SESSION, JoinType.INNER, tableHandle, tableHandle, conditions, leftAssignments, rightAssignments).get();
+        JdbcTableHandle joinedTable = (JdbcTableHandle) result.getHandle();
+        assertTrue(joinedTable.getJoin().isPresent());
+        assertEquals(result.getLeftColumnHandles().size(), 1);
+        assertEquals(result.getRightColumnHandles().size(), 2);
+        assertEquals(metadata.getColumnHandles(SESSION, joinedTable).size(), 3);
+
+        List<JdbcColumnHandle> columns = ImmutableList.of(
+                (JdbcColumnHandle) result.getLeftColumnHandles().get(value),
+                (JdbcColumnHandle) result.getRightColumnHandles().get(value),
+                (JdbcColumnHandle) result.getRightColumnHandles().get(text));
+        long rows = 0;
+        try (RecordCursor cursor = new JdbcRecordSet(jdbcClient, SESSION, database.getSplit(SESSION, joinedTable), joinedTable, columns).cursor()) {
+            while (cursor.advanceNextPosition()) {
+                assertEquals(cursor.getLong(0), cursor.getLong(1));
+                rows++;
+            }
+        }
+        assertEquals(rows, 6);
+
+        // a limited table is not joined
+        JdbcTableHandle limitedTable = new JdbcTableHandle(
+                tableHandle.getSchemaTableName(),
+                tableHandle.getCatalogName(),
+                tableHandle.getSchemaName(),
+                tableHandle.getTableName(),
+                tableHandle.getConstraint(),
+                OptionalLong.of(10));
+        assertFalse(metadata.applyJoin(SESSION, JoinType.INNER, limitedTable, tableHandle, conditions, leftAssignments, rightAssignments).isPresent());
+    }
+
     @Test
     public void testDropTableTable()
     {
@@ -17,10 +17,14 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import io.prestosql.spi.connector.ColumnHandle;
+import io.prestosql.spi.connector.JoinCondition;
+import io.prestosql.spi.connector.JoinType;
+import io.prestosql.spi.connector.SchemaTableName;
 import io.prestosql.spi.predicate.Domain;
 import io.prestosql.spi.predicate.Range;
 import io.prestosql.spi.predicate.SortedRangeSet;
 import io.prestosql.spi.predicate.TupleDomain;
+import io.prestosql.spi.predicate.ValueSet;
 import io.prestosql.spi.type.CharType;
 import io.prestosql.spi.type.SqlTimestamp;
 import io.prestosql.testing.DateTimeTestingUtils;
@@ -40,6 +44,7 @@ import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Locale;
 import java.util.Optional;
+import java.util.OptionalLong;
 import java.util.function.Function;
 
 import static io.airlift.slice.Slices.utf8Slice;
@@ -381,6 +386,95 @@ public class TestJdbcQueryBuilder
         }
     }
 
+    @Test
+    public void testBuildSqlWithAggregation()
+            throws SQLException
+    {
+        TupleDomain<ColumnHandle> tupleDomain = TupleDomain.withColumnDomains(ImmutableMap.of(
+                columns.get(0), Domain.create(SortedRangeSet.copyOf(BIGINT, ImmutableList.of(Range.lessThan(BIGINT, 10L))), false)));
+        List<JdbcColumnHandle> groupingColumns = ImmutableList.of(columns.get(2));
+        List<JdbcColumnHandle> projections = ImmutableList.of(
+                columns.get(2),
+                new JdbcColumnHandle("row_count", JDBC_BIGINT, BIGINT, true, Optional.of("count(*)")),
+                new JdbcColumnHandle("total", JDBC_BIGINT, BIGINT, true, Optional.of("sum(\"col_9\")")));
+
+        JdbcTableHandle table = new JdbcTableHandle(
+                new SchemaTableName("test", "test_table"),
+                "",
+                "",
+                "test_table",
+                tupleDomain,
+                Optional.empty(),
+                OptionalLong.empty(),
+                Optional.of(groupingColumns),
+                Optional.empty());
+
+        Connection connection = database.getConnection();
+        try (PreparedStatement preparedStatement = new QueryBuilder("\"").buildSql(jdbcClient, SESSION, connection, table, projections, Optional.empty(), identity());
+                ResultSet resultSet = preparedStatement.executeQuery()) {
+            ImmutableMap.Builder<Boolean, List<Long>> builder = ImmutableMap.builder();
+            while (resultSet.next()) {
+                builder.put(resultSet.getBoolean("col_2"), ImmutableList.of(resultSet.getLong("row_count"), resultSet.getLong("total")));
+            }
+            assertEquals(builder.build(), ImmutableMap.of(
+                    true, ImmutableList.of(5L, -480L),
+                    false, ImmutableList.of(5L, -475L)));
+        }
+    }
+
+    @Test
+    public void testBuildSqlWithJoin()
+            throws SQLException
+    {
+        JdbcTableHandle left = new JdbcTableHandle(
+                new SchemaTableName("test", "test_table"),
+                "",
+                "",
+                "test_table",
+                TupleDomain.withColumnDomains(ImmutableMap.of(columns.get(0), Domain.create(ValueSet.ofRanges(Range.lessThan(BIGINT, 5L)), false))),
+                OptionalLong.empty());
+        JdbcTableHandle right = new JdbcTableHandle(
+                new SchemaTableName("test", "test_table"),
+                "",
+                "",
+                "test_table",
+                TupleDomain.withColumnDomains(ImmutableMap.of(columns.get(0), Domain.create(ValueSet.ofRanges(Range.lessThan(BIGINT, 300L)), false))),
+                OptionalLong.empty());
+        JdbcColumnHandle leftKey = new JdbcColumnHandle("left_key", JDBC_BIGINT, BIGINT, true);
+        JdbcColumnHandle rightKey = new JdbcColumnHandle("right_key", JDBC_TINYINT, TINYINT, true);
+        JdbcColumnHandle rightValue = new JdbcColumnHandle("right_value", JDBC_BIGINT, BIGINT, true);
+        JdbcJoin join = new JdbcJoin(
+                JoinType.INNER,
+                left,
+                right,
+                ImmutableList.of(new JdbcJoinCondition(leftKey, JoinCondition.Operator.EQUAL, rightKey)),
+                ImmutableList.of(columns.get(0)),
+                ImmutableList.of(leftKey),
+                ImmutableList.of(columns.get(7), columns.get(0)),
+                ImmutableList.of(rightKey, rightValue));
+        // the constraint of the joined table is bound after the constraints of its sides
+        JdbcTableHandle table = new JdbcTableHandle(
+                new SchemaTableName("test", "test_table"),
+                "",
+                "",
+                "test_table",
+                TupleDomain.withColumnDomains(ImmutableMap.of(rightValue, Domain.create(ValueSet.ofRanges(Range.greaterThan(BIGINT, 200L)), false))),
+                Optional.empty(),
+                OptionalLong.empty(),
+                Optional.empty(),
+                Optional.of(join));
+
+        Connection connection = database.getConnection();
+        try (PreparedStatement preparedStatement = new QueryBuilder("\"").buildSql(jdbcClient, SESSION, connection, table, join.getOutputColumns(), Optional.empty(), identity());
+                ResultSet resultSet = preparedStatement.executeQuery()) {
+            ImmutableMap.Builder<Long, Long> builder = ImmutableMap.builder();
+            while (resultSet.next()) {
+                builder.put(resultSet.getLong("left_key"), resultSet.getLong("right_value"));
+            }
+            assertEquals(builder.build(), ImmutableMap.of(0L, 256L, 1L, 257L, 2L, 258L, 3L, 259L, 4L, 260L));
+        }
+    }
+
     @Test
     public void testEmptyBuildSql()
             throws SQLException
@@ -15,6 +15,7 @@ package io.prestosql.elasticsearch;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import io.prestosql.spi.connector.ColumnHandle;
 import io.prestosql.spi.connector.ColumnMetadata;
 import io.prestosql.spi.connector.ConnectorMetadata;
@@ -26,20 +27,34 @@ import io.prestosql.spi.connector.Constraint;
 import io.prestosql.spi.connector.ConstraintApplicationResult;
 import io.prestosql.spi.connector.SchemaTableName;
 import io.prestosql.spi.connector.SchemaTablePrefix;
+import io.prestosql.spi.connector.SortItem;
 import io.prestosql.spi.connector.TableNotFoundException;
+import io.prestosql.spi.connector.TopNApplicationResult;
 import io.prestosql.spi.predicate.TupleDomain;
+import io.prestosql.spi.type.Type;
 
 import javax.inject.Inject;
 
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-
+import java.util.OptionalLong;
+import java.util.Set;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static io.prestosql.spi.type.BigintType.BIGINT;
+import static io.prestosql.spi.type.BooleanType.BOOLEAN;
+import static io.prestosql.spi.type.DoubleType.DOUBLE;
+import static io.prestosql.spi.type.IntegerType.INTEGER;
 import static java.util.Objects.requireNonNull;
 
 public class ElasticsearchMetadata
         implements ConnectorMetadata
 {
+    // the default index.max_result_window, beyond which the hits must be scrolled through
+    private static final int MAX_RESULT_WINDOW = 10_000;
+    private static final Set<Type> SORTABLE_TYPES = ImmutableSet.of(BIGINT, INTEGER, DOUBLE, BOOLEAN);
+
     private final ElasticsearchClient client;
 
     @Inject
@@ -156,11 +171,47 @@ public class ElasticsearchMetadata
         handle = new ElasticsearchTableHandle(
                 handle.getSchemaName(),
                 handle.getTableName(),
-                handle.getConstraint());
+                handle.getConstraint(),
+                handle.getSortOrder(),
+                handle.getLimit());
 
         return Optional.of(new ConstraintApplicationResult<>(handle, constraint.getSummary()));
     }
 
+    @Override
+    public Optional<TopNApplicationResult<ConnectorTableHandle>> applyTopN(
+            ConnectorSession session,
+            ConnectorTableHandle table,
+            long topNCount,
+            List<SortItem> sortItems,
+            Map<String, ColumnHandle> assignments)
+    {
+        ElasticsearchTableHandle handle = (ElasticsearchTableHandle) table;
+
+        // the hits are fetched in a single request, rather than scrolled through
+        if (handle.getLimit().isPresent() || topNCount > MAX_RESULT_WINDOW) {
+            return Optional.empty();
+        }
+
+        List<ElasticsearchSortItem> sortOrder = sortItems.stream()
+                .map(sortItem -> new ElasticsearchSortItem((ElasticsearchColumnHandle) assignments.get(sortItem.getName()), sortItem.getSortOrder()))
+                .collect(toImmutableList());
+        // text fields cannot be sorted on without a keyword sub-field
+        if (!sortOrder.stream().map(sortItem -> sortItem.getColumn().getColumnType()).allMatch(SORTABLE_TYPES::contains)) {
+            return Optional.empty();
+        }
+
+        handle = new ElasticsearchTableHandle(
+                handle.getSchemaName(),
+                handle.getTableName(),
+                handle.getConstraint(),
+                Optional.of(sortOrder),
+                OptionalLong.of(topNCount));
+
+        // every shard returns its own first hits
+        return Optional.of(new TopNApplicationResult<>(handle, false));
+    }
+
     private Optional<ConnectorTableMetadata> getTableMetadata(SchemaTableName tableName)
     {
         ElasticsearchTableDescription table = client.getTable(tableName.getSchemaName(), tableName.getTableName());
@@ -33,11 +33,15 @@ import org.elasticsearch.index.query.MatchAllQueryBuilder;
 import org.elasticsearch.index.query.QueryBuilder;
 import org.elasticsearch.index.query.RangeQueryBuilder;
 import org.elasticsearch.index.query.TermQueryBuilder;
+import org.elasticsearch.search.sort.SortBuilders;
+import org.elasticsearch.search.sort.SortOrder;
 
 import java.net.InetAddress;
 import java.net.UnknownHostException;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Optional;
+import java.util.OptionalLong;
 import java.util.Set;
 
 import static com.google.common.base.Preconditions.checkArgument;
@@ -50,6 +54,7 @@ import static io.prestosql.spi.type.BooleanType.BOOLEAN;
 import static io.prestosql.spi.type.DoubleType.DOUBLE;
 import static io.prestosql.spi.type.IntegerType.INTEGER;
 import static io.prestosql.spi.type.VarcharType.VARCHAR;
+import static java.lang.Math.toIntExact;
 import static java.lang.String.format;
 import static java.util.Objects.requireNonNull;
 import static java.util.stream.Collectors.toList;
@@ -64,6 +69,8 @@ public class ElasticsearchQueryBuilder
     private final TransportClient client;
     private final int shard;
     private final TupleDomain<ColumnHandle> tupleDomain;
+    private final Optional<List<ElasticsearchSortItem>> sortOrder;
+    private final OptionalLong limit;
     private final List<ElasticsearchColumnHandle> columns;
     private final String index;
     private final String type;
@@ -76,6 +83,8 @@ public class ElasticsearchQueryBuilder
 
         columns = columnHandles;
         tupleDomain = table.getConstraint();
+        sortOrder = table.getSortOrder();
+        limit = table.getLimit();
         index = split.getIndex();
         shard = split.getShard();
         type = split.getType();
@@ -97,21 +106,40 @@ public class ElasticsearchQueryBuilder
     }
 
     public SearchRequestBuilder buildScrollSearchRequest()
+    {
+        SearchRequestBuilder searchRequestBuilder = prepareSearch()
+                .setScroll(new TimeValue(scrollTimeout.toMillis()))
+                .setSize(scrollSize);
+        LOG.debug("Elasticsearch Request: %s", searchRequestBuilder);
+        return searchRequestBuilder;
+    }
+
+    public SearchRequestBuilder buildTopNSearchRequest()
+    {
+        checkState(sortOrder.isPresent() && limit.isPresent(), "TopN is not pushed down");
+        SearchRequestBuilder searchRequestBuilder = prepareSearch()
+                .setSize(toIntExact(limit.getAsLong()));
+        for (ElasticsearchSortItem sortItem : sortOrder.get()) {
+            searchRequestBuilder.addSort(SortBuilders.fieldSort(sortItem.getColumn().getColumnJsonPath())
+                    .order(sortItem.getSortOrder().isAscending() ? SortOrder.ASC : SortOrder.DESC)
+                    .missing(sortItem.getSortOrder().isNullsFirst() ? "_first" : "_last"));
+        }
+        LOG.debug("Elasticsearch Request: %s", searchRequestBuilder);
+        return searchRequestBuilder;
+    }
+
+    private SearchRequestBuilder prepareSearch()
     {
         String indices = index != null && !index.isEmpty() ? index : "_all";
         List<String> fields = columns.stream()
                 .map(ElasticsearchColumnHandle::getColumnName)
                 .collect(toList());
-        SearchRequestBuilder searchRequestBuilder = client.prepareSearch(indices)
+        return client.prepareSearch(indices)
                 .setTypes(type)
                 .setSearchType(QUERY_THEN_FETCH)
-                .setScroll(new TimeValue(scrollTimeout.toMillis()))
                 .setFetchSource(fields.toArray(new String[0]), null)
                 .setQuery(buildSearchQuery())
-                .setPreference("_shards:" + shard)
-                .setSize(scrollSize);
-        LOG.debug("Elasticsearch Request: %s", searchRequestBuilder);
-        return searchRequestBuilder;
+                .setPreference("_shards:" + shard);
     }
 
     public SearchScrollRequestBuilder prepareSearchScroll(String scrollId)
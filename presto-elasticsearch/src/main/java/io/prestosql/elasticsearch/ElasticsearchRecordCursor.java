@@ -83,7 +83,12 @@ public class ElasticsearchRecordCursor
             jsonPathToIndex.put(columnHandles.get(i).getColumnJsonPath(), i);
         }
         this.builder = new ElasticsearchQueryBuilder(columnHandles, config, split, table);
-        this.searchHits = sendElasticsearchQuery(builder).iterator();
+        if (table.getLimit().isPresent()) {
+            this.searchHits = sendTopNQuery(builder).iterator();
+        }
+        else {
+            this.searchHits = sendElasticsearchQuery(builder).iterator();
+        }
     }
 
     @Override
@@ -215,6 +220,24 @@ public class ElasticsearchRecordCursor
         }
     }
 
+    private List<SearchHit> sendTopNQuery(ElasticsearchQueryBuilder queryBuilder)
+    {
+        SearchResponse response;
+        try {
+            response = retry()
+                    .maxAttempts(maxAttempts)
+                    .exponentialBackoff(maxRetryTime)
+                    .run("searchRequest", () -> queryBuilder.buildTopNSearchRequest()
+                            .execute()
+                            .actionGet(requestTimeout.toMillis()));
+        }
+        catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+        // only the first hits are fetched, so the max hits do not apply
+        return ImmutableList.copyOf(response.getHits().getHits());
+    }
+
     private List<SearchHit> sendElasticsearchQuery(ElasticsearchQueryBuilder queryBuilder)
     {
         SearchResponse response = getSearchResponse(queryBuilder);
@@ -16,13 +16,18 @@ package io.prestosql.elasticsearch;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.google.common.base.Joiner;
+import com.google.common.collect.ImmutableList;
 import io.prestosql.spi.connector.ColumnHandle;
 import io.prestosql.spi.connector.ConnectorTableHandle;
 import io.prestosql.spi.connector.SchemaTableName;
 import io.prestosql.spi.predicate.TupleDomain;
 
+import java.util.List;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.OptionalLong;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static java.util.Locale.ENGLISH;
 import static java.util.Objects.requireNonNull;
 
@@ -31,22 +36,30 @@ public final class ElasticsearchTableHandle
 {
     private final SchemaTableName schemaTableName;
     private final TupleDomain<ColumnHandle> constraint;
+    // present when a TopN is pushed down, together with the limit
+    private final Optional<List<ElasticsearchSortItem>> sortOrder;
+    private final OptionalLong limit;
 
     public ElasticsearchTableHandle(String schemaName, String tableName)
     {
-        this(schemaName, tableName, TupleDomain.all());
+        this(schemaName, tableName, TupleDomain.all(), Optional.empty(), OptionalLong.empty());
     }
 
     @JsonCreator
     public ElasticsearchTableHandle(
             @JsonProperty("schemaName") String schemaName,
             @JsonProperty("tableName") String tableName,
-            @JsonProperty("constraint") TupleDomain<ColumnHandle> constraint)
+            @JsonProperty("constraint") TupleDomain<ColumnHandle> constraint,
+            @JsonProperty("sortOrder") Optional<List<ElasticsearchSortItem>> sortOrder,
+            @JsonProperty("limit") OptionalLong limit)
     {
         requireNonNull(schemaName, "schemaName is null");
         requireNonNull(tableName, "tableName is null");
         this.schemaTableName = new SchemaTableName(schemaName.toLowerCase(ENGLISH), tableName.toLowerCase(ENGLISH));
         this.constraint = requireNonNull(constraint, "constraint is null");
+        this.sortOrder = requireNonNull(sortOrder, "sortOrder is null").map(ImmutableList::copyOf);
+        this.limit = requireNonNull(limit, "limit is null");
+        checkArgument(sortOrder.isPresent() == limit.isPresent(), "sortOrder and limit must be both present or both absent");
     }
 
     @JsonProperty
@@ -67,6 +80,18 @@ public final class ElasticsearchTableHandle
         return constraint;
     }
 
+    @JsonProperty
+    public Optional<List<ElasticsearchSortItem>> getSortOrder()
+    {
+        return sortOrder;
+    }
+
+    @JsonProperty
+    public OptionalLong getLimit()
+    {
+        return limit;
+    }
+
     public SchemaTableName getSchemaTableName()
     {
         return schemaTableName;
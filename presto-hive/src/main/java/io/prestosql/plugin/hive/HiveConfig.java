@@ -39,6 +39,7 @@ import java.util.List;
 import java.util.TimeZone;
 import java.util.concurrent.TimeUnit;
 
+import static io.airlift.units.DataSize.Unit.GIGABYTE;
 import static io.airlift.units.DataSize.Unit.MEGABYTE;
 import static java.util.concurrent.TimeUnit.MINUTES;
 
@@ -112,6 +113,7 @@ public class HiveConfig
     private boolean useParquetColumnNames;
     private boolean failOnCorruptedParquetStatistics = true;
     private DataSize parquetMaxReadBlockSize = new DataSize(16, MEGABYTE);
+    private boolean useParquetColumnIndex = true;
 
     private boolean assumeCanonicalPartitionKeys;
 
@@ -124,6 +126,7 @@ public class HiveConfig
     private DataSize orcStreamBufferSize = new DataSize(8, MEGABYTE);
     private DataSize orcMaxReadBlockSize = new DataSize(16, MEGABYTE);
     private boolean orcLazyReadSmallRanges = true;
+    private DataSize orcMetadataCacheMaxRetainedSize = new DataSize(0, MEGABYTE);
     private boolean orcWriteLegacyVersion;
     private double orcWriterValidationPercentage;
     private OrcWriteValidationMode orcWriterValidationMode = OrcWriteValidationMode.BOTH;
@@ -165,6 +168,10 @@ public class HiveConfig
     private long fileStatusCacheMaxSize = 1000 * 1000;
     private List<String> fileStatusCacheTables = ImmutableList.of();
 
+    private String localDataCacheDirectory;
+    private DataSize localDataCacheMaxSize = new DataSize(10, GIGABYTE);
+    private DataSize localDataCacheBlockSize = new DataSize(1, MEGABYTE);
+
     public int getMaxInitialSplits()
     {
         return maxInitialSplits;
@@ -828,6 +835,20 @@ public class HiveConfig
         return this;
     }
 
+    @NotNull
+    public DataSize getOrcMetadataCacheMaxRetainedSize()
+    {
+        return orcMetadataCacheMaxRetainedSize;
+    }
+
+    @Config("hive.orc.metadata-cache.max-retained-size")
+    @ConfigDescription("Maximum retained size of the parsed ORC file metadata cached on each worker, zero disables the cache")
+    public HiveConfig setOrcMetadataCacheMaxRetainedSize(DataSize orcMetadataCacheMaxRetainedSize)
+    {
+        this.orcMetadataCacheMaxRetainedSize = orcMetadataCacheMaxRetainedSize;
+        return this;
+    }
+
     public boolean isOrcBloomFiltersEnabled()
     {
         return orcBloomFiltersEnabled;
@@ -975,6 +996,19 @@ public class HiveConfig
         return this;
     }
 
+    public boolean isUseParquetColumnIndex()
+    {
+        return useParquetColumnIndex;
+    }
+
+    @Config("hive.parquet.use-column-index")
+    @ConfigDescription("Skip Parquet data pages using the column index of the file")
+    public HiveConfig setUseParquetColumnIndex(boolean useParquetColumnIndex)
+    {
+        this.useParquetColumnIndex = useParquetColumnIndex;
+        return this;
+    }
+
     public boolean isOptimizeMismatchedBucketCount()
     {
         return optimizeMismatchedBucketCount;
@@ -1023,6 +1057,50 @@ public class HiveConfig
         return this;
     }
 
+    @Nullable
+    public String getLocalDataCacheDirectory()
+    {
+        return localDataCacheDirectory;
+    }
+
+    @Config("hive.local-data-cache.directory")
+    @ConfigDescription("Local directory where each worker caches the file ranges it reads, the cache is disabled when not set")
+    public HiveConfig setLocalDataCacheDirectory(String localDataCacheDirectory)
+    {
+        this.localDataCacheDirectory = localDataCacheDirectory;
+        return this;
+    }
+
+    @NotNull
+    public DataSize getLocalDataCacheMaxSize()
+    {
+        return localDataCacheMaxSize;
+    }
+
+    @Config("hive.local-data-cache.max-size")
+    @ConfigDescription("Maximum size of the file ranges cached on the local disk of each worker")
+    public HiveConfig setLocalDataCacheMaxSize(DataSize localDataCacheMaxSize)
+    {
+        this.localDataCacheMaxSize = localDataCacheMaxSize;
+        return this;
+    }
+
+    @NotNull
+    @MinDataSize("4kB")
+    @MaxDataSize("64MB")
+    public DataSize getLocalDataCacheBlockSize()
+    {
+        return localDataCacheBlockSize;
+    }
+
+    @Config("hive.local-data-cache.block-size")
+    @ConfigDescription("Size of the blocks in which file ranges are read and cached on the local disk")
+    public HiveConfig setLocalDataCacheBlockSize(DataSize localDataCacheBlockSize)
+    {
+        this.localDataCacheBlockSize = localDataCacheBlockSize;
+        return this;
+    }
+
     public enum HiveMetastoreAuthenticationType
     {
         NONE,
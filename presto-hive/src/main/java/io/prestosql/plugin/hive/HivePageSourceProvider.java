@@ -83,6 +83,12 @@ public class HivePageSourceProvider
 
     @Override
     public ConnectorPageSource createPageSource(ConnectorTransactionHandle transaction, ConnectorSession session, ConnectorSplit split, ConnectorTableHandle table, List<ColumnHandle> columns)
+    {
+        return createPageSource(transaction, session, split, table, columns, TupleDomain.all());
+    }
+
+    @Override
+    public ConnectorPageSource createPageSource(ConnectorTransactionHandle transaction, ConnectorSession session, ConnectorSplit split, ConnectorTableHandle table, List<ColumnHandle> columns, TupleDomain<ColumnHandle> dynamicFilter)
     {
         HiveTableHandle hiveTable = (HiveTableHandle) table;
 
@@ -105,8 +111,10 @@ public class HivePageSourceProvider
                 hiveSplit.getStart(),
                 hiveSplit.getLength(),
                 hiveSplit.getFileSize(),
+                hiveSplit.getFileModifiedTime(),
                 hiveSplit.getSchema(),
-                hiveTable.getCompactEffectivePredicate(),
+                // the dynamic filter lets the file readers skip stripes and row groups, so it is simplified the same way as the effective predicate
+                hiveTable.getCompactEffectivePredicate().intersect(dynamicFilter.transform(HiveColumnHandle.class::cast).simplify()),
                 hiveColumns,
                 hiveSplit.getPartitionKeys(),
                 hiveStorageTimeZone,
@@ -130,6 +138,7 @@ public class HivePageSourceProvider
             long start,
             long length,
             long fileSize,
+            long fileModifiedTime,
             Properties schema,
             TupleDomain<HiveColumnHandle> effectivePredicate,
             List<HiveColumnHandle> hiveColumns,
@@ -168,6 +177,7 @@ public class HivePageSourceProvider
                     start,
                     length,
                     fileSize,
+                    fileModifiedTime,
                     schema,
                     toColumnHandles(regularAndInterimColumnMappings, true),
                     effectivePredicate,
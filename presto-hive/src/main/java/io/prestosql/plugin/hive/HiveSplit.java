@@ -38,6 +38,7 @@ public class HiveSplit
     private final long start;
     private final long length;
     private final long fileSize;
+    private final long fileModifiedTime;
     private final Properties schema;
     private final List<HivePartitionKey> partitionKeys;
     private final List<HostAddress> addresses;
@@ -59,6 +60,7 @@ public class HiveSplit
             @JsonProperty("start") long start,
             @JsonProperty("length") long length,
             @JsonProperty("fileSize") long fileSize,
+            @JsonProperty("fileModifiedTime") long fileModifiedTime,
             @JsonProperty("schema") Properties schema,
             @JsonProperty("partitionKeys") List<HivePartitionKey> partitionKeys,
             @JsonProperty("addresses") List<HostAddress> addresses,
@@ -89,6 +91,7 @@ public class HiveSplit
         this.start = start;
         this.length = length;
         this.fileSize = fileSize;
+        this.fileModifiedTime = fileModifiedTime;
         this.schema = schema;
         this.partitionKeys = ImmutableList.copyOf(partitionKeys);
         this.addresses = ImmutableList.copyOf(addresses);
@@ -141,6 +144,12 @@ public class HiveSplit
         return fileSize;
     }
 
+    @JsonProperty
+    public long getFileModifiedTime()
+    {
+        return fileModifiedTime;
+    }
+
     @JsonProperty
     public Properties getSchema()
     {
@@ -190,6 +199,13 @@ public class HiveSplit
         return !forceLocalScheduling;
     }
 
+    @Override
+    public Optional<String> getAffinityKey()
+    {
+        // the splits of a file read different ranges of it, so they do not need to run on the same workers
+        return Optional.of(path + "#" + start);
+    }
+
     @JsonProperty
     public boolean isS3SelectPushdownEnabled()
     {
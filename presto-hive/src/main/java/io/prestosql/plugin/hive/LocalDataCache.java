@@ -0,0 +1,390 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.plugin.hive;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.cache.Weigher;
+import io.airlift.log.Logger;
+import io.airlift.units.DataSize;
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FSInputStream;
+import org.apache.hadoop.fs.Path;
+import org.weakref.jmx.Managed;
+
+import javax.inject.Inject;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.Objects;
+import java.util.Optional;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.lang.Math.min;
+import static java.lang.Math.toIntExact;
+import static java.lang.String.format;
+import static java.util.Objects.requireNonNull;
+import static java.util.UUID.randomUUID;
+
+/**
+ * Worker-local read-through cache of file ranges on local disk, shared by all queries.
+ * Files are read and cached in fixed size blocks, which are identified by the file path,
+ * modification time and block offset, so a file which is overwritten in place is not
+ * served stale data. The least recently used blocks are evicted once the cache is full.
+ */
+public class LocalDataCache
+{
+    private static final Logger log = Logger.get(LocalDataCache.class);
+
+    private static final String BLOCK_FILE_SUFFIX = ".block";
+
+    private final Optional<File> directory;
+    private final int blockSize;
+    private final Cache<BlockKey, BlockFile> blocks;
+
+    @Inject
+    public LocalDataCache(HiveConfig config)
+    {
+        this(
+                Optional.ofNullable(config.getLocalDataCacheDirectory()).map(File::new),
+                config.getLocalDataCacheMaxSize(),
+                config.getLocalDataCacheBlockSize());
+    }
+
+    public LocalDataCache(Optional<File> directory, DataSize maxSize, DataSize blockSize)
+    {
+        this.directory = requireNonNull(directory, "directory is null");
+        requireNonNull(maxSize, "maxSize is null");
+        this.blockSize = toIntExact(requireNonNull(blockSize, "blockSize is null").toBytes());
+        checkArgument(this.blockSize > 0, "blockSize must be positive");
+
+        directory.ifPresent(LocalDataCache::initializeDirectory);
+        this.blocks = CacheBuilder.newBuilder()
+                .maximumWeight(maxSize.toBytes())
+                .weigher((Weigher<BlockKey, BlockFile>) (key, block) -> block.getLength())
+                .removalListener(LocalDataCache::deleteBlockFile)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Returns a stream over the given file, whose positioned reads are served from the local
+     * cache when possible. Sequential reads are always passed through to the given stream.
+     */
+    public FSDataInputStream cache(FSDataInputStream inputStream, Path path, long modificationTime, long fileSize, FileFormatDataSourceStats stats)
+    {
+        if (!directory.isPresent()) {
+            return inputStream;
+        }
+        return new FSDataInputStream(new CachingInputStream(inputStream, new FileKey(path.toString(), modificationTime), fileSize, stats));
+    }
+
+    @Managed
+    public void flushCache()
+    {
+        blocks.invalidateAll();
+    }
+
+    @Managed
+    public long getBlockCount()
+    {
+        return blocks.size();
+    }
+
+    @Managed
+    public long getCachedBytes()
+    {
+        return blocks.asMap().values().stream()
+                .mapToLong(BlockFile::getLength)
+                .sum();
+    }
+
+    @Managed
+    public long getEvictionCount()
+    {
+        return blocks.stats().evictionCount();
+    }
+
+    private void readBlock(FSDataInputStream delegate, BlockKey key, int blockLength, int positionInBlock, byte[] buffer, int offset, int length, FileFormatDataSourceStats stats)
+            throws IOException
+    {
+        BlockFile cached = blocks.getIfPresent(key);
+        if (cached != null && readBlockFile(cached, positionInBlock, buffer, offset, length)) {
+            stats.addLocalCacheHit(length);
+            return;
+        }
+        if (cached != null) {
+            // the block file is gone or broken, so it must not be served again
+            blocks.asMap().remove(key, cached);
+        }
+
+        byte[] block = new byte[blockLength];
+        delegate.readFully(key.getOffset(), block, 0, blockLength);
+        System.arraycopy(block, positionInBlock, buffer, offset, length);
+        stats.addLocalCacheMiss(length);
+
+        // a block read concurrently by another reader is cached twice, and the older copy is removed
+        File file = new File(directory.get(), randomUUID() + BLOCK_FILE_SUFFIX);
+        try {
+            Files.write(file.toPath(), block);
+            blocks.put(key, new BlockFile(file, blockLength));
+        }
+        catch (IOException e) {
+            // a full or failing local disk must not fail the query
+            log.warn(e, "Failed to cache block %s in %s", key, file);
+            file.delete();
+        }
+    }
+
+    private static boolean readBlockFile(BlockFile block, int positionInBlock, byte[] buffer, int offset, int length)
+    {
+        try (RandomAccessFile file = new RandomAccessFile(block.getFile(), "r")) {
+            file.seek(positionInBlock);
+            file.readFully(buffer, offset, length);
+            return true;
+        }
+        catch (IOException e) {
+            // the block file may be evicted concurrently
+            return false;
+        }
+    }
+
+    private static void initializeDirectory(File directory)
+    {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IllegalArgumentException(format("Cannot create local data cache directory %s", directory));
+        }
+        // blocks cached by a previous run are not tracked, so they would never be evicted
+        File[] staleFiles = directory.listFiles((dir, name) -> name.endsWith(BLOCK_FILE_SUFFIX));
+        if (staleFiles != null) {
+            for (File file : staleFiles) {
+                file.delete();
+            }
+        }
+    }
+
+    private static void deleteBlockFile(RemovalNotification<BlockKey, BlockFile> notification)
+    {
+        BlockFile block = notification.getValue();
+        if (block != null && !block.getFile().delete()) {
+            log.warn("Failed to delete cached block file %s", block.getFile());
+        }
+    }
+
+    private class CachingInputStream
+            extends FSInputStream
+    {
+        private final FSDataInputStream delegate;
+        private final FileKey file;
+        private final long fileSize;
+        private final FileFormatDataSourceStats stats;
+
+        public CachingInputStream(FSDataInputStream delegate, FileKey file, long fileSize, FileFormatDataSourceStats stats)
+        {
+            this.delegate = requireNonNull(delegate, "delegate is null");
+            this.file = requireNonNull(file, "file is null");
+            this.fileSize = fileSize;
+            this.stats = requireNonNull(stats, "stats is null");
+        }
+
+        @Override
+        public int read(long position, byte[] buffer, int offset, int length)
+                throws IOException
+        {
+            if (position >= fileSize) {
+                return -1;
+            }
+            int readLength = toIntExact(min(length, fileSize - position));
+            readFully(position, buffer, offset, readLength);
+            return readLength;
+        }
+
+        @Override
+        public void readFully(long position, byte[] buffer, int offset, int length)
+                throws IOException
+        {
+            if (position < 0 || position + length > fileSize) {
+                throw new EOFException(format("Cannot read %s bytes at position %s of %s, which has %s bytes", length, position, file, fileSize));
+            }
+            while (length > 0) {
+                long blockOffset = position - (position % blockSize);
+                int blockLength = toIntExact(min(blockSize, fileSize - blockOffset));
+                int positionInBlock = toIntExact(position - blockOffset);
+                int chunkLength = min(length, blockLength - positionInBlock);
+
+                readBlock(delegate, new BlockKey(file, blockOffset), blockLength, positionInBlock, buffer, offset, chunkLength, stats);
+
+                position += chunkLength;
+                offset += chunkLength;
+                length -= chunkLength;
+            }
+        }
+
+        @Override
+        public void seek(long position)
+                throws IOException
+        {
+            delegate.seek(position);
+        }
+
+        @Override
+        public long getPos()
+                throws IOException
+        {
+            return delegate.getPos();
+        }
+
+        @Override
+        public boolean seekToNewSource(long targetPosition)
+                throws IOException
+        {
+            return delegate.seekToNewSource(targetPosition);
+        }
+
+        @Override
+        public int read()
+                throws IOException
+        {
+            return delegate.read();
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length)
+                throws IOException
+        {
+            return delegate.read(buffer, offset, length);
+        }
+
+        @Override
+        public void close()
+                throws IOException
+        {
+            delegate.close();
+        }
+    }
+
+    private static final class FileKey
+    {
+        private final String path;
+        private final long modificationTime;
+
+        public FileKey(String path, long modificationTime)
+        {
+            this.path = requireNonNull(path, "path is null");
+            this.modificationTime = modificationTime;
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            FileKey other = (FileKey) o;
+            return modificationTime == other.modificationTime &&
+                    path.equals(other.path);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return Objects.hash(path, modificationTime);
+        }
+
+        @Override
+        public String toString()
+        {
+            return toStringHelper(this)
+                    .add("path", path)
+                    .add("modificationTime", modificationTime)
+                    .toString();
+        }
+    }
+
+    private static final class BlockKey
+    {
+        private final FileKey file;
+        private final long offset;
+
+        public BlockKey(FileKey file, long offset)
+        {
+            this.file = requireNonNull(file, "file is null");
+            this.offset = offset;
+        }
+
+        public long getOffset()
+        {
+            return offset;
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            BlockKey other = (BlockKey) o;
+            return offset == other.offset &&
+                    file.equals(other.file);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return Objects.hash(file, offset);
+        }
+
+        @Override
+        public String toString()
+        {
+            return toStringHelper(this)
+                    .add("file", file)
+                    .add("offset", offset)
+                    .toString();
+        }
+    }
+
+    private static final class BlockFile
+    {
+        private final File file;
+        private final int length;
+
+        public BlockFile(File file, int length)
+        {
+            this.file = requireNonNull(file, "file is null");
+            this.length = length;
+        }
+
+        public File getFile()
+        {
+            return file;
+        }
+
+        public int getLength()
+        {
+            return length;
+        }
+    }
+}
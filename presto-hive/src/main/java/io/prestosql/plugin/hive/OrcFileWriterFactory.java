@@ -13,7 +13,9 @@
  */
 package io.prestosql.plugin.hive;
 
+import com.google.common.base.Splitter;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import io.prestosql.orc.OrcDataSink;
 import io.prestosql.orc.OrcDataSource;
 import io.prestosql.orc.OrcDataSourceId;
@@ -42,9 +44,11 @@ import java.io.IOException;
 import java.util.List;
 import java.util.Optional;
 import java.util.Properties;
+import java.util.Set;
 import java.util.concurrent.Callable;
 import java.util.function.Supplier;
 
+import static com.google.common.collect.ImmutableSet.toImmutableSet;
 import static io.prestosql.plugin.hive.HiveErrorCode.HIVE_UNSUPPORTED_FORMAT;
 import static io.prestosql.plugin.hive.HiveErrorCode.HIVE_WRITER_OPEN_ERROR;
 import static io.prestosql.plugin.hive.HiveErrorCode.HIVE_WRITE_VALIDATION_FAILED;
@@ -185,7 +189,9 @@ public class OrcFileWriterFactory
                             .withStripeMaxSize(getOrcOptimizedWriterMaxStripeSize(session))
                             .withStripeMaxRowCount(getOrcOptimizedWriterMaxStripeRows(session))
                             .withDictionaryMaxMemory(getOrcOptimizedWriterMaxDictionaryMemory(session))
-                            .withMaxStringStatisticsLimit(getOrcStringStatisticsLimit(session)),
+                            .withMaxStringStatisticsLimit(getOrcStringStatisticsLimit(session))
+                            .withBloomFilterColumns(getBloomFilterColumns(schema, configuration))
+                            .withBloomFilterFpp(OrcConf.BLOOM_FILTER_FPP.getDouble(schema, configuration)),
                     writeLegacyVersion,
                     fileInputColumnIndexes,
                     ImmutableMap.<String, String>builder()
@@ -227,4 +233,15 @@ public class OrcFileWriterFactory
         }
         return compression;
     }
+
+    private static Set<String> getBloomFilterColumns(Properties schema, JobConf configuration)
+    {
+        String bloomFilterColumns = OrcConf.BLOOM_FILTER_COLUMNS.getString(schema, configuration);
+        if (bloomFilterColumns == null) {
+            return ImmutableSet.of();
+        }
+        return Splitter.on(',').trimResults().omitEmptyStrings().splitToList(bloomFilterColumns).stream()
+                .map(column -> column.toLowerCase(ENGLISH))
+                .collect(toImmutableSet());
+    }
 }
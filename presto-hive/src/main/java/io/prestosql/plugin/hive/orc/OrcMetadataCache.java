@@ -0,0 +1,282 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.plugin.hive.orc;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.Weigher;
+import io.airlift.units.DataSize;
+import io.prestosql.orc.OrcFileMetadataCache;
+import io.prestosql.orc.OrcFileTail;
+import io.prestosql.orc.StreamId;
+import io.prestosql.orc.metadata.RowGroupIndex;
+import io.prestosql.orc.metadata.StripeFooter;
+import io.prestosql.plugin.hive.HiveConfig;
+import org.apache.hadoop.fs.Path;
+import org.weakref.jmx.Managed;
+
+import javax.inject.Inject;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static java.lang.Math.min;
+import static java.lang.Math.toIntExact;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Worker-local cache of the parsed metadata of ORC files, shared by all queries.
+ * Files are identified by their path, modification time and length, so a file
+ * which is overwritten in place is not served stale metadata.
+ */
+public class OrcMetadataCache
+{
+    private final boolean enabled;
+    private final Cache<CacheKey, CacheValue> cache;
+
+    @Inject
+    public OrcMetadataCache(HiveConfig hiveConfig)
+    {
+        this(hiveConfig.getOrcMetadataCacheMaxRetainedSize());
+    }
+
+    public OrcMetadataCache(DataSize maxRetainedSize)
+    {
+        this.enabled = maxRetainedSize.toBytes() > 0;
+        this.cache = CacheBuilder.newBuilder()
+                .maximumWeight(maxRetainedSize.toBytes())
+                .weigher((Weigher<CacheKey, CacheValue>) (key, value) -> value.getWeight())
+                .recordStats()
+                .build();
+    }
+
+    public OrcFileMetadataCache getFileMetadataCache(Path path, long modificationTime, long length)
+    {
+        if (!enabled) {
+            return OrcFileMetadataCache.NO_CACHE;
+        }
+        return new FileMetadataCache(new FileKey(path.toString(), modificationTime, length));
+    }
+
+    @Managed
+    public void flushCache()
+    {
+        cache.invalidateAll();
+    }
+
+    @Managed
+    public long getSize()
+    {
+        return cache.size();
+    }
+
+    @Managed
+    public long getRetainedSizeInBytes()
+    {
+        return cache.asMap().values().stream()
+                .mapToLong(CacheValue::getWeight)
+                .sum();
+    }
+
+    @Managed
+    public Double getHitRate()
+    {
+        return cache.stats().hitRate();
+    }
+
+    @Managed
+    public long getHitCount()
+    {
+        return cache.stats().hitCount();
+    }
+
+    @Managed
+    public long getMissCount()
+    {
+        return cache.stats().missCount();
+    }
+
+    @Managed
+    public long getEvictionCount()
+    {
+        return cache.stats().evictionCount();
+    }
+
+    private class FileMetadataCache
+            implements OrcFileMetadataCache
+    {
+        private final FileKey file;
+
+        public FileMetadataCache(FileKey file)
+        {
+            this.file = requireNonNull(file, "file is null");
+        }
+
+        @Override
+        public Optional<OrcFileTail> getFileTail()
+        {
+            return get(new CacheKey(file, -1, Optional.empty()));
+        }
+
+        @Override
+        public void putFileTail(OrcFileTail fileTail)
+        {
+            put(new CacheKey(file, -1, Optional.empty()), fileTail, fileTail.getRetainedSizeInBytes());
+        }
+
+        @Override
+        public Optional<StripeFooter> getStripeFooter(long stripeOffset)
+        {
+            return get(new CacheKey(file, stripeOffset, Optional.empty()));
+        }
+
+        @Override
+        public void putStripeFooter(long stripeOffset, StripeFooter stripeFooter)
+        {
+            put(new CacheKey(file, stripeOffset, Optional.empty()), stripeFooter, stripeFooter.getRetainedSizeInBytes());
+        }
+
+        @Override
+        public Optional<List<RowGroupIndex>> getRowGroupIndexes(long stripeOffset, StreamId streamId)
+        {
+            return get(new CacheKey(file, stripeOffset, Optional.of(streamId)));
+        }
+
+        @Override
+        public void putRowGroupIndexes(long stripeOffset, StreamId streamId, List<RowGroupIndex> rowGroupIndexes)
+        {
+            long retainedSize = rowGroupIndexes.stream()
+                    .mapToLong(RowGroupIndex::getRetainedSizeInBytes)
+                    .sum();
+            put(new CacheKey(file, stripeOffset, Optional.of(streamId)), rowGroupIndexes, retainedSize);
+        }
+
+        @SuppressWarnings("unchecked")
+        private <T> Optional<T> get(CacheKey key)
+        {
+            return Optional.ofNullable(cache.getIfPresent(key))
+                    .map(value -> (T) value.getValue());
+        }
+
+        private void put(CacheKey key, Object value, long retainedSize)
+        {
+            cache.put(key, new CacheValue(value, retainedSize));
+        }
+    }
+
+    private static final class FileKey
+    {
+        private final String path;
+        private final long modificationTime;
+        private final long length;
+
+        public FileKey(String path, long modificationTime, long length)
+        {
+            this.path = requireNonNull(path, "path is null");
+            this.modificationTime = modificationTime;
+            this.length = length;
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            FileKey other = (FileKey) o;
+            return modificationTime == other.modificationTime &&
+                    length == other.length &&
+                    path.equals(other.path);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return Objects.hash(path, modificationTime, length);
+        }
+
+        @Override
+        public String toString()
+        {
+            return toStringHelper(this)
+                    .add("path", path)
+                    .add("modificationTime", modificationTime)
+                    .add("length", length)
+                    .toString();
+        }
+    }
+
+    // the file tail has no stripe offset, and only the row group indexes have a stream
+    private static final class CacheKey
+    {
+        private final FileKey file;
+        private final long stripeOffset;
+        private final Optional<StreamId> streamId;
+
+        public CacheKey(FileKey file, long stripeOffset, Optional<StreamId> streamId)
+        {
+            this.file = requireNonNull(file, "file is null");
+            this.stripeOffset = stripeOffset;
+            this.streamId = requireNonNull(streamId, "streamId is null");
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            CacheKey other = (CacheKey) o;
+            return stripeOffset == other.stripeOffset &&
+                    file.equals(other.file) &&
+                    streamId.equals(other.streamId);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return Objects.hash(file, stripeOffset, streamId);
+        }
+    }
+
+    private static final class CacheValue
+    {
+        private final Object value;
+        private final int weight;
+
+        public CacheValue(Object value, long retainedSize)
+        {
+            this.value = requireNonNull(value, "value is null");
+            this.weight = toIntExact(min(retainedSize, Integer.MAX_VALUE));
+        }
+
+        public Object getValue()
+        {
+            return value;
+        }
+
+        public int getWeight()
+        {
+            return weight;
+        }
+    }
+}
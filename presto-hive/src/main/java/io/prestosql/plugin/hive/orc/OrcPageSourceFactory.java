@@ -19,6 +19,7 @@ import io.airlift.units.DataSize;
 import io.prestosql.memory.context.AggregatedMemoryContext;
 import io.prestosql.orc.OrcDataSource;
 import io.prestosql.orc.OrcDataSourceId;
+import io.prestosql.orc.OrcFileMetadataCache;
 import io.prestosql.orc.OrcPredicate;
 import io.prestosql.orc.OrcReader;
 import io.prestosql.orc.OrcRecordReader;
@@ -29,6 +30,7 @@ import io.prestosql.plugin.hive.HdfsEnvironment;
 import io.prestosql.plugin.hive.HiveColumnHandle;
 import io.prestosql.plugin.hive.HiveConfig;
 import io.prestosql.plugin.hive.HivePageSourceFactory;
+import io.prestosql.plugin.hive.LocalDataCache;
 import io.prestosql.spi.PrestoException;
 import io.prestosql.spi.connector.ConnectorPageSource;
 import io.prestosql.spi.connector.ConnectorSession;
@@ -56,6 +58,7 @@ import java.util.Properties;
 import java.util.regex.Pattern;
 
 import static com.google.common.base.Strings.nullToEmpty;
+import static io.airlift.units.DataSize.Unit.BYTE;
 import static io.prestosql.memory.context.AggregatedMemoryContext.newSimpleAggregatedMemoryContext;
 import static io.prestosql.orc.OrcReader.INITIAL_BATCH_SIZE;
 import static io.prestosql.plugin.hive.HiveColumnHandle.ColumnType.REGULAR;
@@ -81,19 +84,28 @@ public class OrcPageSourceFactory
     private final boolean useOrcColumnNames;
     private final HdfsEnvironment hdfsEnvironment;
     private final FileFormatDataSourceStats stats;
+    private final OrcMetadataCache metadataCache;
+    private final LocalDataCache dataCache;
 
     @Inject
-    public OrcPageSourceFactory(TypeManager typeManager, HiveConfig config, HdfsEnvironment hdfsEnvironment, FileFormatDataSourceStats stats)
+    public OrcPageSourceFactory(TypeManager typeManager, HiveConfig config, HdfsEnvironment hdfsEnvironment, FileFormatDataSourceStats stats, OrcMetadataCache metadataCache, LocalDataCache dataCache)
     {
-        this(typeManager, requireNonNull(config, "config is null").isUseOrcColumnNames(), hdfsEnvironment, stats);
+        this(typeManager, requireNonNull(config, "config is null").isUseOrcColumnNames(), hdfsEnvironment, stats, metadataCache, dataCache);
     }
 
     public OrcPageSourceFactory(TypeManager typeManager, boolean useOrcColumnNames, HdfsEnvironment hdfsEnvironment, FileFormatDataSourceStats stats)
+    {
+        this(typeManager, useOrcColumnNames, hdfsEnvironment, stats, new OrcMetadataCache(new DataSize(0, BYTE)), new LocalDataCache(new HiveConfig()));
+    }
+
+    public OrcPageSourceFactory(TypeManager typeManager, boolean useOrcColumnNames, HdfsEnvironment hdfsEnvironment, FileFormatDataSourceStats stats, OrcMetadataCache metadataCache, LocalDataCache dataCache)
     {
         this.typeManager = requireNonNull(typeManager, "typeManager is null");
         this.useOrcColumnNames = useOrcColumnNames;
         this.hdfsEnvironment = requireNonNull(hdfsEnvironment, "hdfsEnvironment is null");
         this.stats = requireNonNull(stats, "stats is null");
+        this.metadataCache = requireNonNull(metadataCache, "metadataCache is null");
+        this.dataCache = requireNonNull(dataCache, "dataCache is null");
     }
 
     @Override
@@ -104,6 +116,7 @@ public class OrcPageSourceFactory
             long start,
             long length,
             long fileSize,
+            long fileModifiedTime,
             Properties schema,
             List<HiveColumnHandle> columns,
             TupleDomain<HiveColumnHandle> effectivePredicate,
@@ -126,6 +139,9 @@ public class OrcPageSourceFactory
                 start,
                 length,
                 fileSize,
+                fileModifiedTime,
+                metadataCache.getFileMetadataCache(path, fileModifiedTime, fileSize),
+                dataCache,
                 columns,
                 useOrcColumnNames,
                 effectivePredicate,
@@ -149,6 +165,9 @@ public class OrcPageSourceFactory
             long start,
             long length,
             long fileSize,
+            long fileModifiedTime,
+            OrcFileMetadataCache metadataCache,
+            LocalDataCache dataCache,
             List<HiveColumnHandle> columns,
             boolean useOrcColumnNames,
             TupleDomain<HiveColumnHandle> effectivePredicate,
@@ -167,6 +186,7 @@ public class OrcPageSourceFactory
         try {
             FileSystem fileSystem = hdfsEnvironment.getFileSystem(sessionUser, path, configuration);
             FSDataInputStream inputStream = hdfsEnvironment.doAs(sessionUser, () -> fileSystem.open(path));
+            inputStream = dataCache.cache(inputStream, path, fileModifiedTime, fileSize, stats);
             orcDataSource = new HdfsOrcDataSource(
                     new OrcDataSourceId(path.toString()),
                     fileSize,
@@ -187,7 +207,7 @@ public class OrcPageSourceFactory
 
         AggregatedMemoryContext systemMemoryUsage = newSimpleAggregatedMemoryContext();
         try {
-            OrcReader reader = new OrcReader(orcDataSource, maxMergeDistance, tinyStripeThreshold, maxReadBlockSize);
+            OrcReader reader = new OrcReader(orcDataSource, metadataCache, maxMergeDistance, tinyStripeThreshold, maxReadBlockSize);
 
             List<HiveColumnHandle> physicalColumns = getPhysicalHiveColumnHandles(columns, useOrcColumnNames, reader, path);
             ImmutableMap.Builder<Integer, Type> includedColumns = ImmutableMap.builder();
@@ -0,0 +1,132 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.plugin.hive.parquet;
+
+import com.google.common.collect.ImmutableMap;
+import io.prestosql.parquet.writer.ParquetCompressor;
+import io.prestosql.parquet.writer.ParquetSchemaConverter;
+import io.prestosql.parquet.writer.ParquetWriterOptions;
+import io.prestosql.plugin.hive.HdfsEnvironment;
+import io.prestosql.plugin.hive.HiveFileWriter;
+import io.prestosql.plugin.hive.HiveFileWriterFactory;
+import io.prestosql.plugin.hive.HiveMetadata;
+import io.prestosql.plugin.hive.NodeVersion;
+import io.prestosql.plugin.hive.metastore.StorageFormat;
+import io.prestosql.spi.PrestoException;
+import io.prestosql.spi.connector.ConnectorSession;
+import io.prestosql.spi.type.Type;
+import io.prestosql.spi.type.TypeManager;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hive.ql.io.parquet.MapredParquetOutputFormat;
+import org.apache.hadoop.mapred.JobConf;
+import org.apache.parquet.hadoop.ParquetOutputFormat;
+import org.apache.parquet.hadoop.metadata.CompressionCodecName;
+
+import javax.inject.Inject;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.concurrent.Callable;
+
+import static io.prestosql.plugin.hive.HiveErrorCode.HIVE_WRITER_OPEN_ERROR;
+import static io.prestosql.plugin.hive.HiveSessionProperties.getParquetWriterBlockSize;
+import static io.prestosql.plugin.hive.HiveSessionProperties.getParquetWriterPageSize;
+import static io.prestosql.plugin.hive.HiveSessionProperties.isParquetOptimizedWriterEnabled;
+import static io.prestosql.plugin.hive.HiveUtil.getColumnNames;
+import static io.prestosql.plugin.hive.HiveUtil.getColumnTypes;
+import static java.util.Objects.requireNonNull;
+import static java.util.stream.Collectors.toList;
+
+public class ParquetFileWriterFactory
+        implements HiveFileWriterFactory
+{
+    private final HdfsEnvironment hdfsEnvironment;
+    private final TypeManager typeManager;
+    private final NodeVersion nodeVersion;
+
+    @Inject
+    public ParquetFileWriterFactory(HdfsEnvironment hdfsEnvironment, TypeManager typeManager, NodeVersion nodeVersion)
+    {
+        this.hdfsEnvironment = requireNonNull(hdfsEnvironment, "hdfsEnvironment is null");
+        this.typeManager = requireNonNull(typeManager, "typeManager is null");
+        this.nodeVersion = requireNonNull(nodeVersion, "nodeVersion is null");
+    }
+
+    @Override
+    public Optional<HiveFileWriter> createFileWriter(
+            Path path,
+            List<String> inputColumnNames,
+            StorageFormat storageFormat,
+            Properties schema,
+            JobConf configuration,
+            ConnectorSession session)
+    {
+        if (!isParquetOptimizedWriterEnabled(session)) {
+            return Optional.empty();
+        }
+
+        if (!MapredParquetOutputFormat.class.getName().equals(storageFormat.getOutputFormat())) {
+            return Optional.empty();
+        }
+
+        // existing tables and partitions may have columns in a different order than the writer is providing, so build
+        // an index to rearrange columns in the proper order
+        List<String> fileColumnNames = getColumnNames(schema);
+        List<Type> fileColumnTypes = getColumnTypes(schema).stream()
+                .map(hiveType -> hiveType.getType(typeManager))
+                .collect(toList());
+
+        // nested types and codecs without a Java compressor are left to the record writer
+        CompressionCodecName compressionCodec = CompressionCodecName.fromConf(configuration.get(ParquetOutputFormat.COMPRESSION));
+        if (!fileColumnTypes.stream().allMatch(ParquetSchemaConverter::isSupportedType) || !ParquetCompressor.isSupported(compressionCodec)) {
+            return Optional.empty();
+        }
+
+        int[] fileInputColumnIndexes = fileColumnNames.stream()
+                .mapToInt(inputColumnNames::indexOf)
+                .toArray();
+
+        try {
+            FileSystem fileSystem = hdfsEnvironment.getFileSystem(session.getUser(), path, configuration);
+
+            Callable<Void> rollbackAction = () -> {
+                fileSystem.delete(path, false);
+                return null;
+            };
+
+            ParquetWriterOptions parquetWriterOptions = new ParquetWriterOptions()
+                    .withMaxRowGroupSize(getParquetWriterBlockSize(session))
+                    .withMaxPageSize(getParquetWriterPageSize(session));
+
+            return Optional.of(new ParquetFileWriter(
+                    fileSystem.create(path),
+                    rollbackAction,
+                    fileColumnNames,
+                    fileColumnTypes,
+                    parquetWriterOptions,
+                    compressionCodec,
+                    fileInputColumnIndexes,
+                    ImmutableMap.<String, String>builder()
+                            .put(HiveMetadata.PRESTO_VERSION_NAME, nodeVersion.toString())
+                            .put(HiveMetadata.PRESTO_QUERY_ID_NAME, session.getQueryId())
+                            .build()));
+        }
+        catch (IOException e) {
+            throw new PrestoException(HIVE_WRITER_OPEN_ERROR, "Error creating Parquet file", e);
+        }
+    }
+}
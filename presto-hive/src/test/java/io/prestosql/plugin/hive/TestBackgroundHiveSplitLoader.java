@@ -26,6 +26,7 @@ import io.prestosql.plugin.hive.authentication.NoHdfsAuthentication;
 import io.prestosql.plugin.hive.metastore.Column;
 import io.prestosql.plugin.hive.metastore.StorageFormat;
 import io.prestosql.plugin.hive.metastore.Table;
+import io.prestosql.spi.connector.ColumnHandle;
 import io.prestosql.spi.connector.ConnectorSession;
 import io.prestosql.spi.connector.SchemaTableName;
 import io.prestosql.spi.predicate.Domain;
@@ -56,6 +57,7 @@ import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 import static com.google.common.collect.ImmutableList.toImmutableList;
 import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
@@ -179,6 +181,21 @@ public class TestBackgroundHiveSplitLoader
         assertEquals(paths.get(0), RETURNED_PATH.toString());
     }
 
+    @Test
+    public void testDynamicFilterPrunesPartition()
+            throws Exception
+    {
+        BackgroundHiveSplitLoader backgroundHiveSplitLoader = backgroundHiveSplitLoader(
+                TEST_FILES,
+                TupleDomain.all(),
+                TupleDomain::none);
+
+        HiveSplitSource hiveSplitSource = hiveSplitSource(backgroundHiveSplitLoader);
+        backgroundHiveSplitLoader.start(hiveSplitSource);
+
+        assertEquals(drain(hiveSplitSource).size(), 0);
+    }
+
     @Test
     public void testEmptyFileWithNoBlocks()
             throws Exception
@@ -305,6 +322,25 @@ public class TestBackgroundHiveSplitLoader
             Optional<HiveBucketFilter> hiveBucketFilter,
             Table table,
             Optional<HiveBucketHandle> bucketHandle)
+    {
+        return backgroundHiveSplitLoader(files, compactEffectivePredicate, TupleDomain::all, hiveBucketFilter, table, bucketHandle);
+    }
+
+    private static BackgroundHiveSplitLoader backgroundHiveSplitLoader(
+            List<LocatedFileStatus> files,
+            TupleDomain<HiveColumnHandle> compactEffectivePredicate,
+            Supplier<TupleDomain<ColumnHandle>> dynamicFilter)
+    {
+        return backgroundHiveSplitLoader(files, compactEffectivePredicate, dynamicFilter, Optional.empty(), SIMPLE_TABLE, Optional.empty());
+    }
+
+    private static BackgroundHiveSplitLoader backgroundHiveSplitLoader(
+            List<LocatedFileStatus> files,
+            TupleDomain<HiveColumnHandle> compactEffectivePredicate,
+            Supplier<TupleDomain<ColumnHandle>> dynamicFilter,
+            Optional<HiveBucketFilter> hiveBucketFilter,
+            Table table,
+            Optional<HiveBucketHandle> bucketHandle)
     {
         List<HivePartitionMetadata> hivePartitionMetadatas =
                 ImmutableList.of(
@@ -320,6 +356,7 @@ public class TestBackgroundHiveSplitLoader
                 table,
                 hivePartitionMetadatas,
                 compactEffectivePredicate,
+                dynamicFilter,
                 createBucketSplitInfo(bucketHandle, hiveBucketFilter),
                 connectorSession,
                 new TestingHdfsEnvironment(files),
@@ -345,6 +382,7 @@ public class TestBackgroundHiveSplitLoader
                 SIMPLE_TABLE,
                 hivePartitionMetadatas,
                 TupleDomain.none(),
+                TupleDomain::all,
                 Optional.empty(),
                 connectorSession,
                 new TestingHdfsEnvironment(files),
@@ -364,6 +402,7 @@ public class TestBackgroundHiveSplitLoader
                 SIMPLE_TABLE,
                 createPartitionMetadataWithOfflinePartitions(),
                 TupleDomain.all(),
+                TupleDomain::all,
                 createBucketSplitInfo(Optional.empty(), Optional.empty()),
                 connectorSession,
                 new TestingHdfsEnvironment(TEST_FILES),
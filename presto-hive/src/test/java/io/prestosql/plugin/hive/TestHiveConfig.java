@@ -87,8 +87,10 @@ public class TestHiveConfig
                 .setUseParquetColumnNames(false)
                 .setFailOnCorruptedParquetStatistics(true)
                 .setParquetMaxReadBlockSize(new DataSize(16, Unit.MEGABYTE))
+                .setUseParquetColumnIndex(true)
                 .setUseOrcColumnNames(false)
                 .setAssumeCanonicalPartitionKeys(false)
+                .setOrcMetadataCacheMaxRetainedSize(new DataSize(0, Unit.MEGABYTE))
                 .setOrcBloomFiltersEnabled(false)
                 .setOrcDefaultBloomFilterFpp(0.05)
                 .setOrcMaxMergeDistance(new DataSize(1, Unit.MEGABYTE))
@@ -125,7 +127,10 @@ public class TestHiveConfig
                 .setTemporaryStagingDirectoryPath("/tmp/presto-${USER}")
                 .setFileStatusCacheExpireAfterWrite(new Duration(1, TimeUnit.MINUTES))
                 .setFileStatusCacheMaxSize(1000 * 1000)
-                .setFileStatusCacheTables(""));
+                .setFileStatusCacheTables("")
+                .setLocalDataCacheDirectory(null)
+                .setLocalDataCacheMaxSize(new DataSize(10, Unit.GIGABYTE))
+                .setLocalDataCacheBlockSize(new DataSize(1, Unit.MEGABYTE)));
     }
 
     @Test
@@ -179,7 +184,9 @@ public class TestHiveConfig
                 .put("hive.parquet.use-column-names", "true")
                 .put("hive.parquet.fail-on-corrupted-statistics", "false")
                 .put("hive.parquet.max-read-block-size", "66kB")
+                .put("hive.parquet.use-column-index", "false")
                 .put("hive.orc.use-column-names", "true")
+                .put("hive.orc.metadata-cache.max-retained-size", "32MB")
                 .put("hive.orc.bloom-filters.enabled", "true")
                 .put("hive.orc.default-bloom-filter-fpp", "0.96")
                 .put("hive.orc.max-merge-distance", "22kB")
@@ -218,6 +225,9 @@ public class TestHiveConfig
                 .put("hive.file-status-cache-tables", "foo.bar1, foo.bar2")
                 .put("hive.file-status-cache-size", "1000")
                 .put("hive.file-status-cache-expire-time", "30m")
+                .put("hive.local-data-cache.directory", "/mnt/ssd/presto-cache")
+                .put("hive.local-data-cache.max-size", "100GB")
+                .put("hive.local-data-cache.block-size", "4MB")
                 .build();
 
         HiveConfig expected = new HiveConfig()
@@ -267,8 +277,10 @@ public class TestHiveConfig
                 .setUseParquetColumnNames(true)
                 .setFailOnCorruptedParquetStatistics(false)
                 .setParquetMaxReadBlockSize(new DataSize(66, Unit.KILOBYTE))
+                .setUseParquetColumnIndex(false)
                 .setUseOrcColumnNames(true)
                 .setAssumeCanonicalPartitionKeys(true)
+                .setOrcMetadataCacheMaxRetainedSize(new DataSize(32, Unit.MEGABYTE))
                 .setOrcBloomFiltersEnabled(true)
                 .setOrcDefaultBloomFilterFpp(0.96)
                 .setOrcMaxMergeDistance(new DataSize(22, Unit.KILOBYTE))
@@ -306,7 +318,10 @@ public class TestHiveConfig
                 .setTemporaryStagingDirectoryPath("updated")
                 .setFileStatusCacheTables("foo.bar1,foo.bar2")
                 .setFileStatusCacheMaxSize(1000)
-                .setFileStatusCacheExpireAfterWrite(new Duration(30, TimeUnit.MINUTES));
+                .setFileStatusCacheExpireAfterWrite(new Duration(30, TimeUnit.MINUTES))
+                .setLocalDataCacheDirectory("/mnt/ssd/presto-cache")
+                .setLocalDataCacheMaxSize(new DataSize(100, Unit.GIGABYTE))
+                .setLocalDataCacheBlockSize(new DataSize(4, Unit.MEGABYTE));
 
         assertFullMapping(properties, expected);
     }
@@ -23,6 +23,7 @@ import io.airlift.compress.lzo.LzopCodec;
 import io.airlift.slice.Slices;
 import io.prestosql.orc.OrcWriterOptions;
 import io.prestosql.plugin.hive.orc.OrcPageSourceFactory;
+import io.prestosql.plugin.hive.parquet.ParquetFileWriterFactory;
 import io.prestosql.plugin.hive.parquet.ParquetPageSourceFactory;
 import io.prestosql.plugin.hive.rcfile.RcFilePageSourceFactory;
 import io.prestosql.spi.PrestoException;
@@ -389,6 +390,32 @@ public class TestHiveFileFormats
                 .isReadableByPageSource(new ParquetPageSourceFactory(TYPE_MANAGER, HDFS_ENVIRONMENT, STATS));
     }
 
+    @Test(dataProvider = "rowCount")
+    public void testParquetOptimizedWriter(int rowCount)
+            throws Exception
+    {
+        TestingConnectorSession session = new TestingConnectorSession(
+                new HiveSessionProperties(
+                        createParquetHiveConfig(false),
+                        new OrcFileWriterConfig(),
+                        new ParquetFileWriterConfig()
+                                .setOptimizedWriterEnabled(true)).getSessionProperties());
+
+        // the optimized writer only supports flat schemas
+        List<TestColumn> testColumns = getTestColumnsSupportedByParquet().stream()
+                .filter(column -> column.isPartitionKey() || column.getObjectInspector() instanceof PrimitiveObjectInspector)
+                .collect(toList());
+
+        assertThatFileFormat(PARQUET)
+                .withColumns(testColumns)
+                .withRowsCount(rowCount)
+                .withSession(session)
+                .withCompressionCodec(HiveCompressionCodec.SNAPPY)
+                .withFileWriterFactory(new ParquetFileWriterFactory(HDFS_ENVIRONMENT, TYPE_MANAGER, new NodeVersion("test")))
+                .isReadableByRecordCursor(new GenericHiveRecordCursorProvider(HDFS_ENVIRONMENT))
+                .isReadableByPageSource(new ParquetPageSourceFactory(TYPE_MANAGER, HDFS_ENVIRONMENT, STATS));
+    }
+
     @Test(dataProvider = "rowCount")
     public void testParquetPageSourceSchemaEvolution(int rowCount)
             throws Exception
@@ -551,6 +578,7 @@ public class TestHiveFileFormats
                 split.getStart(),
                 split.getLength(),
                 split.getLength(),
+                0,
                 splitProperties,
                 TupleDomain.all(),
                 getColumnHandles(testColumns),
@@ -597,6 +625,7 @@ public class TestHiveFileFormats
                 split.getStart(),
                 split.getLength(),
                 split.getLength(),
+                0,
                 splitProperties,
                 TupleDomain.all(),
                 columnHandles,
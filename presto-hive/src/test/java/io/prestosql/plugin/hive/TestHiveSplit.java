@@ -50,6 +50,7 @@ public class TestHiveSplit
                 42,
                 87,
                 88,
+                89,
                 schema,
                 partitionKeys,
                 addresses,
@@ -72,6 +73,7 @@ public class TestHiveSplit
         assertEquals(actual.getStart(), expected.getStart());
         assertEquals(actual.getLength(), expected.getLength());
         assertEquals(actual.getFileSize(), expected.getFileSize());
+        assertEquals(actual.getFileModifiedTime(), expected.getFileModifiedTime());
         assertEquals(actual.getSchema(), expected.getSchema());
         assertEquals(actual.getPartitionKeys(), expected.getPartitionKeys());
         assertEquals(actual.getAddresses(), expected.getAddresses());
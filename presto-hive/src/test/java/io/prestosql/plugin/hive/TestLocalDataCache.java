@@ -0,0 +1,148 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.plugin.hive;
+
+import com.google.common.io.Files;
+import io.airlift.units.DataSize;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.Random;
+
+import static com.google.common.io.MoreFiles.deleteRecursively;
+import static com.google.common.io.RecursiveDeleteOption.ALLOW_INSECURE;
+import static io.airlift.units.DataSize.Unit.KILOBYTE;
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+public class TestLocalDataCache
+{
+    private static final int FILE_SIZE = 10_000;
+
+    private File tempDir;
+    private File dataFile;
+    private byte[] data;
+
+    @BeforeClass
+    public void setUp()
+            throws IOException
+    {
+        tempDir = Files.createTempDir();
+        dataFile = new File(tempDir, "data");
+        data = new byte[FILE_SIZE];
+        new Random(42).nextBytes(data);
+        Files.write(data, dataFile);
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void tearDown()
+            throws IOException
+    {
+        deleteRecursively(tempDir.toPath(), ALLOW_INSECURE);
+    }
+
+    @Test
+    public void testCacheDisabled()
+            throws IOException
+    {
+        LocalDataCache dataCache = new LocalDataCache(new HiveConfig());
+        try (FSDataInputStream inputStream = openDataFile()) {
+            assertSame(dataCache.cache(inputStream, new Path(dataFile.toURI()), 1, FILE_SIZE, new FileFormatDataSourceStats()), inputStream);
+        }
+    }
+
+    @Test
+    public void testReadThrough()
+            throws IOException
+    {
+        File cacheDir = new File(tempDir, "testReadThrough");
+        LocalDataCache dataCache = new LocalDataCache(Optional.of(cacheDir), new DataSize(1, MEGABYTE), new DataSize(1, KILOBYTE));
+        FileFormatDataSourceStats stats = new FileFormatDataSourceStats();
+
+        // the range spans three blocks
+        assertRead(dataCache, 1, 1000, 2000, stats);
+        assertEquals(stats.getLocalCacheMisses().getTotalCount(), 3);
+        assertEquals(stats.getLocalCacheHits().getTotalCount(), 0);
+        assertEquals(dataCache.getBlockCount(), 3);
+        assertEquals(cacheDir.list().length, 3);
+
+        assertRead(dataCache, 1, 1500, 1000, stats);
+        assertEquals(stats.getLocalCacheHits().getTotalCount(), 2);
+        assertEquals(stats.getLocalCacheBytesServed().getTotalCount(), 1000);
+
+        // the last block is shorter than the block size
+        assertRead(dataCache, 1, FILE_SIZE - 10, 10, stats);
+        assertRead(dataCache, 1, FILE_SIZE - 10, 10, stats);
+        assertEquals(stats.getLocalCacheHits().getTotalCount(), 3);
+
+        // the file was rewritten in place
+        assertRead(dataCache, 2, 1500, 1000, stats);
+        assertEquals(stats.getLocalCacheHits().getTotalCount(), 3);
+        assertEquals(stats.getLocalCacheMisses().getTotalCount(), 6);
+
+        dataCache.flushCache();
+        assertEquals(dataCache.getBlockCount(), 0);
+        assertEquals(cacheDir.list().length, 0);
+    }
+
+    @Test
+    public void testEviction()
+            throws IOException
+    {
+        File cacheDir = new File(tempDir, "testEviction");
+        LocalDataCache dataCache = new LocalDataCache(Optional.of(cacheDir), new DataSize(4, KILOBYTE), new DataSize(1, KILOBYTE));
+        FileFormatDataSourceStats stats = new FileFormatDataSourceStats();
+
+        assertRead(dataCache, 1, 0, FILE_SIZE, stats);
+        assertTrue(dataCache.getEvictionCount() > 0);
+        assertTrue(dataCache.getCachedBytes() <= 4 * 1024);
+        assertEquals(cacheDir.list().length, dataCache.getBlockCount());
+    }
+
+    @Test(expectedExceptions = EOFException.class)
+    public void testReadPastEnd()
+            throws IOException
+    {
+        LocalDataCache dataCache = new LocalDataCache(Optional.of(new File(tempDir, "testReadPastEnd")), new DataSize(1, MEGABYTE), new DataSize(1, KILOBYTE));
+        assertRead(dataCache, 1, FILE_SIZE - 10, 20, new FileFormatDataSourceStats());
+    }
+
+    private void assertRead(LocalDataCache dataCache, long modificationTime, int position, int length, FileFormatDataSourceStats stats)
+            throws IOException
+    {
+        try (FSDataInputStream inputStream = dataCache.cache(openDataFile(), new Path(dataFile.toURI()), modificationTime, FILE_SIZE, stats)) {
+            byte[] buffer = new byte[length];
+            inputStream.readFully(position, buffer);
+            assertEquals(buffer, Arrays.copyOfRange(data, position, position + length));
+        }
+    }
+
+    private FSDataInputStream openDataFile()
+            throws IOException
+    {
+        return FileSystem.getLocal(new Configuration()).open(new Path(dataFile.toURI()));
+    }
+}
@@ -19,6 +19,9 @@ import io.prestosql.orc.OrcWriter;
 import io.prestosql.orc.OrcWriterOptions;
 import io.prestosql.orc.OrcWriterStats;
 import io.prestosql.orc.OutputStreamOrcDataSink;
+import io.prestosql.parquet.writer.ParquetSchemaConverter;
+import io.prestosql.parquet.writer.ParquetWriter;
+import io.prestosql.parquet.writer.ParquetWriterOptions;
 import io.prestosql.plugin.hive.FileFormatDataSourceStats;
 import io.prestosql.plugin.hive.GenericHiveRecordCursorProvider;
 import io.prestosql.plugin.hive.HdfsEnvironment;
@@ -167,8 +170,15 @@ public enum FileFormat
                 List<String> columnNames,
                 List<Type> columnTypes,
                 HiveCompressionCodec compressionCodec)
+                throws IOException
         {
-            return new RecordFormatWriter(targetFile, columnNames, columnTypes, compressionCodec, HiveStorageFormat.PARQUET, session);
+            return new PrestoParquetFormatWriter(targetFile, columnNames, columnTypes, compressionCodec);
+        }
+
+        @Override
+        public boolean supports(TestData testData)
+        {
+            return testData.getColumnTypes().stream().allMatch(ParquetSchemaConverter::isSupportedType);
         }
     },
 
@@ -338,6 +348,7 @@ public enum FileFormat
                         0,
                         targetFile.length(),
                         targetFile.length(),
+                        targetFile.lastModified(),
                         createSchema(format, columnNames, columnTypes),
                         columnHandles,
                         TupleDomain.all(),
@@ -471,4 +482,36 @@ public enum FileFormat
             writer.close();
         }
     }
+
+    private static class PrestoParquetFormatWriter
+            implements FormatWriter
+    {
+        private final ParquetWriter writer;
+
+        public PrestoParquetFormatWriter(File targetFile, List<String> columnNames, List<Type> types, HiveCompressionCodec compressionCodec)
+                throws IOException
+        {
+            writer = new ParquetWriter(
+                    new FileOutputStream(targetFile),
+                    columnNames,
+                    types,
+                    new ParquetWriterOptions(),
+                    compressionCodec.getParquetCompressionCodec(),
+                    ImmutableMap.of());
+        }
+
+        @Override
+        public void writePage(Page page)
+                throws IOException
+        {
+            writer.write(page);
+        }
+
+        @Override
+        public void close()
+                throws IOException
+        {
+            writer.close();
+        }
+    }
 }
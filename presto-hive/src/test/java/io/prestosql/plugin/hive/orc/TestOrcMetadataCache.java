@@ -0,0 +1,78 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.plugin.hive.orc;
+
+import com.google.common.collect.ImmutableList;
+import io.airlift.units.DataSize;
+import io.prestosql.orc.OrcFileMetadataCache;
+import io.prestosql.orc.metadata.StripeFooter;
+import org.apache.hadoop.fs.Path;
+import org.testng.annotations.Test;
+
+import java.util.Optional;
+
+import static io.airlift.units.DataSize.Unit.BYTE;
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+public class TestOrcMetadataCache
+{
+    private static final Path PATH = new Path("file:///test.orc");
+    private static final StripeFooter STRIPE_FOOTER = new StripeFooter(ImmutableList.of(), ImmutableList.of(), Optional.empty());
+
+    @Test
+    public void testCacheDisabled()
+    {
+        OrcMetadataCache metadataCache = new OrcMetadataCache(new DataSize(0, BYTE));
+        assertSame(metadataCache.getFileMetadataCache(PATH, 1, 100), OrcFileMetadataCache.NO_CACHE);
+    }
+
+    @Test
+    public void testFileIdentity()
+    {
+        OrcMetadataCache metadataCache = new OrcMetadataCache(new DataSize(1, MEGABYTE));
+        metadataCache.getFileMetadataCache(PATH, 1, 100).putStripeFooter(3, STRIPE_FOOTER);
+
+        assertEquals(metadataCache.getFileMetadataCache(PATH, 1, 100).getStripeFooter(3), Optional.of(STRIPE_FOOTER));
+        assertFalse(metadataCache.getFileMetadataCache(PATH, 1, 100).getStripeFooter(4).isPresent());
+        // the file was rewritten in place
+        assertFalse(metadataCache.getFileMetadataCache(PATH, 2, 100).getStripeFooter(3).isPresent());
+        assertFalse(metadataCache.getFileMetadataCache(PATH, 1, 101).getStripeFooter(3).isPresent());
+        assertFalse(metadataCache.getFileMetadataCache(new Path("file:///other.orc"), 1, 100).getStripeFooter(3).isPresent());
+
+        assertEquals(metadataCache.getHitCount(), 1);
+        assertEquals(metadataCache.getMissCount(), 4);
+        assertEquals(metadataCache.getSize(), 1);
+        assertEquals(metadataCache.getRetainedSizeInBytes(), STRIPE_FOOTER.getRetainedSizeInBytes());
+
+        metadataCache.flushCache();
+        assertEquals(metadataCache.getSize(), 0);
+    }
+
+    @Test
+    public void testEviction()
+    {
+        // room for a few stripe footers only
+        OrcMetadataCache metadataCache = new OrcMetadataCache(new DataSize(STRIPE_FOOTER.getRetainedSizeInBytes() * 3, BYTE));
+        OrcFileMetadataCache fileMetadataCache = metadataCache.getFileMetadataCache(PATH, 1, 100);
+        for (int stripe = 0; stripe < 10; stripe++) {
+            fileMetadataCache.putStripeFooter(stripe, STRIPE_FOOTER);
+        }
+        assertTrue(metadataCache.getEvictionCount() > 0);
+        assertTrue(metadataCache.getRetainedSizeInBytes() <= STRIPE_FOOTER.getRetainedSizeInBytes() * 3);
+    }
+}
@@ -19,6 +19,10 @@ public final class PrestoMediaTypes
 {
     public static final String PRESTO_PAGES = "application/X-presto-pages";
     public static final MediaType PRESTO_PAGES_TYPE = MediaType.create("application", "X-presto-pages");
+    public static final String PRESTO_PAGES_STREAM = "application/X-presto-pages-stream";
+    public static final MediaType PRESTO_PAGES_STREAM_TYPE = MediaType.create("application", "X-presto-pages-stream");
+    public static final String APPLICATION_JACKSON_SMILE = "application/x-jackson-smile";
+    public static final MediaType JACKSON_SMILE = MediaType.create("application", "x-jackson-smile");
 
     private PrestoMediaTypes()
     {
@@ -13,11 +13,14 @@
  */
 package io.prestosql;
 
+import com.google.common.base.Splitter;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import io.airlift.units.DataSize;
 import io.airlift.units.Duration;
 import io.prestosql.execution.QueryManagerConfig;
 import io.prestosql.execution.TaskManagerConfig;
+import io.prestosql.execution.buffer.CompressionCodec;
 import io.prestosql.memory.MemoryManagerConfig;
 import io.prestosql.spi.PrestoException;
 import io.prestosql.spi.session.PropertyMetadata;
@@ -28,6 +31,7 @@ import io.prestosql.sql.analyzer.FeaturesConfig.JoinReorderingStrategy;
 import javax.inject.Inject;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.OptionalInt;
 
@@ -35,17 +39,21 @@ import static com.google.common.base.Preconditions.checkArgument;
 import static io.prestosql.spi.StandardErrorCode.INVALID_SESSION_PROPERTY;
 import static io.prestosql.spi.session.PropertyMetadata.booleanProperty;
 import static io.prestosql.spi.session.PropertyMetadata.dataSizeProperty;
+import static io.prestosql.spi.session.PropertyMetadata.doubleProperty;
 import static io.prestosql.spi.session.PropertyMetadata.durationProperty;
 import static io.prestosql.spi.session.PropertyMetadata.enumProperty;
 import static io.prestosql.spi.session.PropertyMetadata.integerProperty;
+import static io.prestosql.spi.session.PropertyMetadata.longProperty;
 import static io.prestosql.spi.session.PropertyMetadata.stringProperty;
 import static io.prestosql.spi.type.BigintType.BIGINT;
 import static io.prestosql.spi.type.BooleanType.BOOLEAN;
 import static io.prestosql.spi.type.IntegerType.INTEGER;
+import static io.prestosql.spi.type.VarcharType.VARCHAR;
 import static io.prestosql.sql.analyzer.FeaturesConfig.JoinReorderingStrategy.ELIMINATE_CROSS_JOINS;
 import static io.prestosql.sql.analyzer.FeaturesConfig.JoinReorderingStrategy.NONE;
 import static java.lang.Math.min;
 import static java.lang.String.format;
+import static java.util.Locale.ENGLISH;
 import static java.util.Objects.requireNonNull;
 
 public final class SystemSessionProperties
@@ -53,6 +61,7 @@ public final class SystemSessionProperties
     public static final String OPTIMIZE_HASH_GENERATION = "optimize_hash_generation";
     public static final String JOIN_DISTRIBUTION_TYPE = "join_distribution_type";
     public static final String JOIN_MAX_BROADCAST_TABLE_SIZE = "join_max_broadcast_table_size";
+    public static final String FAIL_ON_OVERSIZED_BROADCAST_JOIN = "fail_on_oversized_broadcast_join";
     public static final String DISTRIBUTED_INDEX_JOIN = "distributed_index_join";
     public static final String HASH_PARTITION_COUNT = "hash_partition_count";
     public static final String GROUPED_EXECUTION = "grouped_execution";
@@ -77,15 +86,20 @@ public final class SystemSessionProperties
     public static final String PLAN_WITH_TABLE_NODE_PARTITIONING = "plan_with_table_node_partitioning";
     public static final String SPATIAL_JOIN = "spatial_join";
     public static final String SPATIAL_PARTITIONING_TABLE_NAME = "spatial_partitioning_table_name";
+    public static final String MERGE_JOIN = "merge_join";
     public static final String COLOCATED_JOIN = "colocated_join";
     public static final String CONCURRENT_LIFESPANS_PER_NODE = "concurrent_lifespans_per_task";
     public static final String REORDER_JOINS = "reorder_joins";
     public static final String JOIN_REORDERING_STRATEGY = "join_reordering_strategy";
     public static final String MAX_REORDERED_JOINS = "max_reordered_joins";
+    public static final String SKEWED_JOIN_KEYS = "skewed_join_keys";
+    public static final String SKEWED_JOIN_REPLICATION_FACTOR = "skewed_join_replication_factor";
     public static final String INITIAL_SPLITS_PER_NODE = "initial_splits_per_node";
     public static final String SPLIT_CONCURRENCY_ADJUSTMENT_INTERVAL = "split_concurrency_adjustment_interval";
     public static final String OPTIMIZE_METADATA_QUERIES = "optimize_metadata_queries";
     public static final String FAST_INEQUALITY_JOINS = "fast_inequality_joins";
+    public static final String JOIN_BLOOM_FILTER_ENABLED = "join_bloom_filter_enabled";
+    public static final String BIGINT_JOIN_HASH_ENABLED = "bigint_join_hash_enabled";
     public static final String QUERY_PRIORITY = "query_priority";
     public static final String SPILL_ENABLED = "spill_enabled";
     public static final String SPILL_ORDER_BY = "spill_order_by";
@@ -96,6 +110,9 @@ public final class SystemSessionProperties
     public static final String ITERATIVE_OPTIMIZER_TIMEOUT = "iterative_optimizer_timeout";
     public static final String ENABLE_FORCED_EXCHANGE_BELOW_GROUP_ID = "enable_forced_exchange_below_group_id";
     public static final String EXCHANGE_COMPRESSION = "exchange_compression";
+    public static final String EXCHANGE_COMPRESSION_CODEC = "exchange_compression_codec";
+    public static final String EXCHANGE_COLUMNAR_COMPRESSION = "exchange_columnar_compression";
+    public static final String EXCHANGE_DICTIONARY_PRESERVING = "exchange_dictionary_preserving";
     public static final String LEGACY_TIMESTAMP = "legacy_timestamp";
     public static final String ENABLE_INTERMEDIATE_AGGREGATIONS = "enable_intermediate_aggregations";
     public static final String PUSH_AGGREGATION_THROUGH_JOIN = "push_aggregation_through_join";
@@ -107,6 +124,9 @@ public final class SystemSessionProperties
     public static final String DISTRIBUTED_SORT = "distributed_sort";
     public static final String USE_MARK_DISTINCT = "use_mark_distinct";
     public static final String PREFER_PARTIAL_AGGREGATION = "prefer_partial_aggregation";
+    public static final String ADAPTIVE_PARTIAL_AGGREGATION_ENABLED = "adaptive_partial_aggregation_enabled";
+    public static final String ADAPTIVE_PARTIAL_AGGREGATION_MIN_ROWS = "adaptive_partial_aggregation_min_rows";
+    public static final String ADAPTIVE_PARTIAL_AGGREGATION_UNIQUE_ROWS_RATIO_THRESHOLD = "adaptive_partial_aggregation_unique_rows_ratio_threshold";
     public static final String OPTIMIZE_TOP_N_ROW_NUMBER = "optimize_top_n_row_number";
     public static final String MAX_GROUPING_SETS = "max_grouping_sets";
     public static final String STATISTICS_CPU_TIMER_ENABLED = "statistics_cpu_timer_enabled";
@@ -118,6 +138,8 @@ public final class SystemSessionProperties
     public static final String SKIP_REDUNDANT_SORT = "skip_redundant_sort";
     public static final String WORK_PROCESSOR_PIPELINES = "work_processor_pipelines";
     public static final String ENABLE_DYNAMIC_FILTERING = "enable_dynamic_filtering";
+    public static final String DYNAMIC_FILTERING_MAX_PER_DRIVER_VALUE_COUNT = "dynamic_filtering_max_per_driver_value_count";
+    public static final String DYNAMIC_FILTERING_WAIT_TIMEOUT = "dynamic_filtering_wait_timeout";
 
     private final List<PropertyMetadata<?>> sessionProperties;
 
@@ -155,6 +177,11 @@ public final class SystemSessionProperties
                         "Maximum estimated size of a table that can be broadcast when using automatic join type selection",
                         featuresConfig.getJoinMaxBroadcastTableSize(),
                         false),
+                booleanProperty(
+                        FAIL_ON_OVERSIZED_BROADCAST_JOIN,
+                        "Fail queries whose broadcast join build side exceeds the maximum broadcast table size when using automatic join type selection",
+                        featuresConfig.isFailOnOversizedBroadcastJoin(),
+                        false),
                 booleanProperty(
                         DISTRIBUTED_INDEX_JOIN,
                         "Distribute index joins on join keys instead of executing inline",
@@ -314,11 +341,43 @@ public final class SystemSessionProperties
                             return intValue;
                         },
                         value -> value),
+                new PropertyMetadata<>(
+                        SKEWED_JOIN_KEYS,
+                        "Join keys with skewed values, as table.column:value,...;table.column:value,...",
+                        VARCHAR,
+                        String.class,
+                        "",
+                        false,
+                        value -> {
+                            String keys = (String) requireNonNull(value, "value is null");
+                            parseSkewedJoinKeys(keys);
+                            return keys;
+                        },
+                        value -> value),
+                new PropertyMetadata<>(
+                        SKEWED_JOIN_REPLICATION_FACTOR,
+                        "Number of partitions the rows of a skewed join key are spread across",
+                        INTEGER,
+                        Integer.class,
+                        featuresConfig.getSkewedJoinReplicationFactor(),
+                        false,
+                        value -> validateIntegerValue(value, SKEWED_JOIN_REPLICATION_FACTOR, 2, false),
+                        value -> value),
                 booleanProperty(
                         FAST_INEQUALITY_JOINS,
                         "Use faster handling of inequality join if it is possible",
                         featuresConfig.isFastInequalityJoins(),
                         false),
+                booleanProperty(
+                        JOIN_BLOOM_FILTER_ENABLED,
+                        "Build a bloom filter of the join keys to reject probe rows without a match",
+                        featuresConfig.isJoinBloomFilterEnabled(),
+                        false),
+                booleanProperty(
+                        BIGINT_JOIN_HASH_ENABLED,
+                        "Use a hash table specialized for a single BIGINT, INTEGER or DATE join key",
+                        featuresConfig.isBigintJoinHashEnabled(),
+                        false),
                 booleanProperty(
                         COLOCATED_JOIN,
                         "Experimental: Use a colocated join when possible",
@@ -329,6 +388,11 @@ public final class SystemSessionProperties
                         "Use spatial index for spatial join when possible",
                         featuresConfig.isSpatialJoinsEnabled(),
                         false),
+                booleanProperty(
+                        MERGE_JOIN,
+                        "Use a streaming merge join when both join inputs are sorted on the join keys",
+                        featuresConfig.isMergeJoinsEnabled(),
+                        false),
                 stringProperty(
                         SPATIAL_PARTITIONING_TABLE_NAME,
                         "Name of the table containing spatial partitioning scheme",
@@ -396,6 +460,22 @@ public final class SystemSessionProperties
                         "Enable compression in exchanges",
                         featuresConfig.isExchangeCompressionEnabled(),
                         false),
+                enumProperty(
+                        EXCHANGE_COMPRESSION_CODEC,
+                        "Codec used to compress exchanged pages",
+                        CompressionCodec.class,
+                        featuresConfig.getExchangeCompressionCodec(),
+                        false),
+                booleanProperty(
+                        EXCHANGE_COLUMNAR_COMPRESSION,
+                        "Compress every column of exchanged pages on its own",
+                        featuresConfig.isExchangeColumnarCompressionEnabled(),
+                        false),
+                booleanProperty(
+                        EXCHANGE_DICTIONARY_PRESERVING,
+                        "Keep dictionary and run length encoded blocks encoded in partitioned exchanges",
+                        featuresConfig.isExchangeDictionaryPreservingEnabled(),
+                        false),
                 booleanProperty(
                         LEGACY_TIMESTAMP,
                         "Use legacy TIME & TIMESTAMP semantics (warning: this will be removed)",
@@ -451,6 +531,21 @@ public final class SystemSessionProperties
                         "Prefer splitting aggregations into partial and final stages",
                         featuresConfig.isPreferPartialAggregation(),
                         false),
+                booleanProperty(
+                        ADAPTIVE_PARTIAL_AGGREGATION_ENABLED,
+                        "Pass rows through partial aggregations that do not reduce the number of rows",
+                        featuresConfig.isAdaptivePartialAggregationEnabled(),
+                        false),
+                longProperty(
+                        ADAPTIVE_PARTIAL_AGGREGATION_MIN_ROWS,
+                        "Minimum number of rows a partial aggregation processes before it can be bypassed",
+                        featuresConfig.getAdaptivePartialAggregationMinRows(),
+                        false),
+                doubleProperty(
+                        ADAPTIVE_PARTIAL_AGGREGATION_UNIQUE_ROWS_RATIO_THRESHOLD,
+                        "Ratio of output groups to input rows above which a partial aggregation is bypassed",
+                        featuresConfig.getAdaptivePartialAggregationUniqueRowsRatioThreshold(),
+                        false),
                 booleanProperty(
                         OPTIMIZE_TOP_N_ROW_NUMBER,
                         "Use top N row number optimization",
@@ -509,6 +604,16 @@ public final class SystemSessionProperties
                         ENABLE_DYNAMIC_FILTERING,
                         "Enable dynamic filtering",
                         featuresConfig.isEnableDynamicFiltering(),
+                        false),
+                integerProperty(
+                        DYNAMIC_FILTERING_MAX_PER_DRIVER_VALUE_COUNT,
+                        "Experimental: maximum number of distinct build side values collected by each driver for dynamic filtering",
+                        featuresConfig.getDynamicFilteringMaxPerDriverValueCount(),
+                        false),
+                durationProperty(
+                        DYNAMIC_FILTERING_WAIT_TIMEOUT,
+                        "Experimental: maximum time the split enumeration of a table scan waits for dynamic filters collected by other stages",
+                        featuresConfig.getDynamicFilteringWaitTimeout(),
                         false));
     }
 
@@ -537,6 +642,11 @@ public final class SystemSessionProperties
         return Optional.ofNullable(session.getSystemProperty(JOIN_MAX_BROADCAST_TABLE_SIZE, DataSize.class));
     }
 
+    public static boolean isFailOnOversizedBroadcastJoin(Session session)
+    {
+        return session.getSystemProperty(FAIL_ON_OVERSIZED_BROADCAST_JOIN, Boolean.class);
+    }
+
     public static boolean isDistributedIndexJoinEnabled(Session session)
     {
         return session.getSystemProperty(DISTRIBUTED_INDEX_JOIN, Boolean.class);
@@ -647,6 +757,16 @@ public final class SystemSessionProperties
         return session.getSystemProperty(FAST_INEQUALITY_JOINS, Boolean.class);
     }
 
+    public static boolean isJoinBloomFilterEnabled(Session session)
+    {
+        return session.getSystemProperty(JOIN_BLOOM_FILTER_ENABLED, Boolean.class);
+    }
+
+    public static boolean isBigintJoinHashEnabled(Session session)
+    {
+        return session.getSystemProperty(BIGINT_JOIN_HASH_ENABLED, Boolean.class);
+    }
+
     public static JoinReorderingStrategy getJoinReorderingStrategy(Session session)
     {
         Boolean reorderJoins = session.getSystemProperty(REORDER_JOINS, Boolean.class);
@@ -664,6 +784,19 @@ public final class SystemSessionProperties
         return session.getSystemProperty(MAX_REORDERED_JOINS, Integer.class);
     }
 
+    /**
+     * Returns the skewed values of join keys, by lower case {@code table.column}.
+     */
+    public static Map<String, List<String>> getSkewedJoinKeys(Session session)
+    {
+        return parseSkewedJoinKeys(session.getSystemProperty(SKEWED_JOIN_KEYS, String.class));
+    }
+
+    public static int getSkewedJoinReplicationFactor(Session session)
+    {
+        return session.getSystemProperty(SKEWED_JOIN_REPLICATION_FACTOR, Integer.class);
+    }
+
     public static boolean isColocatedJoinEnabled(Session session)
     {
         return session.getSystemProperty(COLOCATED_JOIN, Boolean.class);
@@ -674,6 +807,11 @@ public final class SystemSessionProperties
         return session.getSystemProperty(SPATIAL_JOIN, Boolean.class);
     }
 
+    public static boolean isMergeJoinEnabled(Session session)
+    {
+        return session.getSystemProperty(MERGE_JOIN, Boolean.class);
+    }
+
     public static Optional<String> getSpatialPartitioningTableName(Session session)
     {
         return Optional.ofNullable(session.getSystemProperty(SPATIAL_PARTITIONING_TABLE_NAME, String.class));
@@ -765,6 +903,21 @@ public final class SystemSessionProperties
         return session.getSystemProperty(EXCHANGE_COMPRESSION, Boolean.class);
     }
 
+    public static CompressionCodec getExchangeCompressionCodec(Session session)
+    {
+        return session.getSystemProperty(EXCHANGE_COMPRESSION_CODEC, CompressionCodec.class);
+    }
+
+    public static boolean isExchangeColumnarCompressionEnabled(Session session)
+    {
+        return session.getSystemProperty(EXCHANGE_COLUMNAR_COMPRESSION, Boolean.class);
+    }
+
+    public static boolean isExchangeDictionaryPreservingEnabled(Session session)
+    {
+        return session.getSystemProperty(EXCHANGE_DICTIONARY_PRESERVING, Boolean.class);
+    }
+
     public static boolean isEnableIntermediateAggregations(Session session)
     {
         return session.getSystemProperty(ENABLE_INTERMEDIATE_AGGREGATIONS, Boolean.class);
@@ -810,6 +963,21 @@ public final class SystemSessionProperties
         return session.getSystemProperty(PREFER_PARTIAL_AGGREGATION, Boolean.class);
     }
 
+    public static boolean isAdaptivePartialAggregationEnabled(Session session)
+    {
+        return session.getSystemProperty(ADAPTIVE_PARTIAL_AGGREGATION_ENABLED, Boolean.class);
+    }
+
+    public static long getAdaptivePartialAggregationMinRows(Session session)
+    {
+        return session.getSystemProperty(ADAPTIVE_PARTIAL_AGGREGATION_MIN_ROWS, Long.class);
+    }
+
+    public static double getAdaptivePartialAggregationUniqueRowsRatioThreshold(Session session)
+    {
+        return session.getSystemProperty(ADAPTIVE_PARTIAL_AGGREGATION_UNIQUE_ROWS_RATIO_THRESHOLD, Double.class);
+    }
+
     public static boolean isOptimizeTopNRowNumber(Session session)
     {
         return session.getSystemProperty(OPTIMIZE_TOP_N_ROW_NUMBER, Boolean.class);
@@ -834,6 +1002,25 @@ public final class SystemSessionProperties
         return OptionalInt.of(value);
     }
 
+    private static Map<String, List<String>> parseSkewedJoinKeys(String value)
+    {
+        ImmutableMap.Builder<String, List<String>> keys = ImmutableMap.builder();
+        for (String key : Splitter.on(';').omitEmptyStrings().trimResults().split(value)) {
+            List<String> columnAndValues = Splitter.on(':').limit(2).trimResults().splitToList(key);
+            List<String> tableAndColumn = columnAndValues.isEmpty() ? ImmutableList.of() : Splitter.on('.').splitToList(columnAndValues.get(0));
+            if (columnAndValues.size() != 2 || tableAndColumn.size() != 2 || tableAndColumn.contains("") || columnAndValues.get(1).isEmpty()) {
+                throw new PrestoException(INVALID_SESSION_PROPERTY, format("%s must be a list of table.column:value,... separated by ';': %s", SKEWED_JOIN_KEYS, value));
+            }
+            keys.put(columnAndValues.get(0).toLowerCase(ENGLISH), Splitter.on(',').trimResults().splitToList(columnAndValues.get(1)));
+        }
+        try {
+            return keys.build();
+        }
+        catch (IllegalArgumentException e) {
+            throw new PrestoException(INVALID_SESSION_PROPERTY, format("%s contains a column more than once: %s", SKEWED_JOIN_KEYS, value));
+        }
+    }
+
     private static int validateValueIsPowerOfTwo(Object value, String property)
     {
         int intValue = ((Number) requireNonNull(value, "value is null")).intValue();
@@ -906,4 +1093,14 @@ public final class SystemSessionProperties
     {
         return session.getSystemProperty(ENABLE_DYNAMIC_FILTERING, Boolean.class);
     }
+
+    public static int getDynamicFilteringMaxPerDriverValueCount(Session session)
+    {
+        return session.getSystemProperty(DYNAMIC_FILTERING_MAX_PER_DRIVER_VALUE_COUNT, Integer.class);
+    }
+
+    public static Duration getDynamicFilteringWaitTimeout(Session session)
+    {
+        return session.getSystemProperty(DYNAMIC_FILTERING_WAIT_TIMEOUT, Duration.class);
+    }
 }
@@ -102,6 +102,7 @@ public final class SqlStageExecution
     private final AtomicReference<OutputBuffers> outputBuffers = new AtomicReference<>();
 
     private final ListenerManager<Set<Lifespan>> completedLifespansChangeListeners = new ListenerManager<>();
+    private final ListenerManager<TaskStatus> taskStatusListeners = new ListenerManager<>();
 
     public static SqlStageExecution createSqlStageExecution(
             StageId stageId,
@@ -197,6 +198,15 @@ public final class SqlStageExecution
         completedLifespansChangeListeners.addListener(newlyCompletedDriverGroupConsumer);
     }
 
+    /**
+     * Add a listener for the status updates of the tasks of this stage.
+     * Listener is always notified asynchronously, and must be added before the first task is scheduled.
+     */
+    public void addTaskStatusListener(Consumer<TaskStatus> taskStatusListener)
+    {
+        taskStatusListeners.addListener(taskStatusListener);
+    }
+
     public PlanFragment getFragment()
     {
         return stateMachine.getFragment();
@@ -570,6 +580,7 @@ public final class SqlStageExecution
             }
             finally {
                 updateTaskStatus(taskStatus);
+                taskStatusListeners.invoke(taskStatus, executor);
             }
         }
 
@@ -15,6 +15,7 @@ package io.prestosql.execution;
 
 import com.google.common.base.Function;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
@@ -35,6 +36,7 @@ import io.prestosql.operator.PipelineContext;
 import io.prestosql.operator.PipelineStatus;
 import io.prestosql.operator.TaskContext;
 import io.prestosql.operator.TaskStats;
+import io.prestosql.spi.predicate.Domain;
 import io.prestosql.sql.planner.PlanFragment;
 import io.prestosql.sql.planner.plan.PlanNodeId;
 import org.joda.time.DateTime;
@@ -43,6 +45,7 @@ import javax.annotation.Nullable;
 
 import java.net.URI;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.OptionalInt;
 import java.util.Set;
@@ -56,10 +59,14 @@ import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.util.concurrent.Futures.immediateFuture;
 import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
+import static io.airlift.concurrent.MoreFutures.whenAnyComplete;
 import static io.airlift.units.DataSize.Unit.BYTE;
 import static io.airlift.units.DataSize.succinctBytes;
+import static io.prestosql.execution.TaskInfoDelta.createTaskInfoDelta;
+import static io.prestosql.execution.TaskInfoDelta.fullTaskInfo;
 import static io.prestosql.execution.TaskState.ABORTED;
 import static io.prestosql.execution.TaskState.FAILED;
+import static io.prestosql.execution.TaskStatus.INITIAL_DYNAMIC_FILTERS_VERSION;
 import static io.prestosql.util.Failures.toFailures;
 import static java.util.Objects.requireNonNull;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
@@ -82,6 +89,8 @@ public class SqlTask
     private final AtomicLong nextTaskInfoVersion = new AtomicLong(TaskStatus.STARTING_VERSION);
 
     private final AtomicReference<TaskHolder> taskHolderReference = new AtomicReference<>(new TaskHolder());
+    // the last task info sent as a delta, which the coordinator acknowledges by asking for the next delta against its version
+    private final AtomicReference<TaskInfo> lastTaskInfoDeltaBase = new AtomicReference<>();
     private final AtomicBoolean needsPlan = new AtomicBoolean(true);
 
     public static SqlTask createSqlTask(
@@ -213,14 +222,41 @@ public class SqlTask
         }
     }
 
+    public TaskInfoDelta getTaskInfoDelta(long baseVersion, boolean summarize)
+    {
+        TaskInfo taskInfo = getTaskInfo();
+        if (summarize) {
+            taskInfo = taskInfo.summarize();
+        }
+        TaskInfo base = lastTaskInfoDeltaBase.getAndSet(taskInfo);
+        if (base == null || base.getTaskStatus().getVersion() != baseVersion) {
+            // the coordinator does not have the last info that was sent
+            return fullTaskInfo(taskInfo);
+        }
+        return createTaskInfoDelta(base, taskInfo);
+    }
+
     public TaskStatus getTaskStatus()
+    {
+        return getTaskStatus(INITIAL_DYNAMIC_FILTERS_VERSION);
+    }
+
+    /**
+     * Returns the status of the task, which leaves out the dynamic filters when the caller already has them.
+     */
+    public TaskStatus getTaskStatus(long callersDynamicFiltersVersion)
     {
         try (SetThreadName ignored = new SetThreadName("Task-%s", taskId)) {
-            return createTaskStatus(taskHolderReference.get());
+            return createTaskStatus(taskHolderReference.get(), callersDynamicFiltersVersion);
         }
     }
 
     private TaskStatus createTaskStatus(TaskHolder taskHolder)
+    {
+        return createTaskStatus(taskHolder, INITIAL_DYNAMIC_FILTERS_VERSION);
+    }
+
+    private TaskStatus createTaskStatus(TaskHolder taskHolder, long callersDynamicFiltersVersion)
     {
         // Always return a new TaskInfo with a larger version number;
         // otherwise a client will not accept the update
@@ -242,6 +278,8 @@ public class SqlTask
         Set<Lifespan> completedDriverGroups = ImmutableSet.of();
         long fullGcCount = 0;
         Duration fullGcTime = new Duration(0, MILLISECONDS);
+        long dynamicFiltersVersion = INITIAL_DYNAMIC_FILTERS_VERSION;
+        Map<String, Domain> dynamicFilterDomains = ImmutableMap.of();
         if (taskHolder.getFinalTaskInfo() != null) {
             TaskStats taskStats = taskHolder.getFinalTaskInfo().getStats();
             queuedPartitionedDrivers = taskStats.getQueuedPartitionedDrivers();
@@ -252,6 +290,11 @@ public class SqlTask
             revocableMemoryReservation = taskStats.getRevocableMemoryReservation();
             fullGcCount = taskStats.getFullGcCount();
             fullGcTime = taskStats.getFullGcTime();
+            TaskStatus finalTaskStatus = taskHolder.getFinalTaskInfo().getTaskStatus();
+            dynamicFiltersVersion = finalTaskStatus.getDynamicFiltersVersion();
+            if (dynamicFiltersVersion != callersDynamicFiltersVersion) {
+                dynamicFilterDomains = finalTaskStatus.getDynamicFilterDomains();
+            }
         }
         else if (taskHolder.getTaskExecution() != null) {
             long physicalWrittenBytes = 0;
@@ -269,6 +312,11 @@ public class SqlTask
             completedDriverGroups = taskContext.getCompletedDriverGroups();
             fullGcCount = taskContext.getFullGcCount();
             fullGcTime = taskContext.getFullGcTime();
+            // the version is read before the domains, so the domains are never older than the version they are reported with
+            dynamicFiltersVersion = taskContext.getDynamicFiltersVersion();
+            if (dynamicFiltersVersion != callersDynamicFiltersVersion) {
+                dynamicFilterDomains = taskContext.getDynamicFilterDomains();
+            }
         }
 
         return new TaskStatus(taskStateMachine.getTaskId(),
@@ -287,7 +335,9 @@ public class SqlTask
                 systemMemoryReservation,
                 revocableMemoryReservation,
                 fullGcCount,
-                fullGcTime);
+                fullGcTime,
+                dynamicFiltersVersion,
+                dynamicFilterDomains);
     }
 
     private TaskStats getTaskStats(TaskHolder taskHolder)
@@ -333,16 +383,22 @@ public class SqlTask
                 needsPlan.get());
     }
 
-    public ListenableFuture<TaskStatus> getTaskStatus(TaskState callersCurrentState)
+    public ListenableFuture<TaskStatus> getTaskStatus(TaskState callersCurrentState, long callersDynamicFiltersVersion)
     {
         requireNonNull(callersCurrentState, "callersCurrentState is null");
 
         if (callersCurrentState.isDone()) {
-            return immediateFuture(getTaskStatus());
+            return immediateFuture(getTaskStatus(callersDynamicFiltersVersion));
         }
 
-        ListenableFuture<TaskState> futureTaskState = taskStateMachine.getStateChange(callersCurrentState);
-        return Futures.transform(futureTaskState, input -> getTaskStatus(), directExecutor());
+        ListenableFuture<?> futureTaskState = taskStateMachine.getStateChange(callersCurrentState);
+        SqlTaskExecution taskExecution = taskHolderReference.get().getTaskExecution();
+        if (taskExecution != null) {
+            // report dynamic filters as soon as they are collected, since the coordinator may delay split scheduling for them.
+            // The change is relative to the version of the caller, so filters collected between two requests are not missed.
+            futureTaskState = whenAnyComplete(ImmutableList.of(futureTaskState, taskExecution.getTaskContext().getDynamicFiltersChange(callersDynamicFiltersVersion)));
+        }
+        return Futures.transform(futureTaskState, input -> getTaskStatus(callersDynamicFiltersVersion), directExecutor());
     }
 
     public ListenableFuture<TaskInfo> getTaskInfo(TaskState callersCurrentState)
@@ -409,6 +465,14 @@ public class SqlTask
         return outputBuffer.get(bufferId, startingSequenceId, maxSize);
     }
 
+    public ListenableFuture<BufferResult> peekTaskResults(OutputBufferId bufferId, long startingSequenceId, DataSize maxSize)
+    {
+        requireNonNull(bufferId, "bufferId is null");
+        checkArgument(maxSize.toBytes() > 0, "maxSize must be at least 1 byte");
+
+        return outputBuffer.peek(bufferId, startingSequenceId, maxSize);
+    }
+
     public void acknowledgeTaskResults(OutputBufferId bufferId, long sequenceId)
     {
         requireNonNull(bufferId, "bufferId is null");
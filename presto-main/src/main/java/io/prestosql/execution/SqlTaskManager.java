@@ -314,6 +314,16 @@ public class SqlTaskManager
         return sqlTask.getTaskStatus();
     }
 
+    @Override
+    public TaskStatus getTaskStatus(TaskId taskId, long currentDynamicFiltersVersion)
+    {
+        requireNonNull(taskId, "taskId is null");
+
+        SqlTask sqlTask = tasks.getUnchecked(taskId);
+        sqlTask.recordHeartbeat();
+        return sqlTask.getTaskStatus(currentDynamicFiltersVersion);
+    }
+
     @Override
     public ListenableFuture<TaskInfo> getTaskInfo(TaskId taskId, TaskState currentState)
     {
@@ -325,6 +335,16 @@ public class SqlTaskManager
         return sqlTask.getTaskInfo(currentState);
     }
 
+    @Override
+    public TaskInfoDelta getTaskInfoDelta(TaskId taskId, long baseVersion, boolean summarize)
+    {
+        requireNonNull(taskId, "taskId is null");
+
+        SqlTask sqlTask = tasks.getUnchecked(taskId);
+        sqlTask.recordHeartbeat();
+        return sqlTask.getTaskInfoDelta(baseVersion, summarize);
+    }
+
     @Override
     public String getTaskInstanceId(TaskId taskId)
     {
@@ -334,14 +354,14 @@ public class SqlTaskManager
     }
 
     @Override
-    public ListenableFuture<TaskStatus> getTaskStatus(TaskId taskId, TaskState currentState)
+    public ListenableFuture<TaskStatus> getTaskStatus(TaskId taskId, TaskState currentState, long currentDynamicFiltersVersion)
     {
         requireNonNull(taskId, "taskId is null");
         requireNonNull(currentState, "currentState is null");
 
         SqlTask sqlTask = tasks.getUnchecked(taskId);
         sqlTask.recordHeartbeat();
-        return sqlTask.getTaskStatus(currentState);
+        return sqlTask.getTaskStatus(currentState, currentDynamicFiltersVersion);
     }
 
     @Override
@@ -374,6 +394,17 @@ public class SqlTaskManager
         return tasks.getUnchecked(taskId).getTaskResults(bufferId, startingSequenceId, maxSize);
     }
 
+    @Override
+    public ListenableFuture<BufferResult> peekTaskResults(TaskId taskId, OutputBufferId bufferId, long startingSequenceId, DataSize maxSize)
+    {
+        requireNonNull(taskId, "taskId is null");
+        requireNonNull(bufferId, "bufferId is null");
+        checkArgument(startingSequenceId >= 0, "startingSequenceId is negative");
+        requireNonNull(maxSize, "maxSize is null");
+
+        return tasks.getUnchecked(taskId).peekTaskResults(bufferId, startingSequenceId, maxSize);
+    }
+
     @Override
     public void acknowledgeTaskResults(TaskId taskId, OutputBufferId bufferId, long sequenceId)
     {
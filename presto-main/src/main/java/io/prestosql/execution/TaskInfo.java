@@ -129,4 +129,9 @@ public class TaskInfo
     {
         return new TaskInfo(newTaskStatus, lastHeartbeat, outputBuffers, noMoreSplits, stats, needsPlan);
     }
+
+    public TaskInfo withStats(TaskStats newStats)
+    {
+        return new TaskInfo(taskStatus, lastHeartbeat, outputBuffers, noMoreSplits, newStats, needsPlan);
+    }
 }
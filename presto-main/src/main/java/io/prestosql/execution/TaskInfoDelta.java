@@ -0,0 +1,192 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.execution;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import io.prestosql.operator.PipelineStats;
+
+import javax.annotation.concurrent.Immutable;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.collect.ImmutableMap.toImmutableMap;
+import static com.google.common.collect.ImmutableSet.toImmutableSet;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A task info that omits the pipelines which did not change since the info
+ * with the base version was sent. A delta without a base version is a full
+ * task info.
+ */
+@Immutable
+public class TaskInfoDelta
+{
+    public static final long NO_BASE_VERSION = -1;
+
+    private final long baseVersion;
+    private final TaskInfo taskInfo;
+    private final Set<Integer> unchangedPipelines;
+
+    @JsonCreator
+    public TaskInfoDelta(
+            @JsonProperty("baseVersion") long baseVersion,
+            @JsonProperty("taskInfo") TaskInfo taskInfo,
+            @JsonProperty("unchangedPipelines") Set<Integer> unchangedPipelines)
+    {
+        this.baseVersion = baseVersion;
+        this.taskInfo = requireNonNull(taskInfo, "taskInfo is null");
+        this.unchangedPipelines = ImmutableSet.copyOf(requireNonNull(unchangedPipelines, "unchangedPipelines is null"));
+        checkArgument(baseVersion != NO_BASE_VERSION || unchangedPipelines.isEmpty(), "full task info can not omit pipelines");
+    }
+
+    @JsonProperty
+    public long getBaseVersion()
+    {
+        return baseVersion;
+    }
+
+    @JsonProperty
+    public TaskInfo getTaskInfo()
+    {
+        return taskInfo;
+    }
+
+    @JsonProperty
+    public Set<Integer> getUnchangedPipelines()
+    {
+        return unchangedPipelines;
+    }
+
+    public boolean isFull()
+    {
+        return baseVersion == NO_BASE_VERSION;
+    }
+
+    /**
+     * Reassembles the full task info, taking the unchanged pipelines from the base.
+     */
+    public TaskInfo apply(TaskInfo base)
+    {
+        if (isFull()) {
+            return taskInfo;
+        }
+        checkArgument(base.getTaskStatus().getVersion() == baseVersion, "delta is for version %s, but base is version %s", baseVersion, base.getTaskStatus().getVersion());
+
+        Map<Integer, PipelineStats> changedPipelines = taskInfo.getStats().getPipelines().stream()
+                .collect(toImmutableMap(PipelineStats::getPipelineId, Function.identity()));
+        ImmutableList.Builder<PipelineStats> pipelines = ImmutableList.builder();
+        for (PipelineStats pipeline : base.getStats().getPipelines()) {
+            if (unchangedPipelines.contains(pipeline.getPipelineId())) {
+                pipelines.add(pipeline);
+            }
+            else if (changedPipelines.containsKey(pipeline.getPipelineId())) {
+                pipelines.add(changedPipelines.get(pipeline.getPipelineId()));
+            }
+        }
+        // pipelines that are not in the base yet
+        Set<Integer> basePipelines = base.getStats().getPipelines().stream()
+                .map(PipelineStats::getPipelineId)
+                .collect(toImmutableSet());
+        for (PipelineStats pipeline : taskInfo.getStats().getPipelines()) {
+            if (!basePipelines.contains(pipeline.getPipelineId())) {
+                pipelines.add(pipeline);
+            }
+        }
+        return taskInfo.withStats(taskInfo.getStats().withPipelines(pipelines.build()));
+    }
+
+    public static TaskInfoDelta fullTaskInfo(TaskInfo taskInfo)
+    {
+        return new TaskInfoDelta(NO_BASE_VERSION, taskInfo, ImmutableSet.of());
+    }
+
+    /**
+     * Creates a delta of the task info against the previously sent base. The final
+     * task info is always sent in full, so the coordinator ends up with exact
+     * stats even if an intermediate delta was taken from a torn pipeline snapshot.
+     */
+    public static TaskInfoDelta createTaskInfoDelta(TaskInfo base, TaskInfo taskInfo)
+    {
+        if (taskInfo.getTaskStatus().getState().isDone()) {
+            return fullTaskInfo(taskInfo);
+        }
+
+        Map<Integer, PipelineStats> basePipelines = base.getStats().getPipelines().stream()
+                .collect(toImmutableMap(PipelineStats::getPipelineId, Function.identity()));
+        ImmutableSet.Builder<Integer> unchangedPipelines = ImmutableSet.builder();
+        ImmutableList.Builder<PipelineStats> changedPipelines = ImmutableList.builder();
+        for (PipelineStats pipeline : taskInfo.getStats().getPipelines()) {
+            PipelineStats basePipeline = basePipelines.get(pipeline.getPipelineId());
+            if (basePipeline != null && isUnchanged(basePipeline, pipeline)) {
+                unchangedPipelines.add(pipeline.getPipelineId());
+            }
+            else {
+                changedPipelines.add(pipeline);
+            }
+        }
+
+        Set<Integer> unchanged = unchangedPipelines.build();
+        if (unchanged.isEmpty()) {
+            return fullTaskInfo(taskInfo);
+        }
+        return new TaskInfoDelta(base.getTaskStatus().getVersion(), taskInfo.withStats(taskInfo.getStats().withPipelines(changedPipelines.build())), unchanged);
+    }
+
+    private static boolean isUnchanged(PipelineStats base, PipelineStats current)
+    {
+        // Without live drivers the stats of a pipeline only change when a driver is
+        // created or finishes, which moves the driver counts, times and positions
+        return isIdle(base) &&
+                isIdle(current) &&
+                base.getTotalDrivers() == current.getTotalDrivers() &&
+                base.getCompletedDrivers() == current.getCompletedDrivers() &&
+                Objects.equals(base.getFirstStartTime(), current.getFirstStartTime()) &&
+                Objects.equals(base.getLastStartTime(), current.getLastStartTime()) &&
+                Objects.equals(base.getLastEndTime(), current.getLastEndTime()) &&
+                base.getUserMemoryReservation().toBytes() == current.getUserMemoryReservation().toBytes() &&
+                base.getRevocableMemoryReservation().toBytes() == current.getRevocableMemoryReservation().toBytes() &&
+                base.getSystemMemoryReservation().toBytes() == current.getSystemMemoryReservation().toBytes() &&
+                base.getTotalScheduledTime().equals(current.getTotalScheduledTime()) &&
+                base.getTotalBlockedTime().equals(current.getTotalBlockedTime()) &&
+                base.getRawInputPositions() == current.getRawInputPositions() &&
+                base.getProcessedInputPositions() == current.getProcessedInputPositions() &&
+                base.getOutputPositions() == current.getOutputPositions() &&
+                base.getPhysicalWrittenDataSize().toBytes() == current.getPhysicalWrittenDataSize().toBytes();
+    }
+
+    private static boolean isIdle(PipelineStats pipeline)
+    {
+        return pipeline.getDrivers().isEmpty() &&
+                pipeline.getTotalDrivers() == pipeline.getCompletedDrivers() &&
+                pipeline.getQueuedDrivers() == 0;
+    }
+
+    @Override
+    public String toString()
+    {
+        return toStringHelper(this)
+                .add("baseVersion", baseVersion)
+                .add("taskInfo", taskInfo)
+                .add("unchangedPipelines", unchangedPipelines)
+                .toString();
+    }
+}
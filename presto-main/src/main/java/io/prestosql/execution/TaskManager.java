@@ -49,6 +49,12 @@ public interface TaskManager
      */
     TaskStatus getTaskStatus(TaskId taskId);
 
+    /**
+     * Gets the status for the specified task, which leaves out the dynamic filters
+     * when they did not change since the {@code current dynamic filters version}.
+     */
+    TaskStatus getTaskStatus(TaskId taskId, long currentDynamicFiltersVersion);
+
     /**
      * Gets future info for the task after the state changes from
      * {@code current state}. If the task has not been created yet, an
@@ -60,6 +66,13 @@ public interface TaskManager
      */
     ListenableFuture<TaskInfo> getTaskInfo(TaskId taskId, TaskState currentState);
 
+    /**
+     * Gets the info for the task as a delta against the info with the
+     * {@code base version}, which must be the last info returned by this
+     * method. Otherwise the full info is returned.
+     */
+    TaskInfoDelta getTaskInfoDelta(TaskId taskId, long baseVersion, boolean summarize);
+
     /**
      * Gets the unique instance id of a task.  This can be used to detect a task
      * that was destroyed and recreated.
@@ -68,14 +81,17 @@ public interface TaskManager
 
     /**
      * Gets future status for the task after the state changes from
-     * {@code current state}. If the task has not been created yet, an
-     * uninitialized task is created and the future is returned.  If the task
-     * is already in a final state, the status is returned immediately.
+     * {@code current state}, or the dynamic filters of the task are newer than
+     * the {@code current dynamic filters version}. The status leaves out the
+     * dynamic filters when they did not change since that version. If the task
+     * has not been created yet, an uninitialized task is created and the future
+     * is returned.  If the task is already in a final state, the status is
+     * returned immediately.
      * <p>
      * NOTE: this design assumes that only tasks that will eventually exist are
      * queried.
      */
-    ListenableFuture<TaskStatus> getTaskStatus(TaskId taskId, TaskState currentState);
+    ListenableFuture<TaskStatus> getTaskStatus(TaskId taskId, TaskState currentState, long currentDynamicFiltersVersion);
 
     void updateMemoryPoolAssignments(MemoryPoolAssignmentsRequest assignments);
 
@@ -107,6 +123,13 @@ public interface TaskManager
      */
     ListenableFuture<BufferResult> getTaskResults(TaskId taskId, OutputBufferId bufferId, long startingSequenceId, DataSize maxSize);
 
+    /**
+     * Gets results from a task like {@link #getTaskResults}, but without
+     * acknowledging the results before the starting sequence id, which
+     * must have been read already.
+     */
+    ListenableFuture<BufferResult> peekTaskResults(TaskId taskId, OutputBufferId bufferId, long startingSequenceId, DataSize maxSize);
+
     /**
      * Acknowledges previously received results.
      */
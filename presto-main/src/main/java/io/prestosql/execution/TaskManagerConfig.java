@@ -63,11 +63,13 @@ public class TaskManagerConfig
 
     private Duration statusRefreshMaxWait = new Duration(1, TimeUnit.SECONDS);
     private Duration infoUpdateInterval = new Duration(3, TimeUnit.SECONDS);
+    private boolean infoDeltaEnabled;
 
     private int writerCount = 1;
     private int taskConcurrency = 16;
     private int httpResponseThreads = 100;
     private int httpTimeoutThreads = 3;
+    private int httpResultsStreamThreads = 100;
 
     private int taskNotificationThreads = 5;
     private int taskYieldThreads = 3;
@@ -105,6 +107,19 @@ public class TaskManagerConfig
         return this;
     }
 
+    public boolean isInfoDeltaEnabled()
+    {
+        return infoDeltaEnabled;
+    }
+
+    @Config("task.info-delta-enabled")
+    @ConfigDescription("Fetch only the task stats that changed since the previous update")
+    public TaskManagerConfig setInfoDeltaEnabled(boolean infoDeltaEnabled)
+    {
+        this.infoDeltaEnabled = infoDeltaEnabled;
+        return this;
+    }
+
     public boolean isPerOperatorCpuTimerEnabled()
     {
         return perOperatorCpuTimerEnabled;
@@ -404,6 +419,20 @@ public class TaskManagerConfig
         return this;
     }
 
+    @Min(1)
+    public int getHttpResultsStreamThreads()
+    {
+        return httpResultsStreamThreads;
+    }
+
+    @Config("task.http-results-stream-threads")
+    @ConfigDescription("Maximum number of threads writing streamed task results")
+    public TaskManagerConfig setHttpResultsStreamThreads(int httpResultsStreamThreads)
+    {
+        this.httpResultsStreamThreads = httpResultsStreamThreads;
+        return this;
+    }
+
     @Min(1)
     public int getTaskNotificationThreads()
     {
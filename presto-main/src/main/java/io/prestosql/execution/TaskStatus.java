@@ -16,12 +16,15 @@ package io.prestosql.execution;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import io.airlift.units.DataSize;
 import io.airlift.units.Duration;
+import io.prestosql.spi.predicate.Domain;
 
 import java.net.URI;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import static com.google.common.base.MoreObjects.toStringHelper;
@@ -51,6 +54,11 @@ public class TaskStatus
      */
     private static final long MAX_VERSION = Long.MAX_VALUE;
 
+    /**
+     * The dynamic filters version of a task which has not collected any dynamic filter.
+     */
+    public static final long INITIAL_DYNAMIC_FILTERS_VERSION = 0;
+
     private final TaskId taskId;
     private final String taskInstanceId;
     private final long version;
@@ -72,6 +80,9 @@ public class TaskStatus
 
     private final List<ExecutionFailureInfo> failures;
 
+    private final long dynamicFiltersVersion;
+    private final Map<String, Domain> dynamicFilterDomains;
+
     @JsonCreator
     public TaskStatus(
             @JsonProperty("taskId") TaskId taskId,
@@ -90,7 +101,9 @@ public class TaskStatus
             @JsonProperty("systemMemoryReservation") DataSize systemMemoryReservation,
             @JsonProperty("revocableMemoryReservation") DataSize revocableMemoryReservation,
             @JsonProperty("fullGcCount") long fullGcCount,
-            @JsonProperty("fullGcTime") Duration fullGcTime)
+            @JsonProperty("fullGcTime") Duration fullGcTime,
+            @JsonProperty("dynamicFiltersVersion") long dynamicFiltersVersion,
+            @JsonProperty("dynamicFilterDomains") Map<String, Domain> dynamicFilterDomains)
     {
         this.taskId = requireNonNull(taskId, "taskId is null");
         this.taskInstanceId = requireNonNull(taskInstanceId, "taskInstanceId is null");
@@ -120,6 +133,9 @@ public class TaskStatus
         checkArgument(fullGcCount >= 0, "fullGcCount is negative");
         this.fullGcCount = fullGcCount;
         this.fullGcTime = requireNonNull(fullGcTime, "fullGcTime is null");
+        checkArgument(dynamicFiltersVersion >= INITIAL_DYNAMIC_FILTERS_VERSION, "dynamicFiltersVersion is negative");
+        this.dynamicFiltersVersion = dynamicFiltersVersion;
+        this.dynamicFilterDomains = ImmutableMap.copyOf(requireNonNull(dynamicFilterDomains, "dynamicFilterDomains is null"));
     }
 
     @JsonProperty
@@ -224,6 +240,25 @@ public class TaskStatus
         return fullGcTime;
     }
 
+    /**
+     * Returns the version of the dynamic filters collected by the task, which changes every time a dynamic filter is collected.
+     */
+    @JsonProperty
+    public long getDynamicFiltersVersion()
+    {
+        return dynamicFiltersVersion;
+    }
+
+    /**
+     * Returns the dynamic filters collected by the task. The task leaves them out when the
+     * requester already has the filters of the current {@link #getDynamicFiltersVersion() version}.
+     */
+    @JsonProperty
+    public Map<String, Domain> getDynamicFilterDomains()
+    {
+        return dynamicFilterDomains;
+    }
+
     @Override
     public String toString()
     {
@@ -252,7 +287,9 @@ public class TaskStatus
                 new DataSize(0, BYTE),
                 new DataSize(0, BYTE),
                 0,
-                new Duration(0, MILLISECONDS));
+                new Duration(0, MILLISECONDS),
+                INITIAL_DYNAMIC_FILTERS_VERSION,
+                ImmutableMap.of());
     }
 
     public static TaskStatus failWith(TaskStatus taskStatus, TaskState state, List<ExecutionFailureInfo> exceptions)
@@ -274,6 +311,32 @@ public class TaskStatus
                 taskStatus.getSystemMemoryReservation(),
                 taskStatus.getRevocableMemoryReservation(),
                 taskStatus.getFullGcCount(),
-                taskStatus.getFullGcTime());
+                taskStatus.getFullGcTime(),
+                taskStatus.getDynamicFiltersVersion(),
+                taskStatus.getDynamicFilterDomains());
+    }
+
+    public static TaskStatus withDynamicFilters(TaskStatus taskStatus, long dynamicFiltersVersion, Map<String, Domain> dynamicFilterDomains)
+    {
+        return new TaskStatus(
+                taskStatus.getTaskId(),
+                taskStatus.getTaskInstanceId(),
+                taskStatus.getVersion(),
+                taskStatus.getState(),
+                taskStatus.getSelf(),
+                taskStatus.getNodeId(),
+                taskStatus.getCompletedDriverGroups(),
+                taskStatus.getFailures(),
+                taskStatus.getQueuedPartitionedDrivers(),
+                taskStatus.getRunningPartitionedDrivers(),
+                taskStatus.isOutputBufferOverutilized(),
+                taskStatus.getPhysicalWrittenDataSize(),
+                taskStatus.getMemoryReservation(),
+                taskStatus.getSystemMemoryReservation(),
+                taskStatus.getRevocableMemoryReservation(),
+                taskStatus.getFullGcCount(),
+                taskStatus.getFullGcTime(),
+                dynamicFiltersVersion,
+                dynamicFilterDomains);
     }
 }
@@ -0,0 +1,61 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.execution.buffer;
+
+import io.airlift.compress.Compressor;
+import io.airlift.compress.Decompressor;
+import io.airlift.compress.lz4.Lz4Compressor;
+import io.airlift.compress.lz4.Lz4Decompressor;
+import io.airlift.compress.zstd.ZstdCompressor;
+import io.airlift.compress.zstd.ZstdDecompressor;
+
+public enum CompressionCodec
+{
+    /**
+     * Fast compression, for exchanges where CPU is more expensive than network.
+     */
+    LZ4 {
+        @Override
+        public Compressor createCompressor()
+        {
+            return new Lz4Compressor();
+        }
+
+        @Override
+        public Decompressor createDecompressor()
+        {
+            return new Lz4Decompressor();
+        }
+    },
+    /**
+     * Higher compression ratio at a higher CPU cost, for exchanges where network is expensive.
+     */
+    ZSTD {
+        @Override
+        public Compressor createCompressor()
+        {
+            return new ZstdCompressor();
+        }
+
+        @Override
+        public Decompressor createDecompressor()
+        {
+            return new ZstdDecompressor();
+        }
+    };
+
+    public abstract Compressor createCompressor();
+
+    public abstract Decompressor createDecompressor();
+}
@@ -0,0 +1,67 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.execution.buffer;
+
+import javax.annotation.concurrent.NotThreadSafe;
+
+import java.util.Arrays;
+
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+
+/**
+ * Decides whether a column is worth compressing based on the ratio observed for
+ * its previous pages. Every time compression does not pay off, the column is left
+ * uncompressed for twice as many pages as before, so incompressible data such as
+ * hashes or doubles is not compressed over and over again.
+ */
+@NotThreadSafe
+class CompressionRatioTracker
+{
+    private static final int MAX_SKIPPED_PAGES = 64;
+
+    // number of pages to leave uncompressed before trying to compress the column again
+    private int[] remainingSkippedPages = new int[0];
+    // length of the last skip period of the column, zero if compression paid off
+    private int[] skippedPages = new int[0];
+
+    public boolean shouldCompress(int column)
+    {
+        ensureCapacity(column);
+        if (remainingSkippedPages[column] > 0) {
+            remainingSkippedPages[column]--;
+            return false;
+        }
+        return true;
+    }
+
+    public void recordCompression(int column, boolean effective)
+    {
+        ensureCapacity(column);
+        if (effective) {
+            skippedPages[column] = 0;
+            return;
+        }
+        skippedPages[column] = min(max(1, skippedPages[column] * 2), MAX_SKIPPED_PAGES);
+        remainingSkippedPages[column] = skippedPages[column];
+    }
+
+    private void ensureCapacity(int column)
+    {
+        if (column >= skippedPages.length) {
+            remainingSkippedPages = Arrays.copyOf(remainingSkippedPages, column + 1);
+            skippedPages = Arrays.copyOf(skippedPages, column + 1);
+        }
+    }
+}
@@ -205,6 +205,18 @@ public class LazyOutputBuffer
         return outputBuffer.get(bufferId, token, maxSize);
     }
 
+    @Override
+    public ListenableFuture<BufferResult> peek(OutputBufferId bufferId, long token, DataSize maxSize)
+    {
+        OutputBuffer outputBuffer;
+        synchronized (this) {
+            // pages are only read ahead once they were read, which requires the delegate
+            checkState(delegate != null, "delegate is null");
+            outputBuffer = delegate;
+        }
+        return outputBuffer.peek(bufferId, token, maxSize);
+    }
+
     @Override
     public void acknowledge(OutputBufferId bufferId, long token)
     {
@@ -66,6 +66,13 @@ public interface OutputBuffer
      */
     ListenableFuture<BufferResult> get(OutputBufferId bufferId, long token, DataSize maxSize);
 
+    /**
+     * Gets pages from the output buffer like {@link #get}, but without acknowledging the pages
+     * before the token, so a client can read ahead of its acknowledgements. The pages are kept
+     * until a later get or acknowledge call.
+     */
+    ListenableFuture<BufferResult> peek(OutputBufferId bufferId, long token, DataSize maxSize);
+
     /**
      * Acknowledges the previously received pages from the output buffer.
      */
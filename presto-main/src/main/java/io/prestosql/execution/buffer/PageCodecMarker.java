@@ -26,7 +26,17 @@ import static com.google.common.base.Preconditions.checkArgument;
 public enum PageCodecMarker
 {
     COMPRESSED(1),
-    ENCRYPTED(2);
+    ENCRYPTED(2),
+    // the compressed data was compressed with ZSTD instead of LZ4
+    ZSTD(3),
+    // every block is stored on its own, compressed or not, instead of compressing the whole page
+    BLOCK_COMPRESSED(4),
+    // dictionary blocks are stored as references to dictionaries shared with the reader
+    DICTIONARY_REFERENCES(5),
+    // the page defines a dictionary shared with the reader instead of holding rows
+    SHARED_DICTIONARY(6),
+    // the page releases dictionaries shared with the reader instead of holding rows
+    SHARED_DICTIONARY_RELEASE(7);
 
     private final int mask;
 
@@ -17,23 +17,40 @@ import io.airlift.compress.Compressor;
 import io.airlift.compress.Decompressor;
 import io.airlift.slice.DynamicSliceOutput;
 import io.airlift.slice.Slice;
+import io.airlift.slice.SliceInput;
 import io.airlift.slice.SliceOutput;
 import io.airlift.slice.Slices;
 import io.prestosql.execution.buffer.PageCodecMarker.MarkerSet;
 import io.prestosql.spi.Page;
+import io.prestosql.spi.block.Block;
 import io.prestosql.spi.block.BlockEncodingSerde;
+import io.prestosql.spi.block.DictionaryBlock;
+import io.prestosql.spi.block.DictionaryId;
 import io.prestosql.spiller.SpillCipher;
 
 import javax.annotation.concurrent.NotThreadSafe;
 
+import java.util.EnumMap;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Function;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
+import static io.prestosql.block.BlockSerdeUtil.readBlock;
+import static io.prestosql.block.BlockSerdeUtil.writeBlock;
+import static io.prestosql.execution.buffer.CompressionCodec.LZ4;
+import static io.prestosql.execution.buffer.CompressionCodec.ZSTD;
+import static io.prestosql.execution.buffer.PageCodecMarker.BLOCK_COMPRESSED;
 import static io.prestosql.execution.buffer.PageCodecMarker.COMPRESSED;
+import static io.prestosql.execution.buffer.PageCodecMarker.DICTIONARY_REFERENCES;
 import static io.prestosql.execution.buffer.PageCodecMarker.ENCRYPTED;
+import static io.prestosql.execution.buffer.PageCodecMarker.SHARED_DICTIONARY;
+import static io.prestosql.execution.buffer.PageCodecMarker.SHARED_DICTIONARY_RELEASE;
 import static io.prestosql.execution.buffer.PagesSerdeUtil.readRawPage;
 import static io.prestosql.execution.buffer.PagesSerdeUtil.writeRawPage;
+import static io.prestosql.execution.buffer.SharedDictionaries.createDefinitionPage;
+import static io.prestosql.execution.buffer.SharedDictionaries.createReleasePage;
 import static java.lang.Math.toIntExact;
 import static java.util.Objects.requireNonNull;
 import static sun.misc.Unsafe.ARRAY_BYTE_BASE_OFFSET;
@@ -42,45 +59,107 @@ import static sun.misc.Unsafe.ARRAY_BYTE_BASE_OFFSET;
 public class PagesSerde
 {
     private static final double MINIMUM_COMPRESSION_RATIO = 0.8;
+    // smaller blocks do not compress well enough to pay for their compression header
+    private static final int MINIMUM_BLOCK_COMPRESSION_SIZE = 64;
 
     private final BlockEncodingSerde blockEncodingSerde;
+    private final Optional<CompressionCodec> compressionCodec;
     private final Optional<Compressor> compressor;
-    private final Optional<Decompressor> decompressor;
+    private final boolean blockCompression;
     private final Optional<SpillCipher> spillCipher;
 
-    public PagesSerde(BlockEncodingSerde blockEncodingSerde, Optional<Compressor> compressor, Optional<Decompressor> decompressor, Optional<SpillCipher> spillCipher)
+    private final CompressionRatioTracker compressionRatioTracker = new CompressionRatioTracker();
+    // pages are decompressed with the codec they were compressed with, regardless of the codec used for serializing
+    private final Map<CompressionCodec, Decompressor> decompressors = new EnumMap<>(CompressionCodec.class);
+
+    public PagesSerde(BlockEncodingSerde blockEncodingSerde, Optional<CompressionCodec> compressionCodec, boolean blockCompression, Optional<SpillCipher> spillCipher)
     {
         this.blockEncodingSerde = requireNonNull(blockEncodingSerde, "blockEncodingSerde is null");
-        checkArgument(compressor.isPresent() == decompressor.isPresent(), "compressor and decompressor must both be present or both be absent");
-        this.compressor = requireNonNull(compressor, "compressor is null");
-        this.decompressor = requireNonNull(decompressor, "decompressor is null");
+        this.compressionCodec = requireNonNull(compressionCodec, "compressionCodec is null");
+        checkArgument(compressionCodec.isPresent() || !blockCompression, "block compression requires a compression codec");
+        this.compressor = compressionCodec.map(CompressionCodec::createCompressor);
+        this.blockCompression = blockCompression;
         this.spillCipher = requireNonNull(spillCipher, "spillCipher is null");
     }
 
     public SerializedPage serialize(Page page)
     {
-        SliceOutput serializationBuffer = new DynamicSliceOutput(toIntExact(page.getSizeInBytes() + Integer.BYTES)); // block length is an int
-        writeRawPage(page, serializationBuffer, blockEncodingSerde);
-        Slice slice = serializationBuffer.slice();
-        int uncompressedSize = serializationBuffer.size();
-        MarkerSet markers = MarkerSet.empty();
+        return serialize(page, MarkerSet.empty());
+    }
 
-        if (compressor.isPresent()) {
-            byte[] compressed = new byte[compressor.get().maxCompressedLength(uncompressedSize)];
-            int compressedSize = compressor.get().compress(
-                    (byte[]) slice.getBase(),
-                    (int) (slice.getAddress() - ARRAY_BYTE_BASE_OFFSET),
-                    uncompressedSize,
-                    compressed,
-                    0,
-                    compressed.length);
-
-            if ((((double) compressedSize) / uncompressedSize) <= MINIMUM_COMPRESSION_RATIO) {
-                slice = Slices.wrappedBuffer(compressed, 0, compressedSize);
-                markers.add(COMPRESSED);
+    /**
+     * Serializes the page with its dictionary blocks replaced by references to dictionaries
+     * already shared with the reader by {@link #serializeSharedDictionary}.
+     */
+    public SerializedPage serializeWithDictionaryReferences(Page page)
+    {
+        return serialize(page, MarkerSet.of(DICTIONARY_REFERENCES));
+    }
+
+    public SerializedPage serializeSharedDictionary(DictionaryId dictionaryId, Block dictionary)
+    {
+        checkArgument(dictionary.getPositionCount() > 0, "shared dictionary is empty");
+        return serialize(createDefinitionPage(dictionaryId, dictionary), MarkerSet.of(SHARED_DICTIONARY));
+    }
+
+    /**
+     * Releases the shared dictionaries, each with the number of references to it that were sent.
+     */
+    public SerializedPage serializeSharedDictionaryRelease(Map<DictionaryId, Long> referenceCounts)
+    {
+        checkArgument(!referenceCounts.isEmpty(), "no shared dictionaries to release");
+        return serialize(createReleasePage(referenceCounts), MarkerSet.of(SHARED_DICTIONARY_RELEASE));
+    }
+
+    private SerializedPage serialize(Page page, MarkerSet markers)
+    {
+        Slice slice;
+        int uncompressedSize;
+        boolean dictionaryReferences = markers.contains(DICTIONARY_REFERENCES);
+
+        if (blockCompression) {
+            Slice[] blocks = serializeBlocks(page, dictionaryReferences);
+            uncompressedSize = Integer.BYTES;
+            for (Slice block : blocks) {
+                uncompressedSize += block.length();
+            }
+
+            Optional<Slice> compressed = compressBlocks(blocks, uncompressedSize);
+            if (compressed.isPresent()) {
+                slice = compressed.get();
+                markers.add(BLOCK_COMPRESSED);
+            }
+            else {
+                slice = concatenateBlocks(blocks, uncompressedSize);
+            }
+        }
+        else {
+            SliceOutput serializationBuffer = new DynamicSliceOutput(toIntExact(page.getSizeInBytes() + Integer.BYTES)); // block length is an int
+            if (dictionaryReferences) {
+                serializationBuffer.writeInt(page.getChannelCount());
+                for (int channel = 0; channel < page.getChannelCount(); channel++) {
+                    writeBlockOrDictionaryReference(serializationBuffer, page.getBlock(channel));
+                }
+            }
+            else {
+                writeRawPage(page, serializationBuffer, blockEncodingSerde);
+            }
+            slice = serializationBuffer.slice();
+            uncompressedSize = serializationBuffer.size();
+
+            if (compressor.isPresent() && compressionRatioTracker.shouldCompress(0)) {
+                Optional<Slice> compressed = compress(slice, 0);
+                if (compressed.isPresent()) {
+                    slice = compressed.get();
+                    markers.add(COMPRESSED);
+                }
             }
         }
 
+        if ((markers.contains(COMPRESSED) || markers.contains(BLOCK_COMPRESSED)) && compressionCodec.get() == ZSTD) {
+            markers.add(PageCodecMarker.ZSTD);
+        }
+
         if (spillCipher.isPresent()) {
             byte[] encrypted = new byte[spillCipher.get().encryptedMaxLength(slice.length())];
             int encryptedSize = spillCipher.get().encrypt(
@@ -104,7 +183,22 @@ public class PagesSerde
     public Page deserialize(SerializedPage serializedPage)
     {
         checkArgument(serializedPage != null, "serializedPage is null");
+        checkArgument(!serializedPage.hasDictionaryReferences(), "page references shared dictionaries");
+        return deserialize(serializedPage, Optional.empty());
+    }
 
+    public Page deserialize(SerializedPage serializedPage, SharedDictionaries sharedDictionaries)
+    {
+        checkArgument(serializedPage != null, "serializedPage is null");
+        checkArgument(!serializedPage.isSharedDictionaryPage(), "page defines or releases a shared dictionary");
+        Page page = deserialize(serializedPage, Optional.of(sharedDictionaries));
+        // a release usually follows the last page referencing the dictionary, so apply it without waiting for the next reference
+        sharedDictionaries.decodePendingPages(this);
+        return page;
+    }
+
+    private Page deserialize(SerializedPage serializedPage, Optional<SharedDictionaries> sharedDictionaries)
+    {
         Slice slice = serializedPage.getSlice();
 
         if (serializedPage.isEncrypted()) {
@@ -121,22 +215,181 @@ public class PagesSerde
             slice = Slices.wrappedBuffer(decrypted, 0, decryptedSize);
         }
 
-        if (serializedPage.isCompressed()) {
-            checkState(decompressor.isPresent(), "Page is compressed, but decompressor is missing");
+        Function<SliceInput, Block> blockReader = input -> readBlock(blockEncodingSerde, input);
+        if (serializedPage.hasDictionaryReferences()) {
+            blockReader = input -> readBlockOrDictionaryReference(input, sharedDictionaries.get());
+        }
 
-            int uncompressedSize = serializedPage.getUncompressedSizeInBytes();
-            byte[] decompressed = new byte[uncompressedSize];
-            checkState(decompressor.get().decompress(
-                    (byte[]) slice.getBase(),
-                    (int) (slice.getAddress() - ARRAY_BYTE_BASE_OFFSET),
-                    slice.length(),
-                    decompressed,
-                    0,
-                    uncompressedSize) == uncompressedSize);
+        if (serializedPage.isBlockCompressed()) {
+            return readBlockCompressedPage(serializedPage.getPositionCount(), slice.getInput(), getDecompressor(serializedPage), blockReader);
+        }
 
-            slice = Slices.wrappedBuffer(decompressed);
+        if (serializedPage.isCompressed()) {
+            slice = decompress(getDecompressor(serializedPage), slice, serializedPage.getUncompressedSizeInBytes());
         }
 
+        if (serializedPage.hasDictionaryReferences()) {
+            SliceInput input = slice.getInput();
+            Block[] blocks = new Block[input.readInt()];
+            for (int channel = 0; channel < blocks.length; channel++) {
+                blocks[channel] = blockReader.apply(input);
+            }
+            return new Page(serializedPage.getPositionCount(), blocks);
+        }
         return readRawPage(serializedPage.getPositionCount(), slice.getInput(), blockEncodingSerde);
     }
+
+    private Slice[] serializeBlocks(Page page, boolean dictionaryReferences)
+    {
+        Slice[] blocks = new Slice[page.getChannelCount()];
+        for (int channel = 0; channel < page.getChannelCount(); channel++) {
+            Block block = page.getBlock(channel);
+            SliceOutput output = new DynamicSliceOutput(toIntExact(block.getSizeInBytes() + Integer.BYTES));
+            if (dictionaryReferences) {
+                writeBlockOrDictionaryReference(output, block);
+            }
+            else {
+                writeBlock(blockEncodingSerde, output, block);
+            }
+            blocks[channel] = output.slice();
+        }
+        return blocks;
+    }
+
+    /**
+     * Writes a dictionary block as its dictionary id followed by its ids, and any other block as is.
+     */
+    private void writeBlockOrDictionaryReference(SliceOutput output, Block block)
+    {
+        if (!(block instanceof DictionaryBlock)) {
+            output.writeBoolean(false);
+            writeBlock(blockEncodingSerde, output, block);
+            return;
+        }
+
+        DictionaryBlock dictionaryBlock = (DictionaryBlock) block;
+        DictionaryId dictionaryId = dictionaryBlock.getDictionarySourceId();
+        output.writeBoolean(true);
+        output.writeInt(dictionaryBlock.getPositionCount());
+        output.writeLong(dictionaryId.getMostSignificantBits());
+        output.writeLong(dictionaryId.getLeastSignificantBits());
+        output.writeLong(dictionaryId.getSequenceId());
+        for (int position = 0; position < dictionaryBlock.getPositionCount(); position++) {
+            output.writeInt(dictionaryBlock.getId(position));
+        }
+    }
+
+    private Block readBlockOrDictionaryReference(SliceInput input, SharedDictionaries sharedDictionaries)
+    {
+        if (!input.readBoolean()) {
+            return readBlock(blockEncodingSerde, input);
+        }
+
+        int positionCount = input.readInt();
+        DictionaryId dictionaryId = new DictionaryId(input.readLong(), input.readLong(), input.readLong());
+        int[] ids = new int[positionCount];
+        input.readBytes(Slices.wrappedIntArray(ids));
+        return new DictionaryBlock(positionCount, sharedDictionaries.getDictionary(dictionaryId, this), ids, dictionaryId);
+    }
+
+    /**
+     * Writes the channel count followed by every block, prefixed with whether it
+     * is compressed, its uncompressed size and, if compressed, its compressed size.
+     */
+    private Optional<Slice> compressBlocks(Slice[] blocks, int uncompressedSize)
+    {
+        SliceOutput output = new DynamicSliceOutput(uncompressedSize);
+        output.writeInt(blocks.length);
+        boolean compressed = false;
+        for (int channel = 0; channel < blocks.length; channel++) {
+            Slice block = blocks[channel];
+            Optional<Slice> compressedBlock = Optional.empty();
+            if (block.length() >= MINIMUM_BLOCK_COMPRESSION_SIZE && compressionRatioTracker.shouldCompress(channel)) {
+                compressedBlock = compress(block, channel);
+            }
+
+            output.writeBoolean(compressedBlock.isPresent());
+            output.writeInt(block.length());
+            if (compressedBlock.isPresent()) {
+                output.writeInt(compressedBlock.get().length());
+                output.writeBytes(compressedBlock.get());
+                compressed = true;
+            }
+            else {
+                output.writeBytes(block);
+            }
+        }
+
+        if (!compressed || output.size() >= uncompressedSize) {
+            return Optional.empty();
+        }
+        return Optional.of(output.slice());
+    }
+
+    private Page readBlockCompressedPage(int positionCount, SliceInput input, Decompressor decompressor, Function<SliceInput, Block> blockReader)
+    {
+        Block[] blocks = new Block[input.readInt()];
+        for (int channel = 0; channel < blocks.length; channel++) {
+            boolean compressed = input.readBoolean();
+            int uncompressedSize = input.readInt();
+            Slice block;
+            if (compressed) {
+                block = decompress(decompressor, input.readSlice(input.readInt()), uncompressedSize);
+            }
+            else {
+                block = input.readSlice(uncompressedSize);
+            }
+            blocks[channel] = blockReader.apply(block.getInput());
+        }
+        return new Page(positionCount, blocks);
+    }
+
+    private Optional<Slice> compress(Slice uncompressed, int column)
+    {
+        byte[] compressed = new byte[compressor.get().maxCompressedLength(uncompressed.length())];
+        int compressedSize = compressor.get().compress(
+                (byte[]) uncompressed.getBase(),
+                (int) (uncompressed.getAddress() - ARRAY_BYTE_BASE_OFFSET),
+                uncompressed.length(),
+                compressed,
+                0,
+                compressed.length);
+
+        boolean effective = (((double) compressedSize) / uncompressed.length()) <= MINIMUM_COMPRESSION_RATIO;
+        compressionRatioTracker.recordCompression(column, effective);
+        if (!effective) {
+            return Optional.empty();
+        }
+        return Optional.of(Slices.wrappedBuffer(compressed, 0, compressedSize));
+    }
+
+    private Decompressor getDecompressor(SerializedPage serializedPage)
+    {
+        CompressionCodec codec = PageCodecMarker.ZSTD.isSet(serializedPage.getPageCodecMarkers()) ? ZSTD : LZ4;
+        return decompressors.computeIfAbsent(codec, CompressionCodec::createDecompressor);
+    }
+
+    private static Slice decompress(Decompressor decompressor, Slice compressed, int uncompressedSize)
+    {
+        byte[] decompressed = new byte[uncompressedSize];
+        checkState(decompressor.decompress(
+                (byte[]) compressed.getBase(),
+                (int) (compressed.getAddress() - ARRAY_BYTE_BASE_OFFSET),
+                compressed.length(),
+                decompressed,
+                0,
+                uncompressedSize) == uncompressedSize);
+
+        return Slices.wrappedBuffer(decompressed);
+    }
+
+    private static Slice concatenateBlocks(Slice[] blocks, int size)
+    {
+        SliceOutput output = new DynamicSliceOutput(size);
+        output.writeInt(blocks.length);
+        for (Slice block : blocks) {
+            output.writeBytes(block);
+        }
+        return output.slice();
+    }
 }
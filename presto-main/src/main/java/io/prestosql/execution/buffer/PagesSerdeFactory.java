@@ -13,24 +13,30 @@
  */
 package io.prestosql.execution.buffer;
 
-import io.airlift.compress.lz4.Lz4Compressor;
-import io.airlift.compress.lz4.Lz4Decompressor;
 import io.prestosql.spi.block.BlockEncodingSerde;
 import io.prestosql.spiller.SpillCipher;
 
 import java.util.Optional;
 
+import static io.prestosql.execution.buffer.CompressionCodec.LZ4;
 import static java.util.Objects.requireNonNull;
 
 public class PagesSerdeFactory
 {
     private final BlockEncodingSerde blockEncodingSerde;
-    private final boolean compressionEnabled;
+    private final Optional<CompressionCodec> compressionCodec;
+    private final boolean blockCompression;
 
     public PagesSerdeFactory(BlockEncodingSerde blockEncodingSerde, boolean compressionEnabled)
+    {
+        this(blockEncodingSerde, compressionEnabled ? Optional.of(LZ4) : Optional.empty(), false);
+    }
+
+    public PagesSerdeFactory(BlockEncodingSerde blockEncodingSerde, Optional<CompressionCodec> compressionCodec, boolean blockCompression)
     {
         this.blockEncodingSerde = requireNonNull(blockEncodingSerde, "blockEncodingSerde is null");
-        this.compressionEnabled = compressionEnabled;
+        this.compressionCodec = requireNonNull(compressionCodec, "compressionCodec is null");
+        this.blockCompression = blockCompression && compressionCodec.isPresent();
     }
 
     public PagesSerde createPagesSerde()
@@ -45,10 +51,6 @@ public class PagesSerdeFactory
 
     private PagesSerde createPagesSerdeInternal(Optional<SpillCipher> spillCipher)
     {
-        if (compressionEnabled) {
-            return new PagesSerde(blockEncodingSerde, Optional.of(new Lz4Compressor()), Optional.of(new Lz4Decompressor()), spillCipher);
-        }
-
-        return new PagesSerde(blockEncodingSerde, Optional.empty(), Optional.empty(), spillCipher);
+        return new PagesSerde(blockEncodingSerde, compressionCodec, blockCompression, spillCipher);
     }
 }
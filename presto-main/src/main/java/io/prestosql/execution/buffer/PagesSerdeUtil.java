@@ -14,6 +14,8 @@
 package io.prestosql.execution.buffer;
 
 import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.ByteStreams;
 import io.airlift.slice.Slice;
 import io.airlift.slice.SliceInput;
 import io.airlift.slice.SliceOutput;
@@ -21,8 +23,14 @@ import io.prestosql.spi.Page;
 import io.prestosql.spi.block.Block;
 import io.prestosql.spi.block.BlockEncodingSerde;
 
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
 
+import static io.airlift.slice.Slices.wrappedBuffer;
 import static io.prestosql.block.BlockSerdeUtil.readBlock;
 import static io.prestosql.block.BlockSerdeUtil.writeBlock;
 import static java.lang.Math.toIntExact;
@@ -31,6 +39,9 @@ import static java.util.Objects.requireNonNull;
 
 public class PagesSerdeUtil
 {
+    private static final int SERIALIZED_PAGE_HEADER_SIZE = Integer.BYTES + Byte.BYTES + Integer.BYTES + Integer.BYTES;
+    private static final int BUFFER_RESULT_HEADER_SIZE = Long.BYTES + Long.BYTES + Byte.BYTES + Integer.BYTES;
+
     private PagesSerdeUtil()
     {
     }
@@ -85,6 +96,55 @@ public class PagesSerdeUtil
         return size;
     }
 
+    /**
+     * Writes the result prefixed with its size, so a reader of a stream of results can
+     * read every result as soon as it is received.
+     */
+    public static void writeBufferResult(SliceOutput output, BufferResult result)
+    {
+        List<SerializedPage> pages = result.getSerializedPages();
+        int sizeInBytes = BUFFER_RESULT_HEADER_SIZE;
+        for (SerializedPage page : pages) {
+            sizeInBytes += SERIALIZED_PAGE_HEADER_SIZE + page.getSizeInBytes();
+        }
+
+        output.writeInt(sizeInBytes);
+        output.writeLong(result.getToken());
+        output.writeLong(result.getNextToken());
+        output.writeBoolean(result.isBufferComplete());
+        output.writeInt(pages.size());
+        writeSerializedPages(output, pages);
+    }
+
+    /**
+     * Reads the next result written by {@link #writeBufferResult}, or nothing at the end of the stream.
+     */
+    public static Optional<BufferResult> readBufferResult(InputStream input, String taskInstanceId)
+            throws IOException
+    {
+        byte[] size = new byte[Integer.BYTES];
+        int read = ByteStreams.read(input, size, 0, size.length);
+        if (read == 0) {
+            return Optional.empty();
+        }
+        if (read < size.length) {
+            throw new EOFException("Unexpected end of stream in buffer result size");
+        }
+
+        byte[] bytes = new byte[wrappedBuffer(size).getInt(0)];
+        ByteStreams.readFully(input, bytes);
+        SliceInput sliceInput = wrappedBuffer(bytes).getInput();
+        long token = sliceInput.readLong();
+        long nextToken = sliceInput.readLong();
+        boolean bufferComplete = sliceInput.readBoolean();
+        int pageCount = sliceInput.readInt();
+        ImmutableList.Builder<SerializedPage> pages = ImmutableList.builder();
+        for (int i = 0; i < pageCount; i++) {
+            pages.add(readSerializedPage(sliceInput));
+        }
+        return Optional.of(new BufferResult(taskInstanceId, token, nextToken, bufferComplete, pages.build()));
+    }
+
     public static long writePages(PagesSerde serde, SliceOutput sliceOutput, Page... pages)
     {
         return writePages(serde, sliceOutput, asList(pages).iterator());
@@ -18,8 +18,12 @@ import org.openjdk.jol.info.ClassLayout;
 
 import static com.google.common.base.MoreObjects.toStringHelper;
 import static com.google.common.base.Preconditions.checkArgument;
+import static io.prestosql.execution.buffer.PageCodecMarker.BLOCK_COMPRESSED;
 import static io.prestosql.execution.buffer.PageCodecMarker.COMPRESSED;
+import static io.prestosql.execution.buffer.PageCodecMarker.DICTIONARY_REFERENCES;
 import static io.prestosql.execution.buffer.PageCodecMarker.ENCRYPTED;
+import static io.prestosql.execution.buffer.PageCodecMarker.SHARED_DICTIONARY;
+import static io.prestosql.execution.buffer.PageCodecMarker.SHARED_DICTIONARY_RELEASE;
 import static java.util.Objects.requireNonNull;
 
 public class SerializedPage
@@ -40,7 +44,7 @@ public class SerializedPage
         this.pageCodecMarkers = requireNonNull(markers, "markers is null").byteValue();
         //  Encrypted pages may include arbitrary overhead from ciphers, sanity checks skipped
         if (!markers.contains(ENCRYPTED)) {
-            if (markers.contains(COMPRESSED)) {
+            if (markers.contains(COMPRESSED) || markers.contains(BLOCK_COMPRESSED)) {
                 checkArgument(uncompressedSizeInBytes > slice.length(), "compressed size must be smaller than uncompressed size when compressed");
             }
             else {
@@ -84,11 +88,29 @@ public class SerializedPage
         return COMPRESSED.isSet(pageCodecMarkers);
     }
 
+    public boolean isBlockCompressed()
+    {
+        return BLOCK_COMPRESSED.isSet(pageCodecMarkers);
+    }
+
     public boolean isEncrypted()
     {
         return ENCRYPTED.isSet(pageCodecMarkers);
     }
 
+    public boolean hasDictionaryReferences()
+    {
+        return DICTIONARY_REFERENCES.isSet(pageCodecMarkers);
+    }
+
+    /**
+     * Whether the page defines or releases dictionaries shared with the reader instead of holding rows.
+     */
+    public boolean isSharedDictionaryPage()
+    {
+        return SHARED_DICTIONARY.isSet(pageCodecMarkers) || SHARED_DICTIONARY_RELEASE.isSet(pageCodecMarkers);
+    }
+
     @Override
     public String toString()
     {
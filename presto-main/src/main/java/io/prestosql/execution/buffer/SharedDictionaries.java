@@ -0,0 +1,191 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.execution.buffer;
+
+import io.prestosql.spi.Page;
+import io.prestosql.spi.block.Block;
+import io.prestosql.spi.block.BlockBuilder;
+import io.prestosql.spi.block.DictionaryId;
+import io.prestosql.spi.block.RunLengthEncodedBlock;
+
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.ThreadSafe;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+import static io.prestosql.spi.type.BigintType.BIGINT;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Dictionaries shared by the writers of an exchange with its readers. A writer sends
+ * every dictionary once, references it by its id in the pages that follow, and finally
+ * releases it with the number of references it sent, so the dictionary can be dropped
+ * once all of them are read.
+ * <p>
+ * The definitions and releases are added in the order they are received, which is before
+ * the pages that reference the dictionaries are handed out, and decoded lazily by the readers.
+ */
+@ThreadSafe
+public class SharedDictionaries
+{
+    @GuardedBy("this")
+    private final Queue<SerializedPage> pendingPages = new ArrayDeque<>();
+    @GuardedBy("this")
+    private long pendingPagesRetainedSizeInBytes;
+    @GuardedBy("this")
+    private final Map<DictionaryId, SharedDictionary> dictionaries = new HashMap<>();
+    @GuardedBy("this")
+    private long dictionariesRetainedSizeInBytes;
+
+    public synchronized void addPage(SerializedPage page)
+    {
+        checkArgument(page.isSharedDictionaryPage(), "page does not define or release a shared dictionary");
+        pendingPages.add(page);
+        pendingPagesRetainedSizeInBytes += page.getRetainedSizeInBytes();
+    }
+
+    /**
+     * Returns the dictionary for a reference read from a page.
+     */
+    public synchronized Block getDictionary(DictionaryId dictionaryId, PagesSerde serde)
+    {
+        decodePendingPages(serde);
+
+        SharedDictionary dictionary = dictionaries.get(dictionaryId);
+        checkState(dictionary != null, "Shared dictionary %s is not defined", dictionaryId);
+        dictionary.addReference();
+        if (dictionary.isFullyReferenced()) {
+            remove(dictionaryId);
+        }
+        return dictionary.getDictionary();
+    }
+
+    public synchronized long getRetainedSizeInBytes()
+    {
+        return pendingPagesRetainedSizeInBytes + dictionariesRetainedSizeInBytes;
+    }
+
+    /**
+     * Applies the definitions and releases received so far.
+     */
+    synchronized void decodePendingPages(PagesSerde serde)
+    {
+        while (!pendingPages.isEmpty()) {
+            SerializedPage serializedPage = pendingPages.poll();
+            pendingPagesRetainedSizeInBytes -= serializedPage.getRetainedSizeInBytes();
+
+            Page page = serde.deserialize(serializedPage);
+            if (PageCodecMarker.SHARED_DICTIONARY.isSet(serializedPage.getPageCodecMarkers())) {
+                DictionaryId dictionaryId = getDictionaryId(page, 1, 0);
+                Block dictionary = page.getBlock(0);
+                checkState(dictionaries.put(dictionaryId, new SharedDictionary(dictionary)) == null, "Shared dictionary %s is defined twice", dictionaryId);
+                dictionariesRetainedSizeInBytes += dictionary.getRetainedSizeInBytes();
+            }
+            else {
+                for (int position = 0; position < page.getPositionCount(); position++) {
+                    DictionaryId dictionaryId = getDictionaryId(page, 0, position);
+                    SharedDictionary dictionary = dictionaries.get(dictionaryId);
+                    checkState(dictionary != null, "Released shared dictionary %s is not defined", dictionaryId);
+                    dictionary.release(BIGINT.getLong(page.getBlock(3), position));
+                    if (dictionary.isFullyReferenced()) {
+                        remove(dictionaryId);
+                    }
+                }
+            }
+        }
+    }
+
+    private void remove(DictionaryId dictionaryId)
+    {
+        dictionariesRetainedSizeInBytes -= dictionaries.remove(dictionaryId).getDictionary().getRetainedSizeInBytes();
+    }
+
+    /**
+     * The dictionary followed by its id, repeated for every position.
+     */
+    static Page createDefinitionPage(DictionaryId dictionaryId, Block dictionary)
+    {
+        int positionCount = dictionary.getPositionCount();
+        return new Page(
+                positionCount,
+                dictionary,
+                RunLengthEncodedBlock.create(BIGINT, dictionaryId.getMostSignificantBits(), positionCount),
+                RunLengthEncodedBlock.create(BIGINT, dictionaryId.getLeastSignificantBits(), positionCount),
+                RunLengthEncodedBlock.create(BIGINT, dictionaryId.getSequenceId(), positionCount));
+    }
+
+    /**
+     * One position for every released dictionary, holding its id and the number of references sent.
+     */
+    static Page createReleasePage(Map<DictionaryId, Long> referenceCounts)
+    {
+        BlockBuilder mostSignificantBits = BIGINT.createBlockBuilder(null, referenceCounts.size());
+        BlockBuilder leastSignificantBits = BIGINT.createBlockBuilder(null, referenceCounts.size());
+        BlockBuilder sequenceIds = BIGINT.createBlockBuilder(null, referenceCounts.size());
+        BlockBuilder references = BIGINT.createBlockBuilder(null, referenceCounts.size());
+        referenceCounts.forEach((dictionaryId, referenceCount) -> {
+            BIGINT.writeLong(mostSignificantBits, dictionaryId.getMostSignificantBits());
+            BIGINT.writeLong(leastSignificantBits, dictionaryId.getLeastSignificantBits());
+            BIGINT.writeLong(sequenceIds, dictionaryId.getSequenceId());
+            BIGINT.writeLong(references, referenceCount);
+        });
+        return new Page(referenceCounts.size(), mostSignificantBits.build(), leastSignificantBits.build(), sequenceIds.build(), references.build());
+    }
+
+    private static DictionaryId getDictionaryId(Page page, int firstChannel, int position)
+    {
+        return new DictionaryId(
+                BIGINT.getLong(page.getBlock(firstChannel), position),
+                BIGINT.getLong(page.getBlock(firstChannel + 1), position),
+                BIGINT.getLong(page.getBlock(firstChannel + 2), position));
+    }
+
+    private static class SharedDictionary
+    {
+        private final Block dictionary;
+        private long references;
+        private long releasedReferences = -1;
+
+        public SharedDictionary(Block dictionary)
+        {
+            this.dictionary = requireNonNull(dictionary, "dictionary is null");
+        }
+
+        public Block getDictionary()
+        {
+            return dictionary;
+        }
+
+        public void addReference()
+        {
+            references++;
+        }
+
+        public void release(long referenceCount)
+        {
+            checkState(releasedReferences < 0, "Shared dictionary is released twice");
+            releasedReferences = referenceCount;
+        }
+
+        public boolean isFullyReferenced()
+        {
+            return releasedReferences >= 0 && references >= releasedReferences;
+        }
+    }
+}
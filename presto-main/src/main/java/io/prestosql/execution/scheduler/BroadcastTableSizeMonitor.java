@@ -0,0 +1,218 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.execution.scheduler;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import io.airlift.log.Logger;
+import io.airlift.units.DataSize;
+import io.airlift.units.Duration;
+import io.prestosql.Session;
+import io.prestosql.execution.QueryStateMachine;
+import io.prestosql.execution.RemoteTask;
+import io.prestosql.execution.SqlStageExecution;
+import io.prestosql.spi.PrestoException;
+import io.prestosql.sql.planner.plan.JoinNode;
+import io.prestosql.sql.planner.plan.PlanFragmentId;
+import io.prestosql.sql.planner.plan.PlanNode;
+import io.prestosql.sql.planner.plan.RemoteSourceNode;
+import io.prestosql.sql.planner.plan.SemiJoinNode;
+
+import javax.annotation.concurrent.GuardedBy;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.collect.ImmutableMap.toImmutableMap;
+import static io.prestosql.SystemSessionProperties.JOIN_DISTRIBUTION_TYPE;
+import static io.prestosql.SystemSessionProperties.JOIN_MAX_BROADCAST_TABLE_SIZE;
+import static io.prestosql.SystemSessionProperties.getJoinDistributionType;
+import static io.prestosql.SystemSessionProperties.getJoinMaxBroadcastTableSize;
+import static io.prestosql.SystemSessionProperties.isFailOnOversizedBroadcastJoin;
+import static io.prestosql.spi.StandardErrorCode.EXCEEDED_BROADCAST_TABLE_SIZE;
+import static io.prestosql.sql.analyzer.FeaturesConfig.JoinDistributionType.AUTOMATIC;
+import static io.prestosql.sql.analyzer.FeaturesConfig.JoinDistributionType.PARTITIONED;
+import static io.prestosql.sql.planner.optimizations.PlanNodeSearcher.searchFrom;
+import static io.prestosql.sql.planner.plan.ExchangeNode.Type.REPLICATE;
+import static java.lang.String.format;
+import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static java.util.function.Function.identity;
+
+/**
+ * Watches the actual size of the build sides that are broadcast for joins. The planner only
+ * replicates a build side whose estimated size is below {@code join_max_broadcast_table_size},
+ * and when the estimate is wrong the replicated table is built on every worker. The query is
+ * failed as soon as the data produced for such a build side exceeds the limit, instead of
+ * letting the hash tables exhaust the memory of the whole cluster.
+ */
+public class BroadcastTableSizeMonitor
+{
+    private static final Logger log = Logger.get(BroadcastTableSizeMonitor.class);
+
+    private static final Duration CHECK_INTERVAL = new Duration(1, SECONDS);
+
+    private final QueryStateMachine queryStateMachine;
+    private final List<SqlStageExecution> buildStages;
+    private final DataSize maxBroadcastTableSize;
+    private final ScheduledExecutorService executor;
+
+    @GuardedBy("this")
+    private ScheduledFuture<?> checkFuture;
+    @GuardedBy("this")
+    private boolean stopped;
+
+    /**
+     * Returns a monitor for the stages that produce a broadcast build side of an equi join or a semi join,
+     * if the join distribution was chosen by the planner, the broadcast size is limited and
+     * {@code fail_on_oversized_broadcast_join} is enabled.
+     */
+    public static Optional<BroadcastTableSizeMonitor> createBroadcastTableSizeMonitor(
+            QueryStateMachine queryStateMachine,
+            Collection<SqlStageExecution> stages,
+            ScheduledExecutorService executor)
+    {
+        Session session = queryStateMachine.getSession();
+        Optional<DataSize> maxBroadcastTableSize = getJoinMaxBroadcastTableSize(session);
+        if (!isFailOnOversizedBroadcastJoin(session) || getJoinDistributionType(session) != AUTOMATIC || !maxBroadcastTableSize.isPresent()) {
+            return Optional.empty();
+        }
+
+        Map<PlanFragmentId, SqlStageExecution> stagesByFragment = stages.stream()
+                .collect(toImmutableMap(stage -> stage.getFragment().getId(), identity()));
+        List<SqlStageExecution> buildStages = stages.stream()
+                .flatMap(stage -> getBroadcastBuildFragments(stage.getFragment().getRoot()).stream())
+                .distinct()
+                .map(stagesByFragment::get)
+                .collect(toImmutableList());
+        if (buildStages.isEmpty()) {
+            return Optional.empty();
+        }
+        return Optional.of(new BroadcastTableSizeMonitor(queryStateMachine, buildStages, maxBroadcastTableSize.get(), executor));
+    }
+
+    private BroadcastTableSizeMonitor(QueryStateMachine queryStateMachine, List<SqlStageExecution> buildStages, DataSize maxBroadcastTableSize, ScheduledExecutorService executor)
+    {
+        this.queryStateMachine = requireNonNull(queryStateMachine, "queryStateMachine is null");
+        this.buildStages = ImmutableList.copyOf(requireNonNull(buildStages, "buildStages is null"));
+        this.maxBroadcastTableSize = requireNonNull(maxBroadcastTableSize, "maxBroadcastTableSize is null");
+        this.executor = requireNonNull(executor, "executor is null");
+    }
+
+    public synchronized void start()
+    {
+        if (checkFuture != null || stopped) {
+            return;
+        }
+        checkFuture = executor.scheduleWithFixedDelay(() -> {
+            try {
+                check();
+            }
+            catch (Throwable t) {
+                log.error(t, "Error checking broadcast table size of query %s", queryStateMachine.getQueryId());
+            }
+        }, CHECK_INTERVAL.toMillis(), CHECK_INTERVAL.toMillis(), MILLISECONDS);
+        queryStateMachine.addStateChangeListener(state -> {
+            if (state.isDone()) {
+                stop();
+            }
+        });
+    }
+
+    public synchronized void stop()
+    {
+        stopped = true;
+        if (checkFuture != null) {
+            checkFuture.cancel(false);
+        }
+    }
+
+    @VisibleForTesting
+    synchronized boolean isStopped()
+    {
+        return stopped;
+    }
+
+    void check()
+    {
+        if (queryStateMachine.isDone()) {
+            stop();
+            return;
+        }
+
+        // a finished stage is checked once more with its final task infos
+        boolean allFinished = true;
+        for (SqlStageExecution stage : buildStages) {
+            allFinished &= stage.getState().isDone();
+
+            long broadcastTableSize = stage.getAllTasks().stream()
+                    .map(RemoteTask::getTaskInfo)
+                    .mapToLong(taskInfo -> taskInfo.getStats().getOutputDataSize().toBytes())
+                    .sum();
+            if (broadcastTableSize > maxBroadcastTableSize.toBytes()) {
+                queryStateMachine.transitionToFailed(new PrestoException(EXCEEDED_BROADCAST_TABLE_SIZE, format(
+                        "Broadcast join build side produced by stage %s exceeded %s of %s. Set %s to %s to run the join without broadcasting the build side",
+                        stage.getStageId(),
+                        JOIN_MAX_BROADCAST_TABLE_SIZE,
+                        maxBroadcastTableSize,
+                        JOIN_DISTRIBUTION_TYPE,
+                        PARTITIONED)));
+                stop();
+                return;
+            }
+        }
+
+        if (allFinished) {
+            stop();
+        }
+    }
+
+    @VisibleForTesting
+    static Set<PlanFragmentId> getBroadcastBuildFragments(PlanNode root)
+    {
+        ImmutableSet.Builder<PlanFragmentId> fragments = ImmutableSet.builder();
+        for (PlanNode node : searchFrom(root).where(BroadcastTableSizeMonitor::isPartitionableReplicatedJoin).findAll()) {
+            PlanNode buildSide = node instanceof JoinNode ? ((JoinNode) node).getRight() : ((SemiJoinNode) node).getFilteringSource();
+            // remote sources below another join belong to that join
+            searchFrom(buildSide)
+                    .where(RemoteSourceNode.class::isInstance)
+                    .recurseOnlyWhen(child -> !(child instanceof JoinNode) && !(child instanceof SemiJoinNode))
+                    .<RemoteSourceNode>findAll().stream()
+                    .filter(remoteSource -> remoteSource.getExchangeType() == REPLICATE)
+                    .forEach(remoteSource -> fragments.addAll(remoteSource.getSourceFragmentIds()));
+        }
+        return fragments.build();
+    }
+
+    private static boolean isPartitionableReplicatedJoin(PlanNode node)
+    {
+        if (node instanceof JoinNode) {
+            JoinNode join = (JoinNode) node;
+            // joins without criteria can only be executed by replicating the build side
+            return join.getDistributionType().equals(Optional.of(JoinNode.DistributionType.REPLICATED)) && !join.getCriteria().isEmpty();
+        }
+        if (node instanceof SemiJoinNode) {
+            return ((SemiJoinNode) node).getDistributionType().equals(Optional.of(SemiJoinNode.DistributionType.REPLICATED));
+        }
+        return false;
+    }
+}
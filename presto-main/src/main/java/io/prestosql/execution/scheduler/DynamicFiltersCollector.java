@@ -0,0 +1,190 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.execution.scheduler;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import io.airlift.units.Duration;
+import io.prestosql.execution.RemoteTask;
+import io.prestosql.execution.SqlStageExecution;
+import io.prestosql.execution.StageState;
+import io.prestosql.execution.TaskStatus;
+import io.prestosql.spi.predicate.Domain;
+import io.prestosql.spi.predicate.TupleDomain;
+import io.prestosql.sql.planner.PlanFragment;
+import io.prestosql.sql.planner.plan.JoinNode;
+import io.prestosql.sql.planner.plan.PlanNode;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.collect.ImmutableSet.toImmutableSet;
+import static com.google.common.util.concurrent.Futures.allAsList;
+import static com.google.common.util.concurrent.Futures.nonCancellationPropagating;
+import static com.google.common.util.concurrent.Futures.transform;
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
+import static io.airlift.concurrent.MoreFutures.addSuccessCallback;
+import static io.airlift.concurrent.MoreFutures.addTimeout;
+import static io.airlift.concurrent.MoreFutures.getDone;
+import static io.airlift.units.Duration.nanosSince;
+import static io.prestosql.execution.StageState.FINISHED;
+import static io.prestosql.execution.StageState.RUNNING;
+import static io.prestosql.execution.StageState.SCHEDULED;
+import static io.prestosql.sql.planner.optimizations.PlanNodeSearcher.searchFrom;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Collects the dynamic filters reported by the tasks of a query, and makes them
+ * available to the split sources of the table scans which consume them.
+ */
+@ThreadSafe
+public class DynamicFiltersCollector
+{
+    private final Duration waitTimeout;
+    private final ScheduledExecutorService executor;
+    private final SplitSchedulerStats stats;
+
+    private final ConcurrentMap<String, SettableFuture<Domain>> dynamicFilters = new ConcurrentHashMap<>();
+
+    public DynamicFiltersCollector(Duration waitTimeout, ScheduledExecutorService executor, SplitSchedulerStats stats)
+    {
+        this.waitTimeout = requireNonNull(waitTimeout, "waitTimeout is null");
+        this.executor = requireNonNull(executor, "executor is null");
+        this.stats = requireNonNull(stats, "stats is null");
+    }
+
+    /**
+     * Returns the IDs of the dynamic filters which are collected by the tasks of the given fragment.
+     */
+    public static Set<String> getProducedDynamicFilters(PlanFragment fragment)
+    {
+        // joins do not collect dynamic filters when the build side uses grouped execution
+        if (fragment.getStageExecutionDescriptor().isStageGroupedExecution()) {
+            return ImmutableSet.of();
+        }
+        return getJoinDynamicFilters(fragment.getRoot());
+    }
+
+    public static Set<String> getJoinDynamicFilters(PlanNode root)
+    {
+        return searchFrom(root)
+                .where(JoinNode.class::isInstance)
+                .<JoinNode>findAll()
+                .stream()
+                .flatMap(node -> node.getDynamicFilters().keySet().stream())
+                .collect(toImmutableSet());
+    }
+
+    public void addStage(SqlStageExecution stage)
+    {
+        Set<String> filterIds = getProducedDynamicFilters(stage.getFragment());
+        if (filterIds.isEmpty()) {
+            return;
+        }
+        stage.addStateChangeListener(state -> collectDynamicFilters(stage, filterIds));
+        stage.addTaskStatusListener(taskStatus -> collectDynamicFilters(stage, filterIds));
+    }
+
+    private void collectDynamicFilters(SqlStageExecution stage, Set<String> filterIds)
+    {
+        // the set of tasks of the stage is final only once it is scheduled
+        StageState state = stage.getState();
+        if (state != SCHEDULED && state != RUNNING && state != FINISHED) {
+            return;
+        }
+        if (filterIds.stream().map(this::getDynamicFilterFuture).allMatch(ListenableFuture::isDone)) {
+            return;
+        }
+
+        List<TaskStatus> taskStatuses = stage.getAllTasks().stream()
+                .map(RemoteTask::getTaskStatus)
+                .collect(toImmutableList());
+        if (taskStatuses.isEmpty()) {
+            return;
+        }
+        for (String filterId : filterIds) {
+            List<Domain> domains = taskStatuses.stream()
+                    .map(taskStatus -> taskStatus.getDynamicFilterDomains().get(filterId))
+                    .filter(domain -> domain != null)
+                    .collect(toImmutableList());
+            // each task collects the build side rows of its own partition
+            if (domains.size() == taskStatuses.size()) {
+                getDynamicFilterFuture(filterId).set(Domain.union(domains));
+            }
+        }
+    }
+
+    /**
+     * Returns a future which completes once all the given dynamic filters are collected,
+     * or the wait timeout expires.
+     */
+    public ListenableFuture<?> waitForDynamicFilters(Set<String> filterIds)
+    {
+        List<ListenableFuture<Domain>> futures = filterIds.stream()
+                .map(this::getDynamicFilterFuture)
+                .collect(toImmutableList());
+
+        long start = System.nanoTime();
+        ListenableFuture<Boolean> collected = addTimeout(
+                transform(nonCancellationPropagating(allAsList(futures)), domains -> true, directExecutor()),
+                () -> false,
+                waitTimeout,
+                executor);
+        addSuccessCallback(collected, result -> {
+            stats.getDynamicFilterWaitTime().add(nanosSince(start));
+            if (!result) {
+                stats.getDynamicFilterWaitTimeouts().update(1);
+            }
+        });
+        return collected;
+    }
+
+    /**
+     * Returns the predicate on the columns consuming the given dynamic filters which is known so far.
+     * Columns whose dynamic filters have not been collected yet are unconstrained.
+     *
+     * @param filterColumns mapping from dynamic filter ID to the column consuming it
+     */
+    public <T> TupleDomain<T> getPredicate(Map<String, T> filterColumns)
+    {
+        Map<T, Domain> domains = new HashMap<>();
+        for (Map.Entry<String, T> entry : filterColumns.entrySet()) {
+            SettableFuture<Domain> future = getDynamicFilterFuture(entry.getKey());
+            if (future.isDone()) {
+                // a column may consume the dynamic filters of more than one join
+                domains.merge(entry.getValue(), getDone(future), Domain::intersect);
+            }
+        }
+        return TupleDomain.withColumnDomains(domains);
+    }
+
+    private SettableFuture<Domain> getDynamicFilterFuture(String filterId)
+    {
+        return dynamicFilters.computeIfAbsent(filterId, id -> SettableFuture.create());
+    }
+
+    public SplitSchedulerStats getStats()
+    {
+        return stats;
+    }
+}
@@ -47,16 +47,20 @@ import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.OptionalInt;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.collect.ImmutableList.toImmutableList;
 import static com.google.common.collect.ImmutableSet.toImmutableSet;
+import static com.google.common.collect.Maps.immutableEntry;
+import static com.google.common.hash.Hashing.murmur3_128;
 import static com.google.common.util.concurrent.Futures.immediateFuture;
 import static io.airlift.concurrent.MoreFutures.whenAnyCompleteCancelOthers;
 import static io.prestosql.execution.scheduler.NodeSchedulerConfig.NetworkTopologyType;
 import static io.prestosql.metadata.NodeState.ACTIVE;
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.util.Objects.requireNonNull;
 
 public class NodeScheduler
@@ -76,6 +80,8 @@ public class NodeScheduler
     private final int maxSplitsPerNode;
     private final int maxPendingSplitsPerTask;
     private final boolean optimizedLocalScheduling;
+    private final boolean splitAffinitySchedulingEnabled;
+    private final int splitAffinityCandidates;
     private final NodeTaskMap nodeTaskMap;
     private final boolean useNetworkTopology;
 
@@ -99,6 +105,8 @@ public class NodeScheduler
         this.maxSplitsPerNode = config.getMaxSplitsPerNode();
         this.maxPendingSplitsPerTask = config.getMaxPendingSplitsPerTask();
         this.optimizedLocalScheduling = config.getOptimizedLocalScheduling();
+        this.splitAffinitySchedulingEnabled = config.isSplitAffinitySchedulingEnabled();
+        this.splitAffinityCandidates = config.getSplitAffinityCandidates();
         this.nodeTaskMap = requireNonNull(nodeTaskMap, "nodeTaskMap is null");
         checkArgument(maxSplitsPerNode >= maxPendingSplitsPerTask, "maxSplitsPerNode must be > maxPendingSplitsPerTask");
         this.useNetworkTopology = !config.getNetworkTopology().equals(NetworkTopologyType.LEGACY);
@@ -190,7 +198,16 @@ public class NodeScheduler
                     networkLocationCache);
         }
         else {
-            return new SimpleNodeSelector(nodeManager, nodeTaskMap, includeCoordinator, nodeMap, minCandidates, maxSplitsPerNode, maxPendingSplitsPerTask, optimizedLocalScheduling);
+            return new SimpleNodeSelector(
+                    nodeManager,
+                    nodeTaskMap,
+                    includeCoordinator,
+                    nodeMap,
+                    minCandidates,
+                    maxSplitsPerNode,
+                    maxPendingSplitsPerTask,
+                    optimizedLocalScheduling,
+                    splitAffinitySchedulingEnabled ? OptionalInt.of(splitAffinityCandidates) : OptionalInt.empty());
         }
     }
 
@@ -215,6 +232,33 @@ public class NodeScheduler
         return new ResettableRandomizedIterator<>(nodes);
     }
 
+    /**
+     * Returns the preferred nodes of a split with the given affinity key, by rendezvous hashing the key
+     * with the node identifiers. Adding or removing a node only changes the preferred nodes of the keys
+     * which hash highest to that node.
+     */
+    public static List<InternalNode> selectAffinityNodes(NodeMap nodeMap, String affinityKey, int limit, boolean includeCoordinator)
+    {
+        checkArgument(limit > 0, "limit must be at least 1");
+
+        return nodeMap.getNodesByHostAndPort().values().stream()
+                .filter(node -> includeCoordinator || !nodeMap.getCoordinatorNodeIds().contains(node.getNodeIdentifier()))
+                .map(node -> immutableEntry(node, affinityHash(affinityKey, node)))
+                .sorted(Map.Entry.<InternalNode, Long>comparingByValue().reversed())
+                .limit(limit)
+                .map(Map.Entry::getKey)
+                .collect(toImmutableList());
+    }
+
+    private static long affinityHash(String affinityKey, InternalNode node)
+    {
+        return murmur3_128().newHasher()
+                .putString(affinityKey, UTF_8)
+                .putString(node.getNodeIdentifier(), UTF_8)
+                .hash()
+                .asLong();
+    }
+
     public static List<InternalNode> selectExactNodes(NodeMap nodeMap, List<HostAddress> hosts, boolean includeCoordinator)
     {
         Set<InternalNode> chosen = new LinkedHashSet<>();
@@ -14,6 +14,7 @@
 package io.prestosql.execution.scheduler;
 
 import io.airlift.configuration.Config;
+import io.airlift.configuration.ConfigDescription;
 import io.airlift.configuration.DefunctConfig;
 import io.airlift.configuration.LegacyConfig;
 
@@ -36,6 +37,8 @@ public class NodeSchedulerConfig
     private int maxPendingSplitsPerTask = 10;
     private String networkTopology = NetworkTopologyType.LEGACY;
     private boolean optimizedLocalScheduling = true;
+    private boolean splitAffinitySchedulingEnabled;
+    private int splitAffinityCandidates = 2;
 
     @NotNull
     public String getNetworkTopology()
@@ -111,4 +114,31 @@ public class NodeSchedulerConfig
         this.optimizedLocalScheduling = optimizedLocalScheduling;
         return this;
     }
+
+    public boolean isSplitAffinitySchedulingEnabled()
+    {
+        return splitAffinitySchedulingEnabled;
+    }
+
+    @Config("node-scheduler.split-affinity-scheduling-enabled")
+    @ConfigDescription("Schedule remotely accessible splits with the same affinity key on the same workers, to improve the hit rate of worker-local caches")
+    public NodeSchedulerConfig setSplitAffinitySchedulingEnabled(boolean splitAffinitySchedulingEnabled)
+    {
+        this.splitAffinitySchedulingEnabled = splitAffinitySchedulingEnabled;
+        return this;
+    }
+
+    @Min(1)
+    public int getSplitAffinityCandidates()
+    {
+        return splitAffinityCandidates;
+    }
+
+    @Config("node-scheduler.split-affinity-candidates")
+    @ConfigDescription("Number of preferred workers of a split with an affinity key")
+    public NodeSchedulerConfig setSplitAffinityCandidates(int splitAffinityCandidates)
+    {
+        this.splitAffinityCandidates = splitAffinityCandidates;
+        return this;
+    }
 }
@@ -22,6 +22,7 @@ import io.prestosql.sql.planner.PlanFragment;
 import io.prestosql.sql.planner.plan.ExchangeNode;
 import io.prestosql.sql.planner.plan.IndexJoinNode;
 import io.prestosql.sql.planner.plan.JoinNode;
+import io.prestosql.sql.planner.plan.MergeJoinNode;
 import io.prestosql.sql.planner.plan.PlanFragmentId;
 import io.prestosql.sql.planner.plan.PlanNode;
 import io.prestosql.sql.planner.plan.PlanVisitor;
@@ -224,6 +225,19 @@ public class PhasedExecutionSchedule
             return processJoin(node.getIndexSource(), node.getProbeSource(), currentFragmentId);
         }
 
+        @Override
+        public Set<PlanFragmentId> visitMergeJoin(MergeJoinNode node, PlanFragmentId currentFragmentId)
+        {
+            // both sides of a merge join are consumed concurrently, so they must be scheduled in the same phase
+            Set<PlanFragmentId> rightSources = node.getRight().accept(this, currentFragmentId);
+            Set<PlanFragmentId> leftSources = node.getLeft().accept(this, currentFragmentId);
+
+            return ImmutableSet.<PlanFragmentId>builder()
+                    .addAll(rightSources)
+                    .addAll(leftSources)
+                    .build();
+        }
+
         private Set<PlanFragmentId> processJoin(PlanNode build, PlanNode probe, PlanFragmentId currentFragmentId)
         {
             Set<PlanFragmentId> buildSources = build.accept(this, currentFragmentId);
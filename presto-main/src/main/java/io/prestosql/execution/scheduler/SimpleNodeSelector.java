@@ -39,11 +39,13 @@ import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
+import java.util.OptionalInt;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicReference;
 
 import static io.prestosql.execution.scheduler.NodeScheduler.calculateLowWatermark;
 import static io.prestosql.execution.scheduler.NodeScheduler.randomizedNodes;
+import static io.prestosql.execution.scheduler.NodeScheduler.selectAffinityNodes;
 import static io.prestosql.execution.scheduler.NodeScheduler.selectDistributionNodes;
 import static io.prestosql.execution.scheduler.NodeScheduler.selectExactNodes;
 import static io.prestosql.execution.scheduler.NodeScheduler.selectNodes;
@@ -65,6 +67,7 @@ public class SimpleNodeSelector
     private final int maxSplitsPerNode;
     private final int maxPendingSplitsPerTask;
     private final boolean optimizedLocalScheduling;
+    private final OptionalInt splitAffinityCandidates;
 
     public SimpleNodeSelector(
             InternalNodeManager nodeManager,
@@ -74,7 +77,8 @@ public class SimpleNodeSelector
             int minCandidates,
             int maxSplitsPerNode,
             int maxPendingSplitsPerTask,
-            boolean optimizedLocalScheduling)
+            boolean optimizedLocalScheduling,
+            OptionalInt splitAffinityCandidates)
     {
         this.nodeManager = requireNonNull(nodeManager, "nodeManager is null");
         this.nodeTaskMap = requireNonNull(nodeTaskMap, "nodeTaskMap is null");
@@ -84,6 +88,7 @@ public class SimpleNodeSelector
         this.maxSplitsPerNode = maxSplitsPerNode;
         this.maxPendingSplitsPerTask = maxPendingSplitsPerTask;
         this.optimizedLocalScheduling = optimizedLocalScheduling;
+        this.splitAffinityCandidates = requireNonNull(splitAffinityCandidates, "splitAffinityCandidates is null");
     }
 
     @Override
@@ -150,6 +155,18 @@ public class SimpleNodeSelector
         }
 
         for (Split split : remainingSplits) {
+            // splits with an affinity key go to their preferred nodes, unless all of them are saturated
+            if (split.isRemotelyAccessible() && splitAffinityCandidates.isPresent() && split.getAffinityKey().isPresent()) {
+                Optional<InternalNode> preferredNode = selectAffinityNodes(nodeMap, split.getAffinityKey().get(), splitAffinityCandidates.getAsInt(), includeCoordinator).stream()
+                        .filter(node -> assignmentStats.getTotalSplitCount(node) < maxSplitsPerNode)
+                        .min(comparingInt(assignmentStats::getTotalSplitCount));
+                if (preferredNode.isPresent()) {
+                    assignment.put(preferredNode.get(), split);
+                    assignmentStats.addAssignedSplit(preferredNode.get());
+                    continue;
+                }
+            }
+
             randomCandidates.reset();
 
             List<InternalNode> candidateNodes;
@@ -31,6 +31,10 @@ public class SplitSchedulerStats
     private final CounterStat waitingForSource = new CounterStat();
     private final CounterStat splitQueuesFull = new CounterStat();
     private final DistributionStat splitsPerIteration = new DistributionStat();
+    private final TimeStat dynamicFilterWaitTime = new TimeStat(MILLISECONDS);
+    private final CounterStat dynamicFilterWaitTimeouts = new CounterStat();
+    private final CounterStat splitSourcesPrunedByDynamicFilter = new CounterStat();
+    private final CounterStat splitsPrunedByDynamicFilter = new CounterStat();
 
     @Managed
     @Nested
@@ -66,4 +70,32 @@ public class SplitSchedulerStats
     {
         return splitQueuesFull;
     }
+
+    @Managed
+    @Nested
+    public TimeStat getDynamicFilterWaitTime()
+    {
+        return dynamicFilterWaitTime;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getDynamicFilterWaitTimeouts()
+    {
+        return dynamicFilterWaitTimeouts;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getSplitSourcesPrunedByDynamicFilter()
+    {
+        return splitSourcesPrunedByDynamicFilter;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getSplitsPrunedByDynamicFilter()
+    {
+        return splitsPrunedByDynamicFilter;
+    }
 }
@@ -92,6 +92,7 @@ import static io.prestosql.execution.StageState.FAILED;
 import static io.prestosql.execution.StageState.FINISHED;
 import static io.prestosql.execution.StageState.RUNNING;
 import static io.prestosql.execution.StageState.SCHEDULED;
+import static io.prestosql.execution.scheduler.BroadcastTableSizeMonitor.createBroadcastTableSizeMonitor;
 import static io.prestosql.execution.scheduler.SourcePartitionedScheduler.newSourcePartitionedSchedulerAsStageScheduler;
 import static io.prestosql.spi.StandardErrorCode.GENERIC_INTERNAL_ERROR;
 import static io.prestosql.spi.StandardErrorCode.NO_NODES_AVAILABLE;
@@ -119,6 +120,7 @@ public class SqlQueryScheduler
     private final Map<StageId, StageScheduler> stageSchedulers;
     private final Map<StageId, StageLinkage> stageLinkages;
     private final SplitSchedulerStats schedulerStats;
+    private final Optional<BroadcastTableSizeMonitor> broadcastTableSizeMonitor;
     private final boolean summarizeTaskInfo;
     private final AtomicBoolean started = new AtomicBoolean();
 
@@ -138,7 +140,8 @@ public class SqlQueryScheduler
             OutputBuffers rootOutputBuffers,
             NodeTaskMap nodeTaskMap,
             ExecutionPolicy executionPolicy,
-            SplitSchedulerStats schedulerStats)
+            SplitSchedulerStats schedulerStats,
+            DynamicFiltersCollector dynamicFiltersCollector)
     {
         SqlQueryScheduler sqlQueryScheduler = new SqlQueryScheduler(
                 queryStateMachine,
@@ -156,7 +159,8 @@ public class SqlQueryScheduler
                 rootOutputBuffers,
                 nodeTaskMap,
                 executionPolicy,
-                schedulerStats);
+                schedulerStats,
+                dynamicFiltersCollector);
         sqlQueryScheduler.initialize();
         return sqlQueryScheduler;
     }
@@ -177,7 +181,8 @@ public class SqlQueryScheduler
             OutputBuffers rootOutputBuffers,
             NodeTaskMap nodeTaskMap,
             ExecutionPolicy executionPolicy,
-            SplitSchedulerStats schedulerStats)
+            SplitSchedulerStats schedulerStats,
+            DynamicFiltersCollector dynamicFiltersCollector)
     {
         this.queryStateMachine = requireNonNull(queryStateMachine, "queryStateMachine is null");
         this.executionPolicy = requireNonNull(executionPolicy, "schedulerPolicyFactory is null");
@@ -216,10 +221,13 @@ public class SqlQueryScheduler
 
         this.stages = stages.stream()
                 .collect(toImmutableMap(SqlStageExecution::getStageId, identity()));
+        stages.forEach(dynamicFiltersCollector::addStage);
 
         this.stageSchedulers = stageSchedulers.build();
         this.stageLinkages = stageLinkages.build();
 
+        this.broadcastTableSizeMonitor = createBroadcastTableSizeMonitor(queryStateMachine, stages, schedulerExecutor);
+
         this.executor = queryExecutor;
     }
 
@@ -527,6 +535,7 @@ public class SqlQueryScheduler
     public void start()
     {
         if (started.compareAndSet(false, true)) {
+            broadcastTableSizeMonitor.ifPresent(BroadcastTableSizeMonitor::start);
             executor.submit(this::schedule);
         }
     }
@@ -0,0 +1,261 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.operator;
+
+import com.google.common.collect.ImmutableList;
+import io.prestosql.spi.Page;
+import io.prestosql.spi.PageBuilder;
+import io.prestosql.spi.block.Block;
+import io.prestosql.spi.type.Type;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import org.openjdk.jol.info.ClassLayout;
+
+import javax.annotation.Nullable;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static io.airlift.slice.SizeOf.sizeOf;
+import static io.prestosql.operator.SyntheticAddress.decodePosition;
+import static io.prestosql.operator.SyntheticAddress.decodeSliceIndex;
+import static io.prestosql.spi.type.BigintType.BIGINT;
+import static io.prestosql.spi.type.DateType.DATE;
+import static io.prestosql.spi.type.IntegerType.INTEGER;
+import static io.prestosql.util.HashCollisionsEstimator.estimateNumberOfHashCollisions;
+import static it.unimi.dsi.fastutil.HashCommon.arraySize;
+import static it.unimi.dsi.fastutil.HashCommon.murmurHash3;
+import static java.lang.Math.toIntExact;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * {@link PagesHash} for a single join channel with values that can be read as a {@code long}.
+ * The key values are stored in the hash table itself, so a lookup does not go through the
+ * {@link PagesHashStrategy}. When the keys are dense, the table is indexed directly with the
+ * key value, which needs no more memory than the open addressed table.
+ */
+// This implementation assumes arrays used in the hash are always a power of 2
+public final class BigintPagesHash
+        implements PagesHash
+{
+    private static final int INSTANCE_SIZE = ClassLayout.parseClass(BigintPagesHash.class).instanceSize();
+    private static final List<Type> SUPPORTED_TYPES = ImmutableList.of(BIGINT, INTEGER, DATE);
+
+    private final LongArrayList addresses;
+    private final PagesHashStrategy pagesHashStrategy;
+    private final Type keyType;
+
+    private final int channelCount;
+    private final int mask;
+    // address index of the first position with the key of each slot, -1 for empty slots
+    private final int[] key;
+    // key value of each slot, null when the table is indexed with the key value
+    @Nullable
+    private final long[] values;
+    // smallest key value when the table is indexed with the key value
+    private final long minValue;
+    // Rejects most probe rows without a match before the hash table is accessed.
+    // Null when disabled or when the table is indexed with the key value.
+    @Nullable
+    private final JoinBloomFilter bloomFilter;
+    private final long size;
+    private final long hashCollisions;
+    private final double expectedHashCollisions;
+
+    public static boolean isSupportedType(Type type)
+    {
+        return SUPPORTED_TYPES.contains(type);
+    }
+
+    public BigintPagesHash(
+            LongArrayList addresses,
+            PagesHashStrategy pagesHashStrategy,
+            PositionLinks.FactoryBuilder positionLinks,
+            Type keyType,
+            List<Block> keyBlocks,
+            boolean bloomFilterEnabled)
+    {
+        this.addresses = requireNonNull(addresses, "addresses is null");
+        this.pagesHashStrategy = requireNonNull(pagesHashStrategy, "pagesHashStrategy is null");
+        this.keyType = requireNonNull(keyType, "keyType is null");
+        requireNonNull(keyBlocks, "keyBlocks is null");
+        this.channelCount = pagesHashStrategy.getChannelCount();
+
+        int positionCount = addresses.size();
+        long[] positionToValues = new long[positionCount];
+        boolean[] positionIsNull = new boolean[positionCount];
+        long minValue = Long.MAX_VALUE;
+        long maxValue = Long.MIN_VALUE;
+        for (int position = 0; position < positionCount; position++) {
+            long pageAddress = addresses.getLong(position);
+            Block block = keyBlocks.get(decodeSliceIndex(pageAddress));
+            int blockPosition = decodePosition(pageAddress);
+            if (block.isNull(blockPosition)) {
+                positionIsNull[position] = true;
+                continue;
+            }
+            long value = keyType.getLong(block, blockPosition);
+            positionToValues[position] = value;
+            minValue = Math.min(minValue, value);
+            maxValue = Math.max(maxValue, value);
+        }
+
+        int hashSize = arraySize(positionCount, 0.75f);
+        long hashCollisionsLocal = 0;
+        // an int per value of the range is no more than an int and a long per slot of the open addressed table
+        if (minValue <= maxValue && maxValue - minValue >= 0 && maxValue - minValue < 3L * hashSize) {
+            this.minValue = minValue;
+            this.values = null;
+            this.bloomFilter = null;
+            this.mask = 0;
+            this.key = new int[toIntExact(maxValue - minValue + 1)];
+            Arrays.fill(key, -1);
+
+            for (int position = 0; position < positionCount; position++) {
+                if (positionIsNull[position]) {
+                    continue;
+                }
+                int index = (int) (positionToValues[position] - minValue);
+                int realPosition = position;
+                if (key[index] != -1) {
+                    realPosition = positionLinks.link(position, key[index]);
+                }
+                key[index] = realPosition;
+            }
+            this.expectedHashCollisions = 0;
+        }
+        else {
+            this.minValue = 0;
+            this.mask = hashSize - 1;
+            this.key = new int[hashSize];
+            this.values = new long[hashSize];
+            this.bloomFilter = bloomFilterEnabled ? new JoinBloomFilter(positionCount) : null;
+            Arrays.fill(key, -1);
+
+            for (int position = 0; position < positionCount; position++) {
+                if (positionIsNull[position]) {
+                    continue;
+                }
+                long value = positionToValues[position];
+                if (bloomFilter != null) {
+                    bloomFilter.add(value);
+                }
+                int pos = getHashPosition(value, mask);
+                int realPosition = position;
+
+                // look for an empty slot or a slot containing this key
+                while (key[pos] != -1) {
+                    if (values[pos] == value) {
+                        // found a slot for this key
+                        // link the new key position to the current key position
+                        realPosition = positionLinks.link(position, key[pos]);
+
+                        // key[pos] updated outside of this loop
+                        break;
+                    }
+                    // increment position and mask to handler wrap around
+                    pos = (pos + 1) & mask;
+                    hashCollisionsLocal++;
+                }
+
+                key[pos] = realPosition;
+                values[pos] = value;
+            }
+            this.expectedHashCollisions = estimateNumberOfHashCollisions(positionCount, hashSize);
+        }
+
+        this.size = sizeOf(addresses.elements()) + pagesHashStrategy.getSizeInBytes() +
+                sizeOf(key) + (values == null ? 0 : sizeOf(values)) +
+                (bloomFilter == null ? 0 : bloomFilter.getRetainedSizeInBytes());
+        this.hashCollisions = hashCollisionsLocal;
+    }
+
+    @Override
+    public int getChannelCount()
+    {
+        return channelCount;
+    }
+
+    @Override
+    public int getPositionCount()
+    {
+        return addresses.size();
+    }
+
+    @Override
+    public long getInMemorySizeInBytes()
+    {
+        return INSTANCE_SIZE + size;
+    }
+
+    @Override
+    public long getHashCollisions()
+    {
+        return hashCollisions;
+    }
+
+    @Override
+    public double getExpectedHashCollisions()
+    {
+        return expectedHashCollisions;
+    }
+
+    @Override
+    public int getAddressIndex(int position, Page hashChannelsPage)
+    {
+        long value = keyType.getLong(hashChannelsPage.getBlock(0), position);
+        if (values == null) {
+            long index = value - minValue;
+            if (index < 0 || index >= key.length) {
+                return -1;
+            }
+            return key[(int) index];
+        }
+
+        if (bloomFilter != null && !bloomFilter.mightContain(value)) {
+            return -1;
+        }
+
+        int pos = getHashPosition(value, mask);
+        while (key[pos] != -1) {
+            if (values[pos] == value) {
+                return key[pos];
+            }
+            // increment position and mask to handler wrap around
+            pos = (pos + 1) & mask;
+        }
+        return -1;
+    }
+
+    @Override
+    public int getAddressIndex(int rightPosition, Page hashChannelsPage, long rawHash)
+    {
+        // the precomputed hash is not needed to find the key value
+        return getAddressIndex(rightPosition, hashChannelsPage);
+    }
+
+    @Override
+    public void appendTo(long position, PageBuilder pageBuilder, int outputChannelOffset)
+    {
+        long pageAddress = addresses.getLong(toIntExact(position));
+        int blockIndex = decodeSliceIndex(pageAddress);
+        int blockPosition = decodePosition(pageAddress);
+
+        pagesHashStrategy.appendTo(blockIndex, blockPosition, pageBuilder, outputChannelOffset);
+    }
+
+    private static int getHashPosition(long value, int mask)
+    {
+        return (int) (murmurHash3(value) & mask);
+    }
+}
@@ -14,12 +14,15 @@
 package io.prestosql.operator;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.AbstractIterator;
 import com.google.common.collect.ImmutableList;
 import io.prestosql.memory.context.LocalMemoryContext;
 import io.prestosql.spi.Page;
+import io.prestosql.spi.PageBuilder;
 import io.prestosql.spi.type.Type;
 import io.prestosql.sql.gen.JoinCompiler;
 
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
 
@@ -84,8 +87,17 @@ public class ChannelSet
         private final Page nullBlockPage;
         private final OperatorContext operatorContext;
         private final LocalMemoryContext localMemoryContext;
+        private final boolean revocable;
 
         public ChannelSetBuilder(Type type, Optional<Integer> hashChannel, int expectedPositions, OperatorContext operatorContext, JoinCompiler joinCompiler)
+        {
+            this(type, hashChannel, expectedPositions, operatorContext, joinCompiler, false);
+        }
+
+        /**
+         * @param revocable whether the memory of the set is revocable, i.e. the set can be spilled
+         */
+        public ChannelSetBuilder(Type type, Optional<Integer> hashChannel, int expectedPositions, OperatorContext operatorContext, JoinCompiler joinCompiler, boolean revocable)
         {
             List<Type> types = ImmutableList.of(type);
             this.hash = createGroupByHash(
@@ -98,7 +110,8 @@ public class ChannelSet
                     this::updateMemoryReservation);
             this.nullBlockPage = new Page(type.createBlockBuilder(null, 1, UNKNOWN.getFixedSize()).appendNull().build());
             this.operatorContext = requireNonNull(operatorContext, "operatorContext is null");
-            this.localMemoryContext = operatorContext.localUserMemoryContext();
+            this.localMemoryContext = revocable ? operatorContext.localRevocableMemoryContext() : operatorContext.localUserMemoryContext();
+            this.revocable = revocable;
         }
 
         public ChannelSet build()
@@ -122,10 +135,42 @@ public class ChannelSet
             return hash.addPage(page);
         }
 
+        /**
+         * Returns the values of the set as single channel pages.
+         */
+        public Iterator<Page> getValues()
+        {
+            return new AbstractIterator<Page>()
+            {
+                private final PageBuilder pageBuilder = new PageBuilder(hash.getTypes());
+                private int groupId;
+
+                @Override
+                protected Page computeNext()
+                {
+                    if (groupId == hash.getGroupCount()) {
+                        return endOfData();
+                    }
+                    pageBuilder.reset();
+                    while (!pageBuilder.isFull() && groupId < hash.getGroupCount()) {
+                        pageBuilder.declarePosition();
+                        hash.appendValuesTo(groupId, pageBuilder, 0);
+                        groupId++;
+                    }
+                    // drop the precomputed hash, if any
+                    return new Page(pageBuilder.getPositionCount(), pageBuilder.build().getBlock(0));
+                }
+            };
+        }
+
         public boolean updateMemoryReservation()
         {
             // If memory is not available, once we return, this operator will be blocked until memory is available.
             localMemoryContext.setBytes(hash.getEstimatedSize());
+            if (revocable) {
+                // a revocable set is spilled rather than waited for, so its hash keeps growing
+                return true;
+            }
 
             // If memory is not available, inform the caller that we cannot proceed for allocation.
             return operatorContext.isWaitingForMemory().isDone();
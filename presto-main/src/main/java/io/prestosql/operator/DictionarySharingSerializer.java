@@ -0,0 +1,161 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.operator;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import io.prestosql.execution.buffer.PagesSerde;
+import io.prestosql.execution.buffer.SerializedPage;
+import io.prestosql.spi.Page;
+import io.prestosql.spi.block.Block;
+import io.prestosql.spi.block.DictionaryBlock;
+import io.prestosql.spi.block.DictionaryId;
+
+import javax.annotation.concurrent.NotThreadSafe;
+
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import static com.google.common.collect.Sets.newIdentityHashSet;
+import static io.prestosql.execution.buffer.PageSplitterUtil.splitPage;
+import static io.prestosql.spi.block.DictionaryId.randomDictionaryId;
+import static io.prestosql.spi.block.PageBuilderStatus.DEFAULT_MAX_PAGE_SIZE_IN_BYTES;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Serializes the pages sent to a single destination, sending the dictionary of every
+ * dictionary block only once and referencing it by its id in the pages that follow.
+ * A dictionary that is not used by a page is released, since the dictionaries of the
+ * input are replaced rather than revisited. Should it be used again, it is sent again.
+ */
+@NotThreadSafe
+class DictionarySharingSerializer
+{
+    private final PagesSerde serde;
+    // keyed by the dictionary instance, as the input pages sharing a dictionary do not need to share its id
+    private final Map<Block, SharedDictionary> dictionaries = new IdentityHashMap<>();
+
+    public DictionarySharingSerializer(PagesSerde serde)
+    {
+        this.serde = requireNonNull(serde, "serde is null");
+    }
+
+    public List<SerializedPage> serialize(Page page)
+    {
+        ImmutableList.Builder<SerializedPage> serializedPages = ImmutableList.builder();
+
+        Set<Block> usedDictionaries = newIdentityHashSet();
+        Block[] blocks = new Block[page.getChannelCount()];
+        for (int channel = 0; channel < blocks.length; channel++) {
+            Block block = page.getBlock(channel);
+            if (block instanceof DictionaryBlock) {
+                DictionaryBlock dictionaryBlock = (DictionaryBlock) block;
+                Block dictionary = dictionaryBlock.getDictionary();
+                SharedDictionary sharedDictionary = dictionaries.get(dictionary);
+                if (sharedDictionary == null) {
+                    sharedDictionary = new SharedDictionary(randomDictionaryId());
+                    dictionaries.put(dictionary, sharedDictionary);
+                    serializedPages.add(serde.serializeSharedDictionary(sharedDictionary.getDictionaryId(), dictionary));
+                }
+                usedDictionaries.add(dictionary);
+                block = new DictionaryBlock(dictionaryBlock.getPositionCount(), dictionary, getIds(dictionaryBlock), sharedDictionary.getDictionaryId());
+            }
+            blocks[channel] = block;
+        }
+
+        for (Page part : splitPage(new Page(page.getPositionCount(), blocks), DEFAULT_MAX_PAGE_SIZE_IN_BYTES)) {
+            serializedPages.add(usedDictionaries.isEmpty() ? serde.serialize(part) : serde.serializeWithDictionaryReferences(part));
+            for (int channel = 0; channel < part.getChannelCount(); channel++) {
+                if (part.getBlock(channel) instanceof DictionaryBlock) {
+                    dictionaries.get(((DictionaryBlock) part.getBlock(channel)).getDictionary()).addReference();
+                }
+            }
+        }
+
+        release(dictionary -> !usedDictionaries.contains(dictionary)).ifPresent(serializedPages::add);
+        return serializedPages.build();
+    }
+
+    public Optional<SerializedPage> releaseAll()
+    {
+        return release(dictionary -> true);
+    }
+
+    /**
+     * The dictionaries referenced by the pages sent so far and not released yet.
+     */
+    public Set<Block> getDictionaries()
+    {
+        return dictionaries.keySet();
+    }
+
+    private Optional<SerializedPage> release(Predicate<Block> shouldRelease)
+    {
+        ImmutableMap.Builder<DictionaryId, Long> referenceCounts = ImmutableMap.builder();
+        Iterator<Map.Entry<Block, SharedDictionary>> iterator = dictionaries.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Block, SharedDictionary> entry = iterator.next();
+            if (shouldRelease.test(entry.getKey())) {
+                referenceCounts.put(entry.getValue().getDictionaryId(), entry.getValue().getReferences());
+                iterator.remove();
+            }
+        }
+
+        Map<DictionaryId, Long> released = referenceCounts.build();
+        if (released.isEmpty()) {
+            return Optional.empty();
+        }
+        return Optional.of(serde.serializeSharedDictionaryRelease(released));
+    }
+
+    private static int[] getIds(DictionaryBlock dictionaryBlock)
+    {
+        int[] ids = new int[dictionaryBlock.getPositionCount()];
+        for (int position = 0; position < ids.length; position++) {
+            ids[position] = dictionaryBlock.getId(position);
+        }
+        return ids;
+    }
+
+    private static class SharedDictionary
+    {
+        private final DictionaryId dictionaryId;
+        private long references;
+
+        public SharedDictionary(DictionaryId dictionaryId)
+        {
+            this.dictionaryId = requireNonNull(dictionaryId, "dictionaryId is null");
+        }
+
+        public DictionaryId getDictionaryId()
+        {
+            return dictionaryId;
+        }
+
+        public long getReferences()
+        {
+            return references;
+        }
+
+        public void addReference()
+        {
+            references++;
+        }
+    }
+}
@@ -15,23 +15,28 @@ package io.prestosql.operator;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableList;
-import com.google.common.primitives.Ints;
+import com.google.common.util.concurrent.ListenableFuture;
 import io.prestosql.memory.context.LocalMemoryContext;
 import io.prestosql.spi.Page;
 import io.prestosql.spi.block.Block;
 import io.prestosql.spi.type.Type;
+import io.prestosql.spiller.PartitioningSpillerFactory;
 import io.prestosql.sql.gen.JoinCompiler;
 import io.prestosql.sql.planner.plan.PlanNodeId;
 
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.IntStream;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.base.Verify.verify;
 import static com.google.common.collect.ImmutableList.toImmutableList;
-import static io.prestosql.SystemSessionProperties.isDictionaryAggregationEnabled;
-import static io.prestosql.operator.GroupByHash.createGroupByHash;
+import static com.google.common.util.concurrent.Futures.immediateFuture;
+import static io.airlift.concurrent.MoreFutures.checkSuccess;
+import static io.prestosql.spi.type.BigintType.BIGINT;
+import static io.prestosql.spi.type.BooleanType.BOOLEAN;
 import static java.util.Objects.requireNonNull;
 
 public class DistinctLimitOperator
@@ -48,6 +53,8 @@ public class DistinctLimitOperator
         private final Optional<Integer> hashChannel;
         private boolean closed;
         private final JoinCompiler joinCompiler;
+        private final boolean spillEnabled;
+        private final PartitioningSpillerFactory partitioningSpillerFactory;
 
         public DistinctLimitOperatorFactory(
                 int operatorId,
@@ -56,7 +63,9 @@ public class DistinctLimitOperator
                 List<Integer> distinctChannels,
                 long limit,
                 Optional<Integer> hashChannel,
-                JoinCompiler joinCompiler)
+                JoinCompiler joinCompiler,
+                boolean spillEnabled,
+                PartitioningSpillerFactory partitioningSpillerFactory)
         {
             this.operatorId = operatorId;
             this.planNodeId = requireNonNull(planNodeId, "planNodeId is null");
@@ -67,6 +76,8 @@ public class DistinctLimitOperator
             this.limit = limit;
             this.hashChannel = requireNonNull(hashChannel, "hashChannel is null");
             this.joinCompiler = requireNonNull(joinCompiler, "joinCompiler is null");
+            this.spillEnabled = spillEnabled;
+            this.partitioningSpillerFactory = requireNonNull(partitioningSpillerFactory, "partitioningSpillerFactory is null");
         }
 
         @Override
@@ -77,7 +88,7 @@ public class DistinctLimitOperator
             List<Type> distinctTypes = distinctChannels.stream()
                     .map(sourceTypes::get)
                     .collect(toImmutableList());
-            return new DistinctLimitOperator(operatorContext, distinctChannels, distinctTypes, limit, hashChannel, joinCompiler);
+            return new DistinctLimitOperator(operatorContext, distinctChannels, distinctTypes, limit, hashChannel, joinCompiler, spillEnabled, partitioningSpillerFactory);
         }
 
         @Override
@@ -89,30 +100,46 @@ public class DistinctLimitOperator
         @Override
         public OperatorFactory duplicate()
         {
-            return new DistinctLimitOperatorFactory(operatorId, planNodeId, sourceTypes, distinctChannels, limit, hashChannel, joinCompiler);
+            return new DistinctLimitOperatorFactory(operatorId, planNodeId, sourceTypes, distinctChannels, limit, hashChannel, joinCompiler, spillEnabled, partitioningSpillerFactory);
         }
     }
 
     private final OperatorContext operatorContext;
     private final LocalMemoryContext localUserMemoryContext;
+    private final LocalMemoryContext localRevocableMemoryContext;
+
+    // distinct channels followed by the hash channel, if present
+    private final List<Integer> outputChannels;
 
     private Page inputPage;
     private long remainingLimit;
 
     private boolean finishing;
 
-    private final List<Integer> outputChannels;
-    private final GroupByHash groupByHash;
-    private long nextDistinctId;
+    private final SpillableMarkDistinctHash markDistinctHash;
+    private final boolean spillEnabled;
 
     // for yield when memory is not available
-    private GroupByIdBlock groupByIds;
-    private Work<GroupByIdBlock> unfinishedWork;
-
-    public DistinctLimitOperator(OperatorContext operatorContext, List<Integer> distinctChannels, List<Type> distinctTypes, long limit, Optional<Integer> hashChannel, JoinCompiler joinCompiler)
+    private Block distinctMask;
+    private Work<Block> unfinishedWork;
+
+    private ListenableFuture<?> spillInProgress = immediateFuture(null);
+    // rows marked after the input has been spilled
+    private Iterator<Optional<Page>> spilledRows;
+
+    public DistinctLimitOperator(
+            OperatorContext operatorContext,
+            List<Integer> distinctChannels,
+            List<Type> distinctTypes,
+            long limit,
+            Optional<Integer> hashChannel,
+            JoinCompiler joinCompiler,
+            boolean spillEnabled,
+            PartitioningSpillerFactory partitioningSpillerFactory)
     {
         this.operatorContext = requireNonNull(operatorContext, "operatorContext is null");
         this.localUserMemoryContext = operatorContext.localUserMemoryContext();
+        this.localRevocableMemoryContext = operatorContext.localRevocableMemoryContext();
         requireNonNull(distinctChannels, "distinctChannels is null");
         checkArgument(limit >= 0, "limit must be at least zero");
         requireNonNull(hashChannel, "hashChannel is null");
@@ -122,14 +149,21 @@ public class DistinctLimitOperator
                 .addAll(hashChannel.map(ImmutableList::of).orElse(ImmutableList.of()))
                 .build();
 
-        this.groupByHash = createGroupByHash(
-                distinctTypes,
-                Ints.toArray(distinctChannels),
-                hashChannel,
+        // the hash is fed with the output channels only, so only they are spilled
+        List<Type> outputTypes = ImmutableList.<Type>builder()
+                .addAll(distinctTypes)
+                .addAll(hashChannel.map(channel -> ImmutableList.<Type>of(BIGINT)).orElse(ImmutableList.of()))
+                .build();
+        this.markDistinctHash = new SpillableMarkDistinctHash(
+                operatorContext,
+                outputTypes,
+                IntStream.range(0, distinctChannels.size()).boxed().collect(toImmutableList()),
+                hashChannel.map(channel -> distinctChannels.size()),
                 Math.min((int) limit, 10_000),
-                isDictionaryAggregationEnabled(operatorContext.getSession()),
                 joinCompiler,
-                this::updateMemoryReservation);
+                this::updateMemoryReservation,
+                partitioningSpillerFactory);
+        this.spillEnabled = spillEnabled;
         remainingLimit = limit;
     }
 
@@ -148,22 +182,48 @@ public class DistinctLimitOperator
     @Override
     public boolean isFinished()
     {
-        return !hasUnfinishedInput() && (finishing || remainingLimit == 0);
+        if (hasUnfinishedInput()) {
+            return false;
+        }
+        if (remainingLimit == 0) {
+            return true;
+        }
+        if (!finishing) {
+            return false;
+        }
+        return !markDistinctHash.isSpilled() || (spilledRows != null && !spilledRows.hasNext());
+    }
+
+    @Override
+    public ListenableFuture<?> isBlocked()
+    {
+        return spillInProgress;
     }
 
     @Override
     public boolean needsInput()
     {
-        return !finishing && remainingLimit > 0 && !hasUnfinishedInput();
+        return !finishing && remainingLimit > 0 && !hasUnfinishedInput() && spillInProgress.isDone();
     }
 
     @Override
     public void addInput(Page page)
     {
         checkState(needsInput());
+        checkSuccess(spillInProgress, "spilling failed");
 
-        inputPage = page;
-        unfinishedWork = groupByHash.getGroupIds(page);
+        Block[] blocks = outputChannels.stream()
+                .map(page::getBlock)
+                .toArray(Block[]::new);
+        Page outputChannelsPage = new Page(page.getPositionCount(), blocks);
+
+        if (markDistinctHash.isSpilled()) {
+            spillInProgress = markDistinctHash.spillInput(outputChannelsPage);
+            return;
+        }
+
+        inputPage = outputChannelsPage;
+        unfinishedWork = markDistinctHash.markDistinctRows(inputPage);
         processUnfinishedWork();
         updateMemoryReservation();
     }
@@ -171,58 +231,105 @@ public class DistinctLimitOperator
     @Override
     public Page getOutput()
     {
+        checkSuccess(spillInProgress, "spilling failed");
         if (unfinishedWork != null && !processUnfinishedWork()) {
             return null;
         }
 
-        if (groupByIds == null) {
-            return null;
+        if (distinctMask == null) {
+            return getSpilledOutput();
         }
 
         verify(inputPage != null);
-        int distinctCount = 0;
-        int[] distinctPositions = new int[inputPage.getPositionCount()];
-        for (int position = 0; position < groupByIds.getPositionCount(); position++) {
-            if (groupByIds.getGroupId(position) == nextDistinctId) {
-                distinctPositions[distinctCount] = position;
-                distinctCount++;
+        Page result = maskToDistinctOutputPositions(inputPage, distinctMask);
 
-                remainingLimit--;
-                nextDistinctId++;
-                if (remainingLimit == 0) {
-                    break;
-                }
-            }
+        distinctMask = null;
+        inputPage = null;
+
+        updateMemoryReservation();
+        return result;
+    }
+
+    private Page getSpilledOutput()
+    {
+        if (!finishing || remainingLimit == 0 || !markDistinctHash.isSpilled() || !spillInProgress.isDone()) {
+            return null;
         }
-        Page result = maskToDistinctOutputPositions(distinctCount, distinctPositions);
 
-        groupByIds = null;
-        inputPage = null;
+        if (spilledRows == null) {
+            spilledRows = markDistinctHash.markSpilledRows().yieldingIterator();
+        }
 
+        Page result = null;
+        if (spilledRows.hasNext()) {
+            Optional<Page> markedPage = spilledRows.next();
+            if (markedPage.isPresent()) {
+                Page page = markedPage.get();
+                result = maskToDistinctOutputPositions(page, page.getBlock(page.getChannelCount() - 1));
+            }
+        }
         updateMemoryReservation();
         return result;
     }
 
-    private Page maskToDistinctOutputPositions(int distinctCount, int[] distinctPositions)
+    private Page maskToDistinctOutputPositions(Page page, Block distinctMask)
     {
+        int distinctCount = 0;
+        int[] distinctPositions = new int[page.getPositionCount()];
+        for (int position = 0; position < distinctMask.getPositionCount() && remainingLimit > 0; position++) {
+            if (BOOLEAN.getBoolean(distinctMask, position)) {
+                distinctPositions[distinctCount] = position;
+                distinctCount++;
+                remainingLimit--;
+            }
+        }
+
         Page result = null;
         if (distinctCount > 0) {
-            Block[] blocks = outputChannels.stream()
-                    .map(inputPage::getBlock)
-                    .map(block -> block.getPositions(distinctPositions, 0, distinctCount))
-                    .toArray(Block[]::new);
+            Block[] blocks = new Block[outputChannels.size()];
+            for (int channel = 0; channel < blocks.length; channel++) {
+                blocks[channel] = page.getBlock(channel).getPositions(distinctPositions, 0, distinctCount);
+            }
             result = new Page(distinctCount, blocks);
         }
         return result;
     }
 
+    @Override
+    public ListenableFuture<?> startMemoryRevoke()
+    {
+        checkSuccess(spillInProgress, "spilling failed");
+        if (!spillEnabled || spilledRows != null) {
+            return immediateFuture(null);
+        }
+        // the hash does not yield when spill is enabled, so the input has been marked
+        verify(unfinishedWork == null, "Cannot spill with unfinished work");
+
+        spillInProgress = markDistinctHash.startMemoryRevoke();
+        return spillInProgress;
+    }
+
+    @Override
+    public void finishMemoryRevoke()
+    {
+        markDistinctHash.finishMemoryRevoke();
+        updateMemoryReservation();
+    }
+
+    @Override
+    public void close()
+            throws Exception
+    {
+        markDistinctHash.close();
+    }
+
     private boolean processUnfinishedWork()
     {
         verify(unfinishedWork != null);
         if (!unfinishedWork.process()) {
             return false;
         }
-        groupByIds = unfinishedWork.getResult();
+        distinctMask = unfinishedWork.getResult();
         unfinishedWork = null;
         return true;
     }
@@ -242,9 +349,17 @@ public class DistinctLimitOperator
     // The following implementation is a hybrid model, where the push model is going to call the pull model causing reentrancy
     private boolean updateMemoryReservation()
     {
+        if (spillEnabled && spilledRows == null) {
+            // the hash can be spilled until the spilled rows are marked, so running out of memory spills it instead of making it yield
+            localUserMemoryContext.setBytes(0);
+            localRevocableMemoryContext.setBytes(markDistinctHash.getEstimatedSize());
+            return true;
+        }
+
+        localRevocableMemoryContext.setBytes(0);
         // Operator/driver will be blocked on memory after we call localUserMemoryContext.setBytes().
         // If memory is not available, once we return, this operator will be blocked until memory is available.
-        localUserMemoryContext.setBytes(groupByHash.getEstimatedSize());
+        localUserMemoryContext.setBytes(markDistinctHash.getEstimatedSize());
         // If memory is not available, inform the caller that we cannot proceed for allocation.
         return operatorContext.isWaitingForMemory().isDone();
     }
@@ -252,6 +367,6 @@ public class DistinctLimitOperator
     @VisibleForTesting
     public int getCapacity()
     {
-        return groupByHash.getCapacity();
+        return markDistinctHash.getCapacity();
     }
 }
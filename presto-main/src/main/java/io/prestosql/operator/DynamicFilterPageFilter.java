@@ -0,0 +1,124 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.operator;
+
+import com.google.common.collect.ImmutableList;
+import io.prestosql.spi.Page;
+import io.prestosql.spi.block.Block;
+import io.prestosql.spi.block.LazyBlock;
+import io.prestosql.spi.connector.ColumnHandle;
+import io.prestosql.spi.predicate.Domain;
+import io.prestosql.spi.predicate.TupleDomain;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static io.prestosql.spi.type.TypeUtils.readNativeValue;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Removes rows of a table scan page which cannot match a dynamic filter.
+ * Blocks that are not needed to evaluate the filter stay lazy.
+ */
+public final class DynamicFilterPageFilter
+{
+    private final boolean none;
+    private final int[] channels;
+    private final Domain[] domains;
+
+    private DynamicFilterPageFilter(boolean none, List<Integer> channels, List<Domain> domains)
+    {
+        checkArgument(channels.size() == domains.size(), "channels and domains must have same size");
+        this.none = none;
+        this.channels = channels.stream().mapToInt(Integer::intValue).toArray();
+        this.domains = domains.toArray(new Domain[0]);
+    }
+
+    /**
+     * Returns a filter for pages with the given columns, or empty if the predicate does not filter out anything.
+     */
+    public static Optional<DynamicFilterPageFilter> create(TupleDomain<ColumnHandle> predicate, List<ColumnHandle> columns)
+    {
+        requireNonNull(predicate, "predicate is null");
+        requireNonNull(columns, "columns is null");
+        if (predicate.isAll()) {
+            return Optional.empty();
+        }
+        if (predicate.isNone()) {
+            return Optional.of(new DynamicFilterPageFilter(true, ImmutableList.of(), ImmutableList.of()));
+        }
+
+        ImmutableList.Builder<Integer> channels = ImmutableList.builder();
+        ImmutableList.Builder<Domain> domains = ImmutableList.builder();
+        for (Map.Entry<ColumnHandle, Domain> entry : predicate.getDomains().get().entrySet()) {
+            int channel = columns.indexOf(entry.getKey());
+            if (channel >= 0 && !entry.getValue().isAll()) {
+                channels.add(channel);
+                domains.add(entry.getValue());
+            }
+        }
+        DynamicFilterPageFilter filter = new DynamicFilterPageFilter(false, channels.build(), domains.build());
+        if (filter.channels.length == 0) {
+            return Optional.empty();
+        }
+        return Optional.of(filter);
+    }
+
+    public Page filter(Page page)
+    {
+        if (none) {
+            return page.getRegion(0, 0);
+        }
+
+        int positionCount = page.getPositionCount();
+        int[] positions = new int[positionCount];
+        for (int position = 0; position < positionCount; position++) {
+            positions[position] = position;
+        }
+
+        int selectedCount = positionCount;
+        for (int i = 0; i < channels.length && selectedCount > 0; i++) {
+            Block block = page.getBlock(channels[i]);
+            Domain domain = domains[i];
+            int retained = 0;
+            for (int index = 0; index < selectedCount; index++) {
+                int position = positions[index];
+                if (domain.includesNullableValue(readNativeValue(domain.getType(), block, position))) {
+                    positions[retained] = position;
+                    retained++;
+                }
+            }
+            selectedCount = retained;
+        }
+
+        if (selectedCount == positionCount) {
+            return page;
+        }
+
+        int length = selectedCount;
+        Block[] blocks = new Block[page.getChannelCount()];
+        for (int channel = 0; channel < blocks.length; channel++) {
+            Block block = page.getBlock(channel);
+            if (block instanceof LazyBlock && !((LazyBlock) block).isLoaded()) {
+                blocks[channel] = new LazyBlock(length, lazyBlock -> lazyBlock.setBlock(block.getPositions(positions, 0, length)));
+            }
+            else {
+                blocks[channel] = block.getPositions(positions, 0, length);
+            }
+        }
+        return new Page(length, blocks);
+    }
+}
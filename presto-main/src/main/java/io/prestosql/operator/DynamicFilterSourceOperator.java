@@ -0,0 +1,273 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.operator;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import io.prestosql.spi.Page;
+import io.prestosql.spi.block.Block;
+import io.prestosql.spi.predicate.Domain;
+import io.prestosql.spi.predicate.Range;
+import io.prestosql.spi.predicate.TupleDomain;
+import io.prestosql.spi.predicate.ValueSet;
+import io.prestosql.spi.type.Type;
+import io.prestosql.sql.planner.plan.PlanNodeId;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+import static io.prestosql.spi.type.TypeUtils.readNativeValue;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Pass-through operator placed on the build side of a join, which collects the
+ * domain of the join keys and reports it to the probe side as a dynamic filter.
+ * <p>
+ * Distinct values are collected until {@code maxDistinctValues} is exceeded,
+ * after which only the [min, max] range is tracked (or nothing at all, for
+ * types that are not orderable).
+ */
+public class DynamicFilterSourceOperator
+        implements Operator
+{
+    public static class Channel
+    {
+        private final String filterId;
+        private final Type type;
+        private final int index;
+
+        public Channel(String filterId, Type type, int index)
+        {
+            this.filterId = requireNonNull(filterId, "filterId is null");
+            this.type = requireNonNull(type, "type is null");
+            checkArgument(index >= 0, "index is negative");
+            this.index = index;
+        }
+
+        public String getFilterId()
+        {
+            return filterId;
+        }
+
+        public Type getType()
+        {
+            return type;
+        }
+
+        public int getIndex()
+        {
+            return index;
+        }
+
+        @Override
+        public String toString()
+        {
+            return toStringHelper(this)
+                    .add("filterId", filterId)
+                    .add("type", type)
+                    .add("index", index)
+                    .toString();
+        }
+    }
+
+    public static class DynamicFilterSourceOperatorFactory
+            implements OperatorFactory
+    {
+        private final int operatorId;
+        private final PlanNodeId planNodeId;
+        private final Consumer<TupleDomain<String>> dynamicPredicateConsumer;
+        private final List<Channel> channels;
+        private final int maxDistinctValues;
+        private boolean closed;
+
+        public DynamicFilterSourceOperatorFactory(
+                int operatorId,
+                PlanNodeId planNodeId,
+                Consumer<TupleDomain<String>> dynamicPredicateConsumer,
+                List<Channel> channels,
+                int maxDistinctValues)
+        {
+            this.operatorId = operatorId;
+            this.planNodeId = requireNonNull(planNodeId, "planNodeId is null");
+            this.dynamicPredicateConsumer = requireNonNull(dynamicPredicateConsumer, "dynamicPredicateConsumer is null");
+            this.channels = ImmutableList.copyOf(requireNonNull(channels, "channels is null"));
+            checkArgument(!channels.isEmpty(), "channels is empty");
+            checkArgument(maxDistinctValues >= 0, "maxDistinctValues is negative");
+            this.maxDistinctValues = maxDistinctValues;
+        }
+
+        @Override
+        public Operator createOperator(DriverContext driverContext)
+        {
+            checkState(!closed, "Factory is already closed");
+            OperatorContext operatorContext = driverContext.addOperatorContext(operatorId, planNodeId, DynamicFilterSourceOperator.class.getSimpleName());
+            return new DynamicFilterSourceOperator(operatorContext, dynamicPredicateConsumer, channels, maxDistinctValues);
+        }
+
+        @Override
+        public void noMoreOperators()
+        {
+            closed = true;
+        }
+
+        @Override
+        public OperatorFactory duplicate()
+        {
+            return new DynamicFilterSourceOperatorFactory(operatorId, planNodeId, dynamicPredicateConsumer, channels, maxDistinctValues);
+        }
+    }
+
+    private final OperatorContext operatorContext;
+    private final Consumer<TupleDomain<String>> dynamicPredicateConsumer;
+    private final List<Channel> channels;
+    private final int maxDistinctValues;
+
+    private final List<Set<Object>> values;
+    private final Block[] minValues;
+    private final Block[] maxValues;
+    private boolean overflow;
+
+    private boolean finished;
+    private Page current;
+
+    public DynamicFilterSourceOperator(
+            OperatorContext operatorContext,
+            Consumer<TupleDomain<String>> dynamicPredicateConsumer,
+            List<Channel> channels,
+            int maxDistinctValues)
+    {
+        this.operatorContext = requireNonNull(operatorContext, "operatorContext is null");
+        this.dynamicPredicateConsumer = requireNonNull(dynamicPredicateConsumer, "dynamicPredicateConsumer is null");
+        this.channels = ImmutableList.copyOf(requireNonNull(channels, "channels is null"));
+        this.maxDistinctValues = maxDistinctValues;
+
+        this.values = new ArrayList<>(channels.size());
+        for (int i = 0; i < channels.size(); i++) {
+            values.add(new HashSet<>());
+        }
+        this.minValues = new Block[channels.size()];
+        this.maxValues = new Block[channels.size()];
+    }
+
+    @Override
+    public OperatorContext getOperatorContext()
+    {
+        return operatorContext;
+    }
+
+    @Override
+    public boolean needsInput()
+    {
+        return current == null && !finished;
+    }
+
+    @Override
+    public void addInput(Page page)
+    {
+        requireNonNull(page, "page is null");
+        checkState(needsInput(), "Operator did not expect any more data");
+        current = page;
+
+        for (int channelIndex = 0; channelIndex < channels.size(); channelIndex++) {
+            Channel channel = channels.get(channelIndex);
+            Block block = page.getBlock(channel.getIndex());
+            for (int position = 0; position < block.getPositionCount(); position++) {
+                if (block.isNull(position)) {
+                    // null keys never match an equi-join condition
+                    continue;
+                }
+                if (channel.getType().isOrderable()) {
+                    updateMinMax(channelIndex, channel.getType(), block, position);
+                }
+                if (!overflow) {
+                    values.get(channelIndex).add(readNativeValue(channel.getType(), block, position));
+                }
+            }
+            if (values.get(channelIndex).size() > maxDistinctValues) {
+                overflow = true;
+            }
+        }
+        if (overflow) {
+            values.forEach(Set::clear);
+        }
+    }
+
+    private void updateMinMax(int channelIndex, Type type, Block block, int position)
+    {
+        if (minValues[channelIndex] == null || type.compareTo(block, position, minValues[channelIndex], 0) < 0) {
+            minValues[channelIndex] = block.getSingleValueBlock(position);
+        }
+        if (maxValues[channelIndex] == null || type.compareTo(block, position, maxValues[channelIndex], 0) > 0) {
+            maxValues[channelIndex] = block.getSingleValueBlock(position);
+        }
+    }
+
+    @Override
+    public Page getOutput()
+    {
+        Page result = current;
+        current = null;
+        return result;
+    }
+
+    @Override
+    public void finish()
+    {
+        if (finished) {
+            // NOTE: finish() may be called multiple times (see comment at Driver::processInternal).
+            return;
+        }
+        finished = true;
+
+        ImmutableMap.Builder<String, Domain> domains = ImmutableMap.builder();
+        for (int channelIndex = 0; channelIndex < channels.size(); channelIndex++) {
+            Channel channel = channels.get(channelIndex);
+            domains.put(channel.getFilterId(), createDomain(channelIndex, channel.getType()));
+        }
+        dynamicPredicateConsumer.accept(TupleDomain.withColumnDomains(domains.build()));
+    }
+
+    private Domain createDomain(int channelIndex, Type type)
+    {
+        if (overflow) {
+            if (minValues[channelIndex] == null || !type.isOrderable()) {
+                return Domain.all(type);
+            }
+            Range range = Range.range(
+                    type,
+                    readNativeValue(type, minValues[channelIndex], 0),
+                    true,
+                    readNativeValue(type, maxValues[channelIndex], 0),
+                    true);
+            return Domain.create(ValueSet.ofRanges(range), false);
+        }
+        Set<Object> channelValues = values.get(channelIndex);
+        if (channelValues.isEmpty()) {
+            return Domain.none(type);
+        }
+        return Domain.multipleValues(type, new ArrayList<>(channelValues));
+    }
+
+    @Override
+    public boolean isFinished()
+    {
+        return current == null && finished;
+    }
+}
@@ -0,0 +1,255 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.operator;
+
+import io.prestosql.spi.Page;
+import io.prestosql.spi.block.Block;
+import io.prestosql.spi.block.BlockBuilder;
+import io.prestosql.spi.block.DictionaryBlock;
+import io.prestosql.spi.block.RunLengthEncodedBlock;
+import io.prestosql.spi.type.Type;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+
+import javax.annotation.concurrent.NotThreadSafe;
+
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static io.airlift.slice.SizeOf.sizeOf;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Builds pages from positions of input pages like a {@link io.prestosql.spi.PageBuilder},
+ * but keeps a dictionary or run length encoded channel encoded as long as the appended
+ * positions come from the same dictionary or the same value. A channel that switches to
+ * another dictionary, value or encoding is flattened until the page is built.
+ */
+@NotThreadSafe
+class EncodingPreservingPageBuilder
+{
+    private final int maxPageSizeInBytes;
+    private final List<ChannelBuilder> channels;
+    private int positionCount;
+
+    public EncodingPreservingPageBuilder(List<Type> types, int maxPageSizeInBytes)
+    {
+        checkArgument(maxPageSizeInBytes > 0, "maxPageSizeInBytes must be positive");
+        this.maxPageSizeInBytes = maxPageSizeInBytes;
+        this.channels = requireNonNull(types, "types is null").stream()
+                .map(ChannelBuilder::new)
+                .collect(toImmutableList());
+    }
+
+    public void appendPositions(Page page, int[] positions, int length)
+    {
+        for (int channel = 0; channel < channels.size(); channel++) {
+            channels.get(channel).appendPositions(page.getBlock(channel), positions, length, positionCount, maxPageSizeInBytes);
+        }
+        positionCount += length;
+    }
+
+    public boolean isEmpty()
+    {
+        return positionCount == 0;
+    }
+
+    public boolean isFull()
+    {
+        return getSizeInBytes() >= maxPageSizeInBytes;
+    }
+
+    /**
+     * The size of the page without the dictionaries, which are shared with the input pages.
+     */
+    public long getSizeInBytes()
+    {
+        long sizeInBytes = 0;
+        for (ChannelBuilder channel : channels) {
+            sizeInBytes += channel.getSizeInBytes();
+        }
+        return sizeInBytes;
+    }
+
+    public long getRetainedSizeInBytes()
+    {
+        long retainedSizeInBytes = 0;
+        for (ChannelBuilder channel : channels) {
+            retainedSizeInBytes += channel.getRetainedSizeInBytes();
+        }
+        return retainedSizeInBytes;
+    }
+
+    /**
+     * Builds the page and resets the builder.
+     */
+    public Page build()
+    {
+        Block[] blocks = new Block[channels.size()];
+        for (int channel = 0; channel < blocks.length; channel++) {
+            blocks[channel] = channels.get(channel).build(positionCount);
+        }
+        Page page = new Page(positionCount, blocks);
+        positionCount = 0;
+        return page;
+    }
+
+    private enum Encoding
+    {
+        NONE, DICTIONARY, RUN_LENGTH, FLAT
+    }
+
+    private static class ChannelBuilder
+    {
+        private final Type type;
+
+        private Encoding encoding = Encoding.NONE;
+        private Block dictionary;
+        private final IntArrayList ids = new IntArrayList();
+        private Block value;
+        private BlockBuilder blockBuilder;
+
+        public ChannelBuilder(Type type)
+        {
+            this.type = requireNonNull(type, "type is null");
+        }
+
+        public void appendPositions(Block block, int[] positions, int length, int appendedPositions, int maxPageSizeInBytes)
+        {
+            if (encoding == Encoding.NONE) {
+                if (block instanceof DictionaryBlock && isShareable(((DictionaryBlock) block).getDictionary(), block.getPositionCount(), maxPageSizeInBytes)) {
+                    encoding = Encoding.DICTIONARY;
+                    dictionary = ((DictionaryBlock) block).getDictionary();
+                }
+                else if (block instanceof RunLengthEncodedBlock) {
+                    encoding = Encoding.RUN_LENGTH;
+                    value = ((RunLengthEncodedBlock) block).getValue();
+                }
+                else {
+                    encoding = Encoding.FLAT;
+                }
+            }
+
+            if (encoding == Encoding.DICTIONARY && block instanceof DictionaryBlock && ((DictionaryBlock) block).getDictionary() == dictionary) {
+                DictionaryBlock dictionaryBlock = (DictionaryBlock) block;
+                for (int i = 0; i < length; i++) {
+                    ids.add(dictionaryBlock.getId(positions[i]));
+                }
+                return;
+            }
+            if (encoding == Encoding.RUN_LENGTH && block instanceof RunLengthEncodedBlock && isSameValue(((RunLengthEncodedBlock) block).getValue())) {
+                return;
+            }
+
+            flatten(appendedPositions);
+            for (int i = 0; i < length; i++) {
+                type.appendTo(block, positions[i], blockBuilder);
+            }
+        }
+
+        public Block build(int positionCount)
+        {
+            Block block;
+            switch (encoding) {
+                case NONE:
+                    block = type.createBlockBuilder(null, 0).build();
+                    break;
+                case DICTIONARY:
+                    block = new DictionaryBlock(positionCount, dictionary, ids.toIntArray());
+                    break;
+                case RUN_LENGTH:
+                    block = new RunLengthEncodedBlock(value, positionCount);
+                    break;
+                case FLAT:
+                    block = blockBuilder.build();
+                    blockBuilder = blockBuilder.newBlockBuilderLike(null);
+                    break;
+                default:
+                    throw new UnsupportedOperationException("Unsupported encoding: " + encoding);
+            }
+            encoding = Encoding.NONE;
+            dictionary = null;
+            value = null;
+            ids.clear();
+            return block;
+        }
+
+        public long getSizeInBytes()
+        {
+            switch (encoding) {
+                case DICTIONARY:
+                    return (long) ids.size() * Integer.BYTES;
+                case RUN_LENGTH:
+                    return value.getSizeInBytes();
+                case FLAT:
+                    return blockBuilder.getSizeInBytes();
+                default:
+                    return 0;
+            }
+        }
+
+        public long getRetainedSizeInBytes()
+        {
+            long retainedSizeInBytes = sizeOf(ids.elements());
+            if (blockBuilder != null) {
+                retainedSizeInBytes += blockBuilder.getRetainedSizeInBytes();
+            }
+            if (value != null) {
+                retainedSizeInBytes += value.getRetainedSizeInBytes();
+            }
+            return retainedSizeInBytes;
+        }
+
+        /**
+         * Copies the positions appended so far into a block builder.
+         */
+        private void flatten(int appendedPositions)
+        {
+            if (blockBuilder == null) {
+                blockBuilder = type.createBlockBuilder(null, appendedPositions);
+            }
+            if (encoding == Encoding.DICTIONARY) {
+                for (int i = 0; i < ids.size(); i++) {
+                    type.appendTo(dictionary, ids.getInt(i), blockBuilder);
+                }
+            }
+            else if (encoding == Encoding.RUN_LENGTH) {
+                for (int i = 0; i < appendedPositions; i++) {
+                    type.appendTo(value, 0, blockBuilder);
+                }
+            }
+            encoding = Encoding.FLAT;
+            dictionary = null;
+            value = null;
+            ids.clear();
+        }
+
+        private boolean isSameValue(Block other)
+        {
+            // the values of constants are shared by all pages, and null values are equal
+            return other == value || (other.isNull(0) && value.isNull(0));
+        }
+
+        /**
+         * A dictionary is worth sharing if it is not larger than the block that uses it,
+         * which is not the case for the dictionaries that only filter out positions.
+         */
+        private static boolean isShareable(Block dictionary, int positionCount, int maxPageSizeInBytes)
+        {
+            return dictionary.getPositionCount() > 0 &&
+                    dictionary.getPositionCount() <= positionCount &&
+                    dictionary.getSizeInBytes() <= maxPageSizeInBytes;
+        }
+    }
+}
@@ -22,6 +22,7 @@ import io.airlift.units.DataSize;
 import io.airlift.units.Duration;
 import io.prestosql.execution.buffer.PageCodecMarker;
 import io.prestosql.execution.buffer.SerializedPage;
+import io.prestosql.execution.buffer.SharedDictionaries;
 import io.prestosql.memory.context.LocalMemoryContext;
 import io.prestosql.operator.HttpPageBufferClient.ClientCallback;
 import io.prestosql.operator.WorkProcessor.ProcessState;
@@ -34,8 +35,11 @@ import java.io.Closeable;
 import java.net.URI;
 import java.util.ArrayList;
 import java.util.Deque;
+import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
@@ -49,6 +53,7 @@ import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.base.Throwables.throwIfUnchecked;
 import static com.google.common.collect.Sets.newConcurrentHashSet;
 import static io.airlift.slice.Slices.EMPTY_SLICE;
+import static io.airlift.units.DataSize.Unit.BYTE;
 import static java.util.Objects.requireNonNull;
 
 @ThreadSafe
@@ -75,6 +80,8 @@ public class ExchangeClient
 
     private final Set<HttpPageBufferClient> completedClients = newConcurrentHashSet();
     private final LinkedBlockingDeque<SerializedPage> pageBuffer = new LinkedBlockingDeque<>();
+    // the dictionaries shared by the sources are defined and released by pages that bypass the page buffer
+    private final SharedDictionaries sharedDictionaries = new SharedDictionaries();
 
     @GuardedBy("this")
     private final List<SettableFuture<?>> blockedCallers = new ArrayList<>();
@@ -88,11 +95,18 @@ public class ExchangeClient
     @GuardedBy("this")
     private long averageBytesPerRequest;
 
+    // the buffer space granted to the streams in flight, which is not used by their pages yet
+    @GuardedBy("this")
+    private final Map<HttpPageBufferClient, Long> streamCredits = new HashMap<>();
+    @GuardedBy("this")
+    private long grantedCreditInBytes;
+
     private final AtomicBoolean closed = new AtomicBoolean();
     private final AtomicReference<Throwable> failure = new AtomicReference<>();
 
     private final LocalMemoryContext systemMemoryContext;
     private final Executor pageBufferClientCallbackExecutor;
+    private final Optional<Executor> streamExecutor;
 
     // ExchangeClientStatus.mergeWith assumes all clients have the same bufferCapacity.
     // Please change that method accordingly when this assumption becomes not true.
@@ -106,6 +120,21 @@ public class ExchangeClient
             ScheduledExecutorService scheduler,
             LocalMemoryContext systemMemoryContext,
             Executor pageBufferClientCallbackExecutor)
+    {
+        this(bufferCapacity, maxResponseSize, concurrentRequestMultiplier, maxErrorDuration, acknowledgePages, httpClient, scheduler, systemMemoryContext, pageBufferClientCallbackExecutor, Optional.empty());
+    }
+
+    public ExchangeClient(
+            DataSize bufferCapacity,
+            DataSize maxResponseSize,
+            int concurrentRequestMultiplier,
+            Duration maxErrorDuration,
+            boolean acknowledgePages,
+            HttpClient httpClient,
+            ScheduledExecutorService scheduler,
+            LocalMemoryContext systemMemoryContext,
+            Executor pageBufferClientCallbackExecutor,
+            Optional<Executor> streamExecutor)
     {
         this.bufferCapacity = bufferCapacity.toBytes();
         this.maxResponseSize = maxResponseSize;
@@ -117,6 +146,7 @@ public class ExchangeClient
         this.systemMemoryContext = systemMemoryContext;
         this.maxBufferRetainedSizeInBytes = Long.MIN_VALUE;
         this.pageBufferClientCallbackExecutor = requireNonNull(pageBufferClientCallbackExecutor, "pageBufferClientCallbackExecutor is null");
+        this.streamExecutor = requireNonNull(streamExecutor, "streamExecutor is null");
     }
 
     public ExchangeClientStatus getStatus()
@@ -138,6 +168,11 @@ public class ExchangeClient
         }
     }
 
+    public SharedDictionaries getSharedDictionaries()
+    {
+        return sharedDictionaries;
+    }
+
     public synchronized void addLocation(URI location)
     {
         requireNonNull(location, "location is null");
@@ -163,6 +198,7 @@ public class ExchangeClient
                 location,
                 new ExchangeClientCallback(),
                 scheduler,
+                streamExecutor,
                 pageBufferClientCallbackExecutor);
         allClients.put(location, client);
         queuedClients.add(client);
@@ -217,6 +253,12 @@ public class ExchangeClient
         checkState(!Thread.holdsLock(this), "Can not get next page while holding a lock on this");
 
         if (page == null) {
+            synchronized (this) {
+                if (!closed.get()) {
+                    // the shared dictionaries shrink as the pages polled before are read
+                    systemMemoryContext.setBytes(bufferRetainedSizeInBytes + sharedDictionaries.getRetainedSizeInBytes());
+                }
+            }
             return null;
         }
 
@@ -233,7 +275,7 @@ public class ExchangeClient
         synchronized (this) {
             if (!closed.get()) {
                 bufferRetainedSizeInBytes -= page.getRetainedSizeInBytes();
-                systemMemoryContext.setBytes(bufferRetainedSizeInBytes);
+                systemMemoryContext.setBytes(bufferRetainedSizeInBytes + sharedDictionaries.getRetainedSizeInBytes());
                 if (pageBuffer.peek() == NO_MORE_PAGES) {
                     close();
                 }
@@ -292,6 +334,11 @@ public class ExchangeClient
             return;
         }
 
+        if (streamExecutor.isPresent()) {
+            scheduleStreamsIfNecessary();
+            return;
+        }
+
         long neededBytes = bufferCapacity - bufferRetainedSizeInBytes;
         if (neededBytes <= 0) {
             return;
@@ -313,6 +360,53 @@ public class ExchangeClient
         }
     }
 
+    @GuardedBy("this")
+    private void scheduleStreamsIfNecessary()
+    {
+        // Every stream is granted buffer space that is neither used nor granted to another
+        // stream, so the pages in flight can always be buffered. The credit granted to a stream
+        // is returned, less the pages it delivered, when the stream completes.
+        long availableBytes = bufferCapacity - bufferRetainedSizeInBytes - grantedCreditInBytes;
+        if (availableBytes <= 0 || queuedClients.isEmpty()) {
+            return;
+        }
+
+        // Like a request, a stream is granted about the size of a few results rather than a share
+        // of the whole buffer, so a wide exchange reads from all its sources at once, and a source
+        // without pages holds little space. Until the size of the results is known, the available
+        // space is shared by the queued sources.
+        long creditInBytes = averageBytesPerRequest > 0 ? averageBytesPerRequest * concurrentRequestMultiplier : availableBytes / queuedClients.size();
+        creditInBytes = Math.max(Math.min(creditInBytes, maxResponseSize.toBytes()), 1);
+        while (!queuedClients.isEmpty() && availableBytes > 0) {
+            long streamCreditInBytes = Math.min(creditInBytes, availableBytes);
+            HttpPageBufferClient client = queuedClients.poll();
+            streamCredits.put(client, streamCreditInBytes);
+            grantedCreditInBytes += streamCreditInBytes;
+            availableBytes -= streamCreditInBytes;
+            client.scheduleRequest(new DataSize(streamCreditInBytes, BYTE));
+        }
+    }
+
+    @GuardedBy("this")
+    private void consumeCredit(HttpPageBufferClient client, long bytes)
+    {
+        Long creditInBytes = streamCredits.get(client);
+        if (creditInBytes != null) {
+            long consumedBytes = Math.min(creditInBytes, bytes);
+            streamCredits.put(client, creditInBytes - consumedBytes);
+            grantedCreditInBytes -= consumedBytes;
+        }
+    }
+
+    @GuardedBy("this")
+    private void releaseCredit(HttpPageBufferClient client)
+    {
+        Long creditInBytes = streamCredits.remove(client);
+        if (creditInBytes != null) {
+            grantedCreditInBytes -= creditInBytes;
+        }
+    }
+
     public synchronized ListenableFuture<?> isBlocked()
     {
         if (isClosed() || isFailed() || pageBuffer.peek() != null) {
@@ -323,26 +417,42 @@ public class ExchangeClient
         return future;
     }
 
-    private synchronized boolean addPages(List<SerializedPage> pages)
+    private synchronized boolean addPages(HttpPageBufferClient client, List<SerializedPage> pages)
     {
+        consumeCredit(client, pages.stream()
+                .mapToLong(SerializedPage::getRetainedSizeInBytes)
+                .sum());
+
         if (isClosed() || isFailed()) {
             return false;
         }
 
-        pageBuffer.addAll(pages);
+        // pages of a source are added in order, so a shared dictionary is added before the pages referencing it can be polled
+        ImmutableList.Builder<SerializedPage> dataPages = ImmutableList.builder();
+        for (SerializedPage page : pages) {
+            if (page.isSharedDictionaryPage()) {
+                sharedDictionaries.addPage(page);
+            }
+            else {
+                dataPages.add(page);
+            }
+        }
+        List<SerializedPage> bufferedPages = dataPages.build();
+
+        pageBuffer.addAll(bufferedPages);
 
-        if (!pages.isEmpty()) {
+        if (!bufferedPages.isEmpty()) {
             // notify all blocked callers
             notifyBlockedCallers();
         }
 
-        long pagesRetainedSizeInBytes = pages.stream()
+        long pagesRetainedSizeInBytes = bufferedPages.stream()
                 .mapToLong(SerializedPage::getRetainedSizeInBytes)
                 .sum();
 
         bufferRetainedSizeInBytes += pagesRetainedSizeInBytes;
         maxBufferRetainedSizeInBytes = Math.max(maxBufferRetainedSizeInBytes, bufferRetainedSizeInBytes);
-        systemMemoryContext.setBytes(bufferRetainedSizeInBytes);
+        systemMemoryContext.setBytes(bufferRetainedSizeInBytes + sharedDictionaries.getRetainedSizeInBytes());
         successfulRequests++;
 
         long responseSize = pages.stream()
@@ -366,6 +476,7 @@ public class ExchangeClient
 
     private synchronized void requestComplete(HttpPageBufferClient client)
     {
+        releaseCredit(client);
         if (!queuedClients.contains(client)) {
             queuedClients.add(client);
         }
@@ -375,12 +486,14 @@ public class ExchangeClient
     private synchronized void clientFinished(HttpPageBufferClient client)
     {
         requireNonNull(client, "client is null");
+        releaseCredit(client);
         completedClients.add(client);
         scheduleRequestIfNecessary();
     }
 
-    private synchronized void clientFailed(Throwable cause)
+    private synchronized void clientFailed(HttpPageBufferClient client, Throwable cause)
     {
+        releaseCredit(client);
         // TODO: properly handle the failed vs closed state
         // it is important not to treat failures as a successful close
         if (!isClosed()) {
@@ -411,7 +524,7 @@ public class ExchangeClient
         {
             requireNonNull(client, "client is null");
             requireNonNull(pages, "pages is null");
-            return ExchangeClient.this.addPages(pages);
+            return ExchangeClient.this.addPages(client, pages);
         }
 
         @Override
@@ -432,7 +545,7 @@ public class ExchangeClient
         {
             requireNonNull(client, "client is null");
             requireNonNull(cause, "cause is null");
-            ExchangeClient.this.clientFailed(cause);
+            ExchangeClient.this.clientFailed(client, cause);
         }
     }
 
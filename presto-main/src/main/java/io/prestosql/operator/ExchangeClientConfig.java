@@ -14,6 +14,7 @@
 package io.prestosql.operator;
 
 import io.airlift.configuration.Config;
+import io.airlift.configuration.ConfigDescription;
 import io.airlift.http.client.HttpClientConfig;
 import io.airlift.units.DataSize;
 import io.airlift.units.DataSize.Unit;
@@ -36,6 +37,8 @@ public class ExchangeClientConfig
     private int clientThreads = 25;
     private int pageBufferClientMaxCallbackThreads = 25;
     private boolean acknowledgePages = true;
+    private boolean streamingEnabled;
+    private int streamClientThreads = 100;
 
     @NotNull
     public DataSize getMaxBufferSize()
@@ -141,4 +144,30 @@ public class ExchangeClientConfig
         this.acknowledgePages = acknowledgePages;
         return this;
     }
+
+    public boolean isStreamingEnabled()
+    {
+        return streamingEnabled;
+    }
+
+    @Config("exchange.streaming-enabled")
+    public ExchangeClientConfig setStreamingEnabled(boolean streamingEnabled)
+    {
+        this.streamingEnabled = streamingEnabled;
+        return this;
+    }
+
+    @Min(1)
+    public int getStreamClientThreads()
+    {
+        return streamClientThreads;
+    }
+
+    @Config("exchange.stream-client-threads")
+    @ConfigDescription("Maximum number of threads reading streamed pages")
+    public ExchangeClientConfig setStreamClientThreads(int streamClientThreads)
+    {
+        this.streamClientThreads = streamClientThreads;
+        return this;
+    }
 }
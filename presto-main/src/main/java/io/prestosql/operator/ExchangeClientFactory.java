@@ -24,8 +24,10 @@ import org.weakref.jmx.Nested;
 import javax.annotation.PreDestroy;
 import javax.inject.Inject;
 
+import java.util.Optional;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.SynchronousQueue;
 import java.util.concurrent.ThreadPoolExecutor;
 
 import static com.google.common.base.Preconditions.checkArgument;
@@ -33,6 +35,7 @@ import static io.airlift.concurrent.Threads.daemonThreadsNamed;
 import static io.airlift.units.DataSize.Unit.BYTE;
 import static java.util.Objects.requireNonNull;
 import static java.util.concurrent.Executors.newFixedThreadPool;
+import static java.util.concurrent.TimeUnit.SECONDS;
 
 public class ExchangeClientFactory
         implements ExchangeClientSupplier
@@ -46,6 +49,10 @@ public class ExchangeClientFactory
     private final ScheduledExecutorService scheduler;
     private final ThreadPoolExecutorMBean executorMBean;
     private final ExecutorService pageBufferClientCallbackExecutor;
+    // every stream blocks a thread while it is read, so the pool rejects the streams it has no thread for
+    private final ThreadPoolExecutor streamExecutor;
+    private final ThreadPoolExecutorMBean streamExecutorMBean;
+    private final boolean streamingEnabled;
 
     @Inject
     public ExchangeClientFactory(
@@ -60,6 +67,8 @@ public class ExchangeClientFactory
                 config.getMaxErrorDuration(),
                 config.isAcknowledgePages(),
                 config.getPageBufferClientMaxCallbackThreads(),
+                config.isStreamingEnabled(),
+                config.getStreamClientThreads(),
                 httpClient,
                 scheduler);
     }
@@ -73,6 +82,21 @@ public class ExchangeClientFactory
             int pageBufferClientMaxCallbackThreads,
             HttpClient httpClient,
             ScheduledExecutorService scheduler)
+    {
+        this(maxBufferedBytes, maxResponseSize, concurrentRequestMultiplier, maxErrorDuration, acknowledgePages, pageBufferClientMaxCallbackThreads, false, 1, httpClient, scheduler);
+    }
+
+    public ExchangeClientFactory(
+            DataSize maxBufferedBytes,
+            DataSize maxResponseSize,
+            int concurrentRequestMultiplier,
+            Duration maxErrorDuration,
+            boolean acknowledgePages,
+            int pageBufferClientMaxCallbackThreads,
+            boolean streamingEnabled,
+            int streamClientThreads,
+            HttpClient httpClient,
+            ScheduledExecutorService scheduler)
     {
         this.maxBufferedBytes = requireNonNull(maxBufferedBytes, "maxBufferedBytes is null");
         this.concurrentRequestMultiplier = concurrentRequestMultiplier;
@@ -90,6 +114,11 @@ public class ExchangeClientFactory
 
         this.pageBufferClientCallbackExecutor = newFixedThreadPool(pageBufferClientMaxCallbackThreads, daemonThreadsNamed("page-buffer-client-callback-%s"));
         this.executorMBean = new ThreadPoolExecutorMBean((ThreadPoolExecutor) pageBufferClientCallbackExecutor);
+        // the threads are only started for streams, so the pool costs nothing while streaming is disabled
+        checkArgument(streamClientThreads > 0, "streamClientThreads must be at least 1: %s", streamClientThreads);
+        this.streamingEnabled = streamingEnabled;
+        this.streamExecutor = new ThreadPoolExecutor(0, streamClientThreads, 60, SECONDS, new SynchronousQueue<>(), daemonThreadsNamed("exchange-stream-%s"));
+        this.streamExecutorMBean = new ThreadPoolExecutorMBean(streamExecutor);
 
         checkArgument(maxBufferedBytes.toBytes() > 0, "maxBufferSize must be at least 1 byte: %s", maxBufferedBytes);
         checkArgument(maxResponseSize.toBytes() > 0, "maxResponseSize must be at least 1 byte: %s", maxResponseSize);
@@ -100,6 +129,7 @@ public class ExchangeClientFactory
     public void stop()
     {
         pageBufferClientCallbackExecutor.shutdownNow();
+        streamExecutor.shutdownNow();
     }
 
     @Managed
@@ -109,6 +139,13 @@ public class ExchangeClientFactory
         return executorMBean;
     }
 
+    @Managed
+    @Nested
+    public ThreadPoolExecutorMBean getStreamExecutor()
+    {
+        return streamExecutorMBean;
+    }
+
     @Override
     public ExchangeClient get(LocalMemoryContext systemMemoryContext)
     {
@@ -121,6 +158,7 @@ public class ExchangeClientFactory
                 httpClient,
                 scheduler,
                 systemMemoryContext,
-                pageBufferClientCallbackExecutor);
+                pageBufferClientCallbackExecutor,
+                streamingEnabled ? Optional.of(streamExecutor) : Optional.empty());
     }
 }
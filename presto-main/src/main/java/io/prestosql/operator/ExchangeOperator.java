@@ -182,7 +182,7 @@ public class ExchangeOperator
 
         operatorContext.recordNetworkInput(page.getSizeInBytes(), page.getPositionCount());
 
-        Page deserializedPage = serde.deserialize(page);
+        Page deserializedPage = serde.deserialize(page, exchangeClient.getSharedDictionaries());
         operatorContext.recordProcessedInput(deserializedPage.getSizeInBytes(), page.getPositionCount());
 
         return deserializedPage;
@@ -17,13 +17,17 @@ import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.AbstractIterator;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Ordering;
+import io.prestosql.array.IntBigArray;
+import io.prestosql.array.LongBigArray;
 import io.prestosql.array.ObjectBigArray;
 import io.prestosql.spi.Page;
 import io.prestosql.spi.PageBuilder;
 import io.prestosql.spi.block.Block;
 import io.prestosql.spi.type.Type;
+import it.unimi.dsi.fastutil.ints.AbstractIntIterator;
 import it.unimi.dsi.fastutil.ints.IntArrayFIFOQueue;
 import it.unimi.dsi.fastutil.ints.IntIterator;
+import it.unimi.dsi.fastutil.ints.IntIterators;
 import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
 import it.unimi.dsi.fastutil.ints.IntSet;
 import it.unimi.dsi.fastutil.objects.ObjectHeapPriorityQueue;
@@ -104,7 +108,51 @@ public class GroupedTopNBuilder
 
     public Iterator<Page> buildResult()
     {
-        return new ResultIterator();
+        return new ResultIterator(IntIterators.fromTo(0, groupByHash.getGroupCount()), produceRowNumber);
+    }
+
+    /**
+     * Returns the rows of all groups without row numbers. The groups are ordered by the hash of their
+     * rows computed by {@param hashGenerator}, so results of multiple builders can be merged with {@link MergeHashSort}.
+     */
+    public Iterator<Page> buildHashSortedResult(HashGenerator hashGenerator)
+    {
+        int groupCount = groupByHash.getGroupCount();
+        LongBigArray groupHashes = new LongBigArray();
+        groupHashes.ensureCapacity(groupCount);
+        IntBigArray groupIds = new IntBigArray();
+        groupIds.ensureCapacity(groupCount);
+        for (int groupId = 0; groupId < groupCount; groupId++) {
+            // all rows of a group have the same hash
+            Row row = groupedRows.get(groupId).first();
+            groupHashes.set(groupId, hashGenerator.hashPosition(row.getPosition(), pageReferences.get(row.getPageId()).getPage()));
+            groupIds.set(groupId, groupId);
+        }
+        groupIds.sort(0, groupCount, (leftGroupId, rightGroupId) -> Long.compare(groupHashes.get(leftGroupId), groupHashes.get(rightGroupId)));
+
+        return new ResultIterator(
+                new AbstractIntIterator()
+                {
+                    private int position;
+
+                    @Override
+                    public boolean hasNext()
+                    {
+                        return position < groupCount;
+                    }
+
+                    @Override
+                    public int nextInt()
+                    {
+                        return groupIds.get(position++);
+                    }
+                },
+                false);
+    }
+
+    public boolean isEmpty()
+    {
+        return groupByHash.getGroupCount() == 0;
     }
 
     public long getEstimatedSizeInBytes()
@@ -390,10 +438,10 @@ public class GroupedTopNBuilder
             extends AbstractIterator<Page>
     {
         private final PageBuilder pageBuilder;
+        private final boolean produceRowNumber;
         // we may have 0 groups if there is no input page processed
-        private final int groupCount = groupByHash.getGroupCount();
+        private final IntIterator groupIds;
 
-        private int currentGroupNumber;
         private long currentGroupSizeInBytes;
 
         // the row number of the current position in the group
@@ -401,10 +449,13 @@ public class GroupedTopNBuilder
         // number of rows in the group
         private int currentGroupSize;
 
-        private ObjectBigArray<Row> currentRows = nextGroupedRows();
+        private ObjectBigArray<Row> currentRows;
 
-        ResultIterator()
+        ResultIterator(IntIterator groupIds, boolean produceRowNumber)
         {
+            this.groupIds = requireNonNull(groupIds, "groupIds is null");
+            this.produceRowNumber = produceRowNumber;
+            this.currentRows = nextGroupedRows();
             if (produceRowNumber) {
                 pageBuilder = new PageBuilder(new ImmutableList.Builder<Type>().addAll(sourceTypes).add(BIGINT).build());
             }
@@ -458,12 +509,12 @@ public class GroupedTopNBuilder
 
         private ObjectBigArray<Row> nextGroupedRows()
         {
-            if (currentGroupNumber < groupCount) {
-                RowHeap rows = groupedRows.get(currentGroupNumber);
+            if (groupIds.hasNext()) {
+                int groupId = groupIds.nextInt();
+                RowHeap rows = groupedRows.get(groupId);
                 verify(rows != null && !rows.isEmpty(), "impossible to have inserted a group without a witness row");
-                groupedRows.set(currentGroupNumber, null);
+                groupedRows.set(groupId, null);
                 currentGroupSizeInBytes = rows.getEstimatedSizeInBytes();
-                currentGroupNumber++;
                 currentGroupSize = rows.size();
 
                 // sort output rows in a big array in case there are too many rows
@@ -13,6 +13,8 @@
  */
 package io.prestosql.operator;
 
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableList;
 import com.google.common.util.concurrent.ListenableFuture;
@@ -20,8 +22,10 @@ import io.airlift.units.DataSize;
 import io.prestosql.memory.context.LocalMemoryContext;
 import io.prestosql.operator.aggregation.Accumulator;
 import io.prestosql.operator.aggregation.AccumulatorFactory;
+import io.prestosql.operator.aggregation.PartialAggregationController;
 import io.prestosql.operator.aggregation.builder.HashAggregationBuilder;
 import io.prestosql.operator.aggregation.builder.InMemoryHashAggregationBuilder;
+import io.prestosql.operator.aggregation.builder.SkipAggregationBuilder;
 import io.prestosql.operator.aggregation.builder.SpillableHashAggregationBuilder;
 import io.prestosql.operator.scalar.CombineHashFunction;
 import io.prestosql.spi.Page;
@@ -32,11 +36,13 @@ import io.prestosql.spiller.SpillerFactory;
 import io.prestosql.sql.gen.JoinCompiler;
 import io.prestosql.sql.planner.plan.AggregationNode.Step;
 import io.prestosql.sql.planner.plan.PlanNodeId;
+import io.prestosql.util.Mergeable;
 
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
+import static com.google.common.base.MoreObjects.toStringHelper;
 import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.base.Verify.verify;
 import static io.airlift.units.DataSize.Unit.MEGABYTE;
@@ -72,6 +78,7 @@ public class HashAggregationOperator
         private final SpillerFactory spillerFactory;
         private final JoinCompiler joinCompiler;
         private final boolean useSystemMemory;
+        private final Optional<PartialAggregationController> partialAggregationController;
 
         private boolean closed;
 
@@ -131,6 +138,46 @@ public class HashAggregationOperator
                 SpillerFactory spillerFactory,
                 JoinCompiler joinCompiler,
                 boolean useSystemMemory)
+        {
+            this(operatorId,
+                    planNodeId,
+                    groupByTypes,
+                    groupByChannels,
+                    globalAggregationGroupIds,
+                    step,
+                    produceDefaultOutput,
+                    accumulatorFactories,
+                    hashChannel,
+                    groupIdChannel,
+                    expectedGroups,
+                    maxPartialMemory,
+                    spillEnabled,
+                    unspillMemoryLimit,
+                    spillerFactory,
+                    joinCompiler,
+                    useSystemMemory,
+                    Optional.empty());
+        }
+
+        public HashAggregationOperatorFactory(
+                int operatorId,
+                PlanNodeId planNodeId,
+                List<? extends Type> groupByTypes,
+                List<Integer> groupByChannels,
+                List<Integer> globalAggregationGroupIds,
+                Step step,
+                boolean produceDefaultOutput,
+                List<AccumulatorFactory> accumulatorFactories,
+                Optional<Integer> hashChannel,
+                Optional<Integer> groupIdChannel,
+                int expectedGroups,
+                Optional<DataSize> maxPartialMemory,
+                boolean spillEnabled,
+                DataSize unspillMemoryLimit,
+                SpillerFactory spillerFactory,
+                JoinCompiler joinCompiler,
+                boolean useSystemMemory,
+                Optional<PartialAggregationController> partialAggregationController)
         {
             this(operatorId,
                     planNodeId,
@@ -149,7 +196,8 @@ public class HashAggregationOperator
                     DataSize.succinctBytes((long) (unspillMemoryLimit.toBytes() * MERGE_WITH_MEMORY_RATIO)),
                     spillerFactory,
                     joinCompiler,
-                    useSystemMemory);
+                    useSystemMemory,
+                    partialAggregationController);
         }
 
         @VisibleForTesting
@@ -172,6 +220,49 @@ public class HashAggregationOperator
                 SpillerFactory spillerFactory,
                 JoinCompiler joinCompiler,
                 boolean useSystemMemory)
+        {
+            this(operatorId,
+                    planNodeId,
+                    groupByTypes,
+                    groupByChannels,
+                    globalAggregationGroupIds,
+                    step,
+                    produceDefaultOutput,
+                    accumulatorFactories,
+                    hashChannel,
+                    groupIdChannel,
+                    expectedGroups,
+                    maxPartialMemory,
+                    spillEnabled,
+                    memoryLimitForMerge,
+                    memoryLimitForMergeWithMemory,
+                    spillerFactory,
+                    joinCompiler,
+                    useSystemMemory,
+                    Optional.empty());
+        }
+
+        @VisibleForTesting
+        HashAggregationOperatorFactory(
+                int operatorId,
+                PlanNodeId planNodeId,
+                List<? extends Type> groupByTypes,
+                List<Integer> groupByChannels,
+                List<Integer> globalAggregationGroupIds,
+                Step step,
+                boolean produceDefaultOutput,
+                List<AccumulatorFactory> accumulatorFactories,
+                Optional<Integer> hashChannel,
+                Optional<Integer> groupIdChannel,
+                int expectedGroups,
+                Optional<DataSize> maxPartialMemory,
+                boolean spillEnabled,
+                DataSize memoryLimitForMerge,
+                DataSize memoryLimitForMergeWithMemory,
+                SpillerFactory spillerFactory,
+                JoinCompiler joinCompiler,
+                boolean useSystemMemory,
+                Optional<PartialAggregationController> partialAggregationController)
         {
             this.operatorId = operatorId;
             this.planNodeId = requireNonNull(planNodeId, "planNodeId is null");
@@ -191,6 +282,7 @@ public class HashAggregationOperator
             this.spillerFactory = requireNonNull(spillerFactory, "spillerFactory is null");
             this.joinCompiler = requireNonNull(joinCompiler, "joinCompiler is null");
             this.useSystemMemory = useSystemMemory;
+            this.partialAggregationController = requireNonNull(partialAggregationController, "partialAggregationController is null");
         }
 
         @Override
@@ -216,7 +308,8 @@ public class HashAggregationOperator
                     memoryLimitForMergeWithMemory,
                     spillerFactory,
                     joinCompiler,
-                    useSystemMemory);
+                    useSystemMemory,
+                    partialAggregationController);
             return hashAggregationOperator;
         }
 
@@ -247,7 +340,8 @@ public class HashAggregationOperator
                     memoryLimitForMergeWithMemory,
                     spillerFactory,
                     joinCompiler,
-                    useSystemMemory);
+                    useSystemMemory,
+                    partialAggregationController);
         }
     }
 
@@ -268,10 +362,15 @@ public class HashAggregationOperator
     private final SpillerFactory spillerFactory;
     private final JoinCompiler joinCompiler;
     private final boolean useSystemMemory;
+    private final Optional<PartialAggregationController> partialAggregationController;
 
     private final List<Type> types;
     private final HashCollisionsCounter hashCollisionsCounter;
 
+    // rows added to the current in memory partial aggregation builder
+    private long partialAggregationInputRows;
+    private long passThroughPositions;
+
     private HashAggregationBuilder aggregationBuilder;
     private LocalMemoryContext memoryContext;
     private WorkProcessor<Page> outputPages;
@@ -299,7 +398,8 @@ public class HashAggregationOperator
             DataSize memoryLimitForMergeWithMemory,
             SpillerFactory spillerFactory,
             JoinCompiler joinCompiler,
-            boolean useSystemMemory)
+            boolean useSystemMemory,
+            Optional<PartialAggregationController> partialAggregationController)
     {
         this.operatorContext = requireNonNull(operatorContext, "operatorContext is null");
         requireNonNull(step, "step is null");
@@ -323,8 +423,9 @@ public class HashAggregationOperator
         this.spillerFactory = requireNonNull(spillerFactory, "spillerFactory is null");
         this.joinCompiler = requireNonNull(joinCompiler, "joinCompiler is null");
         this.hashCollisionsCounter = new HashCollisionsCounter(operatorContext);
-        operatorContext.setInfoSupplier(hashCollisionsCounter);
         this.useSystemMemory = useSystemMemory;
+        this.partialAggregationController = requireNonNull(partialAggregationController, "partialAggregationController is null");
+        operatorContext.setInfoSupplier(this::getInfo);
 
         this.memoryContext = operatorContext.localUserMemoryContext();
         if (useSystemMemory) {
@@ -374,7 +475,11 @@ public class HashAggregationOperator
 
         if (aggregationBuilder == null) {
             // TODO: We ignore spillEnabled here if any aggregate has ORDER BY clause or DISTINCT because they are not yet implemented for spilling.
-            if (step.isOutputPartial() || !spillEnabled || hasOrderBy() || hasDistinct()) {
+            if (isPartialAggregationDisabled()) {
+                aggregationBuilder = new SkipAggregationBuilder(groupByChannels, hashChannel, accumulatorFactories);
+            }
+            else if (step.isOutputPartial() || !spillEnabled || hasOrderBy() || hasDistinct()) {
+                partialAggregationInputRows = 0;
                 aggregationBuilder = new InMemoryHashAggregationBuilder(
                         accumulatorFactories,
                         step,
@@ -416,6 +521,13 @@ public class HashAggregationOperator
             checkState(!aggregationBuilder.isFull(), "Aggregation buffer is full");
         }
 
+        if (aggregationBuilder instanceof SkipAggregationBuilder) {
+            passThroughPositions += page.getPositionCount();
+        }
+        else {
+            partialAggregationInputRows += page.getPositionCount();
+        }
+
         // process the current page; save the unfinished work if we are waiting for memory
         unfinishedWork = aggregationBuilder.processPage(page);
         if (unfinishedWork.process()) {
@@ -424,6 +536,15 @@ public class HashAggregationOperator
         aggregationBuilder.updateMemory();
     }
 
+    private boolean isPartialAggregationDisabled()
+    {
+        // ORDER BY and DISTINCT aggregations can not produce intermediate state for a single row
+        return partialAggregationController.isPresent() &&
+                partialAggregationController.get().isPartialAggregationDisabled() &&
+                !hasOrderBy() &&
+                !hasDistinct();
+    }
+
     private boolean hasOrderBy()
     {
         return accumulatorFactories.stream().anyMatch(AccumulatorFactory::hasOrderBy);
@@ -487,6 +608,11 @@ public class HashAggregationOperator
                 return null;
             }
 
+            if (partialAggregationController.isPresent() && aggregationBuilder instanceof InMemoryHashAggregationBuilder) {
+                partialAggregationController.get().onFlush(
+                        partialAggregationInputRows,
+                        ((InMemoryHashAggregationBuilder) aggregationBuilder).getGroupCount());
+            }
             outputPages = aggregationBuilder.buildResult();
         }
 
@@ -527,6 +653,14 @@ public class HashAggregationOperator
         memoryContext.setBytes(0);
     }
 
+    private HashAggregationInfo getInfo()
+    {
+        return new HashAggregationInfo(
+                hashCollisionsCounter.get(),
+                passThroughPositions,
+                partialAggregationController.map(PartialAggregationController::isPartialAggregationDisabled).orElse(false));
+    }
+
     private Page getGlobalAggregationOutput()
     {
         List<Accumulator> accumulators = accumulatorFactories.stream()
@@ -585,4 +719,64 @@ public class HashAggregationOperator
         }
         return result;
     }
+
+    public static class HashAggregationInfo
+            implements Mergeable<HashAggregationInfo>, OperatorInfo
+    {
+        private final HashCollisionsInfo hashCollisionsInfo;
+        private final long passThroughPositions;
+        private final boolean partialAggregationDisabled;
+
+        @JsonCreator
+        public HashAggregationInfo(
+                @JsonProperty("hashCollisionsInfo") HashCollisionsInfo hashCollisionsInfo,
+                @JsonProperty("passThroughPositions") long passThroughPositions,
+                @JsonProperty("partialAggregationDisabled") boolean partialAggregationDisabled)
+        {
+            this.hashCollisionsInfo = requireNonNull(hashCollisionsInfo, "hashCollisionsInfo is null");
+            this.passThroughPositions = passThroughPositions;
+            this.partialAggregationDisabled = partialAggregationDisabled;
+        }
+
+        @JsonProperty
+        public HashCollisionsInfo getHashCollisionsInfo()
+        {
+            return hashCollisionsInfo;
+        }
+
+        /**
+         * Number of input rows that were passed through without being aggregated,
+         * because partial aggregation did not reduce the number of rows.
+         */
+        @JsonProperty
+        public long getPassThroughPositions()
+        {
+            return passThroughPositions;
+        }
+
+        @JsonProperty
+        public boolean isPartialAggregationDisabled()
+        {
+            return partialAggregationDisabled;
+        }
+
+        @Override
+        public HashAggregationInfo mergeWith(HashAggregationInfo other)
+        {
+            return new HashAggregationInfo(
+                    hashCollisionsInfo.mergeWith(other.hashCollisionsInfo),
+                    passThroughPositions + other.passThroughPositions,
+                    partialAggregationDisabled || other.partialAggregationDisabled);
+        }
+
+        @Override
+        public String toString()
+        {
+            return toStringHelper(this)
+                    .add("hashCollisionsInfo", hashCollisionsInfo)
+                    .add("passThroughPositions", passThroughPositions)
+                    .add("partialAggregationDisabled", partialAggregationDisabled)
+                    .toString();
+        }
+    }
 }
@@ -14,12 +14,14 @@
 package io.prestosql.operator;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterators;
 import com.google.common.util.concurrent.ListenableFuture;
 import io.prestosql.Session;
 import io.prestosql.memory.context.AggregatedMemoryContext;
 import io.prestosql.memory.context.LocalMemoryContext;
 import io.prestosql.memory.context.MemoryTrackingContext;
 import io.prestosql.operator.SetBuilderOperator.SetSupplier;
+import io.prestosql.operator.WorkProcessor.ProcessState;
 import io.prestosql.operator.WorkProcessor.TransformationState;
 import io.prestosql.operator.WorkProcessorOperatorAdapter.AdapterWorkProcessorOperator;
 import io.prestosql.operator.WorkProcessorOperatorAdapter.AdapterWorkProcessorOperatorFactory;
@@ -27,19 +29,23 @@ import io.prestosql.spi.Page;
 import io.prestosql.spi.block.Block;
 import io.prestosql.spi.block.BlockBuilder;
 import io.prestosql.spi.type.Type;
+import io.prestosql.spiller.PartitioningSpiller;
 import io.prestosql.sql.planner.plan.PlanNodeId;
 
 import javax.annotation.Nullable;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
 import java.util.Optional;
+import java.util.OptionalInt;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
 import static io.airlift.concurrent.MoreFutures.checkSuccess;
-import static io.airlift.concurrent.MoreFutures.getFutureValue;
 import static io.prestosql.operator.WorkProcessor.TransformationState.blocked;
 import static io.prestosql.operator.WorkProcessor.TransformationState.finished;
+import static io.prestosql.operator.WorkProcessor.TransformationState.needsMoreData;
 import static io.prestosql.operator.WorkProcessor.TransformationState.ofResult;
 import static io.prestosql.spi.type.BigintType.BIGINT;
 import static io.prestosql.spi.type.BooleanType.BOOLEAN;
@@ -82,6 +88,12 @@ public class HashSemiJoinOperator
         public void noMoreOperators()
         {
             closed = true;
+            try {
+                setSupplier.noMoreProbeOperators();
+            }
+            catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
         }
 
         @Override
@@ -93,7 +105,7 @@ public class HashSemiJoinOperator
         @Override
         public AdapterWorkProcessorOperator create(Session session, MemoryTrackingContext memoryTrackingContext, DriverYieldSignal yieldSignal)
         {
-            return new HashSemiJoinOperator(Optional.empty(), setSupplier, probeJoinChannel, probeJoinHashChannel, memoryTrackingContext);
+            return new HashSemiJoinOperator(Optional.empty(), setSupplier, probeTypes, probeJoinChannel, probeJoinHashChannel, memoryTrackingContext);
         }
 
         @Override
@@ -117,26 +129,30 @@ public class HashSemiJoinOperator
         @Override
         public WorkProcessorOperator create(Session session, MemoryTrackingContext memoryTrackingContext, DriverYieldSignal yieldSignal, WorkProcessor<Page> sourcePages)
         {
-            return new HashSemiJoinOperator(Optional.of(sourcePages), setSupplier, probeJoinChannel, probeJoinHashChannel, memoryTrackingContext);
+            return new HashSemiJoinOperator(Optional.of(sourcePages), setSupplier, probeTypes, probeJoinChannel, probeJoinHashChannel, memoryTrackingContext);
         }
     }
 
     private final WorkProcessor<Page> pages;
     private final PageBuffer pageBuffer = new PageBuffer();
+    private final SemiJoinPages semiJoinPages;
 
     public HashSemiJoinOperator(
             Optional<WorkProcessor<Page>> sourcePages,
             SetSupplier channelSetFuture,
+            List<Type> probeTypes,
             int probeJoinChannel,
             Optional<Integer> probeHashChannel,
             MemoryTrackingContext memoryTrackingContext)
     {
+        semiJoinPages = new SemiJoinPages(
+                channelSetFuture,
+                probeTypes,
+                probeJoinChannel,
+                probeHashChannel,
+                requireNonNull(memoryTrackingContext, "memoryTrackingContext is null").aggregateUserMemoryContext());
         pages = sourcePages.orElse(pageBuffer.pages())
-                .transform(new SemiJoinPages(
-                        channelSetFuture,
-                        probeJoinChannel,
-                        probeHashChannel,
-                        requireNonNull(memoryTrackingContext, "memoryTrackingContext is null").aggregateUserMemoryContext()));
+                .transform(semiJoinPages);
     }
 
     @Override
@@ -167,47 +183,147 @@ public class HashSemiJoinOperator
     public void close()
             throws Exception
     {
+        semiJoinPages.close();
     }
 
-    private class SemiJoinPages
+    /**
+     * Joins the probe pages with the set. When the set is spilled, the probe pages are spilled with the
+     * same partitioning, and once all probe operators finished spilling, each operator joins the rows of
+     * the partitions it claims, rebuilding the set of each partition from the spilled values.
+     */
+    private static class SemiJoinPages
             implements WorkProcessor.Transformation<Page, Page>
     {
+        private final SetSupplier setSupplier;
+        private final List<Type> probeTypes;
         private final int probeJoinChannel;
-        private final ListenableFuture<ChannelSet> channelSetFuture;
+        private final ListenableFuture<?> setBuilt;
         private final Optional<Integer> probeHashChannel;
         private final LocalMemoryContext localMemoryContext;
 
         @Nullable
         private ChannelSet channelSet;
 
-        public SemiJoinPages(SetSupplier channelSetFuture, int probeJoinChannel, Optional<Integer> probeHashChannel, AggregatedMemoryContext aggregatedMemoryContext)
+        @Nullable
+        private SpilledChannelSet spilledChannelSet;
+        private Optional<PartitioningSpiller> probeSpiller = Optional.empty();
+        private ListenableFuture<?> spillInProgress;
+        private boolean probeFinished;
+        private boolean closed;
+        @Nullable
+        private WorkProcessor<Page> spilledPages;
+
+        public SemiJoinPages(SetSupplier setSupplier, List<Type> probeTypes, int probeJoinChannel, Optional<Integer> probeHashChannel, AggregatedMemoryContext aggregatedMemoryContext)
         {
             checkArgument(probeJoinChannel >= 0, "probeJoinChannel is negative");
 
-            this.channelSetFuture = requireNonNull(channelSetFuture, "hashProvider is null").getChannelSet();
+            this.setSupplier = requireNonNull(setSupplier, "hashProvider is null");
+            this.probeTypes = ImmutableList.copyOf(requireNonNull(probeTypes, "probeTypes is null"));
+            this.setBuilt = setSupplier.getSetBuilt();
             this.probeJoinChannel = probeJoinChannel;
             this.probeHashChannel = requireNonNull(probeHashChannel, "hashChannel is null");
             this.localMemoryContext = requireNonNull(aggregatedMemoryContext, "aggregatedMemoryContext is null").newLocalMemoryContext(SemiJoinPages.class.getSimpleName());
+            setSupplier.addProbeOperator();
         }
 
         @Override
         public TransformationState<Page> process(Page inputPage)
         {
+            if (channelSet == null && spilledChannelSet == null) {
+                if (!setBuilt.isDone()) {
+                    if (inputPage == null) {
+                        // no probe rows, the set is not needed
+                        finishProbe();
+                        return finished();
+                    }
+                    // This will materialize page but it shouldn't matter for the first page
+                    localMemoryContext.setBytes(inputPage.getSizeInBytes());
+                    return blocked(setBuilt);
+                }
+                checkSuccess(setBuilt, "ChannelSet building failed");
+                channelSet = setSupplier.getChannelSet().orElse(null);
+                spilledChannelSet = setSupplier.getSpilledChannelSet().orElse(null);
+                localMemoryContext.setBytes(0);
+            }
+
+            if (spilledChannelSet != null) {
+                return processSpilled(inputPage);
+            }
+
             if (inputPage == null) {
+                finishProbe();
                 return finished();
             }
+            return ofResult(semiJoin(inputPage, channelSet, channelSet.isEmpty()));
+        }
 
-            if (channelSet == null) {
-                if (!channelSetFuture.isDone()) {
-                    // This will materialize page but it shouldn't matter for the first page
-                    localMemoryContext.setBytes(inputPage.getSizeInBytes());
-                    return blocked(channelSetFuture);
+        private TransformationState<Page> processSpilled(@Nullable Page inputPage)
+        {
+            if (inputPage != null) {
+                if (spillInProgress == null) {
+                    if (!probeSpiller.isPresent()) {
+                        probeSpiller = Optional.of(spilledChannelSet.createProbeSpiller(probeTypes, probeJoinChannel));
+                    }
+                    spillInProgress = probeSpiller.get().partitionAndSpill(inputPage, partition -> true).getSpillingFuture();
+                }
+                if (!spillInProgress.isDone()) {
+                    return blocked(spillInProgress);
                 }
-                checkSuccess(channelSetFuture, "ChannelSet building failed");
-                channelSet = getFutureValue(channelSetFuture);
+                checkSuccess(spillInProgress, "spilling failed");
+                spillInProgress = null;
+                return needsMoreData();
+            }
+
+            if (!probeFinished) {
+                probeFinished = true;
+                setSupplier.probeOperatorFinished(probeSpiller);
+            }
+            ListenableFuture<?> probesFinished = setSupplier.getProbesFinished();
+            if (!probesFinished.isDone()) {
+                return blocked(probesFinished);
+            }
+
+            if (spilledPages == null) {
+                spilledPages = WorkProcessor.create(this::nextSpilledPartition)
+                        .flatMap(this::joinSpilledPartition);
+            }
+            if (!spilledPages.process()) {
+                return spilledPages.isBlocked() ? blocked(spilledPages.getBlockedFuture()) : TransformationState.yield();
+            }
+            if (spilledPages.isFinished()) {
                 localMemoryContext.setBytes(0);
+                return finished();
             }
+            return ofResult(spilledPages.getResult(), false);
+        }
+
+        private ProcessState<Integer> nextSpilledPartition()
+        {
+            OptionalInt partition = setSupplier.nextSpilledPartition();
+            if (!partition.isPresent()) {
+                return ProcessState.finished();
+            }
+            return ProcessState.ofResult(partition.getAsInt());
+        }
+
+        private WorkProcessor<Page> joinSpilledPartition(int partition)
+        {
+            ChannelSet partitionSet = spilledChannelSet.loadPartition(partition, localMemoryContext);
+            // the spilled set is never empty, although the set of a partition may be
+            return WorkProcessor.fromIterator(Iterators.concat(setSupplier.getSpilledProbePages(partition).iterator()))
+                    .map(page -> semiJoin(page, partitionSet, false));
+        }
 
+        private void finishProbe()
+        {
+            if (!probeFinished) {
+                probeFinished = true;
+                setSupplier.probeOperatorFinished(Optional.empty());
+            }
+        }
+
+        private Page semiJoin(Page inputPage, ChannelSet channelSet, boolean setEmpty)
+        {
             // create the block builder for the new boolean column
             // we know the exact size required for the block
             BlockBuilder blockBuilder = BOOLEAN.createFixedSizeBlockBuilder(inputPage.getPositionCount());
@@ -218,7 +334,7 @@ public class HashSemiJoinOperator
             // update hashing strategy to use probe cursor
             for (int position = 0; position < inputPage.getPositionCount(); position++) {
                 if (probeJoinPage.getBlock(0).isNull(position)) {
-                    if (channelSet.isEmpty()) {
+                    if (setEmpty) {
                         BOOLEAN.writeBoolean(blockBuilder, false);
                     }
                     else {
@@ -243,7 +359,26 @@ public class HashSemiJoinOperator
                 }
             }
             // add the new boolean column to the page
-            return ofResult(inputPage.appendColumn(blockBuilder.build()));
+            return inputPage.appendColumn(blockBuilder.build());
+        }
+
+        public void close()
+                throws IOException
+        {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            localMemoryContext.setBytes(0);
+            if (!probeFinished) {
+                // do not keep the other probe operators waiting; the rows spilled so far are not needed anymore
+                probeFinished = true;
+                setSupplier.probeOperatorFinished(Optional.empty());
+                if (probeSpiller.isPresent()) {
+                    probeSpiller.get().close();
+                }
+            }
+            setSupplier.probeOperatorClosed();
         }
     }
 }
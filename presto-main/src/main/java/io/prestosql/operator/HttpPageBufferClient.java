@@ -18,6 +18,8 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.net.MediaType;
 import com.google.common.util.concurrent.FutureCallback;
 import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListenableFutureTask;
 import io.airlift.http.client.HttpClient;
 import io.airlift.http.client.HttpClient.HttpResponseFuture;
 import io.airlift.http.client.HttpStatus;
@@ -31,6 +33,7 @@ import io.airlift.slice.InputStreamSliceInput;
 import io.airlift.slice.SliceInput;
 import io.airlift.units.DataSize;
 import io.airlift.units.Duration;
+import io.prestosql.execution.buffer.BufferResult;
 import io.prestosql.execution.buffer.SerializedPage;
 import io.prestosql.server.remotetask.Backoff;
 import io.prestosql.spi.PrestoException;
@@ -43,16 +46,20 @@ import javax.annotation.concurrent.ThreadSafe;
 import java.io.BufferedReader;
 import java.io.Closeable;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.net.URI;
 import java.util.List;
+import java.util.Optional;
 import java.util.OptionalInt;
 import java.util.OptionalLong;
 import java.util.concurrent.Executor;
 import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 
 import static com.google.common.base.MoreObjects.toStringHelper;
 import static com.google.common.base.Preconditions.checkState;
@@ -64,12 +71,14 @@ import static io.airlift.http.client.Request.Builder.prepareGet;
 import static io.airlift.http.client.ResponseHandlerUtils.propagate;
 import static io.airlift.http.client.StatusResponseHandler.StatusResponse;
 import static io.airlift.http.client.StatusResponseHandler.createStatusResponseHandler;
+import static io.prestosql.PrestoMediaTypes.PRESTO_PAGES_STREAM_TYPE;
 import static io.prestosql.PrestoMediaTypes.PRESTO_PAGES_TYPE;
 import static io.prestosql.client.PrestoHeaders.PRESTO_BUFFER_COMPLETE;
 import static io.prestosql.client.PrestoHeaders.PRESTO_MAX_SIZE;
 import static io.prestosql.client.PrestoHeaders.PRESTO_PAGE_NEXT_TOKEN;
 import static io.prestosql.client.PrestoHeaders.PRESTO_PAGE_TOKEN;
 import static io.prestosql.client.PrestoHeaders.PRESTO_TASK_INSTANCE_ID;
+import static io.prestosql.execution.buffer.PagesSerdeUtil.readBufferResult;
 import static io.prestosql.execution.buffer.PagesSerdeUtil.readSerializedPages;
 import static io.prestosql.operator.HttpPageBufferClient.PagesResponse.createEmptyPagesResponse;
 import static io.prestosql.operator.HttpPageBufferClient.PagesResponse.createPagesResponse;
@@ -115,12 +124,14 @@ public final class HttpPageBufferClient
     private final URI location;
     private final ClientCallback clientCallback;
     private final ScheduledExecutorService scheduler;
+    // when present, the pages are streamed from the remote buffer by blocking reads on this executor
+    private final Optional<Executor> streamExecutor;
     private final Backoff backoff;
 
     @GuardedBy("this")
     private boolean closed;
     @GuardedBy("this")
-    private HttpResponseFuture<?> future;
+    private ListenableFuture<?> future;
     @GuardedBy("this")
     private DateTime lastUpdate = DateTime.now();
     @GuardedBy("this")
@@ -128,6 +139,8 @@ public final class HttpPageBufferClient
     @GuardedBy("this")
     private boolean scheduled;
     @GuardedBy("this")
+    private DataSize credit;
+    @GuardedBy("this")
     private boolean completed;
     @GuardedBy("this")
     private String taskInstanceId;
@@ -154,7 +167,35 @@ public final class HttpPageBufferClient
             ScheduledExecutorService scheduler,
             Executor pageBufferClientCallbackExecutor)
     {
-        this(httpClient, maxResponseSize, maxErrorDuration, acknowledgePages, location, clientCallback, scheduler, Ticker.systemTicker(), pageBufferClientCallbackExecutor);
+        this(httpClient, maxResponseSize, maxErrorDuration, acknowledgePages, location, clientCallback, scheduler, Optional.empty(), Ticker.systemTicker(), pageBufferClientCallbackExecutor);
+    }
+
+    public HttpPageBufferClient(
+            HttpClient httpClient,
+            DataSize maxResponseSize,
+            Duration maxErrorDuration,
+            boolean acknowledgePages,
+            URI location,
+            ClientCallback clientCallback,
+            ScheduledExecutorService scheduler,
+            Optional<Executor> streamExecutor,
+            Executor pageBufferClientCallbackExecutor)
+    {
+        this(httpClient, maxResponseSize, maxErrorDuration, acknowledgePages, location, clientCallback, scheduler, streamExecutor, Ticker.systemTicker(), pageBufferClientCallbackExecutor);
+    }
+
+    public HttpPageBufferClient(
+            HttpClient httpClient,
+            DataSize maxResponseSize,
+            Duration maxErrorDuration,
+            boolean acknowledgePages,
+            URI location,
+            ClientCallback clientCallback,
+            ScheduledExecutorService scheduler,
+            Ticker ticker,
+            Executor pageBufferClientCallbackExecutor)
+    {
+        this(httpClient, maxResponseSize, maxErrorDuration, acknowledgePages, location, clientCallback, scheduler, Optional.empty(), ticker, pageBufferClientCallbackExecutor);
     }
 
     public HttpPageBufferClient(
@@ -165,6 +206,7 @@ public final class HttpPageBufferClient
             URI location,
             ClientCallback clientCallback,
             ScheduledExecutorService scheduler,
+            Optional<Executor> streamExecutor,
             Ticker ticker,
             Executor pageBufferClientCallbackExecutor)
     {
@@ -174,6 +216,7 @@ public final class HttpPageBufferClient
         this.location = requireNonNull(location, "location is null");
         this.clientCallback = requireNonNull(clientCallback, "clientCallback is null");
         this.scheduler = requireNonNull(scheduler, "scheduler is null");
+        this.streamExecutor = requireNonNull(streamExecutor, "streamExecutor is null");
         this.pageBufferClientCallbackExecutor = requireNonNull(pageBufferClientCallbackExecutor, "pageBufferClientCallbackExecutor is null");
         requireNonNull(maxErrorDuration, "maxErrorDuration is null");
         requireNonNull(ticker, "ticker is null");
@@ -199,8 +242,11 @@ public final class HttpPageBufferClient
             state = "queued";
         }
         String httpRequestState = "not scheduled";
-        if (future != null) {
-            httpRequestState = future.getState();
+        if (future instanceof HttpResponseFuture) {
+            httpRequestState = ((HttpResponseFuture<?>) future).getState();
+        }
+        else if (future != null) {
+            httpRequestState = "streaming";
         }
 
         long rejectedRows = rowsRejected.get();
@@ -252,12 +298,22 @@ public final class HttpPageBufferClient
         }
     }
 
-    public synchronized void scheduleRequest()
+    public void scheduleRequest()
+    {
+        scheduleRequest(maxResponseSize);
+    }
+
+    /**
+     * Schedules a request, which may stream pages up to the credit when the pages are streamed.
+     */
+    public synchronized void scheduleRequest(DataSize credit)
     {
+        requireNonNull(credit, "credit is null");
         if (closed || (future != null) || scheduled) {
             return;
         }
         scheduled = true;
+        this.credit = credit;
 
         // start before scheduling to include error delay
         backoff.startRequest();
@@ -287,6 +343,9 @@ public final class HttpPageBufferClient
         if (completed) {
             sendDelete();
         }
+        else if (streamExecutor.isPresent()) {
+            sendStreamResults(streamExecutor.get());
+        }
         else {
             sendGetResults();
         }
@@ -313,108 +372,169 @@ public final class HttpPageBufferClient
 
                 backoff.success();
 
-                List<SerializedPage> pages;
                 try {
-                    boolean shouldAcknowledge = false;
-                    synchronized (HttpPageBufferClient.this) {
-                        if (taskInstanceId == null) {
-                            taskInstanceId = result.getTaskInstanceId();
-                        }
-
-                        if (!isNullOrEmpty(taskInstanceId) && !result.getTaskInstanceId().equals(taskInstanceId)) {
-                            // TODO: update error message
-                            throw new PrestoException(REMOTE_TASK_MISMATCH, format("%s (%s)", REMOTE_TASK_MISMATCH_ERROR, fromUri(uri)));
-                        }
-
-                        if (result.getToken() == token) {
-                            pages = result.getPages();
-                            token = result.getNextToken();
-                            shouldAcknowledge = pages.size() > 0;
-                        }
-                        else {
-                            pages = ImmutableList.of();
-                        }
-                    }
-
-                    if (shouldAcknowledge && acknowledgePages) {
-                        // Acknowledge token without handling the response.
-                        // The next request will also make sure the token is acknowledged.
-                        // This is to fast release the pages on the buffer side.
-                        URI uri = HttpUriBuilder.uriBuilderFrom(location).appendPath(String.valueOf(result.getNextToken())).appendPath("acknowledge").build();
-                        httpClient.executeAsync(prepareGet().setUri(uri).build(), new ResponseHandler<Void, RuntimeException>()
-                        {
-                            @Override
-                            public Void handleException(Request request, Exception exception)
-                            {
-                                log.debug(exception, "Acknowledge request failed: %s", uri);
-                                return null;
-                            }
-
-                            @Override
-                            public Void handle(Request request, Response response)
-                            {
-                                if (familyForStatusCode(response.getStatusCode()) != HttpStatus.Family.SUCCESSFUL) {
-                                    log.debug("Unexpected acknowledge response code: %s", response.getStatusCode());
-                                }
-                                return null;
-                            }
-                        });
-                    }
+                    processResponse(result, uri);
                 }
                 catch (PrestoException e) {
                     handleFailure(e, resultFuture);
                     return;
                 }
 
-                // add pages:
-                // addPages must be called regardless of whether pages is an empty list because
-                // clientCallback can keep stats of requests and responses. For example, it may
-                // keep track of how often a client returns empty response and adjust request
-                // frequency or buffer size.
-                if (clientCallback.addPages(HttpPageBufferClient.this, pages)) {
-                    pagesReceived.addAndGet(pages.size());
-                    rowsReceived.addAndGet(pages.stream().mapToLong(SerializedPage::getPositionCount).sum());
-                }
-                else {
-                    pagesRejected.addAndGet(pages.size());
-                    rowsRejected.addAndGet(pages.stream().mapToLong(SerializedPage::getPositionCount).sum());
-                }
-
-                synchronized (HttpPageBufferClient.this) {
-                    // client is complete, acknowledge it by sending it a delete in the next request
-                    if (result.isClientComplete()) {
-                        completed = true;
-                    }
-                    if (future == resultFuture) {
-                        future = null;
-                    }
-                    lastUpdate = DateTime.now();
-                }
-                requestsCompleted.incrementAndGet();
-                clientCallback.requestComplete(HttpPageBufferClient.this);
+                requestComplete(resultFuture);
             }
 
             @Override
             public void onFailure(Throwable t)
             {
-                log.debug("Request to %s failed %s", uri, t);
+                handleRequestFailure(t, uri, resultFuture);
+            }
+        }, pageBufferClientCallbackExecutor);
+    }
+
+    private synchronized void sendStreamResults(Executor streamExecutor)
+    {
+        URI uri = HttpUriBuilder.uriBuilderFrom(location).appendPath(String.valueOf(token)).appendPath("stream").build();
+        Request request = prepareGet()
+                .setHeader(PRESTO_MAX_SIZE, credit.toString())
+                .setUri(uri).build();
+
+        // the results are processed as they are received, while the stream is read
+        ListenableFutureTask<Void> resultFuture = ListenableFutureTask.create(() -> httpClient.execute(
+                request,
+                new PageStreamResponseHandler(result -> processResponse(result, uri))));
+
+        try {
+            streamExecutor.execute(resultFuture);
+        }
+        catch (RejectedExecutionException e) {
+            // every stream thread is busy, so the pages are fetched with a request instead
+            sendGetResults();
+            return;
+        }
+
+        future = resultFuture;
+        Futures.addCallback(resultFuture, new FutureCallback<Void>()
+        {
+            @Override
+            public void onSuccess(@Nullable Void result)
+            {
                 checkNotHoldsLock(this);
 
-                t = rewriteException(t);
-                if (!(t instanceof PrestoException) && backoff.failure()) {
-                    String message = format("%s (%s - %s failures, failure duration %s, total failed request time %s)",
-                            WORKER_NODE_ERROR,
-                            uri,
-                            backoff.getFailureCount(),
-                            backoff.getFailureDuration().convertTo(SECONDS),
-                            backoff.getFailureRequestTimeTotal().convertTo(SECONDS));
-                    t = new PageTransportTimeoutException(fromUri(uri), message, t);
-                }
-                handleFailure(t, resultFuture);
+                backoff.success();
+                requestComplete(resultFuture);
+            }
+
+            @Override
+            public void onFailure(Throwable t)
+            {
+                handleRequestFailure(t, uri, resultFuture);
             }
         }, pageBufferClientCallbackExecutor);
     }
 
+    private void processResponse(PagesResponse result, URI uri)
+    {
+        checkNotHoldsLock(this);
+
+        List<SerializedPage> pages;
+        boolean shouldAcknowledge = false;
+        synchronized (this) {
+            if (taskInstanceId == null) {
+                taskInstanceId = result.getTaskInstanceId();
+            }
+
+            if (!isNullOrEmpty(taskInstanceId) && !result.getTaskInstanceId().equals(taskInstanceId)) {
+                // TODO: update error message
+                throw new PrestoException(REMOTE_TASK_MISMATCH, format("%s (%s)", REMOTE_TASK_MISMATCH_ERROR, fromUri(uri)));
+            }
+
+            if (result.getToken() == token) {
+                pages = result.getPages();
+                token = result.getNextToken();
+                shouldAcknowledge = pages.size() > 0;
+            }
+            else {
+                pages = ImmutableList.of();
+            }
+        }
+
+        if (shouldAcknowledge && acknowledgePages) {
+            // Acknowledge token without handling the response.
+            // The next request will also make sure the token is acknowledged.
+            // This is to fast release the pages on the buffer side.
+            URI acknowledgeUri = HttpUriBuilder.uriBuilderFrom(location).appendPath(String.valueOf(result.getNextToken())).appendPath("acknowledge").build();
+            httpClient.executeAsync(prepareGet().setUri(acknowledgeUri).build(), new ResponseHandler<Void, RuntimeException>()
+            {
+                @Override
+                public Void handleException(Request request, Exception exception)
+                {
+                    log.debug(exception, "Acknowledge request failed: %s", acknowledgeUri);
+                    return null;
+                }
+
+                @Override
+                public Void handle(Request request, Response response)
+                {
+                    if (familyForStatusCode(response.getStatusCode()) != HttpStatus.Family.SUCCESSFUL) {
+                        log.debug("Unexpected acknowledge response code: %s", response.getStatusCode());
+                    }
+                    return null;
+                }
+            });
+        }
+
+        // add pages:
+        // addPages must be called regardless of whether pages is an empty list because
+        // clientCallback can keep stats of requests and responses. For example, it may
+        // keep track of how often a client returns empty response and adjust request
+        // frequency or buffer size.
+        if (clientCallback.addPages(HttpPageBufferClient.this, pages)) {
+            pagesReceived.addAndGet(pages.size());
+            rowsReceived.addAndGet(pages.stream().mapToLong(SerializedPage::getPositionCount).sum());
+        }
+        else {
+            pagesRejected.addAndGet(pages.size());
+            rowsRejected.addAndGet(pages.stream().mapToLong(SerializedPage::getPositionCount).sum());
+        }
+
+        synchronized (this) {
+            // client is complete, acknowledge it by sending it a delete in the next request
+            if (result.isClientComplete()) {
+                completed = true;
+            }
+        }
+    }
+
+    private void requestComplete(Future<?> resultFuture)
+    {
+        synchronized (this) {
+            if (future == resultFuture) {
+                future = null;
+            }
+            lastUpdate = DateTime.now();
+        }
+        requestsCompleted.incrementAndGet();
+        clientCallback.requestComplete(HttpPageBufferClient.this);
+    }
+
+    private void handleRequestFailure(Throwable t, URI uri, Future<?> resultFuture)
+    {
+        log.debug("Request to %s failed %s", uri, t);
+        checkNotHoldsLock(this);
+
+        t = rewriteException(t);
+        if (!(t instanceof PrestoException) && backoff.failure()) {
+            String message = format("%s (%s - %s failures, failure duration %s, total failed request time %s)",
+                    WORKER_NODE_ERROR,
+                    uri,
+                    backoff.getFailureCount(),
+                    backoff.getFailureDuration().convertTo(SECONDS),
+                    backoff.getFailureRequestTimeTotal().convertTo(SECONDS));
+            t = new PageTransportTimeoutException(fromUri(uri), message, t);
+        }
+        handleFailure(t, resultFuture);
+    }
+
     private synchronized void sendDelete()
     {
         HttpResponseFuture<StatusResponse> resultFuture = httpClient.executeAsync(prepareDelete().setUri(location).build(), createStatusResponseHandler());
@@ -461,7 +581,7 @@ public final class HttpPageBufferClient
         checkState(!Thread.holdsLock(lock), "Cannot execute this method while holding a lock");
     }
 
-    private void handleFailure(Throwable t, HttpResponseFuture<?> expectedFuture)
+    private void handleFailure(Throwable t, Future<?> expectedFuture)
     {
         // Can not delegate to other callback while holding a lock on this
         checkNotHoldsLock(this);
@@ -555,34 +675,7 @@ public final class HttpPageBufferClient
                     return createEmptyPagesResponse(getTaskInstanceId(response), getToken(response), getNextToken(response), getComplete(response));
                 }
 
-                // otherwise we must have gotten an OK response, everything else is considered fatal
-                if (response.getStatusCode() != HttpStatus.OK.code()) {
-                    StringBuilder body = new StringBuilder();
-                    try (BufferedReader reader = new BufferedReader(new InputStreamReader(response.getInputStream(), UTF_8))) {
-                        // Get up to 1000 lines for debugging
-                        for (int i = 0; i < 1000; i++) {
-                            String line = reader.readLine();
-                            // Don't output more than 100KB
-                            if (line == null || body.length() + line.length() > 100 * 1024) {
-                                break;
-                            }
-                            body.append(line + "\n");
-                        }
-                    }
-                    catch (RuntimeException | IOException e) {
-                        // Ignored. Just return whatever message we were able to decode
-                    }
-                    throw new PageTransportErrorException(format("Expected response code to be 200, but was %s %s:%n%s", response.getStatusCode(), response.getStatusMessage(), body.toString()));
-                }
-
-                // invalid content type can happen when an error page is returned, but is unlikely given the above 200
-                String contentType = response.getHeader(CONTENT_TYPE);
-                if (contentType == null) {
-                    throw new PageTransportErrorException(format("%s header is not set: %s", CONTENT_TYPE, response));
-                }
-                if (!mediaTypeMatches(contentType, PRESTO_PAGES_TYPE)) {
-                    throw new PageTransportErrorException(format("Expected %s response from server but got %s", PRESTO_PAGES_TYPE, contentType));
-                }
+                checkOkResponse(response, PRESTO_PAGES_TYPE);
 
                 String taskInstanceId = getTaskInstanceId(response);
                 long token = getToken(response);
@@ -602,6 +695,38 @@ public final class HttpPageBufferClient
             }
         }
 
+        private static void checkOkResponse(Response response, MediaType expectedMediaType)
+        {
+            // otherwise we must have gotten an OK response, everything else is considered fatal
+            if (response.getStatusCode() != HttpStatus.OK.code()) {
+                StringBuilder body = new StringBuilder();
+                try (BufferedReader reader = new BufferedReader(new InputStreamReader(response.getInputStream(), UTF_8))) {
+                    // Get up to 1000 lines for debugging
+                    for (int i = 0; i < 1000; i++) {
+                        String line = reader.readLine();
+                        // Don't output more than 100KB
+                        if (line == null || body.length() + line.length() > 100 * 1024) {
+                            break;
+                        }
+                        body.append(line + "\n");
+                    }
+                }
+                catch (RuntimeException | IOException e) {
+                    // Ignored. Just return whatever message we were able to decode
+                }
+                throw new PageTransportErrorException(format("Expected response code to be 200, but was %s %s:%n%s", response.getStatusCode(), response.getStatusMessage(), body.toString()));
+            }
+
+            // invalid content type can happen when an error page is returned, but is unlikely given the above 200
+            String contentType = response.getHeader(CONTENT_TYPE);
+            if (contentType == null) {
+                throw new PageTransportErrorException(format("%s header is not set: %s", CONTENT_TYPE, response));
+            }
+            if (!mediaTypeMatches(contentType, expectedMediaType)) {
+                throw new PageTransportErrorException(format("Expected %s response from server but got %s", expectedMediaType, contentType));
+            }
+        }
+
         private static String getTaskInstanceId(Response response)
         {
             String taskInstanceId = response.getHeader(PRESTO_TASK_INSTANCE_ID);
@@ -649,6 +774,56 @@ public final class HttpPageBufferClient
         }
     }
 
+    /**
+     * Reads the results streamed by the server, and hands each of them to the consumer as soon as it is received.
+     */
+    public static class PageStreamResponseHandler
+            implements ResponseHandler<Void, RuntimeException>
+    {
+        private final Consumer<PagesResponse> resultConsumer;
+
+        public PageStreamResponseHandler(Consumer<PagesResponse> resultConsumer)
+        {
+            this.resultConsumer = requireNonNull(resultConsumer, "resultConsumer is null");
+        }
+
+        @Override
+        public Void handleException(Request request, Exception exception)
+        {
+            throw propagate(request, exception);
+        }
+
+        @Override
+        public Void handle(Request request, Response response)
+        {
+            try {
+                PageResponseHandler.checkOkResponse(response, PRESTO_PAGES_STREAM_TYPE);
+
+                String taskInstanceId = PageResponseHandler.getTaskInstanceId(response);
+                try (InputStream input = response.getInputStream()) {
+                    while (true) {
+                        Optional<BufferResult> result = readBufferResult(input, taskInstanceId);
+                        if (!result.isPresent()) {
+                            return null;
+                        }
+                        resultConsumer.accept(createPagesResponse(
+                                taskInstanceId,
+                                result.get().getToken(),
+                                result.get().getNextToken(),
+                                result.get().getSerializedPages(),
+                                result.get().isBufferComplete()));
+                    }
+                }
+                catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+            catch (PageTransportErrorException e) {
+                throw new PageTransportErrorException(format("Error fetching %s: %s", request.getUri().toASCIIString(), e.getMessage()), e);
+            }
+        }
+    }
+
     public static class PagesResponse
     {
         public static PagesResponse createPagesResponse(String taskInstanceId, long token, long nextToken, Iterable<SerializedPage> pages, boolean complete)
@@ -0,0 +1,81 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.operator;
+
+import it.unimi.dsi.fastutil.HashCommon;
+import org.openjdk.jol.info.ClassLayout;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static io.airlift.slice.SizeOf.sizeOf;
+
+/**
+ * Blocked bloom filter over the raw hashes of the build side of a join. All bits of a
+ * hash are set in a single {@code long}, so a probe reads one word of an array that is much
+ * smaller than the hash table, which lets probe rows without a match skip the hash table lookup.
+ */
+public final class JoinBloomFilter
+{
+    private static final int INSTANCE_SIZE = ClassLayout.parseClass(JoinBloomFilter.class).instanceSize();
+
+    // with 16 bits per value and 4 bits set per value the false positive rate is about 1%
+    private static final int VALUES_PER_WORD = 4;
+    private static final int BITS_PER_FIELD = 6;
+    private static final int FIELD_MASK = (1 << BITS_PER_FIELD) - 1;
+
+    private final long[] words;
+    private final int wordMask;
+
+    public JoinBloomFilter(int expectedValues)
+    {
+        checkArgument(expectedValues >= 0, "expectedValues is negative");
+        int wordCount = HashCommon.nextPowerOfTwo(Math.max(1, (expectedValues + VALUES_PER_WORD - 1) / VALUES_PER_WORD));
+        this.words = new long[wordCount];
+        this.wordMask = wordCount - 1;
+    }
+
+    public void add(long rawHash)
+    {
+        long hash = HashCommon.murmurHash3(rawHash);
+        words[wordIndex(hash)] |= bitMask(hash);
+    }
+
+    /**
+     * Returns false if no value with this hash was added. May return true for hashes that were not added.
+     */
+    public boolean mightContain(long rawHash)
+    {
+        long hash = HashCommon.murmurHash3(rawHash);
+        long mask = bitMask(hash);
+        return (words[wordIndex(hash)] & mask) == mask;
+    }
+
+    public long getRetainedSizeInBytes()
+    {
+        return INSTANCE_SIZE + sizeOf(words);
+    }
+
+    private int wordIndex(long hash)
+    {
+        // the word is selected with the low bits and the bits within the word with the high bits
+        return (int) hash & wordMask;
+    }
+
+    private static long bitMask(long hash)
+    {
+        return (1L << ((hash >>> 40) & FIELD_MASK)) |
+                (1L << ((hash >>> 46) & FIELD_MASK)) |
+                (1L << ((hash >>> 52) & FIELD_MASK)) |
+                (1L << ((hash >>> 58) & FIELD_MASK));
+    }
+}
@@ -17,6 +17,7 @@ import com.google.common.collect.ImmutableList;
 import io.prestosql.Session;
 import io.prestosql.spi.Page;
 import io.prestosql.spi.block.Block;
+import io.prestosql.spi.type.Type;
 import io.prestosql.sql.gen.JoinFilterFunctionCompiler.JoinFilterFunctionFactory;
 import it.unimi.dsi.fastutil.longs.LongArrayList;
 
@@ -25,7 +26,9 @@ import java.util.Optional;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.collect.ImmutableList.toImmutableList;
+import static io.prestosql.SystemSessionProperties.isBigintJoinHashEnabled;
 import static io.prestosql.SystemSessionProperties.isFastInequalityJoin;
+import static io.prestosql.SystemSessionProperties.isJoinBloomFilterEnabled;
 import static io.prestosql.operator.JoinUtils.channelsToPages;
 import static java.util.Objects.requireNonNull;
 
@@ -45,6 +48,8 @@ public class JoinHashSupplier
             PagesHashStrategy pagesHashStrategy,
             LongArrayList addresses,
             List<List<Block>> channels,
+            List<Type> types,
+            List<Integer> joinChannels,
             Optional<JoinFilterFunctionFactory> filterFunctionFactory,
             Optional<Integer> sortChannel,
             List<JoinFilterFunctionFactory> searchFunctionFactories)
@@ -54,6 +59,8 @@ public class JoinHashSupplier
         this.filterFunctionFactory = requireNonNull(filterFunctionFactory, "filterFunctionFactory is null");
         this.searchFunctionFactories = ImmutableList.copyOf(searchFunctionFactories);
         requireNonNull(channels, "pages is null");
+        requireNonNull(types, "types is null");
+        requireNonNull(joinChannels, "joinChannels is null");
         requireNonNull(pagesHashStrategy, "pagesHashStrategy is null");
 
         PositionLinks.FactoryBuilder positionLinksFactoryBuilder;
@@ -70,7 +77,13 @@ public class JoinHashSupplier
         }
 
         this.pages = channelsToPages(channels);
-        this.pagesHash = new PagesHash(addresses, pagesHashStrategy, positionLinksFactoryBuilder);
+        if (joinChannels.size() == 1 && BigintPagesHash.isSupportedType(types.get(joinChannels.get(0))) && isBigintJoinHashEnabled(session)) {
+            int joinChannel = joinChannels.get(0);
+            this.pagesHash = new BigintPagesHash(addresses, pagesHashStrategy, positionLinksFactoryBuilder, types.get(joinChannel), channels.get(joinChannel), isJoinBloomFilterEnabled(session));
+        }
+        else {
+            this.pagesHash = new DefaultPagesHash(addresses, pagesHashStrategy, positionLinksFactoryBuilder, isJoinBloomFilterEnabled(session));
+        }
         this.positionLinks = positionLinksFactoryBuilder.isEmpty() ? Optional.empty() : Optional.of(positionLinksFactoryBuilder.build());
     }
 
@@ -14,13 +14,16 @@
 package io.prestosql.operator;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.AbstractIterator;
 import io.prestosql.Session;
 import io.prestosql.spi.Page;
+import io.prestosql.spi.PageBuilder;
 import io.prestosql.spi.block.Block;
 import io.prestosql.spi.block.BlockBuilder;
 import io.prestosql.spi.type.Type;
 import io.prestosql.sql.gen.JoinCompiler;
 
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
 
@@ -67,6 +70,34 @@ public class MarkDistinctHash
                 });
     }
 
+    /**
+     * Returns the values marked as distinct so far, laid out as {@link GroupByHash#getTypes()}.
+     */
+    public Iterator<Page> getDistinctValues()
+    {
+        return new AbstractIterator<Page>()
+        {
+            private final PageBuilder pageBuilder = new PageBuilder(groupByHash.getTypes());
+            private int groupId;
+
+            @Override
+            protected Page computeNext()
+            {
+                if (groupId == groupByHash.getGroupCount()) {
+                    return endOfData();
+                }
+
+                pageBuilder.reset();
+                while (!pageBuilder.isFull() && groupId < groupByHash.getGroupCount()) {
+                    pageBuilder.declarePosition();
+                    groupByHash.appendValuesTo(groupId, pageBuilder, 0);
+                    groupId++;
+                }
+                return pageBuilder.build();
+            }
+        };
+    }
+
     @VisibleForTesting
     public int getCapacity()
     {
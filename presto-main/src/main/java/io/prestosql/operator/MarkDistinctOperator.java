@@ -15,20 +15,25 @@ package io.prestosql.operator;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableList;
-import com.google.common.primitives.Ints;
+import com.google.common.util.concurrent.ListenableFuture;
 import io.prestosql.memory.context.LocalMemoryContext;
 import io.prestosql.spi.Page;
 import io.prestosql.spi.block.Block;
 import io.prestosql.spi.type.Type;
+import io.prestosql.spiller.PartitioningSpillerFactory;
 import io.prestosql.sql.gen.JoinCompiler;
 import io.prestosql.sql.planner.plan.PlanNodeId;
 
 import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.util.concurrent.Futures.allAsList;
+import static com.google.common.util.concurrent.Futures.immediateFuture;
+import static io.airlift.concurrent.MoreFutures.checkSuccess;
 import static io.prestosql.spi.type.BooleanType.BOOLEAN;
 import static java.util.Objects.requireNonNull;
 
@@ -44,6 +49,8 @@ public class MarkDistinctOperator
         private final List<Integer> markDistinctChannels;
         private final List<Type> types;
         private final JoinCompiler joinCompiler;
+        private final boolean spillEnabled;
+        private final PartitioningSpillerFactory partitioningSpillerFactory;
         private boolean closed;
 
         public MarkDistinctOperatorFactory(
@@ -52,7 +59,9 @@ public class MarkDistinctOperator
                 List<? extends Type> sourceTypes,
                 Collection<Integer> markDistinctChannels,
                 Optional<Integer> hashChannel,
-                JoinCompiler joinCompiler)
+                JoinCompiler joinCompiler,
+                boolean spillEnabled,
+                PartitioningSpillerFactory partitioningSpillerFactory)
         {
             this.operatorId = operatorId;
             this.planNodeId = requireNonNull(planNodeId, "planNodeId is null");
@@ -60,6 +69,8 @@ public class MarkDistinctOperator
             checkArgument(!markDistinctChannels.isEmpty(), "markDistinctChannels is empty");
             this.hashChannel = requireNonNull(hashChannel, "hashChannel is null");
             this.joinCompiler = requireNonNull(joinCompiler, "joinCompiler is null");
+            this.spillEnabled = spillEnabled;
+            this.partitioningSpillerFactory = requireNonNull(partitioningSpillerFactory, "partitioningSpillerFactory is null");
             this.types = ImmutableList.<Type>builder()
                     .addAll(sourceTypes)
                     .add(BOOLEAN)
@@ -71,7 +82,7 @@ public class MarkDistinctOperator
         {
             checkState(!closed, "Factory is already closed");
             OperatorContext operatorContext = driverContext.addOperatorContext(operatorId, planNodeId, MarkDistinctOperator.class.getSimpleName());
-            return new MarkDistinctOperator(operatorContext, types, markDistinctChannels, hashChannel, joinCompiler);
+            return new MarkDistinctOperator(operatorContext, types, markDistinctChannels, hashChannel, joinCompiler, spillEnabled, partitioningSpillerFactory);
         }
 
         @Override
@@ -83,13 +94,15 @@ public class MarkDistinctOperator
         @Override
         public OperatorFactory duplicate()
         {
-            return new MarkDistinctOperatorFactory(operatorId, planNodeId, types.subList(0, types.size() - 1), markDistinctChannels, hashChannel, joinCompiler);
+            return new MarkDistinctOperatorFactory(operatorId, planNodeId, types.subList(0, types.size() - 1), markDistinctChannels, hashChannel, joinCompiler, spillEnabled, partitioningSpillerFactory);
         }
     }
 
     private final OperatorContext operatorContext;
-    private final MarkDistinctHash markDistinctHash;
+    private final SpillableMarkDistinctHash markDistinctHash;
     private final LocalMemoryContext localUserMemoryContext;
+    private final LocalMemoryContext localRevocableMemoryContext;
+    private final boolean spillEnabled;
 
     private Page inputPage;
     private boolean finishing;
@@ -97,19 +110,36 @@ public class MarkDistinctOperator
     // for yield when memory is not available
     private Work<Block> unfinishedWork;
 
-    public MarkDistinctOperator(OperatorContext operatorContext, List<Type> types, List<Integer> markDistinctChannels, Optional<Integer> hashChannel, JoinCompiler joinCompiler)
+    private ListenableFuture<?> spillInProgress = immediateFuture(null);
+    // rows marked after the input has been spilled
+    private Iterator<Optional<Page>> spilledRows;
+
+    public MarkDistinctOperator(
+            OperatorContext operatorContext,
+            List<Type> types,
+            List<Integer> markDistinctChannels,
+            Optional<Integer> hashChannel,
+            JoinCompiler joinCompiler,
+            boolean spillEnabled,
+            PartitioningSpillerFactory partitioningSpillerFactory)
     {
         this.operatorContext = requireNonNull(operatorContext, "operatorContext is null");
 
         requireNonNull(hashChannel, "hashChannel is null");
         requireNonNull(markDistinctChannels, "markDistinctChannels is null");
 
-        ImmutableList.Builder<Type> distinctTypes = ImmutableList.builder();
-        for (int channel : markDistinctChannels) {
-            distinctTypes.add(types.get(channel));
-        }
-        this.markDistinctHash = new MarkDistinctHash(operatorContext.getSession(), distinctTypes.build(), Ints.toArray(markDistinctChannels), hashChannel, joinCompiler, this::updateMemoryReservation);
+        this.markDistinctHash = new SpillableMarkDistinctHash(
+                operatorContext,
+                types.subList(0, types.size() - 1),
+                markDistinctChannels,
+                hashChannel,
+                10_000,
+                joinCompiler,
+                this::updateMemoryReservation,
+                partitioningSpillerFactory);
         this.localUserMemoryContext = operatorContext.localUserMemoryContext();
+        this.localRevocableMemoryContext = operatorContext.localRevocableMemoryContext();
+        this.spillEnabled = spillEnabled;
     }
 
     @Override
@@ -127,13 +157,25 @@ public class MarkDistinctOperator
     @Override
     public boolean isFinished()
     {
-        return finishing && !hasUnfinishedInput();
+        if (!finishing || hasUnfinishedInput()) {
+            return false;
+        }
+        if (!markDistinctHash.isSpilled()) {
+            return true;
+        }
+        return spilledRows != null && !spilledRows.hasNext();
+    }
+
+    @Override
+    public ListenableFuture<?> isBlocked()
+    {
+        return spillInProgress;
     }
 
     @Override
     public boolean needsInput()
     {
-        return !finishing && !hasUnfinishedInput();
+        return !finishing && !hasUnfinishedInput() && spillInProgress.isDone();
     }
 
     @Override
@@ -141,6 +183,12 @@ public class MarkDistinctOperator
     {
         requireNonNull(page, "page is null");
         checkState(needsInput());
+        checkSuccess(spillInProgress, "spilling failed");
+
+        if (markDistinctHash.isSpilled()) {
+            spillInProgress = markDistinctHash.spillInput(page);
+            return;
+        }
 
         inputPage = page;
 
@@ -151,8 +199,9 @@ public class MarkDistinctOperator
     @Override
     public Page getOutput()
     {
+        checkSuccess(spillInProgress, "spilling failed");
         if (unfinishedWork == null) {
-            return null;
+            return getSpilledOutput();
         }
 
         if (!unfinishedWork.process()) {
@@ -169,6 +218,56 @@ public class MarkDistinctOperator
         return outputPage;
     }
 
+    private Page getSpilledOutput()
+    {
+        if (!finishing || !markDistinctHash.isSpilled() || !spillInProgress.isDone()) {
+            return null;
+        }
+
+        if (spilledRows == null) {
+            spilledRows = markDistinctHash.markSpilledRows().yieldingIterator();
+        }
+
+        Page outputPage = null;
+        if (spilledRows.hasNext()) {
+            outputPage = spilledRows.next().orElse(null);
+        }
+        updateMemoryReservation();
+        return outputPage;
+    }
+
+    @Override
+    public ListenableFuture<?> startMemoryRevoke()
+    {
+        checkSuccess(spillInProgress, "spilling failed");
+        if (!spillEnabled || spilledRows != null) {
+            return immediateFuture(null);
+        }
+
+        spillInProgress = markDistinctHash.startMemoryRevoke();
+        if (unfinishedWork != null) {
+            // the hash does not yield when spill is enabled, so the work has not been started and the page can be spilled instead
+            spillInProgress = allAsList(spillInProgress, markDistinctHash.spillInput(inputPage));
+            unfinishedWork = null;
+            inputPage = null;
+        }
+        return spillInProgress;
+    }
+
+    @Override
+    public void finishMemoryRevoke()
+    {
+        markDistinctHash.finishMemoryRevoke();
+        updateMemoryReservation();
+    }
+
+    @Override
+    public void close()
+            throws Exception
+    {
+        markDistinctHash.close();
+    }
+
     private boolean hasUnfinishedInput()
     {
         return inputPage != null || unfinishedWork != null;
@@ -184,6 +283,15 @@ public class MarkDistinctOperator
     // The following implementation is a hybrid model, where the push model is going to call the pull model causing reentrancy
     private boolean updateMemoryReservation()
     {
+        if (spillEnabled && spilledRows == null) {
+            // The hash can be spilled until the spilled rows are marked. Revocable memory never blocks
+            // the driver, since the hash is spilled when the pool runs low, so the hash does not have to yield.
+            localUserMemoryContext.setBytes(0);
+            localRevocableMemoryContext.setBytes(markDistinctHash.getEstimatedSize());
+            return true;
+        }
+
+        localRevocableMemoryContext.setBytes(0);
         // Operator/driver will be blocked on memory after we call localUserMemoryContext.setBytes().
         // If memory is not available, once we return, this operator will be blocked until memory is available.
         localUserMemoryContext.setBytes(markDistinctHash.getEstimatedSize());
@@ -13,6 +13,7 @@
  */
 package io.prestosql.operator;
 
+import com.google.common.primitives.Ints;
 import io.prestosql.memory.context.AggregatedMemoryContext;
 import io.prestosql.spi.Page;
 import io.prestosql.spi.PageBuilder;
@@ -49,7 +50,16 @@ public class MergeHashSort
      */
     public WorkProcessor<Page> merge(List<Type> keyTypes, List<Type> allTypes, List<WorkProcessor<Page>> channels, DriverYieldSignal driverYieldSignal)
     {
-        InterpretedHashGenerator hashGenerator = createHashGenerator(keyTypes);
+        return merge(keyTypes, IntStream.range(0, keyTypes.size()).boxed().collect(toImmutableList()), allTypes, channels, driverYieldSignal);
+    }
+
+    /**
+     * Rows with same hash value are guaranteed to be in the same result page.
+     * The hash is computed on {@code keyChannels} instead of the leading channels.
+     */
+    public WorkProcessor<Page> merge(List<Type> keyTypes, List<Integer> keyChannels, List<Type> allTypes, List<WorkProcessor<Page>> channels, DriverYieldSignal driverYieldSignal)
+    {
+        InterpretedHashGenerator hashGenerator = new InterpretedHashGenerator(keyTypes, Ints.toArray(keyChannels));
         return mergeSortedPages(
                 channels,
                 createHashPageWithPositionComparator(hashGenerator),
@@ -86,13 +96,4 @@ public class MergeHashSort
             return Long.compare(leftHash, rightHash);
         };
     }
-
-    private static InterpretedHashGenerator createHashGenerator(List<Type> keyTypes)
-    {
-        int[] hashChannels = new int[keyTypes.size()];
-        for (int i = 0; i < keyTypes.size(); i++) {
-            hashChannels[i] = i;
-        }
-        return new InterpretedHashGenerator(keyTypes, hashChannels);
-    }
 }
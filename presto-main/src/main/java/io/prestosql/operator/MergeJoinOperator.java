@@ -0,0 +1,474 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.operator;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.primitives.Ints;
+import com.google.common.util.concurrent.ListenableFuture;
+import io.prestosql.memory.context.LocalMemoryContext;
+import io.prestosql.operator.exchange.LocalExchange.LocalExchangeFactory;
+import io.prestosql.operator.exchange.LocalExchangeSource;
+import io.prestosql.spi.Page;
+import io.prestosql.spi.PageBuilder;
+import io.prestosql.spi.block.BlockBuilder;
+import io.prestosql.spi.block.SortOrder;
+import io.prestosql.spi.type.Type;
+import io.prestosql.sql.planner.plan.PlanNodeId;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Joins a probe and a build input that are both sorted on the join keys. The probe
+ * is the input of the operator and the build is read from a local exchange fed by the
+ * build pipeline. Only the build rows sharing the join key of the current probe row are
+ * retained, so memory usage is bounded by the largest group of equal build keys.
+ */
+public class MergeJoinOperator
+        implements Operator
+{
+    public static class MergeJoinOperatorFactory
+            implements OperatorFactory
+    {
+        private final int operatorId;
+        private final PlanNodeId planNodeId;
+        private final boolean probeOuter;
+        private final LocalExchangeFactory buildExchangeFactory;
+        private final List<Type> probeTypes;
+        private final List<Integer> probeKeyChannels;
+        private final List<Integer> probeOutputChannels;
+        private final List<Type> buildTypes;
+        private final List<Integer> buildKeyChannels;
+        private final List<Integer> buildOutputChannels;
+        private final List<SortOrder> sortOrders;
+        private boolean closed;
+
+        public MergeJoinOperatorFactory(
+                int operatorId,
+                PlanNodeId planNodeId,
+                boolean probeOuter,
+                LocalExchangeFactory buildExchangeFactory,
+                List<Type> probeTypes,
+                List<Integer> probeKeyChannels,
+                List<Integer> probeOutputChannels,
+                List<Type> buildTypes,
+                List<Integer> buildKeyChannels,
+                List<Integer> buildOutputChannels,
+                List<SortOrder> sortOrders)
+        {
+            this.operatorId = operatorId;
+            this.planNodeId = requireNonNull(planNodeId, "planNodeId is null");
+            this.probeOuter = probeOuter;
+            this.buildExchangeFactory = requireNonNull(buildExchangeFactory, "buildExchangeFactory is null");
+            this.probeTypes = ImmutableList.copyOf(requireNonNull(probeTypes, "probeTypes is null"));
+            this.probeKeyChannels = ImmutableList.copyOf(requireNonNull(probeKeyChannels, "probeKeyChannels is null"));
+            this.probeOutputChannels = ImmutableList.copyOf(requireNonNull(probeOutputChannels, "probeOutputChannels is null"));
+            this.buildTypes = ImmutableList.copyOf(requireNonNull(buildTypes, "buildTypes is null"));
+            this.buildKeyChannels = ImmutableList.copyOf(requireNonNull(buildKeyChannels, "buildKeyChannels is null"));
+            this.buildOutputChannels = ImmutableList.copyOf(requireNonNull(buildOutputChannels, "buildOutputChannels is null"));
+            this.sortOrders = ImmutableList.copyOf(requireNonNull(sortOrders, "sortOrders is null"));
+            checkArgument(probeKeyChannels.size() == buildKeyChannels.size(), "probe and build key channels do not match");
+            checkArgument(probeKeyChannels.size() == sortOrders.size(), "a sort order is required for each key");
+        }
+
+        @Override
+        public Operator createOperator(DriverContext driverContext)
+        {
+            checkState(!closed, "Factory is already closed");
+            OperatorContext operatorContext = driverContext.addOperatorContext(operatorId, planNodeId, MergeJoinOperator.class.getSimpleName());
+            LocalExchangeSource buildSource = buildExchangeFactory.getLocalExchange(driverContext.getLifespan()).getNextSource();
+            return new MergeJoinOperator(
+                    operatorContext,
+                    probeOuter,
+                    buildSource,
+                    probeTypes,
+                    probeKeyChannels,
+                    probeOutputChannels,
+                    buildTypes,
+                    buildKeyChannels,
+                    buildOutputChannels,
+                    sortOrders);
+        }
+
+        @Override
+        public void noMoreOperators()
+        {
+            closed = true;
+        }
+
+        @Override
+        public OperatorFactory duplicate()
+        {
+            throw new UnsupportedOperationException("Merge join operator factories can not be duplicated");
+        }
+    }
+
+    private final OperatorContext operatorContext;
+    private final LocalMemoryContext memoryContext;
+    private final boolean probeOuter;
+    private final LocalExchangeSource buildSource;
+    private final WorkProcessor<Page> buildPages;
+    private final List<Type> keyTypes;
+    private final int[] probeKeyChannels;
+    private final int[] buildKeyChannels;
+    private final List<SortOrder> sortOrders;
+    private final int[] probeOutputChannels;
+    private final List<Type> probeOutputTypes;
+    private final int[] buildOutputChannels;
+    private final List<Type> buildOutputTypes;
+    private final PageBuilder pageBuilder;
+
+    private Page probe;
+    private int probePosition;
+
+    private Page build;
+    private int buildPosition;
+    private boolean buildFinished;
+
+    // build rows with the join key of the current probe row; the first row holds the key
+    private final List<Page> buildGroup = new ArrayList<>();
+    private long buildGroupRetainedSizeInBytes;
+    private boolean buildGroupComplete;
+
+    // position in the build group of the next match of the current probe row
+    private int matchPage;
+    private int matchPosition;
+
+    private boolean finishing;
+    private boolean finished;
+
+    public MergeJoinOperator(
+            OperatorContext operatorContext,
+            boolean probeOuter,
+            LocalExchangeSource buildSource,
+            List<Type> probeTypes,
+            List<Integer> probeKeyChannels,
+            List<Integer> probeOutputChannels,
+            List<Type> buildTypes,
+            List<Integer> buildKeyChannels,
+            List<Integer> buildOutputChannels,
+            List<SortOrder> sortOrders)
+    {
+        this.operatorContext = requireNonNull(operatorContext, "operatorContext is null");
+        this.memoryContext = operatorContext.localUserMemoryContext();
+        this.probeOuter = probeOuter;
+        this.buildSource = requireNonNull(buildSource, "buildSource is null");
+        this.buildPages = buildSource.pages();
+        this.keyTypes = probeKeyChannels.stream()
+                .map(probeTypes::get)
+                .collect(toImmutableList());
+        this.probeKeyChannels = Ints.toArray(probeKeyChannels);
+        this.buildKeyChannels = Ints.toArray(buildKeyChannels);
+        this.sortOrders = ImmutableList.copyOf(requireNonNull(sortOrders, "sortOrders is null"));
+        this.probeOutputChannels = Ints.toArray(probeOutputChannels);
+        this.probeOutputTypes = probeOutputChannels.stream()
+                .map(probeTypes::get)
+                .collect(toImmutableList());
+        this.buildOutputChannels = Ints.toArray(buildOutputChannels);
+        this.buildOutputTypes = buildOutputChannels.stream()
+                .map(buildTypes::get)
+                .collect(toImmutableList());
+        this.pageBuilder = new PageBuilder(ImmutableList.<Type>builder()
+                .addAll(probeOutputTypes)
+                .addAll(buildOutputTypes)
+                .build());
+    }
+
+    @Override
+    public OperatorContext getOperatorContext()
+    {
+        return operatorContext;
+    }
+
+    @Override
+    public void finish()
+    {
+        finishing = true;
+    }
+
+    @Override
+    public boolean isFinished()
+    {
+        return finished;
+    }
+
+    @Override
+    public ListenableFuture<?> isBlocked()
+    {
+        if (probe != null && buildPages.isBlocked()) {
+            return buildPages.getBlockedFuture();
+        }
+        return NOT_BLOCKED;
+    }
+
+    @Override
+    public boolean needsInput()
+    {
+        return !finishing && !finished && probe == null;
+    }
+
+    @Override
+    public void addInput(Page page)
+    {
+        requireNonNull(page, "page is null");
+        checkState(needsInput(), "Operator does not need input");
+        probe = page;
+        probePosition = 0;
+    }
+
+    @Override
+    public Page getOutput()
+    {
+        if (finished) {
+            return null;
+        }
+
+        if (probe != null) {
+            while (probePosition < probe.getPositionCount() && !pageBuilder.isFull()) {
+                if (!joinProbePosition()) {
+                    // waiting for the build
+                    break;
+                }
+            }
+            if (probePosition == probe.getPositionCount()) {
+                probe = null;
+            }
+        }
+
+        if (!probeOuter && buildFinished && build == null && buildGroup.isEmpty()) {
+            // no remaining probe row can have a match
+            probe = null;
+            finishing = true;
+        }
+
+        Page output = null;
+        if (pageBuilder.isFull() || (finishing && probe == null && !pageBuilder.isEmpty())) {
+            output = pageBuilder.build();
+            pageBuilder.reset();
+        }
+
+        if (finishing && probe == null && pageBuilder.isEmpty()) {
+            finished = true;
+            buildSource.finish();
+            clearBuildGroup();
+        }
+
+        updateMemoryUsage();
+        return output;
+    }
+
+    @Override
+    public void close()
+    {
+        probe = null;
+        build = null;
+        buildGroup.clear();
+        memoryContext.setBytes(0);
+        buildSource.close();
+    }
+
+    /**
+     * Returns false if the build rows needed to join the current probe row are not available yet.
+     */
+    private boolean joinProbePosition()
+    {
+        if (hasNullKey(probe, probePosition)) {
+            // null keys never match
+            skipProbePosition();
+            return true;
+        }
+
+        if (!buildGroup.isEmpty()) {
+            int comparison = compareKeys(probe, probePosition, probeKeyChannels, buildGroup.get(0), 0, buildKeyChannels);
+            if (comparison == 0) {
+                if (!buildGroupComplete && !completeBuildGroup()) {
+                    return false;
+                }
+                appendMatches();
+                return true;
+            }
+            if (comparison < 0) {
+                skipProbePosition();
+                return true;
+            }
+            clearBuildGroup();
+        }
+
+        // skip the build rows sorted before the probe row
+        while (true) {
+            if (build == null || buildPosition == build.getPositionCount()) {
+                if (buildFinished) {
+                    skipProbePosition();
+                    return true;
+                }
+                if (!nextBuildPage()) {
+                    return false;
+                }
+                continue;
+            }
+
+            int comparison = compareKeys(probe, probePosition, probeKeyChannels, build, buildPosition, buildKeyChannels);
+            if (comparison > 0) {
+                buildPosition++;
+            }
+            else if (comparison < 0) {
+                skipProbePosition();
+                return true;
+            }
+            else {
+                // the matches are produced once the build group is complete
+                addToBuildGroup(build, buildPosition);
+                return true;
+            }
+        }
+    }
+
+    private boolean nextBuildPage()
+    {
+        build = null;
+        if (!buildPages.process()) {
+            return false;
+        }
+        if (buildPages.isFinished()) {
+            buildFinished = true;
+            return true;
+        }
+        build = buildPages.getResult();
+        buildPosition = 0;
+        return true;
+    }
+
+    private boolean completeBuildGroup()
+    {
+        while (!buildGroupComplete) {
+            if (build == null || buildPosition == build.getPositionCount()) {
+                if (buildFinished) {
+                    buildGroupComplete = true;
+                    break;
+                }
+                if (!nextBuildPage()) {
+                    return false;
+                }
+                continue;
+            }
+            addToBuildGroup(buildGroup.get(0), 0);
+        }
+        return true;
+    }
+
+    /**
+     * Adds the rows of the current build page starting at the current position that have
+     * the same key as the given row. The group is complete if a row with a different key is found.
+     */
+    private void addToBuildGroup(Page keyPage, int keyPosition)
+    {
+        int end = buildPosition;
+        while (end < build.getPositionCount() && compareKeys(keyPage, keyPosition, buildKeyChannels, build, end, buildKeyChannels) == 0) {
+            end++;
+        }
+        if (end > buildPosition) {
+            Page region = build.getRegion(buildPosition, end - buildPosition);
+            buildGroup.add(region);
+            buildGroupRetainedSizeInBytes += region.getRetainedSizeInBytes();
+        }
+        buildGroupComplete = end < build.getPositionCount();
+        buildPosition = end;
+    }
+
+    private void clearBuildGroup()
+    {
+        buildGroup.clear();
+        buildGroupRetainedSizeInBytes = 0;
+        buildGroupComplete = false;
+    }
+
+    private void appendMatches()
+    {
+        while (matchPage < buildGroup.size()) {
+            Page page = buildGroup.get(matchPage);
+            while (matchPosition < page.getPositionCount()) {
+                if (pageBuilder.isFull()) {
+                    return;
+                }
+                appendRow(page, matchPosition);
+                matchPosition++;
+            }
+            matchPage++;
+            matchPosition = 0;
+        }
+        matchPage = 0;
+        probePosition++;
+    }
+
+    private void skipProbePosition()
+    {
+        if (probeOuter) {
+            appendRow(null, 0);
+        }
+        probePosition++;
+    }
+
+    private void appendRow(Page buildPage, int position)
+    {
+        pageBuilder.declarePosition();
+        for (int i = 0; i < probeOutputChannels.length; i++) {
+            probeOutputTypes.get(i).appendTo(probe.getBlock(probeOutputChannels[i]), probePosition, pageBuilder.getBlockBuilder(i));
+        }
+        for (int i = 0; i < buildOutputChannels.length; i++) {
+            BlockBuilder blockBuilder = pageBuilder.getBlockBuilder(probeOutputChannels.length + i);
+            if (buildPage == null) {
+                blockBuilder.appendNull();
+            }
+            else {
+                buildOutputTypes.get(i).appendTo(buildPage.getBlock(buildOutputChannels[i]), position, blockBuilder);
+            }
+        }
+    }
+
+    private boolean hasNullKey(Page page, int position)
+    {
+        for (int channel : probeKeyChannels) {
+            if (page.getBlock(channel).isNull(position)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int compareKeys(Page left, int leftPosition, int[] leftChannels, Page right, int rightPosition, int[] rightChannels)
+    {
+        for (int i = 0; i < keyTypes.size(); i++) {
+            int comparison = sortOrders.get(i).compareBlockValue(
+                    keyTypes.get(i),
+                    left.getBlock(leftChannels[i]),
+                    leftPosition,
+                    right.getBlock(rightChannels[i]),
+                    rightPosition);
+            if (comparison != 0) {
+                return comparison;
+            }
+        }
+        return 0;
+    }
+
+    private void updateMemoryUsage()
+    {
+        memoryContext.setBytes(buildGroupRetainedSizeInBytes + pageBuilder.getRetainedSizeInBytes());
+    }
+}
@@ -15,6 +15,7 @@ package io.prestosql.operator;
 
 import com.fasterxml.jackson.annotation.JsonSubTypes;
 import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import io.prestosql.operator.HashAggregationOperator.HashAggregationInfo;
 import io.prestosql.operator.PartitionedOutputOperator.PartitionedOutputInfo;
 import io.prestosql.operator.TableWriterOperator.TableWriterInfo;
 import io.prestosql.operator.exchange.LocalExchangeBufferInfo;
@@ -29,6 +30,7 @@ import io.prestosql.operator.exchange.LocalExchangeBufferInfo;
         @JsonSubTypes.Type(value = TableFinishInfo.class, name = "tableFinish"),
         @JsonSubTypes.Type(value = SplitOperatorInfo.class, name = "splitOperator"),
         @JsonSubTypes.Type(value = HashCollisionsInfo.class, name = "hashCollisionsInfo"),
+        @JsonSubTypes.Type(value = HashAggregationInfo.class, name = "hashAggregationInfo"),
         @JsonSubTypes.Type(value = PartitionedOutputInfo.class, name = "partitionedOutput"),
         @JsonSubTypes.Type(value = JoinOperatorInfo.class, name = "joinOperatorInfo"),
         @JsonSubTypes.Type(value = WindowInfo.class, name = "windowInfo"),
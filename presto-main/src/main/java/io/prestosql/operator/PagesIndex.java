@@ -485,6 +485,8 @@ public class PagesIndex
                         session,
                         valueAddresses,
                         channels,
+                        types,
+                        joinChannels,
                         hashChannel,
                         filterFunctionFactory,
                         sortChannel,
@@ -510,6 +512,8 @@ public class PagesIndex
                 hashStrategy,
                 valueAddresses,
                 channels,
+                types,
+                joinChannels,
                 filterFunctionFactory,
                 sortChannel,
                 searchFunctionFactories);
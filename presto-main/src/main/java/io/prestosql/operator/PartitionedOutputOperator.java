@@ -15,6 +15,7 @@ package io.prestosql.operator;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.collect.ImmutableList;
 import com.google.common.util.concurrent.ListenableFuture;
 import io.airlift.units.DataSize;
 import io.prestosql.execution.buffer.OutputBuffer;
@@ -30,15 +31,18 @@ import io.prestosql.spi.predicate.NullableValue;
 import io.prestosql.spi.type.Type;
 import io.prestosql.sql.planner.plan.PlanNodeId;
 import io.prestosql.util.Mergeable;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
 
 import java.util.List;
 import java.util.Optional;
 import java.util.OptionalInt;
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Function;
 
 import static com.google.common.base.MoreObjects.toStringHelper;
 import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.collect.Sets.newIdentityHashSet;
 import static io.prestosql.execution.buffer.PageSplitterUtil.splitPage;
 import static io.prestosql.spi.block.PageBuilderStatus.DEFAULT_MAX_PAGE_SIZE_IN_BYTES;
 import static java.lang.Math.max;
@@ -58,6 +62,7 @@ public class PartitionedOutputOperator
         private final boolean replicatesAnyRow;
         private final OptionalInt nullChannel;
         private final DataSize maxMemory;
+        private final boolean preserveDictionaries;
 
         public PartitionedOutputFactory(
                 PartitionFunction partitionFunction,
@@ -66,7 +71,8 @@ public class PartitionedOutputOperator
                 boolean replicatesAnyRow,
                 OptionalInt nullChannel,
                 OutputBuffer outputBuffer,
-                DataSize maxMemory)
+                DataSize maxMemory,
+                boolean preserveDictionaries)
         {
             this.partitionFunction = requireNonNull(partitionFunction, "partitionFunction is null");
             this.partitionChannels = requireNonNull(partitionChannels, "partitionChannels is null");
@@ -75,6 +81,7 @@ public class PartitionedOutputOperator
             this.nullChannel = requireNonNull(nullChannel, "nullChannel is null");
             this.outputBuffer = requireNonNull(outputBuffer, "outputBuffer is null");
             this.maxMemory = requireNonNull(maxMemory, "maxMemory is null");
+            this.preserveDictionaries = preserveDictionaries;
         }
 
         @Override
@@ -97,7 +104,8 @@ public class PartitionedOutputOperator
                     nullChannel,
                     outputBuffer,
                     serdeFactory,
-                    maxMemory);
+                    maxMemory,
+                    preserveDictionaries);
         }
     }
 
@@ -116,6 +124,7 @@ public class PartitionedOutputOperator
         private final OutputBuffer outputBuffer;
         private final PagesSerdeFactory serdeFactory;
         private final DataSize maxMemory;
+        private final boolean preserveDictionaries;
 
         public PartitionedOutputOperatorFactory(
                 int operatorId,
@@ -129,7 +138,8 @@ public class PartitionedOutputOperator
                 OptionalInt nullChannel,
                 OutputBuffer outputBuffer,
                 PagesSerdeFactory serdeFactory,
-                DataSize maxMemory)
+                DataSize maxMemory,
+                boolean preserveDictionaries)
         {
             this.operatorId = operatorId;
             this.planNodeId = requireNonNull(planNodeId, "planNodeId is null");
@@ -143,6 +153,7 @@ public class PartitionedOutputOperator
             this.outputBuffer = requireNonNull(outputBuffer, "outputBuffer is null");
             this.serdeFactory = requireNonNull(serdeFactory, "serdeFactory is null");
             this.maxMemory = requireNonNull(maxMemory, "maxMemory is null");
+            this.preserveDictionaries = preserveDictionaries;
         }
 
         @Override
@@ -160,7 +171,8 @@ public class PartitionedOutputOperator
                     nullChannel,
                     outputBuffer,
                     serdeFactory,
-                    maxMemory);
+                    maxMemory,
+                    preserveDictionaries);
         }
 
         @Override
@@ -183,7 +195,8 @@ public class PartitionedOutputOperator
                     nullChannel,
                     outputBuffer,
                     serdeFactory,
-                    maxMemory);
+                    maxMemory,
+                    preserveDictionaries);
         }
     }
 
@@ -205,7 +218,8 @@ public class PartitionedOutputOperator
             OptionalInt nullChannel,
             OutputBuffer outputBuffer,
             PagesSerdeFactory serdeFactory,
-            DataSize maxMemory)
+            DataSize maxMemory,
+            boolean preserveDictionaries)
     {
         this.operatorContext = requireNonNull(operatorContext, "operatorContext is null");
         this.pagePreprocessor = requireNonNull(pagePreprocessor, "pagePreprocessor is null");
@@ -218,7 +232,8 @@ public class PartitionedOutputOperator
                 outputBuffer,
                 serdeFactory,
                 sourceTypes,
-                maxMemory);
+                maxMemory,
+                preserveDictionaries);
 
         operatorContext.setInfoSupplier(this::getInfo);
         this.systemMemoryContext = operatorContext.newLocalSystemMemoryContext(PartitionedOutputOperator.class.getSimpleName());
@@ -301,6 +316,10 @@ public class PartitionedOutputOperator
         private final List<Optional<Block>> partitionConstants;
         private final PagesSerde serde;
         private final PageBuilder[] pageBuilders;
+        // when dictionaries are preserved, the pages are built with these instead of the page builders
+        private final Optional<EncodingPreservingPageBuilder[]> encodingPreservingPageBuilders;
+        private final Optional<DictionarySharingSerializer[]> dictionarySharingSerializers;
+        private final IntArrayList[] partitionPositions;
         private final boolean replicatesAnyRow;
         private final OptionalInt nullChannel; // when present, send the position to every partition if this channel is null.
         private final AtomicLong rowsAdded = new AtomicLong();
@@ -316,7 +335,8 @@ public class PartitionedOutputOperator
                 OutputBuffer outputBuffer,
                 PagesSerdeFactory serdeFactory,
                 List<Type> sourceTypes,
-                DataSize maxMemory)
+                DataSize maxMemory,
+                boolean preserveDictionaries)
         {
             this.partitionFunction = requireNonNull(partitionFunction, "partitionFunction is null");
             this.partitionChannels = requireNonNull(partitionChannels, "partitionChannels is null");
@@ -333,10 +353,29 @@ public class PartitionedOutputOperator
             int pageSize = min(DEFAULT_MAX_PAGE_SIZE_IN_BYTES, ((int) maxMemory.toBytes()) / partitionCount);
             pageSize = max(1, pageSize);
 
-            this.pageBuilders = new PageBuilder[partitionCount];
-            for (int i = 0; i < partitionCount; i++) {
+            this.pageBuilders = new PageBuilder[preserveDictionaries ? 0 : partitionCount];
+            for (int i = 0; i < pageBuilders.length; i++) {
                 pageBuilders[i] = PageBuilder.withMaxPageSize(pageSize, sourceTypes);
             }
+
+            if (preserveDictionaries) {
+                EncodingPreservingPageBuilder[] builders = new EncodingPreservingPageBuilder[partitionCount];
+                DictionarySharingSerializer[] serializers = new DictionarySharingSerializer[partitionCount];
+                for (int i = 0; i < partitionCount; i++) {
+                    builders[i] = new EncodingPreservingPageBuilder(sourceTypes, pageSize);
+                    serializers[i] = new DictionarySharingSerializer(serde);
+                }
+                this.encodingPreservingPageBuilders = Optional.of(builders);
+                this.dictionarySharingSerializers = Optional.of(serializers);
+            }
+            else {
+                this.encodingPreservingPageBuilders = Optional.empty();
+                this.dictionarySharingSerializers = Optional.empty();
+            }
+            this.partitionPositions = new IntArrayList[preserveDictionaries ? partitionCount : 0];
+            for (int i = 0; i < partitionPositions.length; i++) {
+                partitionPositions[i] = new IntArrayList();
+            }
         }
 
         public ListenableFuture<?> isFull()
@@ -352,6 +391,20 @@ public class PartitionedOutputOperator
             for (PageBuilder pageBuilder : pageBuilders) {
                 sizeInBytes += pageBuilder.getSizeInBytes();
             }
+            if (encodingPreservingPageBuilders.isPresent()) {
+                for (EncodingPreservingPageBuilder pageBuilder : encodingPreservingPageBuilders.get()) {
+                    sizeInBytes += pageBuilder.getSizeInBytes();
+                }
+                // a dictionary is usually shared with many partitions, but only retained once
+                Set<Block> dictionaries = newIdentityHashSet();
+                for (DictionarySharingSerializer serializer : dictionarySharingSerializers.get()) {
+                    for (Block dictionary : serializer.getDictionaries()) {
+                        if (dictionaries.add(dictionary)) {
+                            sizeInBytes += dictionary.getSizeInBytes();
+                        }
+                    }
+                }
+            }
             return sizeInBytes;
         }
 
@@ -364,6 +417,11 @@ public class PartitionedOutputOperator
             for (PageBuilder pageBuilder : pageBuilders) {
                 sizeInBytes += pageBuilder.getRetainedSizeInBytes();
             }
+            if (encodingPreservingPageBuilders.isPresent()) {
+                for (EncodingPreservingPageBuilder pageBuilder : encodingPreservingPageBuilders.get()) {
+                    sizeInBytes += pageBuilder.getRetainedSizeInBytes();
+                }
+            }
             return sizeInBytes;
         }
 
@@ -376,6 +434,11 @@ public class PartitionedOutputOperator
         {
             requireNonNull(page, "page is null");
 
+            if (encodingPreservingPageBuilders.isPresent()) {
+                partitionPagePreservingEncodings(page, encodingPreservingPageBuilders.get());
+                return;
+            }
+
             Page partitionFunctionArgs = getPartitionFunctionArguments(page);
             for (int position = 0; position < page.getPositionCount(); position++) {
                 boolean shouldReplicate = (replicatesAnyRow && !hasAnyRowBeenReplicated) ||
@@ -394,6 +457,40 @@ public class PartitionedOutputOperator
             flush(false);
         }
 
+        /**
+         * Appends the positions of every partition at once, so the blocks of the page are
+         * not flattened and their dictionaries can be shared with the destinations.
+         */
+        private void partitionPagePreservingEncodings(Page page, EncodingPreservingPageBuilder[] pageBuilders)
+        {
+            for (IntArrayList positions : partitionPositions) {
+                positions.clear();
+            }
+
+            Page partitionFunctionArgs = getPartitionFunctionArguments(page);
+            for (int position = 0; position < page.getPositionCount(); position++) {
+                boolean shouldReplicate = (replicatesAnyRow && !hasAnyRowBeenReplicated) ||
+                        nullChannel.isPresent() && page.getBlock(nullChannel.getAsInt()).isNull(position);
+                if (shouldReplicate) {
+                    for (IntArrayList positions : partitionPositions) {
+                        positions.add(position);
+                    }
+                    hasAnyRowBeenReplicated = true;
+                }
+                else {
+                    partitionPositions[partitionFunction.getPartition(partitionFunctionArgs, position)].add(position);
+                }
+            }
+
+            for (int partition = 0; partition < pageBuilders.length; partition++) {
+                IntArrayList positions = partitionPositions[partition];
+                if (!positions.isEmpty()) {
+                    pageBuilders[partition].appendPositions(page, positions.elements(), positions.size());
+                }
+            }
+            flush(false);
+        }
+
         private Page getPartitionFunctionArguments(Page page)
         {
             Block[] blocks = new Block[partitionChannels.size()];
@@ -421,6 +518,11 @@ public class PartitionedOutputOperator
 
         public void flush(boolean force)
         {
+            if (encodingPreservingPageBuilders.isPresent()) {
+                flushPreservingEncodings(force, encodingPreservingPageBuilders.get(), dictionarySharingSerializers.get());
+                return;
+            }
+
             // add all full pages to output buffer
             for (int partition = 0; partition < pageBuilders.length; partition++) {
                 PageBuilder partitionPageBuilder = pageBuilders[partition];
@@ -438,6 +540,23 @@ public class PartitionedOutputOperator
                 }
             }
         }
+
+        private void flushPreservingEncodings(boolean force, EncodingPreservingPageBuilder[] pageBuilders, DictionarySharingSerializer[] serializers)
+        {
+            for (int partition = 0; partition < pageBuilders.length; partition++) {
+                EncodingPreservingPageBuilder partitionPageBuilder = pageBuilders[partition];
+                if (!partitionPageBuilder.isEmpty() && (force || partitionPageBuilder.isFull())) {
+                    Page pagePartition = partitionPageBuilder.build();
+                    outputBuffer.enqueue(partition, serializers[partition].serialize(pagePartition));
+                    pagesAdded.incrementAndGet();
+                    rowsAdded.addAndGet(pagePartition.getPositionCount());
+                }
+                if (force) {
+                    int destination = partition;
+                    serializers[partition].releaseAll().ifPresent(page -> outputBuffer.enqueue(destination, ImmutableList.of(page)));
+                }
+            }
+        }
     }
 
     public static class PartitionedOutputInfo
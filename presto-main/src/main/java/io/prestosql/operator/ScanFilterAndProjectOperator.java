@@ -35,6 +35,7 @@ import io.prestosql.spi.connector.ConnectorPageSource;
 import io.prestosql.spi.connector.RecordCursor;
 import io.prestosql.spi.connector.RecordPageSource;
 import io.prestosql.spi.connector.UpdatablePageSource;
+import io.prestosql.spi.predicate.TupleDomain;
 import io.prestosql.spi.type.Type;
 import io.prestosql.split.EmptySplit;
 import io.prestosql.split.EmptySplitPageSource;
@@ -82,6 +83,7 @@ public class ScanFilterAndProjectOperator
             PageProcessor pageProcessor,
             TableHandle table,
             Iterable<ColumnHandle> columns,
+            Supplier<TupleDomain<ColumnHandle>> dynamicFilter,
             Iterable<Type> types,
             DataSize minOutputPageSize,
             int minOutputPageRowCount,
@@ -96,6 +98,7 @@ public class ScanFilterAndProjectOperator
                         pageProcessor,
                         table,
                         columns,
+                        dynamicFilter,
                         types,
                         requireNonNull(memoryTrackingContext, "memoryTrackingContext is null").aggregateSystemMemoryContext(),
                         minOutputPageSize,
@@ -176,6 +179,7 @@ public class ScanFilterAndProjectOperator
         final PageProcessor pageProcessor;
         final TableHandle table;
         final List<ColumnHandle> columns;
+        final Supplier<TupleDomain<ColumnHandle>> dynamicFilter;
         final List<Type> types;
         final LocalMemoryContext memoryContext;
         final AggregatedMemoryContext localAggregatedMemoryContext;
@@ -193,6 +197,7 @@ public class ScanFilterAndProjectOperator
                 PageProcessor pageProcessor,
                 TableHandle table,
                 Iterable<ColumnHandle> columns,
+                Supplier<TupleDomain<ColumnHandle>> dynamicFilter,
                 Iterable<Type> types,
                 AggregatedMemoryContext aggregatedMemoryContext,
                 DataSize minOutputPageSize,
@@ -206,6 +211,7 @@ public class ScanFilterAndProjectOperator
             this.pageProcessor = requireNonNull(pageProcessor, "pageProcessor is null");
             this.table = requireNonNull(table, "table is null");
             this.columns = ImmutableList.copyOf(requireNonNull(columns, "columns is null"));
+            this.dynamicFilter = requireNonNull(dynamicFilter, "dynamicFilter is null");
             this.types = ImmutableList.copyOf(requireNonNull(types, "types is null"));
             this.memoryContext = aggregatedMemoryContext.newLocalMemoryContext(ScanFilterAndProjectOperator.class.getSimpleName());
             this.localAggregatedMemoryContext = newSimpleAggregatedMemoryContext();
@@ -226,21 +232,24 @@ public class ScanFilterAndProjectOperator
 
             checkState(cursor == null && pageSource == null, "Table scan split already set");
 
+            TupleDomain<ColumnHandle> dynamicPredicate = dynamicFilter.get();
             ConnectorPageSource source;
-            if (split.getConnectorSplit() instanceof EmptySplit) {
+            if (split.getConnectorSplit() instanceof EmptySplit || dynamicPredicate.isNone()) {
                 source = new EmptySplitPageSource();
             }
             else {
-                source = pageSourceProvider.createPageSource(session, split, table, columns);
+                source = pageSourceProvider.createPageSource(session, split, table, columns, dynamicPredicate);
             }
 
-            if (source instanceof RecordPageSource) {
+            // dynamic filters are applied to pages, so cursors are processed as pages while a filter is present
+            Optional<DynamicFilterPageFilter> dynamicPageFilter = DynamicFilterPageFilter.create(dynamicPredicate, columns);
+            if (source instanceof RecordPageSource && !dynamicPageFilter.isPresent()) {
                 cursor = ((RecordPageSource) source).getCursor();
                 return ofResult(processColumnSource());
             }
             else {
                 pageSource = source;
-                return ofResult(processPageSource());
+                return ofResult(processPageSource(dynamicPageFilter));
             }
         }
 
@@ -252,11 +261,15 @@ public class ScanFilterAndProjectOperator
                     .withProcessStateMonitor(state -> memoryContext.setBytes(localAggregatedMemoryContext.getBytes()));
         }
 
-        WorkProcessor<Page> processPageSource()
+        WorkProcessor<Page> processPageSource(Optional<DynamicFilterPageFilter> dynamicPageFilter)
         {
-            return WorkProcessor
+            WorkProcessor<Page> sourcePages = WorkProcessor
                     .create(new ConnectorPageSourceToPages(pageSourceMemoryContext))
-                    .yielding(yieldSignal::isSet)
+                    .yielding(yieldSignal::isSet);
+            if (dynamicPageFilter.isPresent()) {
+                sourcePages = sourcePages.map(dynamicPageFilter.get()::filter);
+            }
+            return sourcePages
                     .flatMap(page -> pageProcessor.createWorkProcessor(
                             session.toConnectorSession(),
                             yieldSignal,
@@ -387,6 +400,7 @@ public class ScanFilterAndProjectOperator
         private final PageSourceProvider pageSourceProvider;
         private final TableHandle table;
         private final List<ColumnHandle> columns;
+        private final Supplier<TupleDomain<ColumnHandle>> dynamicFilter;
         private final List<Type> types;
         private final DataSize minOutputPageSize;
         private final int minOutputPageRowCount;
@@ -401,6 +415,7 @@ public class ScanFilterAndProjectOperator
                 Supplier<PageProcessor> pageProcessor,
                 TableHandle table,
                 Iterable<ColumnHandle> columns,
+                Supplier<TupleDomain<ColumnHandle>> dynamicFilter,
                 List<Type> types,
                 DataSize minOutputPageSize,
                 int minOutputPageRowCount)
@@ -413,6 +428,7 @@ public class ScanFilterAndProjectOperator
             this.pageSourceProvider = requireNonNull(pageSourceProvider, "pageSourceProvider is null");
             this.table = requireNonNull(table, "table is null");
             this.columns = ImmutableList.copyOf(requireNonNull(columns, "columns is null"));
+            this.dynamicFilter = requireNonNull(dynamicFilter, "dynamicFilter is null");
             this.types = requireNonNull(types, "types is null");
             this.minOutputPageSize = requireNonNull(minOutputPageSize, "minOutputPageSize is null");
             this.minOutputPageRowCount = minOutputPageRowCount;
@@ -485,6 +501,7 @@ public class ScanFilterAndProjectOperator
                     pageProcessor.get(),
                     table,
                     columns,
+                    dynamicFilter,
                     types,
                     minOutputPageSize,
                     minOutputPageRowCount,
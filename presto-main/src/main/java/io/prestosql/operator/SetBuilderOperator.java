@@ -15,21 +15,38 @@ package io.prestosql.operator;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.Closer;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.SettableFuture;
 import io.prestosql.operator.ChannelSet.ChannelSetBuilder;
 import io.prestosql.spi.Page;
 import io.prestosql.spi.block.Block;
 import io.prestosql.spi.type.Type;
+import io.prestosql.spiller.PartitioningSpiller;
+import io.prestosql.spiller.PartitioningSpillerFactory;
 import io.prestosql.sql.gen.JoinCompiler;
 import io.prestosql.sql.planner.plan.PlanNodeId;
 
 import javax.annotation.Nullable;
+import javax.annotation.concurrent.GuardedBy;
 import javax.annotation.concurrent.ThreadSafe;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.util.concurrent.Futures.immediateFuture;
+import static com.google.common.util.concurrent.Futures.transformAsync;
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
+import static io.airlift.concurrent.MoreFutures.checkSuccess;
 import static java.util.Objects.requireNonNull;
 
 @ThreadSafe
@@ -39,7 +56,26 @@ public class SetBuilderOperator
     public static class SetSupplier
     {
         private final Type type;
-        private final SettableFuture<ChannelSet> channelSetFuture = SettableFuture.create();
+        private final SettableFuture<?> setBuilt = SettableFuture.create();
+        @Nullable
+        private volatile ChannelSet channelSet;
+        @Nullable
+        private volatile SpilledChannelSet spilledChannelSet;
+
+        // The probe operators of a spilled set spill their rows, and then compute the semi join
+        // together, one partition at a time, once all of them have finished spilling.
+        @GuardedBy("this")
+        private int probeOperators;
+        @GuardedBy("this")
+        private boolean noMoreProbeOperators;
+        @GuardedBy("this")
+        private int finishedProbeOperators;
+        @GuardedBy("this")
+        private int closedProbeOperators;
+        @GuardedBy("this")
+        private final List<PartitioningSpiller> probeSpillers = new ArrayList<>();
+        private final SettableFuture<?> probesFinished = SettableFuture.create();
+        private final AtomicInteger nextSpilledPartition = new AtomicInteger();
 
         public SetSupplier(Type type)
         {
@@ -51,16 +87,132 @@ public class SetBuilderOperator
             return type;
         }
 
-        public ListenableFuture<ChannelSet> getChannelSet()
+        public ListenableFuture<?> getSetBuilt()
         {
-            return channelSetFuture;
+            return setBuilt;
+        }
+
+        /**
+         * Returns the set, if it was built in memory.
+         */
+        public Optional<ChannelSet> getChannelSet()
+        {
+            checkState(setBuilt.isDone(), "Set is not built yet");
+            return Optional.ofNullable(channelSet);
+        }
+
+        /**
+         * Returns the set, if it was spilled.
+         */
+        public Optional<SpilledChannelSet> getSpilledChannelSet()
+        {
+            checkState(setBuilt.isDone(), "Set is not built yet");
+            return Optional.ofNullable(spilledChannelSet);
         }
 
         void setChannelSet(ChannelSet channelSet)
         {
-            boolean wasSet = channelSetFuture.set(requireNonNull(channelSet, "channelSet is null"));
+            this.channelSet = requireNonNull(channelSet, "channelSet is null");
+            boolean wasSet = setBuilt.set(null);
             checkState(wasSet, "ChannelSet already set");
         }
+
+        void setSpilledChannelSet(SpilledChannelSet spilledChannelSet)
+                throws IOException
+        {
+            this.spilledChannelSet = requireNonNull(spilledChannelSet, "spilledChannelSet is null");
+            boolean wasSet = setBuilt.set(null);
+            checkState(wasSet, "ChannelSet already set");
+            synchronized (this) {
+                closeSpilledSetIfUnused();
+            }
+        }
+
+        synchronized void addProbeOperator()
+        {
+            checkState(!noMoreProbeOperators, "No more probe operators expected");
+            probeOperators++;
+        }
+
+        synchronized void noMoreProbeOperators()
+                throws IOException
+        {
+            if (noMoreProbeOperators) {
+                return;
+            }
+            noMoreProbeOperators = true;
+            checkProbesFinished();
+            closeSpilledSetIfUnused();
+        }
+
+        /**
+         * Records that a probe operator will not spill any more rows. The rows of the spiller
+         * are joined by the probe operators that process the spilled partitions.
+         */
+        synchronized void probeOperatorFinished(Optional<PartitioningSpiller> probeSpiller)
+        {
+            probeSpiller.ifPresent(probeSpillers::add);
+            finishedProbeOperators++;
+            checkProbesFinished();
+        }
+
+        /**
+         * Completes once all probe operators of a spilled set have finished spilling.
+         */
+        public ListenableFuture<?> getProbesFinished()
+        {
+            return probesFinished;
+        }
+
+        /**
+         * Claims the next spilled partition that is not processed by any probe operator yet.
+         */
+        OptionalInt nextSpilledPartition()
+        {
+            checkState(probesFinished.isDone(), "Probe operators are still spilling");
+            int partition = nextSpilledPartition.getAndIncrement();
+            if (partition >= spilledChannelSet.getPartitionCount()) {
+                return OptionalInt.empty();
+            }
+            return OptionalInt.of(partition);
+        }
+
+        synchronized List<Iterator<Page>> getSpilledProbePages(int partition)
+        {
+            checkState(probesFinished.isDone(), "Probe operators are still spilling");
+            return probeSpillers.stream()
+                    .map(spiller -> spiller.getSpilledPages(partition))
+                    .collect(toImmutableList());
+        }
+
+        synchronized void probeOperatorClosed()
+                throws IOException
+        {
+            closedProbeOperators++;
+            closeSpilledSetIfUnused();
+        }
+
+        @GuardedBy("this")
+        private void checkProbesFinished()
+        {
+            if (noMoreProbeOperators && finishedProbeOperators == probeOperators) {
+                probesFinished.set(null);
+            }
+        }
+
+        @GuardedBy("this")
+        private void closeSpilledSetIfUnused()
+                throws IOException
+        {
+            if (spilledChannelSet == null || !noMoreProbeOperators || closedProbeOperators < probeOperators) {
+                return;
+            }
+            try (Closer closer = Closer.create()) {
+                closer.register(spilledChannelSet);
+                probeSpillers.forEach(closer::register);
+                probeSpillers.clear();
+            }
+        }
     }
 
     public static class SetBuilderOperatorFactory
@@ -74,6 +226,8 @@ public class SetBuilderOperator
         private final int expectedPositions;
         private boolean closed;
         private final JoinCompiler joinCompiler;
+        private final boolean spillEnabled;
+        private final PartitioningSpillerFactory partitioningSpillerFactory;
 
         public SetBuilderOperatorFactory(
                 int operatorId,
@@ -82,7 +236,9 @@ public class SetBuilderOperator
                 int setChannel,
                 Optional<Integer> hashChannel,
                 int expectedPositions,
-                JoinCompiler joinCompiler)
+                JoinCompiler joinCompiler,
+                boolean spillEnabled,
+                PartitioningSpillerFactory partitioningSpillerFactory)
         {
             this.operatorId = operatorId;
             this.planNodeId = requireNonNull(planNodeId, "planNodeId is null");
@@ -92,6 +248,8 @@ public class SetBuilderOperator
             this.hashChannel = requireNonNull(hashChannel, "hashChannel is null");
             this.expectedPositions = expectedPositions;
             this.joinCompiler = requireNonNull(joinCompiler, "joinCompiler is null");
+            this.spillEnabled = spillEnabled;
+            this.partitioningSpillerFactory = requireNonNull(partitioningSpillerFactory, "partitioningSpillerFactory is null");
         }
 
         public SetSupplier getSetProvider()
@@ -104,7 +262,7 @@ public class SetBuilderOperator
         {
             checkState(!closed, "Factory is already closed");
             OperatorContext operatorContext = driverContext.addOperatorContext(operatorId, planNodeId, SetBuilderOperator.class.getSimpleName());
-            return new SetBuilderOperator(operatorContext, setProvider, setChannel, hashChannel, expectedPositions, joinCompiler);
+            return new SetBuilderOperator(operatorContext, setProvider, setChannel, hashChannel, expectedPositions, joinCompiler, spillEnabled, partitioningSpillerFactory);
         }
 
         @Override
@@ -116,7 +274,7 @@ public class SetBuilderOperator
         @Override
         public OperatorFactory duplicate()
         {
-            return new SetBuilderOperatorFactory(operatorId, planNodeId, setProvider.getType(), setChannel, hashChannel, expectedPositions, joinCompiler);
+            return new SetBuilderOperatorFactory(operatorId, planNodeId, setProvider.getType(), setChannel, hashChannel, expectedPositions, joinCompiler, spillEnabled, partitioningSpillerFactory);
         }
     }
 
@@ -124,21 +282,32 @@ public class SetBuilderOperator
     private final SetSupplier setSupplier;
     private final int setChannel;
     private final Optional<Integer> hashChannel;
+    private final Optional<Integer> channelSetHashChannel;
+    private final int expectedPositions;
+    private final JoinCompiler joinCompiler;
+    private final boolean spillEnabled;
+    private final PartitioningSpillerFactory partitioningSpillerFactory;
 
-    private final ChannelSetBuilder channelSetBuilder;
+    private ChannelSetBuilder channelSetBuilder;
 
     private boolean finished;
 
     @Nullable
     private Work<?> unfinishedWork;  // The pending work for current page.
 
+    private Optional<PartitioningSpiller> valuesSpiller = Optional.empty();
+    private boolean spilledValuesContainNull;
+    private ListenableFuture<?> spillInProgress = immediateFuture(null);
+
     public SetBuilderOperator(
             OperatorContext operatorContext,
             SetSupplier setSupplier,
             int setChannel,
             Optional<Integer> hashChannel,
             int expectedPositions,
-            JoinCompiler joinCompiler)
+            JoinCompiler joinCompiler,
+            boolean spillEnabled,
+            PartitioningSpillerFactory partitioningSpillerFactory)
     {
         this.operatorContext = requireNonNull(operatorContext, "operatorContext is null");
         this.setSupplier = requireNonNull(setSupplier, "setProvider is null");
@@ -146,13 +315,23 @@ public class SetBuilderOperator
 
         this.hashChannel = requireNonNull(hashChannel, "hashChannel is null");
         // Set builder is has a single channel which goes in channel 0, if hash is present, add a hachBlock to channel 1
-        Optional<Integer> channelSetHashChannel = hashChannel.isPresent() ? Optional.of(1) : Optional.empty();
-        this.channelSetBuilder = new ChannelSetBuilder(
+        this.channelSetHashChannel = hashChannel.isPresent() ? Optional.of(1) : Optional.empty();
+        this.expectedPositions = expectedPositions;
+        this.joinCompiler = requireNonNull(joinCompiler, "joinCompiler is null");
+        this.spillEnabled = spillEnabled;
+        this.partitioningSpillerFactory = requireNonNull(partitioningSpillerFactory, "partitioningSpillerFactory is null");
+        this.channelSetBuilder = createChannelSetBuilder();
+    }
+
+    private ChannelSetBuilder createChannelSetBuilder()
+    {
+        return new ChannelSetBuilder(
                 setSupplier.getType(),
                 channelSetHashChannel,
                 expectedPositions,
-                requireNonNull(operatorContext, "operatorContext is null"),
-                requireNonNull(joinCompiler, "joinCompiler is null"));
+                operatorContext,
+                joinCompiler,
+                spillEnabled);
     }
 
     @Override
@@ -161,16 +340,55 @@ public class SetBuilderOperator
         return operatorContext;
     }
 
+    @Override
+    public ListenableFuture<?> isBlocked()
+    {
+        return spillInProgress;
+    }
+
     @Override
     public void finish()
     {
-        if (finished) {
+        if (finished || !spillInProgress.isDone()) {
+            return;
+        }
+        checkSuccess(spillInProgress, "spilling failed");
+
+        if (!valuesSpiller.isPresent()) {
+            ChannelSet channelSet = channelSetBuilder.build();
+            if (spillEnabled) {
+                // the set can no longer be spilled once it is handed to the probe side
+                operatorContext.localUserMemoryContext().setBytes(channelSetBuilder.getEstimatedSize());
+                operatorContext.localRevocableMemoryContext().setBytes(0);
+            }
+            setSupplier.setChannelSet(channelSet);
+            operatorContext.recordOutput(channelSet.getEstimatedSizeInBytes(), channelSet.size());
+            finished = true;
+            return;
+        }
+
+        if (channelSetBuilder.size() > 0) {
+            // spill the values added since the last spill; finish is called again once they are spilled
+            spillInProgress = spillValues();
             return;
         }
 
-        ChannelSet channelSet = channelSetBuilder.build();
-        setSupplier.setChannelSet(channelSet);
-        operatorContext.recordOutput(channelSet.getEstimatedSizeInBytes(), channelSet.size());
+        SpilledChannelSet spilledChannelSet = new SpilledChannelSet(
+                setSupplier.getType(),
+                valuesSpiller.get(),
+                spilledValuesContainNull,
+                expectedPositions,
+                partitioningSpillerFactory,
+                operatorContext.getSpillContext(),
+                joinCompiler);
+        valuesSpiller = Optional.empty();
+        try {
+            setSupplier.setSpilledChannelSet(spilledChannelSet);
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        operatorContext.localRevocableMemoryContext().setBytes(0);
         finished = true;
     }
 
@@ -186,7 +404,7 @@ public class SetBuilderOperator
         // Since SetBuilderOperator doesn't produce any output, the getOutput()
         // method may never be called. We need to handle any unfinished work
         // before addInput() can be called again.
-        return !finished && (unfinishedWork == null || processUnfinishedWork());
+        return !finished && spillInProgress.isDone() && (unfinishedWork == null || processUnfinishedWork());
     }
 
     @Override
@@ -194,6 +412,7 @@ public class SetBuilderOperator
     {
         requireNonNull(page, "page is null");
         checkState(!isFinished(), "Operator is already finished");
+        checkSuccess(spillInProgress, "spilling failed");
 
         Block sourceBlock = page.getBlock(setChannel);
         Page sourcePage = hashChannel.isPresent() ? new Page(sourceBlock, page.getBlock(hashChannel.get())) : new Page(sourceBlock);
@@ -208,6 +427,53 @@ public class SetBuilderOperator
         return null;
     }
 
+    @Override
+    public ListenableFuture<?> startMemoryRevoke()
+    {
+        if (finished || channelSetBuilder.size() == 0) {
+            return immediateFuture(null);
+        }
+        // the set does not yield when spill is enabled, so every page is added completely
+        checkState(unfinishedWork == null, "Set has unfinished work");
+        spillInProgress = spillValues();
+        return spillInProgress;
+    }
+
+    @Override
+    public void finishMemoryRevoke()
+    {
+        if (finished) {
+            return;
+        }
+        channelSetBuilder.updateMemoryReservation();
+    }
+
+    private ListenableFuture<?> spillValues()
+    {
+        if (!valuesSpiller.isPresent()) {
+            valuesSpiller = Optional.of(SpilledChannelSet.createPartitioningSpiller(
+                    partitioningSpillerFactory,
+                    ImmutableList.of(setSupplier.getType()),
+                    0,
+                    operatorContext.getSpillContext()));
+        }
+        spilledValuesContainNull |= channelSetBuilder.build().containsNull();
+        Iterator<Page> values = channelSetBuilder.getValues();
+        // the values are read while spilling, and the memory of the spilled builder is released in finishMemoryRevoke
+        channelSetBuilder = createChannelSetBuilder();
+        return spillPages(valuesSpiller.get(), values);
+    }
+
+    private static ListenableFuture<?> spillPages(PartitioningSpiller spiller, Iterator<Page> pages)
+    {
+        if (!pages.hasNext()) {
+            return immediateFuture(null);
+        }
+        // a spiller may only have one spill in progress
+        ListenableFuture<?> spilled = spiller.partitionAndSpill(pages.next(), partition -> true).getSpillingFuture();
+        return transformAsync(spilled, ignored -> spillPages(spiller, pages), directExecutor());
+    }
+
     private boolean processUnfinishedWork()
     {
         // Processes the unfinishedWork for this page by adding the data to the hash table. If this page
@@ -222,6 +488,16 @@ public class SetBuilderOperator
         return done;
     }
 
+    @Override
+    public void close()
+            throws IOException
+    {
+        if (valuesSpiller.isPresent()) {
+            // the set was not handed to the probe side
+            valuesSpiller.get().close();
+        }
+    }
+
     @VisibleForTesting
     public int getCapacity()
     {
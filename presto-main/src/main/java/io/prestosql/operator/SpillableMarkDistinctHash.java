@@ -0,0 +1,268 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.operator;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.Closer;
+import com.google.common.primitives.Ints;
+import com.google.common.util.concurrent.ListenableFuture;
+import io.prestosql.operator.WorkProcessor.Transformation;
+import io.prestosql.operator.WorkProcessor.TransformationState;
+import io.prestosql.operator.exchange.LocalPartitionGenerator;
+import io.prestosql.spi.Page;
+import io.prestosql.spi.block.Block;
+import io.prestosql.spi.type.Type;
+import io.prestosql.spiller.PartitioningSpiller;
+import io.prestosql.spiller.PartitioningSpillerFactory;
+import io.prestosql.sql.gen.JoinCompiler;
+
+import javax.annotation.Nullable;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.collect.Iterators.transform;
+import static com.google.common.util.concurrent.Futures.immediateFuture;
+import static com.google.common.util.concurrent.Futures.transformAsync;
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * {@link MarkDistinctHash} that can release its memory by spilling. On the first spill the
+ * values marked so far are written to disk partitioned by their hash, and from then on the
+ * input rows are written to the same partitions instead of being marked. The spilled rows are
+ * marked one partition at a time, after the hash of the partition has been rebuilt from its
+ * spilled values.
+ */
+public class SpillableMarkDistinctHash
+        implements Closeable
+{
+    private static final int SPILL_PARTITION_COUNT = 16;
+
+    private final OperatorContext operatorContext;
+    private final List<Type> sourceTypes;
+    private final List<Type> distinctTypes;
+    private final int[] distinctChannels;
+    // channels of the distinct values in the spilled value pages
+    private final int[] valueChannels;
+    private final JoinCompiler joinCompiler;
+    private final UpdateMemory updateMemory;
+    private final PartitioningSpillerFactory spillerFactory;
+
+    // null after spilling, until the spilled partitions are marked
+    @Nullable
+    private MarkDistinctHash markDistinctHash;
+
+    private Optional<PartitioningSpiller> distinctValuesSpiller = Optional.empty();
+    private Optional<PartitioningSpiller> inputSpiller = Optional.empty();
+
+    public SpillableMarkDistinctHash(
+            OperatorContext operatorContext,
+            List<Type> sourceTypes,
+            List<Integer> distinctChannels,
+            Optional<Integer> hashChannel,
+            int expectedDistinctValues,
+            JoinCompiler joinCompiler,
+            UpdateMemory updateMemory,
+            PartitioningSpillerFactory spillerFactory)
+    {
+        this.operatorContext = requireNonNull(operatorContext, "operatorContext is null");
+        this.sourceTypes = ImmutableList.copyOf(requireNonNull(sourceTypes, "sourceTypes is null"));
+        this.distinctTypes = distinctChannels.stream()
+                .map(sourceTypes::get)
+                .collect(toImmutableList());
+        this.distinctChannels = Ints.toArray(distinctChannels);
+        this.valueChannels = IntStream.range(0, distinctTypes.size()).toArray();
+        this.joinCompiler = requireNonNull(joinCompiler, "joinCompiler is null");
+        this.updateMemory = requireNonNull(updateMemory, "updateMemory is null");
+        this.spillerFactory = requireNonNull(spillerFactory, "spillerFactory is null");
+
+        this.markDistinctHash = new MarkDistinctHash(
+                operatorContext.getSession(),
+                distinctTypes,
+                this.distinctChannels,
+                requireNonNull(hashChannel, "hashChannel is null"),
+                expectedDistinctValues,
+                joinCompiler,
+                updateMemory);
+    }
+
+    public Work<Block> markDistinctRows(Page page)
+    {
+        checkState(!isSpilled(), "Rows can not be marked in memory after spilling");
+        return markDistinctHash.markDistinctRows(page);
+    }
+
+    public boolean isSpilled()
+    {
+        return inputSpiller.isPresent();
+    }
+
+    public long getEstimatedSize()
+    {
+        return markDistinctHash == null ? 0 : markDistinctHash.getEstimatedSize();
+    }
+
+    public int getCapacity()
+    {
+        checkState(markDistinctHash != null, "Values are spilled");
+        return markDistinctHash.getCapacity();
+    }
+
+    /**
+     * Spills the values marked so far. The memory of the hash is released by
+     * {@link #finishMemoryRevoke()} once the returned future completes.
+     */
+    public ListenableFuture<?> startMemoryRevoke()
+    {
+        if (!isSpilled()) {
+            distinctValuesSpiller = Optional.of(spillerFactory.create(
+                    distinctTypes,
+                    new LocalPartitionGenerator(new InterpretedHashGenerator(distinctTypes, valueChannels), SPILL_PARTITION_COUNT),
+                    operatorContext.getSpillContext().newLocalSpillContext(),
+                    operatorContext.newAggregateSystemMemoryContext()));
+            inputSpiller = Optional.of(spillerFactory.create(
+                    sourceTypes,
+                    new LocalPartitionGenerator(new InterpretedHashGenerator(distinctTypes, distinctChannels), SPILL_PARTITION_COUNT),
+                    operatorContext.getSpillContext().newLocalSpillContext(),
+                    operatorContext.newAggregateSystemMemoryContext()));
+        }
+        if (markDistinctHash == null) {
+            return immediateFuture(null);
+        }
+
+        // the precomputed hash is not spilled, the partition hashes compute their own
+        Iterator<Page> distinctValues = transform(markDistinctHash.getDistinctValues(), page -> getChannels(page, valueChannels));
+        return spillPages(distinctValuesSpiller.get(), distinctValues);
+    }
+
+    public void finishMemoryRevoke()
+    {
+        markDistinctHash = null;
+    }
+
+    /**
+     * Spills an input row page. Rows are no longer marked in memory once the hash has been spilled.
+     */
+    public ListenableFuture<?> spillInput(Page page)
+    {
+        checkState(isSpilled(), "Input can only be spilled after the distinct values");
+        return inputSpiller.get().partitionAndSpill(page, partition -> true).getSpillingFuture();
+    }
+
+    /**
+     * Returns the spilled input rows with the distinct mark appended as the last channel.
+     */
+    public WorkProcessor<Page> markSpilledRows()
+    {
+        checkState(isSpilled(), "Nothing was spilled");
+        return WorkProcessor.fromIterable(IntStream.range(0, SPILL_PARTITION_COUNT).boxed().collect(toImmutableList()))
+                .flatMap(this::markSpilledPartition);
+    }
+
+    private WorkProcessor<Page> markSpilledPartition(int partition)
+    {
+        MarkDistinctHash partitionHash = new MarkDistinctHash(
+                operatorContext.getSession(),
+                distinctTypes,
+                valueChannels,
+                Optional.empty(),
+                joinCompiler,
+                updateMemory);
+        markDistinctHash = partitionHash;
+
+        WorkProcessor<Page> distinctValues = WorkProcessor.fromIterator(distinctValuesSpiller.get().getSpilledPages(partition))
+                .transform(new MarkRows(partitionHash, Function.identity(), false));
+        WorkProcessor<Page> rows = WorkProcessor.fromIterator(inputSpiller.get().getSpilledPages(partition))
+                .transform(new MarkRows(partitionHash, page -> getChannels(page, distinctChannels), true));
+        return WorkProcessor.flatten(WorkProcessor.of(distinctValues, rows));
+    }
+
+    private static Page getChannels(Page page, int[] channels)
+    {
+        Block[] blocks = new Block[channels.length];
+        for (int i = 0; i < channels.length; i++) {
+            blocks[i] = page.getBlock(channels[i]);
+        }
+        return new Page(page.getPositionCount(), blocks);
+    }
+
+    private static ListenableFuture<?> spillPages(PartitioningSpiller spiller, Iterator<Page> pages)
+    {
+        if (!pages.hasNext()) {
+            return immediateFuture(null);
+        }
+        // a spiller may only have one spill in progress
+        ListenableFuture<?> spilled = spiller.partitionAndSpill(pages.next(), partition -> true).getSpillingFuture();
+        return transformAsync(spilled, ignored -> spillPages(spiller, pages), directExecutor());
+    }
+
+    @Override
+    public void close()
+            throws IOException
+    {
+        markDistinctHash = null;
+        try (Closer closer = Closer.create()) {
+            distinctValuesSpiller.ifPresent(closer::register);
+            inputSpiller.ifPresent(closer::register);
+        }
+    }
+
+    private static class MarkRows
+            implements Transformation<Page, Page>
+    {
+        private final MarkDistinctHash markDistinctHash;
+        private final Function<Page, Page> valuesExtractor;
+        private final boolean produceOutput;
+
+        private Work<Block> unfinishedWork;
+
+        MarkRows(MarkDistinctHash markDistinctHash, Function<Page, Page> valuesExtractor, boolean produceOutput)
+        {
+            this.markDistinctHash = markDistinctHash;
+            this.valuesExtractor = valuesExtractor;
+            this.produceOutput = produceOutput;
+        }
+
+        @Override
+        public TransformationState<Page> process(Page page)
+        {
+            if (page == null) {
+                return TransformationState.finished();
+            }
+
+            if (unfinishedWork == null) {
+                unfinishedWork = markDistinctHash.markDistinctRows(valuesExtractor.apply(page));
+            }
+            if (!unfinishedWork.process()) {
+                return TransformationState.yield();
+            }
+            Block distinctMask = unfinishedWork.getResult();
+            unfinishedWork = null;
+
+            if (!produceOutput) {
+                // the values only rebuild the hash
+                return TransformationState.needsMoreData();
+            }
+            return TransformationState.ofResult(page.appendColumn(distinctMask));
+        }
+    }
+}
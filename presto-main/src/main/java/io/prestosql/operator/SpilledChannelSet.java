@@ -0,0 +1,126 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.operator;
+
+import com.google.common.collect.ImmutableList;
+import io.prestosql.memory.context.LocalMemoryContext;
+import io.prestosql.operator.exchange.LocalPartitionGenerator;
+import io.prestosql.spi.Page;
+import io.prestosql.spi.type.Type;
+import io.prestosql.spiller.PartitioningSpiller;
+import io.prestosql.spiller.PartitioningSpillerFactory;
+import io.prestosql.sql.gen.JoinCompiler;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+
+import static com.google.common.base.Preconditions.checkState;
+import static io.prestosql.memory.context.AggregatedMemoryContext.newSimpleAggregatedMemoryContext;
+import static io.prestosql.operator.GroupByHash.createGroupByHash;
+import static io.prestosql.operator.UpdateMemory.NOOP;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Filtering source of a semi join that did not fit in memory. The distinct values are spilled
+ * partitioned by their hash and the probe rows are spilled with the same partitioning, so the
+ * semi join can be computed one partition at a time, with only the values of that partition in memory.
+ */
+public class SpilledChannelSet
+        implements Closeable
+{
+    static final int SPILL_PARTITION_COUNT = 16;
+
+    private static final int[] VALUE_CHANNELS = {0};
+
+    private final Type type;
+    private final PartitioningSpiller valuesSpiller;
+    private final boolean containsNull;
+    private final int expectedPositions;
+    private final PartitioningSpillerFactory spillerFactory;
+    private final SpillContext spillContext;
+    private final JoinCompiler joinCompiler;
+
+    public SpilledChannelSet(
+            Type type,
+            PartitioningSpiller valuesSpiller,
+            boolean containsNull,
+            int expectedPositions,
+            PartitioningSpillerFactory spillerFactory,
+            SpillContext spillContext,
+            JoinCompiler joinCompiler)
+    {
+        this.type = requireNonNull(type, "type is null");
+        this.valuesSpiller = requireNonNull(valuesSpiller, "valuesSpiller is null");
+        this.containsNull = containsNull;
+        this.expectedPositions = expectedPositions;
+        this.spillerFactory = requireNonNull(spillerFactory, "spillerFactory is null");
+        this.spillContext = requireNonNull(spillContext, "spillContext is null");
+        this.joinCompiler = requireNonNull(joinCompiler, "joinCompiler is null");
+    }
+
+    /**
+     * Creates a spiller that partitions rows on the value in {@code partitionChannel} the same way
+     * as the spilled values of the set.
+     */
+    static PartitioningSpiller createPartitioningSpiller(PartitioningSpillerFactory spillerFactory, List<Type> types, int partitionChannel, SpillContext spillContext)
+    {
+        // the spilled set outlives the operators that spill it, so its buffers are not accounted to them
+        return spillerFactory.create(
+                types,
+                new LocalPartitionGenerator(new InterpretedHashGenerator(ImmutableList.of(types.get(partitionChannel)), new int[] {partitionChannel}), SPILL_PARTITION_COUNT),
+                spillContext.newLocalSpillContext(),
+                newSimpleAggregatedMemoryContext());
+    }
+
+    public PartitioningSpiller createProbeSpiller(List<Type> probeTypes, int probeJoinChannel)
+    {
+        return createPartitioningSpiller(spillerFactory, probeTypes, probeJoinChannel, spillContext);
+    }
+
+    public boolean containsNull()
+    {
+        return containsNull;
+    }
+
+    public int getPartitionCount()
+    {
+        return SPILL_PARTITION_COUNT;
+    }
+
+    /**
+     * Rebuilds the values of a partition in memory. The returned set reports whether the whole
+     * set contains null. Each partition can be loaded only once.
+     */
+    public ChannelSet loadPartition(int partition, LocalMemoryContext memoryContext)
+    {
+        GroupByHash hash = createGroupByHash(ImmutableList.of(type), VALUE_CHANNELS, Optional.empty(), expectedPositions, false, joinCompiler, NOOP);
+        Iterator<Page> values = valuesSpiller.getSpilledPages(partition);
+        while (values.hasNext()) {
+            boolean done = hash.addPage(values.next()).process();
+            checkState(done, "Work that does not update memory should not yield");
+            memoryContext.setBytes(hash.getEstimatedSize());
+        }
+        return new ChannelSet(hash, containsNull, VALUE_CHANNELS);
+    }
+
+    @Override
+    public void close()
+            throws IOException
+    {
+        valuesSpiller.close();
+    }
+}
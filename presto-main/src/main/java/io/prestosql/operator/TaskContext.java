@@ -15,9 +15,11 @@ package io.prestosql.operator;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.util.concurrent.AtomicDouble;
 import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
 import io.airlift.stats.CounterStat;
 import io.airlift.stats.GcMonitor;
 import io.airlift.units.DataSize;
@@ -32,12 +34,15 @@ import io.prestosql.memory.QueryContext;
 import io.prestosql.memory.QueryContextVisitor;
 import io.prestosql.memory.context.LocalMemoryContext;
 import io.prestosql.memory.context.MemoryTrackingContext;
+import io.prestosql.spi.predicate.Domain;
 import org.joda.time.DateTime;
 
 import javax.annotation.concurrent.GuardedBy;
 import javax.annotation.concurrent.ThreadSafe;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.OptionalInt;
 import java.util.Set;
 import java.util.concurrent.CopyOnWriteArrayList;
@@ -50,6 +55,8 @@ import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.collect.ImmutableSet.toImmutableSet;
 import static com.google.common.collect.Iterables.transform;
 import static com.google.common.collect.Sets.newConcurrentHashSet;
+import static com.google.common.util.concurrent.Futures.immediateFuture;
+import static com.google.common.util.concurrent.Futures.nonCancellationPropagating;
 import static io.airlift.units.DataSize.Unit.BYTE;
 import static io.airlift.units.DataSize.succinctBytes;
 import static java.lang.Math.max;
@@ -84,6 +91,13 @@ public class TaskContext
 
     private final Set<Lifespan> completedDriverGroups = newConcurrentHashSet();
 
+    @GuardedBy("this")
+    private final Map<String, Domain> dynamicFilterDomains = new HashMap<>();
+    @GuardedBy("this")
+    private long dynamicFiltersVersion;
+    @GuardedBy("this")
+    private SettableFuture<?> dynamicFiltersChanged = SettableFuture.create();
+
     private final List<PipelineContext> pipelineContexts = new CopyOnWriteArrayList<>();
 
     private final boolean perOperatorCpuTimerEnabled;
@@ -265,6 +279,47 @@ public class TaskContext
         completedDriverGroups.add(driverGroup);
     }
 
+    /**
+     * Returns the dynamic filters collected by the joins of this task, keyed by dynamic filter ID.
+     */
+    public synchronized Map<String, Domain> getDynamicFilterDomains()
+    {
+        return ImmutableMap.copyOf(dynamicFilterDomains);
+    }
+
+    public void addDynamicFilter(Map<String, Domain> domains)
+    {
+        SettableFuture<?> changed;
+        synchronized (this) {
+            for (Map.Entry<String, Domain> entry : domains.entrySet()) {
+                dynamicFilterDomains.merge(entry.getKey(), entry.getValue(), Domain::intersect);
+            }
+            dynamicFiltersVersion++;
+            changed = dynamicFiltersChanged;
+            dynamicFiltersChanged = SettableFuture.create();
+        }
+        changed.set(null);
+    }
+
+    /**
+     * Returns the version of the dynamic filters of this task, which is incremented every time a dynamic filter is added.
+     */
+    public synchronized long getDynamicFiltersVersion()
+    {
+        return dynamicFiltersVersion;
+    }
+
+    /**
+     * Returns a future which completes once the dynamic filters of this task are newer than the given version.
+     */
+    public synchronized ListenableFuture<?> getDynamicFiltersChange(long callersVersion)
+    {
+        if (dynamicFiltersVersion > callersVersion) {
+            return immediateFuture(null);
+        }
+        return nonCancellationPropagating(dynamicFiltersChanged);
+    }
+
     public List<PipelineContext> getPipelineContexts()
     {
         return pipelineContexts;
@@ -469,6 +469,11 @@ public class TaskStats
     }
 
     public TaskStats summarize()
+    {
+        return withPipelines(ImmutableList.of());
+    }
+
+    public TaskStats withPipelines(List<PipelineStats> pipelines)
     {
         return new TaskStats(
                 createTime,
@@ -507,7 +512,7 @@ public class TaskStats
                 physicalWrittenDataSize,
                 fullGcCount,
                 fullGcTime,
-                ImmutableList.of());
+                pipelines);
     }
 
     public TaskStats summarizeFinal()
@@ -16,11 +16,16 @@ package io.prestosql.operator;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableList;
 import com.google.common.primitives.Ints;
+import com.google.common.util.concurrent.ListenableFuture;
 import io.prestosql.memory.context.LocalMemoryContext;
+import io.prestosql.operator.WorkProcessor.Transformation;
+import io.prestosql.operator.WorkProcessor.TransformationState;
 import io.prestosql.spi.Page;
 import io.prestosql.spi.block.Block;
 import io.prestosql.spi.block.SortOrder;
 import io.prestosql.spi.type.Type;
+import io.prestosql.spiller.Spiller;
+import io.prestosql.spiller.SpillerFactory;
 import io.prestosql.sql.gen.JoinCompiler;
 import io.prestosql.sql.planner.plan.PlanNodeId;
 
@@ -30,6 +35,11 @@ import java.util.Optional;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.base.Verify.verify;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.collect.Iterators.transform;
+import static com.google.common.util.concurrent.Futures.immediateFuture;
+import static io.airlift.concurrent.MoreFutures.checkSuccess;
 import static io.prestosql.SystemSessionProperties.isDictionaryAggregationEnabled;
 import static io.prestosql.operator.GroupByHash.createGroupByHash;
 import static io.prestosql.spi.type.BigintType.BIGINT;
@@ -59,6 +69,8 @@ public class TopNRowNumberOperator
         private final boolean generateRowNumber;
         private boolean closed;
         private final JoinCompiler joinCompiler;
+        private final boolean spillEnabled;
+        private final Optional<SpillerFactory> spillerFactory;
 
         public TopNRowNumberOperatorFactory(
                 int operatorId,
@@ -73,7 +85,9 @@ public class TopNRowNumberOperator
                 boolean partial,
                 Optional<Integer> hashChannel,
                 int expectedPositions,
-                JoinCompiler joinCompiler)
+                JoinCompiler joinCompiler,
+                boolean spillEnabled,
+                Optional<SpillerFactory> spillerFactory)
         {
             this.operatorId = operatorId;
             this.planNodeId = requireNonNull(planNodeId, "planNodeId is null");
@@ -91,6 +105,9 @@ public class TopNRowNumberOperator
             this.generateRowNumber = !partial;
             this.expectedPositions = expectedPositions;
             this.joinCompiler = requireNonNull(joinCompiler, "joinCompiler is null");
+            this.spillEnabled = spillEnabled;
+            this.spillerFactory = requireNonNull(spillerFactory, "spillerFactory is null");
+            checkArgument(!spillEnabled || spillerFactory.isPresent(), "Spiller Factory is not present when spill is enabled");
         }
 
         @Override
@@ -110,7 +127,9 @@ public class TopNRowNumberOperator
                     generateRowNumber,
                     hashChannel,
                     expectedPositions,
-                    joinCompiler);
+                    joinCompiler,
+                    spillEnabled,
+                    spillerFactory);
         }
 
         @Override
@@ -122,21 +141,43 @@ public class TopNRowNumberOperator
         @Override
         public OperatorFactory duplicate()
         {
-            return new TopNRowNumberOperatorFactory(operatorId, planNodeId, sourceTypes, outputChannels, partitionChannels, partitionTypes, sortChannels, sortOrder, maxRowCountPerPartition, partial, hashChannel, expectedPositions, joinCompiler);
+            return new TopNRowNumberOperatorFactory(operatorId, planNodeId, sourceTypes, outputChannels, partitionChannels, partitionTypes, sortChannels, sortOrder, maxRowCountPerPartition, partial, hashChannel, expectedPositions, joinCompiler, spillEnabled, spillerFactory);
         }
     }
 
     private final OperatorContext operatorContext;
     private final LocalMemoryContext localUserMemoryContext;
+    private final LocalMemoryContext localRevocableMemoryContext;
 
     private final List<Integer> outputChannels;
 
-    private final GroupByHash groupByHash;
-    private final GroupedTopNBuilder groupedTopNBuilder;
+    private final List<Type> sourceTypes;
+    private final List<Integer> partitionChannels;
+    private final List<Type> partitionTypes;
+    private final Optional<Integer> hashChannel;
+    private final int expectedPositions;
+    private final JoinCompiler joinCompiler;
+    private final PageWithPositionComparator comparator;
+    private final int maxRowCountPerPartition;
+    private final boolean generateRowNumber;
+
+    private final boolean spillEnabled;
+    private final Optional<SpillerFactory> spillerFactory;
+    private final HashGenerator partitionHashGenerator;
+
+    private GroupByHash groupByHash;
+    private GroupedTopNBuilder groupedTopNBuilder;
+    // builds the result of the partitions in a page of merged spilled rows
+    private Optional<GroupedTopNBuilder> mergingTopNBuilder = Optional.empty();
+
+    private Optional<Spiller> spiller = Optional.empty();
+    private ListenableFuture<?> spillInProgress = immediateFuture(null);
+    private Runnable finishMemoryRevoke = () -> {};
+    private Optional<MergeHashSort> mergeHashSort = Optional.empty();
 
     private boolean finishing;
     private Work<?> unfinishedWork;
-    private Iterator<Page> outputIterator;
+    private Iterator<Optional<Page>> outputIterator;
 
     public TopNRowNumberOperator(
             OperatorContext operatorContext,
@@ -150,10 +191,13 @@ public class TopNRowNumberOperator
             boolean generateRowNumber,
             Optional<Integer> hashChannel,
             int expectedPositions,
-            JoinCompiler joinCompiler)
+            JoinCompiler joinCompiler,
+            boolean spillEnabled,
+            Optional<SpillerFactory> spillerFactory)
     {
         this.operatorContext = requireNonNull(operatorContext, "operatorContext is null");
         this.localUserMemoryContext = operatorContext.localUserMemoryContext();
+        this.localRevocableMemoryContext = operatorContext.localRevocableMemoryContext();
 
         ImmutableList.Builder<Integer> outputChannelsBuilder = ImmutableList.builder();
         for (int channel : requireNonNull(outputChannels, "outputChannels is null")) {
@@ -165,29 +209,28 @@ public class TopNRowNumberOperator
         this.outputChannels = outputChannelsBuilder.build();
 
         checkArgument(maxRowCountPerPartition > 0, "maxRowCountPerPartition must be > 0");
-
         if (!partitionChannels.isEmpty()) {
             checkArgument(expectedPositions > 0, "expectedPositions must be > 0");
-            groupByHash = createGroupByHash(
-                    partitionTypes,
-                    Ints.toArray(partitionChannels),
-                    hashChannel,
-                    expectedPositions,
-                    isDictionaryAggregationEnabled(operatorContext.getSession()),
-                    joinCompiler,
-                    this::updateMemoryReservation);
-        }
-        else {
-            groupByHash = new NoChannelGroupByHash();
         }
 
+        this.sourceTypes = ImmutableList.copyOf(sourceTypes);
+        this.partitionChannels = ImmutableList.copyOf(requireNonNull(partitionChannels, "partitionChannels is null"));
+        this.partitionTypes = ImmutableList.copyOf(requireNonNull(partitionTypes, "partitionTypes is null"));
+        this.hashChannel = requireNonNull(hashChannel, "hashChannel is null");
+        this.expectedPositions = expectedPositions;
+        this.joinCompiler = requireNonNull(joinCompiler, "joinCompiler is null");
         List<Type> types = toTypes(sourceTypes, outputChannels, generateRowNumber);
-        this.groupedTopNBuilder = new GroupedTopNBuilder(
-                ImmutableList.copyOf(sourceTypes),
-                new SimplePageWithPositionComparator(types, sortChannels, sortOrders),
-                maxRowCountPerPartition,
-                generateRowNumber,
-                groupByHash);
+        this.comparator = new SimplePageWithPositionComparator(types, sortChannels, sortOrders);
+        this.maxRowCountPerPartition = maxRowCountPerPartition;
+        this.generateRowNumber = generateRowNumber;
+
+        // without partitions the operator retains at most maxRowCountPerPartition rows, so there is nothing to gain from spilling
+        this.spillEnabled = spillEnabled && !partitionChannels.isEmpty();
+        this.spillerFactory = requireNonNull(spillerFactory, "spillerFactory is null");
+        checkArgument(!spillEnabled || spillerFactory.isPresent(), "Spiller Factory is not present when spill is enabled");
+        this.partitionHashGenerator = new InterpretedHashGenerator(this.partitionTypes, Ints.toArray(partitionChannels));
+
+        this.groupedTopNBuilder = createGroupedTopNBuilder(generateRowNumber);
     }
 
     @Override
@@ -196,6 +239,12 @@ public class TopNRowNumberOperator
         return operatorContext;
     }
 
+    @Override
+    public ListenableFuture<?> isBlocked()
+    {
+        return spillInProgress;
+    }
+
     @Override
     public void finish()
     {
@@ -223,6 +272,7 @@ public class TopNRowNumberOperator
         checkState(unfinishedWork == null, "Cannot add input with the operator when unfinished work is not empty");
         checkState(outputIterator == null, "Cannot add input with the operator when flushing");
         requireNonNull(page, "page is null");
+        checkSuccess(spillInProgress, "spilling failed");
         unfinishedWork = groupedTopNBuilder.processPage(page);
         if (unfinishedWork.process()) {
             unfinishedWork = null;
@@ -233,6 +283,7 @@ public class TopNRowNumberOperator
     @Override
     public Page getOutput()
     {
+        checkSuccess(spillInProgress, "spilling failed");
         if (unfinishedWork != null) {
             boolean finished = unfinishedWork.process();
             updateMemoryReservation();
@@ -247,24 +298,55 @@ public class TopNRowNumberOperator
         }
 
         if (outputIterator == null) {
+            if (!convertRevocableMemoryToUserMemory()) {
+                return null;
+            }
             // start flushing
-            outputIterator = groupedTopNBuilder.buildResult();
+            outputIterator = buildResult();
         }
 
         Page output = null;
         if (outputIterator.hasNext()) {
-            Page page = outputIterator.next();
-            // rewrite to expected column ordering
-            Block[] blocks = new Block[page.getChannelCount()];
-            for (int i = 0; i < outputChannels.size(); i++) {
-                blocks[i] = page.getBlock(outputChannels.get(i));
+            Optional<Page> next = outputIterator.next();
+            if (next.isPresent()) {
+                Page page = next.get();
+                // rewrite to expected column ordering
+                Block[] blocks = new Block[page.getChannelCount()];
+                for (int i = 0; i < outputChannels.size(); i++) {
+                    blocks[i] = page.getBlock(outputChannels.get(i));
+                }
+                output = new Page(blocks);
             }
-            output = new Page(blocks);
         }
         updateMemoryReservation();
         return output;
     }
 
+    @Override
+    public ListenableFuture<?> startMemoryRevoke()
+    {
+        return spillToDisk();
+    }
+
+    @Override
+    public void finishMemoryRevoke()
+    {
+        finishMemoryRevoke.run();
+        finishMemoryRevoke = () -> {};
+    }
+
+    @Override
+    public void close()
+    {
+        groupedTopNBuilder = null;
+        mergingTopNBuilder = Optional.empty();
+        outputIterator = null;
+        spiller.ifPresent(Spiller::close);
+        mergeHashSort.ifPresent(MergeHashSort::close);
+        localRevocableMemoryContext.setBytes(0);
+        localUserMemoryContext.setBytes(0);
+    }
+
     @VisibleForTesting
     public int getCapacity()
     {
@@ -272,13 +354,179 @@ public class TopNRowNumberOperator
         return groupByHash.getCapacity();
     }
 
+    /**
+     * Converts the revocable memory to user memory, as the result holds on to it so it can no longer be revoked.
+     * When the user memory cannot be reserved, the heaps are spilled instead, and the operator stays blocked
+     * until the spill finishes.
+     *
+     * @return true if the operator no longer holds revocable memory
+     */
+    private boolean convertRevocableMemoryToUserMemory()
+    {
+        if (!spillInProgress.isDone()) {
+            return false;
+        }
+        // completes the spill started below, if any
+        finishMemoryRevoke();
+
+        long revocableBytes = localRevocableMemoryContext.getBytes();
+        if (revocableBytes == 0) {
+            return true;
+        }
+        // The reservations cannot be converted atomically, so the user memory can be refused
+        // even though the same amount of revocable memory has just been released.
+        localRevocableMemoryContext.setBytes(0);
+        if (localUserMemoryContext.trySetBytes(localUserMemoryContext.getBytes() + revocableBytes)) {
+            return true;
+        }
+        localRevocableMemoryContext.setBytes(revocableBytes);
+        spillToDisk();
+        return false;
+    }
+
+    private Iterator<Optional<Page>> buildResult()
+    {
+        if (!spiller.isPresent()) {
+            return transform(groupedTopNBuilder.buildResult(), Optional::of);
+        }
+        return mergeSpilledAndMemoryPages().yieldingIterator();
+    }
+
+    private ListenableFuture<?> spillToDisk()
+    {
+        if (!spillInProgress.isDone()) {
+            // the heaps are already being spilled because their memory could not be converted to user memory
+            return spillInProgress;
+        }
+        checkSuccess(spillInProgress, "spilling failed");
+        // that spill may have finished without the heaps being released yet
+        finishMemoryRevoke();
+
+        if (localRevocableMemoryContext.getBytes() == 0) {
+            verify(groupedTopNBuilder.isEmpty() || outputIterator != null);
+            finishMemoryRevoke = () -> {};
+            return immediateFuture(null);
+        }
+        verify(unfinishedWork == null, "Cannot spill with unfinished work");
+
+        if (!spiller.isPresent()) {
+            spiller = Optional.of(spillerFactory.get().create(
+                    sourceTypes,
+                    operatorContext.getSpillContext(),
+                    operatorContext.newAggregateSystemMemoryContext()));
+        }
+
+        spillInProgress = spiller.get().spill(groupedTopNBuilder.buildHashSortedResult(partitionHashGenerator));
+        finishMemoryRevoke = () -> {
+            groupedTopNBuilder = createGroupedTopNBuilder(generateRowNumber);
+            updateMemoryReservation();
+        };
+
+        return spillInProgress;
+    }
+
+    private WorkProcessor<Page> mergeSpilledAndMemoryPages()
+    {
+        checkState(spiller.isPresent());
+
+        List<WorkProcessor<Page>> hashSortedStreams = ImmutableList.<WorkProcessor<Page>>builder()
+                .addAll(spiller.get().getSpills().stream()
+                        .map(WorkProcessor::fromIterator)
+                        .collect(toImmutableList()))
+                .add(WorkProcessor.fromIterator(groupedTopNBuilder.buildHashSortedResult(partitionHashGenerator)))
+                .build();
+
+        mergeHashSort = Optional.of(new MergeHashSort(operatorContext.newAggregateSystemMemoryContext()));
+        WorkProcessor<Page> mergedPages = mergeHashSort.get().merge(
+                partitionTypes,
+                partitionChannels,
+                sourceTypes,
+                hashSortedStreams,
+                operatorContext.getDriverContext().getYieldSignal());
+
+        // all rows of a partition have the same hash, so they are in the same merged page
+        return mergedPages.flatTransform(new MergedPagesToTopNPages());
+    }
+
+    private GroupedTopNBuilder createGroupedTopNBuilder(boolean produceRowNumber)
+    {
+        if (!partitionChannels.isEmpty()) {
+            groupByHash = createGroupByHash(
+                    partitionTypes,
+                    Ints.toArray(partitionChannels),
+                    hashChannel,
+                    expectedPositions,
+                    isDictionaryAggregationEnabled(operatorContext.getSession()),
+                    joinCompiler,
+                    this::updateMemoryReservation);
+        }
+        else {
+            groupByHash = new NoChannelGroupByHash();
+        }
+
+        return new GroupedTopNBuilder(
+                sourceTypes,
+                comparator,
+                maxRowCountPerPartition,
+                produceRowNumber,
+                groupByHash);
+    }
+
     private boolean updateMemoryReservation()
     {
+        if (groupedTopNBuilder == null) {
+            // the builder is being created
+            return true;
+        }
+        long sizeInBytes = groupedTopNBuilder.getEstimatedSizeInBytes() + mergingTopNBuilder.map(GroupedTopNBuilder::getEstimatedSizeInBytes).orElse(0L);
+
+        if (spillEnabled && outputIterator == null) {
+            // the heaps can be revoked until the operator starts producing output
+            if (groupedTopNBuilder.isEmpty()) {
+                localUserMemoryContext.setBytes(sizeInBytes);
+                localRevocableMemoryContext.setBytes(0);
+            }
+            else {
+                localUserMemoryContext.setBytes(0);
+                localRevocableMemoryContext.setBytes(sizeInBytes);
+            }
+            // the heaps are spilled when memory runs out, so the GroupByHash never has to yield
+            return true;
+        }
+
         // TODO: may need to use trySetMemoryReservation with a compaction to free memory (but that may cause GC pressure)
-        localUserMemoryContext.setBytes(groupedTopNBuilder.getEstimatedSizeInBytes());
+        localRevocableMemoryContext.setBytes(0);
+        localUserMemoryContext.setBytes(sizeInBytes);
         return operatorContext.isWaitingForMemory().isDone();
     }
 
+    private class MergedPagesToTopNPages
+            implements Transformation<Page, WorkProcessor<Page>>
+    {
+        GroupedTopNBuilder builder;
+        Work<?> work;
+
+        @Override
+        public TransformationState<WorkProcessor<Page>> process(Page mergedPage)
+        {
+            if (mergedPage == null) {
+                mergingTopNBuilder = Optional.empty();
+                return TransformationState.finished();
+            }
+
+            if (work == null) {
+                builder = createGroupedTopNBuilder(generateRowNumber);
+                mergingTopNBuilder = Optional.of(builder);
+                work = builder.processPage(mergedPage);
+            }
+            if (!work.process()) {
+                return TransformationState.yield();
+            }
+            work = null;
+            return TransformationState.ofResult(WorkProcessor.fromIterator(builder.buildResult()));
+        }
+    }
+
     private static List<Type> toTypes(List<? extends Type> sourceTypes, List<Integer> outputChannels, boolean generateRowNumber)
     {
         ImmutableList.Builder<Type> types = ImmutableList.builder();
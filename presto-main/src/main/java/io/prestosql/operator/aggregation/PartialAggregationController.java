@@ -0,0 +1,63 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.operator.aggregation;
+
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.ThreadSafe;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Decides whether the partial aggregations of a plan node are worth running. The operators
+ * report how many rows they aggregated into how many groups every time they flush, and once
+ * enough rows have been seen without a meaningful reduction, partial aggregation is disabled
+ * for all operators sharing the controller. The decision is never reverted.
+ */
+@ThreadSafe
+public class PartialAggregationController
+{
+    private final long minRows;
+    private final double uniqueRowsRatioThreshold;
+
+    private volatile boolean partialAggregationDisabled;
+    @GuardedBy("this")
+    private long totalRowsProcessed;
+    @GuardedBy("this")
+    private long totalUniqueRowsProduced;
+
+    public PartialAggregationController(long minRows, double uniqueRowsRatioThreshold)
+    {
+        checkArgument(minRows >= 0, "minRows is negative");
+        checkArgument(uniqueRowsRatioThreshold >= 0 && uniqueRowsRatioThreshold <= 1, "uniqueRowsRatioThreshold must be between 0 and 1");
+        this.minRows = minRows;
+        this.uniqueRowsRatioThreshold = uniqueRowsRatioThreshold;
+    }
+
+    public boolean isPartialAggregationDisabled()
+    {
+        return partialAggregationDisabled;
+    }
+
+    public synchronized void onFlush(long rowsProcessed, long uniqueRowsProduced)
+    {
+        if (partialAggregationDisabled) {
+            return;
+        }
+        totalRowsProcessed += rowsProcessed;
+        totalUniqueRowsProduced += uniqueRowsProduced;
+        if (totalRowsProcessed >= minRows && totalUniqueRowsProduced > totalRowsProcessed * uniqueRowsRatioThreshold) {
+            partialAggregationDisabled = true;
+        }
+    }
+}
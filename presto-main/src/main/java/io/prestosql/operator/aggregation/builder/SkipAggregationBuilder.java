@@ -0,0 +1,142 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.operator.aggregation.builder;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.ListenableFuture;
+import io.prestosql.operator.CompletedWork;
+import io.prestosql.operator.GroupByIdBlock;
+import io.prestosql.operator.HashCollisionsCounter;
+import io.prestosql.operator.Work;
+import io.prestosql.operator.WorkProcessor;
+import io.prestosql.operator.aggregation.AccumulatorFactory;
+import io.prestosql.operator.aggregation.GroupedAccumulator;
+import io.prestosql.spi.Page;
+import io.prestosql.spi.block.Block;
+import io.prestosql.spi.block.BlockBuilder;
+import io.prestosql.spi.block.LongArrayBlock;
+
+import javax.annotation.Nullable;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.IntStream;
+
+import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.util.concurrent.Futures.immediateFuture;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Partial aggregation that does not aggregate. Every input row is turned into a group of its
+ * own, so the output has one row per input row with the intermediate state of each aggregation
+ * computed from that row alone. Used in place of {@link InMemoryHashAggregationBuilder} when
+ * partial aggregation does not reduce the number of rows.
+ */
+public class SkipAggregationBuilder
+        implements HashAggregationBuilder
+{
+    private final List<Integer> groupByChannels;
+    private final Optional<Integer> hashChannel;
+    private final List<AccumulatorFactory> accumulatorFactories;
+
+    @Nullable
+    private Page currentPage;
+
+    public SkipAggregationBuilder(
+            List<Integer> groupByChannels,
+            Optional<Integer> hashChannel,
+            List<AccumulatorFactory> accumulatorFactories)
+    {
+        this.groupByChannels = ImmutableList.copyOf(requireNonNull(groupByChannels, "groupByChannels is null"));
+        this.hashChannel = requireNonNull(hashChannel, "hashChannel is null");
+        this.accumulatorFactories = ImmutableList.copyOf(requireNonNull(accumulatorFactories, "accumulatorFactories is null"));
+    }
+
+    @Override
+    public Work<?> processPage(Page page)
+    {
+        checkState(currentPage == null, "Previous page has not been flushed");
+        currentPage = page;
+        return new CompletedWork<>(page);
+    }
+
+    @Override
+    public WorkProcessor<Page> buildResult()
+    {
+        if (currentPage == null) {
+            return WorkProcessor.of();
+        }
+        Page result = buildOutputPage(currentPage);
+        currentPage = null;
+        return WorkProcessor.of(result);
+    }
+
+    @Override
+    public boolean isFull()
+    {
+        return currentPage != null;
+    }
+
+    @Override
+    public void updateMemory()
+    {
+        // the current page is owned by the operator input, the builder does not hold any other memory
+    }
+
+    @Override
+    public void recordHashCollisions(HashCollisionsCounter hashCollisionsCounter)
+    {
+        // no hash table is built
+    }
+
+    @Override
+    public void close() {}
+
+    @Override
+    public ListenableFuture<?> startMemoryRevoke()
+    {
+        return immediateFuture(null);
+    }
+
+    @Override
+    public void finishMemoryRevoke() {}
+
+    private Page buildOutputPage(Page page)
+    {
+        int positionCount = page.getPositionCount();
+        Block[] outputBlocks = new Block[groupByChannels.size() + (hashChannel.isPresent() ? 1 : 0) + accumulatorFactories.size()];
+        int channel = 0;
+        for (int groupByChannel : groupByChannels) {
+            outputBlocks[channel++] = page.getBlock(groupByChannel);
+        }
+        if (hashChannel.isPresent()) {
+            outputBlocks[channel++] = page.getBlock(hashChannel.get());
+        }
+
+        // each row is its own group
+        GroupByIdBlock groupIds = new GroupByIdBlock(
+                positionCount,
+                new LongArrayBlock(positionCount, Optional.empty(), IntStream.range(0, positionCount).asLongStream().toArray()));
+        for (AccumulatorFactory accumulatorFactory : accumulatorFactories) {
+            GroupedAccumulator accumulator = accumulatorFactory.createGroupedAccumulator();
+            accumulator.addInput(groupIds, page);
+            BlockBuilder output = accumulator.getIntermediateType().createBlockBuilder(null, positionCount);
+            for (int position = 0; position < positionCount; position++) {
+                accumulator.evaluateIntermediate(position, output);
+            }
+            outputBlocks[channel++] = output.build();
+        }
+        return new Page(positionCount, outputBlocks);
+    }
+}
@@ -27,6 +27,7 @@ import io.prestosql.execution.RemoteTask;
 import io.prestosql.execution.RemoteTaskFactory;
 import io.prestosql.execution.TaskId;
 import io.prestosql.execution.TaskInfo;
+import io.prestosql.execution.TaskInfoDelta;
 import io.prestosql.execution.TaskManagerConfig;
 import io.prestosql.execution.TaskStatus;
 import io.prestosql.execution.buffer.OutputBuffers;
@@ -35,6 +36,8 @@ import io.prestosql.metadata.Split;
 import io.prestosql.operator.ForScheduler;
 import io.prestosql.server.remotetask.HttpRemoteTask;
 import io.prestosql.server.remotetask.RemoteTaskStats;
+import io.prestosql.server.smile.SmileCodec;
+import io.prestosql.server.smile.SmileCodecFactory;
 import io.prestosql.sql.planner.PlanFragment;
 import io.prestosql.sql.planner.plan.PlanNodeId;
 import org.weakref.jmx.Managed;
@@ -61,10 +64,17 @@ public class HttpRemoteTaskFactory
     private final LocationFactory locationFactory;
     private final JsonCodec<TaskStatus> taskStatusCodec;
     private final JsonCodec<TaskInfo> taskInfoCodec;
+    private final JsonCodec<TaskInfoDelta> taskInfoDeltaCodec;
     private final JsonCodec<TaskUpdateRequest> taskUpdateRequestCodec;
+    private final SmileCodec<TaskStatus> taskStatusSmileCodec;
+    private final SmileCodec<TaskInfo> taskInfoSmileCodec;
+    private final SmileCodec<TaskInfoDelta> taskInfoDeltaSmileCodec;
+    private final SmileCodec<TaskUpdateRequest> taskUpdateRequestSmileCodec;
+    private final boolean binaryTransportEnabled;
     private final Duration maxErrorDuration;
     private final Duration taskStatusRefreshMaxWait;
     private final Duration taskInfoUpdateInterval;
+    private final boolean taskInfoDeltaEnabled;
     private final ExecutorService coreExecutor;
     private final Executor executor;
     private final ThreadPoolExecutorMBean executorMBean;
@@ -79,17 +89,27 @@ public class HttpRemoteTaskFactory
             LocationFactory locationFactory,
             JsonCodec<TaskStatus> taskStatusCodec,
             JsonCodec<TaskInfo> taskInfoCodec,
+            JsonCodec<TaskInfoDelta> taskInfoDeltaCodec,
             JsonCodec<TaskUpdateRequest> taskUpdateRequestCodec,
+            SmileCodecFactory smileCodecFactory,
+            InternalCommunicationConfig internalCommunicationConfig,
             RemoteTaskStats stats)
     {
         this.httpClient = httpClient;
         this.locationFactory = locationFactory;
         this.taskStatusCodec = taskStatusCodec;
         this.taskInfoCodec = taskInfoCodec;
+        this.taskInfoDeltaCodec = taskInfoDeltaCodec;
         this.taskUpdateRequestCodec = taskUpdateRequestCodec;
+        this.taskStatusSmileCodec = smileCodecFactory.smileCodec(TaskStatus.class);
+        this.taskInfoSmileCodec = smileCodecFactory.smileCodec(TaskInfo.class);
+        this.taskInfoDeltaSmileCodec = smileCodecFactory.smileCodec(TaskInfoDelta.class);
+        this.taskUpdateRequestSmileCodec = smileCodecFactory.smileCodec(TaskUpdateRequest.class);
+        this.binaryTransportEnabled = internalCommunicationConfig.isBinaryTransportEnabled();
         this.maxErrorDuration = config.getRemoteTaskMaxErrorDuration();
         this.taskStatusRefreshMaxWait = taskConfig.getStatusRefreshMaxWait();
         this.taskInfoUpdateInterval = taskConfig.getInfoUpdateInterval();
+        this.taskInfoDeltaEnabled = taskConfig.isInfoDeltaEnabled();
         this.coreExecutor = newCachedThreadPool(daemonThreadsNamed("remote-task-callback-%s"));
         this.executor = new BoundedExecutor(coreExecutor, config.getRemoteTaskMaxCallbackThreads());
         this.executorMBean = new ThreadPoolExecutorMBean((ThreadPoolExecutor) coreExecutor);
@@ -141,9 +161,16 @@ public class HttpRemoteTaskFactory
                 taskStatusRefreshMaxWait,
                 taskInfoUpdateInterval,
                 summarizeTaskInfo,
+                taskInfoDeltaEnabled,
                 taskStatusCodec,
                 taskInfoCodec,
+                taskInfoDeltaCodec,
                 taskUpdateRequestCodec,
+                taskStatusSmileCodec,
+                taskInfoSmileCodec,
+                taskInfoDeltaSmileCodec,
+                taskUpdateRequestSmileCodec,
+                binaryTransportEnabled,
                 partitionedSplitCountTracker,
                 stats);
     }
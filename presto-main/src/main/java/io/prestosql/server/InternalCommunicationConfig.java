@@ -27,6 +27,7 @@ public class InternalCommunicationConfig
     private String trustStorePassword;
     private boolean kerberosEnabled;
     private boolean kerberosUseCanonicalHostname = true;
+    private boolean binaryTransportEnabled;
 
     public boolean isHttpsRequired()
     {
@@ -113,4 +114,16 @@ public class InternalCommunicationConfig
         this.kerberosUseCanonicalHostname = kerberosUseCanonicalHostname;
         return this;
     }
+
+    public boolean isBinaryTransportEnabled()
+    {
+        return binaryTransportEnabled;
+    }
+
+    @Config("internal-communication.binary-transport.enabled")
+    public InternalCommunicationConfig setBinaryTransportEnabled(boolean binaryTransportEnabled)
+    {
+        this.binaryTransportEnabled = binaryTransportEnabled;
+        return this;
+    }
 }
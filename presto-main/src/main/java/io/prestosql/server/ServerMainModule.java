@@ -45,6 +45,7 @@ import io.prestosql.execution.QueryManagerConfig;
 import io.prestosql.execution.SqlTaskManager;
 import io.prestosql.execution.StageInfo;
 import io.prestosql.execution.TaskInfo;
+import io.prestosql.execution.TaskInfoDelta;
 import io.prestosql.execution.TaskManagementExecutor;
 import io.prestosql.execution.TaskManager;
 import io.prestosql.execution.TaskManagerConfig;
@@ -88,6 +89,9 @@ import io.prestosql.operator.OperatorStats;
 import io.prestosql.operator.PagesIndex;
 import io.prestosql.operator.index.IndexJoinLookupStats;
 import io.prestosql.server.remotetask.HttpLocationFactory;
+import io.prestosql.server.smile.SmileCodecFactory;
+import io.prestosql.server.smile.SmileMapper;
+import io.prestosql.server.smile.SmileObjectMapperProvider;
 import io.prestosql.spi.PageIndexerFactory;
 import io.prestosql.spi.PageSorter;
 import io.prestosql.spi.block.Block;
@@ -301,12 +305,18 @@ public class ServerMainModule
         jsonCodecBinder(binder).bindJsonCodec(TaskStatus.class);
         jsonCodecBinder(binder).bindJsonCodec(StageInfo.class);
         jsonCodecBinder(binder).bindJsonCodec(TaskInfo.class);
+        jsonCodecBinder(binder).bindJsonCodec(TaskInfoDelta.class);
         jsonCodecBinder(binder).bindJsonCodec(OperatorStats.class);
         jsonCodecBinder(binder).bindJsonCodec(ExecutionFailureInfo.class);
         jaxrsBinder(binder).bind(PagesResponseWriter.class);
+        binder.bind(SmileObjectMapperProvider.class).in(Scopes.SINGLETON);
+        binder.bind(SmileCodecFactory.class).in(Scopes.SINGLETON);
+        jaxrsBinder(binder).bind(SmileMapper.class);
 
         // exchange client
+        binder.bind(ExchangeClientFactory.class).in(Scopes.SINGLETON);
         binder.bind(ExchangeClientSupplier.class).to(ExchangeClientFactory.class).in(Scopes.SINGLETON);
+        newExporter(binder).export(ExchangeClientFactory.class).withGeneratedName();
         httpClientBinder(binder).bindHttpClient("exchange", ForExchange.class)
                 .withTracing()
                 .withFilter(GenerateTraceTokenRequestFilter.class)
@@ -18,13 +18,16 @@ import com.google.common.reflect.TypeToken;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
 import io.airlift.concurrent.BoundedExecutor;
+import io.airlift.concurrent.ThreadPoolExecutorMBean;
 import io.airlift.stats.TimeStat;
 import io.airlift.units.DataSize;
 import io.airlift.units.Duration;
 import io.prestosql.Session;
 import io.prestosql.execution.TaskId;
 import io.prestosql.execution.TaskInfo;
+import io.prestosql.execution.TaskInfoDelta;
 import io.prestosql.execution.TaskManager;
+import io.prestosql.execution.TaskManagerConfig;
 import io.prestosql.execution.TaskState;
 import io.prestosql.execution.TaskStatus;
 import io.prestosql.execution.buffer.BufferResult;
@@ -35,6 +38,7 @@ import io.prestosql.spi.Page;
 import org.weakref.jmx.Managed;
 import org.weakref.jmx.Nested;
 
+import javax.annotation.PreDestroy;
 import javax.inject.Inject;
 import javax.ws.rs.Consumes;
 import javax.ws.rs.DELETE;
@@ -58,23 +62,32 @@ import javax.ws.rs.core.UriInfo;
 
 import java.util.List;
 import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
 
+import static com.google.common.base.MoreObjects.firstNonNull;
 import static com.google.common.collect.Iterables.transform;
 import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
 import static io.airlift.concurrent.MoreFutures.addTimeout;
+import static io.airlift.concurrent.Threads.daemonThreadsNamed;
 import static io.airlift.http.server.AsyncResponseHandler.bindAsyncResponse;
+import static io.prestosql.PrestoMediaTypes.APPLICATION_JACKSON_SMILE;
 import static io.prestosql.PrestoMediaTypes.PRESTO_PAGES;
+import static io.prestosql.PrestoMediaTypes.PRESTO_PAGES_STREAM;
 import static io.prestosql.client.PrestoHeaders.PRESTO_BUFFER_COMPLETE;
+import static io.prestosql.client.PrestoHeaders.PRESTO_CURRENT_DYNAMIC_FILTERS_VERSION;
 import static io.prestosql.client.PrestoHeaders.PRESTO_CURRENT_STATE;
 import static io.prestosql.client.PrestoHeaders.PRESTO_MAX_SIZE;
 import static io.prestosql.client.PrestoHeaders.PRESTO_MAX_WAIT;
 import static io.prestosql.client.PrestoHeaders.PRESTO_PAGE_NEXT_TOKEN;
 import static io.prestosql.client.PrestoHeaders.PRESTO_PAGE_TOKEN;
 import static io.prestosql.client.PrestoHeaders.PRESTO_TASK_INSTANCE_ID;
+import static io.prestosql.execution.TaskStatus.INITIAL_DYNAMIC_FILTERS_VERSION;
 import static java.util.Objects.requireNonNull;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
 import static java.util.concurrent.TimeUnit.SECONDS;
 
 /**
@@ -85,18 +98,25 @@ public class TaskResource
 {
     private static final Duration ADDITIONAL_WAIT_TIME = new Duration(5, SECONDS);
     private static final Duration DEFAULT_MAX_WAIT_TIME = new Duration(2, SECONDS);
+    private static final Duration MAX_STREAM_DURATION = new Duration(5, SECONDS);
+    private static final Duration MAX_STREAM_IDLE_TIME = new Duration(100, MILLISECONDS);
 
     private final TaskManager taskManager;
     private final SessionPropertyManager sessionPropertyManager;
     private final Executor responseExecutor;
+    // the writers of streamed results block while waiting for results, so they get their own bounded pool
+    private final ThreadPoolExecutor streamExecutor;
+    private final ThreadPoolExecutorMBean streamExecutorMBean;
     private final ScheduledExecutorService timeoutExecutor;
     private final TimeStat readFromOutputBufferTime = new TimeStat();
     private final TimeStat resultsRequestTime = new TimeStat();
+    private final TimeStat resultsStreamTime = new TimeStat();
 
     @Inject
     public TaskResource(
             TaskManager taskManager,
             SessionPropertyManager sessionPropertyManager,
+            TaskManagerConfig config,
             @ForAsyncHttp BoundedExecutor responseExecutor,
             @ForAsyncHttp ScheduledExecutorService timeoutExecutor)
     {
@@ -104,6 +124,17 @@ public class TaskResource
         this.sessionPropertyManager = requireNonNull(sessionPropertyManager, "sessionPropertyManager is null");
         this.responseExecutor = requireNonNull(responseExecutor, "responseExecutor is null");
         this.timeoutExecutor = requireNonNull(timeoutExecutor, "timeoutExecutor is null");
+
+        int streamThreads = requireNonNull(config, "config is null").getHttpResultsStreamThreads();
+        this.streamExecutor = new ThreadPoolExecutor(streamThreads, streamThreads, 60, SECONDS, new LinkedBlockingQueue<>(), daemonThreadsNamed("task-results-stream-%s"));
+        this.streamExecutor.allowCoreThreadTimeOut(true);
+        this.streamExecutorMBean = new ThreadPoolExecutorMBean(streamExecutor);
+    }
+
+    @PreDestroy
+    public void stop()
+    {
+        streamExecutor.shutdownNow();
     }
 
     @GET
@@ -119,8 +150,8 @@ public class TaskResource
 
     @POST
     @Path("{taskId}")
-    @Consumes(MediaType.APPLICATION_JSON)
-    @Produces(MediaType.APPLICATION_JSON)
+    @Consumes({MediaType.APPLICATION_JSON, APPLICATION_JACKSON_SMILE})
+    @Produces({MediaType.APPLICATION_JSON, APPLICATION_JACKSON_SMILE})
     public Response createOrUpdateTask(@PathParam("taskId") TaskId taskId, TaskUpdateRequest taskUpdateRequest, @Context UriInfo uriInfo)
     {
         requireNonNull(taskUpdateRequest, "taskUpdateRequest is null");
@@ -142,7 +173,7 @@ public class TaskResource
 
     @GET
     @Path("{taskId}")
-    @Produces(MediaType.APPLICATION_JSON)
+    @Produces({MediaType.APPLICATION_JSON, APPLICATION_JACKSON_SMILE})
     public void getTaskInfo(
             @PathParam("taskId") final TaskId taskId,
             @HeaderParam(PRESTO_CURRENT_STATE) TaskState currentState,
@@ -178,20 +209,36 @@ public class TaskResource
                 .withTimeout(timeout);
     }
 
+    @GET
+    @Path("{taskId}/delta/{baseVersion}")
+    @Produces({MediaType.APPLICATION_JSON, APPLICATION_JACKSON_SMILE})
+    public TaskInfoDelta getTaskInfoDelta(
+            @PathParam("taskId") TaskId taskId,
+            @PathParam("baseVersion") long baseVersion,
+            @Context UriInfo uriInfo)
+    {
+        requireNonNull(taskId, "taskId is null");
+
+        return taskManager.getTaskInfoDelta(taskId, baseVersion, shouldSummarize(uriInfo));
+    }
+
     @GET
     @Path("{taskId}/status")
-    @Produces(MediaType.APPLICATION_JSON)
+    @Produces({MediaType.APPLICATION_JSON, APPLICATION_JACKSON_SMILE})
     public void getTaskStatus(
             @PathParam("taskId") TaskId taskId,
             @HeaderParam(PRESTO_CURRENT_STATE) TaskState currentState,
+            @HeaderParam(PRESTO_CURRENT_DYNAMIC_FILTERS_VERSION) Long currentDynamicFiltersVersion,
             @HeaderParam(PRESTO_MAX_WAIT) Duration maxWait,
             @Context UriInfo uriInfo,
             @Suspended AsyncResponse asyncResponse)
     {
         requireNonNull(taskId, "taskId is null");
 
+        // a caller which does not report its dynamic filters version gets all the dynamic filters
+        long dynamicFiltersVersion = firstNonNull(currentDynamicFiltersVersion, INITIAL_DYNAMIC_FILTERS_VERSION);
         if (currentState == null || maxWait == null) {
-            TaskStatus taskStatus = taskManager.getTaskStatus(taskId);
+            TaskStatus taskStatus = taskManager.getTaskStatus(taskId, dynamicFiltersVersion);
             asyncResponse.resume(taskStatus);
             return;
         }
@@ -201,8 +248,8 @@ public class TaskResource
         // leading to a slight delay of approx 1 second, which is not a major issue for any query that are heavy weight enough
         // to justify group-by-group execution. In order to fix this, REST endpoint /v1/{task}/status will need change.
         ListenableFuture<TaskStatus> futureTaskStatus = addTimeout(
-                taskManager.getTaskStatus(taskId, currentState),
-                () -> taskManager.getTaskStatus(taskId),
+                taskManager.getTaskStatus(taskId, currentState, dynamicFiltersVersion),
+                () -> taskManager.getTaskStatus(taskId, dynamicFiltersVersion),
                 waitTime,
                 timeoutExecutor);
 
@@ -214,7 +261,7 @@ public class TaskResource
 
     @DELETE
     @Path("{taskId}")
-    @Produces(MediaType.APPLICATION_JSON)
+    @Produces({MediaType.APPLICATION_JSON, APPLICATION_JACKSON_SMILE})
     public TaskInfo deleteTask(
             @PathParam("taskId") TaskId taskId,
             @QueryParam("abort") @DefaultValue("true") boolean abort,
@@ -295,6 +342,57 @@ public class TaskResource
         asyncResponse.register((CompletionCallback) throwable -> resultsRequestTime.add(Duration.nanosSince(start)));
     }
 
+    /**
+     * Streams the results starting at the token until the credit of bytes granted by
+     * the client is used. The client acknowledges the streamed results separately, and
+     * with the token of its next request.
+     */
+    @GET
+    @Path("{taskId}/results/{bufferId}/{token}/stream")
+    @Produces(PRESTO_PAGES_STREAM)
+    public void streamResults(
+            @PathParam("taskId") TaskId taskId,
+            @PathParam("bufferId") OutputBufferId bufferId,
+            @PathParam("token") final long token,
+            @HeaderParam(PRESTO_MAX_SIZE) DataSize credit,
+            @Suspended AsyncResponse asyncResponse)
+    {
+        requireNonNull(taskId, "taskId is null");
+        requireNonNull(bufferId, "bufferId is null");
+
+        long start = System.nanoTime();
+        long deadlineNanos = start + MAX_STREAM_DURATION.roundTo(NANOSECONDS);
+        ListenableFuture<BufferResult> bufferResultFuture = taskManager.getTaskResults(taskId, bufferId, token, credit);
+        Duration waitTime = randomizeWaitTime(DEFAULT_MAX_WAIT_TIME);
+        bufferResultFuture = addTimeout(
+                bufferResultFuture,
+                () -> BufferResult.emptyResults(taskManager.getTaskInstanceId(taskId), token, false),
+                waitTime,
+                timeoutExecutor);
+
+        ListenableFuture<Response> responseFuture = Futures.transform(
+                bufferResultFuture,
+                result -> createStreamResponse(taskId, bufferId, result, credit, deadlineNanos),
+                directExecutor());
+
+        // The results are written by the thread resuming the response, which blocks while waiting for
+        // more results, so the streams use their own bounded pool instead of the response executor
+        Duration timeout = new Duration(waitTime.toMillis() + ADDITIONAL_WAIT_TIME.toMillis(), MILLISECONDS);
+        bindAsyncResponse(asyncResponse, responseFuture, streamExecutor)
+                .withTimeout(timeout, createStreamResponse(taskId, bufferId, BufferResult.emptyResults(taskManager.getTaskInstanceId(taskId), token, false), credit, deadlineNanos));
+
+        responseFuture.addListener(() -> readFromOutputBufferTime.add(Duration.nanosSince(start)), directExecutor());
+        asyncResponse.register((CompletionCallback) throwable -> resultsStreamTime.add(Duration.nanosSince(start)));
+    }
+
+    private Response createStreamResponse(TaskId taskId, OutputBufferId bufferId, BufferResult firstResult, DataSize credit, long deadlineNanos)
+    {
+        // a stream does not wait for more results while other streams wait for a thread
+        return Response.ok(new TaskResultsStream(taskManager, taskId, bufferId, firstResult, credit, deadlineNanos, MAX_STREAM_IDLE_TIME, () -> !streamExecutor.getQueue().isEmpty()))
+                .header(PRESTO_TASK_INSTANCE_ID, firstResult.getTaskInstanceId())
+                .build();
+    }
+
     @GET
     @Path("{taskId}/results/{bufferId}/{token}/acknowledge")
     public void acknowledgeResults(
@@ -333,6 +431,20 @@ public class TaskResource
         return resultsRequestTime;
     }
 
+    @Managed
+    @Nested
+    public TimeStat getResultsStreamTime()
+    {
+        return resultsStreamTime;
+    }
+
+    @Managed
+    @Nested
+    public ThreadPoolExecutorMBean getResultsStreamExecutor()
+    {
+        return streamExecutorMBean;
+    }
+
     private static boolean shouldSummarize(UriInfo uriInfo)
     {
         return uriInfo.getQueryParameters().containsKey("summarize");
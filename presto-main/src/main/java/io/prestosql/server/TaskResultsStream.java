@@ -0,0 +1,135 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.server;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import io.airlift.slice.OutputStreamSliceOutput;
+import io.airlift.slice.SliceOutput;
+import io.airlift.units.DataSize;
+import io.airlift.units.Duration;
+import io.prestosql.execution.TaskId;
+import io.prestosql.execution.TaskManager;
+import io.prestosql.execution.buffer.BufferResult;
+import io.prestosql.execution.buffer.OutputBuffers.OutputBufferId;
+import io.prestosql.execution.buffer.SerializedPage;
+
+import javax.ws.rs.core.StreamingOutput;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BooleanSupplier;
+
+import static com.google.common.base.Throwables.throwIfUnchecked;
+import static io.airlift.units.DataSize.Unit.BYTE;
+import static io.prestosql.execution.buffer.PagesSerdeUtil.writeBufferResult;
+import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * Streams the results of a task output buffer, starting with a result read at the token
+ * of the request. The results that follow are read ahead of the acknowledgements of the
+ * client, so the pages stay in the output buffer, and count towards its memory limit,
+ * until the client acknowledges them. The stream ends once the credit granted by the
+ * client is used, the buffer is complete, no results arrive for the idle time, or the
+ * deadline passes. The idle time keeps a slow producer from holding the credit of the
+ * client, and a thread of the writers, while it has nothing to send.
+ * The stream also ends, rather than waiting for more results, while other streams wait
+ * for a thread to write them, so a saturated pool of writers falls back to pulling.
+ */
+class TaskResultsStream
+        implements StreamingOutput
+{
+    private final TaskManager taskManager;
+    private final TaskId taskId;
+    private final OutputBufferId bufferId;
+    private final BufferResult firstResult;
+    private final long creditInBytes;
+    private final long deadlineNanos;
+    private final long idleTimeoutNanos;
+    private final BooleanSupplier streamsWaiting;
+
+    public TaskResultsStream(TaskManager taskManager, TaskId taskId, OutputBufferId bufferId, BufferResult firstResult, DataSize credit, long deadlineNanos, Duration idleTimeout, BooleanSupplier streamsWaiting)
+    {
+        this.taskManager = requireNonNull(taskManager, "taskManager is null");
+        this.taskId = requireNonNull(taskId, "taskId is null");
+        this.bufferId = requireNonNull(bufferId, "bufferId is null");
+        this.firstResult = requireNonNull(firstResult, "firstResult is null");
+        this.creditInBytes = requireNonNull(credit, "credit is null").toBytes();
+        this.deadlineNanos = deadlineNanos;
+        this.idleTimeoutNanos = requireNonNull(idleTimeout, "idleTimeout is null").roundTo(NANOSECONDS);
+        this.streamsWaiting = requireNonNull(streamsWaiting, "streamsWaiting is null");
+    }
+
+    @Override
+    public void write(OutputStream output)
+            throws IOException
+    {
+        try {
+            SliceOutput sliceOutput = new OutputStreamSliceOutput(output);
+            BufferResult result = firstResult;
+            long sentBytes = 0;
+            while (true) {
+                writeBufferResult(sliceOutput, result);
+                // flush every result, so the client processes it while the next one is read
+                sliceOutput.flush();
+
+                for (SerializedPage page : result.getSerializedPages()) {
+                    sentBytes += page.getRetainedSizeInBytes();
+                }
+                // an empty result means the read timed out or was replaced by another request of the client
+                if (result.isEmpty() || result.isBufferComplete() || sentBytes >= creditInBytes) {
+                    return;
+                }
+
+                long remainingNanos = deadlineNanos - System.nanoTime();
+                if (remainingNanos <= 0) {
+                    return;
+                }
+                ListenableFuture<BufferResult> resultFuture = taskManager.peekTaskResults(taskId, bufferId, result.getNextToken(), new DataSize(creditInBytes - sentBytes, BYTE));
+                if (!resultFuture.isDone() && streamsWaiting.getAsBoolean()) {
+                    return;
+                }
+                try {
+                    result = resultFuture.get(Math.min(remainingNanos, idleTimeoutNanos), NANOSECONDS);
+                }
+                catch (TimeoutException e) {
+                    // the pages read ahead stay in the output buffer for the next request of the client
+                    return;
+                }
+                catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                catch (ExecutionException e) {
+                    throwIfUnchecked(e.getCause());
+                    throw new RuntimeException(e.getCause());
+                }
+            }
+        }
+        catch (UncheckedIOException e) {
+            // EOF exception occurs when the client disconnects while writing data
+            // This is not a "server" problem so we don't want to log this
+            if (!(e.getCause() instanceof EOFException)) {
+                throw e;
+            }
+        }
+        catch (EOFException e) {
+            // the client disconnected while the results were flushed
+        }
+    }
+}
@@ -19,12 +19,14 @@ import io.airlift.concurrent.SetThreadName;
 import io.airlift.http.client.FullJsonResponseHandler;
 import io.airlift.http.client.HttpClient;
 import io.airlift.http.client.Request;
+import io.airlift.http.client.ResponseHandler;
 import io.airlift.json.JsonCodec;
 import io.airlift.log.Logger;
 import io.airlift.units.Duration;
 import io.prestosql.execution.StateMachine;
 import io.prestosql.execution.TaskId;
 import io.prestosql.execution.TaskStatus;
+import io.prestosql.server.smile.SmileCodec;
 import io.prestosql.spi.HostAddress;
 import io.prestosql.spi.PrestoException;
 
@@ -32,19 +34,23 @@ import javax.annotation.concurrent.GuardedBy;
 
 import java.util.concurrent.Executor;
 import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
 
 import static com.google.common.base.Strings.isNullOrEmpty;
+import static com.google.common.net.HttpHeaders.ACCEPT;
 import static com.google.common.net.HttpHeaders.CONTENT_TYPE;
 import static com.google.common.net.MediaType.JSON_UTF_8;
 import static io.airlift.http.client.FullJsonResponseHandler.createFullJsonResponseHandler;
 import static io.airlift.http.client.HttpUriBuilder.uriBuilderFrom;
 import static io.airlift.http.client.Request.Builder.prepareGet;
 import static io.airlift.units.Duration.nanosSince;
+import static io.prestosql.client.PrestoHeaders.PRESTO_CURRENT_DYNAMIC_FILTERS_VERSION;
 import static io.prestosql.client.PrestoHeaders.PRESTO_CURRENT_STATE;
 import static io.prestosql.client.PrestoHeaders.PRESTO_MAX_WAIT;
+import static io.prestosql.execution.TaskStatus.withDynamicFilters;
+import static io.prestosql.server.smile.FullSmileResponseHandler.ACCEPT_SMILE_OR_JSON;
+import static io.prestosql.server.smile.FullSmileResponseHandler.createFullSmileResponseHandler;
 import static io.prestosql.spi.StandardErrorCode.REMOTE_TASK_MISMATCH;
 import static io.prestosql.util.Failures.REMOTE_TASK_MISMATCH_ERROR;
 import static java.lang.String.format;
@@ -59,6 +65,8 @@ class ContinuousTaskStatusFetcher
     private final Consumer<Throwable> onFail;
     private final StateMachine<TaskStatus> taskStatus;
     private final JsonCodec<TaskStatus> taskStatusCodec;
+    private final SmileCodec<TaskStatus> taskStatusSmileCodec;
+    private final boolean binaryTransportEnabled;
 
     private final Duration refreshMaxWait;
     private final Executor executor;
@@ -79,6 +87,8 @@ class ContinuousTaskStatusFetcher
             TaskStatus initialTaskStatus,
             Duration refreshMaxWait,
             JsonCodec<TaskStatus> taskStatusCodec,
+            SmileCodec<TaskStatus> taskStatusSmileCodec,
+            boolean binaryTransportEnabled,
             Executor executor,
             HttpClient httpClient,
             Duration maxErrorDuration,
@@ -93,6 +103,8 @@ class ContinuousTaskStatusFetcher
 
         this.refreshMaxWait = requireNonNull(refreshMaxWait, "refreshMaxWait is null");
         this.taskStatusCodec = requireNonNull(taskStatusCodec, "taskStatusCodec is null");
+        this.taskStatusSmileCodec = requireNonNull(taskStatusSmileCodec, "taskStatusSmileCodec is null");
+        this.binaryTransportEnabled = binaryTransportEnabled;
 
         this.executor = requireNonNull(executor, "executor is null");
         this.httpClient = requireNonNull(httpClient, "httpClient is null");
@@ -145,12 +157,15 @@ class ContinuousTaskStatusFetcher
         Request request = prepareGet()
                 .setUri(uriBuilderFrom(taskStatus.getSelf()).appendPath("status").build())
                 .setHeader(CONTENT_TYPE, JSON_UTF_8.toString())
+                .setHeader(ACCEPT, binaryTransportEnabled ? ACCEPT_SMILE_OR_JSON : JSON_UTF_8.toString())
                 .setHeader(PRESTO_CURRENT_STATE, taskStatus.getState().toString())
+                .setHeader(PRESTO_CURRENT_DYNAMIC_FILTERS_VERSION, String.valueOf(taskStatus.getDynamicFiltersVersion()))
                 .setHeader(PRESTO_MAX_WAIT, refreshMaxWait.toString())
                 .build();
 
         errorTracker.startRequest();
-        future = httpClient.executeAsync(request, createFullJsonResponseHandler(taskStatusCodec));
+        ResponseHandler<FullJsonResponseHandler.JsonResponse<TaskStatus>, RuntimeException> responseHandler = binaryTransportEnabled ? createFullSmileResponseHandler(taskStatusSmileCodec, taskStatusCodec) : createFullJsonResponseHandler(taskStatusCodec);
+        future = httpClient.executeAsync(request, responseHandler);
         currentRequestStartNanos.set(System.nanoTime());
         Futures.addCallback(future, new SimpleHttpResponseHandler<>(this, request.getUri(), stats), executor);
     }
@@ -212,26 +227,36 @@ class ContinuousTaskStatusFetcher
     void updateTaskStatus(TaskStatus newValue)
     {
         // change to new value if old value is not changed and new value has a newer version
-        AtomicBoolean taskMismatch = new AtomicBoolean();
-        taskStatus.setIf(newValue, oldValue -> {
+        boolean taskMismatch = false;
+        while (true) {
+            TaskStatus oldValue = taskStatus.get();
+
             // did the task instance id change
             if (!isNullOrEmpty(oldValue.getTaskInstanceId()) && !oldValue.getTaskInstanceId().equals(newValue.getTaskInstanceId())) {
-                taskMismatch.set(true);
-                return false;
+                taskMismatch = true;
+                break;
             }
 
             if (oldValue.getState().isDone()) {
                 // never update if the task has reached a terminal state
-                return false;
+                break;
             }
             if (newValue.getVersion() < oldValue.getVersion()) {
                 // don't update to an older version (same version is ok)
-                return false;
+                break;
+            }
+
+            // the task sends its dynamic filters only when they are newer than the ones the coordinator already has
+            TaskStatus value = newValue;
+            if (newValue.getDynamicFiltersVersion() <= oldValue.getDynamicFiltersVersion()) {
+                value = withDynamicFilters(newValue, oldValue.getDynamicFiltersVersion(), oldValue.getDynamicFilterDomains());
             }
-            return true;
-        });
+            if (value == oldValue || taskStatus.compareAndSet(oldValue, value)) {
+                break;
+            }
+        }
 
-        if (taskMismatch.get()) {
+        if (taskMismatch) {
             // This will also set the task status to FAILED state directly.
             // Additionally, this will issue a DELETE for the task to the worker.
             // While sending the DELETE is not required, it is preferred because a task was created by the previous request.
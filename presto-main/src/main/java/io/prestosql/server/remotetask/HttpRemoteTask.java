@@ -26,8 +26,10 @@ import com.google.common.util.concurrent.ListenableFuture;
 import io.airlift.concurrent.SetThreadName;
 import io.airlift.http.client.FullJsonResponseHandler.JsonResponse;
 import io.airlift.http.client.HttpClient;
+import io.airlift.http.client.HttpStatus;
 import io.airlift.http.client.HttpUriBuilder;
 import io.airlift.http.client.Request;
+import io.airlift.http.client.ResponseHandler;
 import io.airlift.json.JsonCodec;
 import io.airlift.log.Logger;
 import io.airlift.units.Duration;
@@ -40,6 +42,7 @@ import io.prestosql.execution.ScheduledSplit;
 import io.prestosql.execution.StateMachine.StateChangeListener;
 import io.prestosql.execution.TaskId;
 import io.prestosql.execution.TaskInfo;
+import io.prestosql.execution.TaskInfoDelta;
 import io.prestosql.execution.TaskSource;
 import io.prestosql.execution.TaskState;
 import io.prestosql.execution.TaskStatus;
@@ -49,6 +52,7 @@ import io.prestosql.execution.buffer.PageBufferInfo;
 import io.prestosql.metadata.Split;
 import io.prestosql.operator.TaskStats;
 import io.prestosql.server.TaskUpdateRequest;
+import io.prestosql.server.smile.SmileCodec;
 import io.prestosql.sql.planner.PlanFragment;
 import io.prestosql.sql.planner.plan.PlanNode;
 import io.prestosql.sql.planner.plan.PlanNodeId;
@@ -86,11 +90,14 @@ import static io.airlift.http.client.HttpUriBuilder.uriBuilderFrom;
 import static io.airlift.http.client.Request.Builder.prepareDelete;
 import static io.airlift.http.client.Request.Builder.preparePost;
 import static io.airlift.http.client.StaticBodyGenerator.createStaticBodyGenerator;
+import static io.prestosql.PrestoMediaTypes.APPLICATION_JACKSON_SMILE;
 import static io.prestosql.execution.TaskInfo.createInitialTask;
 import static io.prestosql.execution.TaskState.ABORTED;
 import static io.prestosql.execution.TaskState.FAILED;
 import static io.prestosql.execution.TaskStatus.failWith;
 import static io.prestosql.server.remotetask.RequestErrorTracker.logError;
+import static io.prestosql.server.smile.FullSmileResponseHandler.ACCEPT_SMILE_OR_JSON;
+import static io.prestosql.server.smile.FullSmileResponseHandler.createFullSmileResponseHandler;
 import static io.prestosql.util.Failures.toFailure;
 import static java.util.Objects.requireNonNull;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
@@ -146,11 +153,16 @@ public final class HttpRemoteTask
 
     private final JsonCodec<TaskInfo> taskInfoCodec;
     private final JsonCodec<TaskUpdateRequest> taskUpdateRequestCodec;
+    private final SmileCodec<TaskInfo> taskInfoSmileCodec;
+    private final SmileCodec<TaskUpdateRequest> taskUpdateRequestSmileCodec;
+    private final boolean binaryTransportEnabled;
 
     private final RequestErrorTracker updateErrorTracker;
 
     private final AtomicBoolean needsUpdate = new AtomicBoolean(true);
     private final AtomicBoolean sendPlan = new AtomicBoolean(true);
+    // cleared when the worker rejects a Smile update, as workers of earlier versions only accept JSON
+    private final AtomicBoolean sendSmileUpdates = new AtomicBoolean();
 
     private final PartitionedSplitCountTracker partitionedSplitCountTracker;
 
@@ -172,9 +184,16 @@ public final class HttpRemoteTask
             Duration taskStatusRefreshMaxWait,
             Duration taskInfoUpdateInterval,
             boolean summarizeTaskInfo,
+            boolean taskInfoDeltaEnabled,
             JsonCodec<TaskStatus> taskStatusCodec,
             JsonCodec<TaskInfo> taskInfoCodec,
+            JsonCodec<TaskInfoDelta> taskInfoDeltaCodec,
             JsonCodec<TaskUpdateRequest> taskUpdateRequestCodec,
+            SmileCodec<TaskStatus> taskStatusSmileCodec,
+            SmileCodec<TaskInfo> taskInfoSmileCodec,
+            SmileCodec<TaskInfoDelta> taskInfoDeltaSmileCodec,
+            SmileCodec<TaskUpdateRequest> taskUpdateRequestSmileCodec,
+            boolean binaryTransportEnabled,
             PartitionedSplitCountTracker partitionedSplitCountTracker,
             RemoteTaskStats stats)
     {
@@ -189,7 +208,12 @@ public final class HttpRemoteTask
         requireNonNull(executor, "executor is null");
         requireNonNull(taskStatusCodec, "taskStatusCodec is null");
         requireNonNull(taskInfoCodec, "taskInfoCodec is null");
+        requireNonNull(taskInfoDeltaCodec, "taskInfoDeltaCodec is null");
         requireNonNull(taskUpdateRequestCodec, "taskUpdateRequestCodec is null");
+        requireNonNull(taskStatusSmileCodec, "taskStatusSmileCodec is null");
+        requireNonNull(taskInfoSmileCodec, "taskInfoSmileCodec is null");
+        requireNonNull(taskInfoDeltaSmileCodec, "taskInfoDeltaSmileCodec is null");
+        requireNonNull(taskUpdateRequestSmileCodec, "taskUpdateRequestSmileCodec is null");
         requireNonNull(partitionedSplitCountTracker, "partitionedSplitCountTracker is null");
         requireNonNull(stats, "stats is null");
 
@@ -206,6 +230,10 @@ public final class HttpRemoteTask
             this.summarizeTaskInfo = summarizeTaskInfo;
             this.taskInfoCodec = taskInfoCodec;
             this.taskUpdateRequestCodec = taskUpdateRequestCodec;
+            this.taskInfoSmileCodec = taskInfoSmileCodec;
+            this.taskUpdateRequestSmileCodec = taskUpdateRequestSmileCodec;
+            this.binaryTransportEnabled = binaryTransportEnabled;
+            this.sendSmileUpdates.set(binaryTransportEnabled);
             this.updateErrorTracker = new RequestErrorTracker(taskId, location, maxErrorDuration, errorScheduledExecutor, "updating task");
             this.partitionedSplitCountTracker = requireNonNull(partitionedSplitCountTracker, "partitionedSplitCountTracker is null");
             this.stats = stats;
@@ -231,6 +259,8 @@ public final class HttpRemoteTask
                     initialTask.getTaskStatus(),
                     taskStatusRefreshMaxWait,
                     taskStatusCodec,
+                    taskStatusSmileCodec,
+                    binaryTransportEnabled,
                     executor,
                     httpClient,
                     maxErrorDuration,
@@ -243,6 +273,11 @@ public final class HttpRemoteTask
                     httpClient,
                     taskInfoUpdateInterval,
                     taskInfoCodec,
+                    taskInfoSmileCodec,
+                    taskInfoDeltaCodec,
+                    taskInfoDeltaSmileCodec,
+                    binaryTransportEnabled,
+                    taskInfoDeltaEnabled,
                     maxErrorDuration,
                     summarizeTaskInfo,
                     executor,
@@ -509,21 +544,31 @@ public final class HttpRemoteTask
                 sources,
                 outputBuffers.get(),
                 totalPartitions);
-        byte[] taskUpdateRequestJson = taskUpdateRequestCodec.toJsonBytes(updateRequest);
+        byte[] taskUpdateRequestBytes;
+        String contentType;
+        boolean smileUpdate = sendSmileUpdates.get();
+        if (smileUpdate) {
+            taskUpdateRequestBytes = taskUpdateRequestSmileCodec.toSmile(updateRequest);
+            contentType = APPLICATION_JACKSON_SMILE;
+        }
+        else {
+            taskUpdateRequestBytes = taskUpdateRequestCodec.toJsonBytes(updateRequest);
+            contentType = MediaType.JSON_UTF_8.toString();
+        }
         if (fragment.isPresent()) {
-            stats.updateWithPlanBytes(taskUpdateRequestJson.length);
+            stats.updateWithPlanBytes(taskUpdateRequestBytes.length);
         }
 
         HttpUriBuilder uriBuilder = getHttpUriBuilder(taskStatus);
-        Request request = preparePost()
+        Request request = setAcceptHeader(preparePost())
                 .setUri(uriBuilder.build())
-                .setHeader(HttpHeaders.CONTENT_TYPE, MediaType.JSON_UTF_8.toString())
-                .setBodyGenerator(createStaticBodyGenerator(taskUpdateRequestJson))
+                .setHeader(HttpHeaders.CONTENT_TYPE, contentType)
+                .setBodyGenerator(createStaticBodyGenerator(taskUpdateRequestBytes))
                 .build();
 
         updateErrorTracker.startRequest();
 
-        ListenableFuture<JsonResponse<TaskInfo>> future = httpClient.executeAsync(request, createFullJsonResponseHandler(taskInfoCodec));
+        ListenableFuture<JsonResponse<TaskInfo>> future = httpClient.executeAsync(request, createTaskInfoResponseHandler());
         currentRequest = future;
         currentRequestStartNanos = System.nanoTime();
 
@@ -531,7 +576,42 @@ public final class HttpRemoteTask
         // and does so without grabbing the instance lock.
         needsUpdate.set(false);
 
-        Futures.addCallback(future, new SimpleHttpResponseHandler<>(new UpdateResponseHandler(sources), request.getUri(), stats), executor);
+        SimpleHttpResponseHandler<TaskInfo> responseHandler = new SimpleHttpResponseHandler<>(new UpdateResponseHandler(sources), request.getUri(), stats);
+        if (!smileUpdate) {
+            Futures.addCallback(future, responseHandler, executor);
+            return;
+        }
+        Futures.addCallback(future, new FutureCallback<JsonResponse<TaskInfo>>()
+        {
+            @Override
+            public void onSuccess(JsonResponse<TaskInfo> response)
+            {
+                if (response.getStatusCode() == HttpStatus.UNSUPPORTED_MEDIA_TYPE.code()) {
+                    resendUpdateAsJson(request.getUri());
+                    return;
+                }
+                responseHandler.onSuccess(response);
+            }
+
+            @Override
+            public void onFailure(Throwable t)
+            {
+                responseHandler.onFailure(t);
+            }
+        }, executor);
+    }
+
+    private void resendUpdateAsJson(URI uri)
+    {
+        try (SetThreadName ignored = new SetThreadName("UpdateResponseHandler-%s", taskId)) {
+            log.debug("Worker does not accept Smile task updates, sending JSON instead: %s", uri);
+            sendSmileUpdates.set(false);
+            synchronized (this) {
+                currentRequest = null;
+            }
+            needsUpdate.set(true);
+            sendUpdate();
+        }
     }
 
     private synchronized List<TaskSource> getSources()
@@ -569,7 +649,7 @@ public final class HttpRemoteTask
 
             // send cancel to task and ignore response
             HttpUriBuilder uriBuilder = getHttpUriBuilder(taskStatus).addParameter("abort", "false");
-            Request request = prepareDelete()
+            Request request = setAcceptHeader(prepareDelete())
                     .setUri(uriBuilder.build())
                     .build();
             scheduleAsyncCleanupRequest(createCleanupBackoff(), request, "cancel");
@@ -599,7 +679,7 @@ public final class HttpRemoteTask
         // The remote task is likely to get a delete from the PageBufferClient first.
         // We send an additional delete anyway to get the final TaskInfo
         HttpUriBuilder uriBuilder = getHttpUriBuilder(getTaskStatus());
-        Request request = prepareDelete()
+        Request request = setAcceptHeader(prepareDelete())
                 .setUri(uriBuilder.build())
                 .build();
 
@@ -625,7 +705,7 @@ public final class HttpRemoteTask
 
             // send abort to task
             HttpUriBuilder uriBuilder = getHttpUriBuilder(getTaskStatus());
-            Request request = prepareDelete()
+            Request request = setAcceptHeader(prepareDelete())
                     .setUri(uriBuilder.build())
                     .build();
             scheduleAsyncCleanupRequest(createCleanupBackoff(), request, "abort");
@@ -644,7 +724,7 @@ public final class HttpRemoteTask
 
     private void doScheduleAsyncCleanupRequest(Backoff cleanupBackoff, Request request, String action)
     {
-        Futures.addCallback(httpClient.executeAsync(request, createFullJsonResponseHandler(taskInfoCodec)), new FutureCallback<JsonResponse<TaskInfo>>()
+        Futures.addCallback(httpClient.executeAsync(request, createTaskInfoResponseHandler()), new FutureCallback<JsonResponse<TaskInfo>>()
         {
             @Override
             public void onSuccess(JsonResponse<TaskInfo> result)
@@ -721,6 +801,22 @@ public final class HttpRemoteTask
         abort(failWith(getTaskStatus(), FAILED, ImmutableList.of(toFailure(cause))));
     }
 
+    private Request.Builder setAcceptHeader(Request.Builder requestBuilder)
+    {
+        if (binaryTransportEnabled) {
+            requestBuilder.setHeader(HttpHeaders.ACCEPT, ACCEPT_SMILE_OR_JSON);
+        }
+        return requestBuilder;
+    }
+
+    private ResponseHandler<JsonResponse<TaskInfo>, RuntimeException> createTaskInfoResponseHandler()
+    {
+        if (binaryTransportEnabled) {
+            return createFullSmileResponseHandler(taskInfoSmileCodec, taskInfoCodec);
+        }
+        return createFullJsonResponseHandler(taskInfoCodec);
+    }
+
     private HttpUriBuilder getHttpUriBuilder(TaskStatus taskStatus)
     {
         HttpUriBuilder uriBuilder = uriBuilderFrom(taskStatus.getSelf());
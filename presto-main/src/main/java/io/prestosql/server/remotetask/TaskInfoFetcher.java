@@ -16,17 +16,20 @@ package io.prestosql.server.remotetask;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
 import io.airlift.concurrent.SetThreadName;
-import io.airlift.http.client.FullJsonResponseHandler;
+import io.airlift.http.client.FullJsonResponseHandler.JsonResponse;
 import io.airlift.http.client.HttpClient;
 import io.airlift.http.client.HttpUriBuilder;
 import io.airlift.http.client.Request;
+import io.airlift.http.client.ResponseHandler;
 import io.airlift.json.JsonCodec;
 import io.airlift.units.Duration;
 import io.prestosql.execution.StateMachine;
 import io.prestosql.execution.StateMachine.StateChangeListener;
 import io.prestosql.execution.TaskId;
 import io.prestosql.execution.TaskInfo;
+import io.prestosql.execution.TaskInfoDelta;
 import io.prestosql.execution.TaskStatus;
+import io.prestosql.server.smile.SmileCodec;
 
 import javax.annotation.concurrent.GuardedBy;
 
@@ -39,12 +42,17 @@ import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
 
+import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.net.HttpHeaders.ACCEPT;
 import static com.google.common.net.HttpHeaders.CONTENT_TYPE;
 import static com.google.common.net.MediaType.JSON_UTF_8;
 import static io.airlift.http.client.FullJsonResponseHandler.createFullJsonResponseHandler;
 import static io.airlift.http.client.HttpUriBuilder.uriBuilderFrom;
 import static io.airlift.http.client.Request.Builder.prepareGet;
 import static io.airlift.units.Duration.nanosSince;
+import static io.prestosql.execution.TaskInfoDelta.NO_BASE_VERSION;
+import static io.prestosql.server.smile.FullSmileResponseHandler.ACCEPT_SMILE_OR_JSON;
+import static io.prestosql.server.smile.FullSmileResponseHandler.createFullSmileResponseHandler;
 import static java.util.Objects.requireNonNull;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
 
@@ -56,6 +64,11 @@ public class TaskInfoFetcher
     private final StateMachine<TaskInfo> taskInfo;
     private final StateMachine<Optional<TaskInfo>> finalTaskInfo;
     private final JsonCodec<TaskInfo> taskInfoCodec;
+    private final SmileCodec<TaskInfo> taskInfoSmileCodec;
+    private final JsonCodec<TaskInfoDelta> taskInfoDeltaCodec;
+    private final SmileCodec<TaskInfoDelta> taskInfoDeltaSmileCodec;
+    private final boolean binaryTransportEnabled;
+    private final boolean taskInfoDeltaEnabled;
 
     private final long updateIntervalMillis;
     private final AtomicLong lastUpdateNanos = new AtomicLong();
@@ -79,7 +92,11 @@ public class TaskInfoFetcher
     private ScheduledFuture<?> scheduledFuture;
 
     @GuardedBy("this")
-    private ListenableFuture<FullJsonResponseHandler.JsonResponse<TaskInfo>> future;
+    private ListenableFuture<?> future;
+
+    // the last task info fetched from the worker, which deltas are applied to
+    @GuardedBy("this")
+    private TaskInfo taskInfoDeltaBase;
 
     public TaskInfoFetcher(
             Consumer<Throwable> onFail,
@@ -87,6 +104,11 @@ public class TaskInfoFetcher
             HttpClient httpClient,
             Duration updateInterval,
             JsonCodec<TaskInfo> taskInfoCodec,
+            SmileCodec<TaskInfo> taskInfoSmileCodec,
+            JsonCodec<TaskInfoDelta> taskInfoDeltaCodec,
+            SmileCodec<TaskInfoDelta> taskInfoDeltaSmileCodec,
+            boolean binaryTransportEnabled,
+            boolean taskInfoDeltaEnabled,
             Duration maxErrorDuration,
             boolean summarizeTaskInfo,
             Executor executor,
@@ -102,6 +124,11 @@ public class TaskInfoFetcher
         this.taskInfo = new StateMachine<>("task " + taskId, executor, initialTask);
         this.finalTaskInfo = new StateMachine<>("task-" + taskId, executor, Optional.empty());
         this.taskInfoCodec = requireNonNull(taskInfoCodec, "taskInfoCodec is null");
+        this.taskInfoSmileCodec = requireNonNull(taskInfoSmileCodec, "taskInfoSmileCodec is null");
+        this.taskInfoDeltaCodec = requireNonNull(taskInfoDeltaCodec, "taskInfoDeltaCodec is null");
+        this.taskInfoDeltaSmileCodec = requireNonNull(taskInfoDeltaSmileCodec, "taskInfoDeltaSmileCodec is null");
+        this.binaryTransportEnabled = binaryTransportEnabled;
+        this.taskInfoDeltaEnabled = taskInfoDeltaEnabled;
 
         this.updateIntervalMillis = requireNonNull(updateInterval, "updateInterval is null").toMillis();
         this.updateScheduledExecutor = requireNonNull(updateScheduledExecutor, "updateScheduledExecutor is null");
@@ -201,16 +228,41 @@ public class TaskInfoFetcher
         }
 
         HttpUriBuilder httpUriBuilder = uriBuilderFrom(taskStatus.getSelf());
+        if (taskInfoDeltaEnabled) {
+            long baseVersion = taskInfoDeltaBase == null ? NO_BASE_VERSION : taskInfoDeltaBase.getTaskStatus().getVersion();
+            httpUriBuilder.appendPath("delta").appendPath(String.valueOf(baseVersion));
+        }
         URI uri = summarizeTaskInfo ? httpUriBuilder.addParameter("summarize").build() : httpUriBuilder.build();
         Request request = prepareGet()
                 .setUri(uri)
                 .setHeader(CONTENT_TYPE, JSON_UTF_8.toString())
+                .setHeader(ACCEPT, binaryTransportEnabled ? ACCEPT_SMILE_OR_JSON : JSON_UTF_8.toString())
                 .build();
 
         errorTracker.startRequest();
-        future = httpClient.executeAsync(request, createFullJsonResponseHandler(taskInfoCodec));
         currentRequestStartNanos.set(System.nanoTime());
-        Futures.addCallback(future, new SimpleHttpResponseHandler<>(this, request.getUri(), stats), executor);
+        if (taskInfoDeltaEnabled) {
+            ListenableFuture<JsonResponse<TaskInfoDelta>> deltaFuture = httpClient.executeAsync(request, createResponseHandler(taskInfoDeltaSmileCodec, taskInfoDeltaCodec));
+            future = deltaFuture;
+            Futures.addCallback(deltaFuture, new SimpleHttpResponseHandler<>(new TaskInfoDeltaCallback(), request.getUri(), stats), executor);
+        }
+        else {
+            ListenableFuture<JsonResponse<TaskInfo>> taskInfoFuture = httpClient.executeAsync(request, createResponseHandler(taskInfoSmileCodec, taskInfoCodec));
+            future = taskInfoFuture;
+            Futures.addCallback(taskInfoFuture, new SimpleHttpResponseHandler<>(this, request.getUri(), stats), executor);
+        }
+    }
+
+    private <T> ResponseHandler<JsonResponse<T>, RuntimeException> createResponseHandler(SmileCodec<T> smileCodec, JsonCodec<T> jsonCodec)
+    {
+        return binaryTransportEnabled ? createFullSmileResponseHandler(smileCodec, jsonCodec) : createFullJsonResponseHandler(jsonCodec);
+    }
+
+    private synchronized TaskInfo applyTaskInfoDelta(TaskInfoDelta delta)
+    {
+        checkState(delta.isFull() || taskInfoDeltaBase != null, "Received a task info delta without having a base");
+        taskInfoDeltaBase = delta.apply(taskInfoDeltaBase);
+        return taskInfoDeltaBase;
     }
 
     synchronized void updateTaskInfo(TaskInfo newValue)
@@ -278,6 +330,28 @@ public class TaskInfoFetcher
         }
     }
 
+    private class TaskInfoDeltaCallback
+            implements SimpleHttpResponseCallback<TaskInfoDelta>
+    {
+        @Override
+        public void success(TaskInfoDelta delta)
+        {
+            TaskInfoFetcher.this.success(applyTaskInfoDelta(delta));
+        }
+
+        @Override
+        public void failed(Throwable cause)
+        {
+            TaskInfoFetcher.this.failed(cause);
+        }
+
+        @Override
+        public void fatal(Throwable cause)
+        {
+            TaskInfoFetcher.this.fatal(cause);
+        }
+    }
+
     private void updateStats(long currentRequestStartNanos)
     {
         stats.infoRoundTripMillis(nanosSince(currentRequestStartNanos).toMillis());
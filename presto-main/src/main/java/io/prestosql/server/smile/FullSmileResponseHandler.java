@@ -0,0 +1,85 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.server.smile;
+
+import com.google.common.io.ByteStreams;
+import com.google.common.net.MediaType;
+import io.airlift.http.client.FullJsonResponseHandler;
+import io.airlift.http.client.FullJsonResponseHandler.JsonResponse;
+import io.airlift.http.client.Request;
+import io.airlift.http.client.Response;
+import io.airlift.http.client.ResponseHandler;
+import io.airlift.json.JsonCodec;
+
+import java.io.IOException;
+
+import static com.google.common.net.HttpHeaders.CONTENT_TYPE;
+import static com.google.common.net.MediaType.JSON_UTF_8;
+import static io.airlift.http.client.FullJsonResponseHandler.createFullJsonResponseHandler;
+import static io.prestosql.PrestoMediaTypes.APPLICATION_JACKSON_SMILE;
+import static io.prestosql.PrestoMediaTypes.JACKSON_SMILE;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Decodes Smile responses with a {@link SmileCodec}, and all other responses like {@link FullJsonResponseHandler},
+ * so a server that answers with JSON is still understood.
+ */
+public class FullSmileResponseHandler<T>
+        implements ResponseHandler<JsonResponse<T>, RuntimeException>
+{
+    // prefers Smile, but also accepts the JSON of a server that can not produce Smile
+    public static final String ACCEPT_SMILE_OR_JSON = APPLICATION_JACKSON_SMILE + ", " + JSON_UTF_8.withoutParameters() + "; q=0.5";
+
+    private final SmileCodec<T> smileCodec;
+    private final FullJsonResponseHandler<T> jsonResponseHandler;
+
+    public static <T> FullSmileResponseHandler<T> createFullSmileResponseHandler(SmileCodec<T> smileCodec, JsonCodec<T> jsonCodec)
+    {
+        return new FullSmileResponseHandler<>(smileCodec, jsonCodec);
+    }
+
+    private FullSmileResponseHandler(SmileCodec<T> smileCodec, JsonCodec<T> jsonCodec)
+    {
+        this.smileCodec = requireNonNull(smileCodec, "smileCodec is null");
+        this.jsonResponseHandler = createFullJsonResponseHandler(requireNonNull(jsonCodec, "jsonCodec is null"));
+    }
+
+    @Override
+    public JsonResponse<T> handleException(Request request, Exception exception)
+    {
+        return jsonResponseHandler.handleException(request, exception);
+    }
+
+    @Override
+    public JsonResponse<T> handle(Request request, Response response)
+    {
+        String contentType = response.getHeader(CONTENT_TYPE);
+        if (contentType == null || !MediaType.parse(contentType).is(JACKSON_SMILE)) {
+            return jsonResponseHandler.handle(request, response);
+        }
+        byte[] bytes = readResponseBytes(response);
+        // the value is decoded by the codec passed to the response
+        return new JsonResponse<>(response.getStatusCode(), response.getStatusMessage(), response.getHeaders(), smileCodec.getCodec(), bytes);
+    }
+
+    private static byte[] readResponseBytes(Response response)
+    {
+        try {
+            return ByteStreams.toByteArray(response.getInputStream());
+        }
+        catch (IOException e) {
+            throw new RuntimeException("Error reading response from server", e);
+        }
+    }
+}
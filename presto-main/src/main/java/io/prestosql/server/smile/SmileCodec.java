@@ -0,0 +1,52 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.server.smile;
+
+import io.airlift.json.JsonCodec;
+import io.airlift.json.JsonCodecFactory;
+
+import java.lang.reflect.Type;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Encodes and decodes values of a type with Smile, the binary encoding of the JSON data model.
+ */
+public class SmileCodec<T>
+{
+    // JsonCodec only binds the type with Jackson, the format is defined by the object mapper
+    private final JsonCodec<T> codec;
+
+    SmileCodec(JsonCodecFactory smileCodecFactory, Type type)
+    {
+        this.codec = requireNonNull(smileCodecFactory, "smileCodecFactory is null").jsonCodec(type);
+    }
+
+    public byte[] toSmile(T instance)
+            throws IllegalArgumentException
+    {
+        return codec.toJsonBytes(instance);
+    }
+
+    public T fromSmile(byte[] bytes)
+            throws IllegalArgumentException
+    {
+        return codec.fromJson(bytes);
+    }
+
+    JsonCodec<T> getCodec()
+    {
+        return codec;
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.split;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import io.prestosql.connector.CatalogName;
+import io.prestosql.execution.Lifespan;
+import io.prestosql.execution.scheduler.SplitSchedulerStats;
+import io.prestosql.spi.connector.ColumnHandle;
+import io.prestosql.spi.connector.ConnectorPartitionHandle;
+import io.prestosql.spi.predicate.TupleDomain;
+
+import javax.annotation.concurrent.GuardedBy;
+
+import java.util.function.Supplier;
+
+import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.util.concurrent.Futures.immediateFuture;
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Delays the enumeration of the splits of a table scan until its dynamic filters are collected
+ * (or the wait is over), and skips the remaining splits once the dynamic filter matches no rows.
+ */
+public class DynamicFilterSplitSource
+        implements SplitSource
+{
+    private final CatalogName catalogName;
+    private final Supplier<ListenableFuture<?>> dynamicFilterWait;
+    private final Supplier<TupleDomain<ColumnHandle>> dynamicFilter;
+    private final Supplier<SplitSource> splitSourceFactory;
+    private final SplitSchedulerStats stats;
+
+    @GuardedBy("this")
+    private ListenableFuture<?> dynamicFilterCollected;
+    @GuardedBy("this")
+    private SplitSource splitSource;
+    @GuardedBy("this")
+    private boolean pruned;
+    @GuardedBy("this")
+    private boolean closed;
+
+    /**
+     * @param dynamicFilterWait starts the wait for the dynamic filters, once the splits are requested for the first time
+     * @param splitSourceFactory creates the split source of the table scan, once the wait is over
+     */
+    public DynamicFilterSplitSource(
+            CatalogName catalogName,
+            Supplier<ListenableFuture<?>> dynamicFilterWait,
+            Supplier<TupleDomain<ColumnHandle>> dynamicFilter,
+            Supplier<SplitSource> splitSourceFactory,
+            SplitSchedulerStats stats)
+    {
+        this.catalogName = requireNonNull(catalogName, "catalogName is null");
+        this.dynamicFilterWait = requireNonNull(dynamicFilterWait, "dynamicFilterWait is null");
+        this.dynamicFilter = requireNonNull(dynamicFilter, "dynamicFilter is null");
+        this.splitSourceFactory = requireNonNull(splitSourceFactory, "splitSourceFactory is null");
+        this.stats = requireNonNull(stats, "stats is null");
+    }
+
+    @Override
+    public CatalogName getCatalogName()
+    {
+        return catalogName;
+    }
+
+    @Override
+    public synchronized ListenableFuture<SplitBatch> getNextBatch(ConnectorPartitionHandle partitionHandle, Lifespan lifespan, int maxSize)
+    {
+        checkState(!closed, "split source is closed");
+        if (dynamicFilterCollected == null) {
+            dynamicFilterCollected = dynamicFilterWait.get();
+        }
+        if (!dynamicFilterCollected.isDone()) {
+            // the splits are requested again by the scheduler, rather than enumerated by the thread completing the wait
+            return Futures.transform(dynamicFilterCollected, ignored -> new SplitBatch(ImmutableList.of(), false), directExecutor());
+        }
+
+        if (!pruned && dynamicFilter.get().isNone()) {
+            pruned = true;
+            if (splitSource == null) {
+                stats.getSplitSourcesPrunedByDynamicFilter().update(1);
+            }
+        }
+        if (pruned) {
+            return immediateFuture(new SplitBatch(ImmutableList.of(), true));
+        }
+
+        if (splitSource == null) {
+            splitSource = splitSourceFactory.get();
+        }
+        return Futures.transform(splitSource.getNextBatch(partitionHandle, lifespan, maxSize), this::pruneSplits, directExecutor());
+    }
+
+    private SplitBatch pruneSplits(SplitBatch splitBatch)
+    {
+        // the dynamic filter may be collected while the splits are enumerated
+        if (splitBatch.getSplits().isEmpty() || !dynamicFilter.get().isNone()) {
+            return splitBatch;
+        }
+        stats.getSplitsPrunedByDynamicFilter().update(splitBatch.getSplits().size());
+        return new SplitBatch(ImmutableList.of(), splitBatch.isLastBatch());
+    }
+
+    @Override
+    public synchronized void close()
+    {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (splitSource != null) {
+            splitSource.close();
+        }
+    }
+
+    @Override
+    public synchronized boolean isFinished()
+    {
+        if (pruned) {
+            return true;
+        }
+        return splitSource != null && splitSource.isFinished();
+    }
+}
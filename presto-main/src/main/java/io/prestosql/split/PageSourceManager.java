@@ -20,6 +20,7 @@ import io.prestosql.metadata.TableHandle;
 import io.prestosql.spi.connector.ColumnHandle;
 import io.prestosql.spi.connector.ConnectorPageSource;
 import io.prestosql.spi.connector.ConnectorPageSourceProvider;
+import io.prestosql.spi.predicate.TupleDomain;
 
 import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
@@ -48,8 +49,15 @@ public class PageSourceManager
 
     @Override
     public ConnectorPageSource createPageSource(Session session, Split split, TableHandle table, List<ColumnHandle> columns)
+    {
+        return createPageSource(session, split, table, columns, TupleDomain.all());
+    }
+
+    @Override
+    public ConnectorPageSource createPageSource(Session session, Split split, TableHandle table, List<ColumnHandle> columns, TupleDomain<ColumnHandle> dynamicFilter)
     {
         requireNonNull(columns, "columns is null");
+        requireNonNull(dynamicFilter, "dynamicFilter is null");
         checkArgument(split.getCatalogName().equals(table.getCatalogName()), "mismatched split and table");
         CatalogName catalogName = split.getCatalogName();
 
@@ -58,7 +66,8 @@ public class PageSourceManager
                 session.toConnectorSession(catalogName),
                 split.getConnectorSplit(),
                 table.getConnectorHandle(),
-                columns);
+                columns,
+                dynamicFilter);
     }
 
     private ConnectorPageSourceProvider getPageSourceProvider(CatalogName catalogName)
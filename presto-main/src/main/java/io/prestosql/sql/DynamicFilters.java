@@ -17,12 +17,15 @@ import com.google.common.collect.ImmutableList;
 import io.airlift.slice.Slice;
 import io.prestosql.metadata.Metadata;
 import io.prestosql.spi.block.Block;
+import io.prestosql.spi.connector.ColumnHandle;
 import io.prestosql.spi.function.ScalarFunction;
 import io.prestosql.spi.function.SqlType;
 import io.prestosql.spi.function.TypeParameter;
 import io.prestosql.spi.type.Type;
 import io.prestosql.spi.type.VarcharType;
 import io.prestosql.sql.planner.FunctionCallBuilder;
+import io.prestosql.sql.planner.Symbol;
+import io.prestosql.sql.planner.plan.TableScanNode;
 import io.prestosql.sql.tree.Expression;
 import io.prestosql.sql.tree.FunctionCall;
 import io.prestosql.sql.tree.QualifiedName;
@@ -30,11 +33,13 @@ import io.prestosql.sql.tree.StringLiteral;
 import io.prestosql.sql.tree.SymbolReference;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 
 import static com.google.common.base.MoreObjects.toStringHelper;
 import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.collect.ImmutableMap.toImmutableMap;
 import static io.prestosql.spi.type.StandardTypes.BOOLEAN;
 import static io.prestosql.spi.type.StandardTypes.VARCHAR;
 import static io.prestosql.sql.ExpressionUtils.extractConjuncts;
@@ -99,6 +104,21 @@ public final class DynamicFilters
         return Optional.of(new Descriptor(id, arguments.get(1)));
     }
 
+    /**
+     * Returns the mapping from dynamic filter ID to the column of the given table scan which consumes it.
+     */
+    public static Map<String, ColumnHandle> getDynamicFilterColumns(List<Descriptor> dynamicFilters, TableScanNode tableScanNode)
+    {
+        Map<Symbol, ColumnHandle> assignments = tableScanNode.getAssignments();
+        return dynamicFilters.stream()
+                .filter(descriptor -> descriptor.getInput() instanceof SymbolReference)
+                .filter(descriptor -> assignments.containsKey(Symbol.from(descriptor.getInput())))
+                .collect(toImmutableMap(
+                        Descriptor::getId,
+                        descriptor -> assignments.get(Symbol.from(descriptor.getInput())),
+                        (first, second) -> first));
+    }
+
     public static class ExtractResult
     {
         private final List<Expression> staticConjuncts;
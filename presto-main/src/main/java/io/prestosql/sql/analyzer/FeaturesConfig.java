@@ -22,6 +22,7 @@ import io.airlift.configuration.DefunctConfig;
 import io.airlift.units.DataSize;
 import io.airlift.units.Duration;
 import io.airlift.units.MaxDataSize;
+import io.prestosql.execution.buffer.CompressionCodec;
 import io.prestosql.operator.aggregation.arrayagg.ArrayAggGroupImplementation;
 import io.prestosql.operator.aggregation.histogram.HistogramGroupImplementation;
 import io.prestosql.operator.aggregation.multimapagg.MultimapAggGroupImplementation;
@@ -43,6 +44,7 @@ import static io.prestosql.sql.analyzer.FeaturesConfig.JoinReorderingStrategy.EL
 import static io.prestosql.sql.analyzer.RegexLibrary.JONI;
 import static java.util.Objects.requireNonNull;
 import static java.util.concurrent.TimeUnit.MINUTES;
+import static java.util.concurrent.TimeUnit.SECONDS;
 
 @DefunctConfig({
         "deprecated.legacy-char-to-varchar-coercion",
@@ -70,14 +72,19 @@ public class FeaturesConfig
     private boolean distributedIndexJoinsEnabled;
     private JoinDistributionType joinDistributionType = PARTITIONED;
     private DataSize joinMaxBroadcastTableSize;
+    private boolean failOnOversizedBroadcastJoin;
     private boolean colocatedJoinsEnabled;
     private boolean groupedExecutionEnabled;
     private boolean dynamicScheduleForGroupedExecution;
     private int concurrentLifespansPerTask;
     private boolean spatialJoinsEnabled = true;
+    private boolean mergeJoinsEnabled;
     private boolean fastInequalityJoins = true;
+    private boolean joinBloomFilterEnabled;
+    private boolean bigintJoinHashEnabled = true;
     private JoinReorderingStrategy joinReorderingStrategy = ELIMINATE_CROSS_JOINS;
     private int maxReorderedJoins = 9;
+    private int skewedJoinReplicationFactor = 8;
     private boolean redistributeWrites = true;
     private boolean scaleWriters;
     private DataSize writerMinSize = new DataSize(32, DataSize.Unit.MEGABYTE);
@@ -86,6 +93,9 @@ public class FeaturesConfig
     private boolean enableIntermediateAggregations;
     private boolean pushTableWriteThroughUnion = true;
     private boolean exchangeCompressionEnabled;
+    private CompressionCodec exchangeCompressionCodec = CompressionCodec.LZ4;
+    private boolean exchangeColumnarCompressionEnabled;
+    private boolean exchangeDictionaryPreservingEnabled;
     private boolean legacyTimestamp = true;
     private boolean optimizeMixedDistinctAggregations;
     private boolean unwrapCasts = true;
@@ -119,12 +129,17 @@ public class FeaturesConfig
     private boolean parseDecimalLiteralsAsDouble;
     private boolean useMarkDistinct = true;
     private boolean preferPartialAggregation = true;
+    private boolean adaptivePartialAggregationEnabled = true;
+    private long adaptivePartialAggregationMinRows = 100_000;
+    private double adaptivePartialAggregationUniqueRowsRatioThreshold = 0.8;
     private boolean optimizeTopNRowNumber = true;
     private boolean workProcessorPipelines;
     private boolean skipRedundantSort = true;
 
     private Duration iterativeOptimizerTimeout = new Duration(3, MINUTES); // by default let optimizer wait a long time in case it retrieves some data from ConnectorMetadata
     private boolean enableDynamicFiltering;
+    private int dynamicFilteringMaxPerDriverValueCount = 1000;
+    private Duration dynamicFilteringWaitTimeout = new Duration(1, SECONDS);
 
     private DataSize filterAndProjectMinOutputPageSize = new DataSize(500, KILOBYTE);
     private int filterAndProjectMinOutputPageRowCount = 256;
@@ -239,6 +254,19 @@ public class FeaturesConfig
         return this;
     }
 
+    public boolean isFailOnOversizedBroadcastJoin()
+    {
+        return failOnOversizedBroadcastJoin;
+    }
+
+    @Config("fail-on-oversized-broadcast-join")
+    @ConfigDescription("Fail queries whose broadcast join build side exceeds the maximum broadcast table size when using automatic join type selection")
+    public FeaturesConfig setFailOnOversizedBroadcastJoin(boolean failOnOversizedBroadcastJoin)
+    {
+        this.failOnOversizedBroadcastJoin = failOnOversizedBroadcastJoin;
+        return this;
+    }
+
     public boolean isGroupedExecutionEnabled()
     {
         return groupedExecutionEnabled;
@@ -306,6 +334,19 @@ public class FeaturesConfig
         return this;
     }
 
+    public boolean isMergeJoinsEnabled()
+    {
+        return mergeJoinsEnabled;
+    }
+
+    @Config("merge-joins-enabled")
+    @ConfigDescription("Use a streaming merge join when both join inputs are sorted on the join keys")
+    public FeaturesConfig setMergeJoinsEnabled(boolean mergeJoinsEnabled)
+    {
+        this.mergeJoinsEnabled = mergeJoinsEnabled;
+        return this;
+    }
+
     @Config("fast-inequality-joins")
     @ConfigDescription("Use faster handling of inequality joins if it is possible")
     public FeaturesConfig setFastInequalityJoins(boolean fastInequalityJoins)
@@ -319,6 +360,32 @@ public class FeaturesConfig
         return fastInequalityJoins;
     }
 
+    public boolean isJoinBloomFilterEnabled()
+    {
+        return joinBloomFilterEnabled;
+    }
+
+    @Config("join-bloom-filter-enabled")
+    @ConfigDescription("Build a bloom filter of the join keys to reject probe rows without a match")
+    public FeaturesConfig setJoinBloomFilterEnabled(boolean joinBloomFilterEnabled)
+    {
+        this.joinBloomFilterEnabled = joinBloomFilterEnabled;
+        return this;
+    }
+
+    public boolean isBigintJoinHashEnabled()
+    {
+        return bigintJoinHashEnabled;
+    }
+
+    @Config("bigint-join-hash-enabled")
+    @ConfigDescription("Use a hash table specialized for a single BIGINT, INTEGER or DATE join key")
+    public FeaturesConfig setBigintJoinHashEnabled(boolean bigintJoinHashEnabled)
+    {
+        this.bigintJoinHashEnabled = bigintJoinHashEnabled;
+        return this;
+    }
+
     public JoinReorderingStrategy getJoinReorderingStrategy()
     {
         return joinReorderingStrategy;
@@ -346,6 +413,20 @@ public class FeaturesConfig
         return this;
     }
 
+    @Min(2)
+    public int getSkewedJoinReplicationFactor()
+    {
+        return skewedJoinReplicationFactor;
+    }
+
+    @Config("optimizer.skewed-join-replication-factor")
+    @ConfigDescription("Number of partitions the rows of a skewed join key are spread across")
+    public FeaturesConfig setSkewedJoinReplicationFactor(int skewedJoinReplicationFactor)
+    {
+        this.skewedJoinReplicationFactor = skewedJoinReplicationFactor;
+        return this;
+    }
+
     public boolean isRedistributeWrites()
     {
         return redistributeWrites;
@@ -420,6 +501,48 @@ public class FeaturesConfig
         return this;
     }
 
+    public boolean isAdaptivePartialAggregationEnabled()
+    {
+        return adaptivePartialAggregationEnabled;
+    }
+
+    @Config("adaptive-partial-aggregation.enabled")
+    @ConfigDescription("Pass rows through partial aggregations that do not reduce the number of rows")
+    public FeaturesConfig setAdaptivePartialAggregationEnabled(boolean adaptivePartialAggregationEnabled)
+    {
+        this.adaptivePartialAggregationEnabled = adaptivePartialAggregationEnabled;
+        return this;
+    }
+
+    @Min(0)
+    public long getAdaptivePartialAggregationMinRows()
+    {
+        return adaptivePartialAggregationMinRows;
+    }
+
+    @Config("adaptive-partial-aggregation.min-rows")
+    @ConfigDescription("Minimum number of rows a partial aggregation processes before it can be bypassed")
+    public FeaturesConfig setAdaptivePartialAggregationMinRows(long adaptivePartialAggregationMinRows)
+    {
+        this.adaptivePartialAggregationMinRows = adaptivePartialAggregationMinRows;
+        return this;
+    }
+
+    @DecimalMin("0.0")
+    @DecimalMax("1.0")
+    public double getAdaptivePartialAggregationUniqueRowsRatioThreshold()
+    {
+        return adaptivePartialAggregationUniqueRowsRatioThreshold;
+    }
+
+    @Config("adaptive-partial-aggregation.unique-rows-ratio-threshold")
+    @ConfigDescription("Ratio of output groups to input rows above which a partial aggregation is bypassed")
+    public FeaturesConfig setAdaptivePartialAggregationUniqueRowsRatioThreshold(double adaptivePartialAggregationUniqueRowsRatioThreshold)
+    {
+        this.adaptivePartialAggregationUniqueRowsRatioThreshold = adaptivePartialAggregationUniqueRowsRatioThreshold;
+        return this;
+    }
+
     public boolean isOptimizeTopNRowNumber()
     {
         return optimizeTopNRowNumber;
@@ -713,6 +836,34 @@ public class FeaturesConfig
         return this;
     }
 
+    @Min(0)
+    public int getDynamicFilteringMaxPerDriverValueCount()
+    {
+        return dynamicFilteringMaxPerDriverValueCount;
+    }
+
+    @Config("experimental.dynamic-filtering-max-per-driver-value-count")
+    @ConfigDescription("Maximum number of distinct build side values collected by each driver for dynamic filtering, before falling back to a min/max range")
+    public FeaturesConfig setDynamicFilteringMaxPerDriverValueCount(int dynamicFilteringMaxPerDriverValueCount)
+    {
+        this.dynamicFilteringMaxPerDriverValueCount = dynamicFilteringMaxPerDriverValueCount;
+        return this;
+    }
+
+    @NotNull
+    public Duration getDynamicFilteringWaitTimeout()
+    {
+        return dynamicFilteringWaitTimeout;
+    }
+
+    @Config("experimental.dynamic-filtering-wait-timeout")
+    @ConfigDescription("Maximum time the split enumeration of a table scan is delayed waiting for dynamic filters collected by other stages")
+    public FeaturesConfig setDynamicFilteringWaitTimeout(Duration dynamicFilteringWaitTimeout)
+    {
+        this.dynamicFilteringWaitTimeout = dynamicFilteringWaitTimeout;
+        return this;
+    }
+
     public boolean isOptimizeMixedDistinctAggregations()
     {
         return optimizeMixedDistinctAggregations;
@@ -749,6 +900,45 @@ public class FeaturesConfig
         return this;
     }
 
+    public CompressionCodec getExchangeCompressionCodec()
+    {
+        return exchangeCompressionCodec;
+    }
+
+    @Config("exchange.compression-codec")
+    @ConfigDescription("Codec used to compress exchanged pages when exchange compression is enabled")
+    public FeaturesConfig setExchangeCompressionCodec(CompressionCodec exchangeCompressionCodec)
+    {
+        this.exchangeCompressionCodec = requireNonNull(exchangeCompressionCodec, "exchangeCompressionCodec is null");
+        return this;
+    }
+
+    public boolean isExchangeColumnarCompressionEnabled()
+    {
+        return exchangeColumnarCompressionEnabled;
+    }
+
+    @Config("exchange.columnar-compression-enabled")
+    @ConfigDescription("Compress every column of exchanged pages on its own, leaving incompressible columns uncompressed")
+    public FeaturesConfig setExchangeColumnarCompressionEnabled(boolean exchangeColumnarCompressionEnabled)
+    {
+        this.exchangeColumnarCompressionEnabled = exchangeColumnarCompressionEnabled;
+        return this;
+    }
+
+    public boolean isExchangeDictionaryPreservingEnabled()
+    {
+        return exchangeDictionaryPreservingEnabled;
+    }
+
+    @Config("exchange.dictionary-preserving-enabled")
+    @ConfigDescription("Keep dictionary and run length encoded blocks encoded in partitioned exchanges, sending every dictionary once per destination")
+    public FeaturesConfig setExchangeDictionaryPreservingEnabled(boolean exchangeDictionaryPreservingEnabled)
+    {
+        this.exchangeDictionaryPreservingEnabled = exchangeDictionaryPreservingEnabled;
+        return this;
+    }
+
     public boolean isEnableIntermediateAggregations()
     {
         return enableIntermediateAggregations;
@@ -15,13 +15,20 @@ package io.prestosql.sql.planner;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Sets;
 import io.airlift.log.Logger;
 import io.prestosql.Session;
 import io.prestosql.execution.TableInfo;
+import io.prestosql.execution.scheduler.DynamicFiltersCollector;
 import io.prestosql.metadata.Metadata;
 import io.prestosql.metadata.TableMetadata;
 import io.prestosql.metadata.TableProperties;
 import io.prestosql.operator.StageExecutionDescriptor;
+import io.prestosql.spi.connector.ColumnHandle;
+import io.prestosql.spi.connector.ConnectorSplitManager.SplitSchedulingStrategy;
+import io.prestosql.spi.predicate.TupleDomain;
+import io.prestosql.split.DynamicFilterSplitSource;
 import io.prestosql.split.SampledSplitSource;
 import io.prestosql.split.SplitManager;
 import io.prestosql.split.SplitSource;
@@ -39,6 +46,7 @@ import io.prestosql.sql.planner.plan.IndexJoinNode;
 import io.prestosql.sql.planner.plan.JoinNode;
 import io.prestosql.sql.planner.plan.LimitNode;
 import io.prestosql.sql.planner.plan.MarkDistinctNode;
+import io.prestosql.sql.planner.plan.MergeJoinNode;
 import io.prestosql.sql.planner.plan.OutputNode;
 import io.prestosql.sql.planner.plan.PlanNode;
 import io.prestosql.sql.planner.plan.PlanNodeId;
@@ -67,9 +75,15 @@ import javax.inject.Inject;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Supplier;
 
 import static com.google.common.collect.ImmutableMap.toImmutableMap;
+import static com.google.common.collect.ImmutableSet.toImmutableSet;
 import static com.google.common.collect.Iterables.getOnlyElement;
+import static com.google.common.util.concurrent.Futures.immediateFuture;
+import static io.prestosql.execution.scheduler.DynamicFiltersCollector.getJoinDynamicFilters;
+import static io.prestosql.execution.scheduler.DynamicFiltersCollector.getProducedDynamicFilters;
 import static io.prestosql.spi.connector.ConnectorSplitManager.SplitSchedulingStrategy.GROUPED_SCHEDULING;
 import static io.prestosql.spi.connector.ConnectorSplitManager.SplitSchedulingStrategy.UNGROUPED_SCHEDULING;
 import static io.prestosql.sql.planner.optimizations.PlanNodeSearcher.searchFrom;
@@ -89,11 +103,14 @@ public class DistributedExecutionPlanner
         this.metadata = requireNonNull(metadata, "metadata is null");
     }
 
-    public StageExecutionPlan plan(SubPlan root, Session session)
+    public StageExecutionPlan plan(SubPlan root, Session session, DynamicFiltersCollector dynamicFiltersCollector)
     {
         ImmutableList.Builder<SplitSource> allSplitSources = ImmutableList.builder();
+        Set<String> collectedDynamicFilters = root.getAllFragments().stream()
+                .flatMap(fragment -> getProducedDynamicFilters(fragment).stream())
+                .collect(toImmutableSet());
         try {
-            return doPlan(root, session, allSplitSources);
+            return doPlan(root, session, dynamicFiltersCollector, collectedDynamicFilters, allSplitSources);
         }
         catch (Throwable t) {
             allSplitSources.build().forEach(DistributedExecutionPlanner::closeSplitSource);
@@ -111,17 +128,28 @@ public class DistributedExecutionPlanner
         }
     }
 
-    private StageExecutionPlan doPlan(SubPlan root, Session session, ImmutableList.Builder<SplitSource> allSplitSources)
+    private StageExecutionPlan doPlan(
+            SubPlan root,
+            Session session,
+            DynamicFiltersCollector dynamicFiltersCollector,
+            Set<String> collectedDynamicFilters,
+            ImmutableList.Builder<SplitSource> allSplitSources)
     {
         PlanFragment currentFragment = root.getFragment();
 
+        // dynamic filters of the joins within this fragment are not waited for, since the tasks running
+        // these joins may be created only once the splits of this fragment are scheduled
+        Set<String> remoteDynamicFilters = Sets.difference(collectedDynamicFilters, getJoinDynamicFilters(currentFragment.getRoot()));
+
         // get splits for this fragment, this is lazy so split assignments aren't actually calculated here
-        Map<PlanNodeId, SplitSource> splitSources = currentFragment.getRoot().accept(new Visitor(session, currentFragment.getStageExecutionDescriptor(), allSplitSources), null);
+        Map<PlanNodeId, SplitSource> splitSources = currentFragment.getRoot().accept(
+                new Visitor(session, currentFragment.getStageExecutionDescriptor(), dynamicFiltersCollector, remoteDynamicFilters, allSplitSources),
+                null);
 
         // create child stages
         ImmutableList.Builder<StageExecutionPlan> dependencies = ImmutableList.builder();
         for (SubPlan childPlan : root.getChildren()) {
-            dependencies.add(doPlan(childPlan, session, allSplitSources));
+            dependencies.add(doPlan(childPlan, session, dynamicFiltersCollector, collectedDynamicFilters, allSplitSources));
         }
 
         // extract TableInfo
@@ -151,12 +179,21 @@ public class DistributedExecutionPlanner
     {
         private final Session session;
         private final StageExecutionDescriptor stageExecutionDescriptor;
+        private final DynamicFiltersCollector dynamicFiltersCollector;
+        private final Set<String> remoteDynamicFilters;
         private final ImmutableList.Builder<SplitSource> splitSources;
 
-        private Visitor(Session session, StageExecutionDescriptor stageExecutionDescriptor, ImmutableList.Builder<SplitSource> allSplitSources)
+        private Visitor(
+                Session session,
+                StageExecutionDescriptor stageExecutionDescriptor,
+                DynamicFiltersCollector dynamicFiltersCollector,
+                Set<String> remoteDynamicFilters,
+                ImmutableList.Builder<SplitSource> allSplitSources)
         {
             this.session = session;
             this.stageExecutionDescriptor = stageExecutionDescriptor;
+            this.dynamicFiltersCollector = dynamicFiltersCollector;
+            this.remoteDynamicFilters = remoteDynamicFilters;
             this.splitSources = allSplitSources;
         }
 
@@ -180,16 +217,24 @@ public class DistributedExecutionPlanner
                     .map(DynamicFilters.ExtractResult::getDynamicConjuncts)
                     .orElse(ImmutableList.of());
 
-            // TODO: Execution must be plugged in here
-            if (!dynamicFilters.isEmpty()) {
-                log.debug("Dynamic filters: %s", dynamicFilters);
-            }
+            SplitSchedulingStrategy splitSchedulingStrategy = stageExecutionDescriptor.isScanGroupedExecution(node.getId()) ? GROUPED_SCHEDULING : UNGROUPED_SCHEDULING;
+            Map<String, ColumnHandle> dynamicFilterColumns = DynamicFilters.getDynamicFilterColumns(dynamicFilters, node);
 
             // get dataSource for table
-            SplitSource splitSource = splitManager.getSplits(
-                    session,
-                    node.getTable(),
-                    stageExecutionDescriptor.isScanGroupedExecution(node.getId()) ? GROUPED_SCHEDULING : UNGROUPED_SCHEDULING);
+            SplitSource splitSource;
+            if (dynamicFilterColumns.isEmpty()) {
+                splitSource = splitManager.getSplits(session, node.getTable(), splitSchedulingStrategy);
+            }
+            else {
+                Supplier<TupleDomain<ColumnHandle>> dynamicFilter = () -> dynamicFiltersCollector.getPredicate(dynamicFilterColumns);
+                Set<String> waitedDynamicFilters = ImmutableSet.copyOf(Sets.intersection(dynamicFilterColumns.keySet(), remoteDynamicFilters));
+                splitSource = new DynamicFilterSplitSource(
+                        node.getTable().getCatalogName(),
+                        () -> waitedDynamicFilters.isEmpty() ? immediateFuture(null) : dynamicFiltersCollector.waitForDynamicFilters(waitedDynamicFilters),
+                        dynamicFilter,
+                        () -> splitManager.getSplits(session, node.getTable(), splitSchedulingStrategy, dynamicFilter),
+                        dynamicFiltersCollector.getStats());
+            }
 
             splitSources.add(splitSource);
 
@@ -229,6 +274,17 @@ public class DistributedExecutionPlanner
                     .build();
         }
 
+        @Override
+        public Map<PlanNodeId, SplitSource> visitMergeJoin(MergeJoinNode node, Void context)
+        {
+            Map<PlanNodeId, SplitSource> leftSplits = node.getLeft().accept(this, context);
+            Map<PlanNodeId, SplitSource> rightSplits = node.getRight().accept(this, context);
+            return ImmutableMap.<PlanNodeId, SplitSource>builder()
+                    .putAll(leftSplits)
+                    .putAll(rightSplits)
+                    .build();
+        }
+
         @Override
         public Map<PlanNodeId, SplitSource> visitIndexJoin(IndexJoinNode node, Void context)
         {
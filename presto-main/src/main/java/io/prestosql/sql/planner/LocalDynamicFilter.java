@@ -0,0 +1,135 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.sql.planner;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import io.prestosql.spi.predicate.Domain;
+import io.prestosql.spi.predicate.TupleDomain;
+import io.prestosql.spi.type.Type;
+import io.prestosql.sql.planner.plan.JoinNode;
+
+import javax.annotation.concurrent.GuardedBy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.collect.ImmutableMap.toImmutableMap;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Collects the build side domains of a join from all of its local partitions
+ * and publishes them, keyed by dynamic filter ID, once every partition has reported.
+ */
+public class LocalDynamicFilter
+{
+    // Mapping from dynamic filter ID to its build channel indices.
+    private final Map<String, Integer> buildChannels;
+
+    // Mapping from dynamic filter ID to the type of its build symbol.
+    private final Map<String, Type> filterTypes;
+
+    private final SettableFuture<Map<String, Domain>> resultFuture = SettableFuture.create();
+
+    @GuardedBy("this")
+    private final List<TupleDomain<String>> partitions;
+
+    @GuardedBy("this")
+    private int partitionsLeft;
+
+    public LocalDynamicFilter(Map<String, Integer> buildChannels, Map<String, Type> filterTypes, int partitionCount)
+    {
+        this.buildChannels = requireNonNull(buildChannels, "buildChannels is null");
+        this.filterTypes = requireNonNull(filterTypes, "filterTypes is null");
+        checkArgument(buildChannels.keySet().equals(filterTypes.keySet()), "buildChannels and filterTypes must have same keys");
+        checkArgument(partitionCount > 0, "partitionCount must be positive");
+        this.partitions = new ArrayList<>(partitionCount);
+        this.partitionsLeft = partitionCount;
+    }
+
+    private synchronized void addPartition(TupleDomain<String> tupleDomain)
+    {
+        checkState(partitionsLeft > 0, "All partitions of dynamic filter were already collected");
+        partitions.add(tupleDomain);
+        partitionsLeft--;
+        if (partitionsLeft > 0) {
+            return;
+        }
+
+        TupleDomain<String> result = TupleDomain.columnWiseUnion(partitions);
+        partitions.clear();
+        resultFuture.set(convertTupleDomain(result));
+    }
+
+    private Map<String, Domain> convertTupleDomain(TupleDomain<String> result)
+    {
+        // every filter gets an explicit domain, so that consumers can tell it was collected
+        ImmutableMap.Builder<String, Domain> domains = ImmutableMap.builder();
+        for (Map.Entry<String, Type> entry : filterTypes.entrySet()) {
+            Type type = entry.getValue();
+            Domain domain = result.getDomains()
+                    .map(filterDomains -> filterDomains.getOrDefault(entry.getKey(), Domain.all(type)))
+                    // the build side is empty, so no probe row can match
+                    .orElseGet(() -> Domain.none(type));
+            domains.put(entry.getKey(), domain);
+        }
+        return domains.build();
+    }
+
+    public static Optional<LocalDynamicFilter> create(JoinNode planNode, Map<Symbol, Integer> buildLayout, TypeProvider types, int partitionCount)
+    {
+        Map<String, Symbol> dynamicFilters = planNode.getDynamicFilters();
+        if (dynamicFilters.isEmpty()) {
+            return Optional.empty();
+        }
+
+        Map<String, Integer> buildChannels = dynamicFilters.entrySet().stream()
+                .collect(toImmutableMap(Map.Entry::getKey, entry -> buildLayout.get(entry.getValue())));
+        Map<String, Type> filterTypes = dynamicFilters.entrySet().stream()
+                .collect(toImmutableMap(Map.Entry::getKey, entry -> types.get(entry.getValue())));
+        return Optional.of(new LocalDynamicFilter(buildChannels, filterTypes, partitionCount));
+    }
+
+    public Map<String, Integer> getBuildChannels()
+    {
+        return buildChannels;
+    }
+
+    public ListenableFuture<Map<String, Domain>> getResultFuture()
+    {
+        return resultFuture;
+    }
+
+    public Consumer<TupleDomain<String>> getTupleDomainConsumer()
+    {
+        return this::addPartition;
+    }
+
+    @Override
+    public String toString()
+    {
+        return toStringHelper(this)
+                .add("buildChannels", buildChannels)
+                .add("filterTypes", filterTypes)
+                .add("resultFuture", resultFuture)
+                .toString();
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.sql.planner;
+
+import io.prestosql.spi.predicate.Domain;
+import io.prestosql.spi.predicate.TupleDomain;
+
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.ThreadSafe;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Holds the dynamic filters collected so far within a task, keyed by dynamic filter ID.
+ */
+@ThreadSafe
+public class LocalDynamicFiltersCollector
+{
+    @GuardedBy("this")
+    private final Map<String, Domain> dynamicFilterDomains = new HashMap<>();
+
+    public synchronized void addDynamicFilter(Map<String, Domain> dynamicFilterDomains)
+    {
+        requireNonNull(dynamicFilterDomains, "dynamicFilterDomains is null");
+        for (Map.Entry<String, Domain> entry : dynamicFilterDomains.entrySet()) {
+            this.dynamicFilterDomains.merge(entry.getKey(), entry.getValue(), Domain::intersect);
+        }
+    }
+
+    /**
+     * Returns the predicate on the columns consuming the given dynamic filters which is known so far.
+     * Columns whose dynamic filters have not been collected yet are unconstrained.
+     *
+     * @param filterColumns mapping from dynamic filter ID to the column consuming it
+     */
+    public synchronized <T> TupleDomain<T> getPredicate(Map<String, T> filterColumns)
+    {
+        Map<T, Domain> domains = new HashMap<>();
+        for (Map.Entry<String, T> entry : filterColumns.entrySet()) {
+            Domain domain = dynamicFilterDomains.get(entry.getKey());
+            if (domain != null) {
+                // a column may consume the dynamic filters of more than one join
+                domains.merge(entry.getValue(), domain, Domain::intersect);
+            }
+        }
+        return TupleDomain.withColumnDomains(domains);
+    }
+}
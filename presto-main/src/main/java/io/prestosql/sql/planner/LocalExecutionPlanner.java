@@ -26,7 +26,6 @@ import com.google.common.collect.Lists;
 import com.google.common.collect.Multimap;
 import com.google.common.collect.SetMultimap;
 import com.google.common.primitives.Ints;
-import io.airlift.log.Logger;
 import io.airlift.units.DataSize;
 import io.prestosql.Session;
 import io.prestosql.SystemSessionProperties;
@@ -44,6 +43,8 @@ import io.prestosql.operator.AssignUniqueIdOperator;
 import io.prestosql.operator.DeleteOperator.DeleteOperatorFactory;
 import io.prestosql.operator.DevNullOperator.DevNullOperatorFactory;
 import io.prestosql.operator.DriverFactory;
+import io.prestosql.operator.DynamicFilterSourceOperator;
+import io.prestosql.operator.DynamicFilterSourceOperator.DynamicFilterSourceOperatorFactory;
 import io.prestosql.operator.EnforceSingleRowOperator;
 import io.prestosql.operator.ExchangeClientSupplier;
 import io.prestosql.operator.ExchangeOperator.ExchangeOperatorFactory;
@@ -62,6 +63,7 @@ import io.prestosql.operator.LookupJoinOperators;
 import io.prestosql.operator.LookupOuterOperator.LookupOuterOperatorFactory;
 import io.prestosql.operator.LookupSourceFactory;
 import io.prestosql.operator.MarkDistinctOperator.MarkDistinctOperatorFactory;
+import io.prestosql.operator.MergeJoinOperator.MergeJoinOperatorFactory;
 import io.prestosql.operator.MergeOperator.MergeOperatorFactory;
 import io.prestosql.operator.NestedLoopJoinBridge;
 import io.prestosql.operator.NestedLoopJoinPagesSupplier;
@@ -98,6 +100,7 @@ import io.prestosql.operator.WorkProcessorPipelineSourceOperator;
 import io.prestosql.operator.aggregation.AccumulatorFactory;
 import io.prestosql.operator.aggregation.InternalAggregationFunction;
 import io.prestosql.operator.aggregation.LambdaProvider;
+import io.prestosql.operator.aggregation.PartialAggregationController;
 import io.prestosql.operator.exchange.LocalExchange.LocalExchangeFactory;
 import io.prestosql.operator.exchange.LocalExchangeSinkOperator.LocalExchangeSinkOperatorFactory;
 import io.prestosql.operator.exchange.LocalExchangeSourceOperator.LocalExchangeSourceOperatorFactory;
@@ -122,6 +125,7 @@ import io.prestosql.spi.connector.ConnectorIndex;
 import io.prestosql.spi.connector.ConnectorSession;
 import io.prestosql.spi.connector.RecordSet;
 import io.prestosql.spi.predicate.NullableValue;
+import io.prestosql.spi.predicate.TupleDomain;
 import io.prestosql.spi.type.Type;
 import io.prestosql.spiller.PartitioningSpillerFactory;
 import io.prestosql.spiller.SingleStreamSpillerFactory;
@@ -155,6 +159,7 @@ import io.prestosql.sql.planner.plan.IndexSourceNode;
 import io.prestosql.sql.planner.plan.JoinNode;
 import io.prestosql.sql.planner.plan.LimitNode;
 import io.prestosql.sql.planner.plan.MarkDistinctNode;
+import io.prestosql.sql.planner.plan.MergeJoinNode;
 import io.prestosql.sql.planner.plan.OutputNode;
 import io.prestosql.sql.planner.plan.PlanNode;
 import io.prestosql.sql.planner.plan.PlanNodeId;
@@ -221,13 +226,21 @@ import static com.google.common.collect.ImmutableSet.toImmutableSet;
 import static com.google.common.collect.Iterables.concat;
 import static com.google.common.collect.Iterables.getOnlyElement;
 import static com.google.common.collect.Range.closedOpen;
+import static io.airlift.concurrent.MoreFutures.addSuccessCallback;
 import static io.airlift.units.DataSize.Unit.BYTE;
+import static io.prestosql.SystemSessionProperties.getAdaptivePartialAggregationMinRows;
+import static io.prestosql.SystemSessionProperties.getAdaptivePartialAggregationUniqueRowsRatioThreshold;
 import static io.prestosql.SystemSessionProperties.getAggregationOperatorUnspillMemoryLimit;
+import static io.prestosql.SystemSessionProperties.getDynamicFilteringMaxPerDriverValueCount;
+import static io.prestosql.SystemSessionProperties.getExchangeCompressionCodec;
 import static io.prestosql.SystemSessionProperties.getFilterAndProjectMinOutputPageRowCount;
 import static io.prestosql.SystemSessionProperties.getFilterAndProjectMinOutputPageSize;
 import static io.prestosql.SystemSessionProperties.getTaskConcurrency;
 import static io.prestosql.SystemSessionProperties.getTaskWriterCount;
+import static io.prestosql.SystemSessionProperties.isAdaptivePartialAggregationEnabled;
+import static io.prestosql.SystemSessionProperties.isExchangeColumnarCompressionEnabled;
 import static io.prestosql.SystemSessionProperties.isExchangeCompressionEnabled;
+import static io.prestosql.SystemSessionProperties.isExchangeDictionaryPreservingEnabled;
 import static io.prestosql.SystemSessionProperties.isSpillEnabled;
 import static io.prestosql.SystemSessionProperties.isSpillOrderBy;
 import static io.prestosql.SystemSessionProperties.isSpillWindowOperator;
@@ -261,6 +274,7 @@ import static io.prestosql.sql.planner.plan.AggregationNode.Step.PARTIAL;
 import static io.prestosql.sql.planner.plan.ExchangeNode.Scope.LOCAL;
 import static io.prestosql.sql.planner.plan.JoinNode.Type.FULL;
 import static io.prestosql.sql.planner.plan.JoinNode.Type.INNER;
+import static io.prestosql.sql.planner.plan.JoinNode.Type.LEFT;
 import static io.prestosql.sql.planner.plan.JoinNode.Type.RIGHT;
 import static io.prestosql.sql.planner.plan.TableWriterNode.CreateTarget;
 import static io.prestosql.sql.planner.plan.TableWriterNode.InsertTarget;
@@ -280,8 +294,6 @@ import static java.util.stream.IntStream.range;
 
 public class LocalExecutionPlanner
 {
-    private static final Logger log = Logger.get(LocalExecutionPlanner.class);
-
     private final Metadata metadata;
     private final TypeAnalyzer typeAnalyzer;
     private final Optional<ExplainAnalyzeContext> explainAnalyzeContext;
@@ -433,7 +445,8 @@ public class LocalExecutionPlanner
                         partitioningScheme.isReplicateNullsAndAny(),
                         nullChannel,
                         outputBuffer,
-                        maxPagePartitioningBufferSize));
+                        maxPagePartitioningBufferSize,
+                        isExchangeDictionaryPreservingEnabled(taskContext.getSession())));
     }
 
     public LocalExecutionPlan plan(
@@ -466,7 +479,10 @@ public class LocalExecutionPlanner
                                 plan.getId(),
                                 outputTypes,
                                 pagePreprocessor,
-                                new PagesSerdeFactory(metadata.getBlockEncodingSerde(), isExchangeCompressionEnabled(session))))
+                                new PagesSerdeFactory(
+                                        metadata.getBlockEncodingSerde(),
+                                        isExchangeCompressionEnabled(session) ? Optional.of(getExchangeCompressionCodec(session)) : Optional.empty(),
+                                        isExchangeColumnarCompressionEnabled(session))))
                         .build(),
                 context.getDriverInstanceCount(),
                 physicalOperation.getPipelineExecutionStrategy());
@@ -523,6 +539,7 @@ public class LocalExecutionPlanner
 
         // this is shared with all subContexts
         private final AtomicInteger nextPipelineId;
+        private final LocalDynamicFiltersCollector dynamicFiltersCollector;
 
         private int nextOperatorId;
         private boolean inputDriver = true;
@@ -530,7 +547,7 @@ public class LocalExecutionPlanner
 
         public LocalExecutionPlanContext(TaskContext taskContext, TypeProvider types)
         {
-            this(taskContext, types, new ArrayList<>(), Optional.empty(), new AtomicInteger(0));
+            this(taskContext, types, new ArrayList<>(), Optional.empty(), new AtomicInteger(0), new LocalDynamicFiltersCollector());
         }
 
         private LocalExecutionPlanContext(
@@ -538,13 +555,15 @@ public class LocalExecutionPlanner
                 TypeProvider types,
                 List<DriverFactory> driverFactories,
                 Optional<IndexSourceContext> indexSourceContext,
-                AtomicInteger nextPipelineId)
+                AtomicInteger nextPipelineId,
+                LocalDynamicFiltersCollector dynamicFiltersCollector)
         {
             this.taskContext = taskContext;
             this.types = types;
             this.driverFactories = driverFactories;
             this.indexSourceContext = indexSourceContext;
             this.nextPipelineId = nextPipelineId;
+            this.dynamicFiltersCollector = dynamicFiltersCollector;
         }
 
         public void addDriverFactory(boolean inputDriver, boolean outputDriver, List<OperatorFactory> operatorFactories, OptionalInt driverInstances, PipelineExecutionStrategy pipelineExecutionStrategy)
@@ -576,6 +595,11 @@ public class LocalExecutionPlanner
             return taskContext.getSession();
         }
 
+        public TaskContext getTaskContext()
+        {
+            return taskContext;
+        }
+
         public StageId getStageId()
         {
             return taskContext.getTaskId().getStageId();
@@ -591,6 +615,11 @@ public class LocalExecutionPlanner
             return indexSourceContext;
         }
 
+        public LocalDynamicFiltersCollector getDynamicFiltersCollector()
+        {
+            return dynamicFiltersCollector;
+        }
+
         private int getNextPipelineId()
         {
             return nextPipelineId.getAndIncrement();
@@ -614,12 +643,12 @@ public class LocalExecutionPlanner
         public LocalExecutionPlanContext createSubContext()
         {
             checkState(!indexSourceContext.isPresent(), "index build plan can not have sub-contexts");
-            return new LocalExecutionPlanContext(taskContext, types, driverFactories, indexSourceContext, nextPipelineId);
+            return new LocalExecutionPlanContext(taskContext, types, driverFactories, indexSourceContext, nextPipelineId, dynamicFiltersCollector);
         }
 
         public LocalExecutionPlanContext createIndexSourceSubContext(IndexSourceContext indexSourceContext)
         {
-            return new LocalExecutionPlanContext(taskContext, types, driverFactories, Optional.of(indexSourceContext), nextPipelineId);
+            return new LocalExecutionPlanContext(taskContext, types, driverFactories, Optional.of(indexSourceContext), nextPipelineId, dynamicFiltersCollector);
         }
 
         public OptionalInt getDriverInstanceCount()
@@ -856,7 +885,9 @@ public class LocalExecutionPlanner
                     node.isPartial(),
                     hashChannel,
                     1000,
-                    joinCompiler);
+                    joinCompiler,
+                    isSpillEnabled(session) && isSpillWindowOperator(session),
+                    Optional.of(spillerFactory));
 
             return new PhysicalOperation(operatorFactory, makeLayout(node), context, source);
         }
@@ -1034,7 +1065,9 @@ public class LocalExecutionPlanner
                     distinctChannels,
                     node.getLimit(),
                     hashChannel,
-                    joinCompiler);
+                    joinCompiler,
+                    isSpillEnabled(session),
+                    partitioningSpillerFactory);
             return new PhysicalOperation(operatorFactory, makeLayout(node), context, source);
         }
 
@@ -1110,7 +1143,15 @@ public class LocalExecutionPlanner
 
             List<Integer> channels = getChannelsForSymbols(node.getDistinctSymbols(), source.getLayout());
             Optional<Integer> hashChannel = node.getHashSymbol().map(channelGetter(source));
-            MarkDistinctOperatorFactory operator = new MarkDistinctOperatorFactory(context.getNextOperatorId(), node.getId(), source.getTypes(), channels, hashChannel, joinCompiler);
+            MarkDistinctOperatorFactory operator = new MarkDistinctOperatorFactory(
+                    context.getNextOperatorId(),
+                    node.getId(),
+                    source.getTypes(),
+                    channels,
+                    hashChannel,
+                    joinCompiler,
+                    isSpillEnabled(session),
+                    partitioningSpillerFactory);
             return new PhysicalOperation(operator, makeLayout(node), context, source);
         }
 
@@ -1218,11 +1259,9 @@ public class LocalExecutionPlanner
                     .map(DynamicFilters.ExtractResult::getStaticConjuncts)
                     .map(ExpressionUtils::combineConjuncts);
 
-            // TODO: Execution must be plugged in here
-            Optional<List<DynamicFilters.Descriptor>> dynamicFilters = extractDynamicFilterResult.map(DynamicFilters.ExtractResult::getDynamicConjuncts);
-            if (dynamicFilters.isPresent() && !dynamicFilters.get().isEmpty()) {
-                log.debug("[TableScan] Dynamic filters: %s", dynamicFilters);
-            }
+            List<DynamicFilters.Descriptor> dynamicFilters = extractDynamicFilterResult
+                    .map(DynamicFilters.ExtractResult::getDynamicConjuncts)
+                    .orElse(ImmutableList.of());
 
             List<Expression> projections = new ArrayList<>();
             for (Symbol symbol : outputSymbols) {
@@ -1243,6 +1282,7 @@ public class LocalExecutionPlanner
                 if (columns != null) {
                     Supplier<CursorProcessor> cursorProcessor = expressionCompiler.compileCursorProcessor(translatedFilter, translatedProjections, sourceNode.getId());
                     Supplier<PageProcessor> pageProcessor = expressionCompiler.compilePageProcessor(translatedFilter, translatedProjections, Optional.of(context.getStageId() + "_" + planNodeId));
+                    Supplier<TupleDomain<ColumnHandle>> dynamicFilterSupplier = getDynamicFilterSupplier(dynamicFilters, (TableScanNode) sourceNode, context);
 
                     SourceOperatorFactory operatorFactory = new ScanFilterAndProjectOperatorFactory(
                             context.getNextOperatorId(),
@@ -1253,6 +1293,7 @@ public class LocalExecutionPlanner
                             pageProcessor,
                             table,
                             columns,
+                            dynamicFilterSupplier,
                             getTypes(projections, expressionTypes),
                             getFilterAndProjectMinOutputPageSize(session),
                             getFilterAndProjectMinOutputPageRowCount(session));
@@ -1278,6 +1319,17 @@ public class LocalExecutionPlanner
             }
         }
 
+        private Supplier<TupleDomain<ColumnHandle>> getDynamicFilterSupplier(List<DynamicFilters.Descriptor> dynamicFilters, TableScanNode tableScanNode, LocalExecutionPlanContext context)
+        {
+            // dynamic filters are collected by joins planned later, so the predicate is resolved lazily for each split
+            Map<String, ColumnHandle> dynamicFilterColumns = DynamicFilters.getDynamicFilterColumns(dynamicFilters, tableScanNode);
+            if (dynamicFilterColumns.isEmpty()) {
+                return TupleDomain::all;
+            }
+            LocalDynamicFiltersCollector collector = context.getDynamicFiltersCollector();
+            return () -> collector.getPredicate(dynamicFilterColumns);
+        }
+
         private RowExpression toRowExpression(Expression expression, Map<NodeRef<Expression>, Type> types, Map<Symbol, Integer> layout)
         {
             return SqlToRowExpressionTranslator.translate(expression, SCALAR, types, layout, metadata, session, true);
@@ -1587,11 +1639,6 @@ public class LocalExecutionPlanner
 
             List<JoinNode.EquiJoinClause> clauses = node.getCriteria();
 
-            // TODO: Execution must be plugged in here
-            if (!node.getDynamicFilters().isEmpty()) {
-                log.debug("[Join] Dynamic filters: %s", node.getDynamicFilters());
-            }
-
             List<Symbol> leftSymbols = Lists.transform(clauses, JoinNode.EquiJoinClause::getLeft);
             List<Symbol> rightSymbols = Lists.transform(clauses, JoinNode.EquiJoinClause::getRight);
 
@@ -2019,19 +2066,57 @@ public class LocalExecutionPlanner
                     spillEnabled && !buildOuter && partitionCount > 1,
                     singleStreamSpillerFactory);
 
+            ImmutableList.Builder<OperatorFactory> factoriesBuilder = ImmutableList.<OperatorFactory>builder()
+                    .addAll(buildSource.getOperatorFactories());
+            createDynamicFilter(node, buildSource, buildContext, context)
+                    .ifPresent(filter -> factoriesBuilder.add(createDynamicFilterSourceOperatorFactory(filter, node.getId(), buildSource, buildContext)));
+            factoriesBuilder.add(hashBuilderOperatorFactory);
+
             context.addDriverFactory(
                     buildContext.isInputDriver(),
                     false,
-                    ImmutableList.<OperatorFactory>builder()
-                            .addAll(buildSource.getOperatorFactories())
-                            .add(hashBuilderOperatorFactory)
-                            .build(),
+                    factoriesBuilder.build(),
                     buildContext.getDriverInstanceCount(),
                     buildSource.getPipelineExecutionStrategy());
 
             return lookupSourceFactoryManager;
         }
 
+        private Optional<LocalDynamicFilter> createDynamicFilter(JoinNode node, PhysicalOperation buildSource, LocalExecutionPlanContext buildContext, LocalExecutionPlanContext context)
+        {
+            if (node.getDynamicFilters().isEmpty()) {
+                return Optional.empty();
+            }
+            // the number of build drivers must be known upfront, since the filter is complete only after all of them finish
+            if (buildSource.getPipelineExecutionStrategy() == GROUPED_EXECUTION || !buildContext.getDriverInstanceCount().isPresent()) {
+                return Optional.empty();
+            }
+            Optional<LocalDynamicFilter> localDynamicFilter = LocalDynamicFilter.create(node, buildSource.getLayout(), context.getTypes(), buildContext.getDriverInstanceCount().getAsInt());
+            localDynamicFilter.ifPresent(filter -> addSuccessCallback(filter.getResultFuture(), domains -> {
+                // the probe side may be scanned within this task, or by another stage scheduled by the coordinator
+                context.getDynamicFiltersCollector().addDynamicFilter(domains);
+                context.getTaskContext().addDynamicFilter(domains);
+            }));
+            return localDynamicFilter;
+        }
+
+        private DynamicFilterSourceOperatorFactory createDynamicFilterSourceOperatorFactory(
+                LocalDynamicFilter dynamicFilter,
+                PlanNodeId planNodeId,
+                PhysicalOperation buildSource,
+                LocalExecutionPlanContext buildContext)
+        {
+            List<DynamicFilterSourceOperator.Channel> filterBuildChannels = dynamicFilter.getBuildChannels().entrySet().stream()
+                    .map(entry -> new DynamicFilterSourceOperator.Channel(entry.getKey(), buildSource.getTypes().get(entry.getValue()), entry.getValue()))
+                    .collect(toImmutableList());
+            return new DynamicFilterSourceOperatorFactory(
+                    buildContext.getNextOperatorId(),
+                    planNodeId,
+                    dynamicFilter.getTupleDomainConsumer(),
+                    filterBuildChannels,
+                    getDynamicFilteringMaxPerDriverValueCount(session));
+        }
+
         private JoinFilterFunctionFactory compileJoinFilterFunction(
                 Expression filterExpression,
                 Map<Symbol, Integer> probeLayout,
@@ -2089,6 +2174,83 @@ public class LocalExecutionPlanner
             return joinSourcesLayout.build();
         }
 
+        @Override
+        public PhysicalOperation visitMergeJoin(MergeJoinNode node, LocalExecutionPlanContext context)
+        {
+            // Plan probe
+            PhysicalOperation probeSource = node.getLeft().accept(this, context);
+
+            // Plan build; the build pages are streamed to the join operator through a local exchange
+            LocalExecutionPlanContext buildContext = context.createSubContext();
+            PhysicalOperation buildSource = node.getRight().accept(this, buildContext);
+            checkState(buildSource.getPipelineExecutionStrategy() == probeSource.getPipelineExecutionStrategy(), "build and probe have different pipelineExecutionStrategy");
+            checkArgument(buildContext.getDriverInstanceCount().orElse(1) == 1, "Expected local execution to not be parallel");
+
+            List<Symbol> buildSymbols = node.getRight().getOutputSymbols();
+            List<Type> buildTypes = getSymbolTypes(buildSymbols, context.getTypes());
+            LocalExchangeFactory exchangeFactory = new LocalExchangeFactory(
+                    SINGLE_DISTRIBUTION,
+                    1,
+                    buildTypes,
+                    ImmutableList.of(),
+                    Optional.empty(),
+                    buildSource.getPipelineExecutionStrategy(),
+                    maxLocalExchangeBufferSize);
+
+            List<OperatorFactory> buildOperatorFactories = new ArrayList<>(buildSource.getOperatorFactories());
+            buildOperatorFactories.add(new LocalExchangeSinkOperatorFactory(
+                    exchangeFactory,
+                    buildContext.getNextOperatorId(),
+                    node.getId(),
+                    exchangeFactory.newSinkFactoryId(),
+                    enforceLayoutProcessor(buildSymbols, buildSource.getLayout())));
+            context.addDriverFactory(
+                    buildContext.isInputDriver(),
+                    false,
+                    buildOperatorFactories,
+                    buildContext.getDriverInstanceCount(),
+                    buildSource.getPipelineExecutionStrategy());
+
+            ImmutableList.Builder<Integer> probeKeyChannels = ImmutableList.builder();
+            ImmutableList.Builder<Integer> buildKeyChannels = ImmutableList.builder();
+            for (JoinNode.EquiJoinClause clause : node.getCriteria()) {
+                probeKeyChannels.add(probeSource.getLayout().get(clause.getLeft()));
+                buildKeyChannels.add(buildSymbols.indexOf(clause.getRight()));
+            }
+
+            Set<Symbol> probeSymbols = ImmutableSet.copyOf(node.getLeft().getOutputSymbols());
+            List<Symbol> probeOutputSymbols = node.getOutputSymbols().stream()
+                    .filter(probeSymbols::contains)
+                    .collect(toImmutableList());
+            List<Symbol> buildOutputSymbols = node.getOutputSymbols().stream()
+                    .filter(symbol -> !probeSymbols.contains(symbol))
+                    .collect(toImmutableList());
+
+            // probe output channels are laid out first, followed by the build output channels
+            ImmutableMap.Builder<Symbol, Integer> outputMappings = ImmutableMap.builder();
+            int channel = 0;
+            for (Symbol symbol : Iterables.concat(probeOutputSymbols, buildOutputSymbols)) {
+                outputMappings.put(symbol, channel);
+                channel++;
+            }
+
+            OperatorFactory operator = new MergeJoinOperatorFactory(
+                    context.getNextOperatorId(),
+                    node.getId(),
+                    node.getType() == LEFT,
+                    exchangeFactory,
+                    probeSource.getTypes(),
+                    probeKeyChannels.build(),
+                    getChannelsForSymbols(probeOutputSymbols, probeSource.getLayout()),
+                    buildTypes,
+                    buildKeyChannels.build(),
+                    buildOutputSymbols.stream()
+                            .map(buildSymbols::indexOf)
+                            .collect(toImmutableList()),
+                    node.getSortOrders());
+            return new PhysicalOperation(operator, outputMappings.build(), context, probeSource);
+        }
+
         @Override
         public PhysicalOperation visitSemiJoin(SemiJoinNode node, LocalExecutionPlanContext context)
         {
@@ -2107,6 +2269,13 @@ public class LocalExecutionPlanner
             Optional<Integer> buildHashChannel = node.getFilteringSourceHashSymbol().map(channelGetter(buildSource));
             Optional<Integer> probeHashChannel = node.getSourceHashSymbol().map(channelGetter(probeSource));
 
+            // The probe operators of a spilled set wait for each other before joining the spilled partitions,
+            // so all of them must be created upfront, which requires a fixed number of probe drivers.
+            boolean spillEnabled = isSpillEnabled(session)
+                    && context.getDriverInstanceCount().isPresent()
+                    && probeSource.getPipelineExecutionStrategy() == UNGROUPED_EXECUTION
+                    && !SystemSessionProperties.isWorkProcessorPipelines(session);
+
             SetBuilderOperatorFactory setBuilderOperatorFactory = new SetBuilderOperatorFactory(
                     buildContext.getNextOperatorId(),
                     node.getId(),
@@ -2114,7 +2283,9 @@ public class LocalExecutionPlanner
                     buildChannel,
                     buildHashChannel,
                     10_000,
-                    joinCompiler);
+                    joinCompiler,
+                    spillEnabled,
+                    partitioningSpillerFactory);
             SetSupplier setProvider = setBuilderOperatorFactory.getSetProvider();
             context.addDriverFactory(
                     buildContext.isInputDriver(),
@@ -2727,6 +2898,13 @@ public class LocalExecutionPlanner
             }
             else {
                 Optional<Integer> hashChannel = hashSymbol.map(channelGetter(source));
+                Optional<PartialAggregationController> partialAggregationController = Optional.empty();
+                // a partial aggregation without a memory limit must aggregate all of its input
+                if (step == PARTIAL && maxPartialAggregationMemorySize.isPresent() && !groupByChannels.isEmpty() && isAdaptivePartialAggregationEnabled(context.getSession())) {
+                    partialAggregationController = Optional.of(new PartialAggregationController(
+                            getAdaptivePartialAggregationMinRows(context.getSession()),
+                            getAdaptivePartialAggregationUniqueRowsRatioThreshold(context.getSession())));
+                }
                 return new HashAggregationOperatorFactory(
                         context.getNextOperatorId(),
                         planNodeId,
@@ -2744,7 +2922,8 @@ public class LocalExecutionPlanner
                         unspillMemoryLimit,
                         spillerFactory,
                         joinCompiler,
-                        useSystemMemory);
+                        useSystemMemory,
+                        partialAggregationController);
             }
         }
     }
@@ -0,0 +1,249 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.sql.planner.iterative.rule;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import io.prestosql.Session;
+import io.prestosql.matching.Captures;
+import io.prestosql.matching.Pattern;
+import io.prestosql.metadata.Metadata;
+import io.prestosql.spi.connector.SchemaTableName;
+import io.prestosql.spi.type.ArrayType;
+import io.prestosql.spi.type.StandardTypes;
+import io.prestosql.spi.type.Type;
+import io.prestosql.sql.planner.FunctionCallBuilder;
+import io.prestosql.sql.planner.Symbol;
+import io.prestosql.sql.planner.iterative.Lookup;
+import io.prestosql.sql.planner.iterative.Rule;
+import io.prestosql.sql.planner.plan.Assignments;
+import io.prestosql.sql.planner.plan.FilterNode;
+import io.prestosql.sql.planner.plan.JoinNode;
+import io.prestosql.sql.planner.plan.JoinNode.EquiJoinClause;
+import io.prestosql.sql.planner.plan.PlanNode;
+import io.prestosql.sql.planner.plan.ProjectNode;
+import io.prestosql.sql.planner.plan.TableScanNode;
+import io.prestosql.sql.planner.plan.UnnestNode;
+import io.prestosql.sql.tree.ArrayConstructor;
+import io.prestosql.sql.tree.Cast;
+import io.prestosql.sql.tree.Expression;
+import io.prestosql.sql.tree.GenericLiteral;
+import io.prestosql.sql.tree.InListExpression;
+import io.prestosql.sql.tree.InPredicate;
+import io.prestosql.sql.tree.QualifiedName;
+import io.prestosql.sql.tree.SearchedCaseExpression;
+import io.prestosql.sql.tree.StringLiteral;
+import io.prestosql.sql.tree.SymbolReference;
+import io.prestosql.sql.tree.WhenClause;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static io.prestosql.SystemSessionProperties.getSkewedJoinKeys;
+import static io.prestosql.SystemSessionProperties.getSkewedJoinReplicationFactor;
+import static io.prestosql.spi.type.BigintType.BIGINT;
+import static io.prestosql.sql.planner.plan.JoinNode.DistributionType.PARTITIONED;
+import static io.prestosql.sql.planner.plan.JoinNode.Type.INNER;
+import static io.prestosql.sql.planner.plan.JoinNode.Type.LEFT;
+import static io.prestosql.sql.planner.plan.Patterns.join;
+import static java.util.Locale.ENGLISH;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Spreads the rows of skewed join keys across several partitions of a partitioned join.
+ * The skewed values are taken from the {@code skewed_join_keys} session property, for the
+ * table column the probe side join key comes from. Transforms:
+ * <pre>
+ * - Join (partitioned, probe.key = build.key)
+ *     - probe
+ *     - build
+ * </pre>
+ * Into:
+ * <pre>
+ * - Join (partitioned, probe.key = build.key AND probe_salt = build_salt)
+ *     - Project (probe_salt := CASE WHEN probe.key IN (skewed values) THEN random(N) ELSE 0 END)
+ *         - probe
+ *     - Unnest (build_salt := build_salts)
+ *         - Project (build_salts := CASE WHEN build.key IN (skewed values) THEN sequence(0, N - 1) ELSE ARRAY[0] END)
+ *             - build
+ * </pre>
+ * Each probe row still matches every build row with the same key exactly once, so only
+ * inner and left joins, where build rows are never output on their own, can be rewritten.
+ */
+public class DistributeSkewedJoinKeys
+        implements Rule<JoinNode>
+{
+    private static final Pattern<JoinNode> PATTERN = join()
+            .matching(join -> join.getDistributionType().equals(Optional.of(PARTITIONED)) &&
+                    (join.getType() == INNER || join.getType() == LEFT) &&
+                    !join.getCriteria().isEmpty());
+
+    private final Metadata metadata;
+
+    public DistributeSkewedJoinKeys(Metadata metadata)
+    {
+        this.metadata = requireNonNull(metadata, "metadata is null");
+    }
+
+    @Override
+    public Pattern<JoinNode> getPattern()
+    {
+        return PATTERN;
+    }
+
+    @Override
+    public boolean isEnabled(Session session)
+    {
+        return !getSkewedJoinKeys(session).isEmpty();
+    }
+
+    @Override
+    public Result apply(JoinNode join, Captures captures, Context context)
+    {
+        if (isDistributed(join, context.getLookup())) {
+            return Result.empty();
+        }
+
+        Map<String, List<String>> skewedJoinKeys = getSkewedJoinKeys(context.getSession());
+        for (EquiJoinClause clause : join.getCriteria()) {
+            Optional<String> column = getSourceColumn(join.getLeft(), clause.getLeft(), context);
+            if (column.isPresent() && skewedJoinKeys.containsKey(column.get())) {
+                return Result.ofPlanNode(distributeSkewedValues(join, clause, skewedJoinKeys.get(column.get()), context));
+            }
+        }
+        return Result.empty();
+    }
+
+    private JoinNode distributeSkewedValues(JoinNode join, EquiJoinClause clause, List<String> skewedValues, Context context)
+    {
+        Type keyType = context.getSymbolAllocator().getTypes().get(clause.getLeft());
+        int replicationFactor = getSkewedJoinReplicationFactor(context.getSession());
+        List<Expression> values = skewedValues.stream()
+                .map(value -> new Cast(new StringLiteral(value), keyType.getTypeSignature().toString()))
+                .collect(toImmutableList());
+
+        Symbol probeSalt = context.getSymbolAllocator().newSymbol("probe_salt", BIGINT);
+        Expression probeSaltExpression = new SearchedCaseExpression(
+                ImmutableList.of(new WhenClause(
+                        new InPredicate(clause.getLeft().toSymbolReference(), new InListExpression(values)),
+                        new FunctionCallBuilder(metadata)
+                                .setName(QualifiedName.of("random"))
+                                .addArgument(BIGINT, bigintLiteral(replicationFactor))
+                                .build())),
+                Optional.of(bigintLiteral(0)));
+        PlanNode probe = new ProjectNode(
+                context.getIdAllocator().getNextId(),
+                join.getLeft(),
+                Assignments.builder()
+                        .putIdentities(join.getLeft().getOutputSymbols())
+                        .put(probeSalt, probeSaltExpression)
+                        .build());
+
+        Symbol buildSalts = context.getSymbolAllocator().newSymbol("build_salts", new ArrayType(BIGINT));
+        Symbol buildSalt = context.getSymbolAllocator().newSymbol("build_salt", BIGINT);
+        Expression buildSaltsExpression = new SearchedCaseExpression(
+                ImmutableList.of(new WhenClause(
+                        new InPredicate(clause.getRight().toSymbolReference(), new InListExpression(values)),
+                        new FunctionCallBuilder(metadata)
+                                .setName(QualifiedName.of("sequence"))
+                                .addArgument(BIGINT, bigintLiteral(0))
+                                .addArgument(BIGINT, bigintLiteral(replicationFactor - 1))
+                                .build())),
+                Optional.of(new ArrayConstructor(ImmutableList.of(bigintLiteral(0)))));
+        PlanNode build = new UnnestNode(
+                context.getIdAllocator().getNextId(),
+                new ProjectNode(
+                        context.getIdAllocator().getNextId(),
+                        join.getRight(),
+                        Assignments.builder()
+                                .putIdentities(join.getRight().getOutputSymbols())
+                                .put(buildSalts, buildSaltsExpression)
+                                .build()),
+                join.getRight().getOutputSymbols(),
+                ImmutableMap.of(buildSalts, ImmutableList.of(buildSalt)),
+                Optional.empty());
+
+        return new JoinNode(
+                join.getId(),
+                join.getType(),
+                probe,
+                build,
+                ImmutableList.<EquiJoinClause>builder()
+                        .addAll(join.getCriteria())
+                        .add(new EquiJoinClause(probeSalt, buildSalt))
+                        .build(),
+                join.getOutputSymbols(),
+                join.getFilter(),
+                join.getLeftHashSymbol(),
+                join.getRightHashSymbol(),
+                join.getDistributionType(),
+                join.isSpillable(),
+                join.getDynamicFilters());
+    }
+
+    private static boolean isDistributed(JoinNode join, Lookup lookup)
+    {
+        // the build side of a rewritten join produces one of the join keys with an unnest
+        PlanNode build = lookup.resolve(join.getRight());
+        if (!(build instanceof UnnestNode)) {
+            return false;
+        }
+        UnnestNode unnest = (UnnestNode) build;
+        return join.getCriteria().stream()
+                .map(EquiJoinClause::getRight)
+                .anyMatch(symbol -> unnest.getUnnestSymbols().values().stream().anyMatch(symbols -> symbols.contains(symbol)));
+    }
+
+    /**
+     * Returns the lower case {@code table.column} the symbol is read from, if the symbol
+     * is passed unchanged from a table scan.
+     */
+    private Optional<String> getSourceColumn(PlanNode node, Symbol symbol, Context context)
+    {
+        PlanNode resolved = context.getLookup().resolve(node);
+        if (resolved instanceof TableScanNode) {
+            TableScanNode tableScan = (TableScanNode) resolved;
+            if (!tableScan.getAssignments().containsKey(symbol)) {
+                return Optional.empty();
+            }
+            Session session = context.getSession();
+            SchemaTableName table = metadata.getTableMetadata(session, tableScan.getTable()).getTable();
+            String column = metadata.getColumnMetadata(session, tableScan.getTable(), tableScan.getAssignments().get(symbol)).getName();
+            return Optional.of((table.getTableName() + "." + column).toLowerCase(ENGLISH));
+        }
+        if (resolved instanceof ProjectNode) {
+            Expression expression = ((ProjectNode) resolved).getAssignments().get(symbol);
+            if (!(expression instanceof SymbolReference)) {
+                return Optional.empty();
+            }
+            return getSourceColumn(((ProjectNode) resolved).getSource(), Symbol.from(expression), context);
+        }
+        if (resolved instanceof FilterNode) {
+            return getSourceColumn(((FilterNode) resolved).getSource(), symbol, context);
+        }
+        if (resolved instanceof JoinNode) {
+            JoinNode join = (JoinNode) resolved;
+            PlanNode source = join.getLeft().getOutputSymbols().contains(symbol) ? join.getLeft() : join.getRight();
+            return getSourceColumn(source, symbol, context);
+        }
+        return Optional.empty();
+    }
+
+    private static Expression bigintLiteral(long value)
+    {
+        return new GenericLiteral(StandardTypes.BIGINT, String.valueOf(value));
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.sql.planner.iterative.rule;
+
+import com.google.common.collect.ImmutableList;
+import io.prestosql.matching.Capture;
+import io.prestosql.matching.Captures;
+import io.prestosql.matching.Pattern;
+import io.prestosql.metadata.Metadata;
+import io.prestosql.metadata.TableHandle;
+import io.prestosql.spi.connector.AggregateFunction;
+import io.prestosql.spi.connector.AggregationApplicationResult;
+import io.prestosql.spi.connector.ColumnHandle;
+import io.prestosql.spi.connector.ProjectionApplicationResult;
+import io.prestosql.spi.expression.ConnectorExpression;
+import io.prestosql.spi.expression.ConnectorExpressionTranslator;
+import io.prestosql.spi.expression.Variable;
+import io.prestosql.spi.type.Type;
+import io.prestosql.sql.planner.LiteralEncoder;
+import io.prestosql.sql.planner.Symbol;
+import io.prestosql.sql.planner.TypeProvider;
+import io.prestosql.sql.planner.iterative.Rule;
+import io.prestosql.sql.planner.plan.AggregationNode;
+import io.prestosql.sql.planner.plan.AggregationNode.Aggregation;
+import io.prestosql.sql.planner.plan.Assignments;
+import io.prestosql.sql.planner.plan.ProjectNode;
+import io.prestosql.sql.planner.plan.TableScanNode;
+import io.prestosql.sql.tree.Expression;
+import io.prestosql.sql.tree.SymbolReference;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static com.google.common.base.Verify.verify;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.collect.ImmutableMap.toImmutableMap;
+import static io.prestosql.matching.Capture.newCapture;
+import static io.prestosql.sql.planner.plan.AggregationNode.Step.SINGLE;
+import static io.prestosql.sql.planner.plan.Patterns.aggregation;
+import static io.prestosql.sql.planner.plan.Patterns.source;
+import static io.prestosql.sql.planner.plan.Patterns.tableScan;
+
+/**
+ * Pushes an aggregation with a single grouping set directly over a table scan into the connector.
+ * The aggregation is replaced by a projection over the derived table.
+ */
+public class PushAggregationIntoTableScan
+        implements Rule<AggregationNode>
+{
+    private static final Capture<TableScanNode> TABLE_SCAN = newCapture();
+    private static final Pattern<AggregationNode> PATTERN = aggregation()
+            .matching(PushAggregationIntoTableScan::isSupportedAggregation)
+            .with(source().matching(
+                    tableScan().capturedAs(TABLE_SCAN)));
+
+    private final Metadata metadata;
+
+    public PushAggregationIntoTableScan(Metadata metadata)
+    {
+        this.metadata = metadata;
+    }
+
+    @Override
+    public Pattern<AggregationNode> getPattern()
+    {
+        return PATTERN;
+    }
+
+    private static boolean isSupportedAggregation(AggregationNode node)
+    {
+        if (node.getStep() != SINGLE || node.getGroupingSetCount() != 1 || node.getHashSymbol().isPresent() || node.getGroupIdSymbol().isPresent()) {
+            return false;
+        }
+        return node.getAggregations().values().stream()
+                .allMatch(aggregation -> !aggregation.getFilter().isPresent() &&
+                        !aggregation.getMask().isPresent() &&
+                        !aggregation.getOrderingScheme().isPresent() &&
+                        aggregation.getArguments().stream().allMatch(SymbolReference.class::isInstance));
+    }
+
+    @Override
+    public Result apply(AggregationNode node, Captures captures, Context context)
+    {
+        TableScanNode tableScan = captures.get(TABLE_SCAN);
+        TypeProvider types = context.getSymbolAllocator().getTypes();
+
+        List<Symbol> aggregationOutputs = ImmutableList.copyOf(node.getAggregations().keySet());
+        List<AggregateFunction> aggregates = aggregationOutputs.stream()
+                .map(symbol -> toAggregateFunction(node.getAggregations().get(symbol), types.get(symbol), types))
+                .collect(toImmutableList());
+
+        Map<String, ColumnHandle> assignments = tableScan.getAssignments()
+                .entrySet().stream()
+                .collect(toImmutableMap(entry -> entry.getKey().getName(), Map.Entry::getValue));
+
+        List<ColumnHandle> groupingColumns = node.getGroupingKeys().stream()
+                .map(tableScan.getAssignments()::get)
+                .collect(toImmutableList());
+
+        Optional<AggregationApplicationResult<TableHandle>> result = metadata.applyAggregation(context.getSession(), tableScan.getTable(), aggregates, assignments, groupingColumns);
+        if (!result.isPresent()) {
+            return Result.empty();
+        }
+
+        // the grouping columns are exposed by the derived table under their original handles
+        List<Symbol> newScanOutputs = new ArrayList<>(node.getGroupingKeys());
+        Map<Symbol, ColumnHandle> newScanAssignments = new HashMap<>();
+        Assignments.Builder newProjectionAssignments = Assignments.builder();
+        for (Symbol groupingKey : node.getGroupingKeys()) {
+            newScanAssignments.put(groupingKey, tableScan.getAssignments().get(groupingKey));
+            newProjectionAssignments.putIdentity(groupingKey);
+        }
+
+        Map<String, Symbol> variableMappings = new HashMap<>();
+        for (ProjectionApplicationResult.Assignment assignment : result.get().getAssignments()) {
+            Symbol symbol = context.getSymbolAllocator().newSymbol(assignment.getVariable(), assignment.getType());
+
+            newScanOutputs.add(symbol);
+            newScanAssignments.put(symbol, assignment.getColumn());
+            variableMappings.put(assignment.getVariable(), symbol);
+        }
+
+        List<ConnectorExpression> projections = result.get().getProjections();
+        verify(projections.size() == aggregationOutputs.size(), "Expected %s projections, but got %s", aggregationOutputs.size(), projections.size());
+        for (int i = 0; i < aggregationOutputs.size(); i++) {
+            Expression projection = ConnectorExpressionTranslator.translate(projections.get(i), variableMappings, new LiteralEncoder(metadata));
+            newProjectionAssignments.put(aggregationOutputs.get(i), projection);
+        }
+
+        return Result.ofPlanNode(
+                new ProjectNode(
+                        context.getIdAllocator().getNextId(),
+                        TableScanNode.newInstance(
+                                tableScan.getId(),
+                                result.get().getHandle(),
+                                newScanOutputs,
+                                newScanAssignments),
+                        newProjectionAssignments.build()));
+    }
+
+    private static AggregateFunction toAggregateFunction(Aggregation aggregation, Type outputType, TypeProvider types)
+    {
+        List<ConnectorExpression> inputs = aggregation.getArguments().stream()
+                .map(Symbol::from)
+                .<ConnectorExpression>map(symbol -> new Variable(symbol.getName(), types.get(symbol)))
+                .collect(toImmutableList());
+        return new AggregateFunction(aggregation.getSignature().getName(), outputType, inputs, aggregation.isDistinct());
+    }
+}
@@ -0,0 +1,192 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.sql.planner.iterative.rule;
+
+import com.google.common.collect.ImmutableMap;
+import io.prestosql.matching.Capture;
+import io.prestosql.matching.Captures;
+import io.prestosql.matching.Pattern;
+import io.prestosql.metadata.Metadata;
+import io.prestosql.metadata.TableHandle;
+import io.prestosql.spi.connector.ColumnHandle;
+import io.prestosql.spi.connector.JoinApplicationResult;
+import io.prestosql.spi.connector.JoinCondition;
+import io.prestosql.spi.connector.JoinType;
+import io.prestosql.spi.expression.Variable;
+import io.prestosql.sql.DynamicFilters;
+import io.prestosql.sql.planner.Symbol;
+import io.prestosql.sql.planner.TypeProvider;
+import io.prestosql.sql.planner.iterative.Rule;
+import io.prestosql.sql.planner.plan.FilterNode;
+import io.prestosql.sql.planner.plan.JoinNode;
+import io.prestosql.sql.planner.plan.PlanNode;
+import io.prestosql.sql.planner.plan.TableScanNode;
+import io.prestosql.sql.tree.Expression;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static com.google.common.base.Verify.verify;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.collect.ImmutableMap.toImmutableMap;
+import static io.prestosql.matching.Capture.newCapture;
+import static io.prestosql.spi.connector.JoinCondition.Operator.EQUAL;
+import static io.prestosql.sql.DynamicFilters.getDescriptor;
+import static io.prestosql.sql.ExpressionUtils.combineConjuncts;
+import static io.prestosql.sql.ExpressionUtils.extractConjuncts;
+import static io.prestosql.sql.planner.SymbolsExtractor.extractUnique;
+import static io.prestosql.sql.planner.plan.JoinNode.Type.INNER;
+import static io.prestosql.sql.planner.plan.Patterns.Join.right;
+import static io.prestosql.sql.planner.plan.Patterns.join;
+import static io.prestosql.sql.planner.plan.Patterns.tableScan;
+import static io.prestosql.sql.tree.BooleanLiteral.TRUE_LITERAL;
+
+/**
+ * Pushes an equi-join of two table scans into the connector, when both tables belong to the same catalog.
+ * The join is replaced by a scan of the joined table. The dynamic filters of the join, which are
+ * applied by a filter over the probe side scan, are removed along with the join.
+ */
+public class PushJoinIntoTableScan
+        implements Rule<JoinNode>
+{
+    private static final Capture<TableScanNode> RIGHT_TABLE_SCAN = newCapture();
+    private static final Pattern<JoinNode> PATTERN = join()
+            .matching(PushJoinIntoTableScan::isSupportedJoin)
+            .with(right().matching(tableScan().capturedAs(RIGHT_TABLE_SCAN)));
+
+    private final Metadata metadata;
+
+    public PushJoinIntoTableScan(Metadata metadata)
+    {
+        this.metadata = metadata;
+    }
+
+    @Override
+    public Pattern<JoinNode> getPattern()
+    {
+        return PATTERN;
+    }
+
+    private static boolean isSupportedJoin(JoinNode node)
+    {
+        // joins without equi-join criteria are not pushed down, as they may increase the amount of transferred data
+        return !node.getCriteria().isEmpty() &&
+                !node.getFilter().isPresent() &&
+                !node.getLeftHashSymbol().isPresent() &&
+                !node.getRightHashSymbol().isPresent();
+    }
+
+    @Override
+    public Result apply(JoinNode node, Captures captures, Context context)
+    {
+        TableScanNode right = captures.get(RIGHT_TABLE_SCAN);
+
+        // the probe side is either a table scan or, when the join has dynamic filters, a filter applying them to a table scan
+        PlanNode probe = context.getLookup().resolve(node.getLeft());
+        Expression remainingPredicate = TRUE_LITERAL;
+        if (probe instanceof FilterNode && node.getType() == INNER) {
+            FilterNode filter = (FilterNode) probe;
+            remainingPredicate = removeDynamicFilters(filter.getPredicate(), node.getDynamicFilters().keySet());
+            // the predicates which remain are applied on top of the joined table, so they must be on its outputs
+            if (!node.getOutputSymbols().containsAll(extractUnique(remainingPredicate))) {
+                return Result.empty();
+            }
+            probe = context.getLookup().resolve(filter.getSource());
+        }
+        if (!(probe instanceof TableScanNode)) {
+            return Result.empty();
+        }
+        TableScanNode left = (TableScanNode) probe;
+        if (!left.getTable().getCatalogName().equals(right.getTable().getCatalogName())) {
+            return Result.empty();
+        }
+
+        TypeProvider types = context.getSymbolAllocator().getTypes();
+        List<JoinCondition> joinConditions = node.getCriteria().stream()
+                .map(clause -> new JoinCondition(
+                        EQUAL,
+                        new Variable(clause.getLeft().getName(), types.get(clause.getLeft())),
+                        new Variable(clause.getRight().getName(), types.get(clause.getRight()))))
+                .collect(toImmutableList());
+
+        Optional<JoinApplicationResult<TableHandle>> result = metadata.applyJoin(
+                context.getSession(),
+                getJoinType(node.getType()),
+                left.getTable(),
+                right.getTable(),
+                joinConditions,
+                toAssignmentsByName(left),
+                toAssignmentsByName(right));
+        if (!result.isPresent()) {
+            return Result.empty();
+        }
+
+        ImmutableMap.Builder<Symbol, ColumnHandle> assignments = ImmutableMap.builder();
+        for (Symbol symbol : node.getOutputSymbols()) {
+            ColumnHandle column;
+            if (left.getAssignments().containsKey(symbol)) {
+                column = result.get().getLeftColumnHandles().get(left.getAssignments().get(symbol));
+            }
+            else {
+                column = result.get().getRightColumnHandles().get(right.getAssignments().get(symbol));
+            }
+            verify(column != null, "Joined table does not expose column for %s", symbol);
+            assignments.put(symbol, column);
+        }
+
+        PlanNode tableScan = TableScanNode.newInstance(
+                context.getIdAllocator().getNextId(),
+                result.get().getHandle(),
+                node.getOutputSymbols(),
+                assignments.build());
+        if (remainingPredicate.equals(TRUE_LITERAL)) {
+            return Result.ofPlanNode(tableScan);
+        }
+        return Result.ofPlanNode(new FilterNode(context.getIdAllocator().getNextId(), tableScan, remainingPredicate));
+    }
+
+    private static Expression removeDynamicFilters(Expression predicate, Set<String> dynamicFilterIds)
+    {
+        return combineConjuncts(extractConjuncts(predicate).stream()
+                .filter(conjunct -> !getDescriptor(conjunct)
+                        .map(DynamicFilters.Descriptor::getId)
+                        .map(dynamicFilterIds::contains)
+                        .orElse(false))
+                .collect(toImmutableList()));
+    }
+
+    private static Map<String, ColumnHandle> toAssignmentsByName(TableScanNode tableScan)
+    {
+        return tableScan.getAssignments()
+                .entrySet().stream()
+                .collect(toImmutableMap(entry -> entry.getKey().getName(), Map.Entry::getValue));
+    }
+
+    private static JoinType getJoinType(JoinNode.Type type)
+    {
+        switch (type) {
+            case INNER:
+                return JoinType.INNER;
+            case LEFT:
+                return JoinType.LEFT_OUTER;
+            case RIGHT:
+                return JoinType.RIGHT_OUTER;
+            case FULL:
+                return JoinType.FULL_OUTER;
+        }
+        throw new IllegalArgumentException("Unsupported join type: " + type);
+    }
+}
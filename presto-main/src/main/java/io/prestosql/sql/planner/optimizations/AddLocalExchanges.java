@@ -19,6 +19,7 @@ import com.google.common.collect.Lists;
 import io.prestosql.Session;
 import io.prestosql.execution.warnings.WarningCollector;
 import io.prestosql.metadata.Metadata;
+import io.prestosql.spi.block.SortOrder;
 import io.prestosql.spi.connector.ConstantProperty;
 import io.prestosql.spi.connector.GroupingProperty;
 import io.prestosql.spi.connector.LocalProperty;
@@ -42,6 +43,7 @@ import io.prestosql.sql.planner.plan.JoinNode;
 import io.prestosql.sql.planner.plan.LateralJoinNode;
 import io.prestosql.sql.planner.plan.LimitNode;
 import io.prestosql.sql.planner.plan.MarkDistinctNode;
+import io.prestosql.sql.planner.plan.MergeJoinNode;
 import io.prestosql.sql.planner.plan.OutputNode;
 import io.prestosql.sql.planner.plan.PlanNode;
 import io.prestosql.sql.planner.plan.PlanVisitor;
@@ -59,7 +61,9 @@ import io.prestosql.sql.planner.plan.WindowNode;
 
 import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 
@@ -70,6 +74,7 @@ import static com.google.common.collect.ImmutableSet.toImmutableSet;
 import static io.prestosql.SystemSessionProperties.getTaskConcurrency;
 import static io.prestosql.SystemSessionProperties.getTaskWriterCount;
 import static io.prestosql.SystemSessionProperties.isDistributedSortEnabled;
+import static io.prestosql.SystemSessionProperties.isMergeJoinEnabled;
 import static io.prestosql.SystemSessionProperties.isSpillEnabled;
 import static io.prestosql.sql.planner.SystemPartitioningHandle.FIXED_ARBITRARY_DISTRIBUTION;
 import static io.prestosql.sql.planner.SystemPartitioningHandle.FIXED_HASH_DISTRIBUTION;
@@ -586,6 +591,11 @@ public class AddLocalExchanges
                     defaultParallelism(session),
                     parentPreferences.constrainTo(node.getLeft().getOutputSymbols()).withDefaultParallelism(session));
 
+            Optional<PlanWithProperties> mergeJoin = tryPlanMergeJoin(node, probe);
+            if (mergeJoin.isPresent()) {
+                return mergeJoin.get();
+            }
+
             if (isSpillEnabled(session)) {
                 if (probe.getProperties().getDistribution() != FIXED) {
                     // Disable spill for joins over non-fixed streams as otherwise we would need to insert local exchange.
@@ -612,6 +622,67 @@ public class AddLocalExchanges
             return rebaseAndDeriveProperties(node, ImmutableList.of(probe, build));
         }
 
+        private Optional<PlanWithProperties> tryPlanMergeJoin(JoinNode node, PlanWithProperties probe)
+        {
+            if (!isMergeJoinEnabled(session) ||
+                    (node.getType() != JoinNode.Type.INNER && node.getType() != JoinNode.Type.LEFT) ||
+                    node.getCriteria().isEmpty() ||
+                    node.getFilter().isPresent() ||
+                    !node.getDynamicFilters().isEmpty() ||
+                    !probe.getProperties().isSingleStream()) {
+                return Optional.empty();
+            }
+
+            List<Symbol> probeSymbols = Lists.transform(node.getCriteria(), JoinNode.EquiJoinClause::getLeft);
+            List<Symbol> buildSymbols = Lists.transform(node.getCriteria(), JoinNode.EquiJoinClause::getRight);
+            if (ImmutableSet.copyOf(probeSymbols).size() != probeSymbols.size() || ImmutableSet.copyOf(buildSymbols).size() != buildSymbols.size()) {
+                return Optional.empty();
+            }
+
+            // the probe must be sorted on all join keys before any other column, in some order of the keys
+            Map<Symbol, SortOrder> probeOrderings = new LinkedHashMap<>();
+            for (LocalProperty<Symbol> property : probe.getProperties().getLocalProperties()) {
+                if (probeOrderings.size() == probeSymbols.size() ||
+                        !(property instanceof SortingProperty) ||
+                        !probeSymbols.contains(((SortingProperty<Symbol>) property).getColumn())) {
+                    break;
+                }
+                SortingProperty<Symbol> sortingProperty = (SortingProperty<Symbol>) property;
+                probeOrderings.put(sortingProperty.getColumn(), sortingProperty.getOrder());
+            }
+            if (probeOrderings.size() != probeSymbols.size()) {
+                return Optional.empty();
+            }
+
+            // the build must be sorted the same way, on the matching keys
+            List<JoinNode.EquiJoinClause> criteria = probeOrderings.keySet().stream()
+                    .map(symbol -> node.getCriteria().get(probeSymbols.indexOf(symbol)))
+                    .collect(toImmutableList());
+            List<SortOrder> sortOrders = ImmutableList.copyOf(probeOrderings.values());
+            List<LocalProperty<Symbol>> desiredBuildProperties = new ArrayList<>();
+            for (int i = 0; i < criteria.size(); i++) {
+                desiredBuildProperties.add(new SortingProperty<>(criteria.get(i).getRight(), sortOrders.get(i)));
+            }
+
+            // the build is streamed into the join operator, so it must be a single stream as well
+            PlanWithProperties build = planAndEnforce(node.getRight(), singleStream(), singleStream());
+            boolean buildSorted = LocalProperties.match(build.getProperties().getLocalProperties(), desiredBuildProperties).stream()
+                    .noneMatch(Optional::isPresent);
+            if (!buildSorted) {
+                return Optional.empty();
+            }
+
+            MergeJoinNode result = new MergeJoinNode(
+                    node.getId(),
+                    node.getType(),
+                    probe.getNode(),
+                    build.getNode(),
+                    criteria,
+                    sortOrders,
+                    node.getOutputSymbols());
+            return Optional.of(deriveProperties(result, ImmutableList.of(probe.getProperties(), build.getProperties())));
+        }
+
         @Override
         public PlanWithProperties visitSemiJoin(SemiJoinNode node, StreamPreferredProperties parentPreferences)
         {
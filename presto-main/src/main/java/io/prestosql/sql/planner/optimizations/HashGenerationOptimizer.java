@@ -47,6 +47,7 @@ import io.prestosql.sql.planner.plan.IndexJoinNode.EquiJoinClause;
 import io.prestosql.sql.planner.plan.JoinNode;
 import io.prestosql.sql.planner.plan.LateralJoinNode;
 import io.prestosql.sql.planner.plan.MarkDistinctNode;
+import io.prestosql.sql.planner.plan.MergeJoinNode;
 import io.prestosql.sql.planner.plan.PlanNode;
 import io.prestosql.sql.planner.plan.PlanVisitor;
 import io.prestosql.sql.planner.plan.ProjectNode;
@@ -415,6 +416,19 @@ public class HashGenerationOptimizer
                     source.getHashSymbols());
         }
 
+        @Override
+        public PlanWithProperties visitMergeJoin(MergeJoinNode node, HashComputationSet parentPreference)
+        {
+            // merge join compares the join keys directly, so it does not need hash symbols
+            PlanWithProperties left = planAndEnforce(node.getLeft(), new HashComputationSet(), true, new HashComputationSet());
+            PlanWithProperties right = planAndEnforce(node.getRight(), new HashComputationSet(), true, new HashComputationSet());
+            verify(left.getHashSymbols().isEmpty(), "probe side of the merge join should not include hash symbols");
+            verify(right.getHashSymbols().isEmpty(), "build side of the merge join should not include hash symbols");
+            return new PlanWithProperties(
+                    replaceChildren(node, ImmutableList.of(left.getNode(), right.getNode())),
+                    ImmutableMap.of());
+        }
+
         @Override
         public PlanWithProperties visitSpatialJoin(SpatialJoinNode node, HashComputationSet parentPreference)
         {
@@ -0,0 +1,78 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.sql.planner.planprinter;
+
+import io.airlift.units.DataSize;
+import io.airlift.units.Duration;
+import io.prestosql.sql.planner.plan.PlanNodeId;
+
+import java.util.Map;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+public class HashAggregationPlanNodeStats
+        extends HashCollisionPlanNodeStats
+{
+    private final long passThroughPositions;
+    private final boolean partialAggregationDisabled;
+
+    public HashAggregationPlanNodeStats(
+            PlanNodeId planNodeId,
+            Duration planNodeScheduledTime,
+            Duration planNodeCpuTime,
+            long planNodeInputPositions,
+            DataSize planNodeInputDataSize,
+            long planNodeOutputPositions,
+            DataSize planNodeOutputDataSize,
+            Map<String, OperatorInputStats> operatorInputStats,
+            Map<String, OperatorHashCollisionsStats> operatorHashCollisionsStats,
+            long passThroughPositions,
+            boolean partialAggregationDisabled)
+    {
+        super(planNodeId, planNodeScheduledTime, planNodeCpuTime, planNodeInputPositions, planNodeInputDataSize, planNodeOutputPositions, planNodeOutputDataSize, operatorInputStats, operatorHashCollisionsStats);
+        this.passThroughPositions = passThroughPositions;
+        this.partialAggregationDisabled = partialAggregationDisabled;
+    }
+
+    public long getPassThroughPositions()
+    {
+        return passThroughPositions;
+    }
+
+    public boolean isPartialAggregationDisabled()
+    {
+        return partialAggregationDisabled;
+    }
+
+    @Override
+    public PlanNodeStats mergeWith(PlanNodeStats other)
+    {
+        checkArgument(other instanceof HashAggregationPlanNodeStats, "other is not an instanceof HashAggregationPlanNodeStats");
+        HashCollisionPlanNodeStats merged = (HashCollisionPlanNodeStats) super.mergeWith(other);
+        HashAggregationPlanNodeStats otherStats = (HashAggregationPlanNodeStats) other;
+
+        return new HashAggregationPlanNodeStats(
+                merged.getPlanNodeId(),
+                merged.getPlanNodeScheduledTime(),
+                merged.getPlanNodeCpuTime(),
+                merged.getPlanNodeInputPositions(),
+                merged.getPlanNodeInputDataSize(),
+                merged.getPlanNodeOutputPositions(),
+                merged.getPlanNodeOutputDataSize(),
+                merged.operatorInputStats,
+                merged.operatorHashCollisionsStats,
+                passThroughPositions + otherStats.passThroughPositions,
+                partialAggregationDisabled || otherStats.partialAggregationDisabled);
+    }
+}
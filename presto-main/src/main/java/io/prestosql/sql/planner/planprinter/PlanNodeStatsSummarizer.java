@@ -17,7 +17,9 @@ import com.google.common.collect.ImmutableMap;
 import io.airlift.units.Duration;
 import io.prestosql.execution.StageInfo;
 import io.prestosql.execution.TaskInfo;
+import io.prestosql.operator.HashAggregationOperator.HashAggregationInfo;
 import io.prestosql.operator.HashCollisionsInfo;
+import io.prestosql.operator.OperatorInfo;
 import io.prestosql.operator.OperatorStats;
 import io.prestosql.operator.PipelineStats;
 import io.prestosql.operator.TaskStats;
@@ -29,6 +31,7 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 
 import static com.google.common.collect.Iterables.getLast;
@@ -82,6 +85,8 @@ public class PlanNodeStatsSummarizer
         Map<PlanNodeId, Map<String, OperatorInputStats>> operatorInputStats = new HashMap<>();
         Map<PlanNodeId, Map<String, OperatorHashCollisionsStats>> operatorHashCollisionsStats = new HashMap<>();
         Map<PlanNodeId, WindowOperatorStats> windowNodeStats = new HashMap<>();
+        Map<PlanNodeId, Long> planNodePassThroughPositions = new HashMap<>();
+        Map<PlanNodeId, Boolean> planNodePartialAggregationDisabled = new HashMap<>();
 
         for (PipelineStats pipelineStats : taskStats.getPipelines()) {
             // Due to eventual consistently collected stats, these could be empty
@@ -121,8 +126,9 @@ public class PlanNodeStatsSummarizer
                                         operatorStats.getSumSquaredInputPositions())),
                         (map1, map2) -> mergeMaps(map1, map2, OperatorInputStats::merge));
 
-                if (operatorStats.getInfo() instanceof HashCollisionsInfo) {
-                    HashCollisionsInfo hashCollisionsInfo = (HashCollisionsInfo) operatorStats.getInfo();
+                Optional<HashCollisionsInfo> operatorHashCollisionsInfo = getHashCollisionsInfo(operatorStats.getInfo());
+                if (operatorHashCollisionsInfo.isPresent()) {
+                    HashCollisionsInfo hashCollisionsInfo = operatorHashCollisionsInfo.get();
                     operatorHashCollisionsStats.merge(planNodeId,
                             ImmutableMap.of(
                                     operatorStats.getOperatorType(),
@@ -133,6 +139,12 @@ public class PlanNodeStatsSummarizer
                             (map1, map2) -> mergeMaps(map1, map2, OperatorHashCollisionsStats::merge));
                 }
 
+                if (operatorStats.getInfo() instanceof HashAggregationInfo) {
+                    HashAggregationInfo hashAggregationInfo = (HashAggregationInfo) operatorStats.getInfo();
+                    planNodePassThroughPositions.merge(planNodeId, hashAggregationInfo.getPassThroughPositions(), Long::sum);
+                    planNodePartialAggregationDisabled.merge(planNodeId, hashAggregationInfo.isPartialAggregationDisabled(), Boolean::logicalOr);
+                }
+
                 // The only statistics we have for Window Functions are very low level, thus displayed only in VERBOSE mode
                 if (operatorStats.getInfo() instanceof WindowInfo) {
                     WindowInfo windowInfo = (WindowInfo) operatorStats.getInfo();
@@ -177,7 +189,21 @@ public class PlanNodeStatsSummarizer
             // and therefore only have scheduled time, but no output stats
             long outputPositions = planNodeOutputPositions.getOrDefault(planNodeId, 0L);
 
-            if (operatorHashCollisionsStats.containsKey(planNodeId)) {
+            if (operatorHashCollisionsStats.containsKey(planNodeId) && planNodePassThroughPositions.containsKey(planNodeId)) {
+                nodeStats = new HashAggregationPlanNodeStats(
+                        planNodeId,
+                        new Duration(planNodeScheduledMillis.get(planNodeId), MILLISECONDS),
+                        new Duration(planNodeCpuMillis.get(planNodeId), MILLISECONDS),
+                        planNodeInputPositions.get(planNodeId),
+                        succinctDataSize(planNodeInputBytes.get(planNodeId), BYTE),
+                        outputPositions,
+                        succinctDataSize(planNodeOutputBytes.getOrDefault(planNodeId, 0L), BYTE),
+                        operatorInputStats.get(planNodeId),
+                        operatorHashCollisionsStats.get(planNodeId),
+                        planNodePassThroughPositions.get(planNodeId),
+                        planNodePartialAggregationDisabled.get(planNodeId));
+            }
+            else if (operatorHashCollisionsStats.containsKey(planNodeId)) {
                 nodeStats = new HashCollisionPlanNodeStats(
                         planNodeId,
                         new Duration(planNodeScheduledMillis.get(planNodeId), MILLISECONDS),
@@ -217,4 +243,15 @@ public class PlanNodeStatsSummarizer
         }
         return stats;
     }
+
+    private static Optional<HashCollisionsInfo> getHashCollisionsInfo(OperatorInfo info)
+    {
+        if (info instanceof HashCollisionsInfo) {
+            return Optional.of((HashCollisionsInfo) info);
+        }
+        if (info instanceof HashAggregationInfo) {
+            return Optional.of(((HashAggregationInfo) info).getHashCollisionsInfo());
+        }
+        return Optional.empty();
+    }
 }
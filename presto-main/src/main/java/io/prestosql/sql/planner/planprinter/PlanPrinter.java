@@ -71,6 +71,7 @@ import io.prestosql.sql.planner.plan.JoinNode;
 import io.prestosql.sql.planner.plan.LateralJoinNode;
 import io.prestosql.sql.planner.plan.LimitNode;
 import io.prestosql.sql.planner.plan.MarkDistinctNode;
+import io.prestosql.sql.planner.plan.MergeJoinNode;
 import io.prestosql.sql.planner.plan.OffsetNode;
 import io.prestosql.sql.planner.plan.OutputNode;
 import io.prestosql.sql.planner.plan.PlanFragmentId;
@@ -418,6 +419,25 @@ public class PlanPrinter
             return null;
         }
 
+        @Override
+        public Void visitMergeJoin(MergeJoinNode node, Void context)
+        {
+            List<Expression> joinExpressions = new ArrayList<>();
+            for (JoinNode.EquiJoinClause clause : node.getCriteria()) {
+                joinExpressions.add(clause.toExpression());
+            }
+
+            NodeRepresentation nodeOutput = addNode(node,
+                    "Merge" + node.getType().getJoinLabel(),
+                    format("[%s]", Joiner.on(" AND ").join(joinExpressions)));
+
+            nodeOutput.appendDetailsLine("Sort orders: %s", node.getSortOrders());
+            node.getLeft().accept(this, context);
+            node.getRight().accept(this, context);
+
+            return null;
+        }
+
         @Override
         public Void visitSpatialJoin(SpatialJoinNode node, Void context)
         {
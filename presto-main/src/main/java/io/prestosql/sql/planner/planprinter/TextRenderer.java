@@ -128,6 +128,10 @@ public class TextRenderer
 
         printDistributions(output, nodeStats);
 
+        if (nodeStats instanceof HashAggregationPlanNodeStats) {
+            printPartialAggregationStats(output, (HashAggregationPlanNodeStats) nodeStats);
+        }
+
         if (nodeStats instanceof WindowPlanNodeStats) {
             printWindowOperatorStats(output, ((WindowPlanNodeStats) nodeStats).getWindowOperatorStats());
         }
@@ -183,6 +187,15 @@ public class TextRenderer
         }
     }
 
+    private static void printPartialAggregationStats(StringBuilder output, HashAggregationPlanNodeStats stats)
+    {
+        if (!stats.isPartialAggregationDisabled()) {
+            return;
+        }
+
+        output.append(format("Partial aggregation disabled, Passed through: %s\n", formatPositions(stats.getPassThroughPositions())));
+    }
+
     private void printWindowOperatorStats(StringBuilder output, WindowOperatorStats stats)
     {
         if (!verbose) {
@@ -75,6 +75,7 @@ import static io.airlift.units.DataSize.Unit.GIGABYTE;
 import static io.airlift.units.DataSize.Unit.MEGABYTE;
 import static io.prestosql.SessionTestUtils.TEST_SESSION;
 import static io.prestosql.execution.StateMachine.StateChangeListener;
+import static io.prestosql.execution.TaskStatus.INITIAL_DYNAMIC_FILTERS_VERSION;
 import static io.prestosql.execution.buffer.OutputBuffers.BufferType.BROADCAST;
 import static io.prestosql.execution.buffer.OutputBuffers.createInitialEmptyOutputBuffers;
 import static io.prestosql.memory.context.AggregatedMemoryContext.newSimpleAggregatedMemoryContext;
@@ -248,7 +249,9 @@ public class MockRemoteTaskFactory
                             new DataSize(0, BYTE),
                             new DataSize(0, BYTE),
                             0,
-                            new Duration(0, MILLISECONDS)),
+                            new Duration(0, MILLISECONDS),
+                            INITIAL_DYNAMIC_FILTERS_VERSION,
+                            ImmutableMap.of()),
                     DateTime.now(),
                     outputBuffer.getInfo(),
                     ImmutableSet.of(),
@@ -276,7 +279,9 @@ public class MockRemoteTaskFactory
                     stats.getSystemMemoryReservation(),
                     stats.getRevocableMemoryReservation(),
                     0,
-                    new Duration(0, MILLISECONDS));
+                    new Duration(0, MILLISECONDS),
+                    INITIAL_DYNAMIC_FILTERS_VERSION,
+                    ImmutableMap.of());
         }
 
         private synchronized void updateSplitQueueSpace()
@@ -293,6 +298,17 @@ public class MockRemoteTaskFactory
             }
         }
 
+        /**
+         * Records data produced by an output pipeline of the task, as reported in the task stats.
+         */
+        public void recordOutput(DataSize outputDataSize)
+        {
+            taskContext.addPipelineContext(0, true, true, false)
+                    .addDriverContext()
+                    .addOperatorContext(0, new PlanNodeId("output"), "output")
+                    .recordOutput(outputDataSize.toBytes(), 1);
+        }
+
         public synchronized void finishSplits(int splits)
         {
             List<Map.Entry<PlanNodeId, Split>> toRemove = new ArrayList<>();
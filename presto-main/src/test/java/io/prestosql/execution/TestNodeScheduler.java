@@ -53,11 +53,13 @@ import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ThreadLocalRandom;
 
+import static com.google.common.collect.Iterables.getOnlyElement;
 import static io.airlift.concurrent.Threads.daemonThreadsNamed;
 import static io.prestosql.execution.scheduler.NetworkLocation.ROOT_LOCATION;
 import static io.prestosql.spi.StandardErrorCode.NO_NODES_AVAILABLE;
@@ -731,6 +733,68 @@ public class TestNodeScheduler
         assertTrue(assignments3.isEmpty());
     }
 
+    @Test
+    public void testSplitAffinityScheduling()
+    {
+        setUpNodes();
+        NodeSelector affinityNodeSelector = createAffinityNodeSelector();
+
+        Map<String, InternalNode> preferredNodes = new HashMap<>();
+        for (int i = 0; i < 10; i++) {
+            String affinityKey = "file" + i;
+            Set<Split> splits = ImmutableSet.of(new Split(CONNECTOR_ID, new TestSplitAffinity(affinityKey), Lifespan.taskWide()));
+            Multimap<InternalNode, Split> assignments = affinityNodeSelector.computeAssignments(splits, ImmutableList.of()).getAssignments();
+            assertEquals(assignments.size(), 1);
+            preferredNodes.put(affinityKey, getOnlyElement(assignments.keySet()));
+        }
+        // the keys are spread over the nodes
+        assertTrue(ImmutableSet.copyOf(preferredNodes.values()).size() > 1);
+
+        // a split is assigned to the same node every time
+        for (int i = 0; i < 10; i++) {
+            String affinityKey = "file" + i;
+            Set<Split> splits = ImmutableSet.of(new Split(CONNECTOR_ID, new TestSplitAffinity(affinityKey), Lifespan.taskWide()));
+            Multimap<InternalNode, Split> assignments = affinityNodeSelector.computeAssignments(splits, ImmutableList.of()).getAssignments();
+            assertEquals(getOnlyElement(assignments.keySet()), preferredNodes.get(affinityKey));
+        }
+    }
+
+    @Test
+    public void testSplitAffinitySchedulingWithSaturatedNode()
+    {
+        setUpNodes();
+        NodeSelector affinityNodeSelector = createAffinityNodeSelector();
+        Split split = new Split(CONNECTOR_ID, new TestSplitAffinity("file"), Lifespan.taskWide());
+        InternalNode preferredNode = getOnlyElement(affinityNodeSelector.computeAssignments(ImmutableSet.of(split), ImmutableList.of()).getAssignments().keySet());
+
+        // max out the splits of the preferred node
+        ImmutableList.Builder<Split> initialSplits = ImmutableList.builder();
+        for (int i = 0; i < 20; i++) {
+            initialSplits.add(new Split(CONNECTOR_ID, new TestSplitRemote(), Lifespan.taskWide()));
+        }
+        MockRemoteTaskFactory remoteTaskFactory = new MockRemoteTaskFactory(remoteTaskExecutor, remoteTaskScheduledExecutor);
+        TaskId taskId = new TaskId("test", 1, 1);
+        RemoteTask remoteTask = remoteTaskFactory.createTableScanTask(taskId, preferredNode, initialSplits.build(), nodeTaskMap.createPartitionedSplitCountTracker(preferredNode, taskId));
+        nodeTaskMap.addTask(preferredNode, remoteTask);
+
+        Multimap<InternalNode, Split> assignments = affinityNodeSelector.computeAssignments(ImmutableSet.of(split), ImmutableList.of(remoteTask)).getAssignments();
+        assertEquals(assignments.size(), 1);
+        assertFalse(assignments.keySet().contains(preferredNode));
+
+        remoteTask.abort();
+    }
+
+    private NodeSelector createAffinityNodeSelector()
+    {
+        NodeSchedulerConfig nodeSchedulerConfig = new NodeSchedulerConfig()
+                .setMaxSplitsPerNode(20)
+                .setIncludeCoordinator(false)
+                .setMaxPendingSplitsPerTask(10)
+                .setSplitAffinitySchedulingEnabled(true)
+                .setSplitAffinityCandidates(1);
+        return new NodeScheduler(new LegacyNetworkTopology(), nodeManager, nodeSchedulerConfig, nodeTaskMap).createNodeSelector(CONNECTOR_ID);
+    }
+
     private static class TestSplitLocal
             implements ConnectorSplit
     {
@@ -813,6 +877,41 @@ public class TestNodeScheduler
         }
     }
 
+    private static class TestSplitAffinity
+            implements ConnectorSplit
+    {
+        private final String affinityKey;
+
+        TestSplitAffinity(String affinityKey)
+        {
+            this.affinityKey = requireNonNull(affinityKey, "affinityKey is null");
+        }
+
+        @Override
+        public boolean isRemotelyAccessible()
+        {
+            return true;
+        }
+
+        @Override
+        public List<HostAddress> getAddresses()
+        {
+            return ImmutableList.of();
+        }
+
+        @Override
+        public Optional<String> getAffinityKey()
+        {
+            return Optional.of(affinityKey);
+        }
+
+        @Override
+        public Object getInfo()
+        {
+            return this;
+        }
+    }
+
     private static class TestNetworkTopology
             implements NetworkTopology
     {
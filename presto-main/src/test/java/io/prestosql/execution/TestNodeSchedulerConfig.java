@@ -35,7 +35,9 @@ public class TestNodeSchedulerConfig
                 .setMaxSplitsPerNode(100)
                 .setMaxPendingSplitsPerTask(10)
                 .setIncludeCoordinator(true)
-                .setOptimizedLocalScheduling(true));
+                .setOptimizedLocalScheduling(true)
+                .setSplitAffinitySchedulingEnabled(false)
+                .setSplitAffinityCandidates(2));
     }
 
     @Test
@@ -48,6 +50,8 @@ public class TestNodeSchedulerConfig
                 .put("node-scheduler.max-pending-splits-per-task", "11")
                 .put("node-scheduler.max-splits-per-node", "101")
                 .put("node-scheduler.optimized-local-scheduling", "false")
+                .put("node-scheduler.split-affinity-scheduling-enabled", "true")
+                .put("node-scheduler.split-affinity-candidates", "3")
                 .build();
 
         NodeSchedulerConfig expected = new NodeSchedulerConfig()
@@ -56,7 +60,9 @@ public class TestNodeSchedulerConfig
                 .setMaxSplitsPerNode(101)
                 .setMaxPendingSplitsPerTask(11)
                 .setMinCandidates(11)
-                .setOptimizedLocalScheduling(false);
+                .setOptimizedLocalScheduling(false)
+                .setSplitAffinitySchedulingEnabled(true)
+                .setSplitAffinityCandidates(3);
 
         assertFullMapping(properties, expected);
     }
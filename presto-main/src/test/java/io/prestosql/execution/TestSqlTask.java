@@ -16,6 +16,7 @@ package io.prestosql.execution;
 import com.google.common.base.Functions;
 import com.google.common.base.Ticker;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.util.concurrent.ListenableFuture;
 import io.airlift.stats.CounterStat;
@@ -28,8 +29,10 @@ import io.prestosql.execution.buffer.OutputBuffers.OutputBufferId;
 import io.prestosql.execution.executor.TaskExecutor;
 import io.prestosql.memory.MemoryPool;
 import io.prestosql.memory.QueryContext;
+import io.prestosql.operator.TaskContext;
 import io.prestosql.spi.QueryId;
 import io.prestosql.spi.memory.MemoryPoolId;
+import io.prestosql.spi.predicate.Domain;
 import io.prestosql.spiller.SpillSpaceTracker;
 import io.prestosql.sql.planner.LocalExecutionPlanner;
 import org.testng.annotations.AfterClass;
@@ -47,6 +50,7 @@ import static io.airlift.units.DataSize.Unit.GIGABYTE;
 import static io.airlift.units.DataSize.Unit.MEGABYTE;
 import static io.prestosql.SessionTestUtils.TEST_SESSION;
 import static io.prestosql.execution.SqlTask.createSqlTask;
+import static io.prestosql.execution.TaskStatus.INITIAL_DYNAMIC_FILTERS_VERSION;
 import static io.prestosql.execution.TaskTestUtils.EMPTY_SOURCES;
 import static io.prestosql.execution.TaskTestUtils.PLAN_FRAGMENT;
 import static io.prestosql.execution.TaskTestUtils.SPLIT;
@@ -56,6 +60,7 @@ import static io.prestosql.execution.TaskTestUtils.createTestingPlanner;
 import static io.prestosql.execution.TaskTestUtils.updateTask;
 import static io.prestosql.execution.buffer.OutputBuffers.BufferType.PARTITIONED;
 import static io.prestosql.execution.buffer.OutputBuffers.createInitialEmptyOutputBuffers;
+import static io.prestosql.spi.type.BigintType.BIGINT;
 import static io.prestosql.testing.TestingSession.testSessionBuilder;
 import static java.util.concurrent.Executors.newScheduledThreadPool;
 import static java.util.concurrent.TimeUnit.SECONDS;
@@ -296,6 +301,43 @@ public class TestSqlTask
         assertFalse(sqlTask.getTaskResults(OUT, 0, new DataSize(1, MEGABYTE)).isDone());
     }
 
+    @Test
+    public void testDynamicFilters()
+            throws Exception
+    {
+        SqlTask sqlTask = createInitialTask();
+        sqlTask.updateTask(TEST_SESSION,
+                Optional.of(PLAN_FRAGMENT),
+                ImmutableList.of(),
+                createInitialEmptyOutputBuffers(PARTITIONED).withBuffer(OUT, 0).withNoMoreBufferIds(),
+                OptionalInt.empty());
+        TaskContext taskContext = sqlTask.getQueryContext().getTaskContextByTaskId(sqlTask.getTaskId());
+
+        ListenableFuture<TaskStatus> future = sqlTask.getTaskStatus(TaskState.RUNNING, INITIAL_DYNAMIC_FILTERS_VERSION);
+        assertFalse(future.isDone());
+
+        Domain domain = Domain.singleValue(BIGINT, 1L);
+        taskContext.addDynamicFilter(ImmutableMap.of("df", domain));
+        TaskStatus taskStatus = future.get(1, SECONDS);
+        assertEquals(taskStatus.getDynamicFiltersVersion(), 1);
+        assertEquals(taskStatus.getDynamicFilterDomains(), ImmutableMap.of("df", domain));
+
+        // the caller has the dynamic filters of the current version
+        assertFalse(sqlTask.getTaskStatus(TaskState.RUNNING, 1).isDone());
+        assertEquals(sqlTask.getTaskStatus(1).getDynamicFilterDomains(), ImmutableMap.of());
+        assertEquals(sqlTask.getTaskStatus().getDynamicFilterDomains(), ImmutableMap.of("df", domain));
+
+        // a dynamic filter collected before the next request is reported immediately
+        taskContext.addDynamicFilter(ImmutableMap.of("other", domain));
+        future = sqlTask.getTaskStatus(TaskState.RUNNING, 1);
+        assertTrue(future.isDone());
+        taskStatus = future.get();
+        assertEquals(taskStatus.getDynamicFiltersVersion(), 2);
+        assertEquals(taskStatus.getDynamicFilterDomains(), ImmutableMap.of("df", domain, "other", domain));
+
+        sqlTask.cancel();
+    }
+
     private SqlTask createInitialTask()
     {
         TaskId taskId = new TaskId("query", 0, nextTaskId.incrementAndGet());
@@ -0,0 +1,172 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.execution;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import io.airlift.json.JsonCodec;
+import io.airlift.stats.Distribution;
+import io.airlift.units.DataSize;
+import io.airlift.units.Duration;
+import io.prestosql.operator.DriverStats;
+import io.prestosql.operator.PipelineStats;
+import io.prestosql.operator.TaskStats;
+import io.prestosql.operator.TestDriverStats;
+import io.prestosql.operator.TestTaskStats;
+import org.joda.time.DateTime;
+import org.testng.annotations.Test;
+
+import java.net.URI;
+import java.util.List;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static io.airlift.json.JsonCodec.jsonCodec;
+import static io.airlift.units.DataSize.Unit.BYTE;
+import static io.prestosql.execution.TaskInfo.createInitialTask;
+import static io.prestosql.execution.TaskInfoDelta.createTaskInfoDelta;
+import static io.prestosql.execution.TaskState.FINISHED;
+import static io.prestosql.execution.TaskStatus.failWith;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+public class TestTaskInfoDelta
+{
+    private static final JsonCodec<TaskInfoDelta> CODEC = jsonCodec(TaskInfoDelta.class);
+
+    @Test
+    public void testDelta()
+    {
+        TaskInfo base = createTaskInfo(
+                finishedPipeline(0, 4),
+                runningPipeline(1, 2));
+        TaskInfo current = createTaskInfo(
+                finishedPipeline(0, 4),
+                runningPipeline(1, 3),
+                finishedPipeline(2, 1));
+
+        TaskInfoDelta delta = CODEC.fromJson(CODEC.toJson(createTaskInfoDelta(base, current)));
+        assertFalse(delta.isFull());
+        assertEquals(delta.getBaseVersion(), base.getTaskStatus().getVersion());
+        assertEquals(delta.getUnchangedPipelines(), ImmutableSet.of(0));
+        assertEquals(pipelineIds(delta.getTaskInfo()), ImmutableList.of(1, 2));
+
+        TaskInfo merged = delta.apply(base);
+        assertEquals(pipelineIds(merged), ImmutableList.of(0, 1, 2));
+        assertSame(merged.getStats().getPipelines().get(0), base.getStats().getPipelines().get(0));
+        assertEquals(merged.getStats().getPipelines().get(1).getCompletedDrivers(), 3);
+        assertEquals(merged.getStats().getPipelines().get(2).getCompletedDrivers(), 1);
+    }
+
+    @Test
+    public void testChangedFinishedPipeline()
+    {
+        TaskInfo base = createTaskInfo(finishedPipeline(0, 4), finishedPipeline(1, 4));
+        TaskInfo current = createTaskInfo(finishedPipeline(0, 4), finishedPipeline(1, 5));
+
+        TaskInfoDelta delta = createTaskInfoDelta(base, current);
+        assertEquals(delta.getUnchangedPipelines(), ImmutableSet.of(0));
+        assertEquals(pipelineIds(delta.getTaskInfo()), ImmutableList.of(1));
+        assertEquals(delta.apply(base).getStats().getPipelines().get(1).getCompletedDrivers(), 5);
+    }
+
+    @Test
+    public void testFullWhenAllPipelinesChanged()
+    {
+        TaskInfo base = createTaskInfo(runningPipeline(0, 1));
+        TaskInfo current = createTaskInfo(runningPipeline(0, 1));
+
+        TaskInfoDelta delta = createTaskInfoDelta(base, current);
+        assertTrue(delta.isFull());
+        assertSame(delta.apply(base), current);
+    }
+
+    @Test
+    public void testFinalInfoIsFull()
+    {
+        TaskInfo base = createTaskInfo(finishedPipeline(0, 4));
+        TaskInfo current = createTaskInfo(finishedPipeline(0, 4));
+        current = current.withTaskStatus(failWith(current.getTaskStatus(), FINISHED, ImmutableList.of()));
+
+        TaskInfoDelta delta = createTaskInfoDelta(base, current);
+        assertTrue(delta.isFull());
+        assertEquals(pipelineIds(delta.getTaskInfo()), ImmutableList.of(0));
+    }
+
+    private static List<Integer> pipelineIds(TaskInfo taskInfo)
+    {
+        return taskInfo.getStats().getPipelines().stream()
+                .map(PipelineStats::getPipelineId)
+                .collect(toImmutableList());
+    }
+
+    private static TaskInfo createTaskInfo(PipelineStats... pipelines)
+    {
+        TaskStats taskStats = TestTaskStats.EXPECTED.withPipelines(ImmutableList.copyOf(pipelines));
+        return createInitialTask(new TaskId("query", 1, 2), URI.create("http://worker.invalid/v1/task/query.1.2"), "worker", ImmutableList.of(), taskStats);
+    }
+
+    private static PipelineStats finishedPipeline(int pipelineId, int completedDrivers)
+    {
+        return createPipelineStats(pipelineId, completedDrivers, ImmutableList.of());
+    }
+
+    private static PipelineStats runningPipeline(int pipelineId, int completedDrivers)
+    {
+        return createPipelineStats(pipelineId, completedDrivers, ImmutableList.of(TestDriverStats.EXPECTED));
+    }
+
+    private static PipelineStats createPipelineStats(int pipelineId, int completedDrivers, List<DriverStats> drivers)
+    {
+        return new PipelineStats(
+                pipelineId,
+                new DateTime(100),
+                new DateTime(101),
+                new DateTime(102),
+                true,
+                false,
+                completedDrivers + drivers.size(),
+                0,
+                0,
+                drivers.size(),
+                0,
+                0,
+                completedDrivers,
+                new DataSize(0, BYTE),
+                new DataSize(0, BYTE),
+                new DataSize(0, BYTE),
+                new Distribution().snapshot(),
+                new Distribution().snapshot(),
+                new Duration(10 * completedDrivers, NANOSECONDS),
+                new Duration(11 * completedDrivers, NANOSECONDS),
+                new Duration(13 * completedDrivers, NANOSECONDS),
+                false,
+                ImmutableSet.of(),
+                new DataSize(141, BYTE),
+                151,
+                new DataSize(142, BYTE),
+                152,
+                new DataSize(14, BYTE),
+                15 * completedDrivers,
+                new DataSize(16, BYTE),
+                17 * completedDrivers,
+                new DataSize(18, BYTE),
+                19 * completedDrivers,
+                new DataSize(20, BYTE),
+                ImmutableList.of(),
+                drivers);
+    }
+}
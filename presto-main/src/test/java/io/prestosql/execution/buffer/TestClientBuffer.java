@@ -174,6 +174,44 @@ public class TestClientBuffer
         assertBufferDestroyed(buffer, 6);
     }
 
+    @Test
+    public void testPeekPages()
+    {
+        ClientBuffer buffer = new ClientBuffer(TASK_INSTANCE_ID, BUFFER_ID);
+
+        // add three pages to the buffer
+        for (int i = 0; i < 3; i++) {
+            addPage(buffer, createPage(i));
+        }
+        assertBufferResultEquals(TYPES, getBufferResult(buffer, 0, sizeOfPages(1), NO_WAIT), bufferResult(0, createPage(0)));
+        assertBufferInfo(buffer, 3, 0);
+
+        // read ahead of the client, the pages are not acknowledged
+        assertBufferResultEquals(TYPES, getFuture(buffer.peekPages(1, sizeOfPages(1)), NO_WAIT), bufferResult(1, createPage(1)));
+        assertBufferInfo(buffer, 3, 0);
+        assertBufferResultEquals(TYPES, getFuture(buffer.peekPages(2, sizeOfPages(10)), NO_WAIT), bufferResult(2, createPage(2)));
+        assertBufferInfo(buffer, 3, 0);
+
+        // read ahead of the buffered pages, and verify the read completes when a page is added
+        ListenableFuture<BufferResult> pendingRead = buffer.peekPages(3, sizeOfPages(10));
+        assertFalse(pendingRead.isDone());
+        addPage(buffer, createPage(3));
+        assertBufferResultEquals(TYPES, getFuture(pendingRead, NO_WAIT), bufferResult(3, createPage(3)));
+        assertBufferInfo(buffer, 4, 0);
+
+        // the pages read ahead are complete, but still buffered
+        buffer.setNoMorePages();
+        assertBufferResultEquals(TYPES, getFuture(buffer.peekPages(4, sizeOfPages(10)), NO_WAIT), emptyResults(TASK_INSTANCE_ID, 4, true));
+        assertBufferInfo(buffer, 4, 0);
+
+        // acknowledge all pages
+        buffer.acknowledgePages(4);
+        assertBufferInfo(buffer, 0, 4);
+
+        buffer.destroy();
+        assertBufferDestroyed(buffer, 4);
+    }
+
     @Test
     public void testDuplicateRequests()
     {
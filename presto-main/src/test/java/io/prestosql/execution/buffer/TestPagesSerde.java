@@ -22,16 +22,32 @@ import io.prestosql.spi.block.BlockBuilder;
 import io.prestosql.spi.type.Type;
 import org.testng.annotations.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Optional;
+import java.util.Random;
 
+import static io.prestosql.block.BlockAssertions.createLongSequenceBlock;
+import static io.prestosql.execution.buffer.BufferResult.emptyResults;
+import static io.prestosql.execution.buffer.CompressionCodec.LZ4;
+import static io.prestosql.execution.buffer.CompressionCodec.ZSTD;
+import static io.prestosql.execution.buffer.PagesSerdeUtil.readBufferResult;
 import static io.prestosql.execution.buffer.PagesSerdeUtil.readPages;
+import static io.prestosql.execution.buffer.PagesSerdeUtil.writeBufferResult;
 import static io.prestosql.execution.buffer.PagesSerdeUtil.writePages;
+import static io.prestosql.metadata.MetadataManager.createTestMetadataManager;
 import static io.prestosql.operator.PageAssertions.assertPageEquals;
 import static io.prestosql.spi.type.BigintType.BIGINT;
 import static io.prestosql.spi.type.VarcharType.VARCHAR;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.expectThrows;
 
 public class TestPagesSerde
 {
@@ -59,6 +75,138 @@ public class TestPagesSerde
         assertFalse(pageIterator.hasNext());
     }
 
+    @Test
+    public void testBufferResultRoundTrip()
+            throws IOException
+    {
+        PagesSerde serde = new TestingPagesSerdeFactory().createPagesSerde();
+        Page expectedPage = new Page(createLongSequenceBlock(0, 100));
+
+        DynamicSliceOutput sliceOutput = new DynamicSliceOutput(1024);
+        writeBufferResult(sliceOutput, new BufferResult("task-instance-id", 3, 5, false, ImmutableList.of(serde.serialize(expectedPage), serde.serialize(expectedPage))));
+        writeBufferResult(sliceOutput, emptyResults("task-instance-id", 5, true));
+        byte[] bytes = sliceOutput.slice().getBytes();
+
+        InputStream input = new ByteArrayInputStream(bytes);
+        BufferResult result = readBufferResult(input, "task-instance-id").get();
+        assertEquals(result.getToken(), 3);
+        assertEquals(result.getNextToken(), 5);
+        assertFalse(result.isBufferComplete());
+        assertEquals(result.getSerializedPages().size(), 2);
+        assertPageEquals(ImmutableList.of(BIGINT), serde.deserialize(result.getSerializedPages().get(1)), expectedPage);
+        assertEquals(readBufferResult(input, "task-instance-id").get(), emptyResults("task-instance-id", 5, true));
+        assertFalse(readBufferResult(input, "task-instance-id").isPresent());
+
+        // a stream ending within a result is truncated
+        InputStream truncatedInput = new ByteArrayInputStream(Arrays.copyOf(bytes, 10));
+        expectThrows(EOFException.class, () -> readBufferResult(truncatedInput, "task-instance-id"));
+    }
+
+    @Test
+    public void testZstdRoundTrip()
+    {
+        PagesSerde serde = createPagesSerde(ZSTD, false);
+        Page expectedPage = createPage(false);
+
+        SerializedPage serializedPage = serde.serialize(expectedPage);
+        assertTrue(serializedPage.isCompressed());
+        assertTrue(PageCodecMarker.ZSTD.isSet(serializedPage.getPageCodecMarkers()));
+        assertTrue(serializedPage.getSizeInBytes() < serializedPage.getUncompressedSizeInBytes());
+
+        // the codec is taken from the page, not from the reading serde
+        assertPageEquals(ImmutableList.of(BIGINT, BIGINT), createPagesSerde(LZ4, false).deserialize(serializedPage), expectedPage);
+    }
+
+    @Test
+    public void testBlockCompressionRoundTrip()
+    {
+        for (CompressionCodec codec : CompressionCodec.values()) {
+            PagesSerde serde = createPagesSerde(codec, true);
+            Page expectedPage = createPage(true);
+
+            SerializedPage serializedPage = serde.serialize(expectedPage);
+            assertTrue(serializedPage.isBlockCompressed());
+            assertFalse(serializedPage.isCompressed());
+            assertEquals(PageCodecMarker.ZSTD.isSet(serializedPage.getPageCodecMarkers()), codec == ZSTD);
+            assertTrue(serializedPage.getSizeInBytes() < serializedPage.getUncompressedSizeInBytes());
+
+            assertPageEquals(ImmutableList.of(BIGINT, BIGINT), serde.deserialize(serializedPage), expectedPage);
+            assertPageEquals(ImmutableList.of(BIGINT, BIGINT), new TestingPagesSerdeFactory().createPagesSerde().deserialize(serializedPage), expectedPage);
+        }
+    }
+
+    @Test
+    public void testBlockCompressionOfIncompressiblePage()
+    {
+        PagesSerde serde = createPagesSerde(LZ4, true);
+        Page expectedPage = new Page(createRandomBlock(new Random(42)));
+
+        for (int i = 0; i < 10; i++) {
+            SerializedPage serializedPage = serde.serialize(expectedPage);
+            assertFalse(serializedPage.isCompressed());
+            assertFalse(serializedPage.isBlockCompressed());
+            assertPageEquals(ImmutableList.of(BIGINT), serde.deserialize(serializedPage), expectedPage);
+        }
+    }
+
+    @Test
+    public void testCompressionRatioTracker()
+    {
+        CompressionRatioTracker tracker = new CompressionRatioTracker();
+        assertTrue(tracker.shouldCompress(0));
+        assertTrue(tracker.shouldCompress(3));
+
+        // every ineffective attempt doubles the number of skipped pages
+        tracker.recordCompression(3, false);
+        assertEquals(skippedPages(tracker, 3), 1);
+        tracker.recordCompression(3, false);
+        assertEquals(skippedPages(tracker, 3), 2);
+        tracker.recordCompression(3, false);
+        assertEquals(skippedPages(tracker, 3), 4);
+        assertTrue(tracker.shouldCompress(0));
+
+        for (int i = 0; i < 10; i++) {
+            tracker.recordCompression(3, false);
+        }
+        assertEquals(skippedPages(tracker, 3), 64);
+
+        tracker.recordCompression(3, true);
+        assertEquals(skippedPages(tracker, 3), 0);
+    }
+
+    private static int skippedPages(CompressionRatioTracker tracker, int column)
+    {
+        int skippedPages = 0;
+        while (!tracker.shouldCompress(column)) {
+            skippedPages++;
+        }
+        return skippedPages;
+    }
+
+    private static PagesSerde createPagesSerde(CompressionCodec codec, boolean blockCompression)
+    {
+        return new PagesSerde(createTestMetadataManager().getBlockEncodingSerde(), Optional.of(codec), blockCompression, Optional.empty());
+    }
+
+    private static Page createPage(boolean withRandomColumn)
+    {
+        BlockBuilder builder = BIGINT.createBlockBuilder(null, 1000);
+        for (int i = 0; i < 1000; i++) {
+            BIGINT.writeLong(builder, i % 10);
+        }
+        Block compressible = builder.build();
+        return new Page(compressible, withRandomColumn ? createRandomBlock(new Random(42)) : compressible);
+    }
+
+    private static Block createRandomBlock(Random random)
+    {
+        BlockBuilder builder = BIGINT.createBlockBuilder(null, 1000);
+        for (int i = 0; i < 1000; i++) {
+            BIGINT.writeLong(builder, random.nextLong());
+        }
+        return builder.build();
+    }
+
     @Test
     public void testBigintSerializedSize()
     {
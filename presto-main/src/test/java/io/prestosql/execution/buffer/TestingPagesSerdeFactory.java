@@ -13,16 +13,13 @@
  */
 package io.prestosql.execution.buffer;
 
-import io.airlift.compress.Compressor;
-import io.airlift.compress.Decompressor;
-import io.airlift.compress.lz4.Lz4Compressor;
-import io.airlift.compress.lz4.Lz4Decompressor;
 import io.prestosql.spi.Page;
 import io.prestosql.spi.block.BlockEncodingSerde;
 import io.prestosql.spiller.SpillCipher;
 
 import java.util.Optional;
 
+import static io.prestosql.execution.buffer.CompressionCodec.LZ4;
 import static io.prestosql.metadata.MetadataManager.createTestMetadataManager;
 
 public class TestingPagesSerdeFactory
@@ -38,17 +35,17 @@ public class TestingPagesSerdeFactory
     {
         return new SynchronizedPagesSerde(
                 createTestMetadataManager().getBlockEncodingSerde(),
-                Optional.of(new Lz4Compressor()),
-                Optional.of(new Lz4Decompressor()),
+                Optional.of(LZ4),
+                false,
                 Optional.empty());
     }
 
     private static class SynchronizedPagesSerde
             extends PagesSerde
     {
-        public SynchronizedPagesSerde(BlockEncodingSerde blockEncodingSerde, Optional<Compressor> compressor, Optional<Decompressor> decompressor, Optional<SpillCipher> spillCipher)
+        public SynchronizedPagesSerde(BlockEncodingSerde blockEncodingSerde, Optional<CompressionCodec> compressionCodec, boolean blockCompression, Optional<SpillCipher> spillCipher)
         {
-            super(blockEncodingSerde, compressor, decompressor, spillCipher);
+            super(blockEncodingSerde, compressionCodec, blockCompression, spillCipher);
         }
 
         @Override
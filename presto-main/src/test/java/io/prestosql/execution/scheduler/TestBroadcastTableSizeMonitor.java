@@ -0,0 +1,339 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.execution.scheduler;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import io.airlift.units.DataSize;
+import io.prestosql.Session;
+import io.prestosql.client.NodeVersion;
+import io.prestosql.cost.StatsAndCosts;
+import io.prestosql.execution.MockRemoteTaskFactory;
+import io.prestosql.execution.MockRemoteTaskFactory.MockRemoteTask;
+import io.prestosql.execution.NodeTaskMap;
+import io.prestosql.execution.QueryStateMachine;
+import io.prestosql.execution.SqlStageExecution;
+import io.prestosql.execution.StageId;
+import io.prestosql.execution.TestSqlTaskManager.MockLocationFactory;
+import io.prestosql.execution.warnings.WarningCollector;
+import io.prestosql.failuredetector.NoOpFailureDetector;
+import io.prestosql.metadata.InternalNode;
+import io.prestosql.security.AllowAllAccessControl;
+import io.prestosql.spi.QueryId;
+import io.prestosql.spi.resourcegroups.ResourceGroupId;
+import io.prestosql.sql.planner.Partitioning;
+import io.prestosql.sql.planner.PartitioningScheme;
+import io.prestosql.sql.planner.PlanFragment;
+import io.prestosql.sql.planner.PlanNodeIdAllocator;
+import io.prestosql.sql.planner.Symbol;
+import io.prestosql.sql.planner.iterative.rule.test.PlanBuilder;
+import io.prestosql.sql.planner.plan.Assignments;
+import io.prestosql.sql.planner.plan.JoinNode;
+import io.prestosql.sql.planner.plan.JoinNode.EquiJoinClause;
+import io.prestosql.sql.planner.plan.PlanFragmentId;
+import io.prestosql.sql.planner.plan.PlanNode;
+import io.prestosql.sql.planner.plan.SemiJoinNode;
+import io.prestosql.util.FinalizerService;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.net.URI;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static com.google.common.collect.ImmutableMap.toImmutableMap;
+import static io.airlift.concurrent.Threads.daemonThreadsNamed;
+import static io.airlift.units.DataSize.Unit.BYTE;
+import static io.prestosql.SessionTestUtils.TEST_SESSION;
+import static io.prestosql.SystemSessionProperties.FAIL_ON_OVERSIZED_BROADCAST_JOIN;
+import static io.prestosql.SystemSessionProperties.JOIN_DISTRIBUTION_TYPE;
+import static io.prestosql.SystemSessionProperties.JOIN_MAX_BROADCAST_TABLE_SIZE;
+import static io.prestosql.execution.QueryState.FAILED;
+import static io.prestosql.execution.SqlStageExecution.createSqlStageExecution;
+import static io.prestosql.execution.buffer.OutputBuffers.BufferType.BROADCAST;
+import static io.prestosql.execution.buffer.OutputBuffers.createInitialEmptyOutputBuffers;
+import static io.prestosql.execution.scheduler.BroadcastTableSizeMonitor.createBroadcastTableSizeMonitor;
+import static io.prestosql.execution.scheduler.BroadcastTableSizeMonitor.getBroadcastBuildFragments;
+import static io.prestosql.metadata.AbstractMockMetadata.dummyMetadata;
+import static io.prestosql.metadata.MetadataManager.createTestMetadataManager;
+import static io.prestosql.operator.StageExecutionDescriptor.ungroupedExecution;
+import static io.prestosql.spi.StandardErrorCode.EXCEEDED_BROADCAST_TABLE_SIZE;
+import static io.prestosql.spi.StandardErrorCode.USER_CANCELED;
+import static io.prestosql.spi.type.BigintType.BIGINT;
+import static io.prestosql.sql.planner.SystemPartitioningHandle.SINGLE_DISTRIBUTION;
+import static io.prestosql.sql.planner.SystemPartitioningHandle.SOURCE_DISTRIBUTION;
+import static io.prestosql.sql.planner.plan.ExchangeNode.Type.REPARTITION;
+import static io.prestosql.sql.planner.plan.ExchangeNode.Type.REPLICATE;
+import static io.prestosql.sql.planner.plan.JoinNode.DistributionType.PARTITIONED;
+import static io.prestosql.sql.planner.plan.JoinNode.DistributionType.REPLICATED;
+import static io.prestosql.sql.planner.plan.JoinNode.Type.INNER;
+import static io.prestosql.transaction.InMemoryTransactionManager.createTestTransactionManager;
+import static java.util.concurrent.Executors.newCachedThreadPool;
+import static java.util.concurrent.Executors.newScheduledThreadPool;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class TestBroadcastTableSizeMonitor
+{
+    private static final PlanFragmentId PROBE = new PlanFragmentId("1");
+    private static final PlanFragmentId BUILD = new PlanFragmentId("2");
+    private static final PlanFragmentId NESTED_BUILD = new PlanFragmentId("3");
+
+    private final PlanBuilder p = new PlanBuilder(new PlanNodeIdAllocator(), dummyMetadata());
+
+    private ExecutorService executor;
+    private ScheduledExecutorService scheduledExecutor;
+
+    @BeforeClass
+    public void setUp()
+    {
+        executor = newCachedThreadPool(daemonThreadsNamed("test-executor-%s"));
+        scheduledExecutor = newScheduledThreadPool(2, daemonThreadsNamed("test-scheduledExecutor-%s"));
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void tearDown()
+    {
+        executor.shutdownNow();
+        executor = null;
+        scheduledExecutor.shutdownNow();
+        scheduledExecutor = null;
+    }
+
+    @Test
+    public void testReplicatedJoin()
+    {
+        assertEquals(getBroadcastBuildFragments(join(REPLICATED, true, p.remoteSourceNode(ImmutableList.of(BUILD), ImmutableList.of(p.symbol("b")), REPLICATE))), ImmutableSet.of(BUILD));
+    }
+
+    @Test
+    public void testPartitionedJoin()
+    {
+        assertEquals(getBroadcastBuildFragments(join(PARTITIONED, true, p.remoteSourceNode(ImmutableList.of(BUILD), ImmutableList.of(p.symbol("b")), REPARTITION))), ImmutableSet.of());
+    }
+
+    @Test
+    public void testCrossJoin()
+    {
+        // a cross join can not be partitioned
+        assertEquals(getBroadcastBuildFragments(join(REPLICATED, false, p.remoteSourceNode(ImmutableList.of(BUILD), ImmutableList.of(p.symbol("b")), REPLICATE))), ImmutableSet.of());
+    }
+
+    @Test
+    public void testNestedJoin()
+    {
+        // the remote sources below a cross join on the build side belong to the cross join
+        Symbol nestedBuild = p.symbol("nested_build");
+        PlanNode crossJoin = p.join(
+                INNER,
+                p.remoteSourceNode(ImmutableList.of(BUILD), ImmutableList.of(p.symbol("b")), REPLICATE),
+                p.remoteSourceNode(ImmutableList.of(NESTED_BUILD), ImmutableList.of(nestedBuild), REPLICATE),
+                ImmutableList.of(),
+                ImmutableList.of(p.symbol("b"), nestedBuild),
+                Optional.empty(),
+                Optional.empty(),
+                Optional.empty(),
+                Optional.of(REPLICATED),
+                ImmutableMap.of());
+        assertEquals(getBroadcastBuildFragments(join(REPLICATED, true, crossJoin)), ImmutableSet.of());
+        assertEquals(getBroadcastBuildFragments(join(REPLICATED, true, p.project(Assignments.identity(p.symbol("b")), p.remoteSourceNode(ImmutableList.of(BUILD), ImmutableList.of(p.symbol("b")), REPLICATE)))), ImmutableSet.of(BUILD));
+    }
+
+    @Test
+    public void testReplicatedSemiJoin()
+    {
+        PlanNode semiJoin = p.semiJoin(
+                p.remoteSourceNode(ImmutableList.of(PROBE), ImmutableList.of(p.symbol("a")), REPARTITION),
+                p.remoteSourceNode(ImmutableList.of(BUILD), ImmutableList.of(p.symbol("b")), REPLICATE),
+                p.symbol("a"),
+                p.symbol("b"),
+                p.symbol("match"),
+                Optional.empty(),
+                Optional.empty(),
+                Optional.of(SemiJoinNode.DistributionType.REPLICATED));
+        assertEquals(getBroadcastBuildFragments(semiJoin), ImmutableSet.of(BUILD));
+    }
+
+    @Test
+    public void testBuildSideBelowLimit()
+    {
+        QueryStateMachine queryStateMachine = createQueryStateMachine(createSession("AUTOMATIC", "100B"));
+        SqlStageExecution buildStage = createStage(1, BUILD, p.values(p.symbol("b")));
+        BroadcastTableSizeMonitor monitor = createMonitor(queryStateMachine, buildStage);
+
+        addTaskOutput(buildStage, 0, new DataSize(40, BYTE));
+        addTaskOutput(buildStage, 1, new DataSize(60, BYTE));
+        monitor.check();
+        assertFalse(queryStateMachine.isDone());
+        assertFalse(monitor.isStopped());
+
+        // the finished build stage is checked once more
+        buildStage.abort();
+        monitor.check();
+        assertFalse(queryStateMachine.isDone());
+        assertTrue(monitor.isStopped());
+    }
+
+    @Test
+    public void testBuildSideAboveLimit()
+    {
+        QueryStateMachine queryStateMachine = createQueryStateMachine(createSession("AUTOMATIC", "100B"));
+        SqlStageExecution buildStage = createStage(1, BUILD, p.values(p.symbol("b")));
+        BroadcastTableSizeMonitor monitor = createMonitor(queryStateMachine, buildStage);
+
+        // the sizes of all tasks of the stage are summed
+        addTaskOutput(buildStage, 0, new DataSize(60, BYTE));
+        monitor.check();
+        assertFalse(queryStateMachine.isDone());
+
+        addTaskOutput(buildStage, 1, new DataSize(60, BYTE));
+        monitor.check();
+        assertEquals(queryStateMachine.getQueryState(), FAILED);
+        assertEquals(queryStateMachine.getFailureInfo().get().getErrorCode(), EXCEEDED_BROADCAST_TABLE_SIZE.toErrorCode());
+        assertTrue(monitor.isStopped());
+    }
+
+    @Test
+    public void testQueryDone()
+    {
+        QueryStateMachine queryStateMachine = createQueryStateMachine(createSession("AUTOMATIC", "100B"));
+        SqlStageExecution buildStage = createStage(1, BUILD, p.values(p.symbol("b")));
+        BroadcastTableSizeMonitor monitor = createMonitor(queryStateMachine, buildStage);
+
+        queryStateMachine.transitionToCanceled();
+        addTaskOutput(buildStage, 0, new DataSize(200, BYTE));
+        monitor.check();
+        assertEquals(queryStateMachine.getFailureInfo().get().getErrorCode(), USER_CANCELED.toErrorCode());
+        assertTrue(monitor.isStopped());
+    }
+
+    @Test
+    public void testNoMonitor()
+    {
+        SqlStageExecution buildStage = createStage(1, BUILD, p.values(p.symbol("b")));
+        SqlStageExecution probeStage = createStage(0, PROBE, join(REPLICATED, true, p.remoteSourceNode(ImmutableList.of(BUILD), ImmutableList.of(p.symbol("b")), REPLICATE)));
+
+        // the monitor is not enabled
+        assertFalse(createBroadcastTableSizeMonitor(createQueryStateMachine(createSession(false, "AUTOMATIC", "100B")), ImmutableList.of(probeStage, buildStage), scheduledExecutor).isPresent());
+        // the join distribution is not chosen by the planner
+        assertFalse(createBroadcastTableSizeMonitor(createQueryStateMachine(createSession("BROADCAST", "100B")), ImmutableList.of(probeStage, buildStage), scheduledExecutor).isPresent());
+        // the broadcast size is not limited
+        assertFalse(createBroadcastTableSizeMonitor(createQueryStateMachine(createSession("AUTOMATIC", null)), ImmutableList.of(probeStage, buildStage), scheduledExecutor).isPresent());
+        // the build side is partitioned
+        SqlStageExecution partitionedProbeStage = createStage(0, PROBE, join(PARTITIONED, true, p.remoteSourceNode(ImmutableList.of(BUILD), ImmutableList.of(p.symbol("b")), REPARTITION)));
+        assertFalse(createBroadcastTableSizeMonitor(createQueryStateMachine(createSession("AUTOMATIC", "100B")), ImmutableList.of(partitionedProbeStage, buildStage), scheduledExecutor).isPresent());
+    }
+
+    private BroadcastTableSizeMonitor createMonitor(QueryStateMachine queryStateMachine, SqlStageExecution buildStage)
+    {
+        SqlStageExecution probeStage = createStage(0, PROBE, join(REPLICATED, true, p.remoteSourceNode(ImmutableList.of(BUILD), ImmutableList.of(p.symbol("b")), REPLICATE)));
+        Optional<BroadcastTableSizeMonitor> monitor = createBroadcastTableSizeMonitor(queryStateMachine, ImmutableList.of(probeStage, buildStage), scheduledExecutor);
+        assertTrue(monitor.isPresent());
+        monitor.get().start();
+        return monitor.get();
+    }
+
+    private static Session createSession(String joinDistributionType, String maxBroadcastTableSize)
+    {
+        return createSession(true, joinDistributionType, maxBroadcastTableSize);
+    }
+
+    private static Session createSession(boolean failOnOversizedBroadcastJoin, String joinDistributionType, String maxBroadcastTableSize)
+    {
+        Session.SessionBuilder session = Session.builder(TEST_SESSION)
+                .setSystemProperty(FAIL_ON_OVERSIZED_BROADCAST_JOIN, String.valueOf(failOnOversizedBroadcastJoin))
+                .setSystemProperty(JOIN_DISTRIBUTION_TYPE, joinDistributionType);
+        if (maxBroadcastTableSize != null) {
+            session.setSystemProperty(JOIN_MAX_BROADCAST_TABLE_SIZE, maxBroadcastTableSize);
+        }
+        return session.build();
+    }
+
+    private QueryStateMachine createQueryStateMachine(Session session)
+    {
+        return QueryStateMachine.begin(
+                "SELECT 1",
+                Optional.empty(),
+                session,
+                URI.create("fake://uri"),
+                new ResourceGroupId("test"),
+                false,
+                createTestTransactionManager(),
+                new AllowAllAccessControl(),
+                executor,
+                createTestMetadataManager(),
+                WarningCollector.NOOP);
+    }
+
+    private SqlStageExecution createStage(int id, PlanFragmentId fragmentId, PlanNode root)
+    {
+        StageId stageId = new StageId(new QueryId("query"), id);
+        PlanFragment fragment = new PlanFragment(
+                fragmentId,
+                root,
+                root.getOutputSymbols().stream().collect(toImmutableMap(symbol -> symbol, symbol -> BIGINT)),
+                SOURCE_DISTRIBUTION,
+                ImmutableList.of(),
+                new PartitioningScheme(Partitioning.create(SINGLE_DISTRIBUTION, ImmutableList.of()), root.getOutputSymbols()),
+                ungroupedExecution(),
+                StatsAndCosts.empty(),
+                Optional.empty());
+        SqlStageExecution stage = createSqlStageExecution(
+                stageId,
+                new MockLocationFactory().createStageLocation(stageId),
+                fragment,
+                ImmutableMap.of(),
+                new MockRemoteTaskFactory(executor, scheduledExecutor),
+                TEST_SESSION,
+                true,
+                new NodeTaskMap(new FinalizerService()),
+                executor,
+                new NoOpFailureDetector(),
+                new SplitSchedulerStats());
+        stage.setOutputBuffers(createInitialEmptyOutputBuffers(BROADCAST));
+        return stage;
+    }
+
+    private static void addTaskOutput(SqlStageExecution stage, int partition, DataSize outputDataSize)
+    {
+        InternalNode node = new InternalNode("node" + partition, URI.create("http://10.0.0.1:" + (8080 + partition)), NodeVersion.UNKNOWN, false);
+        MockRemoteTask task = (MockRemoteTask) stage.scheduleTask(node, partition, OptionalInt.empty()).get();
+        task.recordOutput(outputDataSize);
+    }
+
+    private PlanNode join(JoinNode.DistributionType distributionType, boolean equiJoin, PlanNode build)
+    {
+        Symbol probe = p.symbol("a");
+        Symbol buildKey = p.symbol("b");
+        return p.join(
+                INNER,
+                p.remoteSourceNode(ImmutableList.of(PROBE), ImmutableList.of(probe), REPARTITION),
+                build,
+                equiJoin ? ImmutableList.of(new EquiJoinClause(probe, buildKey)) : ImmutableList.of(),
+                ImmutableList.<Symbol>builder()
+                        .add(probe)
+                        .addAll(build.getOutputSymbols())
+                        .build(),
+                Optional.empty(),
+                Optional.empty(),
+                Optional.empty(),
+                Optional.of(distributionType),
+                ImmutableMap.of());
+    }
+}
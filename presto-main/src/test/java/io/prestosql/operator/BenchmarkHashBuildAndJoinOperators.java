@@ -19,6 +19,7 @@ import com.google.common.primitives.Ints;
 import com.google.common.util.concurrent.ListenableFuture;
 import io.airlift.units.DataSize;
 import io.prestosql.RowPagesBuilder;
+import io.prestosql.Session;
 import io.prestosql.execution.Lifespan;
 import io.prestosql.operator.HashBuilderOperator.HashBuilderOperatorFactory;
 import io.prestosql.spi.Page;
@@ -55,6 +56,8 @@ import static io.airlift.concurrent.Threads.daemonThreadsNamed;
 import static io.airlift.units.DataSize.Unit.GIGABYTE;
 import static io.prestosql.RowPagesBuilder.rowPagesBuilder;
 import static io.prestosql.SessionTestUtils.TEST_SESSION;
+import static io.prestosql.SystemSessionProperties.BIGINT_JOIN_HASH_ENABLED;
+import static io.prestosql.SystemSessionProperties.JOIN_BLOOM_FILTER_ENABLED;
 import static io.prestosql.spi.type.BigintType.BIGINT;
 import static io.prestosql.spi.type.VarcharType.VARCHAR;
 import static io.prestosql.spiller.PartitioningSpillerFactory.unsupportedPartitioningSpillerFactory;
@@ -176,9 +179,15 @@ public class BenchmarkHashBuildAndJoinOperators
     {
         protected static final int PROBE_ROWS_NUMBER = 1_400_000;
 
-        @Param({"0.1", "1", "2"})
+        @Param({"0.01", "0.1", "0.9", "1", "2"})
         protected double matchRate = 1;
 
+        @Param({"false", "true"})
+        protected boolean joinBloomFilterEnabled = true;
+
+        @Param({"false", "true"})
+        protected boolean bigintJoinHashEnabled = true;
+
         @Param({"bigint", "all"})
         protected String outputColumns = "bigint";
 
@@ -186,6 +195,7 @@ public class BenchmarkHashBuildAndJoinOperators
         protected List<Integer> outputChannels;
 
         protected JoinBridgeManager<PartitionedLookupSourceFactory> lookupSourceFactory;
+        protected OperatorFactory joinOperatorFactory;
 
         @Override
         @Setup
@@ -207,15 +217,42 @@ public class BenchmarkHashBuildAndJoinOperators
                     throw new UnsupportedOperationException(format("Unknown outputColumns value [%s]", hashColumns));
             }
 
-            lookupSourceFactory = new BenchmarkHashBuildAndJoinOperators().benchmarkBuildHash(this, outputChannels);
+            lookupSourceFactory = createLookupSourceFactoryManager(this, outputChannels);
+            // the probe factory must be registered before the build finishes, otherwise the lookup source is destroyed right away
+            joinOperatorFactory = LOOKUP_JOIN_OPERATORS.innerJoin(
+                    HASH_JOIN_OPERATOR_ID,
+                    TEST_PLAN_NODE_ID,
+                    lookupSourceFactory,
+                    getTypes(),
+                    getHashChannels(),
+                    getHashChannel(),
+                    Optional.of(getOutputChannels()),
+                    OptionalInt.empty(),
+                    unsupportedPartitioningSpillerFactory());
+            buildHash(this, lookupSourceFactory, outputChannels);
             initializeProbePages();
         }
 
+        @Override
+        public TaskContext createTaskContext()
+        {
+            Session session = Session.builder(TEST_SESSION)
+                    .setSystemProperty(JOIN_BLOOM_FILTER_ENABLED, String.valueOf(joinBloomFilterEnabled))
+                    .setSystemProperty(BIGINT_JOIN_HASH_ENABLED, String.valueOf(bigintJoinHashEnabled))
+                    .build();
+            return TestingTaskContext.createTaskContext(executor, scheduledExecutor, session, new DataSize(2, GIGABYTE));
+        }
+
         public JoinBridgeManager<PartitionedLookupSourceFactory> getLookupSourceFactory()
         {
             return lookupSourceFactory;
         }
 
+        public OperatorFactory getJoinOperatorFactory()
+        {
+            return joinOperatorFactory;
+        }
+
         public List<Page> getProbePages()
         {
             return probePages;
@@ -277,14 +314,17 @@ public class BenchmarkHashBuildAndJoinOperators
     @Benchmark
     public JoinBridgeManager<PartitionedLookupSourceFactory> benchmarkBuildHash(BuildContext buildContext)
     {
-        return benchmarkBuildHash(buildContext, ImmutableList.of(0, 1, 2));
+        List<Integer> outputChannels = ImmutableList.of(0, 1, 2);
+        JoinBridgeManager<PartitionedLookupSourceFactory> lookupSourceFactoryManager = createLookupSourceFactoryManager(buildContext, outputChannels);
+        // stands in for the probe, so that the lookup source is not destroyed once it is built
+        lookupSourceFactoryManager.incrementProbeFactoryCount();
+        buildHash(buildContext, lookupSourceFactoryManager, outputChannels);
+        return lookupSourceFactoryManager;
     }
 
-    private JoinBridgeManager<PartitionedLookupSourceFactory> benchmarkBuildHash(BuildContext buildContext, List<Integer> outputChannels)
+    private static JoinBridgeManager<PartitionedLookupSourceFactory> createLookupSourceFactoryManager(BuildContext buildContext, List<Integer> outputChannels)
     {
-        DriverContext driverContext = buildContext.createTaskContext().addPipelineContext(0, true, true, false).addDriverContext();
-
-        JoinBridgeManager<PartitionedLookupSourceFactory> lookupSourceFactoryManager = JoinBridgeManager.lookupAllAtOnce(new PartitionedLookupSourceFactory(
+        return JoinBridgeManager.lookupAllAtOnce(new PartitionedLookupSourceFactory(
                 buildContext.getTypes(),
                 outputChannels.stream()
                         .map(buildContext.getTypes()::get)
@@ -295,6 +335,12 @@ public class BenchmarkHashBuildAndJoinOperators
                 1,
                 requireNonNull(ImmutableMap.of(), "layout is null"),
                 false));
+    }
+
+    private static void buildHash(BuildContext buildContext, JoinBridgeManager<PartitionedLookupSourceFactory> lookupSourceFactoryManager, List<Integer> outputChannels)
+    {
+        DriverContext driverContext = buildContext.createTaskContext().addPipelineContext(0, true, true, false).addDriverContext();
+
         HashBuilderOperatorFactory hashBuilderOperatorFactory = new HashBuilderOperatorFactory(
                 HASH_BUILD_OPERATOR_ID,
                 TEST_PLAN_NODE_ID,
@@ -322,26 +368,13 @@ public class BenchmarkHashBuildAndJoinOperators
             throw new AssertionError("Expected lookup source provider to be ready");
         }
         getFutureValue(lookupSourceProvider).close();
-
-        return lookupSourceFactoryManager;
     }
 
     @Benchmark
     public List<Page> benchmarkJoinHash(JoinContext joinContext)
     {
-        OperatorFactory joinOperatorFactory = LOOKUP_JOIN_OPERATORS.innerJoin(
-                HASH_JOIN_OPERATOR_ID,
-                TEST_PLAN_NODE_ID,
-                joinContext.getLookupSourceFactory(),
-                joinContext.getTypes(),
-                joinContext.getHashChannels(),
-                joinContext.getHashChannel(),
-                Optional.of(joinContext.getOutputChannels()),
-                OptionalInt.empty(),
-                unsupportedPartitioningSpillerFactory());
-
         DriverContext driverContext = joinContext.createTaskContext().addPipelineContext(0, true, true, false).addDriverContext();
-        Operator joinOperator = joinOperatorFactory.createOperator(driverContext);
+        Operator joinOperator = joinContext.getJoinOperatorFactory().createOperator(driverContext);
 
         Iterator<Page> input = joinContext.getProbePages().iterator();
         ImmutableList.Builder<Page> outputPages = ImmutableList.builder();
@@ -130,7 +130,8 @@ public class BenchmarkPartitionedOutputOperator
                     false,
                     OptionalInt.empty(),
                     buffer,
-                    new DataSize(1, GIGABYTE));
+                    new DataSize(1, GIGABYTE),
+                    false);
             return (PartitionedOutputOperator) operatorFactory
                     .createOutputOperator(0, new PlanNodeId("plan-node-0"), TYPES, Function.identity(), serdeFactory)
                     .createOperator(createDriverContext());
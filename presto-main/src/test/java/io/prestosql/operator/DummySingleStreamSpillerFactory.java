@@ -0,0 +1,88 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.operator;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterators;
+import com.google.common.util.concurrent.ListenableFuture;
+import io.prestosql.memory.context.LocalMemoryContext;
+import io.prestosql.spi.Page;
+import io.prestosql.spi.type.Type;
+import io.prestosql.spiller.SingleStreamSpiller;
+import io.prestosql.spiller.SingleStreamSpillerFactory;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.util.concurrent.Futures.immediateFuture;
+
+public class DummySingleStreamSpillerFactory
+        implements SingleStreamSpillerFactory
+{
+    private long spillsCount;
+
+    @Override
+    public SingleStreamSpiller create(List<Type> types, SpillContext spillContext, LocalMemoryContext memoryContext)
+    {
+        return new SingleStreamSpiller()
+        {
+            private boolean writing = true;
+            private final List<Page> spills = new ArrayList<>();
+
+            @Override
+            public ListenableFuture<?> spill(Iterator<Page> pageIterator)
+            {
+                checkState(writing, "writing already finished");
+                spillsCount++;
+                Iterators.addAll(spills, pageIterator);
+                return immediateFuture(null);
+            }
+
+            @Override
+            public Iterator<Page> getSpilledPages()
+            {
+                writing = false;
+                return ImmutableList.copyOf(spills).iterator();
+            }
+
+            @Override
+            public long getSpilledPagesInMemorySize()
+            {
+                return spills.stream()
+                        .mapToLong(Page::getSizeInBytes)
+                        .sum();
+            }
+
+            @Override
+            public ListenableFuture<List<Page>> getAllSpilledPages()
+            {
+                writing = false;
+                return immediateFuture(ImmutableList.copyOf(spills));
+            }
+
+            @Override
+            public void close()
+            {
+                spills.clear();
+            }
+        };
+    }
+
+    public long getSpillsCount()
+    {
+        return spillsCount;
+    }
+}
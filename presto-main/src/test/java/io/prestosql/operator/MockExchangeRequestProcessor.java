@@ -34,7 +34,10 @@ import io.prestosql.spi.Page;
 import java.net.URI;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -43,6 +46,7 @@ import java.util.concurrent.atomic.AtomicLong;
 import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.net.HttpHeaders.CONTENT_TYPE;
 import static io.prestosql.PrestoMediaTypes.PRESTO_PAGES;
+import static io.prestosql.PrestoMediaTypes.PRESTO_PAGES_STREAM;
 import static io.prestosql.client.PrestoHeaders.PRESTO_BUFFER_COMPLETE;
 import static io.prestosql.client.PrestoHeaders.PRESTO_PAGE_NEXT_TOKEN;
 import static io.prestosql.client.PrestoHeaders.PRESTO_PAGE_TOKEN;
@@ -59,6 +63,8 @@ public class MockExchangeRequestProcessor
 
     private final LoadingCache<URI, MockBuffer> buffers = CacheBuilder.newBuilder().build(CacheLoader.from(MockBuffer::new));
 
+    private final Map<URI, CountDownLatch> streamLatches = new ConcurrentHashMap<>();
+
     private final DataSize expectedMaxSize;
 
     public MockExchangeRequestProcessor(DataSize expectedMaxSize)
@@ -67,6 +73,11 @@ public class MockExchangeRequestProcessor
     }
 
     public void addPage(URI location, Page page)
+    {
+        buffers.getUnchecked(location).addPage(PAGES_SERDE.serialize(page));
+    }
+
+    public void addPage(URI location, SerializedPage page)
     {
         buffers.getUnchecked(location).addPage(page);
     }
@@ -76,6 +87,14 @@ public class MockExchangeRequestProcessor
         buffers.getUnchecked(location).setCompleted();
     }
 
+    /**
+     * Holds the streams of the location open, without sending results, until the latch is released.
+     */
+    public void holdStreams(URI location, CountDownLatch released)
+    {
+        streamLatches.put(location, released);
+    }
+
     @Override
     public Response handle(Request request)
     {
@@ -86,6 +105,12 @@ public class MockExchangeRequestProcessor
         // verify we got a data size and it parses correctly
         assertTrue(!request.getHeaders().get(PrestoHeaders.PRESTO_MAX_SIZE).isEmpty());
         DataSize maxSize = DataSize.valueOf(request.getHeader(PrestoHeaders.PRESTO_MAX_SIZE));
+
+        if (request.getUri().getPath().endsWith("/stream")) {
+            // the credit of a stream is a share of the buffer of the exchange client
+            assertTrue(maxSize.toBytes() > 0);
+            return handleStream(request, maxSize);
+        }
         assertEquals(maxSize, expectedMaxSize);
 
         RequestLocation requestLocation = new RequestLocation(request.getUri());
@@ -116,6 +141,47 @@ public class MockExchangeRequestProcessor
                 bytes);
     }
 
+    private Response handleStream(Request request, DataSize credit)
+    {
+        String uri = request.getUri().toString();
+        RequestLocation requestLocation = new RequestLocation(URI.create(uri.substring(0, uri.length() - "/stream".length())));
+        MockBuffer buffer = buffers.getUnchecked(requestLocation.getLocation());
+
+        CountDownLatch released = streamLatches.get(requestLocation.getLocation());
+        if (released != null) {
+            try {
+                released.await();
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(e);
+            }
+        }
+
+        // stream results until the credit is used, the buffer is complete or no page arrives
+        DynamicSliceOutput sliceOutput = new DynamicSliceOutput(64);
+        long sequenceId = requestLocation.getSequenceId();
+        long sentBytes = 0;
+        while (true) {
+            BufferResult result = buffer.getPages(sequenceId, new DataSize(credit.toBytes() - sentBytes, DataSize.Unit.BYTE));
+            PagesSerdeUtil.writeBufferResult(sliceOutput, result);
+            sentBytes += result.getSerializedPages().stream()
+                    .mapToLong(SerializedPage::getRetainedSizeInBytes)
+                    .sum();
+            if (result.isEmpty() || result.isBufferComplete() || sentBytes >= credit.toBytes()) {
+                break;
+            }
+            sequenceId = result.getNextToken();
+        }
+
+        return new TestingResponse(
+                HttpStatus.OK,
+                ImmutableListMultimap.of(
+                        CONTENT_TYPE, PRESTO_PAGES_STREAM,
+                        PRESTO_TASK_INSTANCE_ID, TASK_INSTANCE_ID),
+                sliceOutput.slice().getBytes());
+    }
+
     private static class RequestLocation
     {
         private final URI location;
@@ -157,10 +223,10 @@ public class MockExchangeRequestProcessor
             completed.set(true);
         }
 
-        public synchronized void addPage(Page page)
+        public synchronized void addPage(SerializedPage page)
         {
             checkState(completed.get() != Boolean.TRUE, "Location %s is complete", location);
-            serializedPages.add(PAGES_SERDE.serialize(page));
+            serializedPages.add(page);
         }
 
         public BufferResult getPages(long sequenceId, DataSize maxSize)
@@ -0,0 +1,137 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.operator;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import io.prestosql.spi.Page;
+import io.prestosql.spi.block.Block;
+import io.prestosql.spi.block.BlockBuilder;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.Set;
+
+import static io.prestosql.metadata.MetadataManager.createTestMetadataManager;
+import static io.prestosql.operator.SyntheticAddress.encodeSyntheticAddress;
+import static io.prestosql.spi.type.BigintType.BIGINT;
+import static io.prestosql.spi.type.VarcharType.VARCHAR;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class TestBigintPagesHash
+{
+    @DataProvider
+    public static Object[][] bloomFilterEnabled()
+    {
+        return new Object[][] {{true}, {false}};
+    }
+
+    @Test(dataProvider = "bloomFilterEnabled")
+    public void testDenseKeys(boolean bloomFilterEnabled)
+    {
+        // 100 to 109, every key twice, and a null
+        BlockBuilder blockBuilder = BIGINT.createBlockBuilder(null, 21);
+        for (int i = 0; i < 20; i++) {
+            BIGINT.writeLong(blockBuilder, 100 + i % 10);
+        }
+        blockBuilder.appendNull();
+        assertLookups(blockBuilder.build(), ImmutableList.of(99L, 100L, 105L, 109L, 110L, Long.MIN_VALUE, Long.MAX_VALUE), bloomFilterEnabled);
+    }
+
+    @Test(dataProvider = "bloomFilterEnabled")
+    public void testSparseKeys(boolean bloomFilterEnabled)
+    {
+        BlockBuilder blockBuilder = BIGINT.createBlockBuilder(null, 21);
+        for (int i = 0; i < 20; i++) {
+            BIGINT.writeLong(blockBuilder, (i % 10) * 1_000_000_007L - 5_000_000_000L);
+        }
+        blockBuilder.appendNull();
+        assertLookups(blockBuilder.build(), ImmutableList.of(-5_000_000_000L, 0L, 4_000_000_035L, 4_000_000_036L, Long.MIN_VALUE, Long.MAX_VALUE), bloomFilterEnabled);
+    }
+
+    @Test
+    public void testExtremeKeys()
+    {
+        // the range of the keys does not fit in a long
+        BlockBuilder blockBuilder = BIGINT.createBlockBuilder(null, 2);
+        BIGINT.writeLong(blockBuilder, Long.MIN_VALUE);
+        BIGINT.writeLong(blockBuilder, Long.MAX_VALUE);
+        assertLookups(blockBuilder.build(), ImmutableList.of(Long.MIN_VALUE, Long.MAX_VALUE, 0L, -1L), true);
+    }
+
+    @Test
+    public void testEmpty()
+    {
+        assertLookups(BIGINT.createBlockBuilder(null, 0).build(), ImmutableList.of(0L, 1L), true);
+    }
+
+    @Test
+    public void testSupportedTypes()
+    {
+        assertTrue(BigintPagesHash.isSupportedType(BIGINT));
+        assertFalse(BigintPagesHash.isSupportedType(VARCHAR));
+    }
+
+    private static void assertLookups(Block buildBlock, List<Long> probeValues, boolean bloomFilterEnabled)
+    {
+        List<Block> keyBlocks = ImmutableList.of(buildBlock);
+        LongArrayList addresses = new LongArrayList();
+        for (int position = 0; position < buildBlock.getPositionCount(); position++) {
+            addresses.add(encodeSyntheticAddress(0, position));
+        }
+        PagesHashStrategy pagesHashStrategy = new SimplePagesHashStrategy(
+                ImmutableList.of(BIGINT),
+                ImmutableList.of(0),
+                ImmutableList.of(keyBlocks),
+                ImmutableList.of(0),
+                OptionalInt.empty(),
+                Optional.empty(),
+                createTestMetadataManager());
+        PositionLinks.FactoryBuilder positionLinksBuilder = ArrayPositionLinks.builder(addresses.size());
+        PagesHash pagesHash = new BigintPagesHash(addresses, pagesHashStrategy, positionLinksBuilder, BIGINT, keyBlocks, bloomFilterEnabled);
+        PositionLinks positionLinks = positionLinksBuilder.build().create(ImmutableList.of());
+
+        BlockBuilder probeBuilder = BIGINT.createBlockBuilder(null, probeValues.size());
+        probeValues.forEach(value -> BIGINT.writeLong(probeBuilder, value));
+        Page probePage = new Page(probeBuilder.build());
+
+        for (int probePosition = 0; probePosition < probeValues.size(); probePosition++) {
+            long probeValue = probeValues.get(probePosition);
+            ImmutableSet.Builder<Integer> expected = ImmutableSet.builder();
+            for (int position = 0; position < buildBlock.getPositionCount(); position++) {
+                if (!buildBlock.isNull(position) && BIGINT.getLong(buildBlock, position) == probeValue) {
+                    expected.add(position);
+                }
+            }
+
+            ImmutableSet.Builder<Integer> actual = ImmutableSet.builder();
+            int addressIndex = pagesHash.getAddressIndex(probePosition, probePage);
+            if (addressIndex != -1) {
+                addressIndex = positionLinks.start(addressIndex, probePosition, probePage);
+            }
+            while (addressIndex != -1) {
+                actual.add(addressIndex);
+                addressIndex = positionLinks.next(addressIndex, probePosition, probePage);
+            }
+            Set<Integer> matches = actual.build();
+            assertEquals(matches, expected.build(), "matches of " + probeValue);
+        }
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.operator;
+
+import com.google.common.collect.ImmutableList;
+import io.prestosql.execution.buffer.PagesSerde;
+import io.prestosql.execution.buffer.SerializedPage;
+import io.prestosql.execution.buffer.SharedDictionaries;
+import io.prestosql.execution.buffer.TestingPagesSerdeFactory;
+import io.prestosql.spi.Page;
+import io.prestosql.spi.block.Block;
+import io.prestosql.spi.block.DictionaryBlock;
+import io.prestosql.spi.type.Type;
+import org.testng.annotations.Test;
+
+import java.util.List;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static io.prestosql.block.BlockAssertions.createLongSequenceBlock;
+import static io.prestosql.block.BlockAssertions.createStringsBlock;
+import static io.prestosql.operator.PageAssertions.assertPageEquals;
+import static io.prestosql.spi.type.BigintType.BIGINT;
+import static io.prestosql.spi.type.VarcharType.VARCHAR;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.expectThrows;
+
+public class TestDictionarySharingSerializer
+{
+    private static final List<Type> TYPES = ImmutableList.of(VARCHAR, BIGINT);
+
+    @Test
+    public void testDictionaryIsSentOnce()
+    {
+        Block dictionary = createStringsBlock("alice", "bob", "charlie");
+        Block otherDictionary = createStringsBlock("dave", "eve");
+        Page first = createPage(dictionary, 0, 1, 2, 1);
+        Page second = createPage(dictionary, 2, 2, 0);
+        Page third = createPage(otherDictionary, 1, 0);
+
+        DictionarySharingSerializer serializer = new DictionarySharingSerializer(new TestingPagesSerdeFactory().createPagesSerde());
+        List<SerializedPage> firstPages = serializer.serialize(first);
+        List<SerializedPage> secondPages = serializer.serialize(second);
+        List<SerializedPage> thirdPages = serializer.serialize(third);
+        List<SerializedPage> finalPages = serializer.releaseAll().map(ImmutableList::of).orElseGet(ImmutableList::of);
+
+        // definition and page, page, definition and page and release of the first dictionary, release of the other dictionary
+        assertEquals(sharedDictionaryPageCount(firstPages), 1);
+        assertEquals(sharedDictionaryPageCount(secondPages), 0);
+        assertEquals(sharedDictionaryPageCount(thirdPages), 2);
+        assertEquals(sharedDictionaryPageCount(finalPages), 1);
+        assertTrue(serializer.getDictionaries().isEmpty());
+
+        SharedDictionaries sharedDictionaries = new SharedDictionaries();
+        PagesSerde serde = new TestingPagesSerdeFactory().createPagesSerde();
+        List<SerializedPage> dataPages = ImmutableList.<SerializedPage>builder()
+                .addAll(firstPages)
+                .addAll(secondPages)
+                .addAll(thirdPages)
+                .addAll(finalPages)
+                .build().stream()
+                .filter(page -> addSharedDictionaryPage(sharedDictionaries, page))
+                .collect(toImmutableList());
+        List<Page> pages = dataPages.stream()
+                .map(page -> serde.deserialize(page, sharedDictionaries))
+                .collect(toImmutableList());
+
+        assertEquals(pages.size(), 3);
+        assertPageEquals(TYPES, pages.get(0), first);
+        assertPageEquals(TYPES, pages.get(1), second);
+        assertPageEquals(TYPES, pages.get(2), third);
+
+        // the pages share the dictionary and its id, which are dropped once all references are read
+        Block firstDictionary = ((DictionaryBlock) pages.get(0).getBlock(0)).getDictionary();
+        assertSame(((DictionaryBlock) pages.get(1).getBlock(0)).getDictionary(), firstDictionary);
+        assertEquals(((DictionaryBlock) pages.get(1).getBlock(0)).getDictionarySourceId(), ((DictionaryBlock) pages.get(0).getBlock(0)).getDictionarySourceId());
+        assertNotSame(((DictionaryBlock) pages.get(2).getBlock(0)).getDictionary(), firstDictionary);
+        assertEquals(sharedDictionaries.getRetainedSizeInBytes(), 0);
+    }
+
+    @Test
+    public void testReleaseBeforeLastReference()
+    {
+        Block dictionary = createStringsBlock("alice", "bob");
+        Page page = createPage(dictionary, 1, 0, 1);
+
+        DictionarySharingSerializer serializer = new DictionarySharingSerializer(new TestingPagesSerdeFactory().createPagesSerde());
+        List<SerializedPage> serializedPages = ImmutableList.<SerializedPage>builder()
+                .addAll(serializer.serialize(page))
+                .addAll(serializer.serialize(page))
+                .add(serializer.releaseAll().get())
+                .build();
+
+        // another reader may read the release before the last page referencing the dictionary
+        SharedDictionaries sharedDictionaries = new SharedDictionaries();
+        List<SerializedPage> dataPages = serializedPages.stream()
+                .filter(serializedPage -> addSharedDictionaryPage(sharedDictionaries, serializedPage))
+                .collect(toImmutableList());
+        PagesSerde serde = new TestingPagesSerdeFactory().createPagesSerde();
+        assertPageEquals(TYPES, serde.deserialize(dataPages.get(0), sharedDictionaries), page);
+        assertTrue(sharedDictionaries.getRetainedSizeInBytes() > 0);
+        assertPageEquals(TYPES, serde.deserialize(dataPages.get(1), sharedDictionaries), page);
+        assertEquals(sharedDictionaries.getRetainedSizeInBytes(), 0);
+
+        // a page referencing a shared dictionary can not be read without it
+        assertTrue(dataPages.get(0).hasDictionaryReferences());
+        expectThrows(IllegalArgumentException.class, () -> serde.deserialize(dataPages.get(0)));
+    }
+
+    @Test
+    public void testPageWithoutDictionaries()
+    {
+        Page page = new Page(createStringsBlock("alice", "bob"), createLongSequenceBlock(0, 2));
+        List<SerializedPage> serializedPages = new DictionarySharingSerializer(new TestingPagesSerdeFactory().createPagesSerde()).serialize(page);
+
+        assertEquals(serializedPages.size(), 1);
+        assertFalse(serializedPages.get(0).hasDictionaryReferences());
+        assertPageEquals(TYPES, new TestingPagesSerdeFactory().createPagesSerde().deserialize(serializedPages.get(0)), page);
+    }
+
+    private static boolean addSharedDictionaryPage(SharedDictionaries sharedDictionaries, SerializedPage page)
+    {
+        if (page.isSharedDictionaryPage()) {
+            sharedDictionaries.addPage(page);
+            return false;
+        }
+        return true;
+    }
+
+    private static long sharedDictionaryPageCount(List<SerializedPage> pages)
+    {
+        return pages.stream()
+                .filter(SerializedPage::isSharedDictionaryPage)
+                .count();
+    }
+
+    private static Page createPage(Block dictionary, int... ids)
+    {
+        return new Page(new DictionaryBlock(dictionary, ids), createLongSequenceBlock(0, ids.length));
+    }
+}
@@ -14,10 +14,12 @@
 package io.prestosql.operator;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.primitives.Ints;
 import io.prestosql.RowPagesBuilder;
 import io.prestosql.spi.Page;
 import io.prestosql.spi.type.Type;
+import io.prestosql.spiller.GenericPartitioningSpillerFactory;
 import io.prestosql.sql.gen.JoinCompiler;
 import io.prestosql.sql.planner.plan.PlanNodeId;
 import io.prestosql.testing.MaterializedResult;
@@ -39,8 +41,12 @@ import static io.prestosql.metadata.MetadataManager.createTestMetadataManager;
 import static io.prestosql.operator.GroupByHashYieldAssertion.createPagesWithDistinctHashKeys;
 import static io.prestosql.operator.GroupByHashYieldAssertion.finishOperatorWithYieldingGroupByHash;
 import static io.prestosql.operator.OperatorAssertion.assertOperatorEquals;
+import static io.prestosql.operator.OperatorAssertion.assertOperatorEqualsIgnoreOrder;
+import static io.prestosql.operator.OperatorAssertion.toMaterializedResult;
+import static io.prestosql.operator.OperatorAssertion.toPages;
 import static io.prestosql.spi.type.BigintType.BIGINT;
 import static io.prestosql.spi.type.VarcharType.VARCHAR;
+import static io.prestosql.spiller.PartitioningSpillerFactory.unsupportedPartitioningSpillerFactory;
 import static io.prestosql.testing.MaterializedResult.resultBuilder;
 import static io.prestosql.testing.TestingTaskContext.createTaskContext;
 import static java.util.concurrent.Executors.newCachedThreadPool;
@@ -94,7 +100,7 @@ public class TestDistinctLimitOperator
                 .addSequencePage(5, 2)
                 .build();
 
-        OperatorFactory operatorFactory = new DistinctLimitOperator.DistinctLimitOperatorFactory(0, new PlanNodeId("test"), rowPagesBuilder.getTypes(), Ints.asList(0), 5, rowPagesBuilder.getHashChannel(), joinCompiler);
+        OperatorFactory operatorFactory = new DistinctLimitOperator.DistinctLimitOperatorFactory(0, new PlanNodeId("test"), rowPagesBuilder.getTypes(), Ints.asList(0), 5, rowPagesBuilder.getHashChannel(), joinCompiler, false, unsupportedPartitioningSpillerFactory());
 
         MaterializedResult expected = resultBuilder(driverContext.getSession(), BIGINT)
                 .row(1L)
@@ -116,7 +122,7 @@ public class TestDistinctLimitOperator
                 .addSequencePage(3, 2)
                 .build();
 
-        OperatorFactory operatorFactory = new DistinctLimitOperator.DistinctLimitOperatorFactory(0, new PlanNodeId("test"), rowPagesBuilder.getTypes(), Ints.asList(0), 3, rowPagesBuilder.getHashChannel(), joinCompiler);
+        OperatorFactory operatorFactory = new DistinctLimitOperator.DistinctLimitOperatorFactory(0, new PlanNodeId("test"), rowPagesBuilder.getTypes(), Ints.asList(0), 3, rowPagesBuilder.getHashChannel(), joinCompiler, false, unsupportedPartitioningSpillerFactory());
 
         MaterializedResult expected = resultBuilder(driverContext.getSession(), BIGINT)
                 .row(1L)
@@ -136,7 +142,7 @@ public class TestDistinctLimitOperator
                 .addSequencePage(3, 2)
                 .build();
 
-        OperatorFactory operatorFactory = new DistinctLimitOperator.DistinctLimitOperatorFactory(0, new PlanNodeId("test"), rowPagesBuilder.getTypes(), Ints.asList(0), 5, rowPagesBuilder.getHashChannel(), joinCompiler);
+        OperatorFactory operatorFactory = new DistinctLimitOperator.DistinctLimitOperatorFactory(0, new PlanNodeId("test"), rowPagesBuilder.getTypes(), Ints.asList(0), 5, rowPagesBuilder.getHashChannel(), joinCompiler, false, unsupportedPartitioningSpillerFactory());
 
         MaterializedResult expected = resultBuilder(driverContext.getSession(), BIGINT)
                 .row(1L)
@@ -148,6 +154,48 @@ public class TestDistinctLimitOperator
         assertOperatorEquals(operatorFactory, driverContext, input, expected, hashEnabled, ImmutableList.of(1));
     }
 
+    @Test(dataProvider = "hashEnabledValues")
+    public void testDistinctLimitWithSpill(boolean hashEnabled)
+    {
+        RowPagesBuilder rowPagesBuilder = rowPagesBuilder(hashEnabled, Ints.asList(0), BIGINT);
+        List<Page> input = rowPagesBuilder
+                .addSequencePage(100, 0)
+                .addSequencePage(100, 50)
+                .addSequencePage(100, 0)
+                .build();
+
+        DummySingleStreamSpillerFactory spillerFactory = new DummySingleStreamSpillerFactory();
+        OperatorFactory operatorFactory = createSpillingFactory(rowPagesBuilder, 1_000, spillerFactory);
+
+        MaterializedResult.Builder expected = resultBuilder(driverContext.getSession(), BIGINT);
+        for (long i = 0; i < 150; i++) {
+            expected.row(i);
+        }
+
+        assertOperatorEqualsIgnoreOrder(operatorFactory, driverContext, input, expected.build(), hashEnabled, Optional.of(1), true);
+        assertGreaterThan(spillerFactory.getSpillsCount(), 0L);
+    }
+
+    @Test
+    public void testDistinctLimitReachedWithSpill()
+    {
+        RowPagesBuilder rowPagesBuilder = rowPagesBuilder(BIGINT);
+        List<Page> input = rowPagesBuilder
+                .addSequencePage(100, 0)
+                .addSequencePage(100, 50)
+                .addSequencePage(100, 0)
+                .build();
+
+        DummySingleStreamSpillerFactory spillerFactory = new DummySingleStreamSpillerFactory();
+        OperatorFactory operatorFactory = createSpillingFactory(rowPagesBuilder, 120, spillerFactory);
+
+        List<Page> output = toPages(operatorFactory, driverContext, input, true);
+        MaterializedResult result = toMaterializedResult(driverContext.getSession(), ImmutableList.of(BIGINT), output);
+        assertEquals(result.getRowCount(), 120);
+        assertEquals(ImmutableSet.copyOf(result.getMaterializedRows()).size(), 120);
+        assertGreaterThan(spillerFactory.getSpillsCount(), 0L);
+    }
+
     @Test(dataProvider = "dataType")
     public void testMemoryReservationYield(Type type)
     {
@@ -160,11 +208,27 @@ public class TestDistinctLimitOperator
                 ImmutableList.of(0),
                 Integer.MAX_VALUE,
                 Optional.of(1),
-                joinCompiler);
+                joinCompiler,
+                false,
+                unsupportedPartitioningSpillerFactory());
 
         GroupByHashYieldAssertion.GroupByHashYieldResult result = finishOperatorWithYieldingGroupByHash(input, type, operatorFactory, operator -> ((DistinctLimitOperator) operator).getCapacity(), 1_400_000);
         assertGreaterThan(result.getYieldCount(), 5);
         assertGreaterThan(result.getMaxReservedBytes(), 20L << 20);
         assertEquals(result.getOutput().stream().mapToInt(Page::getPositionCount).sum(), 6_000 * 600);
     }
+
+    private OperatorFactory createSpillingFactory(RowPagesBuilder rowPagesBuilder, long limit, DummySingleStreamSpillerFactory spillerFactory)
+    {
+        return new DistinctLimitOperator.DistinctLimitOperatorFactory(
+                0,
+                new PlanNodeId("test"),
+                rowPagesBuilder.getTypes(),
+                Ints.asList(0),
+                limit,
+                rowPagesBuilder.getHashChannel(),
+                joinCompiler,
+                true,
+                new GenericPartitioningSpillerFactory(spillerFactory));
+    }
 }
@@ -0,0 +1,132 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.operator;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import io.prestosql.operator.DynamicFilterSourceOperator.Channel;
+import io.prestosql.operator.DynamicFilterSourceOperator.DynamicFilterSourceOperatorFactory;
+import io.prestosql.spi.Page;
+import io.prestosql.spi.predicate.Domain;
+import io.prestosql.spi.predicate.Range;
+import io.prestosql.spi.predicate.TupleDomain;
+import io.prestosql.spi.predicate.ValueSet;
+import io.prestosql.sql.planner.plan.PlanNodeId;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static io.airlift.concurrent.Threads.daemonThreadsNamed;
+import static io.airlift.slice.Slices.utf8Slice;
+import static io.prestosql.RowPagesBuilder.rowPagesBuilder;
+import static io.prestosql.SessionTestUtils.TEST_SESSION;
+import static io.prestosql.operator.OperatorAssertion.toPages;
+import static io.prestosql.spi.type.BigintType.BIGINT;
+import static io.prestosql.spi.type.VarcharType.VARCHAR;
+import static io.prestosql.testing.TestingTaskContext.createTaskContext;
+import static io.prestosql.testing.assertions.Assert.assertEquals;
+import static java.util.concurrent.Executors.newCachedThreadPool;
+import static java.util.concurrent.Executors.newScheduledThreadPool;
+import static org.testng.Assert.assertSame;
+
+@Test(singleThreaded = true)
+public class TestDynamicFilterSourceOperator
+{
+    private ExecutorService executor;
+    private ScheduledExecutorService scheduledExecutor;
+    private DriverContext driverContext;
+    private List<TupleDomain<String>> partitions;
+
+    @BeforeMethod
+    public void setUp()
+    {
+        executor = newCachedThreadPool(daemonThreadsNamed("test-executor-%s"));
+        scheduledExecutor = newScheduledThreadPool(2, daemonThreadsNamed("test-scheduledExecutor-%s"));
+        driverContext = createTaskContext(executor, scheduledExecutor, TEST_SESSION)
+                .addPipelineContext(0, true, true, false)
+                .addDriverContext();
+        partitions = new ArrayList<>();
+    }
+
+    @AfterMethod(alwaysRun = true)
+    public void tearDown()
+    {
+        executor.shutdownNow();
+        scheduledExecutor.shutdownNow();
+    }
+
+    @Test
+    public void testCollectMultipleColumns()
+    {
+        OperatorFactory operatorFactory = createOperatorFactory(10, new Channel("0", BIGINT, 0), new Channel("1", VARCHAR, 1));
+        List<Page> input = rowPagesBuilder(BIGINT, VARCHAR)
+                .row(1L, "a")
+                .row(2L, "b")
+                .row(null, null)
+                .pageBreak()
+                .row(2L, "c")
+                .build();
+
+        assertPassThrough(operatorFactory, input);
+        assertEquals(partitions, ImmutableList.of(TupleDomain.withColumnDomains(ImmutableMap.of(
+                "0", Domain.multipleValues(BIGINT, ImmutableList.<Object>of(1L, 2L)),
+                "1", Domain.multipleValues(VARCHAR, ImmutableList.<Object>of(utf8Slice("a"), utf8Slice("b"), utf8Slice("c")))))));
+    }
+
+    @Test
+    public void testCollectEmpty()
+    {
+        OperatorFactory operatorFactory = createOperatorFactory(10, new Channel("0", BIGINT, 0));
+        assertPassThrough(operatorFactory, ImmutableList.of());
+        assertEquals(partitions, ImmutableList.of(TupleDomain.none()));
+    }
+
+    @Test
+    public void testCollectTooManyValues()
+    {
+        OperatorFactory operatorFactory = createOperatorFactory(3, new Channel("0", BIGINT, 0));
+        List<Page> input = rowPagesBuilder(BIGINT)
+                .addSequencePage(5, 10)
+                .addSequencePage(5, 3)
+                .build();
+
+        assertPassThrough(operatorFactory, input);
+        assertEquals(partitions, ImmutableList.of(TupleDomain.withColumnDomains(ImmutableMap.of(
+                "0", Domain.create(ValueSet.ofRanges(Range.range(BIGINT, 3L, true, 14L, true)), false)))));
+    }
+
+    private OperatorFactory createOperatorFactory(int maxDistinctValues, Channel... channels)
+    {
+        return new DynamicFilterSourceOperatorFactory(
+                0,
+                new PlanNodeId("PLAN_NODE_ID"),
+                partitions::add,
+                ImmutableList.copyOf(channels),
+                maxDistinctValues);
+    }
+
+    private void assertPassThrough(OperatorFactory operatorFactory, List<Page> input)
+    {
+        List<Page> output = toPages(operatorFactory, driverContext, input);
+        assertEquals(output.size(), input.size());
+        for (int i = 0; i < input.size(); i++) {
+            assertSame(output.get(i), input.get(i));
+        }
+    }
+}
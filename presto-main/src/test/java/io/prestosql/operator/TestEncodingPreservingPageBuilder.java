@@ -0,0 +1,110 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.operator;
+
+import com.google.common.collect.ImmutableList;
+import io.prestosql.spi.Page;
+import io.prestosql.spi.block.Block;
+import io.prestosql.spi.block.DictionaryBlock;
+import io.prestosql.spi.block.RunLengthEncodedBlock;
+import org.testng.annotations.Test;
+
+import static io.prestosql.block.BlockAssertions.assertBlockEquals;
+import static io.prestosql.block.BlockAssertions.createLongSequenceBlock;
+import static io.prestosql.block.BlockAssertions.createLongsBlock;
+import static io.prestosql.block.BlockAssertions.createStringsBlock;
+import static io.prestosql.spi.block.PageBuilderStatus.DEFAULT_MAX_PAGE_SIZE_IN_BYTES;
+import static io.prestosql.spi.type.BigintType.BIGINT;
+import static io.prestosql.spi.type.VarcharType.VARCHAR;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+public class TestEncodingPreservingPageBuilder
+{
+    private static final Block DICTIONARY = createStringsBlock("alice", "bob", "charlie");
+    private static final Block VALUE = createLongsBlock(42);
+
+    @Test
+    public void testPreserveEncodings()
+    {
+        EncodingPreservingPageBuilder pageBuilder = createPageBuilder();
+        assertTrue(pageBuilder.isEmpty());
+
+        pageBuilder.appendPositions(createPage(DICTIONARY, VALUE, 0), new int[] {0, 2, 4}, 3);
+        pageBuilder.appendPositions(createPage(DICTIONARY, VALUE, 10), new int[] {1, 3}, 2);
+        assertFalse(pageBuilder.isEmpty());
+        assertFalse(pageBuilder.isFull());
+
+        Page page = pageBuilder.build();
+        assertTrue(pageBuilder.isEmpty());
+        assertTrue(page.getBlock(0) instanceof DictionaryBlock);
+        assertSame(((DictionaryBlock) page.getBlock(0)).getDictionary(), DICTIONARY);
+        assertBlockEquals(VARCHAR, page.getBlock(0), createStringsBlock("alice", "charlie", "bob", "bob", "alice"));
+        assertTrue(page.getBlock(1) instanceof RunLengthEncodedBlock);
+        assertBlockEquals(BIGINT, page.getBlock(1), createLongsBlock(42, 42, 42, 42, 42));
+        assertBlockEquals(BIGINT, page.getBlock(2), createLongsBlock(0, 2, 4, 11, 13));
+    }
+
+    @Test
+    public void testFlattenOnDifferentDictionaryOrValue()
+    {
+        EncodingPreservingPageBuilder pageBuilder = createPageBuilder();
+        pageBuilder.appendPositions(createPage(DICTIONARY, VALUE, 0), new int[] {0, 1}, 2);
+        pageBuilder.appendPositions(createPage(createStringsBlock("dave", "eve", "frank"), createLongsBlock(7), 10), new int[] {0, 1}, 2);
+
+        Page page = pageBuilder.build();
+        assertFalse(page.getBlock(0) instanceof DictionaryBlock);
+        assertBlockEquals(VARCHAR, page.getBlock(0), createStringsBlock("alice", "bob", "dave", "eve"));
+        assertFalse(page.getBlock(1) instanceof RunLengthEncodedBlock);
+        assertBlockEquals(BIGINT, page.getBlock(1), createLongsBlock(42, 42, 7, 7));
+
+        // the encodings are chosen again for the next page
+        pageBuilder.appendPositions(createPage(DICTIONARY, VALUE, 0), new int[] {5}, 1);
+        page = pageBuilder.build();
+        assertTrue(page.getBlock(0) instanceof DictionaryBlock);
+        assertTrue(page.getBlock(1) instanceof RunLengthEncodedBlock);
+    }
+
+    @Test
+    public void testFilteringDictionaryIsNotPreserved()
+    {
+        // a dictionary block selecting a few positions of a larger block
+        Block dictionary = createStringsBlock("alice", "bob", "charlie", "dave", "eve", "frank", "grace", "heidi");
+        Page input = new Page(
+                new DictionaryBlock(dictionary, new int[] {1, 6}),
+                new RunLengthEncodedBlock(VALUE, 2),
+                createLongSequenceBlock(0, 2));
+
+        EncodingPreservingPageBuilder pageBuilder = createPageBuilder();
+        pageBuilder.appendPositions(input, new int[] {0, 1}, 2);
+
+        Page page = pageBuilder.build();
+        assertFalse(page.getBlock(0) instanceof DictionaryBlock);
+        assertBlockEquals(VARCHAR, page.getBlock(0), createStringsBlock("bob", "grace"));
+    }
+
+    private static EncodingPreservingPageBuilder createPageBuilder()
+    {
+        return new EncodingPreservingPageBuilder(ImmutableList.of(VARCHAR, BIGINT, BIGINT), DEFAULT_MAX_PAGE_SIZE_IN_BYTES);
+    }
+
+    private static Page createPage(Block dictionary, Block value, int start)
+    {
+        return new Page(
+                new DictionaryBlock(dictionary, new int[] {0, 1, 2, 0, 1, 2}),
+                new RunLengthEncodedBlock(value, 6),
+                createLongSequenceBlock(start, start + 6));
+    }
+}
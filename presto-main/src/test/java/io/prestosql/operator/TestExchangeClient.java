@@ -13,6 +13,7 @@
  */
 package io.prestosql.operator;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
@@ -21,28 +22,59 @@ import io.airlift.units.DataSize;
 import io.airlift.units.DataSize.Unit;
 import io.airlift.units.Duration;
 import io.prestosql.block.BlockAssertions;
+import io.prestosql.execution.StateMachine;
+import io.prestosql.execution.buffer.OutputBuffers;
+import io.prestosql.execution.buffer.OutputBuffers.OutputBufferId;
 import io.prestosql.execution.buffer.PagesSerde;
+import io.prestosql.execution.buffer.PartitionedOutputBuffer;
 import io.prestosql.execution.buffer.SerializedPage;
+import io.prestosql.execution.buffer.SharedDictionaries;
+import io.prestosql.execution.buffer.TestingPagesSerdeFactory;
+import io.prestosql.memory.context.LocalMemoryContext;
 import io.prestosql.memory.context.SimpleLocalMemoryContext;
+import io.prestosql.operator.PartitionedOutputOperator.PartitionedOutputFactory;
+import io.prestosql.operator.exchange.LocalPartitionGenerator;
 import io.prestosql.spi.Page;
+import io.prestosql.spi.block.Block;
+import io.prestosql.spi.block.DictionaryBlock;
+import io.prestosql.spi.type.Type;
+import io.prestosql.sql.planner.plan.PlanNodeId;
 import org.testng.annotations.AfterClass;
 import org.testng.annotations.BeforeClass;
 import org.testng.annotations.Test;
 
 import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 
 import static com.google.common.collect.Maps.uniqueIndex;
 import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
 import static com.google.common.util.concurrent.Uninterruptibles.sleepUninterruptibly;
+import static io.airlift.concurrent.MoreFutures.getFutureValue;
 import static io.airlift.concurrent.MoreFutures.tryGetFutureValue;
 import static io.airlift.concurrent.Threads.daemonThreadsNamed;
+import static io.airlift.testing.Assertions.assertGreaterThan;
 import static io.airlift.testing.Assertions.assertLessThan;
+import static io.prestosql.SessionTestUtils.TEST_SESSION;
+import static io.prestosql.execution.buffer.BufferState.OPEN;
+import static io.prestosql.execution.buffer.BufferState.TERMINAL_BUFFER_STATES;
+import static io.prestosql.execution.buffer.OutputBuffers.BufferType.PARTITIONED;
+import static io.prestosql.execution.buffer.OutputBuffers.createInitialEmptyOutputBuffers;
 import static io.prestosql.execution.buffer.TestingPagesSerdeFactory.testingPagesSerde;
 import static io.prestosql.memory.context.AggregatedMemoryContext.newSimpleAggregatedMemoryContext;
+import static io.prestosql.spi.type.BigintType.BIGINT;
+import static io.prestosql.spi.type.VarcharType.VARCHAR;
+import static io.prestosql.testing.TestingTaskContext.createTaskContext;
 import static java.util.concurrent.Executors.newCachedThreadPool;
 import static java.util.concurrent.Executors.newScheduledThreadPool;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
@@ -124,6 +156,294 @@ public class TestExchangeClient
         assertStatus(status.getPageBufferClientStatuses().get(0), location, "closed", 3, 3, 3, "not scheduled");
     }
 
+    @Test
+    public void testStreaming()
+    {
+        DataSize maxResponseSize = new DataSize(10, Unit.MEGABYTE);
+        MockExchangeRequestProcessor processor = new MockExchangeRequestProcessor(maxResponseSize);
+
+        URI location1 = URI.create("http://localhost:8081/foo");
+        processor.addPage(location1, createPage(1));
+        processor.addPage(location1, createPage(2));
+        processor.setComplete(location1);
+        URI location2 = URI.create("http://localhost:8082/bar");
+        processor.addPage(location2, createPage(3));
+        processor.setComplete(location2);
+
+        ExecutorService streamExecutor = newCachedThreadPool(daemonThreadsNamed("test-stream-%s"));
+        try {
+            @SuppressWarnings("resource")
+            ExchangeClient exchangeClient = new ExchangeClient(
+                    new DataSize(32, Unit.MEGABYTE),
+                    maxResponseSize,
+                    1,
+                    new Duration(1, TimeUnit.MINUTES),
+                    true,
+                    new TestingHttpClient(processor, scheduler),
+                    scheduler,
+                    new SimpleLocalMemoryContext(newSimpleAggregatedMemoryContext(), "test"),
+                    pageBufferClientCallbackExecutor,
+                    Optional.of(streamExecutor));
+
+            exchangeClient.addLocation(location1);
+            exchangeClient.addLocation(location2);
+            exchangeClient.noMoreLocations();
+
+            // the pages of a source arrive in order
+            int positionCount = 0;
+            int lastLocation1Page = 0;
+            for (int i = 0; i < 3; i++) {
+                SerializedPage page = getNextPage(exchangeClient);
+                assertNotNull(page);
+                if (page.getPositionCount() != 3) {
+                    assertTrue(page.getPositionCount() > lastLocation1Page);
+                    lastLocation1Page = page.getPositionCount();
+                }
+                positionCount += page.getPositionCount();
+            }
+            assertEquals(positionCount, 6);
+            assertNull(getNextPage(exchangeClient));
+            assertEquals(exchangeClient.isClosed(), true);
+
+            ExchangeClientStatus status = exchangeClient.getStatus();
+            assertEquals(status.getBufferedPages(), 0);
+            assertEquals(status.getBufferedBytes(), 0);
+
+            // one stream for the pages and the done signal, and one delete request per source
+            ImmutableMap<URI, PageBufferClientStatus> statuses = uniqueIndex(status.getPageBufferClientStatuses(), PageBufferClientStatus::getUri);
+            assertStatus(statuses.get(location1), location1, "closed", 2, 2, 2, "not scheduled");
+            assertStatus(statuses.get(location2), location2, "closed", 1, 2, 2, "not scheduled");
+        }
+        finally {
+            streamExecutor.shutdownNow();
+        }
+    }
+
+    @Test(timeOut = 10000)
+    public void testStreamingWithSlowSource()
+    {
+        DataSize maxResponseSize = new DataSize(1, Unit.MEGABYTE);
+        MockExchangeRequestProcessor processor = new MockExchangeRequestProcessor(maxResponseSize);
+
+        // the slow source is added first, and holds its stream open until it is released
+        URI slowLocation = URI.create("http://localhost:8080/slow");
+        processor.addPage(slowLocation, createPage(1));
+        processor.setComplete(slowLocation);
+        CountDownLatch slowSourceReleased = new CountDownLatch(1);
+        processor.holdStreams(slowLocation, slowSourceReleased);
+
+        List<URI> locations = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            URI location = URI.create("http://localhost:" + (8081 + i) + "/fast");
+            processor.addPage(location, createPage(2));
+            processor.setComplete(location);
+            locations.add(location);
+        }
+
+        ExecutorService streamExecutor = newCachedThreadPool(daemonThreadsNamed("test-stream-%s"));
+        try {
+            @SuppressWarnings("resource")
+            ExchangeClient exchangeClient = new ExchangeClient(
+                    new DataSize(32, Unit.MEGABYTE),
+                    maxResponseSize,
+                    1,
+                    new Duration(1, TimeUnit.MINUTES),
+                    true,
+                    new TestingHttpClient(processor, scheduler),
+                    scheduler,
+                    new SimpleLocalMemoryContext(newSimpleAggregatedMemoryContext(), "test"),
+                    pageBufferClientCallbackExecutor,
+                    Optional.of(streamExecutor));
+
+            exchangeClient.addLocation(slowLocation);
+            locations.forEach(exchangeClient::addLocation);
+            exchangeClient.noMoreLocations();
+
+            // the other sources are read while the slow source holds its stream
+            for (int i = 0; i < locations.size(); i++) {
+                assertPageEquals(getNextPage(exchangeClient), createPage(2));
+            }
+            assertFalse(tryGetFutureValue(exchangeClient.isBlocked(), 10, MILLISECONDS).isPresent());
+            assertEquals(exchangeClient.isClosed(), false);
+
+            slowSourceReleased.countDown();
+            assertPageEquals(getNextPage(exchangeClient), createPage(1));
+            assertNull(getNextPage(exchangeClient));
+            assertEquals(exchangeClient.isClosed(), true);
+        }
+        finally {
+            slowSourceReleased.countDown();
+            streamExecutor.shutdownNow();
+        }
+    }
+
+    @Test(timeOut = 10000)
+    public void testStreamingFallsBackToRequests()
+    {
+        DataSize maxResponseSize = new DataSize(1, Unit.MEGABYTE);
+        MockExchangeRequestProcessor processor = new MockExchangeRequestProcessor(maxResponseSize);
+
+        URI slowLocation = URI.create("http://localhost:8081/slow");
+        processor.addPage(slowLocation, createPage(1));
+        processor.setComplete(slowLocation);
+        CountDownLatch slowSourceReleased = new CountDownLatch(1);
+        processor.holdStreams(slowLocation, slowSourceReleased);
+
+        URI location = URI.create("http://localhost:8082/fast");
+        processor.addPage(location, createPage(2));
+        processor.addPage(location, createPage(3));
+        processor.setComplete(location);
+
+        // a single stream thread, which the slow source holds
+        ThreadPoolExecutor streamExecutor = new ThreadPoolExecutor(0, 1, 60, TimeUnit.SECONDS, new SynchronousQueue<>(), daemonThreadsNamed("test-stream-%s"));
+        try {
+            @SuppressWarnings("resource")
+            ExchangeClient exchangeClient = new ExchangeClient(
+                    new DataSize(32, Unit.MEGABYTE),
+                    maxResponseSize,
+                    1,
+                    new Duration(1, TimeUnit.MINUTES),
+                    true,
+                    new TestingHttpClient(processor, scheduler),
+                    scheduler,
+                    new SimpleLocalMemoryContext(newSimpleAggregatedMemoryContext(), "test"),
+                    pageBufferClientCallbackExecutor,
+                    Optional.of(streamExecutor));
+
+            exchangeClient.addLocation(slowLocation);
+            while (streamExecutor.getActiveCount() == 0) {
+                sleepUninterruptibly(1, MILLISECONDS);
+            }
+            exchangeClient.addLocation(location);
+            exchangeClient.noMoreLocations();
+
+            // the other source is read with requests while no stream thread is free
+            assertPageEquals(getNextPage(exchangeClient), createPage(2));
+            assertPageEquals(getNextPage(exchangeClient), createPage(3));
+            assertFalse(tryGetFutureValue(exchangeClient.isBlocked(), 10, MILLISECONDS).isPresent());
+
+            slowSourceReleased.countDown();
+            assertPageEquals(getNextPage(exchangeClient), createPage(1));
+            assertNull(getNextPage(exchangeClient));
+            assertEquals(exchangeClient.isClosed(), true);
+
+            ImmutableMap<URI, PageBufferClientStatus> statuses = uniqueIndex(exchangeClient.getStatus().getPageBufferClientStatuses(), PageBufferClientStatus::getUri);
+            assertEquals(statuses.get(location).getPagesReceived(), 2);
+            assertEquals(statuses.get(slowLocation).getPagesReceived(), 1);
+        }
+        finally {
+            slowSourceReleased.countDown();
+            streamExecutor.shutdownNow();
+        }
+    }
+
+    @Test(timeOut = 10000)
+    public void testSharedDictionaries()
+    {
+        // a partitioned output sends every dictionary once to each destination, and releases it when the next page does not use it
+        List<Type> types = ImmutableList.of(BIGINT, VARCHAR);
+        OutputBuffers outputBuffers = createInitialEmptyOutputBuffers(PARTITIONED)
+                .withBuffer(new OutputBufferId(0), 0)
+                .withBuffer(new OutputBufferId(1), 1)
+                .withNoMoreBufferIds();
+        PartitionedOutputBuffer outputBuffer = new PartitionedOutputBuffer(
+                "task-instance-id",
+                new StateMachine<>("bufferState", scheduler, OPEN, TERMINAL_BUFFER_STATES),
+                outputBuffers,
+                new DataSize(1, Unit.MEGABYTE),
+                () -> new SimpleLocalMemoryContext(newSimpleAggregatedMemoryContext(), "test"),
+                scheduler);
+        PartitionedOutputFactory outputFactory = new PartitionedOutputFactory(
+                new LocalPartitionGenerator(new InterpretedHashGenerator(ImmutableList.of(BIGINT), new int[] {0}), 2),
+                ImmutableList.of(0),
+                ImmutableList.of(Optional.empty()),
+                false,
+                OptionalInt.empty(),
+                outputBuffer,
+                // small pages, so every input page is sent before the next one
+                new DataSize(400, Unit.BYTE),
+                true);
+        Operator outputOperator = outputFactory
+                .createOutputOperator(0, new PlanNodeId("test"), types, Function.identity(), new TestingPagesSerdeFactory())
+                .createOperator(createTaskContext(scheduler, scheduler, TEST_SESSION).addPipelineContext(0, true, true, false).addDriverContext());
+        outputOperator.addInput(createSharedDictionaryInput(0, true));
+        outputOperator.addInput(createSharedDictionaryInput(100, true));
+        outputOperator.addInput(createSharedDictionaryInput(200, false));
+        outputOperator.finish();
+
+        DataSize maxResponseSize = new DataSize(10, Unit.MEGABYTE);
+        MockExchangeRequestProcessor processor = new MockExchangeRequestProcessor(maxResponseSize);
+        List<URI> locations = ImmutableList.of(URI.create("http://localhost:8081/0"), URI.create("http://localhost:8082/1"));
+        int serializedPageCount = 0;
+        for (int partition = 0; partition < locations.size(); partition++) {
+            List<SerializedPage> serializedPages = getFutureValue(outputBuffer.get(new OutputBufferId(partition), 0, maxResponseSize)).getSerializedPages();
+            // definition and page, definition, page and release, page and release
+            assertEquals(serializedPages.size(), 7);
+            assertEquals(serializedPages.stream().filter(SerializedPage::isSharedDictionaryPage).count(), 4);
+            for (SerializedPage serializedPage : serializedPages) {
+                processor.addPage(locations.get(partition), serializedPage);
+            }
+            serializedPageCount += serializedPages.size();
+        }
+
+        LocalMemoryContext systemMemoryContext = new SimpleLocalMemoryContext(newSimpleAggregatedMemoryContext(), "test");
+        @SuppressWarnings("resource")
+        ExchangeClient exchangeClient = new ExchangeClient(
+                new DataSize(32, Unit.MEGABYTE),
+                maxResponseSize,
+                1,
+                new Duration(1, TimeUnit.MINUTES),
+                true,
+                new TestingHttpClient(processor, scheduler),
+                scheduler,
+                systemMemoryContext,
+                pageBufferClientCallbackExecutor);
+        locations.forEach(exchangeClient::addLocation);
+        while (exchangeClient.getStatus().getPageBufferClientStatuses().stream().mapToInt(PageBufferClientStatus::getPagesReceived).sum() < serializedPageCount) {
+            sleepUninterruptibly(1, MILLISECONDS);
+        }
+
+        // the definitions and releases do not reach the consumer, but their memory is accounted until the pages referencing the dictionaries are read
+        List<SerializedPage> serializedPages = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            serializedPages.add(getNextPage(exchangeClient));
+        }
+        SharedDictionaries sharedDictionaries = exchangeClient.getSharedDictionaries();
+        assertGreaterThan(sharedDictionaries.getRetainedSizeInBytes(), 0L);
+        assertEquals(systemMemoryContext.getBytes(), sharedDictionaries.getRetainedSizeInBytes());
+
+        int rows = 0;
+        int dictionaryPages = 0;
+        for (SerializedPage serializedPage : serializedPages) {
+            Page page = PAGES_SERDE.deserialize(serializedPage, sharedDictionaries);
+            Block block = page.getBlock(1);
+            if (serializedPage.hasDictionaryReferences()) {
+                // the dictionary block reaches the consumer with the dictionary that was sent once
+                assertTrue(block instanceof DictionaryBlock);
+                assertEquals(((DictionaryBlock) block).getDictionary().getPositionCount(), 3);
+                dictionaryPages++;
+            }
+            for (int position = 0; position < page.getPositionCount(); position++) {
+                long key = BIGINT.getLong(page.getBlock(0), position);
+                assertEquals(VARCHAR.getSlice(block, position).toStringUtf8(), getSharedDictionaryValue((int) key));
+            }
+            rows += page.getPositionCount();
+        }
+        assertEquals(dictionaryPages, 4);
+        assertEquals(rows, 300);
+
+        // the released dictionaries are dropped once all references are read, before the sources finish
+        assertEquals(sharedDictionaries.getRetainedSizeInBytes(), 0);
+        assertNull(exchangeClient.pollPage());
+        assertEquals(systemMemoryContext.getBytes(), 0);
+        assertFalse(exchangeClient.isClosed());
+
+        locations.forEach(processor::setComplete);
+        exchangeClient.noMoreLocations();
+        assertNull(getNextPage(exchangeClient));
+        assertEquals(exchangeClient.isClosed(), true);
+    }
+
     @Test(timeOut = 10000)
     public void testAddLocation()
             throws Exception
@@ -325,6 +645,33 @@ public class TestExchangeClient
         return new Page(BlockAssertions.createLongSequenceBlock(0, size));
     }
 
+    /**
+     * The rows with the keys {@code start} to {@code start + 100}, with values derived from the keys,
+     * in a dictionary block or in a flat block.
+     */
+    private static Page createSharedDictionaryInput(int start, boolean dictionary)
+    {
+        Block keys = BlockAssertions.createLongSequenceBlock(start, start + 100);
+        if (dictionary) {
+            int[] ids = new int[100];
+            for (int i = 0; i < ids.length; i++) {
+                ids[i] = (start + i) % 3;
+            }
+            Block values = BlockAssertions.createStringsBlock(getSharedDictionaryValue(start), getSharedDictionaryValue(start + 1), getSharedDictionaryValue(start + 2));
+            return new Page(keys, new DictionaryBlock(values, ids));
+        }
+        List<String> values = new ArrayList<>();
+        for (int key = start; key < start + 100; key++) {
+            values.add(getSharedDictionaryValue(key));
+        }
+        return new Page(keys, BlockAssertions.createStringsBlock(values));
+    }
+
+    private static String getSharedDictionaryValue(int key)
+    {
+        return "abc".charAt(key / 100) + String.valueOf(key % 3);
+    }
+
     private static SerializedPage getNextPage(ExchangeClient exchangeClient)
     {
         ListenableFuture<SerializedPage> futurePage = Futures.transform(exchangeClient.isBlocked(), ignored -> exchangeClient.pollPage(), directExecutor());
@@ -24,8 +24,10 @@ import io.prestosql.RowPagesBuilder;
 import io.prestosql.memory.context.AggregatedMemoryContext;
 import io.prestosql.metadata.Metadata;
 import io.prestosql.metadata.Signature;
+import io.prestosql.operator.HashAggregationOperator.HashAggregationInfo;
 import io.prestosql.operator.HashAggregationOperator.HashAggregationOperatorFactory;
 import io.prestosql.operator.aggregation.InternalAggregationFunction;
+import io.prestosql.operator.aggregation.PartialAggregationController;
 import io.prestosql.operator.aggregation.builder.HashAggregationBuilder;
 import io.prestosql.operator.aggregation.builder.InMemoryHashAggregationBuilder;
 import io.prestosql.spi.Page;
@@ -579,6 +581,64 @@ public class TestHashAggregationOperator
         assertEquals(driverContext.getMemoryUsage(), 0);
     }
 
+    @Test(dataProvider = "hashEnabled")
+    public void testAdaptivePartialAggregation(boolean hashEnabled)
+            throws Exception
+    {
+        List<Integer> hashChannels = Ints.asList(0);
+        RowPagesBuilder rowPagesBuilder = rowPagesBuilder(hashEnabled, hashChannels, BIGINT);
+        List<Page> input = rowPagesBuilder
+                .addSequencePage(10, 0)
+                .addSequencePage(10, 0)
+                .addSequencePage(10, 0)
+                .build();
+
+        // every row of the first page is a distinct group, which disables partial aggregation
+        PartialAggregationController partialAggregationController = new PartialAggregationController(5, 0.8);
+        HashAggregationOperatorFactory operatorFactory = new HashAggregationOperatorFactory(
+                0,
+                new PlanNodeId("test"),
+                ImmutableList.of(BIGINT),
+                hashChannels,
+                ImmutableList.of(),
+                Step.PARTIAL,
+                false,
+                ImmutableList.of(LONG_SUM.bind(ImmutableList.of(0), Optional.empty()), COUNT.bind(ImmutableList.of(0), Optional.empty())),
+                rowPagesBuilder.getHashChannel(),
+                Optional.empty(),
+                100_000,
+                Optional.of(new DataSize(1, Unit.BYTE)),
+                false,
+                new DataSize(0, MEGABYTE),
+                spillerFactory,
+                joinCompiler,
+                true,
+                Optional.of(partialAggregationController));
+
+        DriverContext driverContext = createDriverContext();
+
+        MaterializedResult.Builder expected = resultBuilder(driverContext.getSession(), BIGINT, BIGINT, BIGINT);
+        for (int i = 0; i < 3; i++) {
+            for (long value = 0; value < 10; value++) {
+                expected.row(value, value, 1L);
+            }
+        }
+
+        try (Operator operator = operatorFactory.createOperator(driverContext)) {
+            List<Page> outputPages = toPages(operator, input.iterator());
+            assertTrue(partialAggregationController.isPartialAggregationDisabled());
+            if (hashEnabled) {
+                outputPages = dropChannel(outputPages, ImmutableList.of(1));
+            }
+            MaterializedResult actual = toMaterializedResult(driverContext.getSession(), ImmutableList.of(BIGINT, BIGINT, BIGINT), outputPages);
+            assertEqualsIgnoreOrder(actual.getMaterializedRows(), expected.build().getMaterializedRows());
+
+            HashAggregationInfo info = (HashAggregationInfo) operator.getOperatorContext().getOperatorStats().getInfo();
+            assertTrue(info.isPartialAggregationDisabled());
+            assertEquals(info.getPassThroughPositions(), 20);
+        }
+    }
+
     @Test
     public void testMergeWithMemorySpill()
     {
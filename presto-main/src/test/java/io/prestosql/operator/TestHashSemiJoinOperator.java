@@ -13,15 +13,22 @@
  */
 package io.prestosql.operator;
 
+import com.google.common.collect.ConcurrentHashMultiset;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSortedMultiset;
+import com.google.common.collect.Multiset;
 import com.google.common.primitives.Ints;
 import io.airlift.units.DataSize;
 import io.prestosql.ExceededMemoryLimitException;
 import io.prestosql.RowPagesBuilder;
+import io.prestosql.memory.context.AggregatedMemoryContext;
 import io.prestosql.operator.HashSemiJoinOperator.HashSemiJoinOperatorFactory;
 import io.prestosql.operator.SetBuilderOperator.SetBuilderOperatorFactory;
 import io.prestosql.spi.Page;
 import io.prestosql.spi.type.Type;
+import io.prestosql.spiller.GenericPartitioningSpillerFactory;
+import io.prestosql.spiller.PartitioningSpiller;
+import io.prestosql.spiller.PartitioningSpillerFactory;
 import io.prestosql.sql.gen.JoinCompiler;
 import io.prestosql.sql.planner.plan.PlanNodeId;
 import io.prestosql.testing.MaterializedResult;
@@ -30,13 +37,20 @@ import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.function.IntPredicate;
+import java.util.stream.IntStream;
 
 import static com.google.common.collect.Iterables.concat;
+import static io.airlift.concurrent.MoreFutures.getFutureValue;
 import static io.airlift.concurrent.Threads.daemonThreadsNamed;
+import static io.airlift.testing.Assertions.assertEqualsIgnoreOrder;
 import static io.airlift.testing.Assertions.assertGreaterThan;
 import static io.airlift.testing.Assertions.assertGreaterThanOrEqual;
 import static io.airlift.units.DataSize.Unit.BYTE;
@@ -48,11 +62,15 @@ import static io.prestosql.operator.GroupByHashYieldAssertion.finishOperatorWith
 import static io.prestosql.spi.type.BigintType.BIGINT;
 import static io.prestosql.spi.type.BooleanType.BOOLEAN;
 import static io.prestosql.spi.type.VarcharType.VARCHAR;
+import static io.prestosql.spiller.PartitioningSpillerFactory.unsupportedPartitioningSpillerFactory;
 import static io.prestosql.testing.MaterializedResult.resultBuilder;
 import static io.prestosql.testing.TestingTaskContext.createTaskContext;
+import static java.util.Objects.requireNonNull;
 import static java.util.concurrent.Executors.newCachedThreadPool;
 import static java.util.concurrent.Executors.newScheduledThreadPool;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
 
 @Test(singleThreaded = true)
 public class TestHashSemiJoinOperator
@@ -112,7 +130,9 @@ public class TestHashSemiJoinOperator
                 0,
                 rowPagesBuilder.getHashChannel(),
                 10,
-                new JoinCompiler(createTestMetadataManager()));
+                new JoinCompiler(createTestMetadataManager()),
+                false,
+                unsupportedPartitioningSpillerFactory());
         Operator setBuilderOperator = setBuilderOperatorFactory.createOperator(driverContext);
 
         Driver driver = Driver.createDriver(driverContext, buildOperator, setBuilderOperator);
@@ -176,7 +196,9 @@ public class TestHashSemiJoinOperator
                 0,
                 rowPagesBuilder.getHashChannel(),
                 10,
-                new JoinCompiler(createTestMetadataManager()));
+                new JoinCompiler(createTestMetadataManager()),
+                false,
+                unsupportedPartitioningSpillerFactory());
         Operator setBuilderOperator = setBuilderOperatorFactory.createOperator(driverContext);
 
         Driver driver = Driver.createDriver(driverContext, buildOperator, setBuilderOperator);
@@ -230,7 +252,9 @@ public class TestHashSemiJoinOperator
                 0,
                 Optional.of(1),
                 10,
-                new JoinCompiler(createTestMetadataManager()));
+                new JoinCompiler(createTestMetadataManager()),
+                false,
+                unsupportedPartitioningSpillerFactory());
 
         // run test
         GroupByHashYieldAssertion.GroupByHashYieldResult result = finishOperatorWithYieldingGroupByHash(
@@ -269,7 +293,9 @@ public class TestHashSemiJoinOperator
                 0,
                 rowPagesBuilder.getHashChannel(),
                 10,
-                new JoinCompiler(createTestMetadataManager()));
+                new JoinCompiler(createTestMetadataManager()),
+                false,
+                unsupportedPartitioningSpillerFactory());
         Operator setBuilderOperator = setBuilderOperatorFactory.createOperator(driverContext);
 
         Driver driver = Driver.createDriver(driverContext, buildOperator, setBuilderOperator);
@@ -324,7 +350,9 @@ public class TestHashSemiJoinOperator
                 0,
                 rowPagesBuilder.getHashChannel(),
                 10,
-                new JoinCompiler(createTestMetadataManager()));
+                new JoinCompiler(createTestMetadataManager()),
+                false,
+                unsupportedPartitioningSpillerFactory());
         Operator setBuilderOperator = setBuilderOperatorFactory.createOperator(driverContext);
 
         Driver driver = Driver.createDriver(driverContext, buildOperator, setBuilderOperator);
@@ -383,7 +411,9 @@ public class TestHashSemiJoinOperator
                 0,
                 rowPagesBuilder.getHashChannel(),
                 10,
-                new JoinCompiler(createTestMetadataManager()));
+                new JoinCompiler(createTestMetadataManager()),
+                false,
+                unsupportedPartitioningSpillerFactory());
         Operator setBuilderOperator = setBuilderOperatorFactory.createOperator(driverContext);
 
         Driver driver = Driver.createDriver(driverContext, buildOperator, setBuilderOperator);
@@ -420,6 +450,225 @@ public class TestHashSemiJoinOperator
         OperatorAssertion.assertOperatorEquals(joinOperatorFactory, driverContext, probeInput, expected, hashEnabled, ImmutableList.of(probeTypes.size()));
     }
 
+    @Test(dataProvider = "hashEnabledValues")
+    public void testSemiJoinWithSpill(boolean hashEnabled)
+            throws Exception
+    {
+        DriverContext driverContext = taskContext.addPipelineContext(0, true, true, false).addDriverContext();
+
+        // build, spilling the set after each page
+        RowPagesBuilder rowPagesBuilder = rowPagesBuilder(hashEnabled, Ints.asList(0), BIGINT);
+        List<Page> buildInput = rowPagesBuilder
+                .row(10L)
+                .row(30L)
+                .row(30L)
+                .row(35L)
+                .pageBreak()
+                .row(36L)
+                .row(37L)
+                .row(50L)
+                .row((Object) null)
+                .build();
+        DummySingleStreamSpillerFactory spillerFactory = new DummySingleStreamSpillerFactory();
+        SetBuilderOperatorFactory setBuilderOperatorFactory = new SetBuilderOperatorFactory(
+                1,
+                new PlanNodeId("test"),
+                rowPagesBuilder.getTypes().get(0),
+                0,
+                rowPagesBuilder.getHashChannel(),
+                10,
+                new JoinCompiler(createTestMetadataManager()),
+                true,
+                new GenericPartitioningSpillerFactory(spillerFactory));
+        try (Operator setBuilderOperator = setBuilderOperatorFactory.createOperator(driverContext)) {
+            setBuilderOperatorFactory.noMoreOperators();
+            for (Page page : buildInput) {
+                assertTrue(setBuilderOperator.needsInput());
+                setBuilderOperator.addInput(page);
+                getFutureValue(setBuilderOperator.startMemoryRevoke());
+                setBuilderOperator.finishMemoryRevoke();
+            }
+            while (!setBuilderOperator.isFinished()) {
+                setBuilderOperator.finish();
+            }
+        }
+        assertTrue(setBuilderOperatorFactory.getSetProvider().getSpilledChannelSet().isPresent());
+
+        // probe
+        List<Type> probeTypes = ImmutableList.of(BIGINT, BIGINT);
+        RowPagesBuilder rowPagesBuilderProbe = rowPagesBuilder(hashEnabled, Ints.asList(0), BIGINT, BIGINT);
+        List<Page> probeInput = rowPagesBuilderProbe
+                .addSequencePage(10, 30, 0)
+                .row(null, 10L)
+                .build();
+        Optional<Integer> probeHashChannel = hashEnabled ? Optional.of(probeTypes.size()) : Optional.empty();
+        HashSemiJoinOperatorFactory joinOperatorFactory = new HashSemiJoinOperatorFactory(
+                2,
+                new PlanNodeId("test"),
+                setBuilderOperatorFactory.getSetProvider(),
+                rowPagesBuilderProbe.getTypes(),
+                0,
+                probeHashChannel);
+
+        // the build side contains null, so values that are not found are unknown
+        MaterializedResult expected = resultBuilder(driverContext.getSession(), concat(probeTypes, ImmutableList.of(BOOLEAN)))
+                .row(30L, 0L, true)
+                .row(31L, 1L, null)
+                .row(32L, 2L, null)
+                .row(33L, 3L, null)
+                .row(34L, 4L, null)
+                .row(35L, 5L, true)
+                .row(36L, 6L, true)
+                .row(37L, 7L, true)
+                .row(38L, 8L, null)
+                .row(39L, 9L, null)
+                .row(null, 10L, null)
+                .build();
+
+        // the spilled partitions are joined after the probe input, so the order of the rows changes
+        OperatorAssertion.assertOperatorEqualsIgnoreOrder(joinOperatorFactory, driverContext, probeInput, expected, hashEnabled, Optional.of(probeTypes.size()));
+        assertGreaterThan(spillerFactory.getSpillsCount(), 0L);
+    }
+
+    @Test(dataProvider = "hashEnabledValues")
+    public void testSemiJoinWithSpillAndManyProbes(boolean hashEnabled)
+            throws Exception
+    {
+        PipelineContext buildPipeline = taskContext.addPipelineContext(0, true, true, false);
+        PipelineContext probePipeline = taskContext.addPipelineContext(1, true, true, false);
+
+        RowPagesBuilder rowPagesBuilder = rowPagesBuilder(hashEnabled, Ints.asList(0), BIGINT);
+        List<Page> buildInput = rowPagesBuilder
+                .addSequencePage(50, 0)
+                .addSequencePage(50, 100)
+                .build();
+        CountingPartitioningSpillerFactory spillerFactory = new CountingPartitioningSpillerFactory(new GenericPartitioningSpillerFactory(new DummySingleStreamSpillerFactory()));
+        SetBuilderOperatorFactory setBuilderOperatorFactory = buildSet(buildPipeline.addDriverContext(), rowPagesBuilder, buildInput, true, spillerFactory);
+        assertTrue(setBuilderOperatorFactory.getSetProvider().getSpilledChannelSet().isPresent());
+        assertEquals(spillerFactory.getSpillers().size(), 1);
+        CountingPartitioningSpiller valuesSpiller = spillerFactory.getSpillers().get(0);
+
+        // the probe rows are split among the probe operators; the third one is closed before it finishes, the fourth one has no rows
+        List<Type> probeTypes = ImmutableList.of(BIGINT, BIGINT);
+        RowPagesBuilder rowPagesBuilderProbe = rowPagesBuilder(hashEnabled, Ints.asList(0), probeTypes);
+        List<Page> firstProbeInput = rowPagesBuilder(hashEnabled, Ints.asList(0), probeTypes)
+                .addSequencePage(100, 0, 0)
+                .build();
+        List<Page> secondProbeInput = rowPagesBuilder(hashEnabled, Ints.asList(0), probeTypes)
+                .addSequencePage(100, 100, 100)
+                .row(null, 200L)
+                .build();
+        List<Page> closedProbeInput = rowPagesBuilder(hashEnabled, Ints.asList(0), probeTypes)
+                .addSequencePage(10, 200, 200)
+                .build();
+        Optional<Integer> probeHashChannel = hashEnabled ? Optional.of(probeTypes.size()) : Optional.empty();
+        List<Type> outputTypes = ImmutableList.copyOf(concat(rowPagesBuilderProbe.getTypes(), ImmutableList.of(BOOLEAN)));
+
+        HashSemiJoinOperatorFactory joinOperatorFactory = new HashSemiJoinOperatorFactory(
+                2,
+                new PlanNodeId("test"),
+                setBuilderOperatorFactory.getSetProvider(),
+                rowPagesBuilderProbe.getTypes(),
+                0,
+                probeHashChannel);
+        Operator firstProbe = joinOperatorFactory.createOperator(probePipeline.addDriverContext());
+        Operator secondProbe = joinOperatorFactory.createOperator(probePipeline.addDriverContext());
+        Operator closedProbe = joinOperatorFactory.createOperator(probePipeline.addDriverContext());
+        Operator emptyProbe = joinOperatorFactory.createOperator(probePipeline.addDriverContext());
+        joinOperatorFactory.noMoreOperators();
+
+        // the probe rows are spilled, so no rows are produced before all probe operators have finished spilling
+        ImmutableList.Builder<Page> output = ImmutableList.builder();
+        output.addAll(OperatorAssertion.toPagesPartial(firstProbe, firstProbeInput.iterator()));
+        output.addAll(OperatorAssertion.toPagesPartial(secondProbe, secondProbeInput.iterator()));
+        assertTrue(OperatorAssertion.toPagesPartial(closedProbe, closedProbeInput.iterator()).isEmpty());
+        assertEquals(spillerFactory.getSpillers().size(), 4);
+        CountingPartitioningSpiller closedProbeSpiller = spillerFactory.getSpillers().get(3);
+        closedProbe.close();
+        assertTrue(closedProbeSpiller.isClosed());
+
+        // the remaining probe operators join the spilled partitions together
+        List<Operator> probes = ImmutableList.of(firstProbe, secondProbe, emptyProbe);
+        for (int loops = 0; !probes.stream().allMatch(Operator::isFinished) && loops < 1_000; loops++) {
+            for (Operator probe : probes) {
+                if (probe.isFinished()) {
+                    continue;
+                }
+                probe.finish();
+                Page page = probe.getOutput();
+                if (page != null) {
+                    output.add(page);
+                }
+            }
+        }
+        for (Operator probe : probes) {
+            assertTrue(probe.isFinished(), "Probe operator did not finish");
+        }
+
+        // every spilled partition of the set and of the finished probe operators is unspilled exactly once
+        Multiset<Integer> allPartitions = ImmutableSortedMultiset.copyOf(IntStream.range(0, SpilledChannelSet.SPILL_PARTITION_COUNT).boxed().iterator());
+        assertEquals(valuesSpiller.getReadPartitions(), allPartitions);
+        assertEquals(spillerFactory.getSpillers().get(1).getReadPartitions(), allPartitions);
+        assertEquals(spillerFactory.getSpillers().get(2).getReadPartitions(), allPartitions);
+        assertTrue(closedProbeSpiller.getReadPartitions().isEmpty());
+
+        // the spilled set is released once the last probe operator is closed
+        firstProbe.close();
+        secondProbe.close();
+        assertFalse(valuesSpiller.isClosed());
+        emptyProbe.close();
+        for (CountingPartitioningSpiller spiller : spillerFactory.getSpillers()) {
+            assertTrue(spiller.isClosed());
+        }
+
+        // the rows of the finished probe operators are joined as if the set was not spilled
+        SetBuilderOperatorFactory inMemorySetBuilderOperatorFactory = buildSet(buildPipeline.addDriverContext(), rowPagesBuilder, buildInput, false, unsupportedPartitioningSpillerFactory());
+        assertTrue(inMemorySetBuilderOperatorFactory.getSetProvider().getChannelSet().isPresent());
+        HashSemiJoinOperatorFactory inMemoryJoinOperatorFactory = new HashSemiJoinOperatorFactory(
+                2,
+                new PlanNodeId("test"),
+                inMemorySetBuilderOperatorFactory.getSetProvider(),
+                rowPagesBuilderProbe.getTypes(),
+                0,
+                probeHashChannel);
+        DriverContext driverContext = probePipeline.addDriverContext();
+        List<Page> expected = OperatorAssertion.toPages(inMemoryJoinOperatorFactory, driverContext, ImmutableList.copyOf(concat(firstProbeInput, secondProbeInput)));
+        assertEqualsIgnoreOrder(
+                OperatorAssertion.toMaterializedResult(driverContext.getSession(), outputTypes, output.build()).getMaterializedRows(),
+                OperatorAssertion.toMaterializedResult(driverContext.getSession(), outputTypes, expected).getMaterializedRows());
+    }
+
+    private static SetBuilderOperatorFactory buildSet(DriverContext driverContext, RowPagesBuilder rowPagesBuilder, List<Page> buildInput, boolean spillEnabled, PartitioningSpillerFactory spillerFactory)
+            throws Exception
+    {
+        SetBuilderOperatorFactory setBuilderOperatorFactory = new SetBuilderOperatorFactory(
+                1,
+                new PlanNodeId("test"),
+                rowPagesBuilder.getTypes().get(0),
+                0,
+                rowPagesBuilder.getHashChannel(),
+                10,
+                new JoinCompiler(createTestMetadataManager()),
+                spillEnabled,
+                spillerFactory);
+        try (Operator setBuilderOperator = setBuilderOperatorFactory.createOperator(driverContext)) {
+            setBuilderOperatorFactory.noMoreOperators();
+            for (Page page : buildInput) {
+                assertTrue(setBuilderOperator.needsInput());
+                setBuilderOperator.addInput(page);
+                if (spillEnabled) {
+                    // spill the set after each page
+                    getFutureValue(setBuilderOperator.startMemoryRevoke());
+                    setBuilderOperator.finishMemoryRevoke();
+                }
+            }
+            while (!setBuilderOperator.isFinished()) {
+                setBuilderOperator.finish();
+            }
+        }
+        return setBuilderOperatorFactory;
+    }
+
     @Test(dataProvider = "hashEnabledValues", expectedExceptions = ExceededMemoryLimitException.class, expectedExceptionsMessageRegExp = "Query exceeded per-node user memory limit of.*")
     public void testMemoryLimit(boolean hashEnabled)
     {
@@ -440,7 +689,9 @@ public class TestHashSemiJoinOperator
                 0,
                 rowPagesBuilder.getHashChannel(),
                 10,
-                new JoinCompiler(createTestMetadataManager()));
+                new JoinCompiler(createTestMetadataManager()),
+                false,
+                unsupportedPartitioningSpillerFactory());
         Operator setBuilderOperator = setBuilderOperatorFactory.createOperator(driverContext);
 
         Driver driver = Driver.createDriver(driverContext, buildOperator, setBuilderOperator);
@@ -448,4 +699,79 @@ public class TestHashSemiJoinOperator
             driver.process();
         }
     }
+
+    private static class CountingPartitioningSpillerFactory
+            implements PartitioningSpillerFactory
+    {
+        private final PartitioningSpillerFactory delegate;
+        private final List<CountingPartitioningSpiller> spillers = new ArrayList<>();
+
+        public CountingPartitioningSpillerFactory(PartitioningSpillerFactory delegate)
+        {
+            this.delegate = requireNonNull(delegate, "delegate is null");
+        }
+
+        @Override
+        public synchronized PartitioningSpiller create(List<Type> types, PartitionFunction partitionFunction, SpillContext spillContext, AggregatedMemoryContext memoryContext)
+        {
+            CountingPartitioningSpiller spiller = new CountingPartitioningSpiller(delegate.create(types, partitionFunction, spillContext, memoryContext));
+            spillers.add(spiller);
+            return spiller;
+        }
+
+        public synchronized List<CountingPartitioningSpiller> getSpillers()
+        {
+            return ImmutableList.copyOf(spillers);
+        }
+    }
+
+    private static class CountingPartitioningSpiller
+            implements PartitioningSpiller
+    {
+        private final PartitioningSpiller delegate;
+        private final Multiset<Integer> readPartitions = ConcurrentHashMultiset.create();
+        private volatile boolean closed;
+
+        public CountingPartitioningSpiller(PartitioningSpiller delegate)
+        {
+            this.delegate = requireNonNull(delegate, "delegate is null");
+        }
+
+        @Override
+        public PartitioningSpillResult partitionAndSpill(Page page, IntPredicate spillPartitionMask)
+        {
+            return delegate.partitionAndSpill(page, spillPartitionMask);
+        }
+
+        @Override
+        public Iterator<Page> getSpilledPages(int partition)
+        {
+            readPartitions.add(partition);
+            return delegate.getSpilledPages(partition);
+        }
+
+        @Override
+        public void verifyAllPartitionsRead()
+        {
+            delegate.verifyAllPartitionsRead();
+        }
+
+        @Override
+        public void close()
+                throws IOException
+        {
+            closed = true;
+            delegate.close();
+        }
+
+        public Multiset<Integer> getReadPartitions()
+        {
+            return ImmutableSortedMultiset.copyOf(readPartitions);
+        }
+
+        public boolean isClosed()
+        {
+            return closed;
+        }
+    }
 }
@@ -36,6 +36,7 @@ import java.net.URI;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Optional;
 import java.util.concurrent.BrokenBarrierException;
 import java.util.concurrent.CyclicBarrier;
 import java.util.concurrent.ExecutorService;
@@ -57,6 +58,7 @@ import static io.prestosql.spi.StandardErrorCode.PAGE_TOO_LARGE;
 import static io.prestosql.spi.StandardErrorCode.PAGE_TRANSPORT_ERROR;
 import static io.prestosql.spi.StandardErrorCode.PAGE_TRANSPORT_TIMEOUT;
 import static io.prestosql.util.Failures.WORKER_NODE_ERROR;
+import static java.util.concurrent.Executors.newCachedThreadPool;
 import static java.util.concurrent.Executors.newScheduledThreadPool;
 import static org.testng.Assert.assertEquals;
 
@@ -64,6 +66,7 @@ public class TestHttpPageBufferClient
 {
     private ScheduledExecutorService scheduler;
     private ExecutorService pageBufferClientCallbackExecutor;
+    private ExecutorService streamExecutor;
 
     private static final PagesSerde PAGES_SERDE = testingPagesSerde();
 
@@ -72,6 +75,7 @@ public class TestHttpPageBufferClient
     {
         scheduler = newScheduledThreadPool(4, daemonThreadsNamed("test-%s"));
         pageBufferClientCallbackExecutor = Executors.newSingleThreadExecutor();
+        streamExecutor = newCachedThreadPool(daemonThreadsNamed("test-stream-%s"));
     }
 
     @AfterClass(alwaysRun = true)
@@ -85,6 +89,10 @@ public class TestHttpPageBufferClient
             pageBufferClientCallbackExecutor.shutdownNow();
             pageBufferClientCallbackExecutor = null;
         }
+        if (streamExecutor != null) {
+            streamExecutor.shutdownNow();
+            streamExecutor = null;
+        }
     }
 
     @Test
@@ -173,6 +181,85 @@ public class TestHttpPageBufferClient
         assertStatus(client, location, "closed", 3, 5, 5, 0, "not scheduled");
     }
 
+    @Test
+    public void testStreaming()
+            throws Exception
+    {
+        Page expectedPage = new Page(100);
+
+        MockExchangeRequestProcessor processor = new MockExchangeRequestProcessor(new DataSize(10, Unit.MEGABYTE));
+
+        CyclicBarrier requestComplete = new CyclicBarrier(2);
+
+        TestingClientCallback callback = new TestingClientCallback(requestComplete);
+
+        URI location = URI.create("http://localhost:8080");
+        HttpPageBufferClient client = new HttpPageBufferClient(new TestingHttpClient(processor, scheduler),
+                new DataSize(10, Unit.MEGABYTE),
+                new Duration(1, TimeUnit.MINUTES),
+                true,
+                location,
+                callback,
+                scheduler,
+                Optional.of(streamExecutor),
+                pageBufferClientCallbackExecutor);
+
+        assertStatus(client, location, "queued", 0, 0, 0, 0, "not scheduled");
+
+        // stream all available pages with a single request
+        processor.addPage(location, expectedPage);
+        processor.addPage(location, expectedPage);
+        processor.addPage(location, expectedPage);
+        callback.resetStats();
+        client.scheduleRequest();
+        requestComplete.await(10, TimeUnit.SECONDS);
+
+        assertEquals(callback.getPages().size(), 3);
+        assertPageEquals(expectedPage, callback.getPages().get(0));
+        assertPageEquals(expectedPage, callback.getPages().get(2));
+        assertEquals(callback.getCompletedRequests(), 1);
+        assertEquals(callback.getFinishedBuffers(), 0);
+        assertStatus(client, location, "queued", 3, 1, 1, 0, "not scheduled");
+
+        // the stream ends once the credit is used
+        processor.addPage(location, expectedPage);
+        processor.addPage(location, expectedPage);
+        callback.resetStats();
+        client.scheduleRequest(new DataSize(1, Unit.BYTE));
+        requestComplete.await(10, TimeUnit.SECONDS);
+
+        assertEquals(callback.getPages().size(), 1);
+        assertEquals(callback.getCompletedRequests(), 1);
+        assertStatus(client, location, "queued", 4, 2, 2, 0, "not scheduled");
+
+        // the next stream continues from the last page received
+        callback.resetStats();
+        client.scheduleRequest();
+        requestComplete.await(10, TimeUnit.SECONDS);
+
+        assertEquals(callback.getPages().size(), 1);
+        assertEquals(callback.getCompletedRequests(), 1);
+        assertStatus(client, location, "queued", 5, 3, 3, 0, "not scheduled");
+
+        // finish and verify
+        callback.resetStats();
+        processor.setComplete(location);
+        client.scheduleRequest();
+        requestComplete.await(10, TimeUnit.SECONDS);
+
+        assertEquals(callback.getPages().size(), 0);
+        assertEquals(callback.getCompletedRequests(), 1);
+
+        // schedule the delete call to the buffer
+        callback.resetStats();
+        client.scheduleRequest();
+        requestComplete.await(10, TimeUnit.SECONDS);
+        assertEquals(callback.getFinishedBuffers(), 1);
+        assertEquals(callback.getFailedBuffers(), 0);
+
+        assertStatus(client, location, "closed", 5, 5, 5, 0, "not scheduled");
+    }
+
     @Test
     public void testLifecycle()
             throws Exception
@@ -0,0 +1,64 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.operator;
+
+import org.testng.annotations.Test;
+
+import static io.airlift.testing.Assertions.assertLessThan;
+import static io.prestosql.spi.type.BigintType.BIGINT;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class TestJoinBloomFilter
+{
+    private static final int VALUE_COUNT = 100_000;
+
+    @Test
+    public void testEmpty()
+    {
+        JoinBloomFilter bloomFilter = new JoinBloomFilter(0);
+        for (long value = 0; value < 100; value++) {
+            assertFalse(bloomFilter.mightContain(BIGINT.hash(value)));
+        }
+    }
+
+    @Test
+    public void testNoFalseNegatives()
+    {
+        JoinBloomFilter bloomFilter = new JoinBloomFilter(VALUE_COUNT);
+        for (long value = 0; value < VALUE_COUNT; value++) {
+            bloomFilter.add(BIGINT.hash(value));
+        }
+        for (long value = 0; value < VALUE_COUNT; value++) {
+            assertTrue(bloomFilter.mightContain(BIGINT.hash(value)));
+        }
+    }
+
+    @Test
+    public void testFalsePositiveRate()
+    {
+        JoinBloomFilter bloomFilter = new JoinBloomFilter(VALUE_COUNT);
+        for (long value = 0; value < VALUE_COUNT; value++) {
+            bloomFilter.add(BIGINT.hash(value));
+        }
+
+        int falsePositives = 0;
+        for (long value = VALUE_COUNT; value < 2 * VALUE_COUNT; value++) {
+            if (bloomFilter.mightContain(BIGINT.hash(value))) {
+                falsePositives++;
+            }
+        }
+        assertLessThan(falsePositives, VALUE_COUNT / 20);
+    }
+}
@@ -0,0 +1,312 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.operator;
+
+import com.google.common.collect.ImmutableList;
+import io.airlift.units.DataSize;
+import io.prestosql.RowPagesBuilder;
+import io.prestosql.execution.Lifespan;
+import io.prestosql.operator.MergeJoinOperator.MergeJoinOperatorFactory;
+import io.prestosql.operator.exchange.LocalExchange.LocalExchangeFactory;
+import io.prestosql.operator.exchange.LocalExchange.LocalExchangeSinkFactory;
+import io.prestosql.operator.exchange.LocalExchange.LocalExchangeSinkFactoryId;
+import io.prestosql.operator.exchange.LocalExchangeSink;
+import io.prestosql.spi.Page;
+import io.prestosql.spi.block.SortOrder;
+import io.prestosql.spi.type.Type;
+import io.prestosql.sql.planner.plan.PlanNodeId;
+import io.prestosql.testing.MaterializedResult;
+import io.prestosql.testing.TestingTaskContext;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static io.airlift.concurrent.Threads.daemonThreadsNamed;
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
+import static io.prestosql.RowPagesBuilder.rowPagesBuilder;
+import static io.prestosql.SessionTestUtils.TEST_SESSION;
+import static io.prestosql.operator.OperatorAssertion.assertOperatorEquals;
+import static io.prestosql.operator.OperatorAssertion.assertOperatorIsBlocked;
+import static io.prestosql.operator.OperatorAssertion.assertOperatorIsUnblocked;
+import static io.prestosql.operator.OperatorAssertion.finishOperator;
+import static io.prestosql.operator.OperatorAssertion.toMaterializedResult;
+import static io.prestosql.operator.PipelineExecutionStrategy.UNGROUPED_EXECUTION;
+import static io.prestosql.spi.block.SortOrder.ASC_NULLS_LAST;
+import static io.prestosql.spi.block.SortOrder.DESC_NULLS_FIRST;
+import static io.prestosql.spi.type.BigintType.BIGINT;
+import static io.prestosql.spi.type.VarcharType.VARCHAR;
+import static io.prestosql.sql.planner.SystemPartitioningHandle.SINGLE_DISTRIBUTION;
+import static io.prestosql.testing.MaterializedResult.resultBuilder;
+import static io.prestosql.testing.assertions.Assert.assertEquals;
+import static java.util.concurrent.Executors.newCachedThreadPool;
+import static java.util.concurrent.Executors.newScheduledThreadPool;
+import static org.testng.Assert.assertTrue;
+
+@Test(singleThreaded = true)
+public class TestMergeJoinOperator
+{
+    private static final List<Type> TYPES = ImmutableList.of(BIGINT, VARCHAR);
+    private static final List<Type> OUTPUT_TYPES = ImmutableList.of(BIGINT, VARCHAR, VARCHAR);
+
+    private ExecutorService executor;
+    private ScheduledExecutorService scheduledExecutor;
+
+    @BeforeClass
+    public void setUp()
+    {
+        executor = newCachedThreadPool(daemonThreadsNamed("test-executor-%s"));
+        scheduledExecutor = newScheduledThreadPool(2, daemonThreadsNamed("test-scheduledExecutor-%s"));
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void tearDown()
+    {
+        executor.shutdownNow();
+        scheduledExecutor.shutdownNow();
+    }
+
+    @Test
+    public void testInnerJoin()
+    {
+        TaskContext taskContext = createTaskContext();
+        MergeJoinOperatorFactory factory = createFactoryWithCompletedBuild(false, ASC_NULLS_LAST, ascendingBuild());
+
+        MaterializedResult expected = resultBuilder(TEST_SESSION, OUTPUT_TYPES)
+                .row(2L, "b", "x")
+                .row(2L, "b", "y")
+                .row(2L, "b", "z")
+                .row(2L, "c", "x")
+                .row(2L, "c", "y")
+                .row(2L, "c", "z")
+                .row(5L, "e", "v")
+                .build();
+
+        assertOperatorEquals(factory, createDriverContext(taskContext), ascendingProbe().build(), expected);
+    }
+
+    @Test
+    public void testLeftJoin()
+    {
+        TaskContext taskContext = createTaskContext();
+        MergeJoinOperatorFactory factory = createFactoryWithCompletedBuild(true, ASC_NULLS_LAST, ascendingBuild());
+
+        MaterializedResult expected = resultBuilder(TEST_SESSION, OUTPUT_TYPES)
+                .row(1L, "a", null)
+                .row(2L, "b", "x")
+                .row(2L, "b", "y")
+                .row(2L, "b", "z")
+                .row(2L, "c", "x")
+                .row(2L, "c", "y")
+                .row(2L, "c", "z")
+                .row(4L, "d", null)
+                .row(5L, "e", "v")
+                .row(null, "f", null)
+                .build();
+
+        assertOperatorEquals(factory, createDriverContext(taskContext), ascendingProbe().build(), expected);
+    }
+
+    @Test
+    public void testLeftJoinWithEmptyBuild()
+    {
+        TaskContext taskContext = createTaskContext();
+        MergeJoinOperatorFactory factory = createFactoryWithCompletedBuild(true, ASC_NULLS_LAST, rowPagesBuilder(TYPES));
+
+        MaterializedResult expected = resultBuilder(TEST_SESSION, OUTPUT_TYPES)
+                .row(1L, "a", null)
+                .row(2L, "b", null)
+                .row(2L, "c", null)
+                .row(4L, "d", null)
+                .row(5L, "e", null)
+                .row(null, "f", null)
+                .build();
+
+        assertOperatorEquals(factory, createDriverContext(taskContext), ascendingProbe().build(), expected);
+    }
+
+    @Test
+    public void testDescendingOrder()
+    {
+        TaskContext taskContext = createTaskContext();
+        RowPagesBuilder build = rowPagesBuilder(TYPES)
+                .row(null, "n")
+                .row(5L, "v")
+                .pageBreak()
+                .row(3L, "w")
+                .row(2L, "x")
+                .row(2L, "y");
+        RowPagesBuilder probe = rowPagesBuilder(TYPES)
+                .row(null, "f")
+                .row(4L, "d")
+                .row(2L, "b")
+                .pageBreak()
+                .row(1L, "a");
+        MergeJoinOperatorFactory factory = createFactoryWithCompletedBuild(false, DESC_NULLS_FIRST, build);
+
+        MaterializedResult expected = resultBuilder(TEST_SESSION, OUTPUT_TYPES)
+                .row(2L, "b", "x")
+                .row(2L, "b", "y")
+                .build();
+
+        assertOperatorEquals(factory, createDriverContext(taskContext), probe.build(), expected);
+    }
+
+    @Test
+    public void testBlockedOnBuild()
+    {
+        TaskContext taskContext = createTaskContext();
+        LocalExchangeFactory exchangeFactory = createExchangeFactory();
+        LocalExchangeSinkFactoryId sinkFactoryId = exchangeFactory.newSinkFactoryId();
+        exchangeFactory.noMoreSinkFactories();
+        LocalExchangeSink sink = createSink(exchangeFactory, sinkFactoryId);
+
+        MergeJoinOperatorFactory factory = createFactory(false, ASC_NULLS_LAST, exchangeFactory);
+        try (Operator operator = factory.createOperator(createDriverContext(taskContext))) {
+            factory.noMoreOperators();
+
+            List<Page> probePages = ascendingProbe().build();
+            List<Page> buildPages = ascendingBuild().build();
+
+            operator.addInput(probePages.get(0));
+            assertEquals(operator.getOutput(), null);
+            assertOperatorIsBlocked(operator);
+
+            // the probe rows only match the build rows of the first two pages
+            sink.addPage(buildPages.get(0));
+            assertOperatorIsUnblocked(operator);
+            assertEquals(operator.getOutput(), null);
+            assertOperatorIsBlocked(operator);
+
+            sink.addPage(buildPages.get(1));
+            assertOperatorIsUnblocked(operator);
+            assertEquals(operator.getOutput(), null);
+            assertTrue(operator.needsInput());
+
+            operator.addInput(probePages.get(1));
+            sink.addPage(buildPages.get(2));
+            sink.finish();
+
+            ImmutableList.Builder<Page> output = ImmutableList.builder();
+            Page page = operator.getOutput();
+            if (page != null) {
+                output.add(page);
+            }
+            output.addAll(finishOperator(operator));
+
+            MaterializedResult expected = resultBuilder(TEST_SESSION, OUTPUT_TYPES)
+                    .row(2L, "b", "x")
+                    .row(2L, "b", "y")
+                    .row(2L, "b", "z")
+                    .row(2L, "c", "x")
+                    .row(2L, "c", "y")
+                    .row(2L, "c", "z")
+                    .row(5L, "e", "v")
+                    .build();
+            assertEquals(toMaterializedResult(TEST_SESSION, OUTPUT_TYPES, output.build()), expected);
+        }
+        catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static RowPagesBuilder ascendingProbe()
+    {
+        return rowPagesBuilder(TYPES)
+                .row(1L, "a")
+                .row(2L, "b")
+                .row(2L, "c")
+                .pageBreak()
+                .row(4L, "d")
+                .row(5L, "e")
+                .row(null, "f");
+    }
+
+    private static RowPagesBuilder ascendingBuild()
+    {
+        // the group of key 2 spans two pages
+        return rowPagesBuilder(TYPES)
+                .row(2L, "x")
+                .row(2L, "y")
+                .pageBreak()
+                .row(2L, "z")
+                .row(3L, "w")
+                .row(5L, "v")
+                .pageBreak()
+                .row(null, "n");
+    }
+
+    private static MergeJoinOperatorFactory createFactoryWithCompletedBuild(boolean probeOuter, SortOrder sortOrder, RowPagesBuilder build)
+    {
+        LocalExchangeFactory exchangeFactory = createExchangeFactory();
+        LocalExchangeSinkFactoryId sinkFactoryId = exchangeFactory.newSinkFactoryId();
+        exchangeFactory.noMoreSinkFactories();
+
+        LocalExchangeSink sink = createSink(exchangeFactory, sinkFactoryId);
+        build.build().forEach(sink::addPage);
+        sink.finish();
+
+        return createFactory(probeOuter, sortOrder, exchangeFactory);
+    }
+
+    private static LocalExchangeSink createSink(LocalExchangeFactory exchangeFactory, LocalExchangeSinkFactoryId sinkFactoryId)
+    {
+        LocalExchangeSinkFactory sinkFactory = exchangeFactory.getLocalExchange(Lifespan.taskWide()).getSinkFactory(sinkFactoryId);
+        LocalExchangeSink sink = sinkFactory.createSink();
+        sinkFactory.close();
+        return sink;
+    }
+
+    private static LocalExchangeFactory createExchangeFactory()
+    {
+        return new LocalExchangeFactory(
+                SINGLE_DISTRIBUTION,
+                1,
+                TYPES,
+                ImmutableList.of(),
+                Optional.empty(),
+                UNGROUPED_EXECUTION,
+                new DataSize(32, MEGABYTE));
+    }
+
+    private static MergeJoinOperatorFactory createFactory(boolean probeOuter, SortOrder sortOrder, LocalExchangeFactory exchangeFactory)
+    {
+        return new MergeJoinOperatorFactory(
+                0,
+                new PlanNodeId("test"),
+                probeOuter,
+                exchangeFactory,
+                TYPES,
+                ImmutableList.of(0),
+                ImmutableList.of(0, 1),
+                TYPES,
+                ImmutableList.of(0),
+                ImmutableList.of(1),
+                ImmutableList.of(sortOrder));
+    }
+
+    private TaskContext createTaskContext()
+    {
+        return TestingTaskContext.createTaskContext(executor, scheduledExecutor, TEST_SESSION);
+    }
+
+    private static DriverContext createDriverContext(TaskContext taskContext)
+    {
+        return taskContext.addPipelineContext(0, true, true, false).addDriverContext();
+    }
+}
@@ -14,6 +14,7 @@
 package io.prestosql.operator;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import io.airlift.units.DataSize;
 import io.prestosql.SequencePageBuilder;
 import io.prestosql.block.BlockAssertions;
@@ -32,14 +33,18 @@ import io.prestosql.operator.scalar.AbstractTestFunctions;
 import io.prestosql.spi.Page;
 import io.prestosql.spi.block.Block;
 import io.prestosql.spi.block.LazyBlock;
+import io.prestosql.spi.connector.ColumnHandle;
 import io.prestosql.spi.connector.ConnectorPageSource;
 import io.prestosql.spi.connector.FixedPageSource;
 import io.prestosql.spi.connector.RecordPageSource;
+import io.prestosql.spi.predicate.Domain;
+import io.prestosql.spi.predicate.TupleDomain;
 import io.prestosql.sql.gen.ExpressionCompiler;
 import io.prestosql.sql.gen.PageFunctionCompiler;
 import io.prestosql.sql.planner.plan.PlanNodeId;
 import io.prestosql.sql.relational.RowExpression;
 import io.prestosql.testing.MaterializedResult;
+import io.prestosql.testing.TestingMetadata.TestingColumnHandle;
 import io.prestosql.testing.TestingSplit;
 import org.testng.annotations.Test;
 
@@ -67,6 +72,7 @@ import static io.prestosql.spi.type.VarcharType.VARCHAR;
 import static io.prestosql.sql.relational.Expressions.call;
 import static io.prestosql.sql.relational.Expressions.constant;
 import static io.prestosql.sql.relational.Expressions.field;
+import static io.prestosql.testing.MaterializedResult.resultBuilder;
 import static io.prestosql.testing.TestingHandles.TEST_TABLE_HANDLE;
 import static io.prestosql.testing.TestingTaskContext.createTaskContext;
 import static io.prestosql.testing.assertions.Assert.assertEquals;
@@ -110,6 +116,7 @@ public class TestScanFilterAndProjectOperator
                 pageProcessor,
                 TEST_TABLE_HANDLE,
                 ImmutableList.of(),
+                TupleDomain::all,
                 ImmutableList.of(VARCHAR),
                 new DataSize(0, BYTE),
                 0);
@@ -153,6 +160,7 @@ public class TestScanFilterAndProjectOperator
                 pageProcessor,
                 TEST_TABLE_HANDLE,
                 ImmutableList.of(),
+                TupleDomain::all,
                 ImmutableList.of(BIGINT),
                 new DataSize(64, KILOBYTE),
                 2);
@@ -197,6 +205,7 @@ public class TestScanFilterAndProjectOperator
                 () -> pageProcessor,
                 TEST_TABLE_HANDLE,
                 ImmutableList.of(),
+                TupleDomain::all,
                 ImmutableList.of(BIGINT),
                 new DataSize(0, BYTE),
                 0);
@@ -231,6 +240,7 @@ public class TestScanFilterAndProjectOperator
                 pageProcessor,
                 TEST_TABLE_HANDLE,
                 ImmutableList.of(),
+                TupleDomain::all,
                 ImmutableList.of(VARCHAR),
                 new DataSize(0, BYTE),
                 0);
@@ -246,6 +256,47 @@ public class TestScanFilterAndProjectOperator
         assertEquals(actual, expected);
     }
 
+    @Test
+    public void testRecordCursorSourceWithDynamicFilter()
+    {
+        Page input = SequencePageBuilder.createSequencePage(ImmutableList.of(BIGINT), 100, 0);
+        DriverContext driverContext = newDriverContext();
+
+        List<RowExpression> projections = ImmutableList.of(field(0, BIGINT));
+        Supplier<CursorProcessor> cursorProcessor = expressionCompiler.compileCursorProcessor(Optional.empty(), projections, "key");
+        Supplier<PageProcessor> pageProcessor = expressionCompiler.compilePageProcessor(Optional.empty(), projections);
+
+        ColumnHandle column = new TestingColumnHandle("a");
+        TupleDomain<ColumnHandle> dynamicFilter = TupleDomain.withColumnDomains(ImmutableMap.of(
+                column, Domain.multipleValues(BIGINT, ImmutableList.<Object>of(3L, 42L, 1000L))));
+
+        ScanFilterAndProjectOperator.ScanFilterAndProjectOperatorFactory factory = new ScanFilterAndProjectOperator.ScanFilterAndProjectOperatorFactory(
+                0,
+                new PlanNodeId("test"),
+                new PlanNodeId("0"),
+                (session, split, table, columns) -> new RecordPageSource(new PageRecordSet(ImmutableList.of(BIGINT), input)),
+                cursorProcessor,
+                pageProcessor,
+                TEST_TABLE_HANDLE,
+                ImmutableList.of(column),
+                () -> dynamicFilter,
+                ImmutableList.of(BIGINT),
+                new DataSize(0, BYTE),
+                0);
+
+        SourceOperator operator = factory.createOperator(driverContext);
+        operator.addSplit(new Split(new CatalogName("test"), TestingSplit.createLocalSplit(), Lifespan.taskWide()));
+        operator.noMoreSplits();
+
+        MaterializedResult expected = resultBuilder(driverContext.getSession(), BIGINT)
+                .row(3L)
+                .row(42L)
+                .build();
+        MaterializedResult actual = toMaterializedResult(driverContext.getSession(), ImmutableList.of(BIGINT), toPages(operator));
+
+        assertEquals(actual, expected);
+    }
+
     @Test
     public void testPageYield()
     {
@@ -283,6 +334,7 @@ public class TestScanFilterAndProjectOperator
                 pageProcessor,
                 TEST_TABLE_HANDLE,
                 ImmutableList.of(),
+                TupleDomain::all,
                 ImmutableList.of(BIGINT),
                 new DataSize(0, BYTE),
                 0);
@@ -348,6 +400,7 @@ public class TestScanFilterAndProjectOperator
                 pageProcessor,
                 TEST_TABLE_HANDLE,
                 ImmutableList.of(),
+                TupleDomain::all,
                 ImmutableList.of(BIGINT),
                 new DataSize(0, BYTE),
                 0);
@@ -15,6 +15,7 @@ package io.prestosql.operator;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.primitives.Ints;
+import io.airlift.units.DataSize;
 import io.prestosql.RowPagesBuilder;
 import io.prestosql.spi.Page;
 import io.prestosql.spi.block.SortOrder;
@@ -22,6 +23,7 @@ import io.prestosql.spi.type.Type;
 import io.prestosql.sql.gen.JoinCompiler;
 import io.prestosql.sql.planner.plan.PlanNodeId;
 import io.prestosql.testing.MaterializedResult;
+import io.prestosql.testing.TestingTaskContext;
 import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.DataProvider;
@@ -33,13 +35,19 @@ import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ScheduledExecutorService;
 
 import static io.airlift.concurrent.Threads.daemonThreadsNamed;
+import static io.airlift.testing.Assertions.assertEqualsIgnoreOrder;
 import static io.airlift.testing.Assertions.assertGreaterThan;
+import static io.airlift.units.DataSize.Unit.GIGABYTE;
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
 import static io.prestosql.RowPagesBuilder.rowPagesBuilder;
 import static io.prestosql.SessionTestUtils.TEST_SESSION;
 import static io.prestosql.metadata.MetadataManager.createTestMetadataManager;
 import static io.prestosql.operator.GroupByHashYieldAssertion.createPagesWithDistinctHashKeys;
 import static io.prestosql.operator.GroupByHashYieldAssertion.finishOperatorWithYieldingGroupByHash;
 import static io.prestosql.operator.OperatorAssertion.assertOperatorEquals;
+import static io.prestosql.operator.OperatorAssertion.assertOperatorEqualsIgnoreOrder;
+import static io.prestosql.operator.OperatorAssertion.toMaterializedResult;
+import static io.prestosql.operator.OperatorAssertion.toPages;
 import static io.prestosql.operator.TopNRowNumberOperator.TopNRowNumberOperatorFactory;
 import static io.prestosql.spi.type.BigintType.BIGINT;
 import static io.prestosql.spi.type.DoubleType.DOUBLE;
@@ -87,6 +95,12 @@ public class TestTopNRowNumberOperator
         return new Object[][] {{true}, {false}};
     }
 
+    @DataProvider
+    public static Object[][] revokeMemoryWhenAddingPages()
+    {
+        return new Object[][] {{true}, {false}};
+    }
+
     @Test(dataProvider = "hashEnabledValues")
     public void testPartitioned(boolean hashEnabled)
     {
@@ -120,7 +134,9 @@ public class TestTopNRowNumberOperator
                 false,
                 Optional.empty(),
                 10,
-                joinCompiler);
+                joinCompiler,
+                false,
+                Optional.empty());
 
         MaterializedResult expected = resultBuilder(driverContext.getSession(), DOUBLE, BIGINT, BIGINT)
                 .row(0.3, 1L, 1L)
@@ -136,6 +152,117 @@ public class TestTopNRowNumberOperator
         assertOperatorEquals(operatorFactory, driverContext, input, expected);
     }
 
+    @Test(dataProvider = "revokeMemoryWhenAddingPages")
+    public void testPartitionedWithSpill(boolean revokeMemoryWhenAddingPages)
+    {
+        List<Page> input = rowPagesBuilder(BIGINT, DOUBLE)
+                .row(1L, 0.3)
+                .row(2L, 0.2)
+                .row(3L, 0.1)
+                .row(3L, 0.91)
+                .pageBreak()
+                .row(1L, 0.4)
+                .pageBreak()
+                .row(1L, 0.5)
+                .row(1L, 0.6)
+                .row(2L, 0.7)
+                .row(2L, 0.8)
+                .pageBreak()
+                .row(2L, 0.9)
+                .row(null, 0.5)
+                .build();
+
+        DummySpillerFactory spillerFactory = new DummySpillerFactory();
+        TopNRowNumberOperatorFactory operatorFactory = new TopNRowNumberOperatorFactory(
+                0,
+                new PlanNodeId("test"),
+                ImmutableList.of(BIGINT, DOUBLE),
+                Ints.asList(1, 0),
+                Ints.asList(0),
+                ImmutableList.of(BIGINT),
+                Ints.asList(1),
+                ImmutableList.of(SortOrder.ASC_NULLS_LAST),
+                3,
+                false,
+                Optional.empty(),
+                10,
+                joinCompiler,
+                true,
+                Optional.of(spillerFactory));
+
+        MaterializedResult expected = resultBuilder(driverContext.getSession(), DOUBLE, BIGINT, BIGINT)
+                .row(0.3, 1L, 1L)
+                .row(0.4, 1L, 2L)
+                .row(0.5, 1L, 3L)
+                .row(0.2, 2L, 1L)
+                .row(0.7, 2L, 2L)
+                .row(0.8, 2L, 3L)
+                .row(0.1, 3L, 1L)
+                .row(0.91, 3L, 2L)
+                .row(0.5, null, 1L)
+                .build();
+
+        assertOperatorEqualsIgnoreOrder(operatorFactory, driverContext, input, expected, revokeMemoryWhenAddingPages);
+        assertEquals(spillerFactory.getSpillsCount() > 0, revokeMemoryWhenAddingPages);
+    }
+
+    @Test
+    public void testSpillMatchesInMemoryResult()
+    {
+        RowPagesBuilder rowPagesBuilder = rowPagesBuilder(BIGINT, BIGINT);
+        for (int page = 0; page < 20; page++) {
+            for (int i = 0; i < 500; i++) {
+                rowPagesBuilder.row((long) ((page * 7 + i) % 1_000), (long) ((page * 31 + i * 17) % 113));
+            }
+            rowPagesBuilder.pageBreak();
+        }
+        List<Page> input = rowPagesBuilder.build();
+
+        DummySpillerFactory spillerFactory = new DummySpillerFactory();
+        List<Page> spilled = toPages(createPartitionedFactory(true, spillerFactory), driverContext, input, true);
+        assertGreaterThan(spillerFactory.getSpillsCount(), 1L);
+        DriverContext inMemoryDriverContext = createTaskContext(executor, scheduledExecutor, TEST_SESSION)
+                .addPipelineContext(0, true, true, false)
+                .addDriverContext();
+        List<Page> inMemory = toPages(createPartitionedFactory(false, spillerFactory), inMemoryDriverContext, input, false);
+
+        List<Type> outputTypes = ImmutableList.of(BIGINT, BIGINT, BIGINT);
+        assertEqualsIgnoreOrder(
+                toMaterializedResult(driverContext.getSession(), outputTypes, spilled).getMaterializedRows(),
+                toMaterializedResult(driverContext.getSession(), outputTypes, inMemory).getMaterializedRows());
+    }
+
+    @Test
+    public void testSpillWhenRevocableMemoryCannotBeConverted()
+    {
+        RowPagesBuilder rowPagesBuilder = rowPagesBuilder(BIGINT, BIGINT);
+        for (int page = 0; page < 50; page++) {
+            for (int i = 0; i < 1_000; i++) {
+                rowPagesBuilder.row((long) ((page * 1_000 + i) % 25_000), (long) i);
+            }
+            rowPagesBuilder.pageBreak();
+        }
+        List<Page> input = rowPagesBuilder.build();
+
+        // the heaps only fit in revocable memory, so they are spilled when the operator starts producing output
+        DriverContext spillDriverContext = TestingTaskContext.builder(executor, scheduledExecutor, TEST_SESSION)
+                .setQueryMaxMemory(new DataSize(1, MEGABYTE))
+                .setMemoryPoolSize(new DataSize(1, GIGABYTE))
+                .build()
+                .addPipelineContext(0, true, true, false)
+                .addDriverContext();
+        DummySpillerFactory spillerFactory = new DummySpillerFactory();
+        List<Page> spilled = toPages(createPartitionedFactory(true, spillerFactory), spillDriverContext, input, false);
+        assertEquals(spillerFactory.getSpillsCount(), 1);
+
+        List<Page> inMemory = toPages(createPartitionedFactory(false, spillerFactory), driverContext, input, false);
+
+        List<Type> outputTypes = ImmutableList.of(BIGINT, BIGINT, BIGINT);
+        assertEqualsIgnoreOrder(
+                toMaterializedResult(driverContext.getSession(), outputTypes, spilled).getMaterializedRows(),
+                toMaterializedResult(driverContext.getSession(), outputTypes, inMemory).getMaterializedRows());
+    }
+
     @Test(dataProvider = "partial")
     public void testUnPartitioned(boolean partial)
     {
@@ -168,7 +295,9 @@ public class TestTopNRowNumberOperator
                 partial,
                 Optional.empty(),
                 10,
-                joinCompiler);
+                joinCompiler,
+                false,
+                Optional.empty());
 
         MaterializedResult expected;
         if (partial) {
@@ -208,7 +337,9 @@ public class TestTopNRowNumberOperator
                 false,
                 Optional.empty(),
                 10,
-                joinCompiler);
+                joinCompiler,
+                false,
+                Optional.empty());
 
         // get result with yield; pick a relatively small buffer for heaps
         GroupByHashYieldAssertion.GroupByHashYieldResult result = finishOperatorWithYieldingGroupByHash(
@@ -230,4 +361,24 @@ public class TestTopNRowNumberOperator
         }
         assertEquals(count, 6_000 * 600);
     }
+
+    private TopNRowNumberOperatorFactory createPartitionedFactory(boolean spillEnabled, DummySpillerFactory spillerFactory)
+    {
+        return new TopNRowNumberOperatorFactory(
+                0,
+                new PlanNodeId("test"),
+                ImmutableList.of(BIGINT, BIGINT),
+                Ints.asList(0, 1),
+                Ints.asList(0),
+                ImmutableList.of(BIGINT),
+                Ints.asList(1),
+                ImmutableList.of(SortOrder.DESC_NULLS_LAST),
+                2,
+                false,
+                Optional.empty(),
+                10,
+                joinCompiler,
+                spillEnabled,
+                Optional.of(spillerFactory));
+    }
 }
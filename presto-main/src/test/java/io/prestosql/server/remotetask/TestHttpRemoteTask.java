@@ -13,6 +13,7 @@
  */
 package io.prestosql.server.remotetask;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMultimap;
 import com.google.common.collect.ImmutableSet;
 import com.google.inject.Binder;
@@ -34,6 +35,7 @@ import io.prestosql.execution.QueryManagerConfig;
 import io.prestosql.execution.RemoteTask;
 import io.prestosql.execution.TaskId;
 import io.prestosql.execution.TaskInfo;
+import io.prestosql.execution.TaskInfoDelta;
 import io.prestosql.execution.TaskManagerConfig;
 import io.prestosql.execution.TaskSource;
 import io.prestosql.execution.TaskState;
@@ -47,7 +49,11 @@ import io.prestosql.metadata.InternalNode;
 import io.prestosql.metadata.Metadata;
 import io.prestosql.metadata.Split;
 import io.prestosql.server.HttpRemoteTaskFactory;
+import io.prestosql.server.InternalCommunicationConfig;
 import io.prestosql.server.TaskUpdateRequest;
+import io.prestosql.server.smile.SmileCodecFactory;
+import io.prestosql.server.smile.SmileMapper;
+import io.prestosql.server.smile.SmileObjectMapperProvider;
 import io.prestosql.spi.ErrorCode;
 import io.prestosql.spi.type.Type;
 import io.prestosql.sql.planner.plan.PlanNodeId;
@@ -66,12 +72,16 @@ import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
+import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.core.Context;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response.Status;
 import javax.ws.rs.core.UriInfo;
 
 import java.net.URI;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.OptionalInt;
 import java.util.concurrent.RejectedExecutionException;
@@ -80,11 +90,15 @@ import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.BooleanSupplier;
 
 import static com.google.common.collect.Iterables.getOnlyElement;
+import static com.google.common.net.HttpHeaders.CONTENT_TYPE;
 import static io.airlift.json.JsonBinder.jsonBinder;
 import static io.airlift.json.JsonCodecBinder.jsonCodecBinder;
+import static io.prestosql.PrestoMediaTypes.APPLICATION_JACKSON_SMILE;
 import static io.prestosql.SessionTestUtils.TEST_SESSION;
 import static io.prestosql.client.PrestoHeaders.PRESTO_CURRENT_STATE;
 import static io.prestosql.client.PrestoHeaders.PRESTO_MAX_WAIT;
+import static io.prestosql.execution.TaskInfoDelta.NO_BASE_VERSION;
+import static io.prestosql.execution.TaskInfoDelta.fullTaskInfo;
 import static io.prestosql.execution.TaskTestUtils.TABLE_SCAN_NODE_ID;
 import static io.prestosql.execution.buffer.OutputBuffers.createInitialEmptyOutputBuffers;
 import static io.prestosql.metadata.MetadataManager.createTestMetadataManager;
@@ -109,6 +123,10 @@ public class TestHttpRemoteTask
             // Shorten status refresh wait and info update interval so that we can have a shorter test timeout
             .setStatusRefreshMaxWait(new Duration(IDLE_TIMEOUT.roundTo(MILLISECONDS) / 100, MILLISECONDS))
             .setInfoUpdateInterval(new Duration(IDLE_TIMEOUT.roundTo(MILLISECONDS) / 10, MILLISECONDS));
+    private static final TaskManagerConfig TASK_INFO_DELTA_TASK_MANAGER_CONFIG = new TaskManagerConfig()
+            .setStatusRefreshMaxWait(TASK_MANAGER_CONFIG.getStatusRefreshMaxWait())
+            .setInfoUpdateInterval(TASK_MANAGER_CONFIG.getInfoUpdateInterval())
+            .setInfoDeltaEnabled(true);
 
     private static final boolean TRACE_HTTP = false;
 
@@ -136,11 +154,42 @@ public class TestHttpRemoteTask
     @Test(timeOut = 30000)
     public void testRegular()
             throws Exception
+    {
+        testRegular(false, false, true);
+    }
+
+    @Test(timeOut = 30000)
+    public void testRegularWithBinaryTransport()
+            throws Exception
+    {
+        testRegular(true, false, true);
+    }
+
+    @Test(timeOut = 30000)
+    public void testBinaryTransportWithJsonOnlyWorker()
+            throws Exception
+    {
+        testRegular(true, false, false);
+    }
+
+    @Test(timeOut = 30000)
+    public void testRegularWithTaskInfoDelta()
+            throws Exception
+    {
+        testRegular(false, true, true);
+    }
+
+    private void testRegular(boolean binaryTransportEnabled, boolean taskInfoDeltaEnabled, boolean workerAcceptsSmileUpdates)
+            throws Exception
     {
         AtomicLong lastActivityNanos = new AtomicLong(System.nanoTime());
         TestingTaskResource testingTaskResource = new TestingTaskResource(lastActivityNanos, FailureScenario.NO_FAILURE);
+        if (!workerAcceptsSmileUpdates) {
+            testingTaskResource.rejectSmileUpdates();
+        }
 
-        HttpRemoteTaskFactory httpRemoteTaskFactory = createHttpRemoteTaskFactory(testingTaskResource);
+        TaskManagerConfig taskManagerConfig = taskInfoDeltaEnabled ? TASK_INFO_DELTA_TASK_MANAGER_CONFIG : TASK_MANAGER_CONFIG;
+        HttpRemoteTaskFactory httpRemoteTaskFactory = createHttpRemoteTaskFactory(testingTaskResource, taskManagerConfig, binaryTransportEnabled);
 
         RemoteTask remoteTask = createRemoteTask(httpRemoteTaskFactory);
 
@@ -158,11 +207,21 @@ public class TestHttpRemoteTask
         remoteTask.noMoreSplits(TABLE_SCAN_NODE_ID);
         poll(() -> testingTaskResource.getTaskSource(TABLE_SCAN_NODE_ID).isNoMoreSplits());
 
+        if (taskInfoDeltaEnabled) {
+            // the first fetch asks for the full info, later ones for a delta against the info received before
+            poll(() -> testingTaskResource.getTaskInfoDeltaBaseVersions().size() >= 2);
+            List<Long> baseVersions = testingTaskResource.getTaskInfoDeltaBaseVersions();
+            assertEquals(baseVersions.get(0), (Long) NO_BASE_VERSION);
+            assertTrue(baseVersions.get(1) > NO_BASE_VERSION);
+        }
+
         remoteTask.cancel();
         poll(() -> remoteTask.getTaskStatus().getState().isDone());
         poll(() -> remoteTask.getTaskInfo().getTaskStatus().getState().isDone());
 
         httpRemoteTaskFactory.stop();
+        // a worker that rejects Smile updates, like a worker of an earlier version, receives JSON updates instead
+        assertEquals(testingTaskResource.getUpdateContentType().getSubtype(), binaryTransportEnabled && workerAcceptsSmileUpdates ? "x-jackson-smile" : "json");
     }
 
     private void runTest(FailureScenario failureScenario)
@@ -171,7 +230,7 @@ public class TestHttpRemoteTask
         AtomicLong lastActivityNanos = new AtomicLong(System.nanoTime());
         TestingTaskResource testingTaskResource = new TestingTaskResource(lastActivityNanos, failureScenario);
 
-        HttpRemoteTaskFactory httpRemoteTaskFactory = createHttpRemoteTaskFactory(testingTaskResource);
+        HttpRemoteTaskFactory httpRemoteTaskFactory = createHttpRemoteTaskFactory(testingTaskResource, TASK_MANAGER_CONFIG, false);
         RemoteTask remoteTask = createRemoteTask(httpRemoteTaskFactory);
 
         testingTaskResource.setInitialTaskInfo(remoteTask.getTaskInfo());
@@ -212,7 +271,7 @@ public class TestHttpRemoteTask
                 true);
     }
 
-    private static HttpRemoteTaskFactory createHttpRemoteTaskFactory(TestingTaskResource testingTaskResource)
+    private static HttpRemoteTaskFactory createHttpRemoteTaskFactory(TestingTaskResource testingTaskResource, TaskManagerConfig taskManagerConfig, boolean binaryTransportEnabled)
             throws Exception
     {
         Bootstrap app = new Bootstrap(
@@ -224,31 +283,41 @@ public class TestHttpRemoteTask
                     public void configure(Binder binder)
                     {
                         binder.bind(JsonMapper.class);
+                        binder.bind(SmileMapper.class);
+                        binder.bind(SmileObjectMapperProvider.class);
+                        binder.bind(SmileCodecFactory.class);
                         binder.bind(Metadata.class).toInstance(createTestMetadataManager());
                         jsonBinder(binder).addDeserializerBinding(Type.class).to(TypeDeserializer.class);
                         jsonCodecBinder(binder).bindJsonCodec(TaskStatus.class);
                         jsonCodecBinder(binder).bindJsonCodec(TaskInfo.class);
+                        jsonCodecBinder(binder).bindJsonCodec(TaskInfoDelta.class);
                         jsonCodecBinder(binder).bindJsonCodec(TaskUpdateRequest.class);
                     }
 
                     @Provides
                     private HttpRemoteTaskFactory createHttpRemoteTaskFactory(
                             JsonMapper jsonMapper,
+                            SmileMapper smileMapper,
                             JsonCodec<TaskStatus> taskStatusCodec,
                             JsonCodec<TaskInfo> taskInfoCodec,
-                            JsonCodec<TaskUpdateRequest> taskUpdateRequestCodec)
+                            JsonCodec<TaskInfoDelta> taskInfoDeltaCodec,
+                            JsonCodec<TaskUpdateRequest> taskUpdateRequestCodec,
+                            SmileCodecFactory smileCodecFactory)
                     {
-                        JaxrsTestingHttpProcessor jaxrsTestingHttpProcessor = new JaxrsTestingHttpProcessor(URI.create("http://fake.invalid/"), testingTaskResource, jsonMapper);
+                        JaxrsTestingHttpProcessor jaxrsTestingHttpProcessor = new JaxrsTestingHttpProcessor(URI.create("http://fake.invalid/"), testingTaskResource, jsonMapper, smileMapper);
                         TestingHttpClient testingHttpClient = new TestingHttpClient(jaxrsTestingHttpProcessor.setTrace(TRACE_HTTP));
                         testingTaskResource.setHttpClient(testingHttpClient);
                         return new HttpRemoteTaskFactory(
                                 new QueryManagerConfig(),
-                                TASK_MANAGER_CONFIG,
+                                taskManagerConfig,
                                 testingHttpClient,
                                 new TestSqlTaskManager.MockLocationFactory(),
                                 taskStatusCodec,
                                 taskInfoCodec,
+                                taskInfoDeltaCodec,
                                 taskUpdateRequestCodec,
+                                smileCodecFactory,
+                                new InternalCommunicationConfig().setBinaryTransportEnabled(binaryTransportEnabled),
                                 new RemoteTaskStats());
                     }
                 });
@@ -322,6 +391,9 @@ public class TestHttpRemoteTask
         private String taskInstanceId = INITIAL_TASK_INSTANCE_ID;
 
         private long statusFetchCounter;
+        private MediaType updateContentType;
+        private boolean rejectSmileUpdates;
+        private final List<Long> taskInfoDeltaBaseVersions = new ArrayList<>();
 
         public TestingTaskResource(AtomicLong lastActivityNanos, FailureScenario failureScenario)
         {
@@ -329,6 +401,11 @@ public class TestHttpRemoteTask
             this.failureScenario = requireNonNull(failureScenario, "failureScenario is null");
         }
 
+        public synchronized void rejectSmileUpdates()
+        {
+            rejectSmileUpdates = true;
+        }
+
         public void setHttpClient(TestingHttpClient newValue)
         {
             httpClient.set(newValue);
@@ -336,7 +413,7 @@ public class TestHttpRemoteTask
 
         @GET
         @Path("{taskId}")
-        @Produces(MediaType.APPLICATION_JSON)
+        @Produces({MediaType.APPLICATION_JSON, APPLICATION_JACKSON_SMILE})
         public synchronized TaskInfo getTaskInfo(
                 @PathParam("taskId") final TaskId taskId,
                 @HeaderParam(PRESTO_CURRENT_STATE) TaskState currentState,
@@ -347,17 +424,40 @@ public class TestHttpRemoteTask
             return buildTaskInfo();
         }
 
+        @GET
+        @Path("{taskId}/delta/{baseVersion}")
+        @Produces({MediaType.APPLICATION_JSON, APPLICATION_JACKSON_SMILE})
+        public synchronized TaskInfoDelta getTaskInfoDelta(
+                @PathParam("taskId") TaskId taskId,
+                @PathParam("baseVersion") long baseVersion,
+                @Context UriInfo uriInfo)
+        {
+            lastActivityNanos.set(System.nanoTime());
+            taskInfoDeltaBaseVersions.add(baseVersion);
+            return fullTaskInfo(buildTaskInfo());
+        }
+
+        public synchronized List<Long> getTaskInfoDeltaBaseVersions()
+        {
+            return ImmutableList.copyOf(taskInfoDeltaBaseVersions);
+        }
+
         Map<PlanNodeId, TaskSource> taskSourceMap = new HashMap<>();
 
         @POST
         @Path("{taskId}")
-        @Consumes(MediaType.APPLICATION_JSON)
-        @Produces(MediaType.APPLICATION_JSON)
+        @Consumes({MediaType.APPLICATION_JSON, APPLICATION_JACKSON_SMILE})
+        @Produces({MediaType.APPLICATION_JSON, APPLICATION_JACKSON_SMILE})
         public synchronized TaskInfo createOrUpdateTask(
                 @PathParam("taskId") TaskId taskId,
                 TaskUpdateRequest taskUpdateRequest,
+                @HeaderParam(CONTENT_TYPE) MediaType contentType,
                 @Context UriInfo uriInfo)
         {
+            if (rejectSmileUpdates && contentType.getSubtype().equals("x-jackson-smile")) {
+                throw new WebApplicationException(Status.UNSUPPORTED_MEDIA_TYPE);
+            }
+            updateContentType = contentType;
             for (TaskSource source : taskUpdateRequest.getSources()) {
                 taskSourceMap.compute(source.getPlanNodeId(), (planNodeId, taskSource) -> taskSource == null ? source : taskSource.update(source));
             }
@@ -365,6 +465,11 @@ public class TestHttpRemoteTask
             return buildTaskInfo();
         }
 
+        public synchronized MediaType getUpdateContentType()
+        {
+            return updateContentType;
+        }
+
         public synchronized TaskSource getTaskSource(PlanNodeId planNodeId)
         {
             TaskSource source = taskSourceMap.get(planNodeId);
@@ -376,7 +481,7 @@ public class TestHttpRemoteTask
 
         @GET
         @Path("{taskId}/status")
-        @Produces(MediaType.APPLICATION_JSON)
+        @Produces({MediaType.APPLICATION_JSON, APPLICATION_JACKSON_SMILE})
         public synchronized TaskStatus getTaskStatus(
                 @PathParam("taskId") TaskId taskId,
                 @HeaderParam(PRESTO_CURRENT_STATE) TaskState currentState,
@@ -392,7 +497,7 @@ public class TestHttpRemoteTask
 
         @DELETE
         @Path("{taskId}")
-        @Produces(MediaType.APPLICATION_JSON)
+        @Produces({MediaType.APPLICATION_JSON, APPLICATION_JACKSON_SMILE})
         public synchronized TaskInfo deleteTask(
                 @PathParam("taskId") TaskId taskId,
                 @QueryParam("abort") @DefaultValue("true") boolean abort,
@@ -477,7 +582,9 @@ public class TestHttpRemoteTask
                     initialTaskStatus.getSystemMemoryReservation(),
                     initialTaskStatus.getRevocableMemoryReservation(),
                     initialTaskStatus.getFullGcCount(),
-                    initialTaskStatus.getFullGcTime());
+                    initialTaskStatus.getFullGcTime(),
+                    initialTaskStatus.getDynamicFiltersVersion(),
+                    initialTaskStatus.getDynamicFilterDomains());
         }
     }
 }
@@ -0,0 +1,167 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.server.smile;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import io.airlift.json.JsonCodec;
+import io.airlift.json.JsonCodecFactory;
+import io.airlift.units.DataSize;
+import io.airlift.units.Duration;
+import io.prestosql.execution.TaskId;
+import io.prestosql.execution.TaskInfo;
+import io.prestosql.execution.buffer.BufferInfo;
+import io.prestosql.execution.buffer.OutputBuffers.OutputBufferId;
+import io.prestosql.execution.buffer.PageBufferInfo;
+import io.prestosql.operator.TaskStats;
+import io.prestosql.operator.TestPipelineStats;
+import org.joda.time.DateTime;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.VerboseMode;
+
+import java.net.URI;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static io.airlift.units.DataSize.Unit.BYTE;
+import static io.prestosql.execution.TaskInfo.createInitialTask;
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+@State(Scope.Thread)
+@OutputTimeUnit(MICROSECONDS)
+@BenchmarkMode(Mode.AverageTime)
+@Fork(2)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+public class BenchmarkTaskInfoCodec
+{
+    @Benchmark
+    public byte[] encodeJson(BenchmarkData data)
+    {
+        return data.jsonCodec.toJsonBytes(data.taskInfo);
+    }
+
+    @Benchmark
+    public byte[] encodeSmile(BenchmarkData data)
+    {
+        return data.smileCodec.toSmile(data.taskInfo);
+    }
+
+    @Benchmark
+    public TaskInfo decodeJson(BenchmarkData data)
+    {
+        return data.jsonCodec.fromJson(data.json);
+    }
+
+    @Benchmark
+    public TaskInfo decodeSmile(BenchmarkData data)
+    {
+        return data.smileCodec.fromSmile(data.smile);
+    }
+
+    @State(Scope.Thread)
+    public static class BenchmarkData
+    {
+        @Param({"1", "10", "50"})
+        private int pipelineCount = 10;
+
+        private final JsonCodec<TaskInfo> jsonCodec = new JsonCodecFactory().jsonCodec(TaskInfo.class);
+        private final SmileCodec<TaskInfo> smileCodec = new SmileCodecFactory(new SmileObjectMapperProvider()).smileCodec(TaskInfo.class);
+
+        private TaskInfo taskInfo;
+        private byte[] json;
+        private byte[] smile;
+
+        @Setup
+        public void setup()
+        {
+            taskInfo = createTaskInfo(pipelineCount);
+            json = jsonCodec.toJsonBytes(taskInfo);
+            smile = smileCodec.toSmile(taskInfo);
+        }
+    }
+
+    private static TaskInfo createTaskInfo(int pipelineCount)
+    {
+        List<BufferInfo> buffers = IntStream.range(0, 16)
+                .mapToObj(partition -> new BufferInfo(new OutputBufferId(partition), false, 3, 100 + partition, new PageBufferInfo(partition, 3, 3_000_000, 30_000, 100)))
+                .collect(toImmutableList());
+        TaskStats taskStats = new TaskStats(
+                new DateTime(1),
+                new DateTime(2),
+                new DateTime(100),
+                new DateTime(101),
+                new DateTime(3),
+                new Duration(4, NANOSECONDS),
+                new Duration(5, NANOSECONDS),
+                6,
+                7,
+                5,
+                8,
+                6,
+                24,
+                10,
+                11.0,
+                new DataSize(12, BYTE),
+                new DataSize(13, BYTE),
+                new DataSize(14, BYTE),
+                new Duration(15, NANOSECONDS),
+                new Duration(16, NANOSECONDS),
+                new Duration(18, NANOSECONDS),
+                false,
+                ImmutableSet.of(),
+                new DataSize(191, BYTE),
+                201,
+                new DataSize(192, BYTE),
+                202,
+                new DataSize(19, BYTE),
+                20,
+                new DataSize(21, BYTE),
+                22,
+                new DataSize(23, BYTE),
+                24,
+                new DataSize(25, BYTE),
+                26,
+                new Duration(27, NANOSECONDS),
+                ImmutableList.copyOf(Collections.nCopies(pipelineCount, TestPipelineStats.EXPECTED)));
+        return createInitialTask(new TaskId("query", 1, 2), URI.create("http://worker.invalid/v1/task/query.1.2"), "worker", buffers, taskStats);
+    }
+
+    public static void main(String[] args)
+            throws RunnerException
+    {
+        Options options = new OptionsBuilder()
+                .verbosity(VerboseMode.NORMAL)
+                .include(".*" + BenchmarkTaskInfoCodec.class.getSimpleName() + ".*")
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,47 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.server.smile;
+
+import com.google.common.collect.ImmutableList;
+import io.prestosql.execution.TaskId;
+import io.prestosql.execution.TaskInfo;
+import io.prestosql.operator.TestTaskStats;
+import org.testng.annotations.Test;
+
+import java.net.URI;
+
+import static io.airlift.json.JsonCodec.jsonCodec;
+import static io.prestosql.execution.TaskInfo.createInitialTask;
+import static io.prestosql.operator.TestTaskStats.assertExpectedTaskStats;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class TestSmileCodec
+{
+    @Test
+    public void testRoundTrip()
+    {
+        SmileCodec<TaskInfo> codec = new SmileCodecFactory(new SmileObjectMapperProvider()).smileCodec(TaskInfo.class);
+        TaskInfo expected = createInitialTask(new TaskId("query", 1, 2), URI.create("http://worker.invalid/v1/task/query.1.2"), "worker", ImmutableList.of(), TestTaskStats.EXPECTED);
+
+        byte[] smile = codec.toSmile(expected);
+        TaskInfo actual = codec.fromSmile(smile);
+
+        assertEquals(actual.getTaskStatus().getTaskId(), expected.getTaskStatus().getTaskId());
+        assertEquals(actual.getTaskStatus().getSelf(), expected.getTaskStatus().getSelf());
+        assertEquals(actual.getTaskStatus().getState(), expected.getTaskStatus().getState());
+        assertExpectedTaskStats(actual.getStats());
+        assertTrue(smile.length < jsonCodec(TaskInfo.class).toJsonBytes(expected).length);
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.split;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import io.prestosql.connector.CatalogName;
+import io.prestosql.execution.Lifespan;
+import io.prestosql.execution.scheduler.SplitSchedulerStats;
+import io.prestosql.spi.connector.ColumnHandle;
+import io.prestosql.spi.predicate.TupleDomain;
+import io.prestosql.split.SplitSource.SplitBatch;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static com.google.common.util.concurrent.Futures.immediateFuture;
+import static io.airlift.concurrent.MoreFutures.getDone;
+import static io.prestosql.spi.connector.NotPartitionedPartitionHandle.NOT_PARTITIONED;
+import static io.prestosql.split.MockSplitSource.Action.FINISH;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class TestDynamicFilterSplitSource
+{
+    private static final CatalogName CATALOG_NAME = new CatalogName("test");
+
+    @Test
+    public void testWaitForDynamicFilter()
+    {
+        SettableFuture<?> dynamicFilterCollected = SettableFuture.create();
+        AtomicInteger splitSourcesCreated = new AtomicInteger();
+        MockSplitSource mockSource = new MockSplitSource()
+                .setBatchSize(5)
+                .increaseAvailableSplits(5)
+                .atSplitCompletion(FINISH);
+        SplitSource source = new DynamicFilterSplitSource(
+                CATALOG_NAME,
+                () -> dynamicFilterCollected,
+                TupleDomain::all,
+                () -> {
+                    splitSourcesCreated.incrementAndGet();
+                    return mockSource;
+                },
+                new SplitSchedulerStats());
+
+        ListenableFuture<SplitBatch> blocked = getNextBatch(source);
+        assertFalse(blocked.isDone());
+        assertEquals(splitSourcesCreated.get(), 0);
+
+        dynamicFilterCollected.set(null);
+        assertTrue(blocked.isDone());
+        assertEquals(getDone(blocked).getSplits().size(), 0);
+        assertFalse(getDone(blocked).isLastBatch());
+
+        SplitBatch batch = getDone(getNextBatch(source));
+        assertEquals(batch.getSplits().size(), 5);
+        assertTrue(batch.isLastBatch());
+        assertEquals(splitSourcesCreated.get(), 1);
+        assertTrue(source.isFinished());
+    }
+
+    @Test
+    public void testPruneSplitSource()
+    {
+        SplitSchedulerStats stats = new SplitSchedulerStats();
+        AtomicInteger splitSourcesCreated = new AtomicInteger();
+        SplitSource source = new DynamicFilterSplitSource(
+                CATALOG_NAME,
+                () -> immediateFuture(null),
+                TupleDomain::none,
+                () -> {
+                    splitSourcesCreated.incrementAndGet();
+                    return new MockSplitSource();
+                },
+                stats);
+
+        SplitBatch batch = getDone(getNextBatch(source));
+        assertEquals(batch.getSplits().size(), 0);
+        assertTrue(batch.isLastBatch());
+        assertTrue(source.isFinished());
+        assertEquals(splitSourcesCreated.get(), 0);
+        assertEquals(stats.getSplitSourcesPrunedByDynamicFilter().getTotalCount(), 1);
+    }
+
+    @Test
+    public void testPruneRemainingSplits()
+    {
+        SplitSchedulerStats stats = new SplitSchedulerStats();
+        AtomicReference<TupleDomain<ColumnHandle>> dynamicFilter = new AtomicReference<>(TupleDomain.all());
+        MockSplitSource mockSource = new MockSplitSource()
+                .setBatchSize(3)
+                .increaseAvailableSplits(9)
+                .atSplitCompletion(FINISH);
+        SplitSource source = new DynamicFilterSplitSource(
+                CATALOG_NAME,
+                () -> immediateFuture(null),
+                dynamicFilter::get,
+                () -> mockSource,
+                stats);
+
+        assertEquals(getDone(getNextBatch(source)).getSplits().size(), 3);
+
+        // the build side turned out to be empty while the splits were enumerated
+        dynamicFilter.set(TupleDomain.none());
+        SplitBatch batch = getDone(getNextBatch(source));
+        assertEquals(batch.getSplits().size(), 0);
+        assertTrue(batch.isLastBatch());
+        assertEquals(mockSource.getNextBatchInvocationCount(), 1);
+        assertEquals(stats.getSplitSourcesPrunedByDynamicFilter().getTotalCount(), 0);
+    }
+
+    @Test
+    public void testPruneEnumeratedSplits()
+    {
+        SplitSchedulerStats stats = new SplitSchedulerStats();
+        AtomicReference<TupleDomain<ColumnHandle>> dynamicFilter = new AtomicReference<>(TupleDomain.all());
+        MockSplitSource mockSource = new MockSplitSource()
+                .setBatchSize(3)
+                .increaseAvailableSplits(6);
+        SplitSource source = new DynamicFilterSplitSource(
+                CATALOG_NAME,
+                () -> immediateFuture(null),
+                dynamicFilter::get,
+                () -> mockSource,
+                stats);
+
+        assertEquals(getDone(getNextBatch(source)).getSplits().size(), 3);
+        assertEquals(getDone(getNextBatch(source)).getSplits().size(), 3);
+
+        ListenableFuture<SplitBatch> pending = getNextBatch(source);
+        assertFalse(pending.isDone());
+        dynamicFilter.set(TupleDomain.none());
+        mockSource.increaseAvailableSplits(2);
+        assertEquals(getDone(pending).getSplits().size(), 0);
+        assertEquals(stats.getSplitsPrunedByDynamicFilter().getTotalCount(), 2);
+    }
+
+    private static ListenableFuture<SplitBatch> getNextBatch(SplitSource source)
+    {
+        return source.getNextBatch(NOT_PARTITIONED, Lifespan.taskWide(), 10);
+    }
+}
@@ -17,6 +17,7 @@ import com.google.common.collect.ImmutableMap;
 import io.airlift.configuration.ConfigurationFactory;
 import io.airlift.units.DataSize;
 import io.airlift.units.Duration;
+import io.prestosql.execution.buffer.CompressionCodec;
 import io.prestosql.operator.aggregation.arrayagg.ArrayAggGroupImplementation;
 import io.prestosql.operator.aggregation.histogram.HistogramGroupImplementation;
 import io.prestosql.operator.aggregation.multimapagg.MultimapAggGroupImplementation;
@@ -53,14 +54,19 @@ public class TestFeaturesConfig
                 .setDistributedIndexJoinsEnabled(false)
                 .setJoinDistributionType(PARTITIONED)
                 .setJoinMaxBroadcastTableSize(null)
+                .setFailOnOversizedBroadcastJoin(false)
                 .setGroupedExecutionEnabled(false)
                 .setDynamicScheduleForGroupedExecutionEnabled(false)
                 .setConcurrentLifespansPerTask(0)
                 .setFastInequalityJoins(true)
+                .setJoinBloomFilterEnabled(false)
+                .setBigintJoinHashEnabled(true)
                 .setColocatedJoinsEnabled(false)
                 .setSpatialJoinsEnabled(true)
+                .setMergeJoinsEnabled(false)
                 .setJoinReorderingStrategy(ELIMINATE_CROSS_JOINS)
                 .setMaxReorderedJoins(9)
+                .setSkewedJoinReplicationFactor(8)
                 .setRedistributeWrites(true)
                 .setScaleWriters(false)
                 .setWriterMinSize(new DataSize(32, MEGABYTE))
@@ -89,6 +95,9 @@ public class TestFeaturesConfig
                 .setDefaultFilterFactorEnabled(false)
                 .setEnableForcedExchangeBelowGroupId(true)
                 .setExchangeCompressionEnabled(false)
+                .setExchangeCompressionCodec(CompressionCodec.LZ4)
+                .setExchangeColumnarCompressionEnabled(false)
+                .setExchangeDictionaryPreservingEnabled(false)
                 .setLegacyTimestamp(true)
                 .setEnableIntermediateAggregations(false)
                 .setPushAggregationThroughJoin(true)
@@ -99,6 +108,9 @@ public class TestFeaturesConfig
                 .setFilterAndProjectMinOutputPageRowCount(256)
                 .setUseMarkDistinct(true)
                 .setPreferPartialAggregation(true)
+                .setAdaptivePartialAggregationEnabled(true)
+                .setAdaptivePartialAggregationMinRows(100_000)
+                .setAdaptivePartialAggregationUniqueRowsRatioThreshold(0.8)
                 .setOptimizeTopNRowNumber(true)
                 .setHistogramGroupImplementation(HistogramGroupImplementation.NEW)
                 .setArrayAggGroupImplementation(ArrayAggGroupImplementation.NEW)
@@ -107,7 +119,9 @@ public class TestFeaturesConfig
                 .setMaxGroupingSets(2048)
                 .setWorkProcessorPipelines(false)
                 .setSkipRedundantSort(true)
-                .setEnableDynamicFiltering(false));
+                .setEnableDynamicFiltering(false)
+                .setDynamicFilteringMaxPerDriverValueCount(1000)
+                .setDynamicFilteringWaitTimeout(new Duration(1, SECONDS)));
     }
 
     @Test
@@ -126,14 +140,19 @@ public class TestFeaturesConfig
                 .put("distributed-index-joins-enabled", "true")
                 .put("join-distribution-type", "BROADCAST")
                 .put("join-max-broadcast-table-size", "42GB")
+                .put("fail-on-oversized-broadcast-join", "true")
                 .put("grouped-execution-enabled", "true")
                 .put("dynamic-schedule-for-grouped-execution", "true")
                 .put("concurrent-lifespans-per-task", "1")
                 .put("fast-inequality-joins", "false")
+                .put("join-bloom-filter-enabled", "true")
+                .put("bigint-join-hash-enabled", "false")
                 .put("colocated-joins-enabled", "true")
                 .put("spatial-joins-enabled", "false")
+                .put("merge-joins-enabled", "true")
                 .put("optimizer.join-reordering-strategy", "NONE")
                 .put("optimizer.max-reordered-joins", "5")
+                .put("optimizer.skewed-join-replication-factor", "4")
                 .put("redistribute-writes", "false")
                 .put("scale-writers", "true")
                 .put("writer-min-size", "42GB")
@@ -157,6 +176,9 @@ public class TestFeaturesConfig
                 .put("experimental.memory-revoking-threshold", "0.2")
                 .put("experimental.memory-revoking-target", "0.8")
                 .put("exchange.compression-enabled", "true")
+                .put("exchange.compression-codec", "ZSTD")
+                .put("exchange.columnar-compression-enabled", "true")
+                .put("exchange.dictionary-preserving-enabled", "true")
                 .put("deprecated.legacy-timestamp", "false")
                 .put("optimizer.enable-intermediate-aggregations", "true")
                 .put("parse-decimal-literals-as-double", "true")
@@ -169,12 +191,17 @@ public class TestFeaturesConfig
                 .put("multimapagg.implementation", "LEGACY")
                 .put("optimizer.use-mark-distinct", "false")
                 .put("optimizer.prefer-partial-aggregation", "false")
+                .put("adaptive-partial-aggregation.enabled", "false")
+                .put("adaptive-partial-aggregation.min-rows", "1000")
+                .put("adaptive-partial-aggregation.unique-rows-ratio-threshold", "0.5")
                 .put("optimizer.optimize-top-n-row-number", "false")
                 .put("distributed-sort", "false")
                 .put("analyzer.max-grouping-sets", "2047")
                 .put("experimental.work-processor-pipelines", "true")
                 .put("optimizer.skip-redundant-sort", "false")
                 .put("experimental.enable-dynamic-filtering", "true")
+                .put("experimental.dynamic-filtering-max-per-driver-value-count", "10")
+                .put("experimental.dynamic-filtering-wait-timeout", "5s")
                 .build();
 
         FeaturesConfig expected = new FeaturesConfig()
@@ -189,14 +216,19 @@ public class TestFeaturesConfig
                 .setDistributedIndexJoinsEnabled(true)
                 .setJoinDistributionType(BROADCAST)
                 .setJoinMaxBroadcastTableSize(new DataSize(42, GIGABYTE))
+                .setFailOnOversizedBroadcastJoin(true)
                 .setGroupedExecutionEnabled(true)
                 .setDynamicScheduleForGroupedExecutionEnabled(true)
                 .setConcurrentLifespansPerTask(1)
                 .setFastInequalityJoins(false)
+                .setJoinBloomFilterEnabled(true)
+                .setBigintJoinHashEnabled(false)
                 .setColocatedJoinsEnabled(true)
                 .setSpatialJoinsEnabled(false)
+                .setMergeJoinsEnabled(true)
                 .setJoinReorderingStrategy(NONE)
                 .setMaxReorderedJoins(5)
+                .setSkewedJoinReplicationFactor(4)
                 .setRedistributeWrites(false)
                 .setScaleWriters(true)
                 .setWriterMinSize(new DataSize(42, GIGABYTE))
@@ -220,6 +252,9 @@ public class TestFeaturesConfig
                 .setMemoryRevokingThreshold(0.2)
                 .setMemoryRevokingTarget(0.8)
                 .setExchangeCompressionEnabled(true)
+                .setExchangeCompressionCodec(CompressionCodec.ZSTD)
+                .setExchangeColumnarCompressionEnabled(true)
+                .setExchangeDictionaryPreservingEnabled(true)
                 .setLegacyTimestamp(false)
                 .setEnableIntermediateAggregations(true)
                 .setParseDecimalLiteralsAsDouble(true)
@@ -229,6 +264,9 @@ public class TestFeaturesConfig
                 .setFilterAndProjectMinOutputPageRowCount(2048)
                 .setUseMarkDistinct(false)
                 .setPreferPartialAggregation(false)
+                .setAdaptivePartialAggregationEnabled(false)
+                .setAdaptivePartialAggregationMinRows(1000)
+                .setAdaptivePartialAggregationUniqueRowsRatioThreshold(0.5)
                 .setOptimizeTopNRowNumber(false)
                 .setHistogramGroupImplementation(HistogramGroupImplementation.LEGACY)
                 .setArrayAggGroupImplementation(ArrayAggGroupImplementation.LEGACY)
@@ -238,7 +276,9 @@ public class TestFeaturesConfig
                 .setDefaultFilterFactorEnabled(true)
                 .setWorkProcessorPipelines(true)
                 .setSkipRedundantSort(false)
-                .setEnableDynamicFiltering(true);
+                .setEnableDynamicFiltering(true)
+                .setDynamicFilteringMaxPerDriverValueCount(10)
+                .setDynamicFilteringWaitTimeout(new Duration(5, SECONDS));
         assertFullMapping(properties, expected);
     }
 
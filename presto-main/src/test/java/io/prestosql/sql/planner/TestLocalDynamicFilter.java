@@ -0,0 +1,85 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.sql.planner;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import io.prestosql.spi.predicate.Domain;
+import io.prestosql.spi.predicate.TupleDomain;
+import org.testng.annotations.Test;
+
+import java.util.function.Consumer;
+
+import static io.airlift.concurrent.MoreFutures.getDone;
+import static io.prestosql.spi.type.BigintType.BIGINT;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class TestLocalDynamicFilter
+{
+    private static final Symbol PROBE_A = new Symbol("a");
+    private static final Symbol PROBE_B = new Symbol("b");
+
+    @Test
+    public void testUnionOfPartitions()
+    {
+        LocalDynamicFilter filter = new LocalDynamicFilter(
+                ImmutableMap.of("0", 0, "1", 1),
+                ImmutableMap.of("0", BIGINT, "1", BIGINT),
+                3);
+        Consumer<TupleDomain<String>> consumer = filter.getTupleDomainConsumer();
+
+        consumer.accept(TupleDomain.withColumnDomains(ImmutableMap.of("0", Domain.singleValue(BIGINT, 1L), "1", Domain.singleValue(BIGINT, 10L))));
+        consumer.accept(TupleDomain.none());
+        assertFalse(filter.getResultFuture().isDone());
+
+        consumer.accept(TupleDomain.withColumnDomains(ImmutableMap.of("0", Domain.singleValue(BIGINT, 2L))));
+        assertTrue(filter.getResultFuture().isDone());
+
+        assertEquals(getDone(filter.getResultFuture()), ImmutableMap.of(
+                "0", Domain.multipleValues(BIGINT, ImmutableList.<Object>of(1L, 2L)),
+                "1", Domain.all(BIGINT)));
+    }
+
+    @Test
+    public void testEmptyBuildSide()
+    {
+        LocalDynamicFilter filter = new LocalDynamicFilter(
+                ImmutableMap.of("0", 0),
+                ImmutableMap.of("0", BIGINT),
+                2);
+        Consumer<TupleDomain<String>> consumer = filter.getTupleDomainConsumer();
+
+        consumer.accept(TupleDomain.none());
+        consumer.accept(TupleDomain.none());
+
+        assertEquals(getDone(filter.getResultFuture()), ImmutableMap.of("0", Domain.none(BIGINT)));
+    }
+
+    @Test
+    public void testCollector()
+    {
+        LocalDynamicFiltersCollector collector = new LocalDynamicFiltersCollector();
+        assertEquals(collector.getPredicate(ImmutableMap.of("0", PROBE_A)), TupleDomain.all());
+
+        collector.addDynamicFilter(ImmutableMap.of("0", Domain.multipleValues(BIGINT, ImmutableList.<Object>of(1L, 2L))));
+        collector.addDynamicFilter(ImmutableMap.of("1", Domain.multipleValues(BIGINT, ImmutableList.<Object>of(2L, 3L)), "2", Domain.none(BIGINT)));
+
+        // a column consuming the filters of two joins is constrained by both of them
+        assertEquals(collector.getPredicate(ImmutableMap.of("0", PROBE_A, "1", PROBE_A)), TupleDomain.withColumnDomains(ImmutableMap.of(PROBE_A, Domain.singleValue(BIGINT, 2L))));
+        assertEquals(collector.getPredicate(ImmutableMap.of("0", PROBE_A, "2", PROBE_B)), TupleDomain.none());
+        assertEquals(collector.getPredicate(ImmutableMap.of("3", PROBE_A)), TupleDomain.all());
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.sql.planner.iterative.rule;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import io.prestosql.metadata.TableHandle;
+import io.prestosql.plugin.tpch.TpchColumnHandle;
+import io.prestosql.plugin.tpch.TpchTableHandle;
+import io.prestosql.plugin.tpch.TpchTransactionHandle;
+import io.prestosql.sql.planner.Symbol;
+import io.prestosql.sql.planner.assertions.RvalueMatcher;
+import io.prestosql.sql.planner.iterative.rule.test.BaseRuleTest;
+import io.prestosql.sql.planner.iterative.rule.test.PlanBuilder;
+import io.prestosql.sql.planner.plan.JoinNode;
+import io.prestosql.sql.planner.plan.JoinNode.EquiJoinClause;
+import io.prestosql.sql.planner.plan.PlanNode;
+import org.testng.annotations.Test;
+
+import java.util.Optional;
+
+import static io.prestosql.SystemSessionProperties.SKEWED_JOIN_KEYS;
+import static io.prestosql.spi.type.BigintType.BIGINT;
+import static io.prestosql.sql.planner.assertions.PlanMatchPattern.equiJoinClause;
+import static io.prestosql.sql.planner.assertions.PlanMatchPattern.join;
+import static io.prestosql.sql.planner.assertions.PlanMatchPattern.project;
+import static io.prestosql.sql.planner.assertions.PlanMatchPattern.tableScan;
+import static io.prestosql.sql.planner.assertions.PlanMatchPattern.unnest;
+import static io.prestosql.sql.planner.plan.JoinNode.DistributionType.PARTITIONED;
+import static io.prestosql.sql.planner.plan.JoinNode.DistributionType.REPLICATED;
+import static io.prestosql.sql.planner.plan.JoinNode.Type.FULL;
+import static io.prestosql.sql.planner.plan.JoinNode.Type.INNER;
+
+public class TestDistributeSkewedJoinKeys
+        extends BaseRuleTest
+{
+    @Test
+    public void testDistributeSkewedKeys()
+    {
+        tester().assertThat(new DistributeSkewedJoinKeys(tester().getMetadata()))
+                .setSystemProperty(SKEWED_JOIN_KEYS, "orders.custkey:1,2")
+                .on(p -> ordersJoinCustomer(p, INNER, PARTITIONED))
+                .matches(
+                        join(
+                                INNER,
+                                ImmutableList.of(equiJoinClause("o_custkey", "c_custkey"), equiJoinClause("probe_salt", "build_salt")),
+                                project(tableScan("orders", ImmutableMap.of("o_custkey", "custkey")))
+                                        .withAlias("probe_salt", outputSymbol("probe_salt")),
+                                unnest(project(tableScan("customer", ImmutableMap.of("c_custkey", "custkey"))))
+                                        .withAlias("build_salt", outputSymbol("build_salt"))));
+    }
+
+    @Test
+    public void testDoesNotFireWithoutSkewedKeys()
+    {
+        tester().assertThat(new DistributeSkewedJoinKeys(tester().getMetadata()))
+                .on(p -> ordersJoinCustomer(p, INNER, PARTITIONED))
+                .doesNotFire();
+
+        tester().assertThat(new DistributeSkewedJoinKeys(tester().getMetadata()))
+                .setSystemProperty(SKEWED_JOIN_KEYS, "orders.orderkey:1")
+                .on(p -> ordersJoinCustomer(p, INNER, PARTITIONED))
+                .doesNotFire();
+    }
+
+    @Test
+    public void testDoesNotFireForReplicatedOrFullJoin()
+    {
+        tester().assertThat(new DistributeSkewedJoinKeys(tester().getMetadata()))
+                .setSystemProperty(SKEWED_JOIN_KEYS, "orders.custkey:1")
+                .on(p -> ordersJoinCustomer(p, INNER, REPLICATED))
+                .doesNotFire();
+
+        tester().assertThat(new DistributeSkewedJoinKeys(tester().getMetadata()))
+                .setSystemProperty(SKEWED_JOIN_KEYS, "orders.custkey:1")
+                .on(p -> ordersJoinCustomer(p, FULL, PARTITIONED))
+                .doesNotFire();
+    }
+
+    private JoinNode ordersJoinCustomer(PlanBuilder p, JoinNode.Type type, JoinNode.DistributionType distributionType)
+    {
+        Symbol ordersCustkey = p.symbol("o_custkey", BIGINT);
+        Symbol customerCustkey = p.symbol("c_custkey", BIGINT);
+        PlanNode orders = p.tableScan(
+                tableHandle("orders"),
+                ImmutableList.of(ordersCustkey),
+                ImmutableMap.of(ordersCustkey, new TpchColumnHandle("custkey", BIGINT)));
+        PlanNode customer = p.tableScan(
+                tableHandle("customer"),
+                ImmutableList.of(customerCustkey),
+                ImmutableMap.of(customerCustkey, new TpchColumnHandle("custkey", BIGINT)));
+        return p.join(
+                type,
+                orders,
+                customer,
+                ImmutableList.of(new EquiJoinClause(ordersCustkey, customerCustkey)),
+                ImmutableList.of(ordersCustkey, customerCustkey),
+                Optional.empty(),
+                Optional.empty(),
+                Optional.empty(),
+                Optional.of(distributionType),
+                ImmutableMap.of());
+    }
+
+    private TableHandle tableHandle(String tableName)
+    {
+        return new TableHandle(
+                tester().getCurrentConnectorId(),
+                new TpchTableHandle(tableName, 1.0),
+                TpchTransactionHandle.INSTANCE,
+                Optional.empty());
+    }
+
+    private static RvalueMatcher outputSymbol(String name)
+    {
+        return (node, session, metadata, symbolAliases) -> node.getOutputSymbols().stream()
+                .filter(symbol -> symbol.getName().equals(name))
+                .findFirst();
+    }
+}
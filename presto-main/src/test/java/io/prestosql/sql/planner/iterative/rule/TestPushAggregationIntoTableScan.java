@@ -0,0 +1,158 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.sql.planner.iterative.rule;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import io.prestosql.Session;
+import io.prestosql.metadata.AbstractMockMetadata;
+import io.prestosql.metadata.TableHandle;
+import io.prestosql.spi.connector.AggregateFunction;
+import io.prestosql.spi.connector.AggregationApplicationResult;
+import io.prestosql.spi.connector.ColumnHandle;
+import io.prestosql.spi.connector.ProjectionApplicationResult.Assignment;
+import io.prestosql.spi.expression.ConnectorExpression;
+import io.prestosql.spi.expression.Variable;
+import io.prestosql.sql.planner.FunctionCallBuilder;
+import io.prestosql.sql.planner.Symbol;
+import io.prestosql.sql.planner.iterative.rule.test.BaseRuleTest;
+import io.prestosql.sql.planner.plan.AggregationNode.Step;
+import io.prestosql.sql.planner.plan.ProjectNode;
+import io.prestosql.sql.planner.plan.TableScanNode;
+import io.prestosql.sql.tree.FunctionCall;
+import io.prestosql.sql.tree.QualifiedName;
+import io.prestosql.testing.TestingMetadata.TestingColumnHandle;
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static io.prestosql.spi.type.BigintType.BIGINT;
+import static io.prestosql.sql.planner.assertions.PlanMatchPattern.node;
+import static org.testng.Assert.assertEquals;
+
+public class TestPushAggregationIntoTableScan
+        extends BaseRuleTest
+{
+    private static final ColumnHandle GROUPING_COLUMN = new TestingColumnHandle("a");
+    private static final ColumnHandle INPUT_COLUMN = new TestingColumnHandle("b");
+
+    @Test
+    public void testDoesNotFire()
+    {
+        tester().assertThat(new PushAggregationIntoTableScan(new TestMetadata(false)))
+                .on(p -> {
+                    Symbol a = p.symbol("a", BIGINT);
+                    Symbol b = p.symbol("b", BIGINT);
+                    return p.aggregation(aggregation -> aggregation
+                            .singleGroupingSet(a)
+                            .addAggregation(p.symbol("sum", BIGINT), sum(b), ImmutableList.of(BIGINT))
+                            .step(Step.SINGLE)
+                            .source(p.tableScan(ImmutableList.of(a, b), ImmutableMap.of(a, GROUPING_COLUMN, b, INPUT_COLUMN))));
+                })
+                .doesNotFire();
+    }
+
+    @Test
+    public void testDoesNotFireForPartialAggregation()
+    {
+        tester().assertThat(new PushAggregationIntoTableScan(new TestMetadata(true)))
+                .on(p -> {
+                    Symbol a = p.symbol("a", BIGINT);
+                    Symbol b = p.symbol("b", BIGINT);
+                    return p.aggregation(aggregation -> aggregation
+                            .singleGroupingSet(a)
+                            .addAggregation(p.symbol("sum", BIGINT), sum(b), ImmutableList.of(BIGINT))
+                            .step(Step.PARTIAL)
+                            .source(p.tableScan(ImmutableList.of(a, b), ImmutableMap.of(a, GROUPING_COLUMN, b, INPUT_COLUMN))));
+                })
+                .doesNotFire();
+    }
+
+    @Test
+    public void testDoesNotFireForMaskedAggregation()
+    {
+        tester().assertThat(new PushAggregationIntoTableScan(new TestMetadata(true)))
+                .on(p -> {
+                    Symbol a = p.symbol("a", BIGINT);
+                    Symbol b = p.symbol("b", BIGINT);
+                    Symbol mask = p.symbol("mask");
+                    return p.aggregation(aggregation -> aggregation
+                            .singleGroupingSet(a)
+                            .addAggregation(p.symbol("sum", BIGINT), sum(b), ImmutableList.of(BIGINT), mask)
+                            .step(Step.SINGLE)
+                            .source(p.tableScan(ImmutableList.of(a, b, mask), ImmutableMap.of(a, GROUPING_COLUMN, b, INPUT_COLUMN, mask, new TestingColumnHandle("mask")))));
+                })
+                .doesNotFire();
+    }
+
+    @Test
+    public void testPushAggregation()
+    {
+        tester().assertThat(new PushAggregationIntoTableScan(new TestMetadata(true)))
+                .on(p -> {
+                    Symbol a = p.symbol("a", BIGINT);
+                    Symbol b = p.symbol("b", BIGINT);
+                    return p.aggregation(aggregation -> aggregation
+                            .singleGroupingSet(a)
+                            .addAggregation(p.symbol("sum", BIGINT), sum(b), ImmutableList.of(BIGINT))
+                            .step(Step.SINGLE)
+                            .source(p.tableScan(ImmutableList.of(a, b), ImmutableMap.of(a, GROUPING_COLUMN, b, INPUT_COLUMN))));
+                })
+                .matches(node(ProjectNode.class, node(TableScanNode.class)));
+    }
+
+    private FunctionCall sum(Symbol input)
+    {
+        return new FunctionCallBuilder(tester().getMetadata())
+                .setName(QualifiedName.of("sum"))
+                .addArgument(BIGINT, input.toSymbolReference())
+                .build();
+    }
+
+    private static class TestMetadata
+            extends AbstractMockMetadata
+    {
+        private final boolean aggregationPushdown;
+
+        public TestMetadata(boolean aggregationPushdown)
+        {
+            this.aggregationPushdown = aggregationPushdown;
+        }
+
+        @Override
+        public Optional<AggregationApplicationResult<TableHandle>> applyAggregation(
+                Session session,
+                TableHandle table,
+                List<AggregateFunction> aggregates,
+                Map<String, ColumnHandle> assignments,
+                List<ColumnHandle> groupingColumns)
+        {
+            if (!aggregationPushdown) {
+                return Optional.empty();
+            }
+            assertEquals(groupingColumns, ImmutableList.of(GROUPING_COLUMN));
+
+            List<ConnectorExpression> projections = aggregates.stream()
+                    .map(aggregate -> new Variable(aggregate.getFunctionName(), aggregate.getOutputType()))
+                    .collect(toImmutableList());
+            List<Assignment> newAssignments = aggregates.stream()
+                    .map(aggregate -> new Assignment(aggregate.getFunctionName(), new TestingColumnHandle(aggregate.getFunctionName()), aggregate.getOutputType()))
+                    .collect(toImmutableList());
+            return Optional.of(new AggregationApplicationResult<>(table, projections, newAssignments));
+        }
+    }
+}
@@ -0,0 +1,218 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.sql.planner.iterative.rule;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import io.prestosql.Session;
+import io.prestosql.connector.CatalogName;
+import io.prestosql.metadata.AbstractMockMetadata;
+import io.prestosql.metadata.TableHandle;
+import io.prestosql.spi.connector.ColumnHandle;
+import io.prestosql.spi.connector.JoinApplicationResult;
+import io.prestosql.spi.connector.JoinCondition;
+import io.prestosql.spi.connector.JoinType;
+import io.prestosql.sql.planner.Symbol;
+import io.prestosql.sql.planner.iterative.rule.test.BaseRuleTest;
+import io.prestosql.sql.planner.plan.JoinNode;
+import io.prestosql.sql.planner.plan.JoinNode.EquiJoinClause;
+import io.prestosql.sql.planner.plan.TableScanNode;
+import io.prestosql.testing.TestingHandle;
+import io.prestosql.testing.TestingMetadata.TestingColumnHandle;
+import io.prestosql.testing.TestingMetadata.TestingTableHandle;
+import io.prestosql.testing.TestingTransactionHandle;
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static com.google.common.collect.ImmutableMap.toImmutableMap;
+import static io.prestosql.SystemSessionProperties.ENABLE_DYNAMIC_FILTERING;
+import static io.prestosql.spi.type.BigintType.BIGINT;
+import static io.prestosql.sql.DynamicFilters.createDynamicFilterExpression;
+import static io.prestosql.sql.ExpressionUtils.combineConjuncts;
+import static io.prestosql.sql.planner.assertions.PlanMatchPattern.filter;
+import static io.prestosql.sql.planner.assertions.PlanMatchPattern.node;
+import static io.prestosql.sql.planner.iterative.rule.test.PlanBuilder.expression;
+import static java.util.function.Function.identity;
+import static org.testng.Assert.assertEquals;
+
+public class TestPushJoinIntoTableScan
+        extends BaseRuleTest
+{
+    private static final ColumnHandle LEFT_COLUMN = new TestingColumnHandle("a");
+    private static final ColumnHandle RIGHT_COLUMN = new TestingColumnHandle("b");
+
+    @Test
+    public void testDoesNotFire()
+    {
+        tester().assertThat(new PushJoinIntoTableScan(new TestMetadata(false)))
+                .on(p -> {
+                    Symbol a = p.symbol("a", BIGINT);
+                    Symbol b = p.symbol("b", BIGINT);
+                    return p.join(
+                            JoinNode.Type.INNER,
+                            p.tableScan(ImmutableList.of(a), ImmutableMap.of(a, LEFT_COLUMN)),
+                            p.tableScan(ImmutableList.of(b), ImmutableMap.of(b, RIGHT_COLUMN)),
+                            new EquiJoinClause(a, b));
+                })
+                .doesNotFire();
+    }
+
+    @Test
+    public void testDoesNotFireForJoinFilter()
+    {
+        tester().assertThat(new PushJoinIntoTableScan(new TestMetadata(true)))
+                .on(p -> {
+                    Symbol a = p.symbol("a", BIGINT);
+                    Symbol b = p.symbol("b", BIGINT);
+                    return p.join(
+                            JoinNode.Type.INNER,
+                            p.tableScan(ImmutableList.of(a), ImmutableMap.of(a, LEFT_COLUMN)),
+                            p.tableScan(ImmutableList.of(b), ImmutableMap.of(b, RIGHT_COLUMN)),
+                            expression("a > b"),
+                            new EquiJoinClause(a, b));
+                })
+                .doesNotFire();
+    }
+
+    @Test
+    public void testDoesNotFireForDifferentCatalogs()
+    {
+        TableHandle otherTable = new TableHandle(new CatalogName("other"), new TestingTableHandle(), TestingTransactionHandle.create(), Optional.of(TestingHandle.INSTANCE));
+        tester().assertThat(new PushJoinIntoTableScan(new TestMetadata(true)))
+                .on(p -> {
+                    Symbol a = p.symbol("a", BIGINT);
+                    Symbol b = p.symbol("b", BIGINT);
+                    return p.join(
+                            JoinNode.Type.INNER,
+                            p.tableScan(ImmutableList.of(a), ImmutableMap.of(a, LEFT_COLUMN)),
+                            p.tableScan(otherTable, ImmutableList.of(b), ImmutableMap.of(b, RIGHT_COLUMN)),
+                            new EquiJoinClause(a, b));
+                })
+                .doesNotFire();
+    }
+
+    @Test
+    public void testPushJoin()
+    {
+        tester().assertThat(new PushJoinIntoTableScan(new TestMetadata(true)))
+                .on(p -> {
+                    Symbol a = p.symbol("a", BIGINT);
+                    Symbol b = p.symbol("b", BIGINT);
+                    return p.join(
+                            JoinNode.Type.LEFT,
+                            p.tableScan(ImmutableList.of(a), ImmutableMap.of(a, LEFT_COLUMN)),
+                            p.tableScan(ImmutableList.of(b), ImmutableMap.of(b, RIGHT_COLUMN)),
+                            new EquiJoinClause(a, b));
+                })
+                .matches(node(TableScanNode.class));
+    }
+
+    @Test
+    public void testPushJoinWithDynamicFilters()
+    {
+        tester().assertThat(new PushJoinIntoTableScan(new TestMetadata(true, JoinType.INNER)))
+                .setSystemProperty(ENABLE_DYNAMIC_FILTERING, "true")
+                .on(p -> {
+                    Symbol a = p.symbol("a", BIGINT);
+                    Symbol b = p.symbol("b", BIGINT);
+                    return p.join(
+                            JoinNode.Type.INNER,
+                            p.filter(
+                                    createDynamicFilterExpression(tester().getMetadata(), "df", BIGINT, a.toSymbolReference()),
+                                    p.tableScan(ImmutableList.of(a), ImmutableMap.of(a, LEFT_COLUMN))),
+                            p.tableScan(ImmutableList.of(b), ImmutableMap.of(b, RIGHT_COLUMN)),
+                            ImmutableList.of(new EquiJoinClause(a, b)),
+                            ImmutableList.of(a, b),
+                            Optional.empty(),
+                            Optional.empty(),
+                            Optional.empty(),
+                            ImmutableMap.of("df", b));
+                })
+                .matches(node(TableScanNode.class));
+    }
+
+    @Test
+    public void testPushJoinWithDynamicFiltersKeepsOtherPredicates()
+    {
+        tester().assertThat(new PushJoinIntoTableScan(new TestMetadata(true, JoinType.INNER)))
+                .setSystemProperty(ENABLE_DYNAMIC_FILTERING, "true")
+                .on(p -> {
+                    Symbol a = p.symbol("a", BIGINT);
+                    Symbol b = p.symbol("b", BIGINT);
+                    return p.join(
+                            JoinNode.Type.INNER,
+                            p.filter(
+                                    combineConjuncts(
+                                            expression("a > 5"),
+                                            createDynamicFilterExpression(tester().getMetadata(), "df", BIGINT, a.toSymbolReference())),
+                                    p.tableScan(ImmutableList.of(a), ImmutableMap.of(a, LEFT_COLUMN))),
+                            p.tableScan(ImmutableList.of(b), ImmutableMap.of(b, RIGHT_COLUMN)),
+                            ImmutableList.of(new EquiJoinClause(a, b)),
+                            ImmutableList.of(a, b),
+                            Optional.empty(),
+                            Optional.empty(),
+                            Optional.empty(),
+                            ImmutableMap.of("df", b));
+                })
+                .matches(filter(
+                        "a > 5",
+                        node(TableScanNode.class)
+                                .withAlias("a", (node, session, metadata, symbolAliases) -> Optional.of(new Symbol("a")))));
+    }
+
+    private static class TestMetadata
+            extends AbstractMockMetadata
+    {
+        private final boolean joinPushdown;
+        private final JoinType expectedJoinType;
+
+        public TestMetadata(boolean joinPushdown)
+        {
+            this(joinPushdown, JoinType.LEFT_OUTER);
+        }
+
+        public TestMetadata(boolean joinPushdown, JoinType expectedJoinType)
+        {
+            this.joinPushdown = joinPushdown;
+            this.expectedJoinType = expectedJoinType;
+        }
+
+        @Override
+        public Optional<JoinApplicationResult<TableHandle>> applyJoin(
+                Session session,
+                JoinType joinType,
+                TableHandle left,
+                TableHandle right,
+                List<JoinCondition> joinConditions,
+                Map<String, ColumnHandle> leftAssignments,
+                Map<String, ColumnHandle> rightAssignments)
+        {
+            if (!joinPushdown) {
+                return Optional.empty();
+            }
+            assertEquals(joinType, expectedJoinType);
+            assertEquals(joinConditions.size(), 1);
+            assertEquals(leftAssignments, ImmutableMap.of("a", LEFT_COLUMN));
+            assertEquals(rightAssignments, ImmutableMap.of("b", RIGHT_COLUMN));
+
+            return Optional.of(new JoinApplicationResult<>(
+                    left,
+                    leftAssignments.values().stream().collect(toImmutableMap(identity(), identity())),
+                    rightAssignments.values().stream().collect(toImmutableMap(identity(), identity()))));
+        }
+    }
+}
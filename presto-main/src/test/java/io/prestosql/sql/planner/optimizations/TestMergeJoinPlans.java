@@ -0,0 +1,107 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.sql.planner.optimizations;
+
+import com.google.common.collect.ImmutableMap;
+import io.prestosql.Session;
+import io.prestosql.sql.planner.assertions.BasePlanTest;
+import io.prestosql.sql.planner.plan.JoinNode;
+import io.prestosql.sql.planner.plan.MergeJoinNode;
+import io.prestosql.testing.MaterializedResult;
+import org.intellij.lang.annotations.Language;
+import org.testng.annotations.Test;
+
+import static io.airlift.testing.Assertions.assertEqualsIgnoreOrder;
+import static io.prestosql.SystemSessionProperties.MERGE_JOIN;
+import static io.prestosql.sql.planner.assertions.PlanMatchPattern.anyNot;
+import static io.prestosql.sql.planner.assertions.PlanMatchPattern.anyTree;
+import static io.prestosql.sql.planner.assertions.PlanMatchPattern.node;
+import static io.prestosql.sql.planner.assertions.PlanMatchPattern.tableScan;
+
+public class TestMergeJoinPlans
+        extends BasePlanTest
+{
+    @Language("SQL")
+    private static final String SORTED_INPUTS_JOIN = "" +
+            "SELECT o.orderkey, o.custkey, l.linenumber " +
+            "FROM (SELECT orderkey, custkey FROM orders ORDER BY orderkey LIMIT 100) o " +
+            "%s JOIN (SELECT orderkey, linenumber FROM lineitem ORDER BY orderkey LIMIT 300) l " +
+            "ON o.orderkey = l.orderkey";
+
+    public TestMergeJoinPlans()
+    {
+        super(ImmutableMap.of(MERGE_JOIN, "true"));
+    }
+
+    @Test
+    public void testSortedInputs()
+    {
+        assertPlan(
+                String.format(SORTED_INPUTS_JOIN, "INNER"),
+                anyTree(
+                        node(MergeJoinNode.class,
+                                anyTree(tableScan("orders")),
+                                anyTree(tableScan("lineitem")))));
+        assertPlan(
+                String.format(SORTED_INPUTS_JOIN, "LEFT"),
+                anyTree(
+                        node(MergeJoinNode.class,
+                                anyTree(tableScan("orders")),
+                                anyTree(tableScan("lineitem")))));
+    }
+
+    @Test
+    public void testUnsupportedJoins()
+    {
+        // the build side is not sorted on the join key
+        assertPlan(
+                "SELECT * " +
+                        "FROM (SELECT orderkey FROM orders ORDER BY orderkey LIMIT 100) o " +
+                        "JOIN (SELECT orderkey, linenumber FROM lineitem ORDER BY linenumber LIMIT 300) l " +
+                        "ON o.orderkey = l.orderkey",
+                anyNot(MergeJoinNode.class, node(JoinNode.class, anyTree(tableScan("orders")), anyTree(tableScan("lineitem")))));
+
+        // right joins are not supported
+        assertPlan(
+                String.format(SORTED_INPUTS_JOIN, "RIGHT"),
+                anyNot(MergeJoinNode.class, node(JoinNode.class, anyTree(tableScan("orders")), anyTree(tableScan("lineitem")))));
+    }
+
+    @Test
+    public void testDisabled()
+    {
+        Session session = Session.builder(getQueryRunner().getDefaultSession())
+                .setSystemProperty(MERGE_JOIN, "false")
+                .build();
+        assertPlanWithSession(
+                String.format(SORTED_INPUTS_JOIN, "INNER"),
+                session,
+                true,
+                anyNot(MergeJoinNode.class, node(JoinNode.class, anyTree(tableScan("orders")), anyTree(tableScan("lineitem")))));
+    }
+
+    @Test
+    public void testResults()
+    {
+        Session hashJoinSession = Session.builder(getQueryRunner().getDefaultSession())
+                .setSystemProperty(MERGE_JOIN, "false")
+                .build();
+        for (String type : new String[] {"INNER", "LEFT"}) {
+            @Language("SQL") String sql = String.format(SORTED_INPUTS_JOIN, type);
+            MaterializedResult actual = getQueryRunner().execute(sql);
+            MaterializedResult expected = getQueryRunner().execute(hashJoinSession, sql);
+            assertEqualsIgnoreOrder(actual.getMaterializedRows(), expected.getMaterializedRows());
+        }
+    }
+}
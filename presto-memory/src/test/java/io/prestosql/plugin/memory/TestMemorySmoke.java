@@ -13,7 +13,10 @@
  */
 package io.prestosql.plugin.memory;
 
+import com.google.common.collect.ImmutableList;
+import io.prestosql.Session;
 import io.prestosql.metadata.QualifiedObjectName;
+import io.prestosql.sql.analyzer.FeaturesConfig.JoinDistributionType;
 import io.prestosql.testing.MaterializedResult;
 import io.prestosql.testing.MaterializedRow;
 import io.prestosql.tests.AbstractTestQueryFramework;
@@ -22,6 +25,10 @@ import org.testng.annotations.Test;
 
 import java.util.List;
 
+import static io.prestosql.SystemSessionProperties.ENABLE_DYNAMIC_FILTERING;
+import static io.prestosql.SystemSessionProperties.JOIN_DISTRIBUTION_TYPE;
+import static io.prestosql.sql.analyzer.FeaturesConfig.JoinDistributionType.BROADCAST;
+import static io.prestosql.sql.analyzer.FeaturesConfig.JoinDistributionType.PARTITIONED;
 import static io.prestosql.testing.assertions.Assert.assertEquals;
 import static java.lang.String.format;
 import static org.testng.Assert.assertTrue;
@@ -106,6 +113,27 @@ public class TestMemorySmoke
         assertQuery("SELECT nationkey, regionkey FROM tpch.tiny.nation ORDER BY nationkey", "SELECT nationkey, regionkey FROM nation ORDER BY nationkey");
     }
 
+    @Test
+    public void testJoinDynamicFilteringNone()
+    {
+        // the build side is empty, so the splits of the probe side are pruned
+        assertQuery(
+                withDynamicFiltering(PARTITIONED),
+                "SELECT count(*) FROM lineitem JOIN orders ON lineitem.orderkey = orders.orderkey AND orders.totalprice < 0",
+                "SELECT 0");
+    }
+
+    @Test
+    public void testJoinDynamicFiltering()
+    {
+        for (JoinDistributionType joinDistributionType : ImmutableList.of(PARTITIONED, BROADCAST)) {
+            assertQuery(
+                    withDynamicFiltering(joinDistributionType),
+                    "SELECT count(*) FROM lineitem JOIN orders ON lineitem.orderkey = orders.orderkey AND orders.custkey = 1",
+                    "SELECT count(*) FROM lineitem JOIN orders ON lineitem.orderkey = orders.orderkey AND orders.custkey = 1");
+        }
+    }
+
     @Test
     public void testCreateSchema()
     {
@@ -182,6 +210,14 @@ public class TestMemorySmoke
         assertQueryFails("DROP VIEW test_view", "line 1:1: View 'memory.default.test_view' does not exist");
     }
 
+    private Session withDynamicFiltering(JoinDistributionType joinDistributionType)
+    {
+        return Session.builder(getSession())
+                .setSystemProperty(ENABLE_DYNAMIC_FILTERING, "true")
+                .setSystemProperty(JOIN_DISTRIBUTION_TYPE, joinDistributionType.name())
+                .build();
+    }
+
     private List<QualifiedObjectName> listMemoryTables()
     {
         return getQueryRunner().listTables(getSession(), "memory", "default");
@@ -15,6 +15,7 @@ package io.prestosql.plugin.mongodb;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import io.airlift.log.Logger;
 import io.airlift.slice.Slice;
 import io.prestosql.plugin.mongodb.MongoIndex.MongodbIndexKey;
@@ -35,19 +36,32 @@ import io.prestosql.spi.connector.LocalProperty;
 import io.prestosql.spi.connector.NotFoundException;
 import io.prestosql.spi.connector.SchemaTableName;
 import io.prestosql.spi.connector.SchemaTablePrefix;
+import io.prestosql.spi.connector.SortItem;
 import io.prestosql.spi.connector.SortingProperty;
 import io.prestosql.spi.connector.TableNotFoundException;
+import io.prestosql.spi.connector.TopNApplicationResult;
 import io.prestosql.spi.predicate.TupleDomain;
 import io.prestosql.spi.statistics.ComputedStatistics;
+import io.prestosql.spi.type.Type;
 
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.OptionalLong;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicReference;
 
 import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static io.prestosql.spi.block.SortOrder.ASC_NULLS_FIRST;
+import static io.prestosql.spi.block.SortOrder.DESC_NULLS_LAST;
+import static io.prestosql.spi.type.BigintType.BIGINT;
+import static io.prestosql.spi.type.BooleanType.BOOLEAN;
+import static io.prestosql.spi.type.DoubleType.DOUBLE;
+import static io.prestosql.spi.type.IntegerType.INTEGER;
+import static io.prestosql.spi.type.SmallintType.SMALLINT;
+import static io.prestosql.spi.type.TinyintType.TINYINT;
 import static java.util.Locale.ENGLISH;
 import static java.util.Objects.requireNonNull;
 import static java.util.stream.Collectors.toList;
@@ -57,6 +71,8 @@ public class MongoMetadata
 {
     private static final Logger log = Logger.get(MongoMetadata.class);
 
+    private static final Set<Type> SORTABLE_TYPES = ImmutableSet.of(BIGINT, INTEGER, SMALLINT, TINYINT, DOUBLE, BOOLEAN);
+
     private final MongoSession mongoSession;
 
     private final AtomicReference<Runnable> rollbackAction = new AtomicReference<>();
@@ -257,11 +273,48 @@ public class MongoMetadata
 
         handle = new MongoTableHandle(
                 handle.getSchemaTableName(),
-                newDomain);
+                newDomain,
+                handle.getSortOrder(),
+                handle.getLimit());
 
         return Optional.of(new ConstraintApplicationResult<>(handle, constraint.getSummary()));
     }
 
+    @Override
+    public Optional<TopNApplicationResult<ConnectorTableHandle>> applyTopN(
+            ConnectorSession session,
+            ConnectorTableHandle table,
+            long topNCount,
+            List<SortItem> sortItems,
+            Map<String, ColumnHandle> assignments)
+    {
+        MongoTableHandle handle = (MongoTableHandle) table;
+
+        if (handle.getLimit().isPresent() || topNCount > Integer.MAX_VALUE) {
+            return Optional.empty();
+        }
+
+        List<MongoSortItem> sortOrder = sortItems.stream()
+                .map(sortItem -> new MongoSortItem((MongoColumnHandle) assignments.get(sortItem.getName()), sortItem.getSortOrder()))
+                .collect(toImmutableList());
+        // MongoDB sorts missing and null values before any other value
+        for (MongoSortItem sortItem : sortOrder) {
+            if (!SORTABLE_TYPES.contains(sortItem.getColumn().getType()) ||
+                    (sortItem.getSortOrder() != ASC_NULLS_FIRST && sortItem.getSortOrder() != DESC_NULLS_LAST)) {
+                return Optional.empty();
+            }
+        }
+
+        handle = new MongoTableHandle(
+                handle.getSchemaTableName(),
+                handle.getConstraint(),
+                Optional.of(sortOrder),
+                OptionalLong.of(topNCount));
+
+        // the documents are converted to the column types, which may change their ordering
+        return Optional.of(new TopNApplicationResult<>(handle, false));
+    }
+
     private void setRollback(Runnable action)
     {
         checkState(rollbackAction.compareAndSet(null, action), "rollback action is already set");
@@ -67,6 +67,7 @@ import static io.prestosql.spi.type.BooleanType.BOOLEAN;
 import static io.prestosql.spi.type.DoubleType.DOUBLE;
 import static io.prestosql.spi.type.TimestampType.TIMESTAMP;
 import static io.prestosql.spi.type.VarcharType.createUnboundedVarcharType;
+import static java.lang.Math.toIntExact;
 import static java.lang.String.format;
 import static java.util.Objects.requireNonNull;
 import static java.util.concurrent.TimeUnit.HOURS;
@@ -232,6 +233,8 @@ public class MongoSession
         }
         MongoCollection<Document> collection = getCollection(tableHandle.getSchemaTableName());
         FindIterable<Document> iterable = collection.find(buildQuery(tableHandle.getConstraint())).projection(output);
+        tableHandle.getSortOrder().ifPresent(sortOrder -> iterable.sort(buildSort(sortOrder)));
+        tableHandle.getLimit().ifPresent(limit -> iterable.limit(toIntExact(limit)));
 
         if (cursorBatchSize != 0) {
             iterable.batchSize(cursorBatchSize);
@@ -240,6 +243,16 @@ public class MongoSession
         return iterable.iterator();
     }
 
+    @VisibleForTesting
+    static Document buildSort(List<MongoSortItem> sortOrder)
+    {
+        Document sort = new Document();
+        for (MongoSortItem sortItem : sortOrder) {
+            sort.append(sortItem.getColumn().getName(), sortItem.getSortOrder().isAscending() ? 1 : -1);
+        }
+        return sort;
+    }
+
     @VisibleForTesting
     static Document buildQuery(TupleDomain<ColumnHandle> tupleDomain)
     {
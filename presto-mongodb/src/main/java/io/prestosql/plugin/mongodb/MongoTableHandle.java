@@ -15,13 +15,18 @@ package io.prestosql.plugin.mongodb;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.collect.ImmutableList;
 import io.prestosql.spi.connector.ColumnHandle;
 import io.prestosql.spi.connector.ConnectorTableHandle;
 import io.prestosql.spi.connector.SchemaTableName;
 import io.prestosql.spi.predicate.TupleDomain;
 
+import java.util.List;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.OptionalLong;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static java.util.Objects.requireNonNull;
 
 public class MongoTableHandle
@@ -29,19 +34,26 @@ public class MongoTableHandle
 {
     private final SchemaTableName schemaTableName;
     private final TupleDomain<ColumnHandle> constraint;
+    private final Optional<List<MongoSortItem>> sortOrder;
+    private final OptionalLong limit;
 
     public MongoTableHandle(SchemaTableName schemaTableName)
     {
-        this(schemaTableName, TupleDomain.all());
+        this(schemaTableName, TupleDomain.all(), Optional.empty(), OptionalLong.empty());
     }
 
     @JsonCreator
     public MongoTableHandle(
             @JsonProperty("schemaTableName") SchemaTableName schemaTableName,
-            @JsonProperty("constraint") TupleDomain<ColumnHandle> constraint)
+            @JsonProperty("constraint") TupleDomain<ColumnHandle> constraint,
+            @JsonProperty("sortOrder") Optional<List<MongoSortItem>> sortOrder,
+            @JsonProperty("limit") OptionalLong limit)
     {
         this.schemaTableName = requireNonNull(schemaTableName, "schemaTableName is null");
         this.constraint = requireNonNull(constraint, "constraint is null");
+        this.sortOrder = requireNonNull(sortOrder, "sortOrder is null").map(ImmutableList::copyOf);
+        this.limit = requireNonNull(limit, "limit is null");
+        checkArgument(sortOrder.isPresent() == limit.isPresent(), "sortOrder and limit must be pushed down together");
     }
 
     @JsonProperty
@@ -56,6 +68,18 @@ public class MongoTableHandle
         return constraint;
     }
 
+    @JsonProperty
+    public Optional<List<MongoSortItem>> getSortOrder()
+    {
+        return sortOrder;
+    }
+
+    @JsonProperty
+    public OptionalLong getLimit()
+    {
+        return limit;
+    }
+
     @Override
     public int hashCode()
     {
@@ -23,6 +23,8 @@ import org.bson.Document;
 import org.testng.annotations.Test;
 
 import static io.airlift.slice.Slices.utf8Slice;
+import static io.prestosql.spi.block.SortOrder.ASC_NULLS_FIRST;
+import static io.prestosql.spi.block.SortOrder.DESC_NULLS_LAST;
 import static io.prestosql.spi.predicate.Range.equal;
 import static io.prestosql.spi.predicate.Range.greaterThan;
 import static io.prestosql.spi.predicate.Range.greaterThanOrEqual;
@@ -102,4 +104,16 @@ public class TestMongoSession
                 new Document(COL1.getName(), new Document("$exists", true).append("$eq", null))));
         assertEquals(query, expected);
     }
+
+    @Test
+    public void testBuildSort()
+    {
+        Document sort = MongoSession.buildSort(ImmutableList.of(
+                new MongoSortItem(COL1, ASC_NULLS_FIRST),
+                new MongoSortItem(COL2, DESC_NULLS_LAST)));
+        Document expected = new Document()
+                .append(COL1.getName(), 1)
+                .append(COL2.getName(), -1);
+        assertEquals(sort, expected);
+    }
 }
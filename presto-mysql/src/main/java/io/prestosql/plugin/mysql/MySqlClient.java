@@ -28,13 +28,16 @@ import io.prestosql.plugin.jdbc.ColumnMapping;
 import io.prestosql.plugin.jdbc.ConnectionFactory;
 import io.prestosql.plugin.jdbc.JdbcColumnHandle;
 import io.prestosql.plugin.jdbc.JdbcIdentity;
+import io.prestosql.plugin.jdbc.JdbcJoinCondition;
 import io.prestosql.plugin.jdbc.JdbcTableHandle;
 import io.prestosql.plugin.jdbc.JdbcTypeHandle;
 import io.prestosql.plugin.jdbc.StatsCollecting;
+import io.prestosql.plugin.jdbc.TopNFunction;
 import io.prestosql.plugin.jdbc.WriteMapping;
 import io.prestosql.spi.PrestoException;
 import io.prestosql.spi.connector.ConnectorSession;
 import io.prestosql.spi.connector.ConnectorTableMetadata;
+import io.prestosql.spi.connector.JoinType;
 import io.prestosql.spi.connector.SchemaTableName;
 import io.prestosql.spi.type.StandardTypes;
 import io.prestosql.spi.type.Type;
@@ -53,8 +56,10 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.function.BiFunction;
+import java.util.stream.Stream;
 
 import static com.fasterxml.jackson.core.JsonFactory.Feature.CANONICALIZE_FIELD_NAMES;
 import static com.fasterxml.jackson.databind.SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS;
@@ -81,6 +86,7 @@ import static io.prestosql.spi.type.Varchars.isVarcharType;
 import static java.lang.String.format;
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.util.Locale.ENGLISH;
+import static java.util.stream.Collectors.joining;
 
 public class MySqlClient
         extends BaseJdbcClient
@@ -268,6 +274,45 @@ public class MySqlClient
         return true;
     }
 
+    @Override
+    protected Optional<TopNFunction> topNFunction()
+    {
+        return Optional.of((query, sortItems, limit) -> {
+            String orderBy = sortItems.stream()
+                    .flatMap(sortItem -> {
+                        String column = quoted(sortItem.getColumn().getColumnName());
+                        // MySQL sorts the nulls first in ascending order and last in descending order, and has no NULLS FIRST or NULLS LAST
+                        String nullsHandling = format("ISNULL(%s) %s", column, sortItem.getSortOrder().isNullsFirst() ? "DESC" : "ASC");
+                        String columnSorting = format("%s %s", column, sortItem.getSortOrder().isAscending() ? "ASC" : "DESC");
+                        return Stream.of(nullsHandling, columnSorting);
+                    })
+                    .collect(joining(", "));
+            return format("%s ORDER BY %s LIMIT %s", query, orderBy, limit);
+        });
+    }
+
+    @Override
+    public boolean supportsAggregationPushdown(ConnectorSession session, List<JdbcColumnHandle> groupingColumns)
+    {
+        // MySQL compares strings using the column collation, which is case insensitive by default
+        return groupingColumns.stream()
+                .map(JdbcColumnHandle::getColumnType)
+                .allMatch(BaseJdbcClient::isExactlyComparable);
+    }
+
+    @Override
+    public boolean supportsJoinPushdown(ConnectorSession session, JoinType joinType, List<JdbcJoinCondition> conditions)
+    {
+        // MySQL does not support FULL JOIN
+        if (joinType == JoinType.FULL_OUTER) {
+            return false;
+        }
+        return conditions.stream()
+                .flatMap(condition -> Stream.of(condition.getLeftColumn(), condition.getRightColumn()))
+                .map(JdbcColumnHandle::getColumnType)
+                .allMatch(BaseJdbcClient::isExactlyComparable);
+    }
+
     private ColumnMapping jsonColumnMapping()
     {
         return ColumnMapping.sliceMapping(
@@ -0,0 +1,50 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.orc;
+
+import io.prestosql.orc.metadata.RowGroupIndex;
+import io.prestosql.orc.metadata.StripeFooter;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Cache of the parsed metadata of a single ORC file, shared by all the readers of the file.
+ * Stripes are identified by their offset in the file.
+ */
+public interface OrcFileMetadataCache
+{
+    OrcFileMetadataCache NO_CACHE = new OrcFileMetadataCache() {};
+
+    default Optional<OrcFileTail> getFileTail()
+    {
+        return Optional.empty();
+    }
+
+    default void putFileTail(OrcFileTail fileTail) {}
+
+    default Optional<StripeFooter> getStripeFooter(long stripeOffset)
+    {
+        return Optional.empty();
+    }
+
+    default void putStripeFooter(long stripeOffset, StripeFooter stripeFooter) {}
+
+    default Optional<List<RowGroupIndex>> getRowGroupIndexes(long stripeOffset, StreamId streamId)
+    {
+        return Optional.empty();
+    }
+
+    default void putRowGroupIndexes(long stripeOffset, StreamId streamId, List<RowGroupIndex> rowGroupIndexes) {}
+}
@@ -23,6 +23,7 @@ import io.prestosql.orc.metadata.CompressionKind;
 import io.prestosql.orc.metadata.ExceptionWrappingMetadataReader;
 import io.prestosql.orc.metadata.Footer;
 import io.prestosql.orc.metadata.Metadata;
+import io.prestosql.orc.metadata.MetadataReader;
 import io.prestosql.orc.metadata.OrcMetadataReader;
 import io.prestosql.orc.metadata.PostScript;
 import io.prestosql.orc.metadata.PostScript.HiveWriterVersion;
@@ -60,6 +61,7 @@ public class OrcReader
     private static final int EXPECTED_FOOTER_SIZE = 16 * 1024;
 
     private final OrcDataSource orcDataSource;
+    private final OrcFileMetadataCache metadataCache;
     private final ExceptionWrappingMetadataReader metadataReader;
     private final DataSize maxMergeDistance;
     private final DataSize tinyStripeThreshold;
@@ -77,11 +79,18 @@ public class OrcReader
     public OrcReader(OrcDataSource orcDataSource, DataSize maxMergeDistance, DataSize tinyStripeThreshold, DataSize maxBlockSize)
             throws IOException
     {
-        this(orcDataSource, maxMergeDistance, tinyStripeThreshold, maxBlockSize, Optional.empty());
+        this(orcDataSource, OrcFileMetadataCache.NO_CACHE, maxMergeDistance, tinyStripeThreshold, maxBlockSize);
+    }
+
+    public OrcReader(OrcDataSource orcDataSource, OrcFileMetadataCache metadataCache, DataSize maxMergeDistance, DataSize tinyStripeThreshold, DataSize maxBlockSize)
+            throws IOException
+    {
+        this(orcDataSource, metadataCache, maxMergeDistance, tinyStripeThreshold, maxBlockSize, Optional.empty());
     }
 
     private OrcReader(
             OrcDataSource orcDataSource,
+            OrcFileMetadataCache metadataCache,
             DataSize maxMergeDistance,
             DataSize tinyStripeThreshold,
             DataSize maxBlockSize,
@@ -90,6 +99,7 @@ public class OrcReader
     {
         orcDataSource = wrapWithCacheIfTiny(orcDataSource, tinyStripeThreshold);
         this.orcDataSource = orcDataSource;
+        this.metadataCache = requireNonNull(metadataCache, "metadataCache is null");
         this.metadataReader = new ExceptionWrappingMetadataReader(orcDataSource.getId(), new OrcMetadataReader());
         this.maxMergeDistance = requireNonNull(maxMergeDistance, "maxMergeDistance is null");
         this.tinyStripeThreshold = requireNonNull(tinyStripeThreshold, "tinyStripeThreshold is null");
@@ -97,6 +107,42 @@ public class OrcReader
 
         this.writeValidation = requireNonNull(writeValidation, "writeValidation is null");
 
+        Optional<OrcFileTail> cachedFileTail = metadataCache.getFileTail();
+        OrcFileTail fileTail;
+        if (cachedFileTail.isPresent()) {
+            fileTail = cachedFileTail.get();
+        }
+        else {
+            fileTail = readFileTail(orcDataSource, metadataReader);
+            metadataCache.putFileTail(fileTail);
+        }
+        PostScript postScript = fileTail.getPostScript();
+
+        validateWrite(validation -> validation.getVersion().equals(postScript.getVersion()), "Unexpected version");
+
+        this.bufferSize = toIntExact(postScript.getCompressionBlockSize());
+
+        // check compression codec is supported
+        this.compressionKind = postScript.getCompression();
+        this.decompressor = createOrcDecompressor(orcDataSource.getId(), compressionKind, bufferSize);
+        validateWrite(validation -> validation.getCompression() == compressionKind, "Unexpected compression");
+
+        this.hiveWriterVersion = postScript.getHiveWriterVersion();
+        this.footer = fileTail.getFooter();
+        this.metadata = fileTail.getMetadata();
+
+        validateWrite(validation -> validation.getColumnNames().equals(getColumnNames()), "Unexpected column names");
+        validateWrite(validation -> validation.getRowGroupMaxRowCount() == footer.getRowsInRowGroup(), "Unexpected rows in group");
+        if (writeValidation.isPresent()) {
+            writeValidation.get().validateMetadata(orcDataSource.getId(), footer.getUserMetadata());
+            writeValidation.get().validateFileStatistics(orcDataSource.getId(), footer.getFileStats());
+            writeValidation.get().validateStripeStatistics(orcDataSource.getId(), footer.getStripes(), metadata.getStripeStatsList());
+        }
+    }
+
+    private static OrcFileTail readFileTail(OrcDataSource orcDataSource, MetadataReader metadataReader)
+            throws IOException
+    {
         //
         // Read the file tail:
         //
@@ -136,16 +182,13 @@ public class OrcReader
 
         // verify this is a supported version
         checkOrcVersion(orcDataSource, postScript.getVersion());
-        validateWrite(validation -> validation.getVersion().equals(postScript.getVersion()), "Unexpected version");
 
-        this.bufferSize = toIntExact(postScript.getCompressionBlockSize());
+        int bufferSize = toIntExact(postScript.getCompressionBlockSize());
 
         // check compression codec is supported
-        this.compressionKind = postScript.getCompression();
-        this.decompressor = createOrcDecompressor(orcDataSource.getId(), compressionKind, bufferSize);
-        validateWrite(validation -> validation.getCompression() == compressionKind, "Unexpected compression");
+        Optional<OrcDecompressor> decompressor = createOrcDecompressor(orcDataSource.getId(), postScript.getCompression(), bufferSize);
 
-        this.hiveWriterVersion = postScript.getHiveWriterVersion();
+        HiveWriterVersion hiveWriterVersion = postScript.getHiveWriterVersion();
 
         int footerSize = toIntExact(postScript.getFooterLength());
         int metadataSize = toIntExact(postScript.getMetadataLength());
@@ -164,26 +207,22 @@ public class OrcReader
 
         // read metadata
         Slice metadataSlice = completeFooterSlice.slice(0, metadataSize);
+        Metadata metadata;
         try (InputStream metadataInputStream = new OrcInputStream(OrcChunkLoader.create(orcDataSource.getId(), metadataSlice, decompressor, newSimpleAggregatedMemoryContext()))) {
-            this.metadata = metadataReader.readMetadata(hiveWriterVersion, metadataInputStream);
+            metadata = metadataReader.readMetadata(hiveWriterVersion, metadataInputStream);
         }
 
         // read footer
         Slice footerSlice = completeFooterSlice.slice(metadataSize, footerSize);
+        Footer footer;
         try (InputStream footerInputStream = new OrcInputStream(OrcChunkLoader.create(orcDataSource.getId(), footerSlice, decompressor, newSimpleAggregatedMemoryContext()))) {
-            this.footer = metadataReader.readFooter(hiveWriterVersion, footerInputStream);
+            footer = metadataReader.readFooter(hiveWriterVersion, footerInputStream);
         }
         if (footer.getTypes().isEmpty()) {
             throw new OrcCorruptionException(orcDataSource.getId(), "File has no columns");
         }
 
-        validateWrite(validation -> validation.getColumnNames().equals(getColumnNames()), "Unexpected column names");
-        validateWrite(validation -> validation.getRowGroupMaxRowCount() == footer.getRowsInRowGroup(), "Unexpected rows in group");
-        if (writeValidation.isPresent()) {
-            writeValidation.get().validateMetadata(orcDataSource.getId(), footer.getUserMetadata());
-            writeValidation.get().validateFileStatistics(orcDataSource.getId(), footer.getFileStats());
-            writeValidation.get().validateStripeStatistics(orcDataSource.getId(), footer.getStripes(), metadata.getStripeStatsList());
-        }
+        return new OrcFileTail(postScript, footer, metadata);
     }
 
     public List<String> getColumnNames()
@@ -235,6 +274,7 @@ public class OrcReader
                 footer.getFileStats(),
                 metadata.getStripeStatsList(),
                 orcDataSource,
+                metadataCache,
                 offset,
                 length,
                 footer.getTypes(),
@@ -318,7 +358,7 @@ public class OrcReader
             readTypes.put(columnIndex, types.get(columnIndex));
         }
         try {
-            OrcReader orcReader = new OrcReader(input, new DataSize(1, MEGABYTE), new DataSize(8, MEGABYTE), new DataSize(16, MEGABYTE), Optional.of(writeValidation));
+            OrcReader orcReader = new OrcReader(input, OrcFileMetadataCache.NO_CACHE, new DataSize(1, MEGABYTE), new DataSize(8, MEGABYTE), new DataSize(16, MEGABYTE), Optional.of(writeValidation));
             try (OrcRecordReader orcRecordReader = orcReader.createRecordReader(readTypes.build(), OrcPredicate.TRUE, hiveStorageTimeZone, newSimpleAggregatedMemoryContext(), INITIAL_BATCH_SIZE)) {
                 while (orcRecordReader.nextBatch() >= 0) {
                     // ignored
@@ -120,6 +120,7 @@ public class OrcRecordReader
             List<ColumnStatistics> fileStats,
             List<StripeStatistics> stripeStats,
             OrcDataSource orcDataSource,
+            OrcFileMetadataCache metadataCache,
             long splitOffset,
             long splitLength,
             List<OrcType> types,
@@ -227,6 +228,7 @@ public class OrcRecordReader
 
         stripeReader = new StripeReader(
                 orcDataSource,
+                metadataCache,
                 hiveStorageTimeZone.toTimeZone().toZoneId(),
                 decompressor,
                 types,
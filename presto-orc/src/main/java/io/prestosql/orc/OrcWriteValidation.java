@@ -16,6 +16,7 @@ package io.prestosql.orc;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSortedMap;
 import com.google.common.collect.Iterables;
+import com.google.common.collect.Maps;
 import io.airlift.slice.Slice;
 import io.airlift.slice.Slices;
 import io.airlift.slice.XxHash64;
@@ -248,7 +249,7 @@ public class OrcWriteValidation
                     throw new OrcCorruptionException(orcDataSourceId, "Unexpected column in row group %s in stripe at offset %s", rowGroupIndex, stripeOffset);
                 }
                 for (Entry<StreamId, List<RowGroupIndex>> entry : actualRowGroupStatistics.entrySet()) {
-                    ColumnStatistics actual = entry.getValue().get(rowGroupIndex).getColumnStatistics();
+                    ColumnStatistics actual = withoutBloomFilter(entry.getValue().get(rowGroupIndex).getColumnStatistics());
                     ColumnStatistics expected = expectedStatistics.get(entry.getKey().getColumn());
                     validateColumnStatisticsEquivalent(orcDataSourceId, "Row group " + rowGroupIndex + " in stripe at offset " + stripeOffset, actual, expected);
                 }
@@ -269,7 +270,16 @@ public class OrcWriteValidation
                 BOTH,
                 actualRowGroupStatistics.entrySet()
                         .stream()
-                        .collect(Collectors.toMap(entry -> entry.getKey().getColumn(), entry -> entry.getValue().get(rowGroupIndex).getColumnStatistics())));
+                        .collect(Collectors.toMap(entry -> entry.getKey().getColumn(), entry -> withoutBloomFilter(entry.getValue().get(rowGroupIndex).getColumnStatistics()))));
+    }
+
+    // bloom filters can not be rebuilt from the statistics computed over the data read back, so they are not validated
+    private static ColumnStatistics withoutBloomFilter(ColumnStatistics columnStatistics)
+    {
+        if (columnStatistics.getBloomFilter() == null) {
+            return columnStatistics;
+        }
+        return columnStatistics.withBloomFilter(null);
     }
 
     public void validateRowGroupStatistics(
@@ -910,7 +920,7 @@ public class OrcWriteValidation
 
         public void addRowGroupStatistics(Map<Integer, ColumnStatistics> columnStatistics)
         {
-            RowGroupStatistics rowGroupStatistics = new RowGroupStatistics(validationMode, columnStatistics);
+            RowGroupStatistics rowGroupStatistics = new RowGroupStatistics(validationMode, Maps.transformValues(columnStatistics, OrcWriteValidation::withoutBloomFilter));
             currentRowGroupStatistics.add(rowGroupStatistics);
 
             retainedSize += RowGroupStatistics.INSTANCE_SIZE;
@@ -74,6 +74,7 @@ import static java.util.Objects.requireNonNull;
 public class StripeReader
 {
     private final OrcDataSource orcDataSource;
+    private final OrcFileMetadataCache metadataCache;
     private final ZoneId defaultTimeZone;
     private final Optional<OrcDecompressor> decompressor;
     private final List<OrcType> types;
@@ -85,6 +86,7 @@ public class StripeReader
     private final Optional<OrcWriteValidation> writeValidation;
 
     public StripeReader(OrcDataSource orcDataSource,
+            OrcFileMetadataCache metadataCache,
             ZoneId defaultTimeZone,
             Optional<OrcDecompressor> decompressor,
             List<OrcType> types,
@@ -96,6 +98,7 @@ public class StripeReader
             Optional<OrcWriteValidation> writeValidation)
     {
         this.orcDataSource = requireNonNull(orcDataSource, "orcDataSource is null");
+        this.metadataCache = requireNonNull(metadataCache, "metadataCache is null");
         this.defaultTimeZone = requireNonNull(defaultTimeZone, "defaultTimeZone is null");
         this.decompressor = requireNonNull(decompressor, "decompressor is null");
         this.types = ImmutableList.copyOf(requireNonNull(types, "types is null"));
@@ -133,14 +136,27 @@ public class StripeReader
             Map<StreamId, DiskRange> diskRanges = getDiskRanges(stripeFooter.getStreams());
             diskRanges = Maps.filterKeys(diskRanges, Predicates.in(streams.keySet()));
 
+            // the index streams are not read when the row index of every column is cached
+            Optional<Map<StreamId, List<RowGroupIndex>>> cachedColumnIndexes = getCachedColumnIndexes(stripe.getOffset(), streams);
+            if (cachedColumnIndexes.isPresent()) {
+                diskRanges = Maps.filterKeys(diskRanges, streamId -> !isIndexStream(streams.get(streamId)));
+            }
+
             // read the file regions
             Map<StreamId, OrcChunkLoader> streamsData = readDiskRanges(stripe.getOffset(), diskRanges, systemMemoryUsage);
 
-            // read the bloom filter for each column
-            Map<Integer, List<BloomFilter>> bloomFilterIndexes = readBloomFilterIndexes(streams, streamsData);
+            Map<StreamId, List<RowGroupIndex>> columnIndexes;
+            if (cachedColumnIndexes.isPresent()) {
+                columnIndexes = cachedColumnIndexes.get();
+            }
+            else {
+                // read the bloom filter for each column
+                Map<Integer, List<BloomFilter>> bloomFilterIndexes = readBloomFilterIndexes(streams, streamsData);
 
-            // read the row index for each column
-            Map<StreamId, List<RowGroupIndex>> columnIndexes = readColumnIndexes(streams, streamsData, bloomFilterIndexes);
+                // read the row index for each column
+                columnIndexes = readColumnIndexes(streams, streamsData, bloomFilterIndexes);
+                columnIndexes.forEach((streamId, rowGroupIndexes) -> metadataCache.putRowGroupIndexes(stripe.getOffset(), streamId, rowGroupIndexes));
+            }
             if (writeValidation.isPresent()) {
                 writeValidation.get().validateRowGroupStatistics(orcDataSource.getId(), stripe.getOffset(), columnIndexes);
             }
@@ -369,14 +385,22 @@ public class StripeReader
     private StripeFooter readStripeFooter(StripeInformation stripe, AggregatedMemoryContext systemMemoryUsage)
             throws IOException
     {
+        Optional<StripeFooter> cachedStripeFooter = metadataCache.getStripeFooter(stripe.getOffset());
+        if (cachedStripeFooter.isPresent()) {
+            return cachedStripeFooter.get();
+        }
+
         long offset = stripe.getOffset() + stripe.getIndexLength() + stripe.getDataLength();
         int tailLength = toIntExact(stripe.getFooterLength());
 
         // read the footer
         Slice tailBuffer = orcDataSource.readFully(offset, tailLength);
+        StripeFooter stripeFooter;
         try (InputStream inputStream = new OrcInputStream(OrcChunkLoader.create(orcDataSource.getId(), tailBuffer, decompressor, systemMemoryUsage))) {
-            return metadataReader.readStripeFooter(types, inputStream);
+            stripeFooter = metadataReader.readStripeFooter(types, inputStream);
         }
+        metadataCache.putStripeFooter(stripe.getOffset(), stripeFooter);
+        return stripeFooter;
     }
 
     static boolean isIndexStream(Stream stream)
@@ -405,6 +429,21 @@ public class StripeReader
         return ImmutableMap.copyOf(bloomFilters);
     }
 
+    private Optional<Map<StreamId, List<RowGroupIndex>>> getCachedColumnIndexes(long stripeOffset, Map<StreamId, Stream> streams)
+    {
+        ImmutableMap.Builder<StreamId, List<RowGroupIndex>> columnIndexes = ImmutableMap.builder();
+        for (StreamId streamId : streams.keySet()) {
+            if (streamId.getStreamKind() == ROW_INDEX) {
+                Optional<List<RowGroupIndex>> rowGroupIndexes = metadataCache.getRowGroupIndexes(stripeOffset, streamId);
+                if (!rowGroupIndexes.isPresent()) {
+                    return Optional.empty();
+                }
+                columnIndexes.put(streamId, rowGroupIndexes.get());
+            }
+        }
+        return Optional.of(columnIndexes.build());
+    }
+
     private Map<StreamId, List<RowGroupIndex>> readColumnIndexes(Map<StreamId, Stream> streams, Map<StreamId, OrcChunkLoader> streamsData, Map<Integer, List<BloomFilter>> bloomFilterIndexes)
             throws IOException
     {
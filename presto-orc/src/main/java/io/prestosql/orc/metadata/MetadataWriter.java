@@ -14,6 +14,7 @@
 package io.prestosql.orc.metadata;
 
 import io.airlift.slice.SliceOutput;
+import io.prestosql.orc.metadata.statistics.BloomFilter;
 
 import java.io.IOException;
 import java.util.List;
@@ -36,4 +37,7 @@ public interface MetadataWriter
 
     int writeRowIndexes(SliceOutput output, List<RowGroupIndex> rowGroupIndexes)
             throws IOException;
+
+    int writeBloomFilters(SliceOutput output, List<BloomFilter> bloomFilters)
+            throws IOException;
 }
@@ -17,9 +17,11 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.io.CountingOutputStream;
 import io.airlift.slice.Slice;
 import io.airlift.slice.SliceOutput;
+import io.airlift.slice.Slices;
 import io.prestosql.orc.metadata.ColumnEncoding.ColumnEncodingKind;
 import io.prestosql.orc.metadata.OrcType.OrcTypeKind;
 import io.prestosql.orc.metadata.Stream.StreamKind;
+import io.prestosql.orc.metadata.statistics.BloomFilter;
 import io.prestosql.orc.metadata.statistics.ColumnStatistics;
 import io.prestosql.orc.metadata.statistics.StripeStatistics;
 import io.prestosql.orc.proto.OrcProto;
@@ -37,6 +39,7 @@ import java.util.List;
 import java.util.Map.Entry;
 import java.util.TimeZone;
 
+import static io.airlift.slice.SizeOf.SIZE_OF_LONG;
 import static java.lang.Math.toIntExact;
 import static java.util.stream.Collectors.toList;
 
@@ -321,6 +324,8 @@ public class OrcMetadataWriter
                 return OrcProto.Stream.Kind.SECONDARY;
             case ROW_INDEX:
                 return OrcProto.Stream.Kind.ROW_INDEX;
+            case BLOOM_FILTER_UTF8:
+                return OrcProto.Stream.Kind.BLOOM_FILTER_UTF8;
         }
         throw new IllegalArgumentException("Unsupported stream kind: " + streamKind);
     }
@@ -370,6 +375,32 @@ public class OrcMetadataWriter
                 .build();
     }
 
+    @Override
+    public int writeBloomFilters(SliceOutput output, List<BloomFilter> bloomFilters)
+            throws IOException
+    {
+        OrcProto.BloomFilterIndex bloomFilterIndex = OrcProto.BloomFilterIndex.newBuilder()
+                .addAllBloomFilter(bloomFilters.stream()
+                        .map(OrcMetadataWriter::toBloomFilter)
+                        .collect(toList()))
+                .build();
+        return writeProtobufObject(output, bloomFilterIndex);
+    }
+
+    private static OrcProto.BloomFilter toBloomFilter(BloomFilter bloomFilter)
+    {
+        // the UTF-8 bitset stores the bits as little endian longs
+        long[] bits = bloomFilter.getBitSet();
+        Slice bitset = Slices.allocate(bits.length * SIZE_OF_LONG);
+        for (int i = 0; i < bits.length; i++) {
+            bitset.setLong(i * SIZE_OF_LONG, bits[i]);
+        }
+        return OrcProto.BloomFilter.newBuilder()
+                .setNumHashFunctions(bloomFilter.getNumHashFunctions())
+                .setUtf8Bitset(ByteString.copyFrom(bitset.getBytes()))
+                .build();
+    }
+
     private static OrcProto.CompressionKind toCompression(CompressionKind compressionKind)
     {
         switch (compressionKind) {
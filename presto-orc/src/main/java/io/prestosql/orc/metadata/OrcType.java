@@ -20,6 +20,7 @@ import io.prestosql.spi.type.DecimalType;
 import io.prestosql.spi.type.Type;
 import io.prestosql.spi.type.TypeSignatureParameter;
 import io.prestosql.spi.type.VarcharType;
+import org.openjdk.jol.info.ClassLayout;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -27,6 +28,8 @@ import java.util.Optional;
 
 import static com.google.common.base.MoreObjects.toStringHelper;
 import static com.google.common.base.Preconditions.checkArgument;
+import static io.airlift.slice.SizeOf.SIZE_OF_INT;
+import static io.airlift.slice.SizeOf.sizeOfCharArray;
 import static io.prestosql.spi.StandardErrorCode.NOT_SUPPORTED;
 import static io.prestosql.spi.type.BigintType.BIGINT;
 import static io.prestosql.spi.type.BooleanType.BOOLEAN;
@@ -74,6 +77,9 @@ public class OrcType
         UNION,
     }
 
+    private static final int INSTANCE_SIZE = ClassLayout.parseClass(OrcType.class).instanceSize();
+    private static final int STRING_INSTANCE_SIZE = ClassLayout.parseClass(String.class).instanceSize();
+
     private final OrcTypeKind orcTypeKind;
     private final List<Integer> fieldTypeIndexes;
     private final List<String> fieldNames;
@@ -117,6 +123,17 @@ public class OrcType
         this.scale = requireNonNull(scale, "scale can not be null");
     }
 
+    public long getRetainedSizeInBytes()
+    {
+        long retainedSizeInBytes = INSTANCE_SIZE + fieldTypeIndexes.size() * (long) SIZE_OF_INT;
+        if (fieldNames != null) {
+            for (String fieldName : fieldNames) {
+                retainedSizeInBytes += STRING_INSTANCE_SIZE + sizeOfCharArray(fieldName.length());
+            }
+        }
+        return retainedSizeInBytes;
+    }
+
     public OrcTypeKind getOrcTypeKind()
     {
         return orcTypeKind;
@@ -25,9 +25,21 @@ import static java.util.Objects.requireNonNull;
 public class BinaryStatisticsBuilder
         implements SliceColumnStatisticsBuilder
 {
+    private final BloomFilterBuilder bloomFilterBuilder;
+
     private long nonNullValueCount;
     private long sum;
 
+    public BinaryStatisticsBuilder()
+    {
+        this(new NoOpBloomFilterBuilder());
+    }
+
+    public BinaryStatisticsBuilder(BloomFilterBuilder bloomFilterBuilder)
+    {
+        this.bloomFilterBuilder = requireNonNull(bloomFilterBuilder, "bloomFilterBuilder is null");
+    }
+
     @Override
     public void addValue(Slice value)
     {
@@ -35,6 +47,7 @@ public class BinaryStatisticsBuilder
 
         sum += value.length();
         nonNullValueCount++;
+        bloomFilterBuilder.addString(value);
     }
 
     private Optional<BinaryStatistics> buildBinaryStatistics()
@@ -68,7 +81,7 @@ public class BinaryStatisticsBuilder
                 null,
                 null,
                 binaryStatistics.orElse(null),
-                null);
+                bloomFilterBuilder.buildBloomFilter());
     }
 
     public static Optional<BinaryStatistics> mergeBinaryStatistics(List<ColumnStatistics> stats)
@@ -19,6 +19,8 @@ import io.airlift.slice.Slice;
 import io.airlift.slice.UnsafeSlice;
 import org.openjdk.jol.info.ClassLayout;
 
+import java.util.Arrays;
+
 import static com.google.common.base.MoreObjects.toStringHelper;
 import static com.google.common.base.Preconditions.checkArgument;
 import static io.airlift.slice.SizeOf.SIZE_OF_LONG;
@@ -132,6 +134,12 @@ public class BloomFilter
         addHash(hash64);
     }
 
+    public void addSlice(Slice val)
+    {
+        long hash64 = (val == null) ? NULL_HASHCODE : OrcMurmur3.hash64(val);
+        addHash(hash64);
+    }
+
     private void addHash(long hash64)
     {
         int hash1 = (int) hash64;
@@ -304,6 +312,20 @@ public class BloomFilter
         {
             return data;
         }
+
+        @Override
+        public boolean equals(Object other)
+        {
+            return (other != null) &&
+                    (other.getClass() == getClass()) &&
+                    Arrays.equals(data, ((BitSet) other).data);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return Arrays.hashCode(data);
+        }
     }
 
     /**
@@ -23,14 +23,27 @@ import static java.util.Objects.requireNonNull;
 public class DateStatisticsBuilder
         implements LongValueStatisticsBuilder
 {
+    private final BloomFilterBuilder bloomFilterBuilder;
+
     private long nonNullValueCount;
     private int minimum = Integer.MAX_VALUE;
     private int maximum = Integer.MIN_VALUE;
 
+    public DateStatisticsBuilder()
+    {
+        this(new NoOpBloomFilterBuilder());
+    }
+
+    public DateStatisticsBuilder(BloomFilterBuilder bloomFilterBuilder)
+    {
+        this.bloomFilterBuilder = requireNonNull(bloomFilterBuilder, "bloomFilterBuilder is null");
+    }
+
     @Override
     public void addValue(long value)
     {
         nonNullValueCount++;
+        bloomFilterBuilder.addLong(value);
 
         int intValue = toIntExact(value);
         minimum = Math.min(intValue, minimum);
@@ -70,7 +83,7 @@ public class DateStatisticsBuilder
                 dateStatistics.orElse(null),
                 null,
                 null,
-                null);
+                bloomFilterBuilder.buildBloomFilter());
     }
 
     public static Optional<DateStatistics> mergeDateStatistics(List<ColumnStatistics> stats)
@@ -23,16 +23,29 @@ import static java.util.Objects.requireNonNull;
 public class IntegerStatisticsBuilder
         implements LongValueStatisticsBuilder
 {
+    private final BloomFilterBuilder bloomFilterBuilder;
+
     private long nonNullValueCount;
     private long minimum = Long.MAX_VALUE;
     private long maximum = Long.MIN_VALUE;
     private long sum;
     private boolean overflow;
 
+    public IntegerStatisticsBuilder()
+    {
+        this(new NoOpBloomFilterBuilder());
+    }
+
+    public IntegerStatisticsBuilder(BloomFilterBuilder bloomFilterBuilder)
+    {
+        this.bloomFilterBuilder = requireNonNull(bloomFilterBuilder, "bloomFilterBuilder is null");
+    }
+
     @Override
     public void addValue(long value)
     {
         nonNullValueCount++;
+        bloomFilterBuilder.addLong(value);
 
         minimum = Math.min(value, minimum);
         maximum = Math.max(value, maximum);
@@ -95,7 +108,7 @@ public class IntegerStatisticsBuilder
                 null,
                 null,
                 null,
-                null);
+                bloomFilterBuilder.buildBloomFilter());
     }
 
     public static Optional<IntegerStatistics> mergeIntegerStatistics(List<ColumnStatistics> stats)
@@ -30,6 +30,7 @@ public class StringStatisticsBuilder
         implements SliceColumnStatisticsBuilder
 {
     private final int stringStatisticsLimitInBytes;
+    private final BloomFilterBuilder bloomFilterBuilder;
 
     private long nonNullValueCount;
     private Slice minimum;
@@ -38,12 +39,18 @@ public class StringStatisticsBuilder
 
     public StringStatisticsBuilder(int stringStatisticsLimitInBytes)
     {
-        this(stringStatisticsLimitInBytes, 0, null, null, 0);
+        this(stringStatisticsLimitInBytes, new NoOpBloomFilterBuilder());
     }
 
-    private StringStatisticsBuilder(int stringStatisticsLimitInBytes, long nonNullValueCount, Slice minimum, Slice maximum, long sum)
+    public StringStatisticsBuilder(int stringStatisticsLimitInBytes, BloomFilterBuilder bloomFilterBuilder)
+    {
+        this(stringStatisticsLimitInBytes, bloomFilterBuilder, 0, null, null, 0);
+    }
+
+    private StringStatisticsBuilder(int stringStatisticsLimitInBytes, BloomFilterBuilder bloomFilterBuilder, long nonNullValueCount, Slice minimum, Slice maximum, long sum)
     {
         this.stringStatisticsLimitInBytes = stringStatisticsLimitInBytes;
+        this.bloomFilterBuilder = requireNonNull(bloomFilterBuilder, "bloomFilterBuilder is null");
         this.nonNullValueCount = nonNullValueCount;
         this.minimum = minimum;
         this.maximum = maximum;
@@ -53,7 +60,7 @@ public class StringStatisticsBuilder
     public StringStatisticsBuilder withStringStatisticsLimit(int limitInBytes)
     {
         checkArgument(limitInBytes >= 0, "limitInBytes is less than 0");
-        return new StringStatisticsBuilder(limitInBytes, nonNullValueCount, minimum, maximum, sum);
+        return new StringStatisticsBuilder(limitInBytes, bloomFilterBuilder, nonNullValueCount, minimum, maximum, sum);
     }
 
     public long getNonNullValueCount()
@@ -80,6 +87,7 @@ public class StringStatisticsBuilder
 
         nonNullValueCount++;
         sum = addExact(sum, value.length());
+        bloomFilterBuilder.addString(value);
     }
 
     /**
@@ -140,7 +148,7 @@ public class StringStatisticsBuilder
                 null,
                 null,
                 null,
-                null);
+                bloomFilterBuilder.buildBloomFilter());
     }
 
     public static Optional<StringStatistics> mergeStringStatistics(List<ColumnStatistics> stats)
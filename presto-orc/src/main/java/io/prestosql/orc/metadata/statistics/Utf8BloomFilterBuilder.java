@@ -0,0 +1,77 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.orc.metadata.statistics;
+
+import io.airlift.slice.Slice;
+import org.openjdk.jol.info.ClassLayout;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Builds bloom filters that are written to the BLOOM_FILTER_UTF8 stream, which
+ * hashes strings using their UTF-8 bytes and is understood by all ORC readers.
+ */
+public class Utf8BloomFilterBuilder
+        implements BloomFilterBuilder
+{
+    private static final int INSTANCE_SIZE = ClassLayout.parseClass(Utf8BloomFilterBuilder.class).instanceSize();
+
+    private final BloomFilter bloomFilter;
+
+    public Utf8BloomFilterBuilder(int expectedSize, double fpp)
+    {
+        checkArgument(expectedSize > 0, "expectedSize must be greater than zero");
+        this.bloomFilter = new BloomFilter(expectedSize, fpp);
+    }
+
+    @Override
+    public BloomFilterBuilder addString(Slice value)
+    {
+        bloomFilter.addSlice(value);
+        return this;
+    }
+
+    @Override
+    public BloomFilterBuilder addLong(long value)
+    {
+        bloomFilter.addLong(value);
+        return this;
+    }
+
+    @Override
+    public BloomFilterBuilder addDouble(double value)
+    {
+        bloomFilter.addDouble(value);
+        return this;
+    }
+
+    @Override
+    public BloomFilterBuilder addFloat(float value)
+    {
+        bloomFilter.addFloat(value);
+        return this;
+    }
+
+    @Override
+    public BloomFilter buildBloomFilter()
+    {
+        return bloomFilter;
+    }
+
+    @Override
+    public long getRetainedSizeInBytes()
+    {
+        return INSTANCE_SIZE + bloomFilter.getRetainedSizeInBytes();
+    }
+}
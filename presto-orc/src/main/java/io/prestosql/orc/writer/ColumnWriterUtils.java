@@ -0,0 +1,56 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.orc.writer;
+
+import io.airlift.slice.Slice;
+import io.prestosql.orc.metadata.CompressedMetadataWriter;
+import io.prestosql.orc.metadata.Stream;
+import io.prestosql.orc.metadata.statistics.BloomFilter;
+import io.prestosql.orc.metadata.statistics.ColumnStatistics;
+import io.prestosql.orc.stream.StreamDataOutput;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static io.prestosql.orc.metadata.Stream.StreamKind.BLOOM_FILTER_UTF8;
+
+final class ColumnWriterUtils
+{
+    private ColumnWriterUtils() {}
+
+    /**
+     * Returns the bloom filter stream of a column, if bloom filters were built for its row groups.
+     */
+    static Optional<StreamDataOutput> buildBloomFilterStream(CompressedMetadataWriter metadataWriter, int column, List<ColumnStatistics> rowGroupColumnStatistics)
+            throws IOException
+    {
+        List<BloomFilter> bloomFilters = rowGroupColumnStatistics.stream()
+                .map(ColumnStatistics::getBloomFilter)
+                .filter(Objects::nonNull)
+                .collect(toImmutableList());
+        if (bloomFilters.isEmpty()) {
+            return Optional.empty();
+        }
+        // readers match bloom filters to row groups by position
+        checkState(bloomFilters.size() == rowGroupColumnStatistics.size(), "Bloom filter is missing for some row groups");
+
+        Slice slice = metadataWriter.writeBloomFilters(bloomFilters);
+        Stream stream = new Stream(column, BLOOM_FILTER_UTF8, slice.length(), false);
+        return Optional.of(new StreamDataOutput(slice, stream));
+    }
+}
@@ -18,12 +18,16 @@ import io.airlift.units.DataSize;
 import io.prestosql.orc.metadata.CompressionKind;
 import io.prestosql.orc.metadata.OrcType;
 import io.prestosql.orc.metadata.statistics.BinaryStatisticsBuilder;
+import io.prestosql.orc.metadata.statistics.BloomFilterBuilder;
 import io.prestosql.orc.metadata.statistics.DateStatisticsBuilder;
+import io.prestosql.orc.metadata.statistics.DoubleStatisticsBuilder;
 import io.prestosql.orc.metadata.statistics.IntegerStatisticsBuilder;
+import io.prestosql.orc.metadata.statistics.NoOpBloomFilterBuilder;
 import io.prestosql.spi.type.Type;
 import org.joda.time.DateTimeZone;
 
 import java.util.List;
+import java.util.function.Supplier;
 
 import static java.util.Objects.requireNonNull;
 
@@ -38,7 +42,8 @@ public final class ColumnWriters
             CompressionKind compression,
             int bufferSize,
             DateTimeZone hiveStorageTimeZone,
-            DataSize stringStatisticsLimit)
+            DataSize stringStatisticsLimit,
+            Supplier<BloomFilterBuilder> bloomFilterBuilder)
     {
         requireNonNull(type, "type is null");
         OrcType orcType = orcTypes.get(columnIndex);
@@ -47,21 +52,21 @@ public final class ColumnWriters
                 return new BooleanColumnWriter(columnIndex, type, compression, bufferSize);
 
             case FLOAT:
-                return new FloatColumnWriter(columnIndex, type, compression, bufferSize);
+                return new FloatColumnWriter(columnIndex, type, compression, bufferSize, () -> new DoubleStatisticsBuilder(bloomFilterBuilder.get()));
 
             case DOUBLE:
-                return new DoubleColumnWriter(columnIndex, type, compression, bufferSize);
+                return new DoubleColumnWriter(columnIndex, type, compression, bufferSize, () -> new DoubleStatisticsBuilder(bloomFilterBuilder.get()));
 
             case BYTE:
                 return new ByteColumnWriter(columnIndex, type, compression, bufferSize);
 
             case DATE:
-                return new LongColumnWriter(columnIndex, type, compression, bufferSize, DateStatisticsBuilder::new);
+                return new LongColumnWriter(columnIndex, type, compression, bufferSize, () -> new DateStatisticsBuilder(bloomFilterBuilder.get()));
 
             case SHORT:
             case INT:
             case LONG:
-                return new LongColumnWriter(columnIndex, type, compression, bufferSize, IntegerStatisticsBuilder::new);
+                return new LongColumnWriter(columnIndex, type, compression, bufferSize, () -> new IntegerStatisticsBuilder(bloomFilterBuilder.get()));
 
             case DECIMAL:
                 return new DecimalColumnWriter(columnIndex, type, compression, bufferSize);
@@ -70,17 +75,20 @@ public final class ColumnWriters
                 return new TimestampColumnWriter(columnIndex, type, compression, bufferSize, hiveStorageTimeZone);
 
             case BINARY:
-                return new SliceDirectColumnWriter(columnIndex, type, compression, bufferSize, BinaryStatisticsBuilder::new);
+                return new SliceDirectColumnWriter(columnIndex, type, compression, bufferSize, () -> new BinaryStatisticsBuilder(bloomFilterBuilder.get()));
 
             case CHAR:
+                // readers ignore char bloom filters, as they would have to hash the values padded to the declared length
+                return new SliceDictionaryColumnWriter(columnIndex, type, compression, bufferSize, stringStatisticsLimit, NoOpBloomFilterBuilder::new);
+
             case VARCHAR:
             case STRING:
-                return new SliceDictionaryColumnWriter(columnIndex, type, compression, bufferSize, stringStatisticsLimit);
+                return new SliceDictionaryColumnWriter(columnIndex, type, compression, bufferSize, stringStatisticsLimit, bloomFilterBuilder);
 
             case LIST: {
                 int fieldColumnIndex = orcType.getFieldTypeIndex(0);
                 Type fieldType = type.getTypeParameters().get(0);
-                ColumnWriter elementWriter = createColumnWriter(fieldColumnIndex, orcTypes, fieldType, compression, bufferSize, hiveStorageTimeZone, stringStatisticsLimit);
+                ColumnWriter elementWriter = createColumnWriter(fieldColumnIndex, orcTypes, fieldType, compression, bufferSize, hiveStorageTimeZone, stringStatisticsLimit, bloomFilterBuilder);
                 return new ListColumnWriter(columnIndex, compression, bufferSize, elementWriter);
             }
 
@@ -92,7 +100,8 @@ public final class ColumnWriters
                         compression,
                         bufferSize,
                         hiveStorageTimeZone,
-                        stringStatisticsLimit);
+                        stringStatisticsLimit,
+                        bloomFilterBuilder);
                 ColumnWriter valueWriter = createColumnWriter(
                         orcType.getFieldTypeIndex(1),
                         orcTypes,
@@ -100,7 +109,8 @@ public final class ColumnWriters
                         compression,
                         bufferSize,
                         hiveStorageTimeZone,
-                        stringStatisticsLimit);
+                        stringStatisticsLimit,
+                        bloomFilterBuilder);
                 return new MapColumnWriter(columnIndex, compression, bufferSize, keyWriter, valueWriter);
             }
 
@@ -109,7 +119,7 @@ public final class ColumnWriters
                 for (int fieldId = 0; fieldId < orcType.getFieldCount(); fieldId++) {
                     int fieldColumnIndex = orcType.getFieldTypeIndex(fieldId);
                     Type fieldType = type.getTypeParameters().get(fieldId);
-                    fieldWriters.add(createColumnWriter(fieldColumnIndex, orcTypes, fieldType, compression, bufferSize, hiveStorageTimeZone, stringStatisticsLimit));
+                    fieldWriters.add(createColumnWriter(fieldColumnIndex, orcTypes, fieldType, compression, bufferSize, hiveStorageTimeZone, stringStatisticsLimit, bloomFilterBuilder));
                 }
                 return new StructColumnWriter(columnIndex, compression, bufferSize, fieldWriters.build());
             }
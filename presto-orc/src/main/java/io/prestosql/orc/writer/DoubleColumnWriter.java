@@ -38,11 +38,13 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.Supplier;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
 import static io.prestosql.orc.metadata.ColumnEncoding.ColumnEncodingKind.DIRECT;
 import static io.prestosql.orc.metadata.CompressionKind.NONE;
+import static io.prestosql.orc.writer.ColumnWriterUtils.buildBloomFilterStream;
 import static java.util.Objects.requireNonNull;
 
 public class DoubleColumnWriter
@@ -59,11 +61,12 @@ public class DoubleColumnWriter
 
     private final List<ColumnStatistics> rowGroupColumnStatistics = new ArrayList<>();
 
-    private DoubleStatisticsBuilder statisticsBuilder = new DoubleStatisticsBuilder();
+    private final Supplier<DoubleStatisticsBuilder> statisticsBuilderSupplier;
+    private DoubleStatisticsBuilder statisticsBuilder;
 
     private boolean closed;
 
-    public DoubleColumnWriter(int column, Type type, CompressionKind compression, int bufferSize)
+    public DoubleColumnWriter(int column, Type type, CompressionKind compression, int bufferSize, Supplier<DoubleStatisticsBuilder> statisticsBuilderSupplier)
     {
         checkArgument(column >= 0, "column is negative");
         this.column = column;
@@ -71,6 +74,8 @@ public class DoubleColumnWriter
         this.compressed = requireNonNull(compression, "compression is null") != NONE;
         this.dataStream = new DoubleOutputStream(compression, bufferSize);
         this.presentStream = new PresentOutputStream(compression, bufferSize);
+        this.statisticsBuilderSupplier = requireNonNull(statisticsBuilderSupplier, "statisticsBuilderSupplier is null");
+        this.statisticsBuilder = statisticsBuilderSupplier.get();
     }
 
     @Override
@@ -113,7 +118,7 @@ public class DoubleColumnWriter
         checkState(!closed);
         ColumnStatistics statistics = statisticsBuilder.buildColumnStatistics();
         rowGroupColumnStatistics.add(statistics);
-        statisticsBuilder = new DoubleStatisticsBuilder();
+        statisticsBuilder = statisticsBuilderSupplier.get();
         return ImmutableMap.of(column, statistics);
     }
 
@@ -153,7 +158,11 @@ public class DoubleColumnWriter
 
         Slice slice = metadataWriter.writeRowIndexes(rowGroupIndexes.build());
         Stream stream = new Stream(column, StreamKind.ROW_INDEX, slice.length(), false);
-        return ImmutableList.of(new StreamDataOutput(slice, stream));
+
+        ImmutableList.Builder<StreamDataOutput> indexStreams = ImmutableList.builder();
+        indexStreams.add(new StreamDataOutput(slice, stream));
+        buildBloomFilterStream(metadataWriter, column, rowGroupColumnStatistics).ifPresent(indexStreams::add);
+        return indexStreams.build();
     }
 
     private static List<Integer> createDoubleColumnPositionList(
@@ -201,6 +210,6 @@ public class DoubleColumnWriter
         dataStream.reset();
         presentStream.reset();
         rowGroupColumnStatistics.clear();
-        statisticsBuilder = new DoubleStatisticsBuilder();
+        statisticsBuilder = statisticsBuilderSupplier.get();
     }
 }
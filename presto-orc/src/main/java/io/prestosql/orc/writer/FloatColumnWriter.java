@@ -38,11 +38,13 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.Supplier;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
 import static io.prestosql.orc.metadata.ColumnEncoding.ColumnEncodingKind.DIRECT;
 import static io.prestosql.orc.metadata.CompressionKind.NONE;
+import static io.prestosql.orc.writer.ColumnWriterUtils.buildBloomFilterStream;
 import static java.lang.Float.intBitsToFloat;
 import static java.util.Objects.requireNonNull;
 
@@ -60,11 +62,12 @@ public class FloatColumnWriter
 
     private final List<ColumnStatistics> rowGroupColumnStatistics = new ArrayList<>();
 
-    private DoubleStatisticsBuilder statisticsBuilder = new DoubleStatisticsBuilder();
+    private final Supplier<DoubleStatisticsBuilder> statisticsBuilderSupplier;
+    private DoubleStatisticsBuilder statisticsBuilder;
 
     private boolean closed;
 
-    public FloatColumnWriter(int column, Type type, CompressionKind compression, int bufferSize)
+    public FloatColumnWriter(int column, Type type, CompressionKind compression, int bufferSize, Supplier<DoubleStatisticsBuilder> statisticsBuilderSupplier)
     {
         checkArgument(column >= 0, "column is negative");
         this.column = column;
@@ -72,6 +75,8 @@ public class FloatColumnWriter
         this.compressed = requireNonNull(compression, "compression is null") != NONE;
         this.dataStream = new FloatOutputStream(compression, bufferSize);
         this.presentStream = new PresentOutputStream(compression, bufferSize);
+        this.statisticsBuilderSupplier = requireNonNull(statisticsBuilderSupplier, "statisticsBuilderSupplier is null");
+        this.statisticsBuilder = statisticsBuilderSupplier.get();
     }
 
     @Override
@@ -115,7 +120,7 @@ public class FloatColumnWriter
         checkState(!closed);
         ColumnStatistics statistics = statisticsBuilder.buildColumnStatistics();
         rowGroupColumnStatistics.add(statistics);
-        statisticsBuilder = new DoubleStatisticsBuilder();
+        statisticsBuilder = statisticsBuilderSupplier.get();
         return ImmutableMap.of(column, statistics);
     }
 
@@ -155,7 +160,11 @@ public class FloatColumnWriter
 
         Slice slice = metadataWriter.writeRowIndexes(rowGroupIndexes.build());
         Stream stream = new Stream(column, StreamKind.ROW_INDEX, slice.length(), false);
-        return ImmutableList.of(new StreamDataOutput(slice, stream));
+
+        ImmutableList.Builder<StreamDataOutput> indexStreams = ImmutableList.builder();
+        indexStreams.add(new StreamDataOutput(slice, stream));
+        buildBloomFilterStream(metadataWriter, column, rowGroupColumnStatistics).ifPresent(indexStreams::add);
+        return indexStreams.build();
     }
 
     private static List<Integer> createFloatColumnPositionList(
@@ -203,6 +212,6 @@ public class FloatColumnWriter
         dataStream.reset();
         presentStream.reset();
         rowGroupColumnStatistics.clear();
-        statisticsBuilder = new DoubleStatisticsBuilder();
+        statisticsBuilder = statisticsBuilderSupplier.get();
     }
 }
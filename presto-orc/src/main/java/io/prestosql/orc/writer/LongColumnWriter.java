@@ -46,6 +46,7 @@ import static com.google.common.base.Preconditions.checkState;
 import static io.prestosql.orc.metadata.ColumnEncoding.ColumnEncodingKind.DIRECT_V2;
 import static io.prestosql.orc.metadata.CompressionKind.NONE;
 import static io.prestosql.orc.metadata.Stream.StreamKind.DATA;
+import static io.prestosql.orc.writer.ColumnWriterUtils.buildBloomFilterStream;
 import static java.util.Objects.requireNonNull;
 
 public class LongColumnWriter
@@ -159,7 +160,11 @@ public class LongColumnWriter
 
         Slice slice = metadataWriter.writeRowIndexes(rowGroupIndexes.build());
         Stream stream = new Stream(column, StreamKind.ROW_INDEX, slice.length(), false);
-        return ImmutableList.of(new StreamDataOutput(slice, stream));
+
+        ImmutableList.Builder<StreamDataOutput> indexStreams = ImmutableList.builder();
+        indexStreams.add(new StreamDataOutput(slice, stream));
+        buildBloomFilterStream(metadataWriter, column, rowGroupColumnStatistics).ifPresent(indexStreams::add);
+        return indexStreams.build();
     }
 
     private static List<Integer> createLongColumnPositionList(
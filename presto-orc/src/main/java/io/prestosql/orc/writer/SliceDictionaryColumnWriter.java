@@ -27,6 +27,7 @@ import io.prestosql.orc.metadata.CompressionKind;
 import io.prestosql.orc.metadata.RowGroupIndex;
 import io.prestosql.orc.metadata.Stream;
 import io.prestosql.orc.metadata.Stream.StreamKind;
+import io.prestosql.orc.metadata.statistics.BloomFilterBuilder;
 import io.prestosql.orc.metadata.statistics.ColumnStatistics;
 import io.prestosql.orc.metadata.statistics.StringStatisticsBuilder;
 import io.prestosql.orc.stream.ByteArrayOutputStream;
@@ -47,6 +48,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.OptionalInt;
+import java.util.function.Supplier;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
@@ -56,6 +58,7 @@ import static io.prestosql.orc.metadata.ColumnEncoding.ColumnEncodingKind.DICTIO
 import static io.prestosql.orc.metadata.CompressionKind.NONE;
 import static io.prestosql.orc.metadata.Stream.StreamKind.DATA;
 import static io.prestosql.orc.stream.LongOutputStream.createLengthOutputStream;
+import static io.prestosql.orc.writer.ColumnWriterUtils.buildBloomFilterStream;
 import static java.lang.Math.toIntExact;
 import static java.util.Objects.requireNonNull;
 import static java.util.stream.Collectors.toList;
@@ -71,6 +74,7 @@ public class SliceDictionaryColumnWriter
     private final CompressionKind compression;
     private final int bufferSize;
     private final int stringStatisticsLimitInBytes;
+    private final Supplier<BloomFilterBuilder> bloomFilterBuilder;
 
     private final LongOutputStream dataStream;
     private final PresentOutputStream presentStream;
@@ -96,7 +100,7 @@ public class SliceDictionaryColumnWriter
     private boolean directEncoded;
     private SliceDirectColumnWriter directColumnWriter;
 
-    public SliceDictionaryColumnWriter(int column, Type type, CompressionKind compression, int bufferSize, DataSize stringStatisticsLimit)
+    public SliceDictionaryColumnWriter(int column, Type type, CompressionKind compression, int bufferSize, DataSize stringStatisticsLimit, Supplier<BloomFilterBuilder> bloomFilterBuilder)
     {
         checkArgument(column >= 0, "column is negative");
         this.column = column;
@@ -104,6 +108,7 @@ public class SliceDictionaryColumnWriter
         this.compression = requireNonNull(compression, "compression is null");
         this.bufferSize = bufferSize;
         this.stringStatisticsLimitInBytes = toIntExact(requireNonNull(stringStatisticsLimit, "stringStatisticsLimit is null").toBytes());
+        this.bloomFilterBuilder = requireNonNull(bloomFilterBuilder, "bloomFilterBuilder is null");
         this.dataStream = new LongOutputStreamV2(compression, bufferSize, false, DATA);
         this.presentStream = new PresentOutputStream(compression, bufferSize);
         this.dictionaryDataStream = new ByteArrayOutputStream(compression, bufferSize, StreamKind.DICTIONARY_DATA);
@@ -464,7 +469,14 @@ public class SliceDictionaryColumnWriter
 
         Slice slice = metadataWriter.writeRowIndexes(rowGroupIndexes.build());
         Stream stream = new Stream(column, StreamKind.ROW_INDEX, slice.length(), false);
-        return ImmutableList.of(new StreamDataOutput(slice, stream));
+
+        ImmutableList.Builder<StreamDataOutput> indexStreams = ImmutableList.builder();
+        indexStreams.add(new StreamDataOutput(slice, stream));
+        List<ColumnStatistics> rowGroupColumnStatistics = rowGroups.stream()
+                .map(DictionaryRowGroup::getColumnStatistics)
+                .collect(toList());
+        buildBloomFilterStream(metadataWriter, column, rowGroupColumnStatistics).ifPresent(indexStreams::add);
+        return indexStreams.build();
     }
 
     private static List<Integer> createSliceColumnPositionList(
@@ -552,7 +564,7 @@ public class SliceDictionaryColumnWriter
 
     private StringStatisticsBuilder newStringStatisticsBuilder()
     {
-        return new StringStatisticsBuilder(stringStatisticsLimitInBytes);
+        return new StringStatisticsBuilder(stringStatisticsLimitInBytes, bloomFilterBuilder.get());
     }
 
     private static class DictionaryRowGroup
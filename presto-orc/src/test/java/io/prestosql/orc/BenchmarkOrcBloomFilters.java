@@ -0,0 +1,185 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.orc;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import io.airlift.units.DataSize;
+import io.prestosql.orc.TupleDomainOrcPredicate.ColumnReference;
+import io.prestosql.spi.predicate.NullableValue;
+import org.joda.time.DateTimeZone;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.VerboseMode;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.io.Files.createTempDir;
+import static com.google.common.io.MoreFiles.deleteRecursively;
+import static com.google.common.io.RecursiveDeleteOption.ALLOW_INSECURE;
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
+import static io.prestosql.memory.context.AggregatedMemoryContext.newSimpleAggregatedMemoryContext;
+import static io.prestosql.orc.OrcReader.INITIAL_BATCH_SIZE;
+import static io.prestosql.orc.OrcTester.writeOrcColumnPresto;
+import static io.prestosql.orc.metadata.CompressionKind.NONE;
+import static io.prestosql.spi.predicate.TupleDomain.fromFixedValues;
+import static io.prestosql.spi.type.BigintType.BIGINT;
+import static java.util.UUID.randomUUID;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Measures a point lookup on a high cardinality column whose values are spread over
+ * the whole domain in every row group, so min/max statistics can not skip anything.
+ * The benchmark result is the number of rows read; with bloom filters only the row
+ * group containing the value and the false positives are read.
+ */
+@SuppressWarnings("MethodMayBeStatic")
+@State(Scope.Thread)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(3)
+@Warmup(iterations = 20, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 20, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@BenchmarkMode(Mode.AverageTime)
+public class BenchmarkOrcBloomFilters
+{
+    private static final int ROW_COUNT = 1_000_000;
+    private static final String COLUMN_NAME = "test";
+
+    @Benchmark
+    public long pointLookup(BenchmarkData data)
+            throws Throwable
+    {
+        long rows = 0;
+        try (OrcRecordReader recordReader = data.createRecordReader()) {
+            for (int batchSize = recordReader.nextBatch(); batchSize > 0; batchSize = recordReader.nextBatch()) {
+                recordReader.readBlock(0).getLoadedBlock();
+                rows += batchSize;
+            }
+        }
+        return rows;
+    }
+
+    @Test
+    public void testPointLookup()
+            throws Throwable
+    {
+        BenchmarkData withoutBloomFilter = new BenchmarkData();
+        withoutBloomFilter.bloomFilter = false;
+        withoutBloomFilter.setup();
+
+        BenchmarkData withBloomFilter = new BenchmarkData();
+        withBloomFilter.bloomFilter = true;
+        withBloomFilter.setup();
+
+        try {
+            long rowsWithoutBloomFilter = pointLookup(withoutBloomFilter);
+            long rowsWithBloomFilter = pointLookup(withBloomFilter);
+            assertTrue(rowsWithoutBloomFilter == ROW_COUNT, "rows read without bloom filter: " + rowsWithoutBloomFilter);
+            assertTrue(rowsWithBloomFilter > 0 && rowsWithBloomFilter <= ROW_COUNT / 5, "rows read with bloom filter: " + rowsWithBloomFilter);
+        }
+        finally {
+            withoutBloomFilter.tearDown();
+            withBloomFilter.tearDown();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class BenchmarkData
+    {
+        @Param({"true", "false"})
+        private boolean bloomFilter = true;
+
+        private File temporary;
+        private File dataPath;
+        private long lookupValue;
+
+        @Setup
+        public void setup()
+                throws Exception
+        {
+            temporary = createTempDir();
+            dataPath = new File(temporary, randomUUID().toString());
+
+            Random random = new Random(42);
+            List<Long> values = new ArrayList<>(ROW_COUNT);
+            for (int i = 0; i < ROW_COUNT; i++) {
+                values.add(random.nextLong());
+            }
+            lookupValue = values.get(ROW_COUNT / 2);
+
+            OrcWriterOptions options = new OrcWriterOptions();
+            if (bloomFilter) {
+                options = options.withBloomFilterColumns(ImmutableSet.of(COLUMN_NAME));
+            }
+            writeOrcColumnPresto(dataPath, NONE, BIGINT, values.iterator(), options, new OrcWriterStats());
+        }
+
+        @TearDown
+        public void tearDown()
+                throws IOException
+        {
+            deleteRecursively(temporary.toPath(), ALLOW_INSECURE);
+        }
+
+        private OrcRecordReader createRecordReader()
+                throws IOException
+        {
+            OrcDataSource dataSource = new FileOrcDataSource(dataPath, new DataSize(1, MEGABYTE), new DataSize(1, MEGABYTE), new DataSize(1, MEGABYTE), true);
+            OrcReader orcReader = new OrcReader(dataSource, new DataSize(1, MEGABYTE), new DataSize(1, MEGABYTE), new DataSize(1, MEGABYTE));
+            TupleDomainOrcPredicate<String> predicate = new TupleDomainOrcPredicate<>(
+                    fromFixedValues(ImmutableMap.of(COLUMN_NAME, NullableValue.of(BIGINT, lookupValue))),
+                    ImmutableList.of(new ColumnReference<>(COLUMN_NAME, 0, BIGINT)),
+                    true);
+            return orcReader.createRecordReader(
+                    ImmutableMap.of(0, BIGINT),
+                    predicate,
+                    DateTimeZone.UTC, // arbitrary
+                    newSimpleAggregatedMemoryContext(),
+                    INITIAL_BATCH_SIZE);
+        }
+    }
+
+    public static void main(String[] args)
+            throws Throwable
+    {
+        // assure the benchmarks are valid before running
+        new BenchmarkOrcBloomFilters().testPointLookup();
+
+        Options options = new OptionsBuilder()
+                .verbosity(VerboseMode.NORMAL)
+                .include(".*" + BenchmarkOrcBloomFilters.class.getSimpleName() + ".*")
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -15,6 +15,7 @@ package io.prestosql.orc;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.primitives.Longs;
 import io.airlift.slice.Slice;
 import io.prestosql.orc.TupleDomainOrcPredicate.ColumnReference;
@@ -24,9 +25,12 @@ import io.prestosql.orc.metadata.statistics.ColumnStatistics;
 import io.prestosql.orc.metadata.statistics.IntegerStatistics;
 import io.prestosql.orc.proto.OrcProto;
 import io.prestosql.orc.protobuf.CodedInputStream;
+import io.prestosql.spi.block.Block;
 import io.prestosql.spi.predicate.Domain;
+import io.prestosql.spi.predicate.NullableValue;
 import io.prestosql.spi.predicate.TupleDomain;
 import io.prestosql.spi.type.RealType;
+import io.prestosql.spi.type.SqlDate;
 import io.prestosql.spi.type.Type;
 import org.apache.orc.util.Murmur3;
 import org.testng.annotations.Test;
@@ -37,16 +41,24 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.math.BigDecimal;
 import java.sql.Timestamp;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.IntFunction;
 
+import static io.airlift.slice.Slices.utf8Slice;
 import static io.airlift.slice.Slices.wrappedBuffer;
+import static io.prestosql.orc.OrcReader.MAX_BATCH_SIZE;
+import static io.prestosql.orc.OrcTester.createCustomOrcRecordReader;
+import static io.prestosql.orc.OrcTester.writeOrcColumnPresto;
 import static io.prestosql.orc.TupleDomainOrcPredicate.checkInBloomFilter;
 import static io.prestosql.orc.TupleDomainOrcPredicate.extractDiscreteValues;
+import static io.prestosql.orc.metadata.CompressionKind.NONE;
+import static io.prestosql.spi.predicate.TupleDomain.fromFixedValues;
 import static io.prestosql.spi.type.BigintType.BIGINT;
 import static io.prestosql.spi.type.BooleanType.BOOLEAN;
 import static io.prestosql.spi.type.DateType.DATE;
@@ -56,10 +68,12 @@ import static io.prestosql.spi.type.RealType.REAL;
 import static io.prestosql.spi.type.SmallintType.SMALLINT;
 import static io.prestosql.spi.type.TimestampType.TIMESTAMP;
 import static io.prestosql.spi.type.TinyintType.TINYINT;
+import static io.prestosql.spi.type.TypeUtils.readNativeValue;
 import static io.prestosql.spi.type.VarbinaryType.VARBINARY;
 import static io.prestosql.spi.type.VarcharType.VARCHAR;
 import static java.lang.Float.floatToIntBits;
 import static java.lang.Float.intBitsToFloat;
+import static java.lang.String.format;
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
@@ -73,6 +87,7 @@ public class TestOrcBloomFilters
     private static final int TEST_INTEGER = 12345;
     private static final String COLUMN_0 = "bigint_0";
     private static final String COLUMN_1 = "bigint_1";
+    private static final int ROW_GROUP_ROW_COUNT = 10_000;
 
     private static final Map<Object, Type> TEST_VALUES = ImmutableMap.<Object, Type>builder()
             .put(wrappedBuffer(TEST_STRING), VARCHAR)
@@ -439,6 +454,80 @@ public class TestOrcBloomFilters
         }
     }
 
+    @Test
+    public void testWrittenVarcharBloomFilter()
+            throws Exception
+    {
+        assertBloomFilterSkipsRowGroup(VARCHAR, value -> format("%08d", value), utf8Slice("00001000"));
+    }
+
+    @Test
+    public void testWrittenDoubleBloomFilter()
+            throws Exception
+    {
+        assertBloomFilterSkipsRowGroup(DOUBLE, value -> value * 1.5, 1500.0);
+    }
+
+    @Test
+    public void testWrittenRealBloomFilter()
+            throws Exception
+    {
+        assertBloomFilterSkipsRowGroup(REAL, value -> (float) value, (long) floatToIntBits(1000.0f));
+    }
+
+    @Test
+    public void testWrittenDateBloomFilter()
+            throws Exception
+    {
+        assertBloomFilterSkipsRowGroup(DATE, SqlDate::new, 1000L);
+    }
+
+    /**
+     * Writes two row groups, the first with the even values and the second with the odd values, so the
+     * min/max statistics of both row groups include the even value 1000 searched by the predicate, and
+     * only the bloom filters can skip the second row group.
+     */
+    private static void assertBloomFilterSkipsRowGroup(Type type, IntFunction<Object> valueWriter, Object predicateValue)
+            throws Exception
+    {
+        List<Object> values = new ArrayList<>();
+        for (int i = 0; i < ROW_GROUP_ROW_COUNT; i++) {
+            values.add(valueWriter.apply(i * 2));
+        }
+        for (int i = 0; i < ROW_GROUP_ROW_COUNT; i++) {
+            values.add(valueWriter.apply(i * 2 + 1));
+        }
+
+        try (TempFile tempFile = new TempFile()) {
+            OrcWriterOptions options = new OrcWriterOptions()
+                    .withRowGroupMaxRowCount(ROW_GROUP_ROW_COUNT)
+                    .withBloomFilterColumns(ImmutableSet.of("test"))
+                    .withBloomFilterFpp(0.0001);
+            writeOrcColumnPresto(tempFile.getFile(), NONE, type, values.iterator(), options, new OrcWriterStats());
+
+            TupleDomainOrcPredicate<String> predicate = new TupleDomainOrcPredicate<>(
+                    fromFixedValues(ImmutableMap.of("test", NullableValue.of(type, predicateValue))),
+                    ImmutableList.of(new ColumnReference<>("test", 0, type)),
+                    true);
+
+            int rowCount = 0;
+            boolean valueFound = false;
+            try (OrcRecordReader recordReader = createCustomOrcRecordReader(tempFile, predicate, type, MAX_BATCH_SIZE)) {
+                for (int batchSize = recordReader.nextBatch(); batchSize > 0; batchSize = recordReader.nextBatch()) {
+                    Block block = recordReader.readBlock(0);
+                    for (int position = 0; position < batchSize; position++) {
+                        valueFound |= predicateValue.equals(readNativeValue(type, block, position));
+                    }
+                    rowCount += batchSize;
+                }
+            }
+
+            // the first row group is read, and the second is skipped
+            assertTrue(valueFound, "value not found");
+            assertEquals(rowCount, ROW_GROUP_ROW_COUNT);
+        }
+    }
+
     private static byte[] randomBytes(int length)
     {
         byte[] result = new byte[length];
@@ -0,0 +1,140 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.orc;
+
+import com.google.common.collect.ImmutableMap;
+import io.airlift.units.DataSize;
+import io.prestosql.orc.metadata.CompressionKind;
+import io.prestosql.orc.metadata.RowGroupIndex;
+import io.prestosql.orc.metadata.StripeFooter;
+import io.prestosql.spi.block.Block;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.LongStream;
+
+import static io.airlift.units.DataSize.Unit.BYTE;
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
+import static io.prestosql.memory.context.AggregatedMemoryContext.newSimpleAggregatedMemoryContext;
+import static io.prestosql.orc.OrcReader.MAX_BATCH_SIZE;
+import static io.prestosql.orc.OrcTester.Format.ORC_12;
+import static io.prestosql.orc.OrcTester.HIVE_STORAGE_TIME_ZONE;
+import static io.prestosql.orc.OrcTester.MAX_BLOCK_SIZE;
+import static io.prestosql.orc.OrcTester.writeOrcColumnHive;
+import static io.prestosql.spi.type.BigintType.BIGINT;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class TestOrcFileMetadataCache
+{
+    private static final int ROW_COUNT = 30_000;
+
+    @Test
+    public void testCachedMetadata()
+            throws Exception
+    {
+        try (TempFile tempFile = new TempFile()) {
+            writeOrcColumnHive(tempFile.getFile(), ORC_12, CompressionKind.ZLIB, BIGINT, LongStream.range(0, ROW_COUNT).boxed().iterator());
+
+            TestingOrcFileMetadataCache metadataCache = new TestingOrcFileMetadataCache();
+            long uncachedReadBytes = readFile(tempFile, metadataCache);
+            assertTrue(metadataCache.fileTail.isPresent());
+            assertEquals(metadataCache.stripeFooters.size(), 1);
+            assertEquals(metadataCache.rowGroupIndexes.size(), 1);
+
+            // the file tail, the stripe footer and the row group indexes are served from the cache
+            long cachedReadBytes = readFile(tempFile, metadataCache);
+            assertTrue(cachedReadBytes < uncachedReadBytes, "expected fewer bytes to be read");
+            assertEquals(metadataCache.hitCount, 3);
+        }
+    }
+
+    private static long readFile(TempFile tempFile, OrcFileMetadataCache metadataCache)
+            throws IOException
+    {
+        DataSize dataSize = new DataSize(1, MEGABYTE);
+        OrcDataSource orcDataSource = new FileOrcDataSource(tempFile.getFile(), dataSize, dataSize, dataSize, true);
+        OrcReader orcReader = new OrcReader(orcDataSource, metadataCache, dataSize, new DataSize(0, BYTE), MAX_BLOCK_SIZE);
+        assertEquals(orcReader.getFooter().getNumberOfRows(), ROW_COUNT);
+
+        try (OrcRecordReader recordReader = orcReader.createRecordReader(ImmutableMap.of(0, BIGINT), OrcPredicate.TRUE, HIVE_STORAGE_TIME_ZONE, newSimpleAggregatedMemoryContext(), MAX_BATCH_SIZE)) {
+            long position = 0;
+            for (int batchSize = recordReader.nextBatch(); batchSize >= 0; batchSize = recordReader.nextBatch()) {
+                Block block = recordReader.readBlock(0);
+                for (int i = 0; i < batchSize; i++) {
+                    assertEquals(BIGINT.getLong(block, i), position);
+                    position++;
+                }
+            }
+            assertEquals(position, ROW_COUNT);
+        }
+        return orcDataSource.getReadBytes();
+    }
+
+    private static class TestingOrcFileMetadataCache
+            implements OrcFileMetadataCache
+    {
+        private Optional<OrcFileTail> fileTail = Optional.empty();
+        private final Map<Long, StripeFooter> stripeFooters = new HashMap<>();
+        private final Map<StreamId, List<RowGroupIndex>> rowGroupIndexes = new HashMap<>();
+        private int hitCount;
+
+        @Override
+        public Optional<OrcFileTail> getFileTail()
+        {
+            return recordHit(fileTail);
+        }
+
+        @Override
+        public void putFileTail(OrcFileTail fileTail)
+        {
+            this.fileTail = Optional.of(fileTail);
+        }
+
+        @Override
+        public Optional<StripeFooter> getStripeFooter(long stripeOffset)
+        {
+            return recordHit(Optional.ofNullable(stripeFooters.get(stripeOffset)));
+        }
+
+        @Override
+        public void putStripeFooter(long stripeOffset, StripeFooter stripeFooter)
+        {
+            stripeFooters.put(stripeOffset, stripeFooter);
+        }
+
+        @Override
+        public Optional<List<RowGroupIndex>> getRowGroupIndexes(long stripeOffset, StreamId streamId)
+        {
+            // the file has a single stripe
+            return recordHit(Optional.ofNullable(rowGroupIndexes.get(streamId)));
+        }
+
+        @Override
+        public void putRowGroupIndexes(long stripeOffset, StreamId streamId, List<RowGroupIndex> rowGroupIndexes)
+        {
+            this.rowGroupIndexes.put(streamId, rowGroupIndexes);
+        }
+
+        private <T> Optional<T> recordHit(Optional<T> value)
+        {
+            value.ifPresent(ignored -> hitCount++);
+            return value;
+        }
+    }
+}
@@ -15,6 +15,7 @@ package io.prestosql.orc;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import io.airlift.units.DataSize;
 import io.prestosql.orc.TupleDomainOrcPredicate.ColumnReference;
 import io.prestosql.spi.predicate.NullableValue;
@@ -25,7 +26,9 @@ import io.prestosql.spi.type.TimeZoneKey;
 import io.prestosql.spi.type.Type;
 import org.testng.annotations.Test;
 
+import java.io.File;
 import java.io.IOException;
+import java.util.Iterator;
 import java.util.List;
 import java.util.stream.Stream;
 
@@ -40,6 +43,7 @@ import static io.prestosql.orc.OrcTester.Format.ORC_12;
 import static io.prestosql.orc.OrcTester.HIVE_STORAGE_TIME_ZONE;
 import static io.prestosql.orc.OrcTester.MAX_BLOCK_SIZE;
 import static io.prestosql.orc.OrcTester.writeOrcColumnHive;
+import static io.prestosql.orc.OrcTester.writeOrcColumnPresto;
 import static io.prestosql.orc.metadata.CompressionKind.LZ4;
 import static io.prestosql.spi.predicate.TupleDomain.fromFixedValues;
 import static io.prestosql.spi.type.BigintType.BIGINT;
@@ -85,13 +89,48 @@ public class TestReadBloomFilter
                 utf8Slice("w"));
     }
 
+    @Test
+    public void testPrestoWriter()
+            throws Exception
+    {
+        ColumnFileWriter writer = (file, type, values) -> writeOrcColumnPresto(
+                file,
+                LZ4,
+                type,
+                values,
+                new OrcWriterOptions().withBloomFilterColumns(ImmutableSet.of("test")),
+                new OrcWriterStats());
+
+        testType(SMALLINT, ImmutableList.of(1L, 5000L, 10_000L), 5000L, 7777L, writer);
+        testType(INTEGER, ImmutableList.of(1L, 500_000L, 1_000_000L), 500_000L, 777_777L, writer);
+        testType(BIGINT, ImmutableList.of(1L, 500_000L, 1_000_000L), 500_000L, 777_777L, writer);
+
+        testType(DATE, ImmutableList.of(new SqlDate(1), new SqlDate(5_000), new SqlDate(10_000)), 5_000L, 7_777L, writer);
+
+        testType(REAL, ImmutableList.of(1.11f, 500_000.56f, 1_000_000.99f), (long) floatToIntBits(500_000.56f), (long) floatToIntBits(777_777.77f), writer);
+        testType(DOUBLE, ImmutableList.of(1.11, 500_000.55, 1_000_000.99), 500_000.55, 777_777.77, writer);
+
+        testType(VARCHAR, ImmutableList.of("a", "o", "z"), utf8Slice("o"), utf8Slice("w"), writer);
+        testType(VARBINARY,
+                ImmutableList.of(new SqlVarbinary("a".getBytes(UTF_8)), new SqlVarbinary("o".getBytes(UTF_8)), new SqlVarbinary("z".getBytes(UTF_8))),
+                utf8Slice("o"),
+                utf8Slice("w"),
+                writer);
+    }
+
     private static <T> void testType(Type type, List<T> uniqueValues, T inBloomFilter, T notInBloomFilter)
             throws Exception
+    {
+        testType(type, uniqueValues, inBloomFilter, notInBloomFilter, (file, fileType, values) -> writeOrcColumnHive(file, ORC_12, LZ4, fileType, values));
+    }
+
+    private static <T> void testType(Type type, List<T> uniqueValues, T inBloomFilter, T notInBloomFilter, ColumnFileWriter writer)
+            throws Exception
     {
         Stream<T> writeValues = newArrayList(limit(cycle(uniqueValues), 30_000)).stream();
 
         try (TempFile tempFile = new TempFile()) {
-            writeOrcColumnHive(tempFile.getFile(), ORC_12, LZ4, type, writeValues.iterator());
+            writer.write(tempFile.getFile(), type, writeValues.iterator());
 
             // without predicate a normal block will be created
             try (OrcRecordReader recordReader = createCustomOrcRecordReader(tempFile, OrcPredicate.TRUE, type, MAX_BATCH_SIZE)) {
@@ -141,4 +180,10 @@ public class TestReadBloomFilter
 
         return orcReader.createRecordReader(ImmutableMap.of(0, type), predicate, HIVE_STORAGE_TIME_ZONE, newSimpleAggregatedMemoryContext(), initialBatchSize);
     }
+
+    private interface ColumnFileWriter
+    {
+        void write(File file, Type type, Iterator<?> values)
+                throws Exception;
+    }
 }
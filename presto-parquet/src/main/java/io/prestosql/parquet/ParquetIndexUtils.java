@@ -0,0 +1,91 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.parquet;
+
+import io.airlift.slice.Slice;
+import org.apache.parquet.format.ColumnIndex;
+import org.apache.parquet.format.OffsetIndex;
+import shaded.parquet.org.apache.thrift.TBase;
+import shaded.parquet.org.apache.thrift.TException;
+import shaded.parquet.org.apache.thrift.protocol.TCompactProtocol;
+import shaded.parquet.org.apache.thrift.transport.TIOStreamTransport;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import static io.prestosql.parquet.ParquetValidationUtils.validateParquet;
+
+/**
+ * Serialization of the Parquet page index structures, the column index and the offset index,
+ * which are stored next to the footer using the Thrift compact protocol, like the footer
+ * serialized by {@link org.apache.parquet.format.Util}.
+ */
+public final class ParquetIndexUtils
+{
+    private ParquetIndexUtils() {}
+
+    public static ColumnIndex readColumnIndex(Slice data)
+            throws ParquetCorruptionException
+    {
+        ColumnIndex columnIndex = read(new ColumnIndex(), data);
+        validateParquet(
+                columnIndex.getNull_pagesSize() == columnIndex.getMin_valuesSize() && columnIndex.getNull_pagesSize() == columnIndex.getMax_valuesSize(),
+                "Column index has lists of different sizes");
+        return columnIndex;
+    }
+
+    public static OffsetIndex readOffsetIndex(Slice data)
+            throws ParquetCorruptionException
+    {
+        OffsetIndex offsetIndex = read(new OffsetIndex(), data);
+        validateParquet(offsetIndex.getPage_locationsSize() > 0, "Offset index has no page locations");
+        return offsetIndex;
+    }
+
+    public static void writeColumnIndex(ColumnIndex columnIndex, OutputStream output)
+            throws IOException
+    {
+        write(columnIndex, output);
+    }
+
+    public static void writeOffsetIndex(OffsetIndex offsetIndex, OutputStream output)
+            throws IOException
+    {
+        write(offsetIndex, output);
+    }
+
+    private static <T extends TBase<?, ?>> T read(T value, Slice data)
+            throws ParquetCorruptionException
+    {
+        try {
+            // the generated read also validates that the required fields are set
+            value.read(new TCompactProtocol(new TIOStreamTransport(data.getInput())));
+            return value;
+        }
+        catch (TException e) {
+            throw new ParquetCorruptionException(e, "Invalid %s", value.getClass().getSimpleName());
+        }
+    }
+
+    private static void write(TBase<?, ?> value, OutputStream output)
+            throws IOException
+    {
+        try {
+            value.write(new TCompactProtocol(new TIOStreamTransport(output)));
+        }
+        catch (TException e) {
+            throw new IOException("Can not write " + value.getClass().getSimpleName(), e);
+        }
+    }
+}
@@ -22,16 +22,21 @@ import io.airlift.slice.Slice;
 import io.prestosql.parquet.DictionaryPage;
 import io.prestosql.parquet.ParquetCorruptionException;
 import io.prestosql.parquet.ParquetDataSource;
+import io.prestosql.parquet.ParquetDataSourceId;
 import io.prestosql.parquet.ParquetEncoding;
 import io.prestosql.parquet.RichColumnDescriptor;
+import io.prestosql.parquet.reader.RowRanges;
 import io.prestosql.spi.predicate.TupleDomain;
 import io.prestosql.spi.type.Type;
 import org.apache.parquet.column.ColumnDescriptor;
 import org.apache.parquet.column.Encoding;
 import org.apache.parquet.column.EncodingStats;
 import org.apache.parquet.column.statistics.Statistics;
+import org.apache.parquet.format.ColumnIndex;
 import org.apache.parquet.format.DictionaryPageHeader;
+import org.apache.parquet.format.OffsetIndex;
 import org.apache.parquet.format.PageHeader;
+import org.apache.parquet.format.PageLocation;
 import org.apache.parquet.format.PageType;
 import org.apache.parquet.format.Util;
 import org.apache.parquet.hadoop.metadata.BlockMetaData;
@@ -41,6 +46,7 @@ import org.apache.parquet.schema.MessageType;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
@@ -51,6 +57,7 @@ import static com.google.common.base.Verify.verify;
 import static io.airlift.slice.Slices.wrappedBuffer;
 import static io.prestosql.parquet.ParquetCompressionUtils.decompress;
 import static io.prestosql.parquet.ParquetTypeUtils.getParquetEncoding;
+import static io.prestosql.parquet.ParquetValidationUtils.validateParquet;
 import static io.prestosql.spi.type.IntegerType.INTEGER;
 import static io.prestosql.spi.type.SmallintType.SMALLINT;
 import static io.prestosql.spi.type.TinyintType.TINYINT;
@@ -98,6 +105,56 @@ public final class PredicateUtils
         return parquetPredicate.matches(dictionaries);
     }
 
+    /**
+     * Returns the rows of a row group which may match the predicate, based on the statistics of
+     * each page recorded in the column index of the given column. The column must not be repeated,
+     * so that the values of each page are the rows it covers.
+     */
+    public static RowRanges getMatchingRows(Predicate parquetPredicate, ColumnDescriptor column, ColumnIndex columnIndex, OffsetIndex offsetIndex, long rowCount, ParquetDataSourceId id)
+            throws ParquetCorruptionException
+    {
+        List<PageLocation> pageLocations = offsetIndex.getPage_locations();
+        validateParquet(columnIndex.getNull_pagesSize() == pageLocations.size(), "Column index and offset index of column %s have different page counts in %s", column, id);
+
+        RowRanges matchingRows = RowRanges.empty();
+        for (int page = 0; page < pageLocations.size(); page++) {
+            long pageStart = pageLocations.get(page).getFirst_row_index();
+            long pageEnd = page + 1 < pageLocations.size() ? pageLocations.get(page + 1).getFirst_row_index() : rowCount;
+            validateParquet(pageStart <= pageEnd && pageEnd <= rowCount, "Invalid row index of page %s of column %s in %s", page, column, id);
+
+            Statistics<?> statistics = getPageStatistics(column, columnIndex, page, pageEnd - pageStart);
+            // corrupted page statistics do not fail the query, as the page is read in that case
+            if (parquetPredicate.matches(pageEnd - pageStart, ImmutableMap.of(column, statistics), id, false)) {
+                matchingRows = matchingRows.union(RowRanges.range(pageStart, pageEnd));
+            }
+        }
+        return matchingRows;
+    }
+
+    private static Statistics<?> getPageStatistics(ColumnDescriptor column, ColumnIndex columnIndex, int page, long pageRowCount)
+    {
+        Statistics<?> statistics = Statistics.getStatsBasedOnType(column.getType());
+        boolean nullPage = columnIndex.getNull_pages().get(page);
+        if (!nullPage) {
+            statistics.setMinMaxFromBytes(getBytes(columnIndex.getMin_values().get(page)), getBytes(columnIndex.getMax_values().get(page)));
+        }
+        if (columnIndex.isSetNull_counts()) {
+            statistics.setNumNulls(columnIndex.getNull_counts().get(page));
+        }
+        else {
+            // a negative count marks the number of nulls as unknown
+            statistics.setNumNulls(nullPage ? pageRowCount : -1);
+        }
+        return statistics;
+    }
+
+    private static byte[] getBytes(ByteBuffer buffer)
+    {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.duplicate().get(bytes);
+        return bytes;
+    }
+
     private static Map<ColumnDescriptor, Statistics<?>> getStatistics(BlockMetaData blockMetadata, Map<List<String>, RichColumnDescriptor> descriptorsByPath)
     {
         ImmutableMap.Builder<ColumnDescriptor, Statistics<?>> statistics = ImmutableMap.builder();
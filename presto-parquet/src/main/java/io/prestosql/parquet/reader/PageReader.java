@@ -22,7 +22,10 @@ import org.apache.parquet.hadoop.metadata.CompressionCodecName;
 import java.io.IOException;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Optional;
+import java.util.OptionalLong;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static io.prestosql.parquet.ParquetCompressionUtils.decompress;
 import static java.lang.Math.toIntExact;
 
@@ -32,14 +35,26 @@ class PageReader
     private final long valueCount;
     private final List<DataPage> compressedPages;
     private final DictionaryPage compressedDictionaryPage;
+    // index within the row group of the first row of each page, when the pages were selected through the offset index
+    private final Optional<List<Long>> firstRowIndexes;
 
     public PageReader(CompressionCodecName codec,
             List<DataPage> compressedPages,
             DictionaryPage compressedDictionaryPage)
     {
+        this(codec, compressedPages, compressedDictionaryPage, Optional.empty());
+    }
+
+    public PageReader(CompressionCodecName codec,
+            List<DataPage> compressedPages,
+            DictionaryPage compressedDictionaryPage,
+            Optional<List<Long>> firstRowIndexes)
+    {
+        checkArgument(!firstRowIndexes.isPresent() || firstRowIndexes.get().size() == compressedPages.size(), "firstRowIndexes and compressedPages have different sizes");
         this.codec = codec;
         this.compressedPages = new LinkedList<>(compressedPages);
         this.compressedDictionaryPage = compressedDictionaryPage;
+        this.firstRowIndexes = firstRowIndexes.map(LinkedList::new);
         int count = 0;
         for (DataPage page : compressedPages) {
             count += page.getValueCount();
@@ -52,12 +67,25 @@ class PageReader
         return valueCount;
     }
 
+    /**
+     * Returns the index within the row group of the first row of the next page, if the pages
+     * were selected through the offset index.
+     */
+    public OptionalLong getNextPageFirstRowIndex()
+    {
+        if (!firstRowIndexes.isPresent() || firstRowIndexes.get().isEmpty()) {
+            return OptionalLong.empty();
+        }
+        return OptionalLong.of(firstRowIndexes.get().get(0));
+    }
+
     public DataPage readPage()
     {
         if (compressedPages.isEmpty()) {
             return null;
         }
         DataPage compressedPage = compressedPages.remove(0);
+        firstRowIndexes.ifPresent(indexes -> indexes.remove(0));
         try {
             if (compressedPage instanceof DataPageV1) {
                 DataPageV1 dataPageV1 = (DataPageV1) compressedPage;
@@ -24,15 +24,19 @@ import org.apache.parquet.format.DataPageHeader;
 import org.apache.parquet.format.DataPageHeaderV2;
 import org.apache.parquet.format.DictionaryPageHeader;
 import org.apache.parquet.format.PageHeader;
+import org.apache.parquet.format.PageLocation;
 import org.apache.parquet.format.Util;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 
 import static io.airlift.slice.Slices.wrappedBuffer;
 import static io.prestosql.parquet.ParquetTypeUtils.getParquetEncoding;
+import static java.lang.Math.toIntExact;
+import static org.apache.parquet.format.PageType.DICTIONARY_PAGE;
 
 public class ParquetColumnChunk
         extends ByteArrayInputStream
@@ -91,6 +95,48 @@ public class ParquetColumnChunk
         return new PageReader(descriptor.getColumnChunkMetaData().getCodec(), pages, dictionaryPage);
     }
 
+    /**
+     * Reads the dictionary page, if any, and the given data pages of the column chunk, which
+     * are the only data pages loaded in the buffer.
+     *
+     * @param firstDataPageOffset file offset of the first data page of the column chunk
+     * @param pageLocations locations of the data pages to read, in file order
+     */
+    public PageReader readPages(long firstDataPageOffset, List<PageLocation> pageLocations)
+            throws IOException
+    {
+        long chunkOffset = descriptor.getColumnChunkMetaData().getStartingPos();
+        DictionaryPage dictionaryPage = null;
+        if (firstDataPageOffset > chunkOffset) {
+            pos = 0;
+            PageHeader pageHeader = readPageHeader();
+            if (pageHeader.type == DICTIONARY_PAGE) {
+                dictionaryPage = readDictionaryPage(pageHeader, pageHeader.getUncompressed_page_size(), pageHeader.getCompressed_page_size());
+            }
+        }
+
+        List<DataPage> pages = new ArrayList<>(pageLocations.size());
+        List<Long> firstRowIndexes = new ArrayList<>(pageLocations.size());
+        for (PageLocation pageLocation : pageLocations) {
+            pos = toIntExact(pageLocation.getOffset() - chunkOffset);
+            PageHeader pageHeader = readPageHeader();
+            int uncompressedPageSize = pageHeader.getUncompressed_page_size();
+            int compressedPageSize = pageHeader.getCompressed_page_size();
+            switch (pageHeader.type) {
+                case DATA_PAGE:
+                    readDataPageV1(pageHeader, uncompressedPageSize, compressedPageSize, pages);
+                    break;
+                case DATA_PAGE_V2:
+                    readDataPageV2(pageHeader, uncompressedPageSize, compressedPageSize, pages);
+                    break;
+                default:
+                    throw new ParquetCorruptionException("%s offset index points to a %s page", descriptor.getColumnDescriptor(), pageHeader.type);
+            }
+            firstRowIndexes.add(pageLocation.getFirst_row_index());
+        }
+        return new PageReader(descriptor.getColumnChunkMetaData().getCodec(), pages, dictionaryPage, Optional.of(firstRowIndexes));
+    }
+
     public int getPosition()
     {
         return pos;
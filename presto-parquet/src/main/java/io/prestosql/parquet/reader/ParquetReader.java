@@ -13,6 +13,9 @@
  */
 package io.prestosql.parquet.reader;
 
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import io.airlift.slice.Slice;
 import io.airlift.units.DataSize;
 import io.prestosql.memory.context.AggregatedMemoryContext;
 import io.prestosql.memory.context.LocalMemoryContext;
@@ -22,6 +25,7 @@ import io.prestosql.parquet.ParquetCorruptionException;
 import io.prestosql.parquet.ParquetDataSource;
 import io.prestosql.parquet.PrimitiveField;
 import io.prestosql.parquet.RichColumnDescriptor;
+import io.prestosql.parquet.predicate.Predicate;
 import io.prestosql.spi.block.ArrayBlock;
 import io.prestosql.spi.block.Block;
 import io.prestosql.spi.block.RowBlock;
@@ -34,6 +38,9 @@ import it.unimi.dsi.fastutil.booleans.BooleanList;
 import it.unimi.dsi.fastutil.ints.IntArrayList;
 import it.unimi.dsi.fastutil.ints.IntList;
 import org.apache.parquet.column.ColumnDescriptor;
+import org.apache.parquet.format.ColumnIndex;
+import org.apache.parquet.format.OffsetIndex;
+import org.apache.parquet.format.PageLocation;
 import org.apache.parquet.hadoop.metadata.BlockMetaData;
 import org.apache.parquet.hadoop.metadata.ColumnChunkMetaData;
 import org.apache.parquet.hadoop.metadata.ColumnPath;
@@ -43,11 +50,17 @@ import org.apache.parquet.io.PrimitiveColumnIO;
 import java.io.Closeable;
 import java.io.IOException;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static com.google.common.base.Preconditions.checkArgument;
+import static io.airlift.slice.Slices.wrappedBuffer;
+import static io.prestosql.parquet.ParquetIndexUtils.readColumnIndex;
+import static io.prestosql.parquet.ParquetIndexUtils.readOffsetIndex;
 import static io.prestosql.parquet.ParquetValidationUtils.validateParquet;
+import static io.prestosql.parquet.predicate.PredicateUtils.getMatchingRows;
 import static io.prestosql.parquet.reader.ListColumnReader.calculateCollectionOffsets;
 import static io.prestosql.spi.type.StandardTypes.ARRAY;
 import static io.prestosql.spi.type.StandardTypes.MAP;
@@ -68,12 +81,16 @@ public class ParquetReader
     private final List<PrimitiveColumnIO> columns;
     private final ParquetDataSource dataSource;
     private final AggregatedMemoryContext systemMemoryContext;
+    private final Predicate parquetPredicate;
 
     private int currentBlock;
     private BlockMetaData currentBlockMetadata;
     private long currentPosition;
-    private long currentGroupRowCount;
+    private RowRanges currentGroupRowRanges;
+    private int currentRange;
     private long nextRowInGroup;
+    // offset indexes of the columns whose pages are filtered in the current row group
+    private Map<ColumnPath, OffsetIndex> currentOffsetIndexes = ImmutableMap.of();
     private int batchSize;
     private int nextBatchSize = INITIAL_BATCH_SIZE;
     private final PrimitiveColumnReader[] columnReaders;
@@ -89,10 +106,25 @@ public class ParquetReader
             ParquetDataSource dataSource,
             AggregatedMemoryContext systemMemoryContext,
             DataSize maxReadBlockSize)
+    {
+        this(messageColumnIO, blocks, dataSource, systemMemoryContext, maxReadBlockSize, Predicate.TRUE);
+    }
+
+    /**
+     * @param parquetPredicate predicate used to skip the pages of each row group which cannot match it,
+     * based on the column indexes of the row group
+     */
+    public ParquetReader(MessageColumnIO messageColumnIO,
+            List<BlockMetaData> blocks,
+            ParquetDataSource dataSource,
+            AggregatedMemoryContext systemMemoryContext,
+            DataSize maxReadBlockSize,
+            Predicate parquetPredicate)
     {
         this.blocks = blocks;
         this.dataSource = requireNonNull(dataSource, "dataSource is null");
         this.systemMemoryContext = requireNonNull(systemMemoryContext, "systemMemoryContext is null");
+        this.parquetPredicate = requireNonNull(parquetPredicate, "parquetPredicate is null");
         this.currentRowGroupMemoryContext = systemMemoryContext.newAggregatedMemoryContext();
         this.maxReadBlockBytes = requireNonNull(maxReadBlockSize, "maxReadBlockSize is null").toBytes();
         columns = messageColumnIO.getLeaves();
@@ -114,39 +146,107 @@ public class ParquetReader
     }
 
     public int nextBatch()
+            throws IOException
     {
-        if (nextRowInGroup >= currentGroupRowCount && !advanceToNextRowGroup()) {
+        if ((currentGroupRowRanges == null || currentRange == currentGroupRowRanges.getRangeCount()) && !advanceToNextRowGroup()) {
             return -1;
         }
 
+        // batches do not span row ranges, so that the rows in between are skipped
+        long skippedRows = 0;
+        long rangeStart = currentGroupRowRanges.getRangeStart(currentRange);
+        if (nextRowInGroup < rangeStart) {
+            skippedRows = rangeStart - nextRowInGroup;
+            nextRowInGroup = rangeStart;
+        }
+
         batchSize = toIntExact(min(nextBatchSize, maxBatchSize));
         nextBatchSize = min(batchSize * BATCH_SIZE_GROWTH_FACTOR, MAX_VECTOR_LENGTH);
-        batchSize = toIntExact(min(batchSize, currentGroupRowCount - nextRowInGroup));
+        batchSize = toIntExact(min(batchSize, currentGroupRowRanges.getRangeEnd(currentRange) - nextRowInGroup));
 
         nextRowInGroup += batchSize;
         currentPosition += batchSize;
+        if (nextRowInGroup == currentGroupRowRanges.getRangeEnd(currentRange)) {
+            currentRange++;
+        }
+        int rowsToSkip = toIntExact(skippedRows);
         Arrays.stream(columnReaders)
-                .forEach(reader -> reader.prepareNextRead(batchSize));
+                .forEach(reader -> reader.prepareNextRead(rowsToSkip, batchSize));
         return batchSize;
     }
 
     private boolean advanceToNextRowGroup()
+            throws IOException
     {
-        currentRowGroupMemoryContext.close();
-        currentRowGroupMemoryContext = systemMemoryContext.newAggregatedMemoryContext();
+        do {
+            currentRowGroupMemoryContext.close();
+            currentRowGroupMemoryContext = systemMemoryContext.newAggregatedMemoryContext();
+
+            if (currentBlock == blocks.size()) {
+                return false;
+            }
+            currentBlockMetadata = blocks.get(currentBlock);
+            currentBlock = currentBlock + 1;
 
-        if (currentBlock == blocks.size()) {
-            return false;
+            currentGroupRowRanges = RowRanges.all(currentBlockMetadata.getRowCount());
+            currentOffsetIndexes = ImmutableMap.of();
+            filterPages();
         }
-        currentBlockMetadata = blocks.get(currentBlock);
-        currentBlock = currentBlock + 1;
+        while (currentGroupRowRanges.isEmpty());
 
         nextRowInGroup = 0L;
-        currentGroupRowCount = currentBlockMetadata.getRowCount();
+        currentRange = 0;
         initializeColumnReaders();
         return true;
     }
 
+    /**
+     * Narrows down the rows to read in the current row group to the pages which may match the predicate,
+     * according to the column indexes, and loads the offset indexes used to select the pages of each column.
+     */
+    private void filterPages()
+            throws IOException
+    {
+        if (parquetPredicate == Predicate.TRUE || !(currentBlockMetadata instanceof IndexedBlockMetaData)) {
+            return;
+        }
+        IndexedBlockMetaData block = (IndexedBlockMetaData) currentBlockMetadata;
+        // without repeated columns, the values of a page are the rows it covers
+        if (columns.stream().anyMatch(column -> column.getColumnDescriptor().getMaxRepetitionLevel() > 0)) {
+            return;
+        }
+
+        Map<ColumnPath, OffsetIndex> offsetIndexes = new HashMap<>();
+        RowRanges rowRanges = RowRanges.all(block.getRowCount());
+        for (PrimitiveColumnIO column : columns) {
+            ColumnPath path = ColumnPath.get(column.getColumnDescriptor().getPath());
+            Optional<IndexReference> offsetIndexReference = block.getOffsetIndexReference(path);
+            if (!offsetIndexReference.isPresent()) {
+                continue;
+            }
+            OffsetIndex offsetIndex = readOffsetIndex(readIndex(offsetIndexReference.get()));
+            offsetIndexes.put(path, offsetIndex);
+
+            Optional<IndexReference> columnIndexReference = block.getColumnIndexReference(path);
+            if (columnIndexReference.isPresent()) {
+                ColumnIndex columnIndex = readColumnIndex(readIndex(columnIndexReference.get()));
+                rowRanges = rowRanges.intersect(getMatchingRows(parquetPredicate, column.getColumnDescriptor(), columnIndex, offsetIndex, block.getRowCount(), dataSource.getId()));
+            }
+        }
+
+        currentGroupRowRanges = rowRanges;
+        if (rowRanges.getRowCount() < block.getRowCount()) {
+            currentOffsetIndexes = ImmutableMap.copyOf(offsetIndexes);
+        }
+    }
+
+    private Slice readIndex(IndexReference reference)
+    {
+        byte[] buffer = new byte[reference.getLength()];
+        dataSource.readFully(reference.getOffset(), buffer);
+        return wrappedBuffer(buffer);
+    }
+
     private ColumnChunk readArray(GroupField field)
             throws IOException
     {
@@ -213,13 +313,19 @@ public class ParquetReader
         if (columnReader.getPageReader() == null) {
             validateParquet(currentBlockMetadata.getRowCount() > 0, "Row group has 0 rows");
             ColumnChunkMetaData metadata = getColumnChunkMetaData(columnDescriptor);
-            long startingPosition = metadata.getStartingPos();
-            int totalSize = toIntExact(metadata.getTotalSize());
-            byte[] buffer = allocateBlock(totalSize);
-            dataSource.readFully(startingPosition, buffer);
-            ColumnChunkDescriptor descriptor = new ColumnChunkDescriptor(columnDescriptor, metadata, totalSize);
-            ParquetColumnChunk columnChunk = new ParquetColumnChunk(descriptor, buffer, 0);
-            columnReader.setPageReader(columnChunk.readAllPages());
+            OffsetIndex offsetIndex = currentOffsetIndexes.get(metadata.getPath());
+            if (offsetIndex == null) {
+                long startingPosition = metadata.getStartingPos();
+                int totalSize = toIntExact(metadata.getTotalSize());
+                byte[] buffer = allocateBlock(totalSize);
+                dataSource.readFully(startingPosition, buffer);
+                ColumnChunkDescriptor descriptor = new ColumnChunkDescriptor(columnDescriptor, metadata, totalSize);
+                ParquetColumnChunk columnChunk = new ParquetColumnChunk(descriptor, buffer, 0);
+                columnReader.setPageReader(columnChunk.readAllPages());
+            }
+            else {
+                columnReader.setPageReader(readSelectedPages(columnDescriptor, metadata, offsetIndex));
+            }
         }
         ColumnChunk columnChunk = columnReader.readPrimitive(field);
 
@@ -234,6 +340,56 @@ public class ParquetReader
         return columnChunk;
     }
 
+    /**
+     * Reads the dictionary page and the data pages which overlap the row ranges of the current row group.
+     */
+    private PageReader readSelectedPages(ColumnDescriptor columnDescriptor, ColumnChunkMetaData metadata, OffsetIndex offsetIndex)
+            throws IOException
+    {
+        long startingPosition = metadata.getStartingPos();
+        int totalSize = toIntExact(metadata.getTotalSize());
+        byte[] buffer = allocateBlock(totalSize);
+
+        List<PageLocation> pageLocations = offsetIndex.getPage_locations();
+        long firstDataPageOffset = pageLocations.get(0).getOffset();
+        validateParquet(firstDataPageOffset >= startingPosition, "Offset index of column %s points before the column chunk", columnDescriptor);
+        if (firstDataPageOffset > startingPosition) {
+            dataSource.readFully(startingPosition, buffer, 0, toIntExact(firstDataPageOffset - startingPosition));
+        }
+
+        ImmutableList.Builder<PageLocation> selectedPages = ImmutableList.builder();
+        // consecutive pages are read together
+        long readStart = -1;
+        long readEnd = -1;
+        for (int page = 0; page < pageLocations.size(); page++) {
+            PageLocation pageLocation = pageLocations.get(page);
+            long pageEnd = page + 1 < pageLocations.size() ? pageLocations.get(page + 1).getFirst_row_index() : currentBlockMetadata.getRowCount();
+            if (!currentGroupRowRanges.overlaps(pageLocation.getFirst_row_index(), pageEnd)) {
+                continue;
+            }
+            selectedPages.add(pageLocation);
+            if (pageLocation.getOffset() != readEnd) {
+                readRange(startingPosition, buffer, readStart, readEnd);
+                readStart = pageLocation.getOffset();
+            }
+            readEnd = pageLocation.getOffset() + pageLocation.getCompressed_page_size();
+        }
+        readRange(startingPosition, buffer, readStart, readEnd);
+
+        ColumnChunkDescriptor descriptor = new ColumnChunkDescriptor(columnDescriptor, metadata, totalSize);
+        return new ParquetColumnChunk(descriptor, buffer, 0).readPages(firstDataPageOffset, selectedPages.build());
+    }
+
+    private void readRange(long bufferPosition, byte[] buffer, long start, long end)
+            throws ParquetCorruptionException
+    {
+        if (start < 0) {
+            return;
+        }
+        validateParquet(start >= bufferPosition && end <= bufferPosition + buffer.length, "Page location [%s, %s) is outside of the column chunk", start, end);
+        dataSource.readFully(start, buffer, toIntExact(start - bufferPosition), toIntExact(end - start));
+    }
+
     private byte[] allocateBlock(int length)
     {
         byte[] buffer = new byte[length];
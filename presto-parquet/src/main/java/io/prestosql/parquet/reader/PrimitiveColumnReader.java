@@ -39,6 +39,7 @@ import org.apache.parquet.io.ParquetDecodingException;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.util.Optional;
+import java.util.OptionalLong;
 import java.util.function.Consumer;
 
 import static com.google.common.base.Preconditions.checkArgument;
@@ -49,6 +50,7 @@ import static io.prestosql.parquet.ValuesType.DEFINITION_LEVEL;
 import static io.prestosql.parquet.ValuesType.REPETITION_LEVEL;
 import static io.prestosql.parquet.ValuesType.VALUES;
 import static io.prestosql.spi.StandardErrorCode.NOT_SUPPORTED;
+import static java.lang.Math.toIntExact;
 import static java.util.Objects.requireNonNull;
 
 public abstract class PrimitiveColumnReader
@@ -70,6 +72,11 @@ public abstract class PrimitiveColumnReader
     private DataPage page;
     private int remainingValueCountInPage;
     private int readOffset;
+    // index within the row group of the next row to read, and of the first row of the current page,
+    // which are only tracked when the pages were selected through the offset index
+    private long currentRow;
+    private long pageFirstRowIndex;
+    private boolean rowIndexed;
 
     protected abstract void readValue(BlockBuilder blockBuilder, Type type);
 
@@ -144,11 +151,16 @@ public abstract class PrimitiveColumnReader
         }
         checkArgument(pageReader.getTotalValueCount() > 0, "page is empty");
         totalValueCount = pageReader.getTotalValueCount();
+        rowIndexed = pageReader.getNextPageFirstRowIndex().isPresent();
     }
 
-    public void prepareNextRead(int batchSize)
+    /**
+     * @param skippedRows number of rows between the end of the previous batch and the start of the next one
+     * @param batchSize number of rows in the next batch
+     */
+    public void prepareNextRead(int skippedRows, int batchSize)
     {
-        readOffset = readOffset + nextBatchSize;
+        readOffset = readOffset + nextBatchSize + skippedRows;
         nextBatchSize = batchSize;
     }
 
@@ -174,6 +186,7 @@ public abstract class PrimitiveColumnReader
         }
         checkArgument(valueCount == nextBatchSize, "valueCount %s not equals to batchSize %s", valueCount, nextBatchSize);
 
+        currentRow += nextBatchSize;
         readOffset = 0;
         nextBatchSize = 0;
         return new ColumnChunk(blockBuilder.build(), definitionLevels.toIntArray(), repetitionLevels.toIntArray());
@@ -225,6 +238,10 @@ public abstract class PrimitiveColumnReader
         if (readOffset == 0) {
             return;
         }
+        if (rowIndexed) {
+            seekToRow(currentRow + readOffset);
+            return;
+        }
         int valuePosition = 0;
         while (valuePosition < readOffset) {
             if (page == null) {
@@ -235,16 +252,35 @@ public abstract class PrimitiveColumnReader
             valuePosition = valuePosition + offset;
         }
         checkArgument(valuePosition == readOffset, "valuePosition %s must be equal to readOffset %s", valuePosition, readOffset);
+        currentRow += readOffset;
+    }
+
+    private void seekToRow(long targetRow)
+    {
+        // the rows of the pages which were not loaded are skipped without decoding them
+        while (page != null || readNextPage()) {
+            long pageRow = pageFirstRowIndex + page.getValueCount() - remainingValueCountInPage;
+            if (pageRow >= targetRow) {
+                checkArgument(pageRow == targetRow, "Row %s is in a page which was not loaded", targetRow);
+                break;
+            }
+            skipValues(toIntExact(Math.min(remainingValueCountInPage, targetRow - pageRow)));
+        }
+        currentRow = targetRow;
     }
 
     private boolean readNextPage()
     {
         verify(page == null, "readNextPage has to be called when page is null");
+        OptionalLong firstRowIndex = pageReader.getNextPageFirstRowIndex();
         page = pageReader.readPage();
         if (page == null) {
             // we have read all pages
             return false;
         }
+        if (firstRowIndex.isPresent()) {
+            pageFirstRowIndex = firstRowIndex.getAsLong();
+        }
         remainingValueCountInPage = page.getValueCount();
         if (page instanceof DataPageV1) {
             valuesReader = readPageV1((DataPageV1) page);
@@ -0,0 +1,197 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.parquet.reader;
+
+import java.util.Arrays;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+
+/**
+ * Sorted, disjoint and non-adjacent ranges of rows of a row group, where each range
+ * includes its start row and excludes its end row.
+ */
+public final class RowRanges
+{
+    private static final RowRanges EMPTY = new RowRanges(new long[0], new long[0]);
+
+    private final long[] starts;
+    private final long[] ends;
+
+    private RowRanges(long[] starts, long[] ends)
+    {
+        this.starts = starts;
+        this.ends = ends;
+    }
+
+    public static RowRanges empty()
+    {
+        return EMPTY;
+    }
+
+    public static RowRanges all(long rowCount)
+    {
+        return range(0, rowCount);
+    }
+
+    public static RowRanges range(long start, long end)
+    {
+        checkArgument(start >= 0 && start <= end, "invalid row range [%s, %s)", start, end);
+        if (start == end) {
+            return EMPTY;
+        }
+        return new RowRanges(new long[] {start}, new long[] {end});
+    }
+
+    public int getRangeCount()
+    {
+        return starts.length;
+    }
+
+    public long getRangeStart(int range)
+    {
+        return starts[range];
+    }
+
+    public long getRangeEnd(int range)
+    {
+        return ends[range];
+    }
+
+    public boolean isEmpty()
+    {
+        return starts.length == 0;
+    }
+
+    public long getRowCount()
+    {
+        long rowCount = 0;
+        for (int range = 0; range < starts.length; range++) {
+            rowCount += ends[range] - starts[range];
+        }
+        return rowCount;
+    }
+
+    /**
+     * Returns whether any row in [start, end) belongs to these ranges.
+     */
+    public boolean overlaps(long start, long end)
+    {
+        int range = Arrays.binarySearch(ends, start);
+        // the range ending at start does not include it
+        range = range >= 0 ? range + 1 : -range - 1;
+        return range < starts.length && starts[range] < end;
+    }
+
+    public RowRanges union(RowRanges other)
+    {
+        long[] unionStarts = new long[starts.length + other.starts.length];
+        long[] unionEnds = new long[unionStarts.length];
+        int count = 0;
+        int left = 0;
+        int right = 0;
+        while (left < starts.length || right < other.starts.length) {
+            long start;
+            long end;
+            if (right == other.starts.length || (left < starts.length && starts[left] <= other.starts[right])) {
+                start = starts[left];
+                end = ends[left];
+                left++;
+            }
+            else {
+                start = other.starts[right];
+                end = other.ends[right];
+                right++;
+            }
+            if (count > 0 && start <= unionEnds[count - 1]) {
+                unionEnds[count - 1] = max(unionEnds[count - 1], end);
+            }
+            else {
+                unionStarts[count] = start;
+                unionEnds[count] = end;
+                count++;
+            }
+        }
+        return create(unionStarts, unionEnds, count);
+    }
+
+    public RowRanges intersect(RowRanges other)
+    {
+        long[] intersectionStarts = new long[starts.length + other.starts.length];
+        long[] intersectionEnds = new long[intersectionStarts.length];
+        int count = 0;
+        int left = 0;
+        int right = 0;
+        while (left < starts.length && right < other.starts.length) {
+            long start = max(starts[left], other.starts[right]);
+            long end = min(ends[left], other.ends[right]);
+            if (start < end) {
+                intersectionStarts[count] = start;
+                intersectionEnds[count] = end;
+                count++;
+            }
+            if (ends[left] < other.ends[right]) {
+                left++;
+            }
+            else {
+                right++;
+            }
+        }
+        return create(intersectionStarts, intersectionEnds, count);
+    }
+
+    private static RowRanges create(long[] starts, long[] ends, int count)
+    {
+        if (count == 0) {
+            return EMPTY;
+        }
+        return new RowRanges(Arrays.copyOf(starts, count), Arrays.copyOf(ends, count));
+    }
+
+    @Override
+    public boolean equals(Object obj)
+    {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        RowRanges other = (RowRanges) obj;
+        return Arrays.equals(starts, other.starts) && Arrays.equals(ends, other.ends);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return 31 * Arrays.hashCode(starts) + Arrays.hashCode(ends);
+    }
+
+    @Override
+    public String toString()
+    {
+        StringBuilder ranges = new StringBuilder();
+        for (int range = 0; range < starts.length; range++) {
+            if (range > 0) {
+                ranges.append(", ");
+            }
+            ranges.append('[').append(starts[range]).append(", ").append(ends[range]).append(')');
+        }
+        return toStringHelper(this)
+                .add("ranges", ranges)
+                .toString();
+    }
+}
@@ -0,0 +1,39 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.parquet.writer;
+
+import io.airlift.slice.OutputStreamSliceOutput;
+import io.prestosql.spi.block.Block;
+
+import java.io.IOException;
+
+public interface ColumnWriter
+{
+    void writeBlock(Block block);
+
+    /**
+     * Writes the buffered column chunk of the current row group to the output, and
+     * returns its metadata and page indexes. The writer is reset for the next row group.
+     */
+    WrittenColumnChunk writeColumnChunk(OutputStreamSliceOutput output)
+            throws IOException;
+
+    /**
+     * This method returns the size of the flushed pages plus any unflushed data.
+     * If the output is compressed, flushed page size is the size after compression.
+     */
+    long getBufferedBytes();
+
+    long getRetainedBytes();
+}
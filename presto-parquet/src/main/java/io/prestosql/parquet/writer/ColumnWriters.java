@@ -0,0 +1,175 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.parquet.writer;
+
+import io.airlift.slice.Slice;
+import io.prestosql.spi.PrestoException;
+import io.prestosql.spi.type.CharType;
+import io.prestosql.spi.type.DecimalType;
+import io.prestosql.spi.type.Decimals;
+import io.prestosql.spi.type.Type;
+import io.prestosql.spi.type.VarcharType;
+import org.apache.parquet.column.ColumnDescriptor;
+import org.apache.parquet.column.ParquetProperties;
+import org.apache.parquet.hadoop.metadata.CompressionCodecName;
+import org.apache.parquet.io.api.Binary;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+
+import static io.airlift.slice.SizeOf.SIZE_OF_INT;
+import static io.airlift.slice.SizeOf.SIZE_OF_LONG;
+import static io.airlift.slice.Slices.allocate;
+import static io.prestosql.spi.StandardErrorCode.NOT_SUPPORTED;
+import static io.prestosql.spi.type.BigintType.BIGINT;
+import static io.prestosql.spi.type.BooleanType.BOOLEAN;
+import static io.prestosql.spi.type.DateType.DATE;
+import static io.prestosql.spi.type.DoubleType.DOUBLE;
+import static io.prestosql.spi.type.IntegerType.INTEGER;
+import static io.prestosql.spi.type.RealType.REAL;
+import static io.prestosql.spi.type.SmallintType.SMALLINT;
+import static io.prestosql.spi.type.TimestampType.TIMESTAMP;
+import static io.prestosql.spi.type.TinyintType.TINYINT;
+import static io.prestosql.spi.type.VarbinaryType.VARBINARY;
+import static java.lang.Float.intBitsToFloat;
+import static java.lang.Math.floorDiv;
+import static java.lang.Math.floorMod;
+import static java.lang.Math.toIntExact;
+import static java.util.concurrent.TimeUnit.DAYS;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+public final class ColumnWriters
+{
+    private static final int JULIAN_EPOCH_OFFSET_DAYS = 2_440_588;
+    private static final long MILLIS_IN_DAY = DAYS.toMillis(1);
+    private static final long NANOS_PER_MILLISECOND = MILLISECONDS.toNanos(1);
+
+    private ColumnWriters() {}
+
+    public static ColumnWriter createColumnWriter(ColumnDescriptor columnDescriptor, Type type, ParquetProperties properties, CompressionCodecName compressionCodec)
+    {
+        return new PrimitiveColumnWriter(columnDescriptor, createValueWriter(type, columnDescriptor), properties, compressionCodec);
+    }
+
+    private static PrimitiveValueWriter createValueWriter(Type type, ColumnDescriptor columnDescriptor)
+    {
+        if (type.equals(BOOLEAN)) {
+            return (block, position, valuesWriter, statistics) -> {
+                boolean value = type.getBoolean(block, position);
+                valuesWriter.writeBoolean(value);
+                statistics.updateStats(value);
+            };
+        }
+        if (type.equals(TINYINT) || type.equals(SMALLINT) || type.equals(INTEGER) || type.equals(DATE)) {
+            return (block, position, valuesWriter, statistics) -> {
+                int value = toIntExact(type.getLong(block, position));
+                valuesWriter.writeInteger(value);
+                statistics.updateStats(value);
+            };
+        }
+        if (type.equals(BIGINT)) {
+            return (block, position, valuesWriter, statistics) -> {
+                long value = type.getLong(block, position);
+                valuesWriter.writeLong(value);
+                statistics.updateStats(value);
+            };
+        }
+        if (type.equals(REAL)) {
+            return (block, position, valuesWriter, statistics) -> {
+                float value = intBitsToFloat(toIntExact(type.getLong(block, position)));
+                valuesWriter.writeFloat(value);
+                statistics.updateStats(value);
+            };
+        }
+        if (type.equals(DOUBLE)) {
+            return (block, position, valuesWriter, statistics) -> {
+                double value = type.getDouble(block, position);
+                valuesWriter.writeDouble(value);
+                statistics.updateStats(value);
+            };
+        }
+        if (type.equals(TIMESTAMP)) {
+            return (block, position, valuesWriter, statistics) -> {
+                Binary value = toInt96Timestamp(type.getLong(block, position));
+                valuesWriter.writeBytes(value);
+                statistics.updateStats(value);
+            };
+        }
+        if (type.equals(VARBINARY) || type instanceof VarcharType || type instanceof CharType) {
+            return (block, position, valuesWriter, statistics) -> {
+                Binary value = Binary.fromConstantByteArray(type.getSlice(block, position).getBytes());
+                valuesWriter.writeBytes(value);
+                statistics.updateStats(value);
+            };
+        }
+        if (type instanceof DecimalType) {
+            DecimalType decimalType = (DecimalType) type;
+            int length = columnDescriptor.getPrimitiveType().getTypeLength();
+            if (decimalType.isShort()) {
+                return (block, position, valuesWriter, statistics) -> {
+                    Binary value = toFixedLengthBinary(type.getLong(block, position), length);
+                    valuesWriter.writeBytes(value);
+                    statistics.updateStats(value);
+                };
+            }
+            return (block, position, valuesWriter, statistics) -> {
+                Binary value = toFixedLengthBinary(Decimals.decodeUnscaledValue(type.getSlice(block, position)), length);
+                valuesWriter.writeBytes(value);
+                statistics.updateStats(value);
+            };
+        }
+        throw new PrestoException(NOT_SUPPORTED, "Unsupported type for Parquet writer: " + type);
+    }
+
+    /**
+     * Encodes a timestamp in millis as the INT96 value written by Hive: the nanos of the
+     * day followed by the julian day, both little endian.
+     */
+    private static Binary toInt96Timestamp(long timestampMillis)
+    {
+        long julianDay = floorDiv(timestampMillis, MILLIS_IN_DAY) + JULIAN_EPOCH_OFFSET_DAYS;
+        long nanosOfDay = floorMod(timestampMillis, MILLIS_IN_DAY) * NANOS_PER_MILLISECOND;
+
+        Slice slice = allocate(SIZE_OF_LONG + SIZE_OF_INT);
+        slice.setLong(0, nanosOfDay);
+        slice.setInt(SIZE_OF_LONG, toIntExact(julianDay));
+        return Binary.fromConstantByteArray(slice.getBytes());
+    }
+
+    private static Binary toFixedLengthBinary(long unscaledValue, int length)
+    {
+        byte[] bytes = new byte[length];
+        long value = unscaledValue;
+        for (int i = length - 1; i >= 0; i--) {
+            bytes[i] = (byte) value;
+            value >>= 8;
+        }
+        return Binary.fromConstantByteArray(bytes);
+    }
+
+    private static Binary toFixedLengthBinary(BigInteger unscaledValue, int length)
+    {
+        byte[] value = unscaledValue.toByteArray();
+        if (value.length == length) {
+            return Binary.fromConstantByteArray(value);
+        }
+        // sign extend the big endian two's complement value
+        byte[] bytes = new byte[length];
+        if (unscaledValue.signum() < 0) {
+            Arrays.fill(bytes, 0, length - value.length, (byte) 0xFF);
+        }
+        System.arraycopy(value, 0, bytes, length - value.length, value.length);
+        return Binary.fromConstantByteArray(bytes);
+    }
+}
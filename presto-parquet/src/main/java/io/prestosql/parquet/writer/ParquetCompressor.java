@@ -0,0 +1,109 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.parquet.writer;
+
+import io.airlift.compress.Compressor;
+import io.airlift.compress.snappy.SnappyCompressor;
+import io.airlift.compress.zstd.ZstdCompressor;
+import io.airlift.slice.DynamicSliceOutput;
+import io.airlift.slice.Slice;
+import io.airlift.slice.Slices;
+import io.prestosql.spi.PrestoException;
+import org.apache.parquet.hadoop.metadata.CompressionCodecName;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Optional;
+import java.util.zip.GZIPOutputStream;
+
+import static io.airlift.slice.Slices.wrappedBuffer;
+import static io.prestosql.spi.StandardErrorCode.NOT_SUPPORTED;
+import static java.util.Objects.requireNonNull;
+
+public interface ParquetCompressor
+{
+    Slice compress(byte[] input);
+
+    static boolean isSupported(CompressionCodecName codec)
+    {
+        switch (requireNonNull(codec, "codec is null")) {
+            case UNCOMPRESSED:
+            case GZIP:
+            case SNAPPY:
+            case ZSTD:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Returns the compressor for the given codec, or empty for uncompressed output.
+     */
+    static Optional<ParquetCompressor> getCompressor(CompressionCodecName codec)
+    {
+        switch (requireNonNull(codec, "codec is null")) {
+            case UNCOMPRESSED:
+                return Optional.empty();
+            case GZIP:
+                return Optional.of(new GzipCompressor());
+            case SNAPPY:
+                return Optional.of(new AircompressorCompressor(new SnappyCompressor()));
+            case ZSTD:
+                return Optional.of(new AircompressorCompressor(new ZstdCompressor()));
+            default:
+                throw new PrestoException(NOT_SUPPORTED, "Compression codec not supported by the Parquet writer: " + codec);
+        }
+    }
+
+    class AircompressorCompressor
+            implements ParquetCompressor
+    {
+        private final Compressor compressor;
+        private byte[] buffer = new byte[0];
+
+        public AircompressorCompressor(Compressor compressor)
+        {
+            this.compressor = requireNonNull(compressor, "compressor is null");
+        }
+
+        @Override
+        public Slice compress(byte[] input)
+        {
+            int maxCompressedLength = compressor.maxCompressedLength(input.length);
+            if (buffer.length < maxCompressedLength) {
+                buffer = new byte[maxCompressedLength];
+            }
+            int compressedLength = compressor.compress(input, 0, input.length, buffer, 0, buffer.length);
+            return Slices.copyOf(wrappedBuffer(buffer, 0, compressedLength));
+        }
+    }
+
+    class GzipCompressor
+            implements ParquetCompressor
+    {
+        @Override
+        public Slice compress(byte[] input)
+        {
+            DynamicSliceOutput output = new DynamicSliceOutput(input.length);
+            try (GZIPOutputStream gzip = new GZIPOutputStream(output)) {
+                gzip.write(input);
+            }
+            catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return output.slice();
+        }
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.parquet.writer;
+
+import io.prestosql.spi.PrestoException;
+import io.prestosql.spi.type.CharType;
+import io.prestosql.spi.type.DecimalType;
+import io.prestosql.spi.type.Type;
+import io.prestosql.spi.type.VarcharType;
+import org.apache.parquet.schema.MessageType;
+import org.apache.parquet.schema.OriginalType;
+import org.apache.parquet.schema.PrimitiveType;
+import org.apache.parquet.schema.PrimitiveType.PrimitiveTypeName;
+import org.apache.parquet.schema.Types;
+
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static io.prestosql.spi.StandardErrorCode.NOT_SUPPORTED;
+import static io.prestosql.spi.type.BigintType.BIGINT;
+import static io.prestosql.spi.type.BooleanType.BOOLEAN;
+import static io.prestosql.spi.type.DateType.DATE;
+import static io.prestosql.spi.type.DoubleType.DOUBLE;
+import static io.prestosql.spi.type.IntegerType.INTEGER;
+import static io.prestosql.spi.type.RealType.REAL;
+import static io.prestosql.spi.type.SmallintType.SMALLINT;
+import static io.prestosql.spi.type.TimestampType.TIMESTAMP;
+import static io.prestosql.spi.type.TinyintType.TINYINT;
+import static io.prestosql.spi.type.VarbinaryType.VARBINARY;
+import static org.apache.parquet.schema.PrimitiveType.PrimitiveTypeName.BINARY;
+import static org.apache.parquet.schema.PrimitiveType.PrimitiveTypeName.FIXED_LEN_BYTE_ARRAY;
+import static org.apache.parquet.schema.PrimitiveType.PrimitiveTypeName.INT32;
+import static org.apache.parquet.schema.PrimitiveType.PrimitiveTypeName.INT64;
+import static org.apache.parquet.schema.PrimitiveType.PrimitiveTypeName.INT96;
+import static org.apache.parquet.schema.Type.Repetition.OPTIONAL;
+
+/**
+ * Converts Presto types to the Parquet schema written by Hive for the same columns.
+ */
+public final class ParquetSchemaConverter
+{
+    private static final String SCHEMA_NAME = "presto_schema";
+
+    private ParquetSchemaConverter() {}
+
+    public static boolean isSupportedType(Type type)
+    {
+        return type.equals(BOOLEAN) ||
+                type.equals(TINYINT) ||
+                type.equals(SMALLINT) ||
+                type.equals(INTEGER) ||
+                type.equals(BIGINT) ||
+                type.equals(REAL) ||
+                type.equals(DOUBLE) ||
+                type.equals(DATE) ||
+                type.equals(TIMESTAMP) ||
+                type.equals(VARBINARY) ||
+                type instanceof VarcharType ||
+                type instanceof CharType ||
+                type instanceof DecimalType;
+    }
+
+    public static MessageType convert(List<String> columnNames, List<Type> types)
+    {
+        checkArgument(columnNames.size() == types.size(), "columnNames and types have different sizes");
+        Types.MessageTypeBuilder builder = Types.buildMessage();
+        for (int i = 0; i < columnNames.size(); i++) {
+            builder.addField(convert(columnNames.get(i), types.get(i)));
+        }
+        return builder.named(SCHEMA_NAME);
+    }
+
+    private static PrimitiveType convert(String name, Type type)
+    {
+        if (type.equals(BOOLEAN)) {
+            return primitive(PrimitiveTypeName.BOOLEAN).named(name);
+        }
+        if (type.equals(TINYINT)) {
+            return primitive(INT32).as(OriginalType.INT_8).named(name);
+        }
+        if (type.equals(SMALLINT)) {
+            return primitive(INT32).as(OriginalType.INT_16).named(name);
+        }
+        if (type.equals(INTEGER)) {
+            return primitive(INT32).named(name);
+        }
+        if (type.equals(BIGINT)) {
+            return primitive(INT64).named(name);
+        }
+        if (type.equals(REAL)) {
+            return primitive(PrimitiveTypeName.FLOAT).named(name);
+        }
+        if (type.equals(DOUBLE)) {
+            return primitive(PrimitiveTypeName.DOUBLE).named(name);
+        }
+        if (type.equals(DATE)) {
+            return primitive(INT32).as(OriginalType.DATE).named(name);
+        }
+        if (type.equals(TIMESTAMP)) {
+            return primitive(INT96).named(name);
+        }
+        if (type.equals(VARBINARY)) {
+            return primitive(BINARY).named(name);
+        }
+        if (type instanceof VarcharType || type instanceof CharType) {
+            return primitive(BINARY).as(OriginalType.UTF8).named(name);
+        }
+        if (type instanceof DecimalType) {
+            DecimalType decimalType = (DecimalType) type;
+            return primitive(FIXED_LEN_BYTE_ARRAY)
+                    .length(getDecimalByteLength(decimalType.getPrecision()))
+                    .as(OriginalType.DECIMAL)
+                    .precision(decimalType.getPrecision())
+                    .scale(decimalType.getScale())
+                    .named(name);
+        }
+        throw new PrestoException(NOT_SUPPORTED, "Unsupported type for Parquet writer: " + type);
+    }
+
+    /**
+     * Returns the minimum number of bytes needed to store a two's complement
+     * unscaled value of the given decimal precision.
+     */
+    static int getDecimalByteLength(int precision)
+    {
+        return (int) Math.ceil((Math.log(Math.pow(10, precision) - 1) / Math.log(2) + 1) / 8);
+    }
+
+    private static Types.PrimitiveBuilder<PrimitiveType> primitive(PrimitiveTypeName typeName)
+    {
+        return Types.primitive(typeName, OPTIONAL);
+    }
+}
@@ -0,0 +1,290 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.parquet.writer;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import io.airlift.slice.OutputStreamSliceOutput;
+import io.prestosql.spi.Page;
+import io.prestosql.spi.type.Type;
+import org.apache.parquet.column.ParquetProperties;
+import org.apache.parquet.format.ColumnChunk;
+import org.apache.parquet.format.ColumnIndex;
+import org.apache.parquet.format.Util;
+import org.apache.parquet.format.converter.ParquetMetadataConverter;
+import org.apache.parquet.hadoop.metadata.BlockMetaData;
+import org.apache.parquet.hadoop.metadata.ColumnChunkMetaData;
+import org.apache.parquet.hadoop.metadata.CompressionCodecName;
+import org.apache.parquet.hadoop.metadata.FileMetaData;
+import org.apache.parquet.hadoop.metadata.ParquetMetadata;
+import org.apache.parquet.schema.MessageType;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkArgument;
+import static io.prestosql.parquet.ParquetIndexUtils.writeColumnIndex;
+import static io.prestosql.parquet.ParquetIndexUtils.writeOffsetIndex;
+import static java.lang.Math.min;
+import static java.lang.Math.toIntExact;
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static java.util.Objects.requireNonNull;
+import static org.apache.parquet.column.ParquetProperties.WriterVersion.PARQUET_1_0;
+
+/**
+ * Writes Presto pages to a Parquet file, without going through the Hive record writer.
+ * Column chunks are buffered in memory until the row group reaches its maximum size.
+ */
+public class ParquetWriter
+        implements Closeable
+{
+    private static final byte[] MAGIC = "PAR1".getBytes(US_ASCII);
+    private static final int FILE_METADATA_VERSION = 1;
+    private static final String CREATED_BY = "presto-parquet";
+    private static final int CHUNK_MAX_ROWS = 1024;
+    private static final ParquetMetadataConverter PARQUET_METADATA_CONVERTER = new ParquetMetadataConverter();
+
+    private final OutputStreamSliceOutput output;
+    private final MessageType schema;
+    private final List<ColumnWriter> columnWriters;
+    private final long maxRowGroupSize;
+    private final Map<String, String> metadata;
+
+    private final List<BlockMetaData> rowGroups = new ArrayList<>();
+    private final List<List<WrittenColumnChunk>> rowGroupColumnChunks = new ArrayList<>();
+    private long rowGroupRowCount;
+    private long bufferedBytes;
+    private boolean closed;
+
+    public ParquetWriter(
+            OutputStream outputStream,
+            List<String> columnNames,
+            List<Type> types,
+            ParquetWriterOptions options,
+            CompressionCodecName compressionCodec,
+            Map<String, String> metadata)
+    {
+        requireNonNull(outputStream, "outputStream is null");
+        requireNonNull(columnNames, "columnNames is null");
+        requireNonNull(types, "types is null");
+        checkArgument(columnNames.size() == types.size(), "columnNames and types have different sizes");
+        requireNonNull(options, "options is null");
+        requireNonNull(compressionCodec, "compressionCodec is null");
+        checkArgument(ParquetCompressor.isSupported(compressionCodec), "Compression codec not supported by the Parquet writer: %s", compressionCodec);
+
+        this.output = new OutputStreamSliceOutput(outputStream);
+        this.schema = ParquetSchemaConverter.convert(columnNames, types);
+        this.maxRowGroupSize = options.getMaxRowGroupSize().toBytes();
+        this.metadata = ImmutableMap.copyOf(requireNonNull(metadata, "metadata is null"));
+
+        int maxPageSize = toIntExact(options.getMaxPageSize().toBytes());
+        ParquetProperties properties = ParquetProperties.builder()
+                .withWriterVersion(PARQUET_1_0)
+                .withPageSize(maxPageSize)
+                .withDictionaryPageSize(maxPageSize)
+                .withDictionaryEncoding(true)
+                .build();
+
+        ImmutableList.Builder<ColumnWriter> columnWriters = ImmutableList.builder();
+        for (int i = 0; i < types.size(); i++) {
+            columnWriters.add(ColumnWriters.createColumnWriter(schema.getColumns().get(i), types.get(i), properties, compressionCodec));
+        }
+        this.columnWriters = columnWriters.build();
+
+        output.writeBytes(MAGIC);
+    }
+
+    /**
+     * Number of bytes written to the output, including the flushed row groups.
+     */
+    public long getWrittenBytes()
+    {
+        return output.longSize();
+    }
+
+    /**
+     * Number of pending bytes of the current row group not yet written to the output.
+     */
+    public long getBufferedBytes()
+    {
+        return bufferedBytes;
+    }
+
+    public long getRetainedBytes()
+    {
+        return output.getRetainedSize() +
+                columnWriters.stream().mapToLong(ColumnWriter::getRetainedBytes).sum();
+    }
+
+    public void write(Page page)
+            throws IOException
+    {
+        requireNonNull(page, "page is null");
+        checkArgument(!closed, "writer is closed");
+        if (page.getPositionCount() == 0) {
+            return;
+        }
+
+        checkArgument(page.getChannelCount() == columnWriters.size());
+
+        // write the page in chunks, so that row groups do not overshoot their maximum size
+        while (page != null) {
+            int chunkRows = min(page.getPositionCount(), CHUNK_MAX_ROWS);
+            Page chunk = page.getRegion(0, chunkRows);
+
+            if (chunkRows < page.getPositionCount()) {
+                page = page.getRegion(chunkRows, page.getPositionCount() - chunkRows);
+            }
+            else {
+                page = null;
+            }
+
+            writeChunk(chunk);
+        }
+    }
+
+    private void writeChunk(Page chunk)
+            throws IOException
+    {
+        bufferedBytes = 0;
+        for (int channel = 0; channel < chunk.getChannelCount(); channel++) {
+            ColumnWriter writer = columnWriters.get(channel);
+            writer.writeBlock(chunk.getBlock(channel));
+            bufferedBytes += writer.getBufferedBytes();
+        }
+        rowGroupRowCount += chunk.getPositionCount();
+
+        if (bufferedBytes >= maxRowGroupSize) {
+            flushRowGroup();
+        }
+    }
+
+    private void flushRowGroup()
+            throws IOException
+    {
+        if (rowGroupRowCount == 0) {
+            return;
+        }
+
+        BlockMetaData rowGroup = new BlockMetaData();
+        rowGroup.setRowCount(rowGroupRowCount);
+        long totalByteSize = 0;
+        ImmutableList.Builder<WrittenColumnChunk> columnChunks = ImmutableList.builder();
+        for (ColumnWriter columnWriter : columnWriters) {
+            WrittenColumnChunk columnChunk = columnWriter.writeColumnChunk(output);
+            rowGroup.addColumn(columnChunk.getMetadata());
+            columnChunks.add(columnChunk);
+            totalByteSize += columnChunk.getMetadata().getTotalUncompressedSize();
+        }
+        rowGroup.setTotalByteSize(totalByteSize);
+        rowGroups.add(rowGroup);
+        rowGroupColumnChunks.add(columnChunks.build());
+
+        rowGroupRowCount = 0;
+        bufferedBytes = 0;
+    }
+
+    @Override
+    public void close()
+            throws IOException
+    {
+        if (closed) {
+            return;
+        }
+        closed = true;
+
+        try {
+            flushRowGroup();
+            writeFooter();
+        }
+        finally {
+            output.close();
+        }
+    }
+
+    private void writeFooter()
+            throws IOException
+    {
+        // Parquet File Layout:
+        //
+        // MAGIC
+        // variable: Data
+        // variable: Column indexes
+        // variable: Offset indexes
+        // variable: Metadata
+        // 4 bytes: MetadataLength
+        // MAGIC
+        ParquetMetadata parquetMetadata = new ParquetMetadata(new FileMetaData(schema, metadata, CREATED_BY), rowGroups);
+        org.apache.parquet.format.FileMetaData fileMetaData = PARQUET_METADATA_CONVERTER.toParquetMetadata(FILE_METADATA_VERSION, parquetMetadata);
+
+        // the converter assigns the dictionary page offset without marking it as set, so it would not be serialized
+        for (int rowGroup = 0; rowGroup < rowGroups.size(); rowGroup++) {
+            List<ColumnChunkMetaData> columns = rowGroups.get(rowGroup).getColumns();
+            List<ColumnChunk> columnChunks = fileMetaData.getRow_groups().get(rowGroup).getColumns();
+            for (int column = 0; column < columns.size(); column++) {
+                long dictionaryPageOffset = columns.get(column).getDictionaryPageOffset();
+                if (dictionaryPageOffset > 0) {
+                    columnChunks.get(column).getMeta_data().setDictionary_page_offset(dictionaryPageOffset);
+                }
+            }
+        }
+
+        for (int rowGroup = 0; rowGroup < rowGroups.size(); rowGroup++) {
+            List<WrittenColumnChunk> columns = rowGroupColumnChunks.get(rowGroup);
+            List<ColumnChunk> columnChunks = fileMetaData.getRow_groups().get(rowGroup).getColumns();
+            for (int column = 0; column < columns.size(); column++) {
+                Optional<ColumnIndex> columnIndex = columns.get(column).getColumnIndex();
+                if (columnIndex.isPresent()) {
+                    long offset = output.longSize();
+                    writeColumnIndex(columnIndex.get(), output);
+                    columnChunks.get(column)
+                            .setColumn_index_offset(offset)
+                            .setColumn_index_length(toIntExact(output.longSize() - offset));
+                }
+            }
+        }
+        for (int rowGroup = 0; rowGroup < rowGroups.size(); rowGroup++) {
+            List<WrittenColumnChunk> columns = rowGroupColumnChunks.get(rowGroup);
+            List<ColumnChunk> columnChunks = fileMetaData.getRow_groups().get(rowGroup).getColumns();
+            for (int column = 0; column < columns.size(); column++) {
+                long offset = output.longSize();
+                writeOffsetIndex(columns.get(column).getOffsetIndex(), output);
+                columnChunks.get(column)
+                        .setOffset_index_offset(offset)
+                        .setOffset_index_length(toIntExact(output.longSize() - offset));
+            }
+        }
+
+        long metadataStart = output.longSize();
+        Util.writeFileMetaData(fileMetaData, output);
+        output.writeInt(toIntExact(output.longSize() - metadataStart));
+        output.writeBytes(MAGIC);
+    }
+
+    @Override
+    public String toString()
+    {
+        return toStringHelper(this)
+                .add("schema", schema)
+                .add("rowGroups", rowGroups.size())
+                .add("writtenBytes", getWrittenBytes())
+                .toString();
+    }
+}
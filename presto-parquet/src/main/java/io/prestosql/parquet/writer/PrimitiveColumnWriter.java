@@ -0,0 +1,315 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.parquet.writer;
+
+import io.airlift.slice.DynamicSliceOutput;
+import io.airlift.slice.OutputStreamSliceOutput;
+import io.airlift.slice.Slice;
+import io.prestosql.spi.block.Block;
+import org.apache.parquet.bytes.BytesInput;
+import org.apache.parquet.column.ColumnDescriptor;
+import org.apache.parquet.column.Encoding;
+import org.apache.parquet.column.EncodingStats;
+import org.apache.parquet.column.ParquetProperties;
+import org.apache.parquet.column.page.DictionaryPage;
+import org.apache.parquet.column.statistics.Statistics;
+import org.apache.parquet.column.values.ValuesWriter;
+import org.apache.parquet.format.BoundaryOrder;
+import org.apache.parquet.format.ColumnIndex;
+import org.apache.parquet.format.OffsetIndex;
+import org.apache.parquet.format.PageLocation;
+import org.apache.parquet.format.converter.ParquetMetadataConverter;
+import org.apache.parquet.hadoop.metadata.ColumnChunkMetaData;
+import org.apache.parquet.hadoop.metadata.ColumnPath;
+import org.apache.parquet.hadoop.metadata.CompressionCodecName;
+import org.apache.parquet.schema.PrimitiveType;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static io.airlift.slice.Slices.wrappedBuffer;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Writes a flat optional column as a sequence of version 1 data pages. The values are
+ * dictionary encoded, falling back to plain encoding once the dictionary grows beyond
+ * the dictionary page size, and the definition levels use the RLE/bit-packing hybrid encoding.
+ * The statistics and locations of the pages are kept for the column index and offset index.
+ */
+public class PrimitiveColumnWriter
+        implements ColumnWriter
+{
+    private static final int INITIAL_PAGES_BUFFER_SIZE = 1024;
+    // longer minimum and maximum values are not truncated, the column index is omitted instead
+    private static final int MAX_COLUMN_INDEX_VALUE_LENGTH = 64;
+    private static final ParquetMetadataConverter PARQUET_METADATA_CONVERTER = new ParquetMetadataConverter();
+
+    private final ColumnDescriptor columnDescriptor;
+    private final PrimitiveType primitiveType;
+    private final PrimitiveValueWriter primitiveValueWriter;
+    private final CompressionCodecName compressionCodec;
+    private final Optional<ParquetCompressor> compressor;
+    private final ParquetProperties properties;
+    private final int pageSizeThreshold;
+
+    private final ValuesWriter repetitionLevelWriter;
+    private final ValuesWriter definitionLevelWriter;
+    private ValuesWriter valuesWriter;
+
+    // compressed data pages of the current column chunk, including their headers
+    private final DynamicSliceOutput dataPages = new DynamicSliceOutput(INITIAL_PAGES_BUFFER_SIZE);
+    private final Set<Encoding> encodings = new LinkedHashSet<>();
+    private EncodingStats.Builder encodingStats = new EncodingStats.Builder();
+
+    // page indexes of the current column chunk, where the page offsets are relative to the first data page
+    private ColumnIndex columnIndex = createColumnIndex();
+    private boolean columnIndexValid = true;
+    private final List<PageLocation> pageLocations = new ArrayList<>();
+
+    private Statistics<?> pageStatistics;
+    private Statistics<?> columnStatistics;
+    private int pageValueCount;
+    private long chunkValueCount;
+    private long chunkUncompressedSize;
+
+    public PrimitiveColumnWriter(
+            ColumnDescriptor columnDescriptor,
+            PrimitiveValueWriter primitiveValueWriter,
+            ParquetProperties properties,
+            CompressionCodecName compressionCodec)
+    {
+        this.columnDescriptor = requireNonNull(columnDescriptor, "columnDescriptor is null");
+        this.primitiveType = columnDescriptor.getPrimitiveType();
+        this.primitiveValueWriter = requireNonNull(primitiveValueWriter, "primitiveValueWriter is null");
+        this.compressionCodec = requireNonNull(compressionCodec, "compressionCodec is null");
+        this.compressor = ParquetCompressor.getCompressor(compressionCodec);
+        this.properties = requireNonNull(properties, "properties is null");
+        this.pageSizeThreshold = properties.getPageSizeThreshold();
+
+        this.repetitionLevelWriter = properties.newRepetitionLevelWriter(columnDescriptor);
+        this.definitionLevelWriter = properties.newDefinitionLevelWriter(columnDescriptor);
+        this.valuesWriter = properties.newValuesWriter(columnDescriptor);
+
+        this.pageStatistics = Statistics.createStats(primitiveType);
+        this.columnStatistics = Statistics.createStats(primitiveType);
+    }
+
+    @Override
+    public void writeBlock(Block block)
+    {
+        int maxDefinitionLevel = columnDescriptor.getMaxDefinitionLevel();
+        for (int position = 0; position < block.getPositionCount(); position++) {
+            repetitionLevelWriter.writeInteger(0);
+            if (block.isNull(position)) {
+                definitionLevelWriter.writeInteger(maxDefinitionLevel - 1);
+                pageStatistics.incrementNumNulls();
+            }
+            else {
+                definitionLevelWriter.writeInteger(maxDefinitionLevel);
+                primitiveValueWriter.write(block, position, valuesWriter, pageStatistics);
+            }
+            pageValueCount++;
+
+            if (getPageBufferedBytes() >= pageSizeThreshold) {
+                flushPage();
+            }
+        }
+    }
+
+    private long getPageBufferedBytes()
+    {
+        return repetitionLevelWriter.getBufferedSize() + definitionLevelWriter.getBufferedSize() + valuesWriter.getBufferedSize();
+    }
+
+    private void flushPage()
+    {
+        if (pageValueCount == 0) {
+            return;
+        }
+
+        try {
+            byte[] uncompressed = BytesInput.concat(repetitionLevelWriter.getBytes(), definitionLevelWriter.getBytes(), valuesWriter.getBytes()).toByteArray();
+            Slice compressed = compress(uncompressed);
+
+            // the values encoding is only final once the page bytes are produced, as the
+            // dictionary writer may fall back to plain encoding for the first page
+            Encoding repetitionLevelEncoding = repetitionLevelWriter.getEncoding();
+            Encoding definitionLevelEncoding = definitionLevelWriter.getEncoding();
+            Encoding valuesEncoding = valuesWriter.getEncoding();
+
+            int headerStart = dataPages.size();
+            PARQUET_METADATA_CONVERTER.writeDataPageHeader(
+                    uncompressed.length,
+                    compressed.length(),
+                    pageValueCount,
+                    pageStatistics,
+                    repetitionLevelEncoding,
+                    definitionLevelEncoding,
+                    valuesEncoding,
+                    dataPages);
+            int headerSize = dataPages.size() - headerStart;
+            dataPages.writeBytes(compressed);
+
+            // the values of a flat column are its rows
+            pageLocations.add(new PageLocation(headerStart, dataPages.size() - headerStart, chunkValueCount));
+            addToColumnIndex(pageStatistics);
+
+            chunkUncompressedSize += headerSize + uncompressed.length;
+            chunkValueCount += pageValueCount;
+            encodings.add(repetitionLevelEncoding);
+            encodings.add(definitionLevelEncoding);
+            encodings.add(valuesEncoding);
+            encodingStats.addDataEncoding(valuesEncoding);
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        columnStatistics.mergeStatistics(pageStatistics);
+        pageStatistics = Statistics.createStats(primitiveType);
+        pageValueCount = 0;
+
+        repetitionLevelWriter.reset();
+        definitionLevelWriter.reset();
+        valuesWriter.reset();
+    }
+
+    private void addToColumnIndex(Statistics<?> statistics)
+    {
+        boolean nullPage = !statistics.hasNonNullValue();
+        byte[] min = nullPage ? new byte[0] : statistics.getMinBytes();
+        byte[] max = nullPage ? new byte[0] : statistics.getMaxBytes();
+        if (min.length > MAX_COLUMN_INDEX_VALUE_LENGTH || max.length > MAX_COLUMN_INDEX_VALUE_LENGTH) {
+            columnIndexValid = false;
+        }
+        columnIndex.addToNull_pages(nullPage);
+        columnIndex.addToMin_values(ByteBuffer.wrap(min));
+        columnIndex.addToMax_values(ByteBuffer.wrap(max));
+        columnIndex.addToNull_counts(statistics.getNumNulls());
+    }
+
+    private static ColumnIndex createColumnIndex()
+    {
+        ColumnIndex columnIndex = new ColumnIndex(new ArrayList<>(), new ArrayList<>(), new ArrayList<>(), BoundaryOrder.UNORDERED);
+        columnIndex.setNull_counts(new ArrayList<>());
+        return columnIndex;
+    }
+
+    @Override
+    public WrittenColumnChunk writeColumnChunk(OutputStreamSliceOutput output)
+            throws IOException
+    {
+        flushPage();
+
+        long totalCompressedSize = 0;
+        long totalUncompressedSize = chunkUncompressedSize;
+
+        long dictionaryPageOffset = 0;
+        DictionaryPage dictionaryPage = valuesWriter.toDictPageAndClose();
+        if (dictionaryPage != null) {
+            dictionaryPageOffset = output.longSize();
+            byte[] uncompressed = dictionaryPage.getBytes().toByteArray();
+            Slice compressed = compress(uncompressed);
+            PARQUET_METADATA_CONVERTER.writeDictionaryPageHeader(
+                    uncompressed.length,
+                    compressed.length(),
+                    dictionaryPage.getDictionarySize(),
+                    dictionaryPage.getEncoding(),
+                    output);
+            output.writeBytes(compressed);
+
+            long dictionaryPageSize = output.longSize() - dictionaryPageOffset;
+            totalCompressedSize += dictionaryPageSize;
+            totalUncompressedSize += dictionaryPageSize - compressed.length() + uncompressed.length;
+            encodings.add(dictionaryPage.getEncoding());
+            encodingStats.addDictEncoding(dictionaryPage.getEncoding());
+        }
+
+        long firstDataPageOffset = output.longSize();
+        output.writeBytes(dataPages.slice());
+        totalCompressedSize += dataPages.size();
+
+        ColumnChunkMetaData metadata = ColumnChunkMetaData.get(
+                ColumnPath.get(columnDescriptor.getPath()),
+                primitiveType,
+                compressionCodec,
+                encodingStats.build(),
+                new LinkedHashSet<>(encodings),
+                columnStatistics,
+                firstDataPageOffset,
+                dictionaryPageOffset,
+                chunkValueCount,
+                totalCompressedSize,
+                totalUncompressedSize);
+
+        OffsetIndex offsetIndex = new OffsetIndex(pageLocations.stream()
+                .map(location -> new PageLocation(firstDataPageOffset + location.getOffset(), location.getCompressed_page_size(), location.getFirst_row_index()))
+                .collect(toImmutableList()));
+        WrittenColumnChunk columnChunk = new WrittenColumnChunk(metadata, columnIndexValid ? Optional.of(columnIndex) : Optional.empty(), offsetIndex);
+
+        // the values writer is closed with the dictionary page, so each column chunk starts with a new one
+        valuesWriter = properties.newValuesWriter(columnDescriptor);
+        dataPages.reset();
+        encodings.clear();
+        encodingStats = new EncodingStats.Builder();
+        columnStatistics = Statistics.createStats(primitiveType);
+        chunkValueCount = 0;
+        chunkUncompressedSize = 0;
+        columnIndex = createColumnIndex();
+        columnIndexValid = true;
+        pageLocations.clear();
+
+        return columnChunk;
+    }
+
+    private Slice compress(byte[] uncompressed)
+    {
+        if (!compressor.isPresent()) {
+            return wrappedBuffer(uncompressed);
+        }
+        return compressor.get().compress(uncompressed);
+    }
+
+    @Override
+    public long getBufferedBytes()
+    {
+        return dataPages.size() + getPageBufferedBytes();
+    }
+
+    @Override
+    public long getRetainedBytes()
+    {
+        return dataPages.getRetainedSize() +
+                repetitionLevelWriter.getAllocatedSize() +
+                definitionLevelWriter.getAllocatedSize() +
+                valuesWriter.getAllocatedSize();
+    }
+
+    @Override
+    public String toString()
+    {
+        return toStringHelper(this)
+                .add("column", columnDescriptor)
+                .add("compressionCodec", compressionCodec)
+                .toString();
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.parquet.writer;
+
+import org.apache.parquet.format.ColumnIndex;
+import org.apache.parquet.format.OffsetIndex;
+import org.apache.parquet.hadoop.metadata.ColumnChunkMetaData;
+
+import java.util.Optional;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Metadata of a column chunk written to the output, along with its page indexes,
+ * which are written with the footer.
+ */
+public class WrittenColumnChunk
+{
+    private final ColumnChunkMetaData metadata;
+    private final Optional<ColumnIndex> columnIndex;
+    private final OffsetIndex offsetIndex;
+
+    public WrittenColumnChunk(ColumnChunkMetaData metadata, Optional<ColumnIndex> columnIndex, OffsetIndex offsetIndex)
+    {
+        this.metadata = requireNonNull(metadata, "metadata is null");
+        this.columnIndex = requireNonNull(columnIndex, "columnIndex is null");
+        this.offsetIndex = requireNonNull(offsetIndex, "offsetIndex is null");
+    }
+
+    public ColumnChunkMetaData getMetadata()
+    {
+        return metadata;
+    }
+
+    /**
+     * The column index is omitted when the minimum or maximum value of a page is too long to be kept in the index.
+     */
+    public Optional<ColumnIndex> getColumnIndex()
+    {
+        return columnIndex;
+    }
+
+    public OffsetIndex getOffsetIndex()
+    {
+        return offsetIndex;
+    }
+}
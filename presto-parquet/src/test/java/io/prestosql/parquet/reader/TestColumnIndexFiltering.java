@@ -0,0 +1,286 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.parquet.reader;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import io.airlift.units.DataSize;
+import io.prestosql.parquet.PrimitiveField;
+import io.prestosql.parquet.RichColumnDescriptor;
+import io.prestosql.parquet.TestingParquetDataSource;
+import io.prestosql.parquet.predicate.Predicate;
+import io.prestosql.parquet.predicate.TupleDomainParquetPredicate;
+import io.prestosql.parquet.writer.ParquetWriter;
+import io.prestosql.parquet.writer.ParquetWriterOptions;
+import io.prestosql.spi.Page;
+import io.prestosql.spi.block.Block;
+import io.prestosql.spi.block.BlockBuilder;
+import io.prestosql.spi.predicate.Domain;
+import io.prestosql.spi.predicate.Range;
+import io.prestosql.spi.predicate.TupleDomain;
+import io.prestosql.spi.predicate.ValueSet;
+import io.prestosql.spi.type.Type;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.parquet.column.ColumnDescriptor;
+import org.apache.parquet.hadoop.metadata.BlockMetaData;
+import org.apache.parquet.hadoop.metadata.ColumnChunkMetaData;
+import org.apache.parquet.hadoop.metadata.CompressionCodecName;
+import org.apache.parquet.hadoop.metadata.ParquetMetadata;
+import org.apache.parquet.io.MessageColumnIO;
+import org.apache.parquet.io.PrimitiveColumnIO;
+import org.apache.parquet.schema.MessageType;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static com.google.common.io.MoreFiles.deleteRecursively;
+import static com.google.common.io.RecursiveDeleteOption.ALLOW_INSECURE;
+import static io.airlift.slice.Slices.utf8Slice;
+import static io.airlift.units.DataSize.Unit.KILOBYTE;
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
+import static io.prestosql.memory.context.AggregatedMemoryContext.newSimpleAggregatedMemoryContext;
+import static io.prestosql.parquet.ParquetTypeUtils.getColumnIO;
+import static io.prestosql.spi.type.BigintType.BIGINT;
+import static io.prestosql.spi.type.VarcharType.VARCHAR;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class TestColumnIndexFiltering
+{
+    private static final List<String> COLUMN_NAMES = ImmutableList.of("c_sorted", "c_nullable", "c_varchar");
+    private static final List<Type> TYPES = ImmutableList.of(BIGINT, BIGINT, VARCHAR);
+    private static final int ROW_COUNT = 100_000;
+
+    private File tempDirectory;
+    private byte[] data;
+    private ParquetMetadata metadata;
+
+    @BeforeClass
+    public void setUp()
+            throws IOException
+    {
+        tempDirectory = Files.createTempDirectory("parquet-column-index").toFile();
+        File file = new File(tempDirectory, "test.parquet");
+        ParquetWriterOptions options = new ParquetWriterOptions()
+                .withMaxPageSize(new DataSize(4, KILOBYTE))
+                .withMaxRowGroupSize(new DataSize(512, KILOBYTE));
+        try (ParquetWriter writer = new ParquetWriter(new FileOutputStream(file), COLUMN_NAMES, TYPES, options, CompressionCodecName.SNAPPY, ImmutableMap.of())) {
+            for (int start = 0; start < ROW_COUNT; start += 1000) {
+                writer.write(createPage(start, 1000));
+            }
+        }
+        data = Files.readAllBytes(file.toPath());
+        metadata = MetadataReader.readFooter(FileSystem.getLocal(new Configuration()), new Path(file.toURI()), file.length());
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void tearDown()
+            throws IOException
+    {
+        deleteRecursively(tempDirectory.toPath(), ALLOW_INSECURE);
+    }
+
+    @Test
+    public void testIndexReferences()
+    {
+        assertTrue(metadata.getBlocks().size() > 1, "expected multiple row groups");
+        for (BlockMetaData block : metadata.getBlocks()) {
+            assertTrue(block instanceof IndexedBlockMetaData);
+            IndexedBlockMetaData indexedBlock = (IndexedBlockMetaData) block;
+            for (ColumnChunkMetaData column : block.getColumns()) {
+                assertTrue(indexedBlock.getColumnIndexReference(column.getPath()).isPresent());
+                assertTrue(indexedBlock.getOffsetIndexReference(column.getPath()).isPresent());
+            }
+        }
+    }
+
+    @Test
+    public void testNoPredicate()
+            throws IOException
+    {
+        Set<Long> rows = readRows(Predicate.TRUE, new TestingParquetDataSource(data), false);
+        assertEquals(rows.size(), ROW_COUNT);
+    }
+
+    @Test
+    public void testRangePredicate()
+            throws IOException
+    {
+        Domain domain = Domain.create(ValueSet.ofRanges(
+                Range.range(BIGINT, 50_000L, true, 50_099L, true),
+                Range.range(BIGINT, 90_000L, true, 90_009L, true)), false);
+        TestingParquetDataSource dataSource = new TestingParquetDataSource(data);
+        Set<Long> rows = readRows(createPredicate(0, domain), dataSource, false);
+
+        // only the pages holding the matching rows are read
+        assertTrue(rows.size() < ROW_COUNT / 20, "expected most rows to be skipped, but read " + rows.size());
+        assertTrue(dataSource.getReadBytes() < data.length / 10, "expected most pages to be skipped, but read " + dataSource.getReadBytes());
+        for (long row = 50_000; row < 50_100; row++) {
+            assertTrue(rows.contains(row));
+        }
+        for (long row = 90_000; row < 90_010; row++) {
+            assertTrue(rows.contains(row));
+        }
+    }
+
+    @Test
+    public void testLazilyReadColumns()
+            throws IOException
+    {
+        Domain domain = Domain.create(ValueSet.ofRanges(Range.range(BIGINT, 10_000L, true, 80_000L, false)), false);
+        Set<Long> rows = readRows(createPredicate(0, domain), new TestingParquetDataSource(data), true);
+        assertTrue(rows.size() < ROW_COUNT);
+        for (long row = 10_000; row < 80_000; row++) {
+            assertTrue(rows.contains(row));
+        }
+    }
+
+    @Test
+    public void testNullPredicate()
+            throws IOException
+    {
+        Domain sortedDomain = Domain.create(ValueSet.ofRanges(Range.lessThan(BIGINT, 1_000L)), false);
+        Set<Long> rows = readRows(createPredicate(0, sortedDomain, 1, Domain.onlyNull(BIGINT)), new TestingParquetDataSource(data), false);
+        assertTrue(rows.size() < ROW_COUNT / 20, "expected most rows to be skipped, but read " + rows.size());
+        for (long row = 0; row < 1_000; row++) {
+            if (isNull(row)) {
+                assertTrue(rows.contains(row));
+            }
+        }
+    }
+
+    @Test
+    public void testNoMatchingPages()
+            throws IOException
+    {
+        // each domain alone matches some pages, but no rows match both
+        Domain nullableDomain = Domain.create(ValueSet.ofRanges(Range.greaterThanOrEqual(BIGINT, 9_000L)), false);
+        Predicate predicate = createPredicate(0, Domain.singleValue(BIGINT, 42L), 1, nullableDomain);
+        assertTrue(readRows(predicate, new TestingParquetDataSource(data), false).isEmpty());
+    }
+
+    private Set<Long> readRows(Predicate predicate, TestingParquetDataSource dataSource, boolean skipVarcharBatches)
+            throws IOException
+    {
+        MessageType fileSchema = metadata.getFileMetaData().getSchema();
+        MessageColumnIO messageColumnIO = getColumnIO(fileSchema, fileSchema);
+        List<PrimitiveField> fields = new ArrayList<>();
+        for (int i = 0; i < TYPES.size(); i++) {
+            fields.add(createField(messageColumnIO, i));
+        }
+
+        Set<Long> rows = new HashSet<>();
+        try (ParquetReader reader = new ParquetReader(messageColumnIO, metadata.getBlocks(), dataSource, newSimpleAggregatedMemoryContext(), new DataSize(16, MEGABYTE), predicate)) {
+            int batch = 0;
+            int batchSize;
+            while ((batchSize = reader.nextBatch()) > 0) {
+                Block sorted = reader.readBlock(fields.get(0));
+                Block nullable = reader.readBlock(fields.get(1));
+                assertEquals(sorted.getPositionCount(), batchSize);
+                assertEquals(nullable.getPositionCount(), batchSize);
+                Block varchar = null;
+                if (!skipVarcharBatches || batch % 2 == 1) {
+                    varchar = reader.readBlock(fields.get(2));
+                    assertEquals(varchar.getPositionCount(), batchSize);
+                }
+                for (int position = 0; position < batchSize; position++) {
+                    // every column must stay aligned with the sorted row number
+                    long row = BIGINT.getLong(sorted, position);
+                    if (isNull(row)) {
+                        assertTrue(nullable.isNull(position));
+                    }
+                    else {
+                        assertEquals(BIGINT.getLong(nullable, position), row / 10);
+                    }
+                    if (varchar != null) {
+                        assertEquals(VARCHAR.getSlice(varchar, position).toStringUtf8(), "value_" + row);
+                    }
+                    assertTrue(rows.add(row), "duplicate row " + row);
+                }
+                batch++;
+            }
+        }
+        return rows;
+    }
+
+    private Predicate createPredicate(int column, Domain domain)
+    {
+        return createPredicate(ImmutableMap.of(column, domain));
+    }
+
+    private Predicate createPredicate(int firstColumn, Domain firstDomain, int secondColumn, Domain secondDomain)
+    {
+        return createPredicate(ImmutableMap.of(firstColumn, firstDomain, secondColumn, secondDomain));
+    }
+
+    private Predicate createPredicate(ImmutableMap<Integer, Domain> domains)
+    {
+        MessageType fileSchema = metadata.getFileMetaData().getSchema();
+        MessageColumnIO messageColumnIO = getColumnIO(fileSchema, fileSchema);
+        ImmutableMap.Builder<ColumnDescriptor, Domain> descriptorDomains = ImmutableMap.builder();
+        ImmutableList.Builder<RichColumnDescriptor> columns = ImmutableList.builder();
+        domains.forEach((column, domain) -> {
+            RichColumnDescriptor descriptor = createField(messageColumnIO, column).getDescriptor();
+            descriptorDomains.put(descriptor, domain);
+            columns.add(descriptor);
+        });
+        return new TupleDomainParquetPredicate(TupleDomain.withColumnDomains(descriptorDomains.build()), columns.build());
+    }
+
+    private static PrimitiveField createField(MessageColumnIO messageColumnIO, int column)
+    {
+        PrimitiveColumnIO columnIO = messageColumnIO.getLeaves().get(column);
+        return new PrimitiveField(
+                TYPES.get(column),
+                columnIO.getColumnDescriptor().getMaxRepetitionLevel(),
+                columnIO.getColumnDescriptor().getMaxDefinitionLevel(),
+                false,
+                new RichColumnDescriptor(columnIO.getColumnDescriptor(), columnIO.getType().asPrimitiveType()),
+                column);
+    }
+
+    private static Page createPage(int start, int rowCount)
+    {
+        BlockBuilder sorted = BIGINT.createBlockBuilder(null, rowCount);
+        BlockBuilder nullable = BIGINT.createBlockBuilder(null, rowCount);
+        BlockBuilder varchar = VARCHAR.createBlockBuilder(null, rowCount);
+        for (int row = start; row < start + rowCount; row++) {
+            BIGINT.writeLong(sorted, row);
+            if (isNull(row)) {
+                nullable.appendNull();
+            }
+            else {
+                BIGINT.writeLong(nullable, row / 10);
+            }
+            VARCHAR.writeSlice(varchar, utf8Slice("value_" + row));
+        }
+        return new Page(sorted.build(), nullable.build(), varchar.build());
+    }
+
+    private static boolean isNull(long row)
+    {
+        return row % 3 == 0;
+    }
+}
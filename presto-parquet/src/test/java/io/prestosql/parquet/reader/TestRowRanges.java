@@ -0,0 +1,82 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.parquet.reader;
+
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class TestRowRanges
+{
+    @Test
+    public void testUnion()
+    {
+        assertEquals(RowRanges.empty().union(RowRanges.empty()), RowRanges.empty());
+        assertEquals(RowRanges.range(0, 10).union(RowRanges.empty()), RowRanges.range(0, 10));
+        assertEquals(RowRanges.range(0, 10).union(RowRanges.range(5, 20)), RowRanges.range(0, 20));
+        // adjacent ranges are merged
+        assertEquals(RowRanges.range(0, 10).union(RowRanges.range(10, 20)), RowRanges.range(0, 20));
+
+        RowRanges ranges = RowRanges.range(30, 40)
+                .union(RowRanges.range(0, 10))
+                .union(RowRanges.range(50, 60));
+        assertEquals(ranges.getRangeCount(), 3);
+        assertEquals(ranges.getRangeStart(0), 0);
+        assertEquals(ranges.getRangeEnd(0), 10);
+        assertEquals(ranges.getRangeStart(2), 50);
+        assertEquals(ranges.getRangeEnd(2), 60);
+        assertEquals(ranges.getRowCount(), 30);
+
+        assertEquals(ranges.union(RowRanges.range(5, 55)), RowRanges.range(0, 60));
+    }
+
+    @Test
+    public void testIntersect()
+    {
+        RowRanges ranges = RowRanges.range(0, 10).union(RowRanges.range(20, 30));
+        assertEquals(ranges.intersect(RowRanges.empty()), RowRanges.empty());
+        assertEquals(ranges.intersect(RowRanges.all(100)), ranges);
+        assertEquals(ranges.intersect(RowRanges.range(10, 20)), RowRanges.empty());
+        assertEquals(ranges.intersect(RowRanges.range(5, 25)), RowRanges.range(5, 10).union(RowRanges.range(20, 25)));
+        assertEquals(
+                ranges.intersect(RowRanges.range(2, 4).union(RowRanges.range(8, 22)).union(RowRanges.range(28, 40))),
+                RowRanges.range(2, 4).union(RowRanges.range(8, 10)).union(RowRanges.range(20, 22)).union(RowRanges.range(28, 30)));
+    }
+
+    @Test
+    public void testOverlaps()
+    {
+        RowRanges ranges = RowRanges.range(10, 20).union(RowRanges.range(30, 40));
+        assertFalse(ranges.overlaps(0, 10));
+        assertTrue(ranges.overlaps(0, 11));
+        assertTrue(ranges.overlaps(19, 25));
+        assertFalse(ranges.overlaps(20, 30));
+        assertTrue(ranges.overlaps(20, 31));
+        assertTrue(ranges.overlaps(0, 100));
+        assertFalse(ranges.overlaps(40, 100));
+        assertFalse(RowRanges.empty().overlaps(0, 100));
+    }
+
+    @Test
+    public void testEmpty()
+    {
+        assertTrue(RowRanges.empty().isEmpty());
+        assertTrue(RowRanges.range(5, 5).isEmpty());
+        assertTrue(RowRanges.all(0).isEmpty());
+        assertFalse(RowRanges.all(1).isEmpty());
+        assertEquals(RowRanges.empty().getRowCount(), 0);
+    }
+}
@@ -0,0 +1,225 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.parquet.writer;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import io.airlift.units.DataSize;
+import io.prestosql.parquet.Field;
+import io.prestosql.parquet.ParquetDataSource;
+import io.prestosql.parquet.PrimitiveField;
+import io.prestosql.parquet.RichColumnDescriptor;
+import io.prestosql.parquet.TestingParquetDataSource;
+import io.prestosql.parquet.reader.MetadataReader;
+import io.prestosql.parquet.reader.ParquetReader;
+import io.prestosql.spi.Page;
+import io.prestosql.spi.block.Block;
+import io.prestosql.spi.block.BlockBuilder;
+import io.prestosql.spi.type.DecimalType;
+import io.prestosql.spi.type.Decimals;
+import io.prestosql.spi.type.Type;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.parquet.column.ColumnDescriptor;
+import org.apache.parquet.column.Encoding;
+import org.apache.parquet.column.statistics.LongStatistics;
+import org.apache.parquet.hadoop.metadata.BlockMetaData;
+import org.apache.parquet.hadoop.metadata.ColumnChunkMetaData;
+import org.apache.parquet.hadoop.metadata.CompressionCodecName;
+import org.apache.parquet.hadoop.metadata.ParquetMetadata;
+import org.apache.parquet.io.MessageColumnIO;
+import org.apache.parquet.io.PrimitiveColumnIO;
+import org.apache.parquet.schema.MessageType;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.google.common.io.MoreFiles.deleteRecursively;
+import static com.google.common.io.RecursiveDeleteOption.ALLOW_INSECURE;
+import static io.airlift.slice.Slices.utf8Slice;
+import static io.airlift.units.DataSize.Unit.KILOBYTE;
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
+import static io.prestosql.memory.context.AggregatedMemoryContext.newSimpleAggregatedMemoryContext;
+import static io.prestosql.parquet.ParquetTypeUtils.getColumnIO;
+import static io.prestosql.spi.type.BigintType.BIGINT;
+import static io.prestosql.spi.type.BooleanType.BOOLEAN;
+import static io.prestosql.spi.type.DateType.DATE;
+import static io.prestosql.spi.type.DecimalType.createDecimalType;
+import static io.prestosql.spi.type.DoubleType.DOUBLE;
+import static io.prestosql.spi.type.IntegerType.INTEGER;
+import static io.prestosql.spi.type.RealType.REAL;
+import static io.prestosql.spi.type.TimestampType.TIMESTAMP;
+import static io.prestosql.spi.type.VarcharType.VARCHAR;
+import static io.prestosql.testing.TestingConnectorSession.SESSION;
+import static java.lang.Float.floatToRawIntBits;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class TestParquetWriter
+{
+    private static final DecimalType SHORT_DECIMAL = createDecimalType(10, 2);
+    private static final DecimalType LONG_DECIMAL = createDecimalType(30, 5);
+    private static final List<String> COLUMN_NAMES = ImmutableList.of(
+            "t_bigint", "t_integer", "t_double", "t_real", "t_boolean", "t_varchar", "t_unique_varchar", "t_date", "t_timestamp", "t_short_decimal", "t_long_decimal");
+    private static final List<Type> TYPES = ImmutableList.of(
+            BIGINT, INTEGER, DOUBLE, REAL, BOOLEAN, VARCHAR, VARCHAR, DATE, TIMESTAMP, SHORT_DECIMAL, LONG_DECIMAL);
+    private static final int ROW_COUNT = 30_000;
+
+    @DataProvider
+    public static Object[][] compressionCodecs()
+    {
+        return new Object[][] {
+                {CompressionCodecName.UNCOMPRESSED},
+                {CompressionCodecName.SNAPPY},
+                {CompressionCodecName.GZIP},
+                {CompressionCodecName.ZSTD}};
+    }
+
+    @Test(dataProvider = "compressionCodecs")
+    public void testRoundTrip(CompressionCodecName compressionCodec)
+            throws Exception
+    {
+        List<Page> pages = createPages();
+
+        File tempDirectory = Files.createTempDirectory("parquet-writer").toFile();
+        try {
+            File file = new File(tempDirectory, "test.parquet");
+            ParquetWriterOptions options = new ParquetWriterOptions()
+                    .withMaxPageSize(new DataSize(4, KILOBYTE))
+                    .withMaxRowGroupSize(new DataSize(256, KILOBYTE));
+            try (ParquetWriter writer = new ParquetWriter(new FileOutputStream(file), COLUMN_NAMES, TYPES, options, compressionCodec, ImmutableMap.of("key", "value"))) {
+                for (Page page : pages) {
+                    writer.write(page);
+                }
+            }
+
+            ParquetMetadata metadata = MetadataReader.readFooter(FileSystem.getLocal(new Configuration()), new Path(file.toURI()), file.length());
+            assertEquals(metadata.getFileMetaData().getKeyValueMetaData().get("key"), "value");
+            assertTrue(metadata.getBlocks().size() > 1, "expected multiple row groups");
+            assertEquals(metadata.getBlocks().stream().mapToLong(BlockMetaData::getRowCount).sum(), ROW_COUNT);
+
+            long bigintNulls = 0;
+            for (BlockMetaData rowGroup : metadata.getBlocks()) {
+                ColumnChunkMetaData bigintColumn = rowGroup.getColumns().get(0);
+                assertEquals(bigintColumn.getCodec(), compressionCodec);
+                // low cardinality columns keep the dictionary for the whole row group
+                assertTrue(bigintColumn.getEncodings().contains(Encoding.PLAIN_DICTIONARY));
+                assertEquals(bigintColumn.getStartingPos(), bigintColumn.getDictionaryPageOffset());
+                LongStatistics statistics = (LongStatistics) bigintColumn.getStatistics();
+                assertEquals(statistics.getMin(), 0);
+                assertEquals(statistics.getMax(), 99);
+                bigintNulls += statistics.getNumNulls();
+            }
+            assertEquals(bigintNulls, (ROW_COUNT + 6) / 7);
+
+            // unique values overflow the dictionary and fall back to plain encoding
+            assertTrue(metadata.getBlocks().get(0).getColumns().get(6).getEncodings().contains(Encoding.PLAIN));
+
+            assertEquals(readValues(file, metadata), getValues(pages));
+        }
+        finally {
+            deleteRecursively(tempDirectory.toPath(), ALLOW_INSECURE);
+        }
+    }
+
+    private static List<Page> createPages()
+    {
+        List<Page> pages = new ArrayList<>();
+        int pageSize = 1000;
+        for (int start = 0; start < ROW_COUNT; start += pageSize) {
+            List<BlockBuilder> blockBuilders = new ArrayList<>();
+            for (Type type : TYPES) {
+                blockBuilders.add(type.createBlockBuilder(null, pageSize));
+            }
+            for (int row = start; row < start + pageSize; row++) {
+                if (row % 7 == 0) {
+                    blockBuilders.forEach(BlockBuilder::appendNull);
+                    continue;
+                }
+                BIGINT.writeLong(blockBuilders.get(0), row * 31L % 100);
+                INTEGER.writeLong(blockBuilders.get(1), row - 10_000);
+                DOUBLE.writeDouble(blockBuilders.get(2), row * 0.5);
+                REAL.writeLong(blockBuilders.get(3), floatToRawIntBits(row / 4.0f));
+                BOOLEAN.writeBoolean(blockBuilders.get(4), row % 3 == 0);
+                VARCHAR.writeSlice(blockBuilders.get(5), utf8Slice("value_" + (row % 50)));
+                VARCHAR.writeSlice(blockBuilders.get(6), utf8Slice("unique_value_" + row));
+                DATE.writeLong(blockBuilders.get(7), row - 15_000);
+                TIMESTAMP.writeLong(blockBuilders.get(8), (row - 15_000) * 3_600_123L);
+                SHORT_DECIMAL.writeLong(blockBuilders.get(9), (row - 15_000) * 12_345L);
+                LONG_DECIMAL.writeSlice(blockBuilders.get(10), Decimals.encodeUnscaledValue(BigInteger.valueOf(row - 15_000).pow(7)));
+            }
+            pages.add(new Page(blockBuilders.stream().map(BlockBuilder::build).toArray(Block[]::new)));
+        }
+        return pages;
+    }
+
+    private static List<List<Object>> getValues(List<Page> pages)
+    {
+        List<List<Object>> values = new ArrayList<>();
+        for (int channel = 0; channel < TYPES.size(); channel++) {
+            List<Object> columnValues = new ArrayList<>();
+            for (Page page : pages) {
+                addValues(columnValues, TYPES.get(channel), page.getBlock(channel));
+            }
+            values.add(columnValues);
+        }
+        return values;
+    }
+
+    private static List<List<Object>> readValues(File file, ParquetMetadata metadata)
+            throws IOException
+    {
+        MessageType fileSchema = metadata.getFileMetaData().getSchema();
+        MessageColumnIO messageColumnIO = getColumnIO(fileSchema, fileSchema);
+        List<Field> fields = new ArrayList<>();
+        List<List<Object>> values = new ArrayList<>();
+        for (int i = 0; i < TYPES.size(); i++) {
+            PrimitiveColumnIO columnIO = messageColumnIO.getLeaves().get(i);
+            ColumnDescriptor descriptor = columnIO.getColumnDescriptor();
+            fields.add(new PrimitiveField(
+                    TYPES.get(i),
+                    descriptor.getMaxRepetitionLevel(),
+                    descriptor.getMaxDefinitionLevel(),
+                    false,
+                    new RichColumnDescriptor(descriptor, columnIO.getType().asPrimitiveType()),
+                    i));
+            values.add(new ArrayList<>());
+        }
+
+        ParquetDataSource dataSource = new TestingParquetDataSource(Files.readAllBytes(file.toPath()));
+        try (ParquetReader reader = new ParquetReader(messageColumnIO, metadata.getBlocks(), dataSource, newSimpleAggregatedMemoryContext(), new DataSize(16, MEGABYTE))) {
+            while (reader.nextBatch() > 0) {
+                for (int i = 0; i < fields.size(); i++) {
+                    addValues(values.get(i), TYPES.get(i), reader.readBlock(fields.get(i)));
+                }
+            }
+        }
+        return values;
+    }
+
+    private static void addValues(List<Object> values, Type type, Block block)
+    {
+        for (int position = 0; position < block.getPositionCount(); position++) {
+            values.add(type.getObjectValue(SESSION, block, position));
+        }
+    }
+}
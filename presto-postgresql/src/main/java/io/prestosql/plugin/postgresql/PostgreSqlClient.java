@@ -30,20 +30,24 @@ import io.prestosql.plugin.jdbc.ColumnMapping;
 import io.prestosql.plugin.jdbc.ConnectionFactory;
 import io.prestosql.plugin.jdbc.JdbcColumnHandle;
 import io.prestosql.plugin.jdbc.JdbcIdentity;
+import io.prestosql.plugin.jdbc.JdbcJoinCondition;
 import io.prestosql.plugin.jdbc.JdbcTableHandle;
 import io.prestosql.plugin.jdbc.JdbcTypeHandle;
 import io.prestosql.plugin.jdbc.LongWriteFunction;
 import io.prestosql.plugin.jdbc.SliceWriteFunction;
 import io.prestosql.plugin.jdbc.StatsCollecting;
+import io.prestosql.plugin.jdbc.TopNFunction;
 import io.prestosql.plugin.jdbc.WriteMapping;
 import io.prestosql.spi.PrestoException;
 import io.prestosql.spi.block.Block;
 import io.prestosql.spi.block.BlockBuilder;
 import io.prestosql.spi.connector.ConnectorSession;
 import io.prestosql.spi.connector.ConnectorTableMetadata;
+import io.prestosql.spi.connector.JoinType;
 import io.prestosql.spi.connector.SchemaTableName;
 import io.prestosql.spi.connector.TableNotFoundException;
 import io.prestosql.spi.type.ArrayType;
+import io.prestosql.spi.type.CharType;
 import io.prestosql.spi.type.MapType;
 import io.prestosql.spi.type.StandardTypes;
 import io.prestosql.spi.type.TinyintType;
@@ -74,6 +78,7 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 import java.util.function.BiFunction;
+import java.util.stream.Stream;
 
 import static com.fasterxml.jackson.core.JsonFactory.Feature.CANONICALIZE_FIELD_NAMES;
 import static com.fasterxml.jackson.databind.SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS;
@@ -102,6 +107,7 @@ import static io.prestosql.spi.type.VarbinaryType.VARBINARY;
 import static java.lang.String.format;
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.sql.DatabaseMetaData.columnNoNulls;
+import static java.util.stream.Collectors.joining;
 
 public class PostgreSqlClient
         extends BaseJdbcClient
@@ -347,6 +353,38 @@ public class PostgreSqlClient
         return true;
     }
 
+    @Override
+    protected Optional<TopNFunction> topNFunction()
+    {
+        return Optional.of((query, sortItems, limit) -> {
+            String orderBy = sortItems.stream()
+                    .map(sortItem -> format(
+                            "%s %s NULLS %s",
+                            quoted(sortItem.getColumn().getColumnName()),
+                            sortItem.getSortOrder().isAscending() ? "ASC" : "DESC",
+                            sortItem.getSortOrder().isNullsFirst() ? "FIRST" : "LAST"))
+                    .collect(joining(", "));
+            return format("%s ORDER BY %s LIMIT %s", query, orderBy, limit);
+        });
+    }
+
+    @Override
+    public boolean supportsAggregationPushdown(ConnectorSession session, List<JdbcColumnHandle> groupingColumns)
+    {
+        return groupingColumns.stream()
+                .map(JdbcColumnHandle::getColumnType)
+                .allMatch(type -> isExactlyComparable(type) || type instanceof VarcharType || type instanceof CharType);
+    }
+
+    @Override
+    public boolean supportsJoinPushdown(ConnectorSession session, JoinType joinType, List<JdbcJoinCondition> conditions)
+    {
+        return conditions.stream()
+                .flatMap(condition -> Stream.of(condition.getLeftColumn(), condition.getRightColumn()))
+                .map(JdbcColumnHandle::getColumnType)
+                .allMatch(type -> isExactlyComparable(type) || type instanceof VarcharType || type instanceof CharType);
+    }
+
     private static ColumnMapping timestampWithTimeZoneColumnMapping()
     {
         return ColumnMapping.longMapping(
@@ -213,6 +213,20 @@ public class TestPostgreSqlIntegrationSmokeTest
         }
     }
 
+    @Test
+    public void testBooleanAggregation()
+            throws Exception
+    {
+        // PostgreSQL has no min(boolean) or max(boolean), so they are not pushed down, unlike count
+        try (AutoCloseable ignoreTable = withTable("tpch.test_boolean_aggregation", "(x integer, b boolean)")) {
+            execute("INSERT INTO tpch.test_boolean_aggregation VALUES (1, true), (1, false), (2, true), (3, NULL)");
+
+            assertQuery("SELECT min(b), max(b), count(b) FROM test_boolean_aggregation", "VALUES (false, true, 3)");
+            assertQuery("SELECT x, min(b), max(b) FROM test_boolean_aggregation GROUP BY x", "VALUES (1, false, true), (2, true, true), (3, NULL, NULL)");
+            assertQuery("SELECT b, count(*) FROM test_boolean_aggregation GROUP BY b", "VALUES (false, 1), (true, 2), (NULL, 1)");
+        }
+    }
+
     @Test
     public void testCharTrailingSpace()
             throws Exception
@@ -140,6 +140,7 @@ public enum StandardErrorCode
     EXCEEDED_SPILL_LIMIT(131078, INSUFFICIENT_RESOURCES),
     EXCEEDED_LOCAL_MEMORY_LIMIT(131079, INSUFFICIENT_RESOURCES),
     ADMINISTRATIVELY_PREEMPTED(131080, INSUFFICIENT_RESOURCES),
+    EXCEEDED_BROADCAST_TABLE_SIZE(131081, INSUFFICIENT_RESOURCES),
     /**/;
 
     // Connectors can use error codes starting at the range 0x0100_0000
@@ -0,0 +1,62 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.spi.connector;
+
+import io.prestosql.spi.connector.ProjectionApplicationResult.Assignment;
+import io.prestosql.spi.expression.ConnectorExpression;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.util.Collections.unmodifiableList;
+import static java.util.Objects.requireNonNull;
+
+public class AggregationApplicationResult<T>
+{
+    private final T handle;
+    private final List<ConnectorExpression> projections;
+    private final List<Assignment> assignments;
+
+    public AggregationApplicationResult(T handle, List<ConnectorExpression> projections, List<Assignment> assignments)
+    {
+        requireNonNull(projections, "projections is null");
+        requireNonNull(assignments, "assignments is null");
+
+        this.handle = requireNonNull(handle, "handle is null");
+
+        this.projections = unmodifiableList(new ArrayList<>(projections));
+        this.assignments = unmodifiableList(new ArrayList<>(assignments));
+    }
+
+    public T getHandle()
+    {
+        return handle;
+    }
+
+    /**
+     * Returns one expression per aggregate function, in the order the functions were provided.
+     */
+    public List<ConnectorExpression> getProjections()
+    {
+        return projections;
+    }
+
+    /**
+     * Returns the new columns exposed by the derived table, besides the grouping columns.
+     */
+    public List<Assignment> getAssignments()
+    {
+        return assignments;
+    }
+}
@@ -764,6 +764,177 @@ public interface ConnectorMetadata
         return Optional.empty();
     }
 
+    /**
+     * Attempt to push down the aggregation into the table.
+     * <p>
+     * Connectors can indicate whether they don't support aggregation pushdown or that the action had no effect
+     * by returning {@link Optional#empty()}. Connectors should expect this method to be called multiple times
+     * during the optimization of a given query.
+     * <p>
+     * <b>Note</b>: it's critical for connectors to return Optional.empty() if calling this method has no effect for that
+     * invocation, even if the connector generally supports pushdown. Doing otherwise can cause the optimizer
+     * to loop indefinitely.
+     * </p>
+     *
+     * The inputs of the aggregate functions refer to the columns of the table by the names in {@code assignments}.
+     * If the method returns a result, the derived table produces one row per group of the grouping columns (or a
+     * single row if there are none), exposes the grouping columns under their original handles, and exposes the
+     * new columns listed in the assignments of the result. The projections of the result, one per aggregate function,
+     * are expressed in terms of those new columns.
+     *
+     * As an example, given the following plan:
+     *
+     * <pre>
+     * - aggregation
+     *     GROUP BY a
+     *     x = sum(b)
+     *     y = count(*)
+     *   - scan (TH0)
+     *       a = CH0
+     *       b = CH1
+     * </pre>
+     *
+     * The optimizer would call {@link #applyAggregation} with the following arguments:
+     *
+     * <pre>
+     * handle = TH0
+     * aggregates = [
+     *     sum(b)
+     *     count()
+     * ]
+     * assignments = [
+     *     a = CH0
+     *     b = CH1
+     * ]
+     * groupingColumns = [CH0]
+     * </pre>
+     *
+     * Assuming the connector knows how to handle both functions, it would return:
+     *
+     * <pre>
+     * handle = TH1
+     * projections = [
+     *     v0
+     *     v1
+     * ]
+     * assignments = [
+     *     v0 = CH2  (synthetic column for sum(CH1))
+     *     v1 = CH3  (synthetic column for count())
+     * ]
+     * </pre>
+     */
+    default Optional<AggregationApplicationResult<ConnectorTableHandle>> applyAggregation(
+            ConnectorSession session,
+            ConnectorTableHandle handle,
+            List<AggregateFunction> aggregates,
+            Map<String, ColumnHandle> assignments,
+            List<ColumnHandle> groupingColumns)
+    {
+        return Optional.empty();
+    }
+
+    /**
+     * Attempt to push down the join of two tables of this connector into a single table.
+     * <p>
+     * Connectors can indicate whether they don't support join pushdown or that the action had no effect
+     * by returning {@link Optional#empty()}. Connectors should expect this method to be called multiple times
+     * during the optimization of a given query.
+     * <p>
+     * <b>Note</b>: it's critical for connectors to return Optional.empty() if calling this method has no effect for that
+     * invocation, even if the connector generally supports pushdown. Doing otherwise can cause the optimizer
+     * to loop indefinitely.
+     * </p>
+     *
+     * The expressions of the join conditions refer to the columns of the left and right tables by the names in
+     * {@code leftAssignments} and {@code rightAssignments} respectively. If the method returns a result, the joined
+     * table produces the rows of the join, and exposes the columns of both tables under the handles given
+     * by the column mappings of the result.
+     *
+     * As an example, given the following plan:
+     *
+     * <pre>
+     * - join (INNER)
+     *     a = c
+     *   - scan (TH0)
+     *       a = CH0
+     *       b = CH1
+     *   - scan (TH1)
+     *       c = CH2
+     * </pre>
+     *
+     * The optimizer would call {@link #applyJoin} with the following arguments:
+     *
+     * <pre>
+     * joinType = INNER
+     * left = TH0
+     * right = TH1
+     * joinConditions = [
+     *     a = c
+     * ]
+     * leftAssignments = [
+     *     a = CH0
+     *     b = CH1
+     * ]
+     * rightAssignments = [
+     *     c = CH2
+     * ]
+     * </pre>
+     *
+     * Assuming the connector can join the tables, it would return:
+     *
+     * <pre>
+     * handle = TH2
+     * leftColumnHandles = [
+     *     CH0 = CH3
+     *     CH1 = CH4
+     * ]
+     * rightColumnHandles = [
+     *     CH2 = CH5
+     * ]
+     * </pre>
+     */
+    default Optional<JoinApplicationResult<ConnectorTableHandle>> applyJoin(
+            ConnectorSession session,
+            JoinType joinType,
+            ConnectorTableHandle left,
+            ConnectorTableHandle right,
+            List<JoinCondition> joinConditions,
+            Map<String, ColumnHandle> leftAssignments,
+            Map<String, ColumnHandle> rightAssignments)
+    {
+        return Optional.empty();
+    }
+
+    /**
+     * Attempt to push down the TopN into the table.
+     * <p>
+     * Connectors can indicate whether they don't support TopN pushdown or that the action had no effect
+     * by returning {@link Optional#empty()}. Connectors should expect this method to be called multiple times
+     * during the optimization of a given query.
+     * <p>
+     * <b>Note</b>: it's critical for connectors to return Optional.empty() if calling this method has no effect for that
+     * invocation, even if the connector generally supports TopN pushdown. Doing otherwise can cause the optimizer
+     * to loop indefinitely.
+     * </p>
+     * <p>
+     * The sort items refer to the columns of the table by the names in {@code assignments}. If the method returns
+     * a result, the derived table must produce at least the first {@code topNCount} rows of the table in the given
+     * order, although possibly more rows, in any order.
+     * <p>
+     * If the connector can guarantee it will produce no more than the first {@code topNCount} rows of the table,
+     * in the given order and within a single split, it should return a non-empty result with the "TopN guaranteed"
+     * flag set to true.
+     */
+    default Optional<TopNApplicationResult<ConnectorTableHandle>> applyTopN(
+            ConnectorSession session,
+            ConnectorTableHandle handle,
+            long topNCount,
+            List<SortItem> sortItems,
+            Map<String, ColumnHandle> assignments)
+    {
+        return Optional.empty();
+    }
+
     /**
      * Attempt to push down the sampling into the table.
      * <p>
@@ -13,6 +13,8 @@
  */
 package io.prestosql.spi.connector;
 
+import io.prestosql.spi.predicate.TupleDomain;
+
 import java.util.List;
 
 public interface ConnectorPageSourceProvider
@@ -29,4 +31,20 @@ public interface ConnectorPageSourceProvider
     {
         throw new UnsupportedOperationException("createPageSource() must be implemented");
     }
+
+    /**
+     * @param columns columns that should show up in the output page, in this order
+     * @param dynamicFilter predicate collected at runtime from the build side of joins which consume the table;
+     * rows which do not match it may be skipped, but the engine does not rely on that
+     */
+    default ConnectorPageSource createPageSource(
+            ConnectorTransactionHandle transaction,
+            ConnectorSession session,
+            ConnectorSplit split,
+            ConnectorTableHandle table,
+            List<ColumnHandle> columns,
+            TupleDomain<ColumnHandle> dynamicFilter)
+    {
+        return createPageSource(transaction, session, split, table, columns);
+    }
 }
@@ -16,6 +16,7 @@ package io.prestosql.spi.connector;
 import io.prestosql.spi.HostAddress;
 
 import java.util.List;
+import java.util.Optional;
 
 public interface ConnectorSplit
 {
@@ -24,4 +25,14 @@ public interface ConnectorSplit
     List<HostAddress> getAddresses();
 
     Object getInfo();
+
+    /**
+     * Returns the key used to schedule remotely accessible splits on the same workers
+     * when split affinity scheduling is enabled, so that worker-local caches of the data
+     * read by a split are reused. Splits reading the same data should return the same key.
+     */
+    default Optional<String> getAffinityKey()
+    {
+        return Optional.empty();
+    }
 }
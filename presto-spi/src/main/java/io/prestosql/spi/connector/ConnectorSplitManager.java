@@ -13,6 +13,10 @@
  */
 package io.prestosql.spi.connector;
 
+import io.prestosql.spi.predicate.TupleDomain;
+
+import java.util.function.Supplier;
+
 public interface ConnectorSplitManager
 {
     @Deprecated
@@ -34,6 +38,21 @@ public interface ConnectorSplitManager
         throw new UnsupportedOperationException();
     }
 
+    /**
+     * @param dynamicFilter supplies the predicate collected at runtime from the build side of joins
+     * which consume the table; the predicate may become narrower over time, so it should be
+     * evaluated as late as possible (e.g. once per partition)
+     */
+    default ConnectorSplitSource getSplits(
+            ConnectorTransactionHandle transaction,
+            ConnectorSession session,
+            ConnectorTableHandle table,
+            SplitSchedulingStrategy splitSchedulingStrategy,
+            Supplier<TupleDomain<ColumnHandle>> dynamicFilter)
+    {
+        return getSplits(transaction, session, table, splitSchedulingStrategy);
+    }
+
     enum SplitSchedulingStrategy
     {
         UNGROUPED_SCHEDULING,
@@ -25,6 +25,7 @@ import org.testng.annotations.Test;
 import static com.google.common.collect.Iterables.getOnlyElement;
 import static io.prestosql.SystemSessionProperties.JOIN_DISTRIBUTION_TYPE;
 import static io.prestosql.SystemSessionProperties.JOIN_REORDERING_STRATEGY;
+import static io.prestosql.SystemSessionProperties.SKEWED_JOIN_KEYS;
 import static io.prestosql.spi.type.BigintType.BIGINT;
 import static io.prestosql.testing.MaterializedResult.resultBuilder;
 import static io.prestosql.tests.QueryAssertions.assertEqualsIgnoreOrder;
@@ -2245,6 +2246,19 @@ public abstract class AbstractTestJoinQueries
                 "WITH small_part AS (SELECT * FROM part WHERE name = 'a') SELECT lineitem.orderkey FROM small_part RIGHT JOIN lineitem ON  small_part.partkey = lineitem.partkey");
     }
 
+    @Test
+    public void testSkewedJoinKeys()
+    {
+        Session session = Session.builder(noJoinReordering())
+                .setSystemProperty(SKEWED_JOIN_KEYS, "lineitem.orderkey:1,3,7;lineitem.partkey:1,2")
+                .build();
+
+        assertQuery(session, "SELECT l.orderkey, l.linenumber, o.orderstatus FROM lineitem l JOIN orders o ON l.orderkey = o.orderkey");
+        assertQuery(session, "SELECT l.orderkey, l.linenumber, o.orderstatus FROM lineitem l LEFT JOIN (SELECT * FROM orders WHERE orderkey < 5) o ON l.orderkey = o.orderkey");
+        assertQuery(session, "SELECT l.orderkey, l.linenumber, p.name FROM lineitem l JOIN part p ON l.partkey = p.partkey");
+        assertTrue(((String) computeActual(session, "EXPLAIN SELECT * FROM lineitem l JOIN part p ON l.partkey = p.partkey").getOnlyValue()).contains("probe_salt"));
+    }
+
     private Session noJoinReordering()
     {
         return Session.builder(getSession())
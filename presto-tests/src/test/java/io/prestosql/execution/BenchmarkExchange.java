@@ -0,0 +1,124 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.execution;
+
+import com.google.common.collect.ImmutableMap;
+import io.prestosql.testing.MaterializedResult;
+import io.prestosql.testing.QueryRunner;
+import io.prestosql.tests.tpch.TpchQueryRunnerBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.VerboseMode;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static io.prestosql.SystemSessionProperties.JOIN_DISTRIBUTION_TYPE;
+
+/**
+ * Compares the pull and the streaming exchange transports: the latency query moves a few
+ * rows through several stages, while the throughput query repartitions and gathers the
+ * rows of the tiny lineitem and orders tables.
+ */
+@SuppressWarnings("MethodMayBeStatic")
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 10)
+@Fork(1)
+@Measurement(iterations = 20)
+@BenchmarkMode(Mode.AverageTime)
+public class BenchmarkExchange
+{
+    @SuppressWarnings("FieldMayBeFinal")
+    @State(Scope.Benchmark)
+    public static class BenchmarkData
+    {
+        private final Map<String, String> queries = ImmutableMap.of(
+                "LATENCY", "" +
+                        "SELECT r.name, count(*) " +
+                        "FROM nation n JOIN region r ON n.regionkey = r.regionkey " +
+                        "GROUP BY r.name " +
+                        "ORDER BY r.name",
+                "THROUGHPUT", "" +
+                        "SELECT l.orderkey, l.partkey, l.extendedprice, l.comment, o.orderdate, o.comment " +
+                        "FROM lineitem l JOIN orders o ON l.orderkey = o.orderkey");
+
+        @Param({"LATENCY", "THROUGHPUT"})
+        private String queryId = "LATENCY";
+        @Param({"false", "true"})
+        private String streamingEnabled = "false";
+
+        private QueryRunner queryRunner;
+        private String query;
+
+        @Setup
+        public void setup()
+                throws Exception
+        {
+            queryRunner = TpchQueryRunnerBuilder.builder()
+                    .amendSession(session -> session.setSystemProperty(JOIN_DISTRIBUTION_TYPE, "PARTITIONED"))
+                    .setSingleExtraProperty("exchange.streaming-enabled", streamingEnabled)
+                    .build();
+
+            query = queries.get(queryId);
+        }
+
+        @TearDown
+        public void tearDown()
+        {
+            queryRunner.close();
+            queryRunner = null;
+        }
+    }
+
+    @Benchmark
+    public MaterializedResult exchange(BenchmarkData benchmarkData)
+    {
+        return benchmarkData.queryRunner.execute(benchmarkData.query);
+    }
+
+    public static void main(String[] args)
+            throws Throwable
+    {
+        // assure the benchmarks are valid before running
+        BenchmarkData data = new BenchmarkData();
+        data.streamingEnabled = "true";
+        data.setup();
+        try {
+            new BenchmarkExchange().exchange(data);
+        }
+        finally {
+            data.tearDown();
+        }
+
+        Options options = new OptionsBuilder()
+                .verbosity(VerboseMode.NORMAL)
+                .include(".*" + BenchmarkExchange.class.getSimpleName() + ".*")
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.tests;
+
+import io.prestosql.tests.tpch.TpchQueryRunnerBuilder;
+import org.testng.annotations.Test;
+
+import static io.prestosql.SystemSessionProperties.ADAPTIVE_PARTIAL_AGGREGATION_ENABLED;
+import static io.prestosql.SystemSessionProperties.ADAPTIVE_PARTIAL_AGGREGATION_MIN_ROWS;
+import static java.lang.String.format;
+import static org.testng.Assert.assertTrue;
+
+public class TestAdaptivePartialAggregation
+        extends AbstractTestQueryFramework
+{
+    protected TestAdaptivePartialAggregation()
+    {
+        // a tiny partial aggregation memory limit flushes every page, so the decision is taken after the first one
+        super(() -> TpchQueryRunnerBuilder
+                .builder()
+                .amendSession(builder -> builder
+                        .setSystemProperty(ADAPTIVE_PARTIAL_AGGREGATION_ENABLED, "true")
+                        .setSystemProperty(ADAPTIVE_PARTIAL_AGGREGATION_MIN_ROWS, "1"))
+                .setSingleExtraProperty("task.max-partial-aggregation-memory", "1B")
+                .build());
+    }
+
+    @Test
+    public void testUniqueGroupingKeys()
+    {
+        assertQuery("SELECT custkey, orderdate, count(*), sum(totalprice) FROM orders GROUP BY custkey, orderdate");
+        assertQuery("SELECT partkey, suppkey, max(quantity) FROM lineitem GROUP BY partkey, suppkey");
+    }
+
+    @Test
+    public void testExplainAnalyze()
+    {
+        String value = (String) computeActual("EXPLAIN ANALYZE SELECT custkey, orderdate, count(*) FROM orders GROUP BY custkey, orderdate").getOnlyValue();
+        assertTrue(value.matches("(?s:.*)Partial aggregation disabled, Passed through: [1-9][0-9]* rows(?s:.*)"), format("Expected output to contain the partial aggregation bypass, but it is %s", value));
+    }
+}